@@ -0,0 +1,63 @@
+/*
+ * file:       PresentationDataLoader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+/**
+ * Implemented by readers which defer populating the views, tables, filters
+ * and groups of a project until they are first accessed. Each method is
+ * called the first time the corresponding container is retrieved from the
+ * ProjectFile instance. Loaders must not throw exceptions: any data
+ * required should be captured when the project is read, and data which
+ * can't be decoded is ignored, leaving the container empty.
+ */
+public interface PresentationDataLoader
+{
+   /**
+    * Populate the table container.
+    *
+    * @param file parent project
+    */
+   public void loadTables(ProjectFile file);
+
+   /**
+    * Populate the view container, including the saved view state.
+    *
+    * @param file parent project
+    */
+   public void loadViews(ProjectFile file);
+
+   /**
+    * Populate the filter container.
+    *
+    * @param file parent project
+    */
+   public void loadFilters(ProjectFile file);
+
+   /**
+    * Populate the group container.
+    *
+    * @param file parent project
+    */
+   public void loadGroups(ProjectFile file);
+}
@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 import java.util.WeakHashMap;
 
 import net.sf.mpxj.common.DateHelper;
@@ -333,7 +334,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
 
       while (days > 0)
       {
-         if (isWorkingDate(cal.getTime(), day) == true)
+         if (isWorkingDate(cal.getTimeInMillis(), day) == true)
          {
             ++duration;
          }
@@ -359,7 +360,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       Date result = m_startTimeCache.get(date);
       if (result == null)
       {
-         ProjectCalendarDateRanges ranges = getRanges(date, null, null);
+         ProjectCalendarDateRanges ranges = getRanges(date.getTime(), null);
          if (ranges == null)
          {
             result = getParentFile().getProjectProperties().getDefaultStartTime();
@@ -387,7 +388,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
 
       if (date != null)
       {
-         ProjectCalendarDateRanges ranges = getRanges(date, null, null);
+         ProjectCalendarDateRanges ranges = getRanges(date.getTime(), null);
          if (ranges == null)
          {
             result = getParentFile().getProjectProperties().getDefaultEndTime();
@@ -435,171 +436,207 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       //       comparisons work as sometimes the double ends up with some extra e.g. .0000000000003
       //       that wreak havoc on the comparisons.
       double remainingMinutes = NumberHelper.round(duration.convertUnits(TimeUnit.MINUTES, properties).getDuration(), 2);
+      return new Date(calculateDate(startDate.getTime(), remainingMinutes, returnNextWorkStart));
+   }
+
+   /**
+    * Given a start time and an amount of work, this method calculates the
+    * time at which the work ends. Times are expressed in minutes since
+    * the epoch. This method is equivalent to the Date based version
+    * of getDate, but does not allocate Date or Duration instances.
+    *
+    * @param startMinute start time in minutes since the epoch
+    * @param workMinutes amount of work in minutes
+    * @param returnNextWorkStart if set to true will return start of next working period
+    * @return end time in minutes since the epoch
+    */
+   public long getDate(long startMinute, long workMinutes, boolean returnNextWorkStart)
+   {
+      return calculateDate(startMinute * DateHelper.MS_PER_MINUTE, workMinutes, returnNextWorkStart) / DateHelper.MS_PER_MINUTE;
+   }
 
+   /**
+    * Given a start time and an amount of work, this method calculates the
+    * time at which the work ends.
+    *
+    * @param startTime start time in milliseconds
+    * @param remainingMinutes amount of work in minutes
+    * @param returnNextWorkStart if set to true will return start of next working period
+    * @return end time in milliseconds
+    */
+   private long calculateDate(long startTime, double remainingMinutes, boolean returnNextWorkStart)
+   {
       //
       // Can we skip come computation by working forward from the
       // last call to this method?
       //
-      Date getDateLastStartDate = m_getDateLastStartDate;
-      double getDateLastRemainingMinutes = m_getDateLastRemainingMinutes;
-
-      m_getDateLastStartDate = startDate;
-      m_getDateLastRemainingMinutes = remainingMinutes;
-
-      if (m_getDateLastResult != null && DateHelper.compare(startDate, getDateLastStartDate) == 0 && remainingMinutes >= getDateLastRemainingMinutes)
+      long requestedStartTime = startTime;
+      double requestedRemainingMinutes = remainingMinutes;
+      GetDateResult last = m_getDateLast;
+      if (last == null)
       {
-         startDate = m_getDateLastResult;
-         remainingMinutes = remainingMinutes - getDateLastRemainingMinutes;
+         last = new GetDateResult();
+         m_getDateLast = last;
       }
 
-      Calendar cal = Calendar.getInstance();
-      cal.setTime(startDate);
-      Calendar endCal = Calendar.getInstance();
-
-      while (remainingMinutes > 0)
+      synchronized (last)
       {
-         //
-         // Get the current date and time and determine how many
-         // working hours remain
-         //
-         Date currentDate = cal.getTime();
-         endCal.setTime(currentDate);
-         endCal.add(Calendar.DAY_OF_YEAR, 1);
-         Date currentDateEnd = DateHelper.getDayStartDate(endCal.getTime());
-         double currentDateWorkingMinutes = getWork(currentDate, currentDateEnd, TimeUnit.MINUTES).getDuration();
-
-         //
-         // We have more than enough hours left
-         //
-         if (remainingMinutes > currentDateWorkingMinutes)
+         if (last.m_valid && startTime == last.m_startTime && remainingMinutes >= last.m_remainingMinutes)
          {
-            //
-            // Deduct this day's hours from our total
-            //
-            remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
+            startTime = last.m_result;
+            remainingMinutes = remainingMinutes - last.m_remainingMinutes;
+         }
+      }
 
-            //
-            // Move the calendar forward to the next working day
-            //
-            Day day;
-            int nonWorkingDayCount = 0;
-            do
-            {
-               cal.add(Calendar.DAY_OF_YEAR, 1);
-               day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
-               ++nonWorkingDayCount;
-               if (nonWorkingDayCount > MAX_NONWORKING_DAYS)
-               {
-                  cal.setTime(startDate);
-                  cal.add(Calendar.DAY_OF_YEAR, 1);
-                  remainingMinutes = 0;
-                  break;
-               }
-            }
-            while (!isWorkingDate(cal.getTime(), day));
+      Calendar cal = DateHelper.popCalendar();
 
-            //
-            // Retrieve the start time for this day
-            //
-            Date startTime = getStartTime(cal.getTime());
-            DateHelper.setTime(cal, startTime);
-         }
-         else
+      try
+      {
+         long currentTime = startTime;
+         while (remainingMinutes > 0)
          {
             //
-            // We have less hours to allocate than there are working hours
-            // in this day. We need to calculate the time of day at which
-            // our work ends.
+            // Determine how many working hours remain in the current day
             //
-            ProjectCalendarDateRanges ranges = getRanges(cal.getTime(), cal, null);
+            long currentDateEnd = getDayStart(cal, currentTime, 1);
+            double currentDateWorkingMinutes = getWorkTime(currentTime, currentDateEnd) / (double) DateHelper.MS_PER_MINUTE;
 
             //
-            // Now we have the range of working hours for this day,
-            // step through it to work out the end point
+            // We have more than enough hours left
             //
-            Date endTime = null;
-            Date currentDateStartTime = DateHelper.getCanonicalTime(currentDate);
-            boolean firstRange = true;
-            for (DateRange range : ranges)
+            if (remainingMinutes > currentDateWorkingMinutes)
             {
                //
-               // Skip this range if its end is before our start time
+               // Deduct this day's hours from our total
                //
-               Date rangeStart = range.getStart();
-               Date rangeEnd = range.getEnd();
-
-               if (rangeStart == null || rangeEnd == null)
-               {
-                  continue;
-               }
+               remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
 
-               Date canonicalRangeEnd = DateHelper.getCanonicalTime(rangeEnd);
-               Date canonicalRangeStart = DateHelper.getCanonicalTime(rangeStart);
-
-               Date rangeStartDay = DateHelper.getDayStartDate(rangeStart);
-               Date rangeEndDay = DateHelper.getDayStartDate(rangeEnd);
-
-               if (rangeStartDay.getTime() != rangeEndDay.getTime())
+               //
+               // Move the calendar forward to the next working day
+               //
+               Day day;
+               int nonWorkingDayCount = 0;
+               do
                {
-                  canonicalRangeEnd = DateHelper.addDays(canonicalRangeEnd, 1);
+                  currentTime = addDays(cal, currentTime, 1);
+                  day = getDay(cal, currentTime);
+                  ++nonWorkingDayCount;
+                  if (nonWorkingDayCount > MAX_NONWORKING_DAYS)
+                  {
+                     currentTime = addDays(cal, startTime, 1);
+                     remainingMinutes = 0;
+                     break;
+                  }
                }
+               while (!isWorkingDate(currentTime, day));
 
-               if (firstRange && canonicalRangeEnd.getTime() < currentDateStartTime.getTime())
-               {
-                  continue;
-               }
+               //
+               // Retrieve the start time for this day
+               //
+               currentTime = setTime(cal, currentTime, getCanonicalStartTime(currentTime));
+            }
+            else
+            {
+               //
+               // We have less hours to allocate than there are working hours
+               // in this day. We need to calculate the time of day at which
+               // our work ends.
+               //
+               ProjectCalendarDateRanges ranges = getRanges(currentTime, null);
 
                //
-               // Move the start of the range if our current start is
-               // past the range start
+               // Now we have the range of working hours for this day,
+               // step through it to work out the end point
                //
-               if (firstRange && canonicalRangeStart.getTime() < currentDateStartTime.getTime())
+               long endTime = NO_TIME;
+               long currentDateStartTime = getCanonicalTime(currentTime);
+               boolean firstRange = true;
+               int rangeCount = ranges.getRangeCount();
+               for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
                {
-                  canonicalRangeStart = currentDateStartTime;
-               }
-               firstRange = false;
+                  //
+                  // Skip this range if its end is before our start time
+                  //
+                  DateRange range = ranges.getRange(rangeIndex);
+                  if (range.getStart() == null || range.getEnd() == null)
+                  {
+                     continue;
+                  }
 
-               double rangeMinutes;
+                  long canonicalRangeStart = getCanonicalTime(range.getStart().getTime());
+                  long canonicalRangeEnd = getCanonicalRangeEnd(range);
 
-               rangeMinutes = canonicalRangeEnd.getTime() - canonicalRangeStart.getTime();
-               rangeMinutes /= (1000 * 60);
+                  if (firstRange && canonicalRangeEnd < currentDateStartTime)
+                  {
+                     continue;
+                  }
 
-               if (remainingMinutes > rangeMinutes)
-               {
-                  remainingMinutes = NumberHelper.round(remainingMinutes - rangeMinutes, 2);
-               }
-               else
-               {
-                  if (Duration.durationValueEquals(remainingMinutes, rangeMinutes))
+                  //
+                  // Move the start of the range if our current start is
+                  // past the range start
+                  //
+                  if (firstRange && canonicalRangeStart < currentDateStartTime)
                   {
-                     endTime = canonicalRangeEnd;
-                     if (rangeStartDay.getTime() != rangeEndDay.getTime())
-                     {
-                        // The range ends the next day, so let's adjust our date accordingly.
-                        cal.add(Calendar.DAY_OF_YEAR, 1);
-                     }
+                     canonicalRangeStart = currentDateStartTime;
+                  }
+                  firstRange = false;
+
+                  double rangeMinutes;
+
+                  rangeMinutes = canonicalRangeEnd - canonicalRangeStart;
+                  rangeMinutes /= (1000 * 60);
+
+                  if (remainingMinutes > rangeMinutes)
+                  {
+                     remainingMinutes = NumberHelper.round(remainingMinutes - rangeMinutes, 2);
                   }
                   else
                   {
-                     endTime = new Date((long) (canonicalRangeStart.getTime() + (remainingMinutes * (60 * 1000))));
-                     returnNextWorkStart = false;
+                     if (Duration.durationValueEquals(remainingMinutes, rangeMinutes))
+                     {
+                        endTime = canonicalRangeEnd;
+                        if (canonicalRangeEnd >= DateHelper.MS_PER_DAY)
+                        {
+                           // The range ends the next day, so let's adjust our date accordingly.
+                           currentTime = addDays(cal, currentTime, 1);
+                        }
+                     }
+                     else
+                     {
+                        endTime = (long) (canonicalRangeStart + (remainingMinutes * DateHelper.MS_PER_MINUTE));
+                        returnNextWorkStart = false;
+                     }
+                     remainingMinutes = 0;
+                     break;
                   }
-                  remainingMinutes = 0;
-                  break;
                }
+
+               currentTime = setTime(cal, currentTime, endTime);
             }
+         }
 
-            DateHelper.setTime(cal, endTime);
+         synchronized (last)
+         {
+            last.m_valid = true;
+            last.m_startTime = requestedStartTime;
+            last.m_remainingMinutes = requestedRemainingMinutes;
+            last.m_result = currentTime;
          }
+
+         if (returnNextWorkStart)
+         {
+            cal.setTimeInMillis(currentTime);
+            updateToNextWorkStart(cal);
+            currentTime = cal.getTimeInMillis();
+         }
+
+         return currentTime;
       }
 
-      m_getDateLastResult = cal.getTime();
-      if (returnNextWorkStart)
+      finally
       {
-         updateToNextWorkStart(cal);
+         DateHelper.pushCalendar(cal);
       }
-
-      return cal.getTime();
    }
 
    /**
@@ -619,147 +656,168 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       //       comparisons work as sometimes the double ends up with some extra e.g. .0000000000003
       //       that wreak havoc on the comparisons.
       double remainingMinutes = NumberHelper.round(duration.convertUnits(TimeUnit.MINUTES, properties).getDuration(), 2);
-      Calendar cal = Calendar.getInstance();
-      cal.setTime(finishDate);
-      Calendar startCal = Calendar.getInstance();
-
-      while (remainingMinutes > 0)
-      {
-         //
-         // Get the current date and time and determine how many
-         // working hours remain
-         //
-         Date currentDate = cal.getTime();
-         startCal.setTime(currentDate);
-         startCal.add(Calendar.DAY_OF_YEAR, -1);
-         Date currentDateEnd = DateHelper.getDayEndDate(startCal.getTime());
-         double currentDateWorkingMinutes = getWork(currentDateEnd, currentDate, TimeUnit.MINUTES).getDuration();
-
-         //
-         // We have more than enough hours left
-         //
-         if (remainingMinutes > currentDateWorkingMinutes)
-         {
-            //
-            // Deduct this day's hours from our total
-            //
-            remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
+      long result = calculateStartDate(finishDate.getTime(), remainingMinutes);
+      return result == NO_TIME ? null : new Date(result);
+   }
 
-            //
-            // Move the calendar backward to the previous working day
-            //
-            int count = 0;
-            Day day;
-            do
-            {
-               if (count > 7)
-               {
-                  break; // Protect against a calendar with all days non-working
-               }
-               count++;
-               cal.add(Calendar.DAY_OF_YEAR, -1);
-               day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
-            }
-            while (!isWorkingDate(cal.getTime(), day));
+   /**
+    * Given a finish time and an amount of work, this method calculates
+    * backwards to the start time. Times are expressed in minutes since
+    * the epoch. This method is equivalent to the Date based version
+    * of getStartDate, but does not allocate Date or Duration instances.
+    *
+    * @param finishMinute finish time in minutes since the epoch
+    * @param workMinutes amount of work in minutes
+    * @return start time in minutes since the epoch, or Long.MIN_VALUE if the calendar has no working days
+    */
+   public long getStartDate(long finishMinute, long workMinutes)
+   {
+      long result = calculateStartDate(finishMinute * DateHelper.MS_PER_MINUTE, workMinutes);
+      return result == NO_TIME ? NO_TIME : result / DateHelper.MS_PER_MINUTE;
+   }
 
-            if (count > 7)
-            {
-               // We have a calendar with no working days.
-               return null;
-            }
+   /**
+    * Given a finish time and an amount of work, this method calculates
+    * backwards to the start time.
+    *
+    * @param finishTime finish time in milliseconds
+    * @param remainingMinutes amount of work in minutes
+    * @return start time in milliseconds, or NO_TIME if the calendar has no working days
+    */
+   private long calculateStartDate(long finishTime, double remainingMinutes)
+   {
+      Calendar cal = DateHelper.popCalendar();
 
-            //
-            // Retrieve the finish time for this day
-            //
-            Date finishTime = getFinishTime(cal.getTime());
-            DateHelper.setTime(cal, finishTime);
-         }
-         else
+      try
+      {
+         long currentTime = finishTime;
+         while (remainingMinutes > 0)
          {
             //
-            // We have less hours to allocate than there are working hours
-            // in this day. We need to calculate the time of day at which
-            // our work starts.
+            // Determine how many working hours remain in the current day
             //
-            ProjectCalendarDateRanges ranges = getRanges(cal.getTime(), cal, null);
+            long currentDateEnd = getDayEnd(cal, currentTime, -1);
+            double currentDateWorkingMinutes = getWorkTime(currentDateEnd, currentTime) / (double) DateHelper.MS_PER_MINUTE;
 
             //
-            // Now we have the range of working hours for this day,
-            // step through it to work out the start point
+            // We have more than enough hours left
             //
-            Date startTime = null;
-            Date currentDateFinishTime = DateHelper.getCanonicalTime(currentDate);
-            boolean firstRange = true;
-            // Traverse from end to start
-            for (int i = ranges.getRangeCount() - 1; i >= 0; i--)
+            if (remainingMinutes > currentDateWorkingMinutes)
             {
-               DateRange range = ranges.getRange(i);
                //
-               // Skip this range if its start is after our end time
+               // Deduct this day's hours from our total
                //
-               Date rangeStart = range.getStart();
-               Date rangeEnd = range.getEnd();
+               remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
 
-               if (rangeStart == null || rangeEnd == null)
+               //
+               // Move the calendar backward to the previous working day
+               //
+               int count = 0;
+               Day day;
+               do
                {
-                  continue;
-               }
-
-               Date canonicalRangeEnd = DateHelper.getCanonicalTime(rangeEnd);
-               Date canonicalRangeStart = DateHelper.getCanonicalTime(rangeStart);
-
-               Date rangeStartDay = DateHelper.getDayStartDate(rangeStart);
-               Date rangeEndDay = DateHelper.getDayStartDate(rangeEnd);
-
-               if (rangeStartDay.getTime() != rangeEndDay.getTime())
-               {                  
-                  canonicalRangeEnd = DateHelper.addDays(canonicalRangeEnd, 1);
+                  if (count > 7)
+                  {
+                     break; // Protect against a calendar with all days non-working
+                  }
+                  count++;
+                  currentTime = addDays(cal, currentTime, -1);
+                  day = getDay(cal, currentTime);
                }
+               while (!isWorkingDate(currentTime, day));
 
-               if (firstRange && canonicalRangeStart.getTime() > currentDateFinishTime.getTime())
+               if (count > 7)
                {
-                  continue;
+                  // We have a calendar with no working days.
+                  return NO_TIME;
                }
 
                //
-               // Move the end of the range if our current end is
-               // before the range end
+               // Retrieve the finish time for this day
+               //
+               currentTime = setTime(cal, currentTime, getCanonicalFinishTime(currentTime));
+            }
+            else
+            {
+               //
+               // We have less hours to allocate than there are working hours
+               // in this day. We need to calculate the time of day at which
+               // our work starts.
                //
-               if (firstRange && canonicalRangeEnd.getTime() > currentDateFinishTime.getTime())
+               ProjectCalendarDateRanges ranges = getRanges(currentTime, null);
+
+               //
+               // Now we have the range of working hours for this day,
+               // step through it to work out the start point
+               //
+               long startTime = NO_TIME;
+               long currentDateFinishTime = getCanonicalTime(currentTime);
+               boolean firstRange = true;
+               // Traverse from end to start
+               for (int i = ranges.getRangeCount() - 1; i >= 0; i--)
                {
-                  canonicalRangeEnd = currentDateFinishTime;
-               }
-               firstRange = false;
+                  DateRange range = ranges.getRange(i);
+                  //
+                  // Skip this range if its start is after our end time
+                  //
+                  if (range.getStart() == null || range.getEnd() == null)
+                  {
+                     continue;
+                  }
 
-               double rangeMinutes;
+                  long canonicalRangeStart = getCanonicalTime(range.getStart().getTime());
+                  long canonicalRangeEnd = getCanonicalRangeEnd(range);
 
-               rangeMinutes = canonicalRangeEnd.getTime() - canonicalRangeStart.getTime();
-               rangeMinutes /= (1000 * 60);
+                  if (firstRange && canonicalRangeStart > currentDateFinishTime)
+                  {
+                     continue;
+                  }
 
-               if (remainingMinutes > rangeMinutes)
-               {
-                  remainingMinutes = NumberHelper.round(remainingMinutes - rangeMinutes, 2);
-               }
-               else
-               {
-                  if (Duration.durationValueEquals(remainingMinutes, rangeMinutes))
+                  //
+                  // Move the end of the range if our current end is
+                  // before the range end
+                  //
+                  if (firstRange && canonicalRangeEnd > currentDateFinishTime)
                   {
-                     startTime = canonicalRangeStart;
+                     canonicalRangeEnd = currentDateFinishTime;
+                  }
+                  firstRange = false;
+
+                  double rangeMinutes;
+
+                  rangeMinutes = canonicalRangeEnd - canonicalRangeStart;
+                  rangeMinutes /= (1000 * 60);
+
+                  if (remainingMinutes > rangeMinutes)
+                  {
+                     remainingMinutes = NumberHelper.round(remainingMinutes - rangeMinutes, 2);
                   }
                   else
                   {
-                     startTime = new Date((long) (canonicalRangeEnd.getTime() - (remainingMinutes * (60 * 1000))));
+                     if (Duration.durationValueEquals(remainingMinutes, rangeMinutes))
+                     {
+                        startTime = canonicalRangeStart;
+                     }
+                     else
+                     {
+                        startTime = (long) (canonicalRangeEnd - (remainingMinutes * DateHelper.MS_PER_MINUTE));
+                     }
+                     remainingMinutes = 0;
+                     break;
                   }
-                  remainingMinutes = 0;
-                  break;
                }
-            }
 
-            DateHelper.setTime(cal, startTime);
+               currentTime = setTime(cal, currentTime, startTime);
+            }
          }
+
+         return currentTime;
       }
 
-      return cal.getTime();
+      finally
+      {
+         DateHelper.pushCalendar(cal);
+      }
    }
 
    /**
@@ -769,35 +827,30 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    private void updateToNextWorkStart(Calendar cal)
    {
-      Date originalDate = cal.getTime();
+      long originalTime = cal.getTimeInMillis();
 
       //
       // Find the date ranges for the current day
       //
-      ProjectCalendarDateRanges ranges = getRanges(originalDate, cal, null);
+      ProjectCalendarDateRanges ranges = getRanges(originalTime, null);
 
       if (ranges != null)
       {
          //
          // Do we have a start time today?
          //
-         Date calTime = DateHelper.getCanonicalTime(cal.getTime());
-         Date startTime = null;
-         for (DateRange range : ranges)
+         long calTime = getCanonicalTime(originalTime);
+         long startTime = NO_TIME;
+         int rangeCount = ranges.getRangeCount();
+         for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
          {
-            Date rangeStart = DateHelper.getCanonicalTime(range.getStart());
-            Date rangeEnd = DateHelper.getCanonicalTime(range.getEnd());
-            Date rangeStartDay = DateHelper.getDayStartDate(range.getStart());
-            Date rangeEndDay = DateHelper.getDayStartDate(range.getEnd());
+            DateRange range = ranges.getRange(rangeIndex);
+            long rangeStart = getCanonicalTime(range.getStart().getTime());
+            long rangeEnd = getCanonicalRangeEnd(range);
 
-            if (rangeStartDay.getTime() != rangeEndDay.getTime())
+            if (calTime < rangeEnd)
             {
-               rangeEnd = DateHelper.addDays(rangeEnd, 1);
-            }
-
-            if (calTime.getTime() < rangeEnd.getTime())
-            {
-               if (calTime.getTime() > rangeStart.getTime())
+               if (calTime > rangeStart)
                {
                   startTime = calTime;
                }
@@ -813,7 +866,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
          // If we don't have a start time today - find the next working day
          // then retrieve the start time.
          //
-         if (startTime == null)
+         if (startTime == NO_TIME)
          {
             Day day;
             int nonWorkingDayCount = 0;
@@ -824,16 +877,16 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
                ++nonWorkingDayCount;
                if (nonWorkingDayCount > MAX_NONWORKING_DAYS)
                {
-                  cal.setTime(originalDate);
+                  cal.setTimeInMillis(originalTime);
                   break;
                }
             }
-            while (!isWorkingDate(cal.getTime(), day));
+            while (!isWorkingDate(cal.getTimeInMillis(), day));
 
-            startTime = getStartTime(cal.getTime());
+            startTime = getCanonicalStartTime(cal.getTimeInMillis());
          }
 
-         DateHelper.setTime(cal, startTime);
+         setTime(cal, startTime);
       }
    }
 
@@ -844,31 +897,24 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    private void updateToPreviousWorkFinish(Calendar cal)
    {
-      Date originalDate = cal.getTime();
+      long originalTime = cal.getTimeInMillis();
 
       //
       // Find the date ranges for the current day
       //
-      ProjectCalendarDateRanges ranges = getRanges(originalDate, cal, null);
+      ProjectCalendarDateRanges ranges = getRanges(originalTime, null);
       if (ranges != null)
       {
          //
          // Do we have a start time today?
          //
-         Date calTime = DateHelper.getCanonicalTime(cal.getTime());
-         Date finishTime = null;
-         for (DateRange range : ranges)
+         long calTime = getCanonicalTime(originalTime);
+         long finishTime = NO_TIME;
+         int rangeCount = ranges.getRangeCount();
+         for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
          {
-            Date rangeEnd = DateHelper.getCanonicalTime(range.getEnd());
-            Date rangeStartDay = DateHelper.getDayStartDate(range.getStart());
-            Date rangeEndDay = DateHelper.getDayStartDate(range.getEnd());
-
-            if (rangeStartDay.getTime() != rangeEndDay.getTime())
-            {
-               rangeEnd = DateHelper.addDays(rangeEnd, 1);
-            }
-
-            if (calTime.getTime() >= rangeEnd.getTime())
+            long rangeEnd = getCanonicalRangeEnd(ranges.getRange(rangeIndex));
+            if (calTime >= rangeEnd)
             {
                finishTime = rangeEnd;
                break;
@@ -879,7 +925,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
          // If we don't have a finish time today - find the previous working day
          // then retrieve the finish time.
          //
-         if (finishTime == null)
+         if (finishTime == NO_TIME)
          {
             Day day;
             int nonWorkingDayCount = 0;
@@ -890,16 +936,16 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
                ++nonWorkingDayCount;
                if (nonWorkingDayCount > MAX_NONWORKING_DAYS)
                {
-                  cal.setTime(originalDate);
+                  cal.setTimeInMillis(originalTime);
                   break;
                }
             }
-            while (!isWorkingDate(cal.getTime(), day));
+            while (!isWorkingDate(cal.getTimeInMillis(), day));
 
-            finishTime = getFinishTime(cal.getTime());
+            finishTime = getCanonicalFinishTime(cal.getTimeInMillis());
          }
 
-         DateHelper.setTime(cal, finishTime);
+         setTime(cal, finishTime);
       }
    }
 
@@ -942,10 +988,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public boolean isWorkingDate(Date date)
    {
-      Calendar cal = DateHelper.popCalendar(date);
-      Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
-      DateHelper.pushCalendar(cal);
-      return isWorkingDate(date, day);
+      return isWorkingDate(date.getTime(), null);
    }
 
    /**
@@ -954,13 +997,13 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * that the caller has already calculated the day of the week on which
     * the given day falls.
     *
-    * @param date Date to be tested
-    * @param day Day of the week for the date under test
+    * @param time time in milliseconds
+    * @param day Day of the week for the date under test, or null if not known
     * @return boolean flag
     */
-   private boolean isWorkingDate(Date date, Day day)
+   private boolean isWorkingDate(long time, Day day)
    {
-      ProjectCalendarDateRanges ranges = getRanges(date, null, day);
+      ProjectCalendarDateRanges ranges = getRanges(time, day);
       return ranges.getRangeCount() != 0;
    }
 
@@ -1078,6 +1121,17 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * @return calendar exception, or null if none match this date
     */
    public ProjectCalendarException getException(Date date)
+   {
+      return getException(date.getTime());
+   }
+
+   /**
+    * Retrieve a calendar exception which applies to this time.
+    *
+    * @param targetDate target time in milliseconds
+    * @return calendar exception, or null if none match this time
+    */
+   private ProjectCalendarException getException(long targetDate)
    {
       ProjectCalendarException exception = null;
 
@@ -1090,7 +1144,6 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
 
          int low = 0;
          int high = m_expandedExceptions.size() - 1;
-         long targetDate = date.getTime();
 
          while (low <= high)
          {
@@ -1120,7 +1173,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       if (exception == null && getParent() != null)
       {
          // Check base calendar as well for an exception.
-         exception = getParent().getException(date);
+         exception = getParent().getException(targetDate);
       }
       return (exception);
    }
@@ -1132,6 +1185,17 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * @return work week, or null if none match this date
     */
    public ProjectCalendarWeek getWorkWeek(Date date)
+   {
+      return getWorkWeek(date.getTime());
+   }
+
+   /**
+    * Retrieve a work week which applies to this time.
+    *
+    * @param targetDate target time in milliseconds
+    * @return work week, or null if none match this time
+    */
+   private ProjectCalendarWeek getWorkWeek(long targetDate)
    {
       ProjectCalendarWeek week = null;
       if (!m_workWeeks.isEmpty())
@@ -1140,7 +1204,6 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
 
          int low = 0;
          int high = m_workWeeks.size() - 1;
-         long targetDate = date.getTime();
 
          while (low <= high)
          {
@@ -1170,7 +1233,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       if (week == null && getParent() != null)
       {
          // Check base calendar as well for a work week.
-         week = getParent().getWorkWeek(date);
+         week = getParent().getWorkWeek(targetDate);
       }
       return (week);
    }
@@ -1185,11 +1248,26 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public Duration getWork(Date date, TimeUnit format)
    {
-      ProjectCalendarDateRanges ranges = getRanges(date, null, null);
+      ProjectCalendarDateRanges ranges = getRanges(date.getTime(), null);
       long time = getTotalTime(ranges);
       return convertFormat(time, format);
    }
 
+   /**
+    * Retrieves the amount of work on the day containing the supplied
+    * time, which is expressed in minutes since the epoch. This method is
+    * equivalent to the Date based version of getWork, but does not allocate
+    * Date or Duration instances.
+    *
+    * @param minute target time in minutes since the epoch
+    * @return amount of work in minutes
+    */
+   public long getWork(long minute)
+   {
+      ProjectCalendarDateRanges ranges = getRanges(minute * DateHelper.MS_PER_MINUTE, null);
+      return getTotalTime(ranges) / DateHelper.MS_PER_MINUTE;
+   }
+
    /**
     * This method retrieves a Duration instance representing the amount of
     * work between two dates based on this calendar.
@@ -1201,73 +1279,146 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public Duration getWork(Date startDate, Date endDate, TimeUnit format)
    {
-      DateRange range = new DateRange(startDate, endDate);
-      Long cachedResult = m_workingDateCache.get(range);
-      long totalTime = 0;
+      return convertFormat(getWorkTime(startDate.getTime(), endDate.getTime()), format);
+   }
+
+   /**
+    * This method retrieves the amount of work between two times based on
+    * this calendar. Times are expressed in minutes since the epoch. This
+    * method is equivalent to the Date based version of getWork, but does
+    * not allocate Date or Duration instances.
+    *
+    * @param startMinute start time in minutes since the epoch
+    * @param endMinute end time in minutes since the epoch
+    * @return amount of work in minutes
+    */
+   public long getWork(long startMinute, long endMinute)
+   {
+      return getWorkTime(startMinute * DateHelper.MS_PER_MINUTE, endMinute * DateHelper.MS_PER_MINUTE) / DateHelper.MS_PER_MINUTE;
+   }
 
-      if (cachedResult == null)
+   /**
+    * This method calculates the amount of work between two times
+    * based on this calendar.
+    *
+    * @param startTime start time in milliseconds
+    * @param endTime end time in milliseconds
+    * @return amount of work in milliseconds
+    */
+   private long getWorkTime(long startTime, long endTime)
+   {
+      //
+      // Use a small direct mapped cache of recent results, held as
+      // start, end and work time triples. Entries are read and written
+      // while holding the array's lock, so a reader always sees a
+      // consistent entry. We work with a local reference as the cache
+      // may be discarded while we are calculating. An unused entry
+      // holds zero for each value, which is also a valid result.
+      //
+      long[] cache = m_workTimeCache;
+      if (cache == null)
       {
-         //
-         // We want the start date to be the earliest date, and the end date
-         // to be the latest date. Set a flag here to indicate if we have swapped
-         // the order of the supplied date.
-         //
-         boolean invert = false;
-         if (startDate.getTime() > endDate.getTime())
+         cache = new long[WORK_TIME_CACHE_SIZE * 3];
+         m_workTimeCache = cache;
+      }
+
+      long hash = startTime * 0x9E3779B97F4A7C15L ^ endTime;
+      hash ^= hash >>> 33;
+      hash *= 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 33;
+      int index = (int) (hash & (WORK_TIME_CACHE_SIZE - 1)) * 3;
+      synchronized (cache)
+      {
+         if (cache[index] == startTime && cache[index + 1] == endTime)
          {
-            invert = true;
-            Date temp = startDate;
-            startDate = endDate;
-            endDate = temp;
+            return cache[index + 2];
          }
+      }
 
-         Date canonicalStartDate = DateHelper.getDayStartDate(startDate);
-         Date canonicalEndDate = DateHelper.getDayStartDate(endDate);
+      long result = calculateWorkTime(startTime, endTime);
+      synchronized (cache)
+      {
+         cache[index] = startTime;
+         cache[index + 1] = endTime;
+         cache[index + 2] = result;
+      }
+      return result;
+   }
 
-         if (canonicalStartDate.getTime() == canonicalEndDate.getTime())
+   /**
+    * This method calculates the amount of work between two times
+    * based on this calendar, without using the cache.
+    *
+    * @param startTime start time in milliseconds
+    * @param endTime end time in milliseconds
+    * @return amount of work in milliseconds
+    */
+   private long calculateWorkTime(long startTime, long endTime)
+   {
+      //
+      // We want the start time to be the earliest time, and the end time
+      // to be the latest time. Set a flag here to indicate if we have swapped
+      // the order of the supplied times.
+      //
+      boolean invert = false;
+      if (startTime > endTime)
+      {
+         invert = true;
+         long temp = startTime;
+         startTime = endTime;
+         endTime = temp;
+      }
+
+      long totalTime = 0;
+
+      if (getDayIndex(getLocalTime(startTime)) == getDayIndex(getLocalTime(endTime)))
+      {
+         ProjectCalendarDateRanges ranges = getRanges(startTime, null);
+         if (ranges.getRangeCount() != 0)
          {
-            ProjectCalendarDateRanges ranges = getRanges(startDate, null, null);
-            if (ranges.getRangeCount() != 0)
-            {
-               totalTime = getTotalTime(ranges, startDate, endDate);
-            }
+            totalTime = getTotalTime(ranges, startTime, endTime);
          }
-         else
+      }
+      else
+      {
+         Calendar cal = DateHelper.popCalendar();
+         long canonicalEndDate;
+         Day day;
+
+         try
          {
+            canonicalEndDate = getDayStart(cal, endTime, 0);
+
             //
             // Find the first working day in the range
             //
-            Date currentDate = startDate;
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(startDate);
-            Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
-            while (isWorkingDate(currentDate, day) == false && currentDate.getTime() < canonicalEndDate.getTime())
+            long currentTime = startTime;
+            day = getDay(cal, startTime);
+            while (isWorkingDate(currentTime, day) == false && currentTime < canonicalEndDate)
             {
-               cal.add(Calendar.DAY_OF_YEAR, 1);
-               currentDate = cal.getTime();
+               currentTime = addDays(cal, currentTime, 1);
                day = day.getNextDay();
             }
 
-            if (currentDate.getTime() < canonicalEndDate.getTime())
+            if (currentTime < canonicalEndDate)
             {
                //
                // Calculate the amount of working time for this day
                //
-               totalTime += getTotalTime(getRanges(currentDate, null, day), currentDate, true);
+               totalTime += getTotalTime(getRanges(currentTime, day), currentTime, true);
 
                //
                // Process each working day until we reach the last day
                //
                while (true)
                {
-                  cal.add(Calendar.DAY_OF_YEAR, 1);
-                  currentDate = cal.getTime();
+                  currentTime = addDays(cal, currentTime, 1);
                   day = day.getNextDay();
 
                   //
                   // We have reached the last day
                   //
-                  if (currentDate.getTime() >= canonicalEndDate.getTime())
+                  if (currentTime >= canonicalEndDate)
                   {
                      break;
                   }
@@ -1275,7 +1426,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
                   //
                   // Skip this day if it has no working time
                   //
-                  ProjectCalendarDateRanges ranges = getRanges(currentDate, null, day);
+                  ProjectCalendarDateRanges ranges = getRanges(currentTime, day);
                   if (ranges.getRangeCount() == 0)
                   {
                      continue;
@@ -1287,30 +1438,29 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
                   totalTime += getTotalTime(ranges);
                }
             }
-
-            //
-            // We are now at the last day
-            //
-            ProjectCalendarDateRanges ranges = getRanges(endDate, null, day);
-            if (ranges.getRangeCount() != 0)
-            {
-               totalTime += getTotalTime(ranges, DateHelper.getDayStartDate(endDate), endDate);
-            }
          }
 
-         if (invert)
+         finally
          {
-            totalTime = -totalTime;
+            DateHelper.pushCalendar(cal);
          }
 
-         m_workingDateCache.put(range, Long.valueOf(totalTime));
+         //
+         // We are now at the last day
+         //
+         ProjectCalendarDateRanges ranges = getRanges(endTime, day);
+         if (ranges.getRangeCount() != 0)
+         {
+            totalTime += getTotalTime(ranges, canonicalEndDate, endTime);
+         }
       }
-      else
+
+      if (invert)
       {
-         totalTime = cachedResult.longValue();
+         totalTime = -totalTime;
       }
 
-      return convertFormat(totalTime, format);
+      return totalTime;
    }
 
    /**
@@ -1416,17 +1566,18 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * before or after an intersection point.
     *
     * @param exception calendar exception
-    * @param date intersection time
+    * @param time intersection time in milliseconds
     * @param after true to report time after intersection, false to report time before
     * @return length of time in milliseconds
     */
-   private long getTotalTime(ProjectCalendarDateRanges exception, Date date, boolean after)
+   private long getTotalTime(ProjectCalendarDateRanges exception, long time, boolean after)
    {
-      long currentTime = DateHelper.getCanonicalTime(date).getTime();
+      long currentTime = getCanonicalTime(time);
       long total = 0;
-      for (DateRange range : exception)
+      int rangeCount = exception.getRangeCount();
+      for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
       {
-         total += getTime(range.getStart(), range.getEnd(), currentTime, after);
+         total += getTime(exception.getRange(rangeIndex), currentTime, after);
       }
       return (total);
    }
@@ -1441,9 +1592,14 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    private long getTotalTime(ProjectCalendarDateRanges exception)
    {
       long total = 0;
-      for (DateRange range : exception)
+      int rangeCount = exception.getRangeCount();
+      for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
       {
-         total += getTime(range.getStart(), range.getEnd());
+         DateRange range = exception.getRange(rangeIndex);
+         if (range.getStart() != null && range.getEnd() != null)
+         {
+            total += getCanonicalRangeEnd(range) - getCanonicalTime(range.getStart().getTime());
+         }
       }
       return (total);
    }
@@ -1453,46 +1609,36 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * day, which intersects with the supplied time range.
     *
     * @param hours collection of working hours in a day
-    * @param startDate time range start
-    * @param endDate time range end
+    * @param startTime time range start in milliseconds
+    * @param endTime time range end in milliseconds
     * @return length of time in milliseconds
     */
-   private long getTotalTime(ProjectCalendarDateRanges hours, Date startDate, Date endDate)
+   private long getTotalTime(ProjectCalendarDateRanges hours, long startTime, long endTime)
    {
       long total = 0;
-      if (startDate.getTime() != endDate.getTime())
+      if (startTime != endTime)
       {
-         Date start = DateHelper.getCanonicalTime(startDate);
-         Date end = DateHelper.getCanonicalTime(endDate);
+         long start = getCanonicalTime(startTime);
+         long end = getCanonicalTime(endTime);
 
-         for (DateRange range : hours)
+         int rangeCount = hours.getRangeCount();
+         for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
          {
+            DateRange range = hours.getRange(rangeIndex);
             Date rangeStart = range.getStart();
             Date rangeEnd = range.getEnd();
             if (rangeStart != null && rangeEnd != null)
             {
-               Date canoncialRangeStart = DateHelper.getCanonicalTime(rangeStart);
-               Date canonicalRangeEnd = DateHelper.getCanonicalTime(rangeEnd);
-
-               Date startDay = DateHelper.getDayStartDate(rangeStart);
-               Date finishDay = DateHelper.getDayStartDate(rangeEnd);
+               long canonicalRangeStart = getCanonicalTime(rangeStart.getTime());
+               long canonicalRangeEnd = getCanonicalRangeEnd(range);
 
-               //
-               // Handle the case where the end of the range is at midnight -
-               // this will show up as the start and end days not matching
-               //
-               if (startDay.getTime() != finishDay.getTime())
-               {
-                  canonicalRangeEnd = DateHelper.addDays(canonicalRangeEnd, 1);
-               }
-
-               if (canoncialRangeStart.getTime() == canonicalRangeEnd.getTime() && rangeEnd.getTime() > rangeStart.getTime())
+               if (canonicalRangeStart == canonicalRangeEnd && rangeEnd.getTime() > rangeStart.getTime())
                {
                   total += (24 * 60 * 60 * 1000);
                }
                else
                {
-                  total += getTime(start, end, canoncialRangeStart, canonicalRangeEnd);
+                  total += getTime(start, end, canonicalRangeStart, canonicalRangeEnd);
                }
             }
          }
@@ -1505,49 +1651,35 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * Calculates how much of a time range is before or after a
     * target intersection point.
     *
-    * @param start time range start
-    * @param end time range end
-    * @param target target intersection point
+    * @param range time range
+    * @param target target intersection point, as a canonical time
     * @param after true if time after target required, false for time before
     * @return length of time in milliseconds
     */
-   private long getTime(Date start, Date end, long target, boolean after)
+   private long getTime(DateRange range, long target, boolean after)
    {
       long total = 0;
-      if (start != null && end != null)
+      if (range.getStart() != null && range.getEnd() != null)
       {
-         Date startTime = DateHelper.getCanonicalTime(start);
-         Date endTime = DateHelper.getCanonicalTime(end);
-
-         Date startDay = DateHelper.getDayStartDate(start);
-         Date finishDay = DateHelper.getDayStartDate(end);
-
-         //
-         // Handle the case where the end of the range is at midnight -
-         // this will show up as the start and end days not matching
-         //
-         if (startDay.getTime() != finishDay.getTime())
-         {
-            endTime = DateHelper.addDays(endTime, 1);
-         }
+         long startTime = getCanonicalTime(range.getStart().getTime());
+         long endTime = getCanonicalRangeEnd(range);
 
-         int diff = DateHelper.compare(startTime, endTime, target);
-         if (diff == 0)
+         if (target >= startTime && target <= endTime)
          {
             if (after == true)
             {
-               total = (endTime.getTime() - target);
+               total = (endTime - target);
             }
             else
             {
-               total = (target - startTime.getTime());
+               total = (target - startTime);
             }
          }
          else
          {
-            if ((after == true && diff < 0) || (after == false && diff > 0))
+            if ((after == true && target < startTime) || (after == false && target > endTime))
             {
-               total = (endTime.getTime() - startTime.getTime());
+               total = (endTime - startTime);
             }
          }
       }
@@ -1555,83 +1687,339 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    }
 
    /**
-    * Retrieves the amount of time between two date time values. Note that
-    * these values are converted into canonical values to remove the
-    * date component.
+    * This method returns the length of overlapping time between two time
+    * ranges.
     *
-    * @param start start time
-    * @param end end time
-    * @return length of time
+    * @param start1 start of first range
+    * @param end1 end of first range
+    * @param start2 start start of second range
+    * @param end2 end of second range
+    * @return overlapping time in milliseconds
     */
-   private long getTime(Date start, Date end)
+   private long getTime(long start1, long end1, long start2, long end2)
    {
-      long total = 0;
-      if (start != null && end != null)
-      {
-         Date startTime = DateHelper.getCanonicalTime(start);
-         Date endTime = DateHelper.getCanonicalTime(end);
-
-         Date startDay = DateHelper.getDayStartDate(start);
-         Date finishDay = DateHelper.getDayStartDate(end);
+      long start = Math.max(start1, start2);
+      long end = Math.min(end1, end2);
+      return start < end ? end - start : 0;
+   }
 
-         //
-         // Handle the case where the end of the range is at midnight -
-         // this will show up as the start and end days not matching
-         //
-         if (startDay.getTime() != finishDay.getTime())
-         {            
-            endTime = DateHelper.addDays(endTime, 1);
-         }
+   /**
+    * Retrieves the end of a range of working time as a canonical time.
+    * Where the range ends at midnight, the result is the end of the day
+    * rather than the start.
+    *
+    * @param range range of working time
+    * @return canonical end time
+    */
+   private static long getCanonicalRangeEnd(DateRange range)
+   {
+      long start = getLocalTime(range.getStart().getTime());
+      long end = getLocalTime(range.getEnd().getTime());
+      long result = getCanonicalLocalTime(end);
 
-         total = (endTime.getTime() - startTime.getTime());
+      //
+      // Handle the case where the end of the range is at midnight -
+      // this will show up as the start and end days not matching
+      //
+      if (getDayIndex(start) != getDayIndex(end))
+      {
+         result += DateHelper.MS_PER_DAY;
       }
-      return (total);
+      return result;
    }
 
    /**
-    * This method returns the length of overlapping time between two time
-    * ranges.
+    * Retrieves the canonical start time of the working day containing the given time.
     *
-    * @param start1 start of first range
-    * @param end1 end of first range
-    * @param start2 start start of second range
-    * @param end2 end of second range
-    * @return overlapping time in milliseconds
+    * @param time time in milliseconds
+    * @return canonical start time, or NO_TIME if this is not known
     */
-   private long getTime(Date start1, Date end1, Date start2, Date end2)
+   private long getCanonicalStartTime(long time)
    {
-      long total = 0;
-
-      if (start1 != null && end1 != null && start2 != null && end2 != null)
+      long result;
+      ProjectCalendarDateRanges ranges = getRanges(time, null);
+      if (ranges == null)
       {
-         long start;
-         long end;
+         Date defaultStartTime = getParentFile().getProjectProperties().getDefaultStartTime();
+         result = defaultStartTime == null ? NO_TIME : getCanonicalTime(defaultStartTime.getTime());
+      }
+      else
+      {
+         Date rangeStart = ranges.getRange(0).getStart();
+         result = rangeStart == null ? NO_TIME : getCanonicalTime(rangeStart.getTime());
+      }
+      return result;
+   }
 
-         if (start1.getTime() < start2.getTime())
+   /**
+    * Retrieves the canonical finish time of the working day containing the given time.
+    *
+    * @param time time in milliseconds
+    * @return canonical finish time, or NO_TIME if this is not known
+    */
+   private long getCanonicalFinishTime(long time)
+   {
+      long result;
+      ProjectCalendarDateRanges ranges = getRanges(time, null);
+      if (ranges == null)
+      {
+         Date defaultEndTime = getParentFile().getProjectProperties().getDefaultEndTime();
+         result = defaultEndTime == null ? NO_TIME : getCanonicalTime(defaultEndTime.getTime());
+      }
+      else
+      {
+         Date rangeStart = ranges.getRange(0).getStart();
+         Date rangeFinish = ranges.getRange(ranges.getRangeCount() - 1).getEnd();
+         if (rangeFinish == null)
          {
-            start = start2.getTime();
+            result = NO_TIME;
          }
          else
          {
-            start = start1.getTime();
-         }
+            result = getCanonicalTime(rangeFinish.getTime());
 
-         if (end1.getTime() < end2.getTime())
-         {
-            end = end1.getTime();
-         }
-         else
-         {
-            end = end2.getTime();
+            //
+            // Handle the case where the end of the range is at midnight -
+            // this will show up as the start and end days not matching
+            //
+            if (rangeStart != null && getDayIndex(getLocalTime(rangeStart.getTime())) != getDayIndex(getLocalTime(rangeFinish.getTime())))
+            {
+               result += DateHelper.MS_PER_DAY;
+            }
          }
+      }
+      return result;
+   }
 
-         if (start < end)
-         {
-            total = end - start;
-         }
+   /**
+    * Converts a time to the local time used by the calendars in this
+    * class, i.e. the time which would be shown by a clock in the
+    * default time zone, expressed in milliseconds since the epoch.
+    *
+    * @param time time in milliseconds
+    * @return local time in milliseconds
+    */
+   private static long getLocalTime(long time)
+   {
+      Calendar cal = DateHelper.popCalendar();
+      long result = time + cal.getTimeZone().getOffset(time);
+      DateHelper.pushCalendar(cal);
+      return result;
+   }
+
+   /**
+    * Retrieves the start of a day, relative to the day containing the
+    * given time. The calculation is arithmetic unless a time zone
+    * transition is nearby, in which case the supplied
+    * Calendar instance is used.
+    *
+    * @param cal Calendar instance
+    * @param time time in milliseconds
+    * @param offset number of days to add to the given time
+    * @return time in milliseconds representing 00:00:00.000 on the required day
+    */
+   private static long getDayStart(Calendar cal, long time, int offset)
+   {
+      TimeZone zone = cal.getTimeZone();
+      int zoneOffset = zone.getOffset(time);
+      long result = (getDayIndex(time + zoneOffset) + offset) * DateHelper.MS_PER_DAY - zoneOffset;
+
+      if (!isStableOffset(zone, result, zoneOffset))
+      {
+         cal.setTimeInMillis(time);
+         cal.add(Calendar.DAY_OF_YEAR, offset);
+         cal.set(Calendar.HOUR_OF_DAY, 0);
+         cal.set(Calendar.MINUTE, 0);
+         cal.set(Calendar.SECOND, 0);
+         cal.set(Calendar.MILLISECOND, 0);
+         result = cal.getTimeInMillis();
       }
 
-      return (total);
+      return result;
+   }
+
+   /**
+    * Retrieves the end of a day, relative to the day containing the
+    * given time. The calculation is arithmetic unless a time zone
+    * transition is nearby, in which case the supplied
+    * Calendar instance is used.
+    *
+    * @param cal Calendar instance
+    * @param time time in milliseconds
+    * @param offset number of days to add to the given time
+    * @return time in milliseconds representing 23:59:59.999 on the required day
+    */
+   private static long getDayEnd(Calendar cal, long time, int offset)
+   {
+      TimeZone zone = cal.getTimeZone();
+      int zoneOffset = zone.getOffset(time);
+      long result = (getDayIndex(time + zoneOffset) + offset + 1) * DateHelper.MS_PER_DAY - 1 - zoneOffset;
+
+      if (!isStableOffset(zone, result, zoneOffset))
+      {
+         cal.setTimeInMillis(time);
+         cal.add(Calendar.DAY_OF_YEAR, offset);
+         cal.set(Calendar.MILLISECOND, 999);
+         cal.set(Calendar.SECOND, 59);
+         cal.set(Calendar.MINUTE, 59);
+         cal.set(Calendar.HOUR_OF_DAY, 23);
+         result = cal.getTimeInMillis();
+      }
+
+      return result;
+   }
+
+   /**
+    * Adds a number of days to a time, keeping the same time of day.
+    * The calculation is arithmetic unless a time zone transition
+    * is nearby, in which case the supplied Calendar
+    * instance is used.
+    *
+    * @param cal Calendar instance
+    * @param time time in milliseconds
+    * @param days number of days to add
+    * @return time in milliseconds
+    */
+   private static long addDays(Calendar cal, long time, int days)
+   {
+      TimeZone zone = cal.getTimeZone();
+      long result = time + days * DateHelper.MS_PER_DAY;
+
+      if (!isStableOffset(zone, result, zone.getOffset(time)))
+      {
+         cal.setTimeInMillis(time);
+         cal.add(Calendar.DAY_OF_YEAR, days);
+         result = cal.getTimeInMillis();
+      }
+
+      return result;
+   }
+
+   /**
+    * Determine if a result calculated arithmetically from local times
+    * matches the result Calendar would give. This is the case when the
+    * time zone offset is the same either side of the result, so the
+    * local time is neither skipped nor repeated by a transition.
+    *
+    * @param zone time zone
+    * @param time calculated time in milliseconds
+    * @param zoneOffset offset used to calculate the time
+    * @return true if the time zone offset is unchanged
+    */
+   private static boolean isStableOffset(TimeZone zone, long time, int zoneOffset)
+   {
+      return zone.getOffset(time - TRANSITION_WINDOW) == zoneOffset && zone.getOffset(time + TRANSITION_WINDOW) == zoneOffset;
+   }
+
+   /**
+    * Retrieves the day of the week on which a time falls.
+    *
+    * @param cal Calendar instance
+    * @param time time in milliseconds
+    * @return Day instance
+    */
+   private static Day getDay(Calendar cal, long time)
+   {
+      return getDay(getDayIndex(time + cal.getTimeZone().getOffset(time)));
+   }
+
+   /**
+    * Retrieves the number of days since the epoch for a local time.
+    *
+    * @param localTime local time in milliseconds
+    * @return day index
+    */
+   private static long getDayIndex(long localTime)
+   {
+      return localTime >= 0 ? localTime / DateHelper.MS_PER_DAY : (localTime - DateHelper.MS_PER_DAY + 1) / DateHelper.MS_PER_DAY;
+   }
+
+   /**
+    * Retrieves the day of the week for a day index.
+    *
+    * @param dayIndex number of days since the epoch
+    * @return Day instance
+    */
+   private static Day getDay(long dayIndex)
+   {
+      // The epoch was a Thursday
+      return Day.getInstance((int) (((dayIndex + 4) % 7 + 7) % 7) + Calendar.SUNDAY);
+   }
+
+   /**
+    * Retrieves the time of day as a canonical time: the number of
+    * milliseconds since midnight, ignoring the millisecond component
+    * of the time.
+    *
+    * @param time time in milliseconds
+    * @return canonical time
+    */
+   private static long getCanonicalTime(long time)
+   {
+      return getCanonicalLocalTime(getLocalTime(time));
+   }
+
+   /**
+    * Retrieves the canonical time for a local time.
+    *
+    * @param localTime local time in milliseconds
+    * @return canonical time
+    */
+   private static long getCanonicalLocalTime(long localTime)
+   {
+      long result = localTime - getDayIndex(localTime) * DateHelper.MS_PER_DAY;
+      return result - (result % 1000);
+   }
+
+   /**
+    * Set the time of day of a Calendar instance from a canonical time.
+    * The date and the millisecond component of the time are unchanged.
+    *
+    * @param cal Calendar instance
+    * @param canonicalTime canonical time, or NO_TIME to leave the calendar unchanged
+    */
+   private static void setTime(Calendar cal, long canonicalTime)
+   {
+      if (canonicalTime != NO_TIME)
+      {
+         long time = canonicalTime % DateHelper.MS_PER_DAY;
+         cal.set(Calendar.HOUR_OF_DAY, (int) (time / DateHelper.MS_PER_HOUR));
+         cal.set(Calendar.MINUTE, (int) ((time % DateHelper.MS_PER_HOUR) / DateHelper.MS_PER_MINUTE));
+         cal.set(Calendar.SECOND, (int) ((time % DateHelper.MS_PER_MINUTE) / 1000));
+      }
+   }
+
+   /**
+    * Set the time of day from a canonical time. The date and the millisecond
+    * component of the time are unchanged. The calculation is arithmetic
+    * unless a time zone transition is nearby, in which case the supplied
+    * Calendar instance is used.
+    *
+    * @param cal Calendar instance
+    * @param time time in milliseconds
+    * @param canonicalTime canonical time, or NO_TIME to leave the time unchanged
+    * @return time in milliseconds
+    */
+   private static long setTime(Calendar cal, long time, long canonicalTime)
+   {
+      if (canonicalTime == NO_TIME)
+      {
+         return time;
+      }
+
+      TimeZone zone = cal.getTimeZone();
+      int zoneOffset = zone.getOffset(time);
+      long timeOfDay = canonicalTime % DateHelper.MS_PER_DAY;
+      long result = time - getCanonicalLocalTime(time + zoneOffset) + timeOfDay - (timeOfDay % 1000);
+
+      if (!isStableOffset(zone, result, zoneOffset))
+      {
+         cal.setTimeInMillis(time);
+         setTime(cal, canonicalTime);
+         result = cal.getTimeInMillis();
+      }
+
+      return result;
    }
 
    /**
@@ -1866,9 +2254,9 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    private void clearWorkingDateCache()
    {
-      m_workingDateCache.clear();
       m_startTimeCache.clear();
-      m_getDateLastResult = null;
+      m_workTimeCache = null;
+      m_getDateLast = null;
       for (ProjectCalendar calendar : m_derivedCalendars)
       {
          calendar.clearWorkingDateCache();
@@ -1878,17 +2266,16 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    /**
     * Retrieves the working hours on the given date.
     *
-    * @param date required date
-    * @param cal optional calendar instance
+    * @param time required date in milliseconds
     * @param day optional day instance
     * @return working hours
     */
-   private ProjectCalendarDateRanges getRanges(Date date, Calendar cal, Day day)
+   private ProjectCalendarDateRanges getRanges(long time, Day day)
    {
-      ProjectCalendarDateRanges ranges = getException(date);
+      ProjectCalendarDateRanges ranges = getException(time);
       if (ranges == null)
       {
-         ProjectCalendarWeek week = getWorkWeek(date);
+         ProjectCalendarWeek week = getWorkWeek(time);
          if (week == null)
          {
             week = this;
@@ -1896,12 +2283,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
 
          if (day == null)
          {
-            if (cal == null)
-            {
-               cal = Calendar.getInstance();
-               cal.setTime(date);
-            }
-            day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+            day = getDay(getDayIndex(getLocalTime(time)));
          }
 
          ranges = week.getHours(day);
@@ -1979,6 +2361,19 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       return (m_projectFile);
    }
 
+   /**
+    * The result of the most recent call to calculateDate. A single instance
+    * is reused for each call, and its fields are only read or written while
+    * holding its lock, so a reader can never see a partially updated result.
+    */
+   private static final class GetDateResult
+   {
+      boolean m_valid;
+      long m_startTime;
+      double m_remainingMinutes;
+      long m_result;
+   }
+
    /**
     * Reference to parent ProjectFile.
     */
@@ -2022,11 +2417,9 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    /**
     * Caches used to speed up date calculations.
     */
-   private Map<DateRange, Long> m_workingDateCache = new WeakHashMap<DateRange, Long>();
    private Map<Date, Date> m_startTimeCache = new WeakHashMap<Date, Date>();
-   private Date m_getDateLastStartDate;
-   private double m_getDateLastRemainingMinutes;
-   private Date m_getDateLastResult;
+   private long[] m_workTimeCache;
+   private GetDateResult m_getDateLast;
 
    /**
     * Work week definitions.
@@ -2051,4 +2444,21 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * and take an alternative approach.
     */
    private static final int MAX_NONWORKING_DAYS = 1000;
+
+   /**
+    * Period either side of a calculated time which must be free of time
+    * zone transitions for arithmetic on local times to be used. This
+    * exceeds the largest daylight saving adjustment in use.
+    */
+   private static final long TRANSITION_WINDOW = 3 * DateHelper.MS_PER_HOUR;
+
+   /**
+    * Number of entries in the work time cache, must be a power of two.
+    */
+   private static final int WORK_TIME_CACHE_SIZE = 256;
+
+   /**
+    * Value used by the primitive time calculations to represent a missing time.
+    */
+   private static final long NO_TIME = Long.MIN_VALUE;
 }
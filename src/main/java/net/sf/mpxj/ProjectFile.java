@@ -540,6 +540,7 @@ public final class ProjectFile implements ChildTaskContainer
     */
    public ViewContainer getViews()
    {
+      loadPresentationData(VIEWS);
       return m_views;
    }
 
@@ -550,6 +551,7 @@ public final class ProjectFile implements ChildTaskContainer
     */
    public TableContainer getTables()
    {
+      loadPresentationData(TABLES);
       return m_tables;
    }
 
@@ -560,6 +562,7 @@ public final class ProjectFile implements ChildTaskContainer
     */
    public FilterContainer getFilters()
    {
+      loadPresentationData(FILTERS);
       return m_filters;
    }
 
@@ -570,9 +573,87 @@ public final class ProjectFile implements ChildTaskContainer
     */
    public GroupContainer getGroups()
    {
+      loadPresentationData(GROUPS);
       return m_groups;
    }
 
+   /**
+    * Set a loader used to populate the views, tables, filters and groups
+    * when each of these containers is first accessed. This allows
+    * readers to avoid the cost of decoding presentation data which the
+    * caller may never use.
+    *
+    * @param loader presentation data loader, or null
+    */
+   public synchronized void setPresentationDataLoader(PresentationDataLoader loader)
+   {
+      m_presentationDataLoader = loader;
+      m_presentationDataLoaded = 0;
+      m_presentationDataLoading = 0;
+   }
+
+   /**
+    * Populate a presentation data container, if this has not already
+    * been done. Loading one container may cause another to be loaded,
+    * for example views refer to tables, and the loader may retrieve the
+    * container it is populating, so containers currently being loaded
+    * are tracked to avoid loading them twice. A container is only
+    * marked as loaded once the loader has completed successfully.
+    *
+    * @param container container flag
+    */
+   private synchronized void loadPresentationData(int container)
+   {
+      if (m_presentationDataLoader == null || ((m_presentationDataLoaded | m_presentationDataLoading) & container) != 0)
+      {
+         return;
+      }
+
+      PresentationDataLoader loader = m_presentationDataLoader;
+      m_presentationDataLoading |= container;
+
+      try
+      {
+         switch (container)
+         {
+            case TABLES:
+            {
+               loader.loadTables(this);
+               break;
+            }
+
+            case VIEWS:
+            {
+               loader.loadViews(this);
+               break;
+            }
+
+            case FILTERS:
+            {
+               loader.loadFilters(this);
+               break;
+            }
+
+            case GROUPS:
+            {
+               loader.loadGroups(this);
+               break;
+            }
+         }
+      }
+
+      finally
+      {
+         m_presentationDataLoading &= ~container;
+      }
+
+      m_presentationDataLoaded |= container;
+      if (m_presentationDataLoaded == (TABLES | VIEWS | FILTERS | GROUPS))
+      {
+         m_presentationDataLoader = null;
+      }
+   }
+
    /**
     * Retrieves all the subprojects for this project.
     *
@@ -695,4 +776,12 @@ public final class ProjectFile implements ChildTaskContainer
    private final CustomFieldContainer m_customFields = new CustomFieldContainer();
    private final ActivityCodeContainer m_activityCodes = new ActivityCodeContainer();
    private final DataLinkContainer m_dataLinks = new DataLinkContainer();
+   private PresentationDataLoader m_presentationDataLoader;
+   private int m_presentationDataLoaded;
+   private int m_presentationDataLoading;
+
+   private static final int TABLES = 0x01;
+   private static final int VIEWS = 0x02;
+   private static final int FILTERS = 0x04;
+   private static final int GROUPS = 0x08;
 }
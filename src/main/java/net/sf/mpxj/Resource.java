@@ -32,6 +32,7 @@ import java.util.UUID;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.RtfHelper;
 import net.sf.mpxj.common.ResourceFieldLists;
 import net.sf.mpxj.listener.FieldListener;
 
@@ -1066,6 +1067,19 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
       set(ResourceField.NOTES, notes);
    }
 
+   /**
+    * Sets the notes text for this resource from an RTF document. The RTF
+    * formatting is removed the first time the notes are retrieved,
+    * so notes which are never read are never parsed.
+    *
+    * @param notes notes in RTF format
+    */
+   public void setRtfNotes(String notes)
+   {
+      set(ResourceField.NOTES, notes);
+      m_rtfNotes = true;
+   }
+
    /**
     * Retrieves the notes text for this resource.
     *
@@ -2328,6 +2342,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    @Override public Object getCachedValue(FieldType field)
    {
+      stripRtfNotes(field);
       return (field == null ? null : m_array[field.getValue()]);
    }
 
@@ -2336,6 +2351,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    @Override public Object getCurrentValue(FieldType field)
    {
+      stripRtfNotes(field);
       Object result = null;
 
       if (field != null)
@@ -2393,6 +2409,10 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
       if (field != null)
       {
          int index = field.getValue();
+         if (field == ResourceField.NOTES)
+         {
+            m_rtfNotes = false;
+         }
          if (m_eventsEnabled)
          {
             fireFieldChangeEvent((ResourceField) field, m_array[index], value);
@@ -2401,6 +2421,30 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
       }
    }
 
+   /**
+    * If RTF notes are being retrieved for the first time,
+    * replace them with plain text. The flag is only cleared once the
+    * plain text has been stored, so concurrent readers either wait
+    * for the conversion or see the converted value.
+    *
+    * @param field field being retrieved
+    */
+   private void stripRtfNotes(FieldType field)
+   {
+      if (field == ResourceField.NOTES && m_rtfNotes)
+      {
+         synchronized (this)
+         {
+            if (m_rtfNotes)
+            {
+               int index = field.getValue();
+               m_array[index] = RtfHelper.strip((String) m_array[index]);
+               m_rtfNotes = false;
+            }
+         }
+      }
+   }
+
    /**
     * Handle the change in a field value. Reset any cached calculated
     * values affected by this change, pass on the event to any external
@@ -2597,6 +2641,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
    private List<ResourceAssignment> m_assignments = new LinkedList<ResourceAssignment>();
 
    private boolean m_eventsEnabled = true;
+   private volatile boolean m_rtfNotes;
    private boolean m_null;
    private String m_activeDirectoryGUID;
 
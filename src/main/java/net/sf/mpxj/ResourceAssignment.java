@@ -35,6 +35,7 @@ import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.RtfHelper;
 import net.sf.mpxj.listener.FieldListener;
 
 /**
@@ -2221,6 +2222,19 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
       set(AssignmentField.NOTES, notes);
    }
 
+   /**
+    * Sets the notes text for this assignment from an RTF document. The RTF
+    * formatting is removed the first time the notes are retrieved,
+    * so notes which are never read are never parsed.
+    *
+    * @param notes notes in RTF format
+    */
+   public void setRtfNotes(String notes)
+   {
+      set(AssignmentField.NOTES, notes);
+      m_rtfNotes = true;
+   }
+
    /**
     * The Notes field contains notes that you can enter about a task.
     * You can use task notes to help maintain a history for a task.
@@ -2705,6 +2719,10 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
       if (field != null)
       {
          int index = field.getValue();
+         if (field == AssignmentField.NOTES)
+         {
+            m_rtfNotes = false;
+         }
          if (m_eventsEnabled)
          {
             fireFieldChangeEvent((AssignmentField) field, m_array[index], value);
@@ -2713,6 +2731,30 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
       }
    }
 
+   /**
+    * If RTF notes are being retrieved for the first time,
+    * replace them with plain text. The flag is only cleared once the
+    * plain text has been stored, so concurrent readers either wait
+    * for the conversion or see the converted value.
+    *
+    * @param field field being retrieved
+    */
+   private void stripRtfNotes(FieldType field)
+   {
+      if (field == AssignmentField.NOTES && m_rtfNotes)
+      {
+         synchronized (this)
+         {
+            if (m_rtfNotes)
+            {
+               int index = field.getValue();
+               m_array[index] = RtfHelper.strip((String) m_array[index]);
+               m_rtfNotes = false;
+            }
+         }
+      }
+   }
+
    /**
     * This method inserts a name value pair into internal storage.
     *
@@ -2829,6 +2871,7 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
     */
    @Override public Object getCachedValue(FieldType field)
    {
+      stripRtfNotes(field);
       return (field == null ? null : m_array[field.getValue()]);
    }
 
@@ -2837,6 +2880,7 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
     */
    @Override public Object getCurrentValue(FieldType field)
    {
+      stripRtfNotes(field);
       Object result = null;
 
       if (field != null)
@@ -2871,6 +2915,7 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
    private Object[] m_array = new Object[AssignmentField.MAX_VALUE];
 
    private boolean m_eventsEnabled = true;
+   private volatile boolean m_rtfNotes;
 
    private DefaultTimephasedWorkContainer m_timephasedWork;
    private List<TimephasedCost> m_timephasedCost;
@@ -33,6 +33,7 @@ import java.util.UUID;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.RtfHelper;
 import net.sf.mpxj.common.TaskFieldLists;
 import net.sf.mpxj.listener.FieldListener;
 
@@ -203,6 +204,19 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       set(TaskField.NOTES, notes);
    }
 
+   /**
+    * Sets the notes text for this task from an RTF document. The RTF
+    * formatting is removed the first time the notes are retrieved,
+    * so notes which are never read are never parsed.
+    *
+    * @param notes notes in RTF format
+    */
+   public void setRtfNotes(String notes)
+   {
+      set(TaskField.NOTES, notes);
+      m_rtfNotes = true;
+   }
+
    /**
     * This method allows nested tasks to be added, with the WBS being
     * completed automatically.
@@ -4723,6 +4737,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    @Override public Object getCachedValue(FieldType field)
    {
+      stripRtfNotes(field);
       return (field == null ? null : m_array[field.getValue()]);
    }
 
@@ -4731,6 +4746,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    @Override public Object getCurrentValue(FieldType field)
    {
+      stripRtfNotes(field);
       Object result = null;
 
       if (field != null)
@@ -4834,6 +4850,10 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       if (field != null)
       {
          int index = field.getValue();
+         if (field == TaskField.NOTES)
+         {
+            m_rtfNotes = false;
+         }
          if (m_eventsEnabled)
          {
             fireFieldChangeEvent((TaskField) field, m_array[index], value);
@@ -4842,6 +4862,30 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       }
    }
 
+   /**
+    * If RTF notes are being retrieved for the first time,
+    * replace them with plain text. The flag is only cleared once the
+    * plain text has been stored, so concurrent readers either wait
+    * for the conversion or see the converted value.
+    *
+    * @param field field being retrieved
+    */
+   private void stripRtfNotes(FieldType field)
+   {
+      if (field == TaskField.NOTES && m_rtfNotes)
+      {
+         synchronized (this)
+         {
+            if (m_rtfNotes)
+            {
+               int index = field.getValue();
+               m_array[index] = RtfHelper.strip((String) m_array[index]);
+               m_rtfNotes = false;
+            }
+         }
+      }
+   }
+
    /**
     * Handle the change in a field value. Reset any cached calculated
     * values affected by this change, pass on the event to any external
@@ -5122,6 +5166,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    private RecurringTask m_recurringTask;
 
    private boolean m_eventsEnabled = true;
+   private volatile boolean m_rtfNotes;
    private boolean m_null;
    private String m_wbsLevel;
    private boolean m_resumeValid;
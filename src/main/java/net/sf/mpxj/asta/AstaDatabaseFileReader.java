@@ -26,10 +26,7 @@ package net.sf.mpxj.asta;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -45,7 +42,7 @@ import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.FileHelper;
 import net.sf.mpxj.common.InputStreamHelper;
-import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.SqliteTableLoader;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.ProjectReader;
 
@@ -80,38 +77,21 @@ public final class AstaDatabaseFileReader implements ProjectReader
     */
    @Override public ProjectFile read(File file) throws MPXJException
    {
+      Properties props = new Properties();
+      props.setProperty("date_string_format", "yyyy-MM-dd HH:mm:ss");
+      m_loader = new SqliteTableLoader<Row>(file, props, ROW_FACTORY);
+      m_loader.setThreadCount(m_threadCount);
+
       try
       {
-         String url = "jdbc:sqlite:" + file.getAbsolutePath();
-         Properties props = new Properties();
-         props.setProperty("date_string_format", "yyyy-MM-dd HH:mm:ss");
-         // Note that we use the JDBC driver class directly here.
-         // This ensures that it is an explicit dependency of MPXJ
-         // and will work as expected in .Net.
-         m_connection = org.sqlite.JDBC.createConnection(url, props);
          m_projectID = Integer.valueOf(0);
          return read();
       }
 
-      catch (SQLException ex)
-      {
-         throw new MPXJException("Failed to create connection", ex);
-      }
-
       finally
       {
-         if (m_connection != null)
-         {
-            try
-            {
-               m_connection.close();
-            }
-
-            catch (SQLException ex)
-            {
-               // silently ignore exceptions when closing connection
-            }
-         }
+         m_loader.close();
+         m_loader = null;
       }
    }
 
@@ -150,6 +130,7 @@ public final class AstaDatabaseFileReader implements ProjectReader
          ProjectFile project = m_reader.getProject();
          project.getEventManager().addProjectListeners(m_projectListeners);
 
+         loadTables();
          processProjectProperties();
          processCalendars();
          processResources();
@@ -158,6 +139,7 @@ public final class AstaDatabaseFileReader implements ProjectReader
          processAssignments();
 
          m_reader = null;
+         m_tables = null;
 
          return (project);
       }
@@ -175,13 +157,44 @@ public final class AstaDatabaseFileReader implements ProjectReader
    }
 
    /**
-    * Select the project properties row from the database.
+    * Read the rows required from each table. The queries are executed
+    * together, so they can be shared between several connections.
     *
     * @throws SQLException
     */
-   private void processProjectProperties() throws SQLException
+   private void loadTables() throws SQLException
    {
-      List<Row> rows = getRows("select duration as durationhours, project_start as staru, project_end as ene, * from project_summary where projid=?", m_projectID);
+      m_loader.addQuery("project_summary", "select duration as durationhours, project_start as staru, project_end as ene, * from project_summary where projid=?", m_projectID);
+
+      m_loader.addQuery("exceptionn", "select id as exceptionnid, * from exceptionn");
+      m_loader.addQuery("work_pattern", "select id as work_patternid, name as namn, * from work_pattern");
+      m_loader.addQuery("calendar_work_patterns", "select id, work_patterns from calendar");
+      m_loader.addQuery("calendar_exceptions", "select id, exceptions from calendar");
+      m_loader.addQuery("work_pattern_shifts", "select id, shifts from work_pattern");
+      m_loader.addQuery("calendar", "select id as calendarid, name as namk, * from calendar where projid=? order by id", m_projectID);
+
+      m_loader.addQuery("permanent_resource", "select id as permanent_resourceid, name as nase, calendar as calendav, * from permanent_resource where projid=? order by id", m_projectID);
+      m_loader.addQuery("consumable_resource", "select id as consumable_resourceid, name as nase, calendar as calendav, * from consumable_resource where projid=? order by id", m_projectID);
+
+      m_loader.addQuery("bar", "select id as barid, bar_start as starv, bar_finish as enf, name as namh, * from bar where projid=?", m_projectID);
+      m_loader.addQuery("expanded_task", "select id as expanded_taskid, constraint_flag as constrainu, * from expanded_task where projid=?", m_projectID);
+      m_loader.addQuery("task", "select id as taskid, given_duration as given_durationhours, actual_duration as actual_durationhours, overall_percent_complete as overall_percenv_complete, name as nare, calendar as calendau, linkable_start as starz, linkable_finish as enj, notes as notet, wbs as wbt, natural_order as naturao_order, constraint_flag as constrainu, * from task where projid=?", m_projectID);
+      m_loader.addQuery("milestone", "select id as milestoneid, name as nare, calendar as calendau, wbs as wbt, natural_order as naturao_order, constraint_flag as constrainu, * from milestone where projid=?", m_projectID);
+
+      m_loader.addQuery("link", "select start_lag_time as start_lag_timehours, end_lag_time as end_lag_timehours, link_kind as typi, * from link where projid=? order by id", m_projectID);
+      m_loader.addQuery("task_completed_section", "select id as task_completed_sectionid, task from task_completed_section where projid=? order by id", m_projectID);
+
+      m_loader.addQuery("permanent_schedul_allocation", "select allocated_to as allocatee_to, player, percent_complete, effort as efforw, permanent_schedul_allocation.id as permanent_schedul_allocationid, linkable_start as starz, linkable_finish as enj, given_allocation, delay as delaahours from permanent_schedul_allocation inner join perm_resource_skill on permanent_schedul_allocation.allocation_of = perm_resource_skill.id where permanent_schedul_allocation.projid=? order by permanent_schedul_allocation.id", m_projectID);
+
+      m_tables = m_loader.load();
+   }
+
+   /**
+    * Process the project properties row.
+    */
+   private void processProjectProperties()
+   {
+      List<Row> rows = getRows("project_summary");
       if (rows.isEmpty() == false)
       {
          m_reader.processProjectProperties(rows.get(0));
@@ -191,28 +204,17 @@ public final class AstaDatabaseFileReader implements ProjectReader
    /**
     * Process calendars.
     *
-    * @throws SQLException
     * @throws ParseException
     */
-   private void processCalendars() throws SQLException, ParseException
+   private void processCalendars() throws ParseException
    {
-      List<Row> rows = getRows("select id as exceptionnid, * from exceptionn");
-      Map<Integer, DayType> exceptionTypeMap = m_reader.createExceptionTypeMap(rows);
-
-      rows = getRows("select id as work_patternid, name as namn, * from work_pattern");
-      Map<Integer, Row> workPatternMap = m_reader.createWorkPatternMap(rows);
-
-      rows = getRows("select id, work_patterns from calendar");
-      Map<Integer, List<Row>> workPatternAssignmentMap = createWorkPatternAssignmentMap(rows);
+      Map<Integer, DayType> exceptionTypeMap = m_reader.createExceptionTypeMap(getRows("exceptionn"));
+      Map<Integer, Row> workPatternMap = m_reader.createWorkPatternMap(getRows("work_pattern"));
+      Map<Integer, List<Row>> workPatternAssignmentMap = createWorkPatternAssignmentMap(getRows("calendar_work_patterns"));
+      Map<Integer, List<Row>> exceptionAssignmentMap = createExceptionAssignmentMap(getRows("calendar_exceptions"));
+      Map<Integer, List<Row>> timeEntryMap = createTimeEntryMap(getRows("work_pattern_shifts"));
 
-      rows = getRows("select id, exceptions from calendar");
-      Map<Integer, List<Row>> exceptionAssignmentMap = createExceptionAssignmentMap(rows);
-
-      rows = getRows("select id, shifts from work_pattern");
-      Map<Integer, List<Row>> timeEntryMap = createTimeEntryMap(rows);
-
-      rows = getRows("select id as calendarid, name as namk, * from calendar where projid=? order by id", m_projectID);
-      for (Row row : rows)
+      for (Row row : getRows("calendar"))
       {
          m_reader.processCalendar(row, workPatternMap, workPatternAssignmentMap, exceptionAssignmentMap, timeEntryMap, exceptionTypeMap);
       }
@@ -226,129 +228,66 @@ public final class AstaDatabaseFileReader implements ProjectReader
 
    /**
     * Process resources.
-    *
-    * @throws SQLException
     */
-   private void processResources() throws SQLException
+   private void processResources()
    {
-      List<Row> permanentRows = getRows("select id as permanent_resourceid, name as nase, calendar as calendav, * from permanent_resource where projid=? order by id", m_projectID);
-      List<Row> consumableRows = getRows("select id as consumable_resourceid, name as nase, calendar as calendav, * from consumable_resource where projid=? order by id", m_projectID);
-      m_reader.processResources(permanentRows, consumableRows);
+      m_reader.processResources(getRows("permanent_resource"), getRows("consumable_resource"));
    }
 
    /**
     * Process tasks.
-    *
-    * @throws SQLException
     */
-   private void processTasks() throws SQLException
+   private void processTasks()
    {
-      List<Row> bars = getRows("select id as barid, bar_start as starv, bar_finish as enf, name as namh, * from bar where projid=?", m_projectID);
-
-      List<Row> expandedTasks = getRows("select id as expanded_taskid, constraint_flag as constrainu, * from expanded_task where projid=?", m_projectID);
-      List<Row> tasks = getRows("select id as taskid, given_duration as given_durationhours, actual_duration as actual_durationhours, overall_percent_complete as overall_percenv_complete, name as nare, calendar as calendau, linkable_start as starz, linkable_finish as enj, notes as notet, wbs as wbt, natural_order as naturao_order, constraint_flag as constrainu, * from task where projid=?", m_projectID);
-      List<Row> milestones = getRows("select id as milestoneid, name as nare, calendar as calendau, wbs as wbt, natural_order as naturao_order, constraint_flag as constrainu, * from milestone where projid=?", m_projectID);
-
-      m_reader.processTasks(bars, expandedTasks, tasks, milestones);
+      m_reader.processTasks(getRows("bar"), getRows("expanded_task"), getRows("task"), getRows("milestone"));
    }
 
    /**
     * Process predecessors.
-    *
-    * @throws SQLException
     */
-   private void processPredecessors() throws SQLException
+   private void processPredecessors()
    {
-      List<Row> rows = getRows("select start_lag_time as start_lag_timehours, end_lag_time as end_lag_timehours, link_kind as typi, * from link where projid=? order by id", m_projectID);
-      List<Row> completedSections = getRows("select id as task_completed_sectionid, * from task_completed_section where projid=? order by id", m_projectID);
-      m_reader.processPredecessors(rows, completedSections);
+      m_reader.processPredecessors(getRows("link"), getRows("task_completed_section"));
    }
 
    /**
     * Process resource assignments.
-    *
-    * @throws SQLException
     */
-   private void processAssignments() throws SQLException
+   private void processAssignments()
    {
-      List<Row> permanentAssignments = getRows("select allocated_to as allocatee_to, player, percent_complete, effort as efforw, permanent_schedul_allocation.id as permanent_schedul_allocationid, linkable_start as starz, linkable_finish as enj, given_allocation, delay as delaahours from permanent_schedul_allocation inner join perm_resource_skill on permanent_schedul_allocation.allocation_of = perm_resource_skill.id where permanent_schedul_allocation.projid=? order by permanent_schedul_allocation.id", m_projectID);
-      m_reader.processAssignments(permanentAssignments);
+      m_reader.processAssignments(getRows("permanent_schedul_allocation"));
    }
 
    /**
-    * Set the ID of the project to be read.
+    * Retrieve the rows read by a named query.
     *
-    * @param projectID project ID
+    * @param name query name
+    * @return rows
     */
-   public void setProjectID(int projectID)
+   private List<Row> getRows(String name)
    {
-      m_projectID = Integer.valueOf(projectID);
+      return m_tables.get(name);
    }
 
    /**
-    * Retrieve a number of rows matching the supplied query.
-    *
-    * @param sql query statement
-    * @return result set
-    * @throws SQLException
-    */
-   private List<Row> getRows(String sql) throws SQLException
-   {
-      List<Row> result = new LinkedList<Row>();
-
-      m_ps = m_connection.prepareStatement(sql);
-      m_rs = m_ps.executeQuery();
-      populateMetaData();
-      while (m_rs.next())
-      {
-         result.add(new SqliteResultSetRow(m_rs, m_meta));
-      }
-
-      return (result);
-   }
-
-   /**
-    * Retrieve a number of rows matching the supplied query
-    * which takes a single parameter.
+    * Set the ID of the project to be read.
     *
-    * @param sql query statement
-    * @param var bind variable value
-    * @return result set
-    * @throws SQLException
+    * @param projectID project ID
     */
-   private List<Row> getRows(String sql, Integer var) throws SQLException
+   public void setProjectID(int projectID)
    {
-      List<Row> result = new LinkedList<Row>();
-
-      m_ps = m_connection.prepareStatement(sql);
-      m_ps.setInt(1, NumberHelper.getInt(var));
-      m_rs = m_ps.executeQuery();
-      populateMetaData();
-      while (m_rs.next())
-      {
-         result.add(new SqliteResultSetRow(m_rs, m_meta));
-      }
-
-      return (result);
+      m_projectID = Integer.valueOf(projectID);
    }
 
    /**
-    * Retrieves basic meta data from the result set.
+    * Set the number of threads used to read tables from the database.
+    * Defaults to 1.
     *
-    * @throws SQLException
+    * @param threadCount thread count
     */
-   private void populateMetaData() throws SQLException
+   public void setThreadCount(int threadCount)
    {
-      m_meta.clear();
-
-      ResultSetMetaData meta = m_rs.getMetaData();
-      int columnCount = meta.getColumnCount() + 1;
-      for (int loop = 1; loop < columnCount; loop++)
-      {
-         String name = meta.getColumnName(loop);
-         Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
-      }
+      m_threadCount = threadCount;
    }
 
    /**
@@ -527,9 +466,16 @@ public final class AstaDatabaseFileReader implements ProjectReader
    private AstaReader m_reader;
    private Integer m_projectID = Integer.valueOf(1);
    private String m_schema = "";
-   private Connection m_connection;
-   private PreparedStatement m_ps;
-   private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
+   private SqliteTableLoader<Row> m_loader;
+   private Map<String, List<Row>> m_tables;
+   private int m_threadCount = 1;
    private List<ProjectListener> m_projectListeners;
+
+   private static final SqliteTableLoader.RowFactory<Row> ROW_FACTORY = new SqliteTableLoader.RowFactory<Row>()
+   {
+      @Override public Row createRow(ResultSet rs, Map<String, Integer> meta) throws SQLException
+      {
+         return new SqliteResultSetRow(rs, meta);
+      }
+   };
 }
\ No newline at end of file
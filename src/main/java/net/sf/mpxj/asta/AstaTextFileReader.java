@@ -26,20 +26,21 @@ package net.sf.mpxj.asta;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.sf.mpxj.DayType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.CharsetHelper;
-import net.sf.mpxj.common.ReaderTokenizer;
 import net.sf.mpxj.common.Tokenizer;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.AbstractProjectReader;
@@ -100,6 +101,8 @@ final class AstaTextFileReader extends AbstractProjectReader
 
    /**
     * Tokenizes the input file and extracts the required data.
+    * Rows from tables which are not used when building the
+    * project are skipped without decoding their values.
     *
     * @param is input stream
     * @throws MPXJException
@@ -108,29 +111,28 @@ final class AstaTextFileReader extends AbstractProjectReader
    {
       try
       {
-         InputStreamReader reader = new InputStreamReader(is, CharsetHelper.UTF8);
-         Tokenizer tk = new ReaderTokenizer(reader)
-         {
-            @Override protected boolean startQuotedIsValid(StringBuilder buffer)
-            {
-               return buffer.length() == 1 && buffer.charAt(0) == '<';
-            }
-         };
-
-         tk.setDelimiter(DELIMITER);
-         ArrayList<String> columns = new ArrayList<String>();
+         TextFileScanner scanner = new TextFileScanner(new InputStreamReader(is, CharsetHelper.UTF8));
+         Map<String, TextFileTable> tables = new HashMap<String, TextFileTable>();
          String nextTokenPrefix = null;
 
-         while (tk.getType() != Tokenizer.TT_EOF)
+         while (scanner.getType() != Tokenizer.TT_EOF)
          {
-            columns.clear();
-            TableDefinition table = null;
+            TextFileTable table = null;
+            String id = null;
+            int columnCount = 0;
 
-            while (tk.nextToken() == Tokenizer.TT_WORD)
+            while (scanner.nextToken() == Tokenizer.TT_WORD)
             {
-               String token = tk.getToken();
-               if (columns.size() == 0)
+               String token = null;
+
+               if (columnCount == 0)
                {
+                  token = scanner.getToken();
+                  if (token.isEmpty())
+                  {
+                     continue;
+                  }
+
                   if (token.charAt(0) == '#')
                   {
                      int index = token.lastIndexOf(':');
@@ -149,8 +151,16 @@ final class AstaTextFileReader extends AbstractProjectReader
                         }
 
                         RowHeader header = new RowHeader(headerToken);
-                        table = m_tableDefinitions.get(header.getType());
-                        columns.add(header.getID());
+                        table = getTable(tables, header.getType());
+                        if (table == null)
+                        {
+                           scanner.skipRow();
+                           break;
+                        }
+
+                        table.startRow();
+                        id = header.getID();
+                        columnCount = 1;
                      }
                   }
                   else
@@ -160,50 +170,53 @@ final class AstaTextFileReader extends AbstractProjectReader
                         processFileType(token);
                      }
                   }
+
+                  if (table == null || token == null)
+                  {
+                     continue;
+                  }
                }
 
-               if (table != null && token != null)
+               if (token == null)
                {
-                  if (token.startsWith("<\"") && !token.endsWith("\">"))
+                  if (nextTokenPrefix == null && !scanner.isPartialQuotedString())
                   {
-                     nextTokenPrefix = token;
+                     table.setValue(columnCount++, scanner);
+                     continue;
                   }
-                  else
-                  {
-                     if (nextTokenPrefix != null)
-                     {
-                        token = nextTokenPrefix + DELIMITER + token;
-                        nextTokenPrefix = null;
-                     }
+                  token = scanner.getToken();
+               }
 
-                     columns.add(token);
+               if (token.startsWith("<\"") && !token.endsWith("\">"))
+               {
+                  nextTokenPrefix = token;
+               }
+               else
+               {
+                  if (nextTokenPrefix != null)
+                  {
+                     token = nextTokenPrefix + DELIMITER + token;
+                     nextTokenPrefix = null;
                   }
+
+                  table.setValue(columnCount++, token);
                }
             }
 
-            if (table != null && columns.size() > 1)
+            if (table != null)
             {
-               //               System.out.println(table.getName() + " " + columns.size());
-               //               ColumnDefinition[] columnDefs = table.getColumns();
-               //               int unknownIndex = 1;
-               //               for (int xx = 0; xx < columns.size(); xx++)
-               //               {
-               //                  String x = columns.get(xx);
-               //                  String columnName = xx < columnDefs.length ? (columnDefs[xx] == null ? "UNKNOWN" + (unknownIndex++) : columnDefs[xx].getName()) : "?";
-               //                  System.out.println(columnName + ": " + x + ", ");
-               //               }
-               //               System.out.println();
-
-               TextFileRow row = new TextFileRow(table, columns, m_epochDateFormat);
-               List<Row> rows = m_tables.get(table.getName());
-               if (rows == null)
+               if (columnCount > 1)
                {
-                  rows = new LinkedList<Row>();
-                  m_tables.put(table.getName(), rows);
+                  table.setValue(0, id);
                }
-               rows.add(row);
+               table.endRow(columnCount);
             }
          }
+
+         for (TextFileTable table : tables.values())
+         {
+            m_tables.put(table.getTableDefinition().getName(), table.getRows());
+         }
       }
 
       catch (Exception ex)
@@ -212,6 +225,31 @@ final class AstaTextFileReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Retrieve the table used to hold rows of the given type. Returns null if
+    * the type is not recognised, or if the table is not used when building
+    * the project.
+    *
+    * @param tables tables created so far, keyed by name
+    * @param type table type from the row header
+    * @return table or null
+    */
+   private TextFileTable getTable(Map<String, TextFileTable> tables, Integer type)
+   {
+      TextFileTable result = null;
+      TableDefinition definition = m_tableDefinitions.get(type);
+      if (definition != null && REQUIRED_TABLES.contains(definition.getName()))
+      {
+         result = tables.get(definition.getName());
+         if (result == null)
+         {
+            result = new TextFileTable(definition, m_epochDateFormat);
+            tables.put(definition.getName(), result);
+         }
+      }
+      return result;
+   }
+
    /**
     * Reads the file version and configures the expected file format.
     *
@@ -448,6 +486,8 @@ final class AstaTextFileReader extends AbstractProjectReader
 
    private static final char DELIMITER = ',';
 
+   private static final Set<String> REQUIRED_TABLES = new HashSet<String>(Arrays.asList("PROJECT_SUMMARY", "EXCEPTIONN", "WORK_PATTERN", "EXCEPTION_ASSIGNMENT", "TIME_ENTRY", "CALENDAR", "PERMANENT_RESOURCE", "CONSUMABLE_RESOURCE", "BAR", "EXPANDED_TASK", "TASK", "MILESTONE", "LINK", "TASK_COMPLETED_SECTION", "PERMANENT_SCHEDUL_ALLOCATION", "PERM_RESOURCE_SKILL"));
+
    private static final RowComparator CALENDAR_COMPARATOR = new RowComparator("CALENDARID");
    private static final RowComparator PERMANENT_RESOURCE_COMPARATOR = new RowComparator("PERMANENT_RESOURCEID");
    private static final RowComparator CONSUMABLE_RESOURCE_COMPARATOR = new RowComparator("CONSUMABLE_RESOURCEID");
@@ -23,119 +23,116 @@
 
 package net.sf.mpxj.asta;
 
-import java.sql.Types;
+import java.util.AbstractMap;
 import java.util.HashMap;
-import java.util.List;
-
-import net.sf.mpxj.MPXJException;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Extends the MapRow class to allow it to manage data read from an Asta file.
+ * Values are retrieved from the columnar storage held by the parent table,
+ * any values added to the row are held separately.
  */
 class TextFileRow extends MapRow
 {
    /**
     * Constructor.
     *
-    * @param table table definition
-    * @param data table data
-    * @param epochDateFormat true if date is represented as an offset from an epoch
-    * @throws MPXJException
+    * @param table parent table
+    * @param row row index
     */
-   public TextFileRow(TableDefinition table, List<String> data, boolean epochDateFormat)
-      throws MPXJException
+   public TextFileRow(TextFileTable table, int row)
    {
-      super(new HashMap<String, Object>());
-
-      ColumnDefinition[] columns = table.getColumns();
-      for (int index = 0; index < columns.length; index++)
-      {
-         ColumnDefinition column = columns[index];
-         if (index < data.size())
-         {
-            if (column != null)
-            {
-               m_map.put(column.getName(), getColumnValue(table.getName(), column.getName(), data.get(index), column.getType(), epochDateFormat));
-            }
-         }
-      }
+      super(new RowMap(table, row));
    }
 
    /**
-    * Maps the text representation of column data to Java types.
-    *
-    * @param table table name
-    * @param column column name
-    * @param data text representation of column data
-    * @param type column data type
-    * @param epochDateFormat true if date is represented as an offset from an epoch
-    * @return Java representation of column data
-    * @throws MPXJException
+    * Presents a single row from a TextFileTable as a map keyed by column name.
     */
-   private Object getColumnValue(String table, String column, String data, int type, boolean epochDateFormat) throws MPXJException
+   private static final class RowMap extends AbstractMap<String, Object>
    {
-      try
+      /**
+       * Constructor.
+       *
+       * @param table parent table
+       * @param row row index
+       */
+      public RowMap(TextFileTable table, int row)
       {
-         Object value = null;
+         m_table = table;
+         m_row = row;
+      }
 
-         switch (type)
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Object get(Object key)
+      {
+         Object result;
+         if (m_overrides != null && m_overrides.containsKey(key))
          {
-            case Types.BIT:
-            {
-               value = DatatypeConverter.parseBoolean(data);
-               break;
-            }
-
-            case Types.VARCHAR:
-            case Types.LONGVARCHAR:
-            {
-               value = DatatypeConverter.parseString(data);
-               break;
-            }
-
-            case Types.TIME:
-            {
-               value = DatatypeConverter.parseBasicTime(data);
-               break;
-            }
+            result = m_overrides.get(key);
+         }
+         else
+         {
+            result = key instanceof String ? m_table.getValue(m_table.getColumnIndex((String) key), m_row) : null;
+         }
+         return result;
+      }
 
-            case Types.TIMESTAMP:
-            {
-               if (epochDateFormat)
-               {
-                  value = DatatypeConverter.parseEpochTimestamp(data);
-               }
-               else
-               {
-                  value = DatatypeConverter.parseBasicTimestamp(data);
-               }
-               break;
-            }
+      /**
+       * {@inheritDoc}
+       */
+      @Override public boolean containsKey(Object key)
+      {
+         boolean result = m_overrides != null && m_overrides.containsKey(key);
+         if (!result && key instanceof String)
+         {
+            int column = m_table.getColumnIndex((String) key);
+            result = column != -1 && m_table.hasValue(column, m_row);
+         }
+         return result;
+      }
 
-            case Types.DOUBLE:
-            {
-               value = DatatypeConverter.parseDouble(data);
-               break;
-            }
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Object put(String key, Object value)
+      {
+         Object result = get(key);
+         if (m_overrides == null)
+         {
+            m_overrides = new HashMap<String, Object>();
+         }
+         m_overrides.put(key, value);
+         return result;
+      }
 
-            case Types.INTEGER:
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Set<Entry<String, Object>> entrySet()
+      {
+         Map<String, Object> map = new HashMap<String, Object>();
+         for (String name : m_table.getColumnNames())
+         {
+            int column = m_table.getColumnIndex(name);
+            if (m_table.hasValue(column, m_row))
             {
-               value = DatatypeConverter.parseInteger(data);
-               break;
+               map.put(name, m_table.getValue(column, m_row));
             }
+         }
 
-            default:
-            {
-               throw new IllegalArgumentException("Unsupported SQL type: " + type);
-            }
+         if (m_overrides != null)
+         {
+            map.putAll(m_overrides);
          }
 
-         return value;
+         return map.entrySet();
       }
 
-      catch (Exception ex)
-      {
-         throw new MPXJException("Failed to parse " + table + "." + column + " (data=" + data + ", type=" + type + ")", ex);
-      }
+      private final TextFileTable m_table;
+      private final int m_row;
+      private Map<String, Object> m_overrides;
    }
 }
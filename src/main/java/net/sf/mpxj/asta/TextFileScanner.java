@@ -0,0 +1,355 @@
+/*
+ * file:       TextFileScanner.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.asta;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import net.sf.mpxj.common.Tokenizer;
+
+/**
+ * Splits the content of an Asta text file into tokens. The input is read
+ * in blocks, and each token is held in a reusable character array, allowing
+ * values to be decoded without creating a String for every token.
+ *
+ * Tokens are separated by commas and rows by line breaks. Where a token
+ * starts with a quoted string, introduced by the characters &lt;", commas
+ * are treated as part of the token up to the closing quote, and a pair of
+ * quotes represents a single quote character. The quotes themselves are not
+ * included in the token. This matches the behaviour of the generic
+ * Tokenizer class previously used to read these files.
+ */
+final class TextFileScanner
+{
+   /**
+    * Constructor.
+    *
+    * @param reader file content
+    */
+   public TextFileScanner(Reader reader)
+   {
+      m_reader = reader;
+   }
+
+   /**
+    * Read the next token.
+    *
+    * @return Tokenizer.TT_WORD, Tokenizer.TT_EOL or Tokenizer.TT_EOF
+    */
+   public int nextToken() throws IOException
+   {
+      int result = m_next;
+      m_next = 0;
+      m_length = 0;
+      boolean quoted = false;
+
+      while (result == 0)
+      {
+         int c = read();
+
+         switch (c)
+         {
+            case Tokenizer.TT_EOF:
+            {
+               if (m_length != 0)
+               {
+                  result = Tokenizer.TT_WORD;
+                  m_next = Tokenizer.TT_EOF;
+               }
+               else
+               {
+                  result = Tokenizer.TT_EOF;
+               }
+               break;
+            }
+
+            case Tokenizer.TT_EOL:
+            {
+               if (m_length != 0 && m_token[m_length - 1] == '\r')
+               {
+                  --m_length;
+               }
+
+               if (m_length == 0)
+               {
+                  result = Tokenizer.TT_EOL;
+               }
+               else
+               {
+                  result = Tokenizer.TT_WORD;
+                  m_next = Tokenizer.TT_EOL;
+               }
+               break;
+            }
+
+            case QUOTE:
+            {
+               if (quoted)
+               {
+                  int next = read();
+                  if (next == QUOTE)
+                  {
+                     append(QUOTE);
+                  }
+                  else
+                  {
+                     quoted = false;
+                     m_pushback = next;
+                  }
+               }
+               else
+               {
+                  if (m_length == 1 && m_token[0] == '<')
+                  {
+                     quoted = true;
+                  }
+                  else
+                  {
+                     append(QUOTE);
+                  }
+               }
+               break;
+            }
+
+            case DELIMITER:
+            {
+               if (quoted)
+               {
+                  append(DELIMITER);
+               }
+               else
+               {
+                  result = Tokenizer.TT_WORD;
+               }
+               break;
+            }
+
+            default:
+            {
+               append((char) c);
+
+               //
+               // Copy the rest of a run of ordinary characters directly
+               //
+               int start = m_position;
+               while (m_position < m_limit)
+               {
+                  char next = m_buffer[m_position];
+                  if (next == Tokenizer.TT_EOL || next == QUOTE || next == DELIMITER)
+                  {
+                     break;
+                  }
+                  ++m_position;
+               }
+               append(start, m_position - start);
+               break;
+            }
+         }
+      }
+
+      m_type = result;
+      return result;
+   }
+
+   /**
+    * Discard the remainder of the current row.
+    */
+   public void skipRow() throws IOException
+   {
+      if (m_next == 0)
+      {
+         int c;
+         do
+         {
+            c = read();
+         }
+         while (c != Tokenizer.TT_EOL && c != Tokenizer.TT_EOF);
+         m_type = c;
+      }
+      else
+      {
+         m_type = m_next;
+         m_next = 0;
+      }
+   }
+
+   /**
+    * Retrieve the type of the most recent token.
+    *
+    * @return token type
+    */
+   public int getType()
+   {
+      return m_type;
+   }
+
+   /**
+    * Retrieve the current token as a string.
+    *
+    * @return token text
+    */
+   public String getToken()
+   {
+      return new String(m_token, 0, m_length);
+   }
+
+   /**
+    * Determine if the current token is a plain decimal integer
+    * which can be decoded by getInteger.
+    *
+    * @return true if the token is a plain integer
+    */
+   public boolean isInteger()
+   {
+      int start = m_length != 0 && m_token[0] == '-' ? 1 : 0;
+      if (m_length == start || m_length - start > 9)
+      {
+         return false;
+      }
+
+      for (int index = start; index < m_length; index++)
+      {
+         char c = m_token[index];
+         if (c < '0' || c > '9')
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Decode the current token as an integer. The caller
+    * must first check that isInteger returns true.
+    *
+    * @return integer value
+    */
+   public int getInteger()
+   {
+      boolean negative = m_token[0] == '-';
+      int result = 0;
+      for (int index = negative ? 1 : 0; index < m_length; index++)
+      {
+         result = result * 10 + (m_token[index] - '0');
+      }
+      return negative ? -result : result;
+   }
+
+   /**
+    * Determine if the current token is the start of a quoted string
+    * which has been split across more than one token.
+    *
+    * @return true if the token is an incomplete quoted string
+    */
+   public boolean isPartialQuotedString()
+   {
+      return m_length >= 2 && m_token[0] == '<' && m_token[1] == QUOTE && !(m_token[m_length - 2] == QUOTE && m_token[m_length - 1] == '>');
+   }
+
+   /**
+    * Read the next character.
+    *
+    * @return next character, or Tokenizer.TT_EOF
+    */
+   private int read() throws IOException
+   {
+      if (m_pushback != NO_CHARACTER)
+      {
+         int c = m_pushback;
+         m_pushback = NO_CHARACTER;
+         return c;
+      }
+
+      if (m_position == m_limit)
+      {
+         m_position = 0;
+         m_limit = m_reader.read(m_buffer, 0, m_buffer.length);
+         if (m_limit <= 0)
+         {
+            m_limit = 0;
+            return Tokenizer.TT_EOF;
+         }
+      }
+
+      return m_buffer[m_position++];
+   }
+
+   /**
+    * Append a character to the current token.
+    *
+    * @param c character
+    */
+   private void append(char c)
+   {
+      if (m_length == m_token.length)
+      {
+         grow(m_length + 1);
+      }
+      m_token[m_length++] = c;
+   }
+
+   /**
+    * Append characters from the input buffer to the current token.
+    *
+    * @param offset start of the characters in the input buffer
+    * @param length number of characters
+    */
+   private void append(int offset, int length)
+   {
+      if (m_length + length > m_token.length)
+      {
+         grow(m_length + length);
+      }
+      System.arraycopy(m_buffer, offset, m_token, m_length, length);
+      m_length += length;
+   }
+
+   /**
+    * Increase the size of the token buffer.
+    *
+    * @param size minimum size
+    */
+   private void grow(int size)
+   {
+      char[] token = new char[Math.max(size, m_token.length * 2)];
+      System.arraycopy(m_token, 0, token, 0, m_length);
+      m_token = token;
+   }
+
+   private final Reader m_reader;
+   private final char[] m_buffer = new char[BUFFER_SIZE];
+   private int m_position;
+   private int m_limit;
+   private int m_pushback = NO_CHARACTER;
+   private char[] m_token = new char[256];
+   private int m_length;
+   private int m_next;
+   private int m_type;
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final int NO_CHARACTER = -2;
+   private static final char QUOTE = '"';
+   private static final char DELIMITER = ',';
+}
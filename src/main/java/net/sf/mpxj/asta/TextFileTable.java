@@ -0,0 +1,436 @@
+/*
+ * file:       TextFileTable.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.asta;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.MPXJException;
+
+/**
+ * Holds the rows read from one table in an Asta text file. Values are
+ * decoded as they are read and stored in one array per column, typed
+ * according to the column definition, rather than as a map per row.
+ */
+final class TextFileTable
+{
+   /**
+    * Constructor.
+    *
+    * @param table table definition
+    * @param epochDateFormat true if dates are represented as an offset from an epoch
+    */
+   public TextFileTable(TableDefinition table, boolean epochDateFormat)
+   {
+      m_table = table;
+      m_epochDateFormat = epochDateFormat;
+
+      ColumnDefinition[] columns = table.getColumns();
+      m_columns = new Object[columns.length];
+      m_present = new BitSet[columns.length];
+      m_columnIndex = new HashMap<String, Integer>();
+
+      for (int index = 0; index < columns.length; index++)
+      {
+         ColumnDefinition column = columns[index];
+         if (column != null)
+         {
+            m_columnIndex.put(column.getName(), Integer.valueOf(index));
+            m_columns[index] = createColumn(column.getType(), INITIAL_CAPACITY);
+            m_present[index] = new BitSet();
+         }
+      }
+   }
+
+   /**
+    * Retrieve the table definition.
+    *
+    * @return table definition
+    */
+   public TableDefinition getTableDefinition()
+   {
+      return m_table;
+   }
+
+   /**
+    * Start a new row.
+    */
+   public void startRow()
+   {
+      if (m_rowCount == m_columnCounts.length)
+      {
+         int capacity = m_rowCount * 2;
+         int[] columnCounts = new int[capacity];
+         System.arraycopy(m_columnCounts, 0, columnCounts, 0, m_rowCount);
+         m_columnCounts = columnCounts;
+
+         for (int index = 0; index < m_columns.length; index++)
+         {
+            if (m_columns[index] != null)
+            {
+               Object column = createColumn(m_table.getColumns()[index].getType(), capacity);
+               System.arraycopy(m_columns[index], 0, column, 0, m_rowCount);
+               m_columns[index] = column;
+            }
+         }
+      }
+   }
+
+   /**
+    * Complete the current row. The row is only retained if it
+    * contains at least one value in addition to the row ID.
+    *
+    * @param columnCount number of columns read for this row, including the row ID
+    */
+   public void endRow(int columnCount)
+   {
+      if (columnCount > 1)
+      {
+         m_columnCounts[m_rowCount++] = columnCount;
+      }
+      else
+      {
+         for (int index = 0; index < m_present.length; index++)
+         {
+            if (m_present[index] != null)
+            {
+               m_present[index].clear(m_rowCount);
+            }
+         }
+      }
+   }
+
+   /**
+    * Set a value in the current row from the scanner's current token.
+    * Plain integers are decoded directly from the scanner's buffer.
+    *
+    * @param column column index
+    * @param scanner scanner positioned on the value
+    * @throws MPXJException
+    */
+   public void setValue(int column, TextFileScanner scanner) throws MPXJException
+   {
+      if (column < m_columns.length && m_columns[column] != null)
+      {
+         int type = m_table.getColumns()[column].getType();
+         if (scanner.isInteger() && (type == Types.INTEGER || type == Types.BIT || type == Types.DOUBLE))
+         {
+            if (type == Types.DOUBLE)
+            {
+               ((double[]) m_columns[column])[m_rowCount] = scanner.getInteger();
+            }
+            else
+            {
+               ((int[]) m_columns[column])[m_rowCount] = scanner.getInteger();
+            }
+            m_present[column].set(m_rowCount);
+         }
+         else
+         {
+            setValue(column, type, scanner.getToken());
+         }
+      }
+   }
+
+   /**
+    * Set a value in the current row from its text representation.
+    *
+    * @param column column index
+    * @param data text representation of the value
+    * @throws MPXJException
+    */
+   public void setValue(int column, String data) throws MPXJException
+   {
+      if (column < m_columns.length && m_columns[column] != null)
+      {
+         setValue(column, m_table.getColumns()[column].getType(), data);
+      }
+   }
+
+   /**
+    * Retrieve the rows held by this table.
+    *
+    * @return list of rows
+    */
+   public List<Row> getRows()
+   {
+      List<Row> rows = new ArrayList<Row>(m_rowCount);
+      for (int row = 0; row < m_rowCount; row++)
+      {
+         rows.add(new TextFileRow(this, row));
+      }
+      return rows;
+   }
+
+   /**
+    * Retrieve the index of a named column.
+    *
+    * @param name column name
+    * @return column index, or -1 if the column is not defined
+    */
+   public int getColumnIndex(String name)
+   {
+      Integer index = m_columnIndex.get(name);
+      return index == null ? -1 : index.intValue();
+   }
+
+   /**
+    * Retrieve the names of the defined columns.
+    *
+    * @return column names
+    */
+   public Iterable<String> getColumnNames()
+   {
+      return m_columnIndex.keySet();
+   }
+
+   /**
+    * Determine if a column was read for a given row. Note that
+    * a column may be present and still have a null value.
+    *
+    * @param column column index
+    * @param row row index
+    * @return true if the column is present
+    */
+   public boolean hasValue(int column, int row)
+   {
+      return column >= 0 && column < m_present.length && m_present[column] != null && column < m_columnCounts[row];
+   }
+
+   /**
+    * Retrieve a value.
+    *
+    * @param column column index
+    * @param row row index
+    * @return value, or null if the value is not present
+    */
+   public Object getValue(int column, int row)
+   {
+      Object result = null;
+      if (hasValue(column, row) && m_present[column].get(row))
+      {
+         Object values = m_columns[column];
+         switch (m_table.getColumns()[column].getType())
+         {
+            case Types.BIT:
+            {
+               result = Boolean.valueOf(((int[]) values)[row] != 0);
+               break;
+            }
+
+            case Types.INTEGER:
+            {
+               result = Integer.valueOf(((int[]) values)[row]);
+               break;
+            }
+
+            case Types.DOUBLE:
+            {
+               result = Double.valueOf(((double[]) values)[row]);
+               break;
+            }
+
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            {
+               result = new Date(((long[]) values)[row]);
+               break;
+            }
+
+            default:
+            {
+               result = ((String[]) values)[row];
+               break;
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Maps the text representation of column data to Java types,
+    * and stores the result in the current row.
+    *
+    * @param column column index
+    * @param type column data type
+    * @param data text representation of column data
+    * @throws MPXJException
+    */
+   private void setValue(int column, int type, String data) throws MPXJException
+   {
+      try
+      {
+         Object values = m_columns[column];
+         boolean present = true;
+
+         switch (type)
+         {
+            case Types.BIT:
+            {
+               Boolean value = DatatypeConverter.parseBoolean(data);
+               if (value == null)
+               {
+                  present = false;
+               }
+               else
+               {
+                  ((int[]) values)[m_rowCount] = value.booleanValue() ? 1 : 0;
+               }
+               break;
+            }
+
+            case Types.INTEGER:
+            {
+               Integer value = DatatypeConverter.parseInteger(data);
+               if (value == null)
+               {
+                  present = false;
+               }
+               else
+               {
+                  ((int[]) values)[m_rowCount] = value.intValue();
+               }
+               break;
+            }
+
+            case Types.DOUBLE:
+            {
+               Number value = DatatypeConverter.parseDouble(data);
+               if (value == null)
+               {
+                  present = false;
+               }
+               else
+               {
+                  ((double[]) values)[m_rowCount] = value.doubleValue();
+               }
+               break;
+            }
+
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            {
+               Date value;
+               if (type == Types.TIME)
+               {
+                  value = DatatypeConverter.parseBasicTime(data);
+               }
+               else
+               {
+                  value = m_epochDateFormat ? DatatypeConverter.parseEpochTimestamp(data) : DatatypeConverter.parseBasicTimestamp(data);
+               }
+
+               if (value == null)
+               {
+                  present = false;
+               }
+               else
+               {
+                  ((long[]) values)[m_rowCount] = value.getTime();
+               }
+               break;
+            }
+
+            default:
+            {
+               String value = DatatypeConverter.parseString(data);
+               ((String[]) values)[m_rowCount] = value;
+               present = value != null;
+               break;
+            }
+         }
+
+         m_present[column].set(m_rowCount, present);
+      }
+
+      catch (Exception ex)
+      {
+         throw new MPXJException("Failed to parse " + m_table.getName() + "." + m_table.getColumns()[column].getName() + " (data=" + data + ", type=" + type + ")", ex);
+      }
+   }
+
+   /**
+    * Create the array used to hold values for a column.
+    *
+    * @param type column data type
+    * @param capacity number of rows
+    * @return new array
+    */
+   private static Object createColumn(int type, int capacity)
+   {
+      Object result;
+
+      switch (type)
+      {
+         case Types.BIT:
+         case Types.INTEGER:
+         {
+            result = new int[capacity];
+            break;
+         }
+
+         case Types.DOUBLE:
+         {
+            result = new double[capacity];
+            break;
+         }
+
+         case Types.TIME:
+         case Types.TIMESTAMP:
+         {
+            result = new long[capacity];
+            break;
+         }
+
+         case Types.VARCHAR:
+         case Types.LONGVARCHAR:
+         {
+            result = new String[capacity];
+            break;
+         }
+
+         default:
+         {
+            throw new IllegalArgumentException("Unsupported SQL type: " + type);
+         }
+      }
+
+      return result;
+   }
+
+   private final TableDefinition m_table;
+   private final boolean m_epochDateFormat;
+   private final Object[] m_columns;
+   private final BitSet[] m_present;
+   private final Map<String, Integer> m_columnIndex;
+   private int[] m_columnCounts = new int[INITIAL_CAPACITY];
+   private int m_rowCount;
+
+   private static final int INITIAL_CAPACITY = 16;
+}
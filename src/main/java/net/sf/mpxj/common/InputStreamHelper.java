@@ -23,6 +23,7 @@
 
 package net.sf.mpxj.common;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -73,6 +74,28 @@ public class InputStreamHelper
       }
    }
 
+   /**
+    * Read the remaining content of an input stream.
+    *
+    * @param inputStream data source
+    * @return stream content
+    */
+   public static byte[] readAll(InputStream inputStream) throws IOException
+   {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      while (true)
+      {
+         int bytesRead = inputStream.read(buffer);
+         if (bytesRead == -1)
+         {
+            break;
+         }
+         outputStream.write(buffer, 0, bytesRead);
+      }
+      return outputStream.toByteArray();
+   }
+
    /**
     * Expands a zip file input stream into a temporary directory.
     *
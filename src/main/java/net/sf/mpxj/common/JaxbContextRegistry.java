@@ -0,0 +1,201 @@
+/*
+ * file:       JaxbContextRegistry.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Holds the JAXB contexts used by the XML readers and writers. Each context
+ * is expensive to construct, so is created once, on first use, and shared
+ * by all readers and writers using the same schema.
+ *
+ * Applications which want to avoid paying this cost on the first read of
+ * each format, for example servers handling their first request, can call
+ * warmUp to construct the contexts in parallel ahead of time.
+ */
+public final class JaxbContextRegistry
+{
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private JaxbContextRegistry()
+   {
+
+   }
+
+   /**
+    * Retrieve the context for a schema package, constructing
+    * it if this is the first request.
+    *
+    * @param contextPath schema package name
+    * @return JAXBContext instance
+    */
+   public static JAXBContext getContext(String contextPath) throws JAXBException
+   {
+      return getEntry(contextPath).getContext();
+   }
+
+   /**
+    * Construct the contexts for all of the schemas used by MPXJ.
+    */
+   public static void warmUp()
+   {
+      warmUp(CONTEXT_PATHS);
+   }
+
+   /**
+    * Construct the contexts for the supplied schema packages, in parallel.
+    * Any error constructing a context is reported when the
+    * context is requested by getContext.
+    *
+    * @param contextPaths schema package names
+    */
+   public static void warmUp(String... contextPaths)
+   {
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(contextPaths.length);
+      for (final String contextPath : contextPaths)
+      {
+         tasks.add(new Callable<Void>()
+         {
+            @Override public Void call()
+            {
+               try
+               {
+                  getContext(contextPath);
+               }
+
+               catch (JAXBException ex)
+               {
+                  // Reported by getContext
+               }
+               return null;
+            }
+         });
+      }
+
+      ParallelHelper.invokeAll(Runtime.getRuntime().availableProcessors(), tasks);
+   }
+
+   /**
+    * Retrieve the registry entry for a schema package.
+    *
+    * @param contextPath schema package name
+    * @return registry entry
+    */
+   private static synchronized Entry getEntry(String contextPath)
+   {
+      Entry entry = ENTRIES.get(contextPath);
+      if (entry == null)
+      {
+         entry = new Entry(contextPath);
+         ENTRIES.put(contextPath, entry);
+      }
+      return entry;
+   }
+
+   /**
+    * Constructs the context for one schema package on first use. Requests
+    * for other packages are not blocked while this happens.
+    */
+   private static final class Entry
+   {
+      /**
+       * Constructor.
+       *
+       * @param contextPath schema package name
+       */
+      public Entry(String contextPath)
+      {
+         m_contextPath = contextPath;
+      }
+
+      /**
+       * Retrieve the context, constructing it if necessary.
+       *
+       * @return JAXBContext instance
+       */
+      public synchronized JAXBContext getContext() throws JAXBException
+      {
+         if (m_context == null && m_exception == null)
+         {
+            try
+            {
+               m_context = JAXBContext.newInstance(m_contextPath, JaxbContextRegistry.class.getClassLoader());
+            }
+
+            catch (JAXBException ex)
+            {
+               m_exception = ex;
+            }
+         }
+
+         if (m_exception != null)
+         {
+            throw m_exception;
+         }
+
+         return m_context;
+      }
+
+      private final String m_contextPath;
+      private JAXBContext m_context;
+      private JAXBException m_exception;
+   }
+
+   public static final String CONCEPTDRAW = "net.sf.mpxj.conceptdraw.schema";
+   public static final String GANTTDESIGNER = "net.sf.mpxj.ganttdesigner.schema";
+   public static final String GANTTPROJECT = "net.sf.mpxj.ganttproject.schema";
+   public static final String MSPDI = "net.sf.mpxj.mspdi.schema";
+   public static final String PHOENIX = "net.sf.mpxj.phoenix.schema";
+   public static final String PLANNER = "net.sf.mpxj.planner.schema";
+   public static final String PRIMAVERA = "net.sf.mpxj.primavera.schema";
+
+   private static final String[] CONTEXT_PATHS =
+   {
+      CONCEPTDRAW,
+      GANTTDESIGNER,
+      GANTTPROJECT,
+      MSPDI,
+      PHOENIX,
+      PLANNER,
+      PRIMAVERA
+   };
+
+   private static final Map<String, Entry> ENTRIES = new HashMap<String, Entry>();
+
+   static
+   {
+      //
+      // JAXB RI property to speed up construction
+      //
+      System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
+   }
+}
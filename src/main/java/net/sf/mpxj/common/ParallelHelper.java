@@ -0,0 +1,174 @@
+/*
+ * file:       ParallelHelper.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Common helper methods for running tasks on a pool of threads.
+ * Where a task fails, the exception it raised is rethrown unchanged if
+ * it is a RuntimeException, an Error, or the checked exception type
+ * named by the caller. Any other exception is wrapped in a RuntimeException.
+ */
+public final class ParallelHelper
+{
+   /**
+    * Constructor.
+    */
+   private ParallelHelper()
+   {
+      // private constructor to prevent instantiation
+   }
+
+   /**
+    * Run a set of tasks using a new pool of threads, which is shut down
+    * once the tasks are complete.
+    *
+    * @param threadCount maximum number of threads
+    * @param tasks tasks to run
+    * @return task results, in the same order as the tasks
+    */
+   public static <T> List<T> invokeAll(int threadCount, Collection<? extends Callable<T>> tasks)
+   {
+      return invokeAll(threadCount, tasks, RuntimeException.class);
+   }
+
+   /**
+    * Run a set of tasks using a new pool of threads, which is shut down
+    * once the tasks are complete.
+    *
+    * @param threadCount maximum number of threads
+    * @param tasks tasks to run
+    * @param exceptionClass checked exception rethrown unchanged
+    * @return task results, in the same order as the tasks
+    */
+   public static <T, E extends Exception> List<T> invokeAll(int threadCount, Collection<? extends Callable<T>> tasks, Class<E> exceptionClass) throws E
+   {
+      if (tasks.isEmpty())
+      {
+         return new ArrayList<T>();
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, tasks.size())));
+
+      try
+      {
+         return invokeAll(executor, tasks, exceptionClass);
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Run a set of tasks using an existing pool of threads.
+    *
+    * @param executor pool of threads
+    * @param tasks tasks to run
+    * @param exceptionClass checked exception rethrown unchanged
+    * @return task results, in the same order as the tasks
+    */
+   public static <T, E extends Exception> List<T> invokeAll(ExecutorService executor, Collection<? extends Callable<T>> tasks, Class<E> exceptionClass) throws E
+   {
+      try
+      {
+         return getAll(executor.invokeAll(tasks), exceptionClass);
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(ex);
+      }
+   }
+
+   /**
+    * Wait for a set of tasks which have already been submitted.
+    *
+    * @param futures futures representing the tasks
+    * @return task results, in the same order as the futures
+    */
+   public static <T> List<T> getAll(Collection<? extends Future<? extends T>> futures)
+   {
+      return getAll(futures, RuntimeException.class);
+   }
+
+   /**
+    * Wait for a set of tasks which have already been submitted.
+    *
+    * @param futures futures representing the tasks
+    * @param exceptionClass checked exception rethrown unchanged
+    * @return task results, in the same order as the futures
+    */
+   private static <T, E extends Exception> List<T> getAll(Collection<? extends Future<? extends T>> futures, Class<E> exceptionClass) throws E
+   {
+      List<T> result = new ArrayList<T>(futures.size());
+
+      try
+      {
+         for (Future<? extends T> future : futures)
+         {
+            result.add(future.get());
+         }
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         Throwable cause = ex.getCause();
+         if (exceptionClass.isInstance(cause))
+         {
+            throw exceptionClass.cast(cause);
+         }
+
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+
+         throw new RuntimeException(cause);
+      }
+
+      return result;
+   }
+}
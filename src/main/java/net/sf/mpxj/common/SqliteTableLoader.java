@@ -0,0 +1,316 @@
+/*
+ * file:       SqliteTableLoader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.common;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+/**
+ * Reads the results of a set of queries from a SQLite database file.
+ * Queries are queued using the addQuery method, then executed together
+ * by the load method. Where more than one thread is requested, the queries
+ * are shared between several threads, each with its own read-only
+ * connection to the database.
+ *
+ * @param <T> row type
+ */
+public final class SqliteTableLoader<T>
+{
+   /**
+    * Implemented by the caller to create a row from the current
+    * position of a result set.
+    *
+    * @param <T> row type
+    */
+   public interface RowFactory<T>
+   {
+      /**
+       * Create a row from the current position of a result set.
+       *
+       * @param rs result set
+       * @param meta column names and types
+       * @return new row
+       */
+      public T createRow(ResultSet rs, Map<String, Integer> meta) throws SQLException;
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param file SQLite database file
+    * @param properties connection properties
+    * @param factory row factory
+    */
+   public SqliteTableLoader(File file, Properties properties, RowFactory<T> factory)
+   {
+      m_url = "jdbc:sqlite:" + file.getAbsolutePath();
+      m_properties = new Properties();
+      m_properties.putAll(properties);
+      m_properties.setProperty("open_mode", READ_ONLY);
+      m_factory = factory;
+   }
+
+   /**
+    * Set the number of threads used to execute queries. Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Queue a query to be executed by the next call to the load method.
+    *
+    * @param name name used to retrieve the query results
+    * @param sql query statement
+    * @param values bind variable values
+    */
+   public void addQuery(String name, String sql, Integer... values)
+   {
+      m_queries.add(new Query(name, sql, values));
+   }
+
+   /**
+    * Execute all queued queries.
+    *
+    * @return map of query names to result rows
+    */
+   public Map<String, List<T>> load() throws SQLException
+   {
+      List<Query> queries = new ArrayList<Query>(m_queries);
+      m_queries.clear();
+
+      int threadCount = Math.min(m_threadCount, queries.size());
+      if (threadCount < 2)
+      {
+         if (m_connection == null)
+         {
+            m_connection = createConnection();
+         }
+
+         Map<String, List<T>> result = new HashMap<String, List<T>>();
+         for (Query query : queries)
+         {
+            result.put(query.m_name, query.execute(m_connection));
+         }
+         return result;
+      }
+
+      return load(queries, threadCount);
+   }
+
+   /**
+    * Close the connection used to execute queries on the calling thread.
+    */
+   public void close()
+   {
+      if (m_connection != null)
+      {
+         try
+         {
+            m_connection.close();
+         }
+
+         catch (SQLException ex)
+         {
+            // silently ignore exceptions when closing connection
+         }
+
+         m_connection = null;
+      }
+   }
+
+   /**
+    * Execute queries using a pool of threads. Each thread opens its own
+    * connection, and executes every threadCount-th query.
+    *
+    * @param queries queries to execute
+    * @param threadCount number of threads
+    * @return map of query names to result rows
+    */
+   private Map<String, List<T>> load(final List<Query> queries, final int threadCount) throws SQLException
+   {
+      List<Callable<Map<String, List<T>>>> tasks = new ArrayList<Callable<Map<String, List<T>>>>(threadCount);
+      for (int thread = 0; thread < threadCount; thread++)
+      {
+         final int firstQuery = thread;
+         tasks.add(new Callable<Map<String, List<T>>>()
+         {
+            @Override public Map<String, List<T>> call() throws SQLException
+            {
+               Map<String, List<T>> result = new HashMap<String, List<T>>();
+               Connection connection = createConnection();
+               try
+               {
+                  for (int index = firstQuery; index < queries.size(); index += threadCount)
+                  {
+                     Query query = queries.get(index);
+                     result.put(query.m_name, query.execute(connection));
+                  }
+               }
+
+               finally
+               {
+                  connection.close();
+               }
+               return result;
+            }
+         });
+      }
+
+      Map<String, List<T>> result = new HashMap<String, List<T>>();
+      for (Map<String, List<T>> map : ParallelHelper.invokeAll(threadCount, tasks, SQLException.class))
+      {
+         result.putAll(map);
+      }
+      return result;
+   }
+
+   /**
+    * Open a read-only connection to the database.
+    *
+    * @return new connection
+    */
+   private Connection createConnection() throws SQLException
+   {
+      // Note that we use the JDBC driver class directly here.
+      // This ensures that it is an explicit dependency of MPXJ
+      // and will work as expected in .Net.
+      return org.sqlite.JDBC.createConnection(m_url, m_properties);
+   }
+
+   /**
+    * A queued query.
+    */
+   private final class Query
+   {
+      /**
+       * Constructor.
+       *
+       * @param name name used to retrieve the query results
+       * @param sql query statement
+       * @param values bind variable values
+       */
+      public Query(String name, String sql, Integer[] values)
+      {
+         m_name = name;
+         m_sql = sql;
+         m_values = values;
+      }
+
+      /**
+       * Execute this query.
+       *
+       * @param connection database connection
+       * @return result rows
+       */
+      public List<T> execute(Connection connection) throws SQLException
+      {
+         List<T> result = new ArrayList<T>();
+         PreparedStatement ps = connection.prepareStatement(m_sql);
+
+         try
+         {
+            for (int index = 0; index < m_values.length; index++)
+            {
+               ps.setInt(index + 1, NumberHelper.getInt(m_values[index]));
+            }
+
+            ResultSet rs = ps.executeQuery();
+
+            try
+            {
+               Map<String, Integer> meta = getMetaData(rs);
+               while (rs.next())
+               {
+                  result.add(m_factory.createRow(rs, meta));
+               }
+            }
+
+            finally
+            {
+               rs.close();
+            }
+         }
+
+         finally
+         {
+            ps.close();
+         }
+
+         return result;
+      }
+
+      /**
+       * Retrieves basic meta data from the result set.
+       *
+       * @param rs result set
+       * @return map of column names to types
+       */
+      private Map<String, Integer> getMetaData(ResultSet rs) throws SQLException
+      {
+         Map<String, Integer> result = new HashMap<String, Integer>();
+
+         ResultSetMetaData meta = rs.getMetaData();
+         int columnCount = meta.getColumnCount() + 1;
+         for (int loop = 1; loop < columnCount; loop++)
+         {
+            String name = meta.getColumnName(loop);
+            Integer type = Integer.valueOf(meta.getColumnType(loop));
+            result.put(name, type);
+         }
+
+         return result;
+      }
+
+      final String m_name;
+      private final String m_sql;
+      private final Integer[] m_values;
+   }
+
+   private final String m_url;
+   private final Properties m_properties;
+   private final RowFactory<T> m_factory;
+   private final List<Query> m_queries = new ArrayList<Query>();
+   private int m_threadCount = 1;
+   private Connection m_connection;
+
+   /**
+    * SQLITE_OPEN_READONLY.
+    */
+   private static final String READ_ONLY = "1";
+}
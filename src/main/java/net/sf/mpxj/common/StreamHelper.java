@@ -23,6 +23,7 @@
 
 package net.sf.mpxj.common;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -72,4 +73,25 @@ public final class StreamHelper
          }
       }
    }
+
+   /**
+    * Close a resource without raising an exception on error.
+    *
+    * @param closeable resource to close
+    */
+   public static void closeQuietly(Closeable closeable)
+   {
+      if (closeable != null)
+      {
+         try
+         {
+            closeable.close();
+         }
+
+         catch (IOException ex)
+         {
+            // Silently ignored
+         }
+      }
+   }
 }
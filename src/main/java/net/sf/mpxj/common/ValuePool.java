@@ -0,0 +1,310 @@
+/*
+ * file:       ValuePool.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.Rate;
+
+/**
+ * Shares a single instance between all equal Date, Duration, Rate and String
+ * values created while a file is read. Schedules typically contain many
+ * repeated values, so this can substantially reduce the memory retained
+ * by a ProjectFile instance.
+ *
+ * Note that Date is mutable: when a pool is used, the same Date instance
+ * may be returned for several different attributes, so dates retrieved
+ * from the project must not be modified in place.
+ *
+ * A pool is attached to a reader, which makes it the current pool for the
+ * duration of the read. Readers retrieve the current pool via getCurrent,
+ * which returns a pool that does no interning if none has been attached.
+ */
+public final class ValuePool
+{
+   /**
+    * Constructor.
+    */
+   public ValuePool()
+   {
+      this(true);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param enabled true if this pool interns values
+    */
+   private ValuePool(boolean enabled)
+   {
+      m_enabled = enabled;
+   }
+
+   /**
+    * Retrieve the shared instance of a Date value.
+    *
+    * @param value Date instance
+    * @return shared Date instance
+    */
+   public Date intern(Date value)
+   {
+      return value == null || !m_enabled ? value : intern(m_dates, Long.valueOf(value.getTime()), value);
+   }
+
+   /**
+    * Retrieve the shared instance of a Duration value.
+    *
+    * @param value Duration instance
+    * @return shared Duration instance
+    */
+   public Duration intern(Duration value)
+   {
+      return value == null || !m_enabled ? value : intern(m_durations, new Key(value.getDuration(), value.getUnits()), value);
+   }
+
+   /**
+    * Retrieve the shared instance of a Rate value.
+    *
+    * @param value Rate instance
+    * @return shared Rate instance
+    */
+   public Rate intern(Rate value)
+   {
+      return value == null || !m_enabled ? value : intern(m_rates, new Key(value.getAmount(), value.getUnits()), value);
+   }
+
+   /**
+    * Retrieve the shared instance of a String value.
+    *
+    * @param value String instance
+    * @return shared String instance
+    */
+   public String intern(String value)
+   {
+      return value == null || !m_enabled ? value : intern(m_strings, value, value);
+   }
+
+   /**
+    * Retrieve the shared instance of a value of unknown type. Values
+    * which are not Date, Duration, Rate or String instances are
+    * returned unchanged.
+    *
+    * @param value value
+    * @return shared instance
+    */
+   public Object internValue(Object value)
+   {
+      Object result = value;
+      if (m_enabled)
+      {
+         if (value instanceof String)
+         {
+            result = intern((String) value);
+         }
+         else
+         {
+            if (value instanceof Date)
+            {
+               result = intern((Date) value);
+            }
+            else
+            {
+               if (value instanceof Duration)
+               {
+                  result = intern((Duration) value);
+               }
+               else
+               {
+                  if (value instanceof Rate)
+                  {
+                     result = intern((Rate) value);
+                  }
+               }
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the number of values passed to the pool.
+    *
+    * @return request count
+    */
+   public synchronized long getRequestCount()
+   {
+      return m_requestCount;
+   }
+
+   /**
+    * Retrieve the number of distinct values held by the pool.
+    *
+    * @return distinct value count
+    */
+   public synchronized long getDistinctCount()
+   {
+      return m_dates.size() + m_durations.size() + m_rates.size() + m_strings.size();
+   }
+
+   /**
+    * Retrieve the proportion of values passed to the pool which were
+    * replaced by an existing shared instance, in the range 0 to 1.
+    *
+    * @return dedup ratio
+    */
+   public synchronized double getDedupRatio()
+   {
+      return m_requestCount == 0 ? 0 : (double) (m_requestCount - getDistinctCount()) / m_requestCount;
+   }
+
+   /**
+    * Discard all pooled values and reset the statistics.
+    */
+   public synchronized void clear()
+   {
+      m_dates.clear();
+      m_durations.clear();
+      m_rates.clear();
+      m_strings.clear();
+      m_requestCount = 0;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public synchronized String toString()
+   {
+      return "[ValuePool requests=" + m_requestCount + " dates=" + m_dates.size() + " durations=" + m_durations.size() + " rates=" + m_rates.size() + " strings=" + m_strings.size() + " dedupRatio=" + getDedupRatio() + "]";
+   }
+
+   /**
+    * Retrieve the pool used by readers on the current thread. If no pool
+    * has been set, a pool which returns values unchanged is returned.
+    *
+    * @return ValuePool instance
+    */
+   public static ValuePool getCurrent()
+   {
+      return CURRENT.get();
+   }
+
+   /**
+    * Set the pool used by readers on the current thread. Passing null
+    * disables interning.
+    *
+    * @param pool ValuePool instance or null
+    * @return the previous pool for this thread
+    */
+   public static ValuePool setCurrent(ValuePool pool)
+   {
+      ValuePool previous = CURRENT.get();
+      CURRENT.set(pool == null ? DISABLED : pool);
+      return previous;
+   }
+
+   /**
+    * Look up a value in a pool, adding it if it is not present.
+    *
+    * @param map pool
+    * @param key value key
+    * @param value value
+    * @return shared value
+    */
+   private synchronized <T> T intern(Map<Object, T> map, Object key, T value)
+   {
+      ++m_requestCount;
+      T result = map.get(key);
+      if (result == null)
+      {
+         map.put(key, value);
+         result = value;
+      }
+      return result;
+   }
+
+   /**
+    * Key used to pool values consisting of a double and a unit. The
+    * equals methods of Duration and Rate allow a small tolerance,
+    * this key ensures that only identical values share an instance.
+    */
+   private static final class Key
+   {
+      /**
+       * Constructor.
+       *
+       * @param value numeric value
+       * @param units units
+       */
+      public Key(double value, Object units)
+      {
+         m_value = Double.doubleToLongBits(value);
+         m_units = units;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public boolean equals(Object obj)
+      {
+         boolean result = false;
+         if (obj instanceof Key)
+         {
+            Key key = (Key) obj;
+            result = m_value == key.m_value && m_units == key.m_units;
+         }
+         return result;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int hashCode()
+      {
+         return (int) (m_value ^ (m_value >>> 32)) + (m_units == null ? 0 : m_units.hashCode());
+      }
+
+      private final long m_value;
+      private final Object m_units;
+   }
+
+   private final boolean m_enabled;
+   private final Map<Object, Date> m_dates = new HashMap<Object, Date>();
+   private final Map<Object, Duration> m_durations = new HashMap<Object, Duration>();
+   private final Map<Object, Rate> m_rates = new HashMap<Object, Rate>();
+   private final Map<Object, String> m_strings = new HashMap<Object, String>();
+   private long m_requestCount;
+
+   private static final ValuePool DISABLED = new ValuePool(false);
+
+   private static final ThreadLocal<ValuePool> CURRENT = new ThreadLocal<ValuePool>()
+   {
+      @Override protected ValuePool initialValue()
+      {
+         return DISABLED;
+      }
+   };
+}
@@ -0,0 +1,45 @@
+/*
+ * file:       ChangeType.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.diff;
+
+/**
+ * Type of change detected when comparing two versions of a schedule.
+ */
+public enum ChangeType
+{
+   /**
+    * The entity is only present in the new version of the schedule.
+    */
+   ADDED,
+
+   /**
+    * The entity is only present in the old version of the schedule.
+    */
+   REMOVED,
+
+   /**
+    * The entity is present in both versions, with a different value for one attribute.
+    */
+   MODIFIED;
+}
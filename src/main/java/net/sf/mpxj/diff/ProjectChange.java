@@ -0,0 +1,190 @@
+/*
+ * file:       ProjectChange.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.diff;
+
+import net.sf.mpxj.FieldType;
+
+/**
+ * Represents a single difference between two versions of a schedule.
+ * Added and removed entities are represented by a single change. Modified
+ * entities are represented by one change for each attribute which differs.
+ */
+public final class ProjectChange
+{
+   /**
+    * Constructor.
+    *
+    * @param entityType type of entity which has changed
+    * @param changeType type of change
+    * @param key key used to match the entity in both versions
+    * @param oldEntity entity from the old schedule, null if added
+    * @param newEntity entity from the new schedule, null if removed
+    * @param field field which has changed, null if the attribute is not a field
+    * @param attribute name of the attribute which has changed, null unless modified
+    * @param oldValue old attribute value
+    * @param newValue new attribute value
+    */
+   ProjectChange(EntityType entityType, ChangeType changeType, Object key, Object oldEntity, Object newEntity, FieldType field, String attribute, Object oldValue, Object newValue)
+   {
+      m_entityType = entityType;
+      m_changeType = changeType;
+      m_key = key;
+      m_oldEntity = oldEntity;
+      m_newEntity = newEntity;
+      m_field = field;
+      m_attribute = attribute;
+      m_oldValue = oldValue;
+      m_newValue = newValue;
+   }
+
+   /**
+    * Retrieve the type of entity which has changed.
+    *
+    * @return entity type
+    */
+   public EntityType getEntityType()
+   {
+      return m_entityType;
+   }
+
+   /**
+    * Retrieve the type of change.
+    *
+    * @return change type
+    */
+   public ChangeType getChangeType()
+   {
+      return m_changeType;
+   }
+
+   /**
+    * Retrieve the key used to match the entity in both schedules.
+    * This will be the unique ID or the GUID for tasks, resources,
+    * assignments and calendars. For relations this is a pair
+    * made up of the keys of the successor and predecessor tasks.
+    *
+    * @return entity key
+    */
+   public Object getKey()
+   {
+      return m_key;
+   }
+
+   /**
+    * Retrieve the entity from the old schedule.
+    *
+    * @return old entity, or null if the entity has been added
+    */
+   public Object getOldEntity()
+   {
+      return m_oldEntity;
+   }
+
+   /**
+    * Retrieve the entity from the new schedule.
+    *
+    * @return new entity, or null if the entity has been removed
+    */
+   public Object getNewEntity()
+   {
+      return m_newEntity;
+   }
+
+   /**
+    * Retrieve the field which has changed. This will be null where the entity
+    * has been added or removed, or where the attribute which has changed
+    * is not represented by a field, for example a relation lag or a calendar's hours.
+    *
+    * @return field type
+    */
+   public FieldType getField()
+   {
+      return m_field;
+   }
+
+   /**
+    * Retrieve the name of the attribute which has changed.
+    *
+    * @return attribute name, or null if the entity has been added or removed
+    */
+   public String getAttribute()
+   {
+      return m_attribute;
+   }
+
+   /**
+    * Retrieve the attribute value from the old schedule.
+    *
+    * @return old value
+    */
+   public Object getOldValue()
+   {
+      return m_oldValue;
+   }
+
+   /**
+    * Retrieve the attribute value from the new schedule.
+    *
+    * @return new value
+    */
+   public Object getNewValue()
+   {
+      return m_newValue;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String toString()
+   {
+      StringBuilder sb = new StringBuilder();
+      sb.append("[ProjectChange ");
+      sb.append(m_changeType);
+      sb.append(" ");
+      sb.append(m_entityType);
+      sb.append(" key=");
+      sb.append(m_key);
+      if (m_attribute != null)
+      {
+         sb.append(" attribute=");
+         sb.append(m_attribute);
+         sb.append(" old=");
+         sb.append(m_oldValue);
+         sb.append(" new=");
+         sb.append(m_newValue);
+      }
+      sb.append("]");
+      return sb.toString();
+   }
+
+   private final EntityType m_entityType;
+   private final ChangeType m_changeType;
+   private final Object m_key;
+   private final Object m_oldEntity;
+   private final Object m_newEntity;
+   private final FieldType m_field;
+   private final String m_attribute;
+   private final Object m_oldValue;
+   private final Object m_newValue;
+}
@@ -0,0 +1,689 @@
+/*
+ * file:       ProjectDiff.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarHours;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.Pair;
+import net.sf.mpxj.common.ParallelHelper;
+
+/**
+ * Compares two versions of a schedule, producing a list of the differences
+ * between them. Tasks, resources and assignments are matched using their
+ * unique IDs, or optionally their GUIDs. Calendars are matched using their
+ * unique IDs, and relations are matched using the keys of the tasks they link.
+ * Where there is more than one relation between the same pair of tasks,
+ * relations with the same type and lag are matched first.
+ *
+ * <p>Each matched pair of entities is compared in a single pass over the
+ * selected fields, and changes are only allocated for values which differ,
+ * so unchanged entities cost no more than the field comparisons themselves.
+ * Each entity type can optionally be compared on a separate thread.</p>
+ */
+public final class ProjectDiff
+{
+   /**
+    * Determines if tasks, resources and assignments are matched using
+    * their GUIDs. Where an entity has no GUID, its unique ID is used.
+    * The default is false.
+    *
+    * @param matchByGUID true if entities are matched by GUID
+    */
+   public void setMatchByGUID(boolean matchByGUID)
+   {
+      m_matchByGUID = matchByGUID;
+   }
+
+   /**
+    * Retrieve the flag indicating if entities are matched by GUID.
+    *
+    * @return true if entities are matched by GUID
+    */
+   public boolean getMatchByGUID()
+   {
+      return m_matchByGUID;
+   }
+
+   /**
+    * Set the number of threads used to compare entity types.
+    * The default is a single thread.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Retrieve the number of threads used to compare entity types.
+    *
+    * @return thread count
+    */
+   public int getThreadCount()
+   {
+      return m_threadCount;
+   }
+
+   /**
+    * Set the task fields to compare. By default all fields are compared,
+    * apart from those representing relations and subprojects.
+    *
+    * @param fields task fields
+    */
+   public void setTaskFields(FieldType... fields)
+   {
+      m_taskFields = fields;
+   }
+
+   /**
+    * Set the resource fields to compare. By default all fields are compared.
+    *
+    * @param fields resource fields
+    */
+   public void setResourceFields(FieldType... fields)
+   {
+      m_resourceFields = fields;
+   }
+
+   /**
+    * Set the assignment fields to compare. By default all fields are compared.
+    *
+    * @param fields assignment fields
+    */
+   public void setAssignmentFields(FieldType... fields)
+   {
+      m_assignmentFields = fields;
+   }
+
+   /**
+    * Compare two versions of a schedule. The changes are returned grouped
+    * by entity type, in the order defined by {@code EntityType}. For each entity
+    * type, changes to entities present in the new schedule appear in the order
+    * of the new schedule, followed by entities removed from the old schedule.
+    *
+    * @param oldFile old version of the schedule
+    * @param newFile new version of the schedule
+    * @return list of changes
+    */
+   public List<ProjectChange> compare(final ProjectFile oldFile, final ProjectFile newFile)
+   {
+      Map<EntityType, Callable<List<ProjectChange>>> tasks = new EnumMap<EntityType, Callable<List<ProjectChange>>>(EntityType.class);
+
+      tasks.put(EntityType.CALENDAR, new Callable<List<ProjectChange>>()
+      {
+         @Override public List<ProjectChange> call()
+         {
+            return compareCalendars(oldFile, newFile);
+         }
+      });
+
+      tasks.put(EntityType.RESOURCE, new Callable<List<ProjectChange>>()
+      {
+         @Override public List<ProjectChange> call()
+         {
+            return compareEntities(EntityType.RESOURCE, oldFile.getResources(), newFile.getResources(), m_resourceFields, ResourceField.UNIQUE_ID, ResourceField.GUID);
+         }
+      });
+
+      tasks.put(EntityType.TASK, new Callable<List<ProjectChange>>()
+      {
+         @Override public List<ProjectChange> call()
+         {
+            return compareEntities(EntityType.TASK, oldFile.getTasks(), newFile.getTasks(), m_taskFields, TaskField.UNIQUE_ID, TaskField.GUID);
+         }
+      });
+
+      tasks.put(EntityType.RELATION, new Callable<List<ProjectChange>>()
+      {
+         @Override public List<ProjectChange> call()
+         {
+            return compareRelations(oldFile, newFile);
+         }
+      });
+
+      tasks.put(EntityType.ASSIGNMENT, new Callable<List<ProjectChange>>()
+      {
+         @Override public List<ProjectChange> call()
+         {
+            return compareEntities(EntityType.ASSIGNMENT, oldFile.getResourceAssignments(), newFile.getResourceAssignments(), m_assignmentFields, AssignmentField.UNIQUE_ID, AssignmentField.GUID);
+         }
+      });
+
+      List<ProjectChange> result = new ArrayList<ProjectChange>();
+      if (m_threadCount > 1)
+      {
+         compareParallel(tasks.values(), result);
+      }
+      else
+      {
+         for (Callable<List<ProjectChange>> task : tasks.values())
+         {
+            try
+            {
+               result.addAll(task.call());
+            }
+
+            catch (Exception ex)
+            {
+               throw new RuntimeException(ex);
+            }
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Compare each entity type on a separate thread.
+    *
+    * @param tasks comparison tasks
+    * @param result list to which changes are added
+    */
+   private void compareParallel(Collection<Callable<List<ProjectChange>>> tasks, List<ProjectChange> result)
+   {
+      for (List<ProjectChange> changes : ParallelHelper.invokeAll(m_threadCount, tasks))
+      {
+         result.addAll(changes);
+      }
+   }
+
+   /**
+    * Compare two lists of tasks, resources or assignments.
+    *
+    * @param entityType entity type
+    * @param oldEntities entities from the old schedule
+    * @param newEntities entities from the new schedule
+    * @param fields fields to compare
+    * @param uniqueIdField unique ID field
+    * @param guidField GUID field
+    * @return list of changes
+    */
+   private <T extends FieldContainer> List<ProjectChange> compareEntities(EntityType entityType, List<T> oldEntities, List<T> newEntities, FieldType[] fields, FieldType uniqueIdField, FieldType guidField)
+   {
+      List<ProjectChange> result = new ArrayList<ProjectChange>();
+      Map<Object, T> oldMap = new LinkedHashMap<Object, T>();
+      for (T entity : oldEntities)
+      {
+         Object key = getKey(entity, uniqueIdField, guidField);
+         if (key != null)
+         {
+            oldMap.put(key, entity);
+         }
+      }
+
+      for (T newEntity : newEntities)
+      {
+         Object key = getKey(newEntity, uniqueIdField, guidField);
+         if (key == null)
+         {
+            continue;
+         }
+
+         T oldEntity = oldMap.remove(key);
+         if (oldEntity == null)
+         {
+            result.add(new ProjectChange(entityType, ChangeType.ADDED, key, null, newEntity, null, null, null, null));
+            continue;
+         }
+
+         for (FieldType field : fields)
+         {
+            Object oldValue = oldEntity.getCachedValue(field);
+            Object newValue = newEntity.getCachedValue(field);
+            if (!valueEquals(oldValue, newValue))
+            {
+               result.add(new ProjectChange(entityType, ChangeType.MODIFIED, key, oldEntity, newEntity, field, field.name(), oldValue, newValue));
+            }
+         }
+      }
+
+      addRemoved(entityType, oldMap, result);
+
+      return result;
+   }
+
+   /**
+    * Compare the relations between tasks. Relations are grouped by the
+    * tasks they link, as there may be more than one relation between
+    * the same pair of tasks.
+    *
+    * @param oldFile old schedule
+    * @param newFile new schedule
+    * @return list of changes
+    */
+   private List<ProjectChange> compareRelations(ProjectFile oldFile, ProjectFile newFile)
+   {
+      List<ProjectChange> result = new ArrayList<ProjectChange>();
+      List<ProjectChange> removed = new ArrayList<ProjectChange>();
+      Map<Object, List<Relation>> oldMap = getRelations(oldFile);
+
+      for (Map.Entry<Object, List<Relation>> entry : getRelations(newFile).entrySet())
+      {
+         Object key = entry.getKey();
+         List<Relation> oldRelations = oldMap.remove(key);
+         if (oldRelations == null)
+         {
+            oldRelations = new ArrayList<Relation>();
+         }
+
+         //
+         // Match relations which are unchanged first
+         //
+         List<Relation> newRelations = new ArrayList<Relation>();
+         for (Relation newRelation : entry.getValue())
+         {
+            Relation oldRelation = removeMatchingRelation(oldRelations, newRelation);
+            if (oldRelation == null)
+            {
+               newRelations.add(newRelation);
+            }
+         }
+
+         //
+         // Pair any remaining relations in order
+         //
+         for (Relation newRelation : newRelations)
+         {
+            if (oldRelations.isEmpty())
+            {
+               result.add(new ProjectChange(EntityType.RELATION, ChangeType.ADDED, key, null, newRelation, null, null, null, null));
+               continue;
+            }
+
+            Relation oldRelation = oldRelations.remove(0);
+            if (oldRelation.getType() != newRelation.getType())
+            {
+               result.add(new ProjectChange(EntityType.RELATION, ChangeType.MODIFIED, key, oldRelation, newRelation, null, "Type", oldRelation.getType(), newRelation.getType()));
+            }
+
+            if (!valueEquals(oldRelation.getLag(), newRelation.getLag()))
+            {
+               result.add(new ProjectChange(EntityType.RELATION, ChangeType.MODIFIED, key, oldRelation, newRelation, null, "Lag", oldRelation.getLag(), newRelation.getLag()));
+            }
+         }
+
+         for (Relation oldRelation : oldRelations)
+         {
+            removed.add(new ProjectChange(EntityType.RELATION, ChangeType.REMOVED, key, oldRelation, null, null, null, null, null));
+         }
+      }
+
+      result.addAll(removed);
+
+      for (Map.Entry<Object, List<Relation>> entry : oldMap.entrySet())
+      {
+         for (Relation oldRelation : entry.getValue())
+         {
+            result.add(new ProjectChange(EntityType.RELATION, ChangeType.REMOVED, entry.getKey(), oldRelation, null, null, null, null, null));
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Retrieve the relations in a schedule, grouped by the tasks they link.
+    *
+    * @param file schedule
+    * @return relations
+    */
+   private Map<Object, List<Relation>> getRelations(ProjectFile file)
+   {
+      Map<Object, List<Relation>> result = new LinkedHashMap<Object, List<Relation>>();
+      for (Task task : file.getTasks())
+      {
+         List<Relation> predecessors = task.getPredecessors();
+         if (predecessors == null)
+         {
+            continue;
+         }
+
+         for (Relation relation : predecessors)
+         {
+            Object key = getKey(relation);
+            List<Relation> list = result.get(key);
+            if (list == null)
+            {
+               list = new ArrayList<Relation>(1);
+               result.put(key, list);
+            }
+            list.add(relation);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Find and remove a relation with the same type and lag as the
+    * supplied relation.
+    *
+    * @param relations candidate relations
+    * @param relation relation to match
+    * @return matching relation, or null if no match is found
+    */
+   private Relation removeMatchingRelation(List<Relation> relations, Relation relation)
+   {
+      Iterator<Relation> iter = relations.iterator();
+      while (iter.hasNext())
+      {
+         Relation candidate = iter.next();
+         if (candidate.getType() == relation.getType() && valueEquals(candidate.getLag(), relation.getLag()))
+         {
+            iter.remove();
+            return candidate;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Compare calendars.
+    *
+    * @param oldFile old schedule
+    * @param newFile new schedule
+    * @return list of changes
+    */
+   private List<ProjectChange> compareCalendars(ProjectFile oldFile, ProjectFile newFile)
+   {
+      List<ProjectChange> result = new ArrayList<ProjectChange>();
+      Map<Object, ProjectCalendar> oldMap = new LinkedHashMap<Object, ProjectCalendar>();
+      for (ProjectCalendar calendar : oldFile.getCalendars())
+      {
+         if (calendar.getUniqueID() != null)
+         {
+            oldMap.put(calendar.getUniqueID(), calendar);
+         }
+      }
+
+      for (ProjectCalendar newCalendar : newFile.getCalendars())
+      {
+         Integer key = newCalendar.getUniqueID();
+         if (key == null)
+         {
+            continue;
+         }
+
+         ProjectCalendar oldCalendar = oldMap.remove(key);
+         if (oldCalendar == null)
+         {
+            result.add(new ProjectChange(EntityType.CALENDAR, ChangeType.ADDED, key, null, newCalendar, null, null, null, null));
+            continue;
+         }
+
+         Map<String, String> oldAttributes = getCalendarAttributes(oldCalendar);
+         Map<String, String> newAttributes = getCalendarAttributes(newCalendar);
+         for (Map.Entry<String, String> entry : newAttributes.entrySet())
+         {
+            String oldValue = oldAttributes.get(entry.getKey());
+            if (!valueEquals(oldValue, entry.getValue()))
+            {
+               result.add(new ProjectChange(EntityType.CALENDAR, ChangeType.MODIFIED, key, oldCalendar, newCalendar, null, entry.getKey(), oldValue, entry.getValue()));
+            }
+         }
+      }
+
+      addRemoved(EntityType.CALENDAR, oldMap, result);
+
+      return result;
+   }
+
+   /**
+    * Represent the attributes of a calendar as text, to allow them
+    * to be compared.
+    *
+    * @param calendar calendar
+    * @return map of attribute names to values
+    */
+   private Map<String, String> getCalendarAttributes(ProjectCalendar calendar)
+   {
+      Map<String, String> result = new LinkedHashMap<String, String>();
+      result.put("Name", calendar.getName());
+      result.put("Base Calendar", calendar.getParent() == null ? null : String.valueOf(calendar.getParent().getUniqueID()));
+
+      for (Day day : Day.values())
+      {
+         result.put(day.name() + " Type", String.valueOf(calendar.getWorkingDay(day)));
+         ProjectCalendarHours hours = calendar.getCalendarHours(day);
+         result.put(day.name() + " Hours", hours == null ? null : hours.toString());
+      }
+
+      StringBuilder sb = new StringBuilder();
+      for (ProjectCalendarException exception : calendar.getCalendarExceptions())
+      {
+         sb.append(exception);
+      }
+      result.put("Exceptions", sb.toString());
+
+      sb.setLength(0);
+      for (ProjectCalendarWeek week : calendar.getWorkWeeks())
+      {
+         sb.append(week);
+      }
+      result.put("Work Weeks", sb.toString());
+
+      return result;
+   }
+
+   /**
+    * Add changes representing the entities remaining in the old schedule
+    * which have not been matched.
+    *
+    * @param entityType entity type
+    * @param oldMap unmatched entities
+    * @param result list of changes
+    */
+   private void addRemoved(EntityType entityType, Map<Object, ?> oldMap, List<ProjectChange> result)
+   {
+      for (Map.Entry<Object, ?> entry : oldMap.entrySet())
+      {
+         result.add(new ProjectChange(entityType, ChangeType.REMOVED, entry.getKey(), entry.getValue(), null, null, null, null, null));
+      }
+   }
+
+   /**
+    * Retrieve the key used to match an entity.
+    *
+    * @param entity entity
+    * @param uniqueIdField unique ID field
+    * @param guidField GUID field
+    * @return entity key
+    */
+   private Object getKey(FieldContainer entity, FieldType uniqueIdField, FieldType guidField)
+   {
+      Object result = null;
+      if (m_matchByGUID)
+      {
+         result = entity.getCachedValue(guidField);
+      }
+
+      if (result == null)
+      {
+         result = entity.getCachedValue(uniqueIdField);
+      }
+
+      return result;
+   }
+
+   /**
+    * Retrieve the key used to match a relation.
+    *
+    * @param relation relation
+    * @return relation key
+    */
+   private Object getKey(Relation relation)
+   {
+      return new Pair<Object, Object>(getKey(relation.getSourceTask(), TaskField.UNIQUE_ID, TaskField.GUID), getKey(relation.getTargetTask(), TaskField.UNIQUE_ID, TaskField.GUID));
+   }
+
+   /**
+    * Calendars referenced by field values belong to different project files,
+    * so we compare them by unique ID rather than by instance. Priority
+    * instances outside the standard values are not shared, so we compare
+    * them by value.
+    *
+    * @param value field value
+    * @return value to compare
+    */
+   private Object getComparableValue(Object value)
+   {
+      if (value instanceof ProjectCalendar)
+      {
+         return ((ProjectCalendar) value).getUniqueID();
+      }
+
+      if (value instanceof Priority)
+      {
+         return Integer.valueOf(((Priority) value).getValue());
+      }
+
+      return value;
+   }
+
+   /**
+    * Test two field values for equality.
+    *
+    * @param oldValue old value
+    * @param newValue new value
+    * @return true if the values are equal
+    */
+   private boolean valueEquals(Object oldValue, Object newValue)
+   {
+      boolean result;
+      oldValue = getComparableValue(oldValue);
+      newValue = getComparableValue(newValue);
+
+      if (oldValue == newValue || oldValue == null || newValue == null)
+      {
+         result = oldValue == newValue;
+      }
+      else
+      {
+         if (oldValue instanceof Number && newValue instanceof Number)
+         {
+            result = ((Number) oldValue).doubleValue() == ((Number) newValue).doubleValue();
+         }
+         else
+         {
+            if (oldValue instanceof byte[] && newValue instanceof byte[])
+            {
+               result = Arrays.equals((byte[]) oldValue, (byte[]) newValue);
+            }
+            else
+            {
+               if (oldValue instanceof List && newValue instanceof List)
+               {
+                  result = listEquals((List<?>) oldValue, (List<?>) newValue);
+               }
+               else
+               {
+                  result = oldValue.equals(newValue);
+               }
+            }
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Test two lists of values for equality.
+    *
+    * @param oldList old list
+    * @param newList new list
+    * @return true if the lists are equal
+    */
+   private boolean listEquals(List<?> oldList, List<?> newList)
+   {
+      if (oldList.size() != newList.size())
+      {
+         return false;
+      }
+
+      Iterator<?> oldIter = oldList.iterator();
+      Iterator<?> newIter = newList.iterator();
+      while (oldIter.hasNext())
+      {
+         if (!valueEquals(oldIter.next(), newIter.next()))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Retrieve the fields to compare for an entity, excluding those which
+    * represent references to other objects.
+    *
+    * @param fields all fields for an entity
+    * @return fields to compare
+    */
+   private static FieldType[] getComparableFields(FieldType[] fields)
+   {
+      List<FieldType> result = new ArrayList<FieldType>(fields.length);
+      for (FieldType field : fields)
+      {
+         DataType type = field.getDataType();
+         if (type != DataType.RELATION_LIST && type != DataType.SUBPROJECT)
+         {
+            result.add(field);
+         }
+      }
+      return result.toArray(new FieldType[result.size()]);
+   }
+
+   private boolean m_matchByGUID;
+   private int m_threadCount = 1;
+   private FieldType[] m_taskFields = DEFAULT_TASK_FIELDS;
+   private FieldType[] m_resourceFields = DEFAULT_RESOURCE_FIELDS;
+   private FieldType[] m_assignmentFields = DEFAULT_ASSIGNMENT_FIELDS;
+
+   private static final FieldType[] DEFAULT_TASK_FIELDS = getComparableFields(TaskField.values());
+   private static final FieldType[] DEFAULT_RESOURCE_FIELDS = getComparableFields(ResourceField.values());
+   private static final FieldType[] DEFAULT_ASSIGNMENT_FIELDS = getComparableFields(AssignmentField.values());
+}
@@ -81,9 +81,14 @@ abstract class AbstractColumn implements FastTrackColumn
       return m_type;
    }
 
-   @Override public Object[] getData()
+   @Override public int getLength()
    {
-      return m_data;
+      return m_data.length;
+   }
+
+   @Override public Object getValue(int index)
+   {
+      return m_data[index];
    }
 
    @Override public String toString()
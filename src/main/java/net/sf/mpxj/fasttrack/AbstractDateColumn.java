@@ -0,0 +1,86 @@
+/*
+ * file:       AbstractDateColumn.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.fasttrack;
+
+import java.io.PrintWriter;
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Common implementation for columns containing date or time values.
+ * Values are held as milliseconds, and a Date instance is only created
+ * when a value is retrieved.
+ */
+abstract class AbstractDateColumn extends AbstractColumn
+{
+   @Override public int getLength()
+   {
+      return m_values.length;
+   }
+
+   @Override public Object getValue(int index)
+   {
+      long value = m_values[index];
+      return value == NULL_VALUE ? null : new Date(value);
+   }
+
+   /**
+    * Allocate storage for the column values, initially all null.
+    *
+    * @param length number of values
+    */
+   protected void allocateValues(int length)
+   {
+      m_values = new long[length];
+      Arrays.fill(m_values, NULL_VALUE);
+   }
+
+   /**
+    * Retrieve the format used to dump the column data.
+    *
+    * @return DateFormat instance
+    */
+   protected abstract DateFormat getDumpFormat();
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void dumpData(PrintWriter pw)
+   {
+      DateFormat df = getDumpFormat();
+      pw.println("  [Data");
+      for (int index = 0; index < m_values.length; index++)
+      {
+         Object value = m_values[index] == NULL_VALUE ? "" : df.format(new Date(m_values[index]));
+         pw.println("    " + value);
+      }
+      pw.println("  ]");
+   }
+
+   protected long[] m_values;
+
+   private static final long NULL_VALUE = Long.MIN_VALUE;
+}
@@ -0,0 +1,61 @@
+/*
+ * file:       AbstractDoubleColumn.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.fasttrack;
+
+import java.io.PrintWriter;
+
+/**
+ * Common implementation for columns containing double values.
+ * Values are held as primitives, with NaN representing a null value,
+ * and are only boxed when they are retrieved.
+ */
+abstract class AbstractDoubleColumn extends AbstractColumn
+{
+   @Override public int getLength()
+   {
+      return m_values.length;
+   }
+
+   @Override public Object getValue(int index)
+   {
+      double value = m_values[index];
+      return Double.isNaN(value) ? null : Double.valueOf(value);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void dumpData(PrintWriter pw)
+   {
+      pw.println("  [Data");
+      for (int index = 0; index < m_values.length; index++)
+      {
+         pw.println("    " + getValue(index));
+      }
+      pw.println("  ]");
+   }
+
+   protected double[] m_values;
+}
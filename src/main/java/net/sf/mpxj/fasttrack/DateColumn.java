@@ -23,18 +23,16 @@
 
 package net.sf.mpxj.fasttrack;
 
-import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 import net.sf.mpxj.common.DateHelper;
 
 /**
  * Column containing dates.
  */
-class DateColumn extends AbstractColumn
+class DateColumn extends AbstractDateColumn
 {
    /**
     * {@inheritDoc}
@@ -68,7 +66,7 @@ class DateColumn extends AbstractColumn
 
       Calendar cal = DateHelper.popCalendar();
       byte[][] rawData = data.getData();
-      m_data = new Date[rawData.length];
+      allocateValues(rawData.length);
       for (int index = 0; index < rawData.length; index++)
       {
          byte[] rawValue = rawData[index];
@@ -83,7 +81,7 @@ class DateColumn extends AbstractColumn
                // Sanity test: ignore dates with obviously incorrect years
                if (year > 1980 && year < 2100)
                {
-                  m_data[index] = cal.getTime();
+                  m_values[index] = cal.getTimeInMillis();
                }               
             }
          }
@@ -96,16 +94,9 @@ class DateColumn extends AbstractColumn
    /**
     * {@inheritDoc}
     */
-   @Override protected void dumpData(PrintWriter pw)
+   @Override protected DateFormat getDumpFormat()
    {
-      DateFormat df = new SimpleDateFormat("dd/MM/yyyy");
-      pw.println("  [Data");
-      for (Object item : m_data)
-      {
-         Object value = item == null ? "" : df.format((Date) item);
-         pw.println("    " + value);
-      }
-      pw.println("  ]");
+      return new SimpleDateFormat("dd/MM/yyyy");
    }
 
    /**
@@ -23,12 +23,10 @@
 
 package net.sf.mpxj.fasttrack;
 
-import java.io.PrintWriter;
-
 /**
  * Column containing double values.
  */
-class DoubleColumn extends AbstractColumn
+class DoubleColumn extends AbstractDoubleColumn
 {
    /**
     * {@inheritDoc}
@@ -43,28 +41,15 @@ class DoubleColumn extends AbstractColumn
     */
    @Override protected int readData(byte[] buffer, int offset)
    {
-      m_data = new Double[FastTrackUtility.getInt(buffer, offset)];
+      m_values = new double[FastTrackUtility.getInt(buffer, offset)];
       offset += 4;
 
-      for (int index = 0; index < m_data.length; index++)
+      for (int index = 0; index < m_values.length; index++)
       {
-         m_data[index] = FastTrackUtility.getDouble(buffer, offset);
+         m_values[index] = FastTrackUtility.getDoubleValue(buffer, offset);
          offset += 8;
       }
 
       return offset;
    }
-
-   /**
-    * {@inheritDoc}
-    */
-   @Override protected void dumpData(PrintWriter pw)
-   {
-      pw.println("  [Data");
-      for (Object item : m_data)
-      {
-         pw.println("    " + item);
-      }
-      pw.println("  ]");
-   }
 }
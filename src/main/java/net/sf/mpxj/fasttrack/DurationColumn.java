@@ -23,12 +23,10 @@
 
 package net.sf.mpxj.fasttrack;
 
-import java.io.PrintWriter;
-
 /**
  * Column containing duration values.
  */
-class DurationColumn extends AbstractColumn
+class DurationColumn extends AbstractDoubleColumn
 {
    /**
     * {@inheritDoc}
@@ -48,33 +46,20 @@ class DurationColumn extends AbstractColumn
       m_timeUnitValue = FastTrackUtility.getByte(buffer, offset);
 
       byte[][] rawData = data.getData();
-      m_data = new Double[rawData.length];
+      m_values = new double[rawData.length];
       for (int index = 0; index < rawData.length; index++)
       {
-         Double durationValue = FastTrackUtility.getDouble(rawData[index], 0);
-         if (durationValue != null && m_timeUnitValue == 10)
+         double durationValue = FastTrackUtility.getDoubleValue(rawData[index], 0);
+         if (m_timeUnitValue == 10)
          {
-            durationValue = Double.valueOf(durationValue.doubleValue() * 3);
+            durationValue = durationValue * 3;
          }
-         m_data[index] = durationValue;
+         m_values[index] = durationValue;
       }
 
       return offset;
    }
 
-   /**
-    * {@inheritDoc}
-    */
-   @Override protected void dumpData(PrintWriter pw)
-   {
-      pw.println("  [Data");
-      for (Object item : m_data)
-      {
-         pw.println("    " + item);
-      }
-      pw.println("  ]");
-   }
-
    /**
     * Retrieve the value representing the time unit used for these durations.
     *
@@ -53,9 +53,17 @@ interface FastTrackColumn
    public FastTrackField getType();
 
    /**
-    * Retrieve the column data.
+    * Retrieve the number of values in this column.
     *
-    * @return column data
+    * @return number of values
     */
-   public Object[] getData();
+   public int getLength();
+
+   /**
+    * Retrieve a value from this column.
+    *
+    * @param index value index
+    * @return column value
+    */
+   public Object getValue(int index);
 }
@@ -24,10 +24,14 @@
 package net.sf.mpxj.fasttrack;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -35,9 +39,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.CharsetHelper;
+import net.sf.mpxj.common.InputStreamHelper;
+import net.sf.mpxj.common.ParallelHelper;
 
 /**
  * Read tables of data from a FastTrack file.
@@ -45,33 +52,53 @@ import net.sf.mpxj.common.CharsetHelper;
 class FastTrackData
 {
    /**
-    * Read a FastTrack file.
+    * Read a FastTrack file. The file is memory mapped rather than
+    * being read into memory.
     *
     * @param file FastTrack file
     */
    public void process(File file) throws Exception
    {
-      openLogFile();
-
-      int blockIndex = 0;
-      int length = (int) file.length();
-      m_buffer = new byte[length];
-      FileInputStream is = new FileInputStream(file);
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
       try
       {
-         int bytesRead = is.read(m_buffer);
-         if (bytesRead != length)
-         {
-            throw new RuntimeException("Read count different");
-         }
+         FileChannel channel = raf.getChannel();
+         process(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
       }
+
       finally
       {
-         is.close();
+         raf.close();
       }
+   }
+
+   /**
+    * Read FastTrack data from a stream.
+    *
+    * @param is input stream
+    */
+   public void process(InputStream is) throws Exception
+   {
+      process(ByteBuffer.wrap(InputStreamHelper.readAll(is)));
+   }
 
+   /**
+    * Locate the tables and columns in the FastTrack data. Column data
+    * is not decoded until a table is read.
+    *
+    * @param buffer FastTrack data
+    */
+   private void process(ByteBuffer buffer) throws Exception
+   {
+      openLogFile();
+
+      m_buffer = buffer;
+      m_buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      int blockIndex = 0;
+      int length = m_buffer.limit();
       List<Integer> blocks = new ArrayList<Integer>();
-      for (int index = 64; index < m_buffer.length - 11; index++)
+      for (int index = 64; index < length - 11; index++)
       {
          if (matchPattern(PARENT_BLOCK_PATTERNS, index))
          {
@@ -88,9 +115,21 @@ class FastTrackData
          ++blockIndex;
       }
 
-      int blockLength = m_buffer.length - startIndex;
+      int blockLength = length - startIndex;
       readBlock(blockIndex, startIndex, blockLength);
 
+      //
+      // When logging, decode all of the columns now so that
+      // they are written to the log file.
+      //
+      if (m_log != null)
+      {
+         for (FastTrackTable table : m_tableList)
+         {
+            table.read();
+         }
+      }
+
       closeLogFile();
    }
 
@@ -117,6 +156,7 @@ class FastTrackData
     */
    TimeUnit getDurationTimeUnit()
    {
+      readTimeUnits();
       return m_durationTimeUnit == null ? TimeUnit.DAYS : m_durationTimeUnit;
    }
 
@@ -127,9 +167,36 @@ class FastTrackData
     */
    TimeUnit getWorkTimeUnit()
    {
+      readTimeUnits();
       return m_workTimeUnit == null ? TimeUnit.HOURS : m_workTimeUnit;
    }
 
+   /**
+    * Determine the duration and work time units. These are taken from the
+    * first duration and work columns in the file, so all tables are read.
+    */
+   private void readTimeUnits()
+   {
+      if (!m_timeUnitsRead)
+      {
+         m_timeUnitsRead = true;
+         for (FastTrackTable table : m_tableList)
+         {
+            table.read();
+
+            if (m_durationTimeUnit == null)
+            {
+               m_durationTimeUnit = table.getColumnDurationTimeUnit();
+            }
+
+            if (m_workTimeUnit == null)
+            {
+               m_workTimeUnit = table.getColumnWorkTimeUnit();
+            }
+         }
+      }
+   }
+
    /**
     * Read a block of data from the FastTrack file and determine if
     * it contains a table definition, or columns.
@@ -165,112 +232,204 @@ class FastTrackData
          if (matchPattern(TABLE_BLOCK_PATTERNS, index))
          {
             int offset = index + 7;
-            int nameLength = FastTrackUtility.getInt(m_buffer, offset);
+            int nameLength = m_buffer.getInt(offset);
             offset += 4;
-            String name = new String(m_buffer, offset, nameLength, CharsetHelper.UTF16LE).toUpperCase();
+            String name = new String(getBytes(offset, nameLength), CharsetHelper.UTF16LE).toUpperCase();
             FastTrackTableType type = REQUIRED_TABLES.get(name);
             if (type != null)
             {
                m_currentTable = new FastTrackTable(type, this);
                m_tables.put(type, m_currentTable);
+               m_tableList.add(m_currentTable);
             }
             else
             {
                m_currentTable = null;
             }
-            m_currentFields.clear();
             break;
          }
       }
    }
 
    /**
-    * Read multiple columns from a block.
+    * Locate the columns in a block, and add them to the current table.
+    * Blocks are ignored if they don't belong to a table we are reading.
     *
     * @param startIndex start of the block
     * @param blockLength length of the block
     */
-   private void readColumnBlock(int startIndex, int blockLength) throws Exception
+   private void readColumnBlock(int startIndex, int blockLength)
    {
-      int endIndex = startIndex + blockLength;
-      List<Integer> blocks = new ArrayList<Integer>();
-      for (int index = startIndex; index < endIndex - 11; index++)
+      if (m_currentTable == null)
       {
-         if (matchChildBlock(index))
-         {
-            int childBlockStart = index - 2;
-            blocks.add(Integer.valueOf(childBlockStart));
-         }
+         return;
       }
-      blocks.add(Integer.valueOf(endIndex));
 
+      int endIndex = startIndex + blockLength;
       int childBlockStart = -1;
-      for (int childBlockEnd : blocks)
+      for (int index = startIndex; index < endIndex - 11; index++)
       {
-         if (childBlockStart != -1)
+         if (matchChildBlock(index))
          {
-            int childblockLength = childBlockEnd - childBlockStart;
-            try
-            {
-               readColumn(childBlockStart, childblockLength);
-            }
-            catch (UnexpectedStructureException ex)
+            if (childBlockStart != -1)
             {
-               logUnexpectedStructure();
+               m_currentTable.addColumnBlock(childBlockStart, index - 2 - childBlockStart);
             }
+            childBlockStart = index - 2;
          }
-         childBlockStart = childBlockEnd;
+      }
+
+      if (childBlockStart != -1)
+      {
+         m_currentTable.addColumnBlock(childBlockStart, endIndex - childBlockStart);
       }
    }
 
    /**
-    * Read data for a single column.
+    * Decode the columns belonging to a table, and add them to the table.
     *
-    * @param startIndex block start
-    * @param length block length
+    * @param table target table
     */
-   private void readColumn(int startIndex, int length) throws Exception
+   void readColumns(FastTrackTable table)
    {
-      if (m_currentTable != null)
-      {
-         int value = FastTrackUtility.getByte(m_buffer, startIndex);
-         Class<?> klass = COLUMN_MAP[value];
-         if (klass == null)
-         {
-            klass = UnknownColumn.class;
-         }
-
-         FastTrackColumn column = (FastTrackColumn) klass.newInstance();
-         m_currentColumn = column;
+      Set<FastTrackField> fields = new TreeSet<FastTrackField>();
+      TimeUnit durationTimeUnit = null;
+      TimeUnit workTimeUnit = null;
 
-         logColumnData(startIndex, length);
-
-         column.read(m_currentTable.getType(), m_buffer, startIndex, length);
-         FastTrackField type = column.getType();
+      for (FastTrackColumn column : decodeColumns(table))
+      {
 
          //
          // Don't try to add this data if:
          // 1. We don't know what type it is
          // 2. We have seen the type already
          //
-         if (type != null && !m_currentFields.contains(type))
+         FastTrackField type = column == null ? null : column.getType();
+         if (type != null && !fields.contains(type))
          {
-            m_currentFields.add(type);
-            m_currentTable.addColumn(column);
-            updateDurationTimeUnit(column);
-            updateWorkTimeUnit(column);
+            fields.add(type);
+            table.addColumn(column);
+            durationTimeUnit = updateDurationTimeUnit(durationTimeUnit, column);
+            workTimeUnit = updateWorkTimeUnit(workTimeUnit, column);
+
+            logColumn(table, column);
+         }
+      }
+
+      table.setColumnTimeUnits(durationTimeUnit, workTimeUnit);
+   }
+
+   /**
+    * Decode each of the column blocks for a table. Where more than one
+    * thread has been requested, the blocks are decoded concurrently,
+    * and the results are returned in file order.
+    *
+    * @param table parent table
+    * @return decoded columns, null entries represent columns which could not be read
+    */
+   private List<FastTrackColumn> decodeColumns(FastTrackTable table)
+   {
+      final FastTrackTableType tableType = table.getType();
+      List<int[]> blocks = table.getColumnBlocks();
+      List<FastTrackColumn> result = new ArrayList<FastTrackColumn>(blocks.size());
 
-            logColumn(column);
+      //
+      // Log output is written as each column is decoded,
+      // so we decode serially if logging is enabled.
+      //
+      if (m_threadCount < 2 || blocks.size() < 2 || m_log != null)
+      {
+         for (int[] block : blocks)
+         {
+            result.add(readColumn(tableType, block[0], block[1]));
          }
+         return result;
+      }
+
+      List<Callable<FastTrackColumn>> tasks = new ArrayList<Callable<FastTrackColumn>>(blocks.size());
+      for (final int[] block : blocks)
+      {
+         tasks.add(new Callable<FastTrackColumn>()
+         {
+            @Override public FastTrackColumn call()
+            {
+               return readColumn(tableType, block[0], block[1]);
+            }
+         });
+      }
+
+      result.addAll(ParallelHelper.invokeAll(m_threadCount, tasks));
+      return result;
+   }
+
+   /**
+    * Decode a single column. The column data is copied from the file
+    * into a buffer of its own.
+    *
+    * @param tableType type of the table containing the column
+    * @param startIndex start of the column in the file
+    * @param length length of the column data
+    * @return column, or null if the column structure is not recognised
+    */
+   private FastTrackColumn readColumn(FastTrackTableType tableType, int startIndex, int length)
+   {
+      byte[] buffer = getBytes(startIndex, length);
+      int value = FastTrackUtility.getByte(buffer, 0);
+      Class<?> klass = COLUMN_MAP[value];
+      if (klass == null)
+      {
+         klass = UnknownColumn.class;
+      }
+
+      FastTrackColumn column;
+      try
+      {
+         column = (FastTrackColumn) klass.newInstance();
+      }
+
+      catch (Exception ex)
+      {
+         throw new RuntimeException(ex);
+      }
+
+      logColumnData(buffer);
+
+      try
+      {
+         column.read(tableType, buffer, 0, length);
+      }
+
+      catch (UnexpectedStructureException ex)
+      {
+         logUnexpectedStructure(column);
+         column = null;
       }
+
+      return column;
+   }
+
+   /**
+    * Copy data from the file.
+    *
+    * @param startIndex start of the data
+    * @param length length of the data
+    * @return data
+    */
+   private byte[] getBytes(int startIndex, int length)
+   {
+      byte[] result = new byte[length];
+      ByteBuffer buffer = m_buffer.duplicate();
+      buffer.position(startIndex);
+      buffer.get(result);
+      return result;
    }
 
    /**
-    * Locate a feature in the file by match a byte pattern.
+    * Determine if one of a set of patterns appears at the given index.
     *
     * @param patterns patterns to match
     * @param bufferIndex start index
-    * @return true if the bytes at the position match a pattern
+    * @return true if a pattern matches
     */
    private final boolean matchPattern(byte[][] patterns, int bufferIndex)
    {
@@ -281,7 +440,7 @@ class FastTrackData
          match = true;
          for (byte b : pattern)
          {
-            if (b != m_buffer[bufferIndex + index])
+            if (b != m_buffer.get(bufferIndex + index))
             {
                match = false;
                break;
@@ -312,7 +471,7 @@ class FastTrackData
       int index = 0;
       for (byte b : CHILD_BLOCK_PATTERN)
       {
-         if (b != m_buffer[bufferIndex + index])
+         if (b != m_buffer.get(bufferIndex + index))
          {
             return false;
          }
@@ -324,7 +483,7 @@ class FastTrackData
       // the name of the block next, and check to ensure that the length
       // of the name makes sense.
       //
-      int nameLength = FastTrackUtility.getInt(m_buffer, bufferIndex + index);
+      int nameLength = m_buffer.getInt(bufferIndex + index);
 
 //      System.out.println("Name length: " + nameLength);
 //      
@@ -340,35 +499,41 @@ class FastTrackData
    /**
     * Update the default time unit for durations based on data read from the file.
     *
+    * @param timeUnit time unit found so far
     * @param column column data
+    * @return updated time unit
     */
-   private void updateDurationTimeUnit(FastTrackColumn column)
+   private TimeUnit updateDurationTimeUnit(TimeUnit timeUnit, FastTrackColumn column)
    {
-      if (m_durationTimeUnit == null && isDurationColumn(column))
+      if (timeUnit == null && isDurationColumn(column))
       {
          int value = ((DurationColumn) column).getTimeUnitValue();
          if (value != 1)
          {
-            m_durationTimeUnit = FastTrackUtility.getTimeUnit(value);
+            timeUnit = FastTrackUtility.getTimeUnit(value);
          }
       }
+      return timeUnit;
    }
 
    /**
     * Update the default time unit for work based on data read from the file.
     *
+    * @param timeUnit time unit found so far
     * @param column column data
+    * @return updated time unit
     */
-   private void updateWorkTimeUnit(FastTrackColumn column)
+   private TimeUnit updateWorkTimeUnit(TimeUnit timeUnit, FastTrackColumn column)
    {
-      if (m_workTimeUnit == null && isWorkColumn(column))
+      if (timeUnit == null && isWorkColumn(column))
       {
          int value = ((DurationColumn) column).getTimeUnitValue();
          if (value != 1)
          {
-            m_workTimeUnit = FastTrackUtility.getTimeUnit(value);
+            timeUnit = FastTrackUtility.getTimeUnit(value);
          }
       }
+      return timeUnit;
    }
 
    /**
@@ -403,6 +568,17 @@ class FastTrackData
       m_logFile = logFile;
    }
 
+   /**
+    * Set the number of threads used to decode the columns of each table.
+    * Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
    /**
     * Open the log file for writing.
     */
@@ -440,7 +616,7 @@ class FastTrackData
          m_log.println("Block Index: " + blockIndex);
          m_log.println("Length: " + blockLength + " (" + Integer.toHexString(blockLength) + ")");
          m_log.println();
-         m_log.println(FastTrackUtility.hexdump(m_buffer, startIndex, blockLength, true, 16, ""));
+         m_log.println(FastTrackUtility.hexdump(getBytes(startIndex, blockLength), 0, blockLength, true, 16, ""));
          m_log.flush();
       }
    }
@@ -448,15 +624,14 @@ class FastTrackData
    /**
     * Log the data for a single column.
     *
-    * @param startIndex offset into buffer
-    * @param length length
+    * @param buffer column data
     */
-   private void logColumnData(int startIndex, int length)
+   private void logColumnData(byte[] buffer)
    {
       if (m_log != null)
       {
          m_log.println();
-         m_log.println(FastTrackUtility.hexdump(m_buffer, startIndex, length, true, 16, ""));
+         m_log.println(FastTrackUtility.hexdump(buffer, 0, buffer.length, true, 16, ""));
          m_log.println();
          m_log.flush();
       }
@@ -464,37 +639,41 @@ class FastTrackData
 
    /**
     * Log unexpected column structure.
+    *
+    * @param column column being read
     */
-   private void logUnexpectedStructure()
+   private void logUnexpectedStructure(FastTrackColumn column)
    {
       if (m_log != null)
       {
-         m_log.println("ABORTED COLUMN - unexpected structure: " + m_currentColumn.getClass().getSimpleName() + " " + m_currentColumn.getName());
+         m_log.println("ABORTED COLUMN - unexpected structure: " + column.getClass().getSimpleName() + " " + column.getName());
       }
    }
 
    /**
     * Log column data.
     *
+    * @param table parent table
     * @param column column data
     */
-   private void logColumn(FastTrackColumn column)
+   private void logColumn(FastTrackTable table, FastTrackColumn column)
    {
       if (m_log != null)
       {
-         m_log.println("TABLE: " + m_currentTable.getType());
+         m_log.println("TABLE: " + table.getType());
          m_log.println(column.toString());
          m_log.flush();
       }
    }
 
-   private byte[] m_buffer;
+   private ByteBuffer m_buffer;
    private String m_logFile;
    private PrintWriter m_log;
    private final Map<FastTrackTableType, FastTrackTable> m_tables = new EnumMap<FastTrackTableType, FastTrackTable>(FastTrackTableType.class);
+   private final List<FastTrackTable> m_tableList = new ArrayList<FastTrackTable>();
    private FastTrackTable m_currentTable;
-   private FastTrackColumn m_currentColumn;
-   private final Set<FastTrackField> m_currentFields = new TreeSet<FastTrackField>();
+   private boolean m_timeUnitsRead;
+   private int m_threadCount = 1;
    private TimeUnit m_durationTimeUnit;
    private TimeUnit m_workTimeUnit;
 
@@ -24,7 +24,6 @@
 package net.sf.mpxj.fasttrack;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -45,8 +44,6 @@ import net.sf.mpxj.RelationType;
 import net.sf.mpxj.Resource;
 import net.sf.mpxj.ResourceAssignment;
 import net.sf.mpxj.Task;
-import net.sf.mpxj.common.FileHelper;
-import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.ProjectReader;
@@ -78,6 +75,17 @@ public final class FastTrackReader implements ProjectReader
       m_projectListeners.add(listener);
    }
 
+   /**
+    * Set the number of threads used to decode the columns of each table.
+    * Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -91,20 +99,20 @@ public final class FastTrackReader implements ProjectReader
     */
    @Override public ProjectFile read(InputStream inputStream) throws MPXJException
    {
-      File file = null;
-
       try
       {
-         file = InputStreamHelper.writeStreamToTempFile(inputStream, ".fts");
-         return read(file);
+         m_data = new FastTrackData();
+         m_data.setThreadCount(m_threadCount);
+         m_data.process(inputStream);
+         return read();
       }
-      catch (IOException ex)
+      catch (Exception ex)
       {
          throw new MPXJException(MPXJException.INVALID_FILE, ex);
       }
       finally
       {
-         FileHelper.deleteQuietly(file);
+         m_data = null;
       }
    }
 
@@ -116,6 +124,7 @@ public final class FastTrackReader implements ProjectReader
       try
       {
          m_data = new FastTrackData();
+         m_data.setThreadCount(m_threadCount);
          // Uncomment this to write debug data to a log file
          // m_data.setLogFile("c:/temp/project1.txt");
          m_data.process(file);
@@ -663,6 +672,7 @@ public final class FastTrackReader implements ProjectReader
    private ProjectFile m_project;
    private EventManager m_eventManager;
    private List<ProjectListener> m_projectListeners;
+   private int m_threadCount = 1;
 
    private static final Pattern WBS_SPLIT_REGEX = Pattern.compile("(\\.|\\-|\\+|\\/|\\,|\\:|\\;|\\~|\\\\|\\| )");
    private static final Pattern RELATION_REGEX = Pattern.compile("(\\d+)(:\\d+)?(FS|SF|SS|FF)*(\\-|\\+)*(\\d+\\.\\d+)*");
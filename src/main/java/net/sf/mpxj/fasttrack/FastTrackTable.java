@@ -26,11 +26,14 @@ package net.sf.mpxj.fasttrack;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import net.sf.mpxj.TimeUnit;
 
 /**
- * Represents a table of data from an FTS file, made up of a set of MapRow instances.
+ * Represents a table of data from an FTS file. The data is held as a set of
+ * columns, and is presented as a set of MapRow instances.
  */
 class FastTrackTable implements Iterable<MapRow>
 {
@@ -76,53 +79,118 @@ class FastTrackTable implements Iterable<MapRow>
    }
 
    /**
-    * Add data for a column to this table.
+    * Retrieve the duration time units specified by the columns in this table.
     *
-    * @param column column data
+    * @return duration time units, or null if not specified
     */
-   public void addColumn(FastTrackColumn column)
+   TimeUnit getColumnDurationTimeUnit()
    {
-      FastTrackField type = column.getType();
-      Object[] data = column.getData();
-      for (int index = 0; index < data.length; index++)
-      {
-         MapRow row = getRow(index);
-         row.getMap().put(type, data[index]);
-      }
+      return m_columnDurationTimeUnit;
    }
 
    /**
-    * {@inheritDoc}
+    * Retrieve the work time units specified by the columns in this table.
+    *
+    * @return work time units, or null if not specified
     */
-   @Override public Iterator<MapRow> iterator()
+   TimeUnit getColumnWorkTimeUnit()
    {
-      return m_rows.iterator();
+      return m_columnWorkTimeUnit;
+   }
+
+   /**
+    * Set the time units specified by the columns in this table.
+    *
+    * @param durationTimeUnit duration time units
+    * @param workTimeUnit work time units
+    */
+   void setColumnTimeUnits(TimeUnit durationTimeUnit, TimeUnit workTimeUnit)
+   {
+      m_columnDurationTimeUnit = durationTimeUnit;
+      m_columnWorkTimeUnit = workTimeUnit;
+   }
+
+   /**
+    * Record the location of a column in the file. The column
+    * is decoded when the table is first read.
+    *
+    * @param startIndex start of the column data
+    * @param length length of the column data
+    */
+   public void addColumnBlock(int startIndex, int length)
+   {
+      m_columnBlocks.add(new int[]
+      {
+         startIndex,
+         length
+      });
    }
 
    /**
-    * Retrieve a specific row by index number, creating a blank row if this row does not exist.
+    * Retrieve the location of each column in the file.
     *
-    * @param index index number
-    * @return MapRow instance
+    * @return list of column start index and length pairs
     */
-   private MapRow getRow(int index)
+   List<int[]> getColumnBlocks()
    {
-      MapRow result;
+      return m_columnBlocks;
+   }
 
-      if (index == m_rows.size())
+   /**
+    * Decode the columns for this table, if this has not already been done.
+    */
+   void read()
+   {
+      if (!m_read && m_data != null)
       {
-         result = new MapRow(this, new HashMap<FastTrackField, Object>());
-         m_rows.add(result);
+         m_read = true;
+         m_data.readColumns(this);
+         m_columnBlocks.clear();
       }
-      else
+   }
+
+   /**
+    * Add data for a column to this table.
+    *
+    * @param column column data
+    */
+   public void addColumn(FastTrackColumn column)
+   {
+      m_columns.put(column.getType(), column);
+      for (int index = m_rows.size(); index < column.getLength(); index++)
       {
-         result = m_rows.get(index);
+         m_rows.add(new MapRow(this, index));
       }
+   }
 
-      return result;
+   /**
+    * Retrieve a value from this table.
+    *
+    * @param type field type
+    * @param index row index
+    * @return field value, or null if not present
+    */
+   Object getValue(FastTrackField type, int index)
+   {
+      FastTrackColumn column = m_columns.get(type);
+      return column == null || index >= column.getLength() ? null : column.getValue(index);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Iterator<MapRow> iterator()
+   {
+      read();
+      return m_rows.iterator();
    }
 
    private final FastTrackData m_data;
    private final FastTrackTableType m_type;
+   private final Map<FastTrackField, FastTrackColumn> m_columns = new HashMap<FastTrackField, FastTrackColumn>();
    private final ArrayList<MapRow> m_rows = new ArrayList<MapRow>();
+   private final List<int[]> m_columnBlocks = new ArrayList<int[]>();
+   private boolean m_read;
+   private TimeUnit m_columnDurationTimeUnit;
+   private TimeUnit m_columnWorkTimeUnit;
 }
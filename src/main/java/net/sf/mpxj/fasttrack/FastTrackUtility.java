@@ -143,6 +143,20 @@ final class FastTrackUtility
       return result;
    }
 
+   /**
+    * This method reads an eight byte double from the input array
+    * without boxing it. Null values are returned as NaN.
+    *
+    * @param data the input array
+    * @param offset offset of double data in the array
+    * @return double value
+    */
+   public static final double getDoubleValue(byte[] data, int offset)
+   {
+      long longValue = getLong(data, offset);
+      return longValue == NULL_DOUBLE ? Double.NaN : Double.longBitsToDouble(longValue);
+   }
+
    /**
     * Retrieve a single byte from an input array.
     *
@@ -25,7 +25,6 @@ package net.sf.mpxj.fasttrack;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Map;
 import java.util.UUID;
 
 import net.sf.mpxj.Duration;
@@ -34,7 +33,7 @@ import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
 
 /**
- * Implementation of the Row interface, wrapping a Map.
+ * Represents a single row of a FastTrackTable.
  */
 class MapRow
 {
@@ -42,12 +41,12 @@ class MapRow
     * Constructor.
     *
     * @param table parent table
-    * @param map map to be wrapped by this instance
+    * @param index row index
     */
-   public MapRow(FastTrackTable table, Map<FastTrackField, Object> map)
+   public MapRow(FastTrackTable table, int index)
    {
       m_table = table;
-      m_map = map;
+      m_index = index;
    }
 
    /**
@@ -191,15 +190,14 @@ class MapRow
    }
 
    /**
-    * Retrieve a value from the map.
+    * Retrieve a value from the table.
     *
     * @param type column name
     * @return column value
     */
    public Object getObject(FastTrackField type)
    {
-      Object result = m_map.get(type);
-      return (result);
+      return m_table.getValue(type, m_index);
    }
 
    /**
@@ -227,16 +225,6 @@ class MapRow
       return result;
    }
 
-   /**
-    * Retrieve the internal Map instance used to hold row data.
-    *
-    * @return Map instance
-    */
-   public Map<FastTrackField, Object> getMap()
-   {
-      return m_map;
-   }
-
-   protected final Map<FastTrackField, Object> m_map;
    private final FastTrackTable m_table;
+   private final int m_index;
 }
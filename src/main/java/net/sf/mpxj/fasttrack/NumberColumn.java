@@ -23,12 +23,10 @@
 
 package net.sf.mpxj.fasttrack;
 
-import java.io.PrintWriter;
-
 /**
  * Column containing double values.
  */
-class NumberColumn extends AbstractColumn
+class NumberColumn extends AbstractDoubleColumn
 {
    /**
     * {@inheritDoc}
@@ -47,25 +45,12 @@ class NumberColumn extends AbstractColumn
       offset = data.getOffset();
 
       byte[][] rawData = data.getData();
-      m_data = new Double[rawData.length];
+      m_values = new double[rawData.length];
       for (int index = 0; index < rawData.length; index++)
       {
-         m_data[index] = FastTrackUtility.getDouble(rawData[index], 0);
+         m_values[index] = FastTrackUtility.getDoubleValue(rawData[index], 0);
       }
 
       return offset;
    }
-
-   /**
-    * {@inheritDoc}
-    */
-   @Override protected void dumpData(PrintWriter pw)
-   {
-      pw.println("  [Data");
-      for (Object item : m_data)
-      {
-         pw.println("    " + item);
-      }
-      pw.println("  ]");
-   }
 }
@@ -23,12 +23,10 @@
 
 package net.sf.mpxj.fasttrack;
 
-import java.io.PrintWriter;
-
 /**
  * Column containing percentage values.
  */
-class PercentColumn extends AbstractColumn
+class PercentColumn extends AbstractDoubleColumn
 {
    /**
     * {@inheritDoc}
@@ -56,25 +54,12 @@ class PercentColumn extends AbstractColumn
       offset = data.getOffset();
 
       byte[][] rawData = data.getData();
-      m_data = new Double[rawData.length];
+      m_values = new double[rawData.length];
       for (int index = 0; index < rawData.length; index++)
       {
-         m_data[index] = FastTrackUtility.getDouble(rawData[index], 0);
+         m_values[index] = FastTrackUtility.getDoubleValue(rawData[index], 0);
       }
 
       return offset;
    }
-
-   /**
-    * {@inheritDoc}
-    */
-   @Override protected void dumpData(PrintWriter pw)
-   {
-      pw.println("  [Data");
-      for (Object item : m_data)
-      {
-         pw.println("    " + item);
-      }
-      pw.println("  ]");
-   }
 }
@@ -23,18 +23,16 @@
 
 package net.sf.mpxj.fasttrack;
 
-import java.io.PrintWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.Date;
 
 import net.sf.mpxj.common.DateHelper;
 
 /**
  * Column containing time values.
  */
-class TimeColumn extends AbstractColumn
+class TimeColumn extends AbstractDateColumn
 {
    /**
     * {@inheritDoc}
@@ -54,7 +52,7 @@ class TimeColumn extends AbstractColumn
 
       Calendar cal = DateHelper.popCalendar();
       byte[][] rawData = data.getData();
-      m_data = new Date[rawData.length];
+      allocateValues(rawData.length);
       for (int index = 0; index < rawData.length; index++)
       {
          if (rawData[index].length > 1)
@@ -64,7 +62,7 @@ class TimeColumn extends AbstractColumn
             cal.set(Calendar.MINUTE, (value % 60));
             cal.set(Calendar.SECOND, 0);
             cal.set(Calendar.MILLISECOND, 0);
-            m_data[index] = cal.getTime();
+            m_values[index] = cal.getTimeInMillis();
          }
       }
       DateHelper.pushCalendar(cal);
@@ -75,14 +73,8 @@ class TimeColumn extends AbstractColumn
    /**
     * {@inheritDoc}
     */
-   @Override protected void dumpData(PrintWriter pw)
+   @Override protected DateFormat getDumpFormat()
    {
-      DateFormat df = new SimpleDateFormat("HH:mm:ss");
-      pw.println("  [Data");
-      for (Object item : m_data)
-      {
-         pw.println("    " + df.format((Date) item));
-      }
-      pw.println("  ]");
+      return new SimpleDateFormat("HH:mm:ss");
    }
 }
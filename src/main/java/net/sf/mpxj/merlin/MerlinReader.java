@@ -27,13 +27,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -78,6 +77,7 @@ import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.FileHelper;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.SqliteTableLoader;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.ProjectReader;
 
@@ -161,9 +161,8 @@ public final class MerlinReader implements ProjectReader
    {
       try
       {
-         String url = "jdbc:sqlite:" + file.getAbsolutePath();
-         Properties props = new Properties();
-         m_connection = org.sqlite.JDBC.createConnection(url, props);
+         m_loader = new SqliteTableLoader<Row>(file, new Properties(), ROW_FACTORY);
+         m_loader.setThreadCount(m_threadCount);
 
          m_documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
 
@@ -181,19 +180,13 @@ public final class MerlinReader implements ProjectReader
 
       finally
       {
-         if (m_connection != null)
+         if (m_loader != null)
          {
-            try
-            {
-               m_connection.close();
-            }
-
-            catch (SQLException ex)
-            {
-               // silently ignore exceptions when closing connection
-            }
+            m_loader.close();
+            m_loader = null;
          }
 
+         m_tables = null;
          m_documentBuilder = null;
          m_dayTimeIntervals = null;
          m_entityMap = null;
@@ -221,6 +214,7 @@ public final class MerlinReader implements ProjectReader
       m_eventManager.addProjectListeners(m_projectListeners);
 
       populateEntityMap();
+      loadTables();
       processProject();
       processCalendars();
       processResources();
@@ -236,19 +230,46 @@ public final class MerlinReader implements ProjectReader
     */
    private void populateEntityMap() throws SQLException
    {
-      for (Row row : getRows("select * from z_primarykey"))
+      m_loader.addQuery("z_primarykey", "select z_name, z_ent from z_primarykey");
+      for (Row row : m_loader.load().get("z_primarykey"))
       {
          m_entityMap.put(row.getString("Z_NAME"), row.getInteger("Z_ENT"));
       }
    }
 
+   /**
+    * Read the rows required from each table. The queries are executed
+    * together, so they can be shared between several connections.
+    * Calendar rules and child activities are each read using a single
+    * query, then grouped by their parent. ZPROJECT is not necessarily
+    * populated for child activities, so they are scoped to the project
+    * by walking down from its top level activities.
+    */
+   private void loadTables() throws SQLException
+   {
+      Integer activityEntity = m_entityMap.get("Activity");
+      Integer assignmentEntity = m_entityMap.get("Assignment");
+
+      m_loader.addQuery("zproject", "select * from zproject where z_pk=?", m_projectID);
+      m_loader.addQuery("zcalendar", "select z_pk, ztitle from zcalendar where zproject=?", m_projectID);
+      m_loader.addQuery("weekdayrule", "select zcalendar1, zweekday, ztimeintervals from zcalendarrule where z_ent=? and zcalendar1 in (select z_pk from zcalendar where zproject=?)", m_entityMap.get("CalendarWeekDayRule"), m_projectID);
+      m_loader.addQuery("exceptionrule", "select zcalendar, zstartday, zendday, ztimeintervals from zcalendarrule where z_ent=? and zcalendar in (select z_pk from zcalendar where zproject=?)", m_entityMap.get("CalendarExceptionRule"), m_projectID);
+      m_loader.addQuery("zresource", "select z_pk, zemail, zinitials, ztitle_, zuniqueid, ztype, zmaterialunit, zavailableunits_, zresourcecalendar from zresource where zproject=? order by zorderinproject", m_projectID);
+      m_loader.addQuery("activity", "select z_pk, zparentactivity_, ztitle, zuniqueid, zobjectdescription, zpriority, zismilestone, zgivencalendar, zgivenduration_, zgivenwork_, zgivenworkovertime_, zgivenactualwork_, zgivenactualworkovertime_, zgivenactualstartdate_, zgivenactualenddate_, zlevelingdelay_, zgivenstartdatemin_, zgivenstartdatemax_, zgivenenddatemin_, zgivenenddatemax_ from zscheduleitem where zproject=? and zparentactivity_ is null and z_ent=? order by zorderinparentactivity", m_projectID, activityEntity);
+      m_loader.addQuery("childactivity", "with recursive projectactivity(z_pk) as (select z_pk from zscheduleitem where zproject=? and zparentactivity_ is null and z_ent=? union all select zscheduleitem.z_pk from zscheduleitem inner join projectactivity on zscheduleitem.zparentactivity_ = projectactivity.z_pk where zscheduleitem.z_ent=?) select z_pk, zparentactivity_, ztitle, zuniqueid, zobjectdescription, zpriority, zismilestone, zgivencalendar, zgivenduration_, zgivenwork_, zgivenworkovertime_, zgivenactualwork_, zgivenactualworkovertime_, zgivenactualstartdate_, zgivenactualenddate_, zlevelingdelay_, zgivenstartdatemin_, zgivenstartdatemax_, zgivenenddatemin_, zgivenenddatemax_ from zscheduleitem where zparentactivity_ in (select z_pk from projectactivity) and z_ent=? order by zorderinparentactivity", m_projectID, activityEntity, activityEntity, activityEntity);
+      m_loader.addQuery("assignment", "select zactivity_, zresource, zuniqueid, zgivenactualstartdate_, zgivenactualenddate_, zgivenwork_, zgivenworkovertime_, zgivenactualwork_, zgivenactualworkovertime_, zgivenremainingwork_, zlevelingdelay_, zresourceunits_ from zscheduleitem where zproject=? and z_ent=? order by zorderinactivity", m_projectID, assignmentEntity);
+      m_loader.addQuery("zdependency", "select z_pk, znextactivity_, zpreviousactivity_, zlag_, ztype from zdependency where zproject=?", m_projectID);
+
+      m_tables = m_loader.load();
+   }
+
    /**
     * Read project properties.
     */
-   private void processProject() throws SQLException
+   private void processProject()
    {
       ProjectProperties props = m_project.getProjectProperties();
-      Row row = getRows("select * from zproject where z_pk=?", m_projectID).get(0);
+      Row row = m_tables.get("zproject").get(0);
       props.setWeekStartDay(Day.getInstance(row.getInt("ZFIRSTDAYOFWEEK") + 1));
       props.setScheduleFrom(row.getInt("ZSCHEDULINGDIRECTION") == 1 ? ScheduleFrom.START : ScheduleFrom.FINISH);
       props.setMinutesPerDay(Integer.valueOf(row.getInt("ZHOURSPERDAY") * 60));
@@ -265,14 +286,16 @@ public final class MerlinReader implements ProjectReader
     */
    private void processCalendars() throws Exception
    {
-      List<Row> rows = getRows("select * from zcalendar where zproject=?", m_projectID);
-      for (Row row : rows)
+      Map<Integer, List<Row>> weekDayRules = groupRows(m_tables.get("weekdayrule"), "ZCALENDAR1");
+      Map<Integer, List<Row>> exceptionRules = groupRows(m_tables.get("exceptionrule"), "ZCALENDAR");
+
+      for (Row row : m_tables.get("zcalendar"))
       {
          ProjectCalendar calendar = m_project.addCalendar();
          calendar.setUniqueID(row.getInteger("Z_PK"));
          calendar.setName(row.getString("ZTITLE"));
-         processDays(calendar);
-         processExceptions(calendar);
+         processDays(calendar, getRows(weekDayRules, calendar.getUniqueID()));
+         processExceptions(calendar, getRows(exceptionRules, calendar.getUniqueID()));
          m_eventManager.fireCalendarReadEvent(calendar);
       }
    }
@@ -281,8 +304,9 @@ public final class MerlinReader implements ProjectReader
     * Process normal calendar working and non-working days.
     *
     * @param calendar parent calendar
+    * @param rows week day rules for this calendar
     */
-   private void processDays(ProjectCalendar calendar) throws Exception
+   private void processDays(ProjectCalendar calendar, List<Row> rows) throws Exception
    {
       // Default all days to non-working
       for (Day day : Day.values())
@@ -290,7 +314,6 @@ public final class MerlinReader implements ProjectReader
          calendar.setWorkingDay(day, false);
       }
 
-      List<Row> rows = getRows("select * from zcalendarrule where zcalendar1=? and z_ent=?", calendar.getUniqueID(), m_entityMap.get("CalendarWeekDayRule"));
       for (Row row : rows)
       {
          Day day = row.getDay("ZWEEKDAY");
@@ -326,10 +349,10 @@ public final class MerlinReader implements ProjectReader
     * Process calendar exceptions.
     *
     * @param calendar parent calendar.
+    * @param rows exception rules for this calendar
     */
-   private void processExceptions(ProjectCalendar calendar) throws Exception
+   private void processExceptions(ProjectCalendar calendar, List<Row> rows) throws Exception
    {
-      List<Row> rows = getRows("select * from zcalendarrule where zcalendar=? and z_ent=?", calendar.getUniqueID(), m_entityMap.get("CalendarExceptionRule"));
       for (Row row : rows)
       {
          Date startDay = row.getDate("ZSTARTDAY");
@@ -360,10 +383,9 @@ public final class MerlinReader implements ProjectReader
    /**
     * Read resource data.
     */
-   private void processResources() throws SQLException
+   private void processResources()
    {
-      List<Row> rows = getRows("select * from zresource where zproject=? order by zorderinproject", m_projectID);
-      for (Row row : rows)
+      for (Row row : m_tables.get("zresource"))
       {
          Resource resource = m_project.addResource();
          resource.setUniqueID(row.getInteger("Z_PK"));
@@ -395,20 +417,17 @@ public final class MerlinReader implements ProjectReader
    }
 
    /**
-    * Read all top level tasks.
+    * Read all top level tasks. Child activities are read in a single
+    * query, then grouped by parent activity to build the hierarchy.
     */
-   private void processTasks() throws SQLException
+   private void processTasks()
    {
-      //
-      // Yes... we could probably read this in one query in the right order
-      // using a CTE... but life's too short.
-      //
-      List<Row> rows = getRows("select * from zscheduleitem where zproject=? and zparentactivity_ is null and z_ent=? order by zorderinparentactivity", m_projectID, m_entityMap.get("Activity"));
-      for (Row row : rows)
+      Map<Integer, List<Row>> activities = groupRows(m_tables.get("childactivity"), "ZPARENTACTIVITY_");
+      for (Row row : m_tables.get("activity"))
       {
          Task task = m_project.addTask();
          populateTask(row, task);
-         processChildTasks(task);
+         processChildTasks(task, activities);
       }
    }
 
@@ -416,15 +435,15 @@ public final class MerlinReader implements ProjectReader
     * Read all child tasks for a given parent.
     *
     * @param parentTask parent task
+    * @param activities activities grouped by parent activity
     */
-   private void processChildTasks(Task parentTask) throws SQLException
+   private void processChildTasks(Task parentTask, Map<Integer, List<Row>> activities)
    {
-      List<Row> rows = getRows("select * from zscheduleitem where zparentactivity_=? and z_ent=? order by zorderinparentactivity", parentTask.getUniqueID(), m_entityMap.get("Activity"));
-      for (Row row : rows)
+      for (Row row : getRows(activities, parentTask.getUniqueID()))
       {
          Task task = parentTask.addTask();
          populateTask(row, task);
-         processChildTasks(task);
+         processChildTasks(task, activities);
       }
    }
 
@@ -530,10 +549,9 @@ public final class MerlinReader implements ProjectReader
    /**
     * Read assignment data.
     */
-   private void processAssignments() throws SQLException
+   private void processAssignments()
    {
-      List<Row> rows = getRows("select * from zscheduleitem where zproject=? and z_ent=? order by zorderinactivity", m_projectID, m_entityMap.get("Assignment"));
-      for (Row row : rows)
+      for (Row row : m_tables.get("assignment"))
       {
          Task task = m_project.getTaskByUniqueID(row.getInteger("ZACTIVITY_"));
          Resource resource = m_project.getResourceByUniqueID(row.getInteger("ZRESOURCE"));
@@ -594,10 +612,9 @@ public final class MerlinReader implements ProjectReader
    /**
     * Read relation data.
     */
-   private void processDependencies() throws SQLException
+   private void processDependencies()
    {
-      List<Row> rows = getRows("select * from zdependency where zproject=?", m_projectID);
-      for (Row row : rows)
+      for (Row row : m_tables.get("zdependency"))
       {
          Task nextTask = m_project.getTaskByUniqueID(row.getInteger("ZNEXTACTIVITY_"));
          Task prevTask = m_project.getTaskByUniqueID(row.getInteger("ZPREVIOUSACTIVITY_"));
@@ -609,51 +626,51 @@ public final class MerlinReader implements ProjectReader
    }
 
    /**
-    * Retrieve a number of rows matching the supplied query
-    * which takes a single parameter.
+    * Group rows by the value of a column.
     *
-    * @param sql query statement
-    * @param values bind variable values
-    * @return result set
-    * @throws SQLException
+    * @param rows rows to group
+    * @param column column containing the group key
+    * @return map of key values to rows
     */
-   private List<Row> getRows(String sql, Integer... values) throws SQLException
+   private Map<Integer, List<Row>> groupRows(List<Row> rows, String column)
    {
-      List<Row> result = new LinkedList<Row>();
-
-      m_ps = m_connection.prepareStatement(sql);
-      int bindIndex = 1;
-      for (Integer value : values)
-      {
-         m_ps.setInt(bindIndex++, NumberHelper.getInt(value));
-      }
-      m_rs = m_ps.executeQuery();
-      populateMetaData();
-      while (m_rs.next())
+      Map<Integer, List<Row>> result = new HashMap<Integer, List<Row>>();
+      for (Row row : rows)
       {
-         result.add(new SqliteResultSetRow(m_rs, m_meta));
+         Integer key = row.getInteger(column);
+         List<Row> list = result.get(key);
+         if (list == null)
+         {
+            list = new ArrayList<Row>();
+            result.put(key, list);
+         }
+         list.add(row);
       }
-
-      return (result);
+      return result;
    }
 
    /**
-    * Retrieves basic meta data from the result set.
+    * Retrieve a group of rows, or an empty list if there are none.
     *
-    * @throws SQLException
+    * @param map grouped rows
+    * @param key group key
+    * @return list of rows
     */
-   private void populateMetaData() throws SQLException
+   private List<Row> getRows(Map<Integer, List<Row>> map, Integer key)
    {
-      m_meta.clear();
+      List<Row> result = map.get(key);
+      return result == null ? Collections.<Row> emptyList() : result;
+   }
 
-      ResultSetMetaData meta = m_rs.getMetaData();
-      int columnCount = meta.getColumnCount() + 1;
-      for (int loop = 1; loop < columnCount; loop++)
-      {
-         String name = meta.getColumnName(loop);
-         Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
-      }
+   /**
+    * Set the number of threads used to read tables from the database.
+    * Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
    }
 
    /**
@@ -672,13 +689,20 @@ public final class MerlinReader implements ProjectReader
    private ProjectFile m_project;
    private EventManager m_eventManager;
    private Integer m_projectID = Integer.valueOf(1);
-   private Connection m_connection;
-   private PreparedStatement m_ps;
-   private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
+   private SqliteTableLoader<Row> m_loader;
+   private Map<String, List<Row>> m_tables;
+   private int m_threadCount = 1;
    private List<ProjectListener> m_projectListeners;
    private DocumentBuilder m_documentBuilder;
    private DateFormat m_calendarTimeFormat = new SimpleDateFormat("HH:mm:ss");
    private XPathExpression m_dayTimeIntervals;
    private Map<String, Integer> m_entityMap;
+
+   private static final SqliteTableLoader.RowFactory<Row> ROW_FACTORY = new SqliteTableLoader.RowFactory<Row>()
+   {
+      @Override public Row createRow(ResultSet rs, Map<String, Integer> meta) throws SQLException
+      {
+         return new SqliteResultSetRow(rs, meta);
+      }
+   };
 }
@@ -63,7 +63,6 @@ import net.sf.mpxj.common.MPPResourceField;
 import net.sf.mpxj.common.MPPTaskField;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.Pair;
-import net.sf.mpxj.common.RtfHelper;
 
 /**
  * This class implements retrieval of data from a project database
@@ -584,13 +583,16 @@ abstract class MPD9AbstractReader
          resource.setWorkGroup(WorkGroup.getInstance(row.getInt("RES_WORKGROUP_MESSAGING")));
 
          String notes = row.getString("RES_RTF_NOTES");
-         if (notes != null)
+         if (notes != null && m_readNotes)
          {
             if (m_preserveNoteFormatting == false)
             {
-               notes = RtfHelper.strip(notes);
+               resource.setRtfNotes(notes);
+            }
+            else
+            {
+               resource.setNotes(notes);
             }
-            resource.setNotes(notes);
          }
 
          resource.setResourceCalendar(m_project.getCalendarByUniqueID(row.getInteger("RES_CAL_UID")));
@@ -1041,13 +1043,16 @@ abstract class MPD9AbstractReader
          //TASK_HAS_NOTES = false ( java.lang.Boolean)
          //TASK_RTF_NOTES = null ( )
          String notes = row.getString("TASK_RTF_NOTES");
-         if (notes != null)
+         if (notes != null && m_readNotes)
          {
             if (m_preserveNoteFormatting == false)
             {
-               notes = RtfHelper.strip(notes);
+               task.setRtfNotes(notes);
+            }
+            else
+            {
+               task.setNotes(notes);
             }
-            task.setNotes(notes);
          }
 
          //
@@ -1196,13 +1201,16 @@ abstract class MPD9AbstractReader
          //assignment.setWorkVariance();
 
          String notes = row.getString("ASSN_RTF_NOTES");
-         if (notes != null)
+         if (notes != null && m_readNotes)
          {
             if (m_preserveNoteFormatting == false)
             {
-               notes = RtfHelper.strip(notes);
+               assignment.setRtfNotes(notes);
+            }
+            else
+            {
+               assignment.setNotes(notes);
             }
-            assignment.setNotes(notes);
          }
 
          m_eventManager.fireAssignmentReadEvent(assignment);
@@ -1331,11 +1339,23 @@ abstract class MPD9AbstractReader
       m_preserveNoteFormatting = preserveNoteFormatting;
    }
 
+   /**
+    * This method sets a flag to indicate whether notes are read.
+    * By default notes are read.
+    *
+    * @param readNotes boolean flag
+    */
+   public void setReadNotes(boolean readNotes)
+   {
+      m_readNotes = readNotes;
+   }
+
    protected Integer m_projectID;
    protected ProjectFile m_project;
    protected EventManager m_eventManager;
 
    private boolean m_preserveNoteFormatting;
+   private boolean m_readNotes = true;
    private boolean m_autoWBS = true;
 
    private Map<Integer, ProjectCalendar> m_calendarMap = new HashMap<Integer, ProjectCalendar>();
@@ -29,12 +29,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.sql.DataSource;
 
@@ -77,13 +79,35 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       try
       {
-         Map<Integer, String> result = new HashMap<Integer, String>();
+         return readProjectList();
+      }
+
+      finally
+      {
+         releaseConnection();
+      }
+   }
+
+   /**
+    * Read the IDs and names of the projects available in the current
+    * database, without releasing the connection.
+    *
+    * @return Map instance containing ID and name pairs
+    * @throws MPXJException
+    */
+   private Map<Integer, String> readProjectList() throws MPXJException
+   {
+      try
+      {
+         final Map<Integer, String> result = new HashMap<Integer, String>();
 
-         List<ResultSetRow> rows = getRows("SELECT PROJ_ID, PROJ_NAME FROM MSP_PROJECTS");
-         for (ResultSetRow row : rows)
+         processRows("SELECT PROJ_ID, PROJ_NAME FROM MSP_PROJECTS", new RowListener()
          {
-            processProjectListItem(result, row);
-         }
+            @Override public void rowRead(Row row)
+            {
+               processProjectListItem(result, row);
+            }
+         });
 
          return result;
       }
@@ -101,6 +125,52 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     * @throws MPXJException
     */
    public ProjectFile read() throws MPXJException
+   {
+      try
+      {
+         return readProject();
+      }
+
+      finally
+      {
+         releaseConnection();
+      }
+   }
+
+   /**
+    * Read all of the projects in the current data source, ordered by
+    * project ID. Prepared statements are reused for each project.
+    *
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   public List<ProjectFile> readAll() throws MPXJException
+   {
+      try
+      {
+         Set<Integer> projectIDs = new TreeSet<Integer>(readProjectList().keySet());
+         List<ProjectFile> result = new ArrayList<ProjectFile>(projectIDs.size());
+         for (Integer projectID : projectIDs)
+         {
+            setProjectID(projectID);
+            result.add(readProject());
+         }
+         return result;
+      }
+
+      finally
+      {
+         releaseConnection();
+      }
+   }
+
+   /**
+    * Read the project identified by the current project ID.
+    *
+    * @return ProjectFile instance
+    * @throws MPXJException
+    */
+   private ProjectFile readProject() throws MPXJException
    {
       try
       {
@@ -147,21 +217,6 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       finally
       {
          reset();
-
-         if (m_allocatedConnection && m_connection != null)
-         {
-            try
-            {
-               m_connection.close();
-            }
-
-            catch (SQLException ex)
-            {
-               // silently ignore errors on close
-            }
-
-            m_connection = null;
-         }
       }
    }
 
@@ -172,11 +227,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processProjectProperties() throws SQLException
    {
-      List<ResultSetRow> rows = getRows("SELECT * FROM MSP_PROJECTS WHERE PROJ_ID=?", m_projectID);
-      if (rows.isEmpty() == false)
+      processRows("SELECT * FROM MSP_PROJECTS WHERE PROJ_ID=?", new RowListener()
       {
-         processProjectProperties(rows.get(0));
-      }
+         @Override public void rowRead(Row row)
+         {
+            processProjectProperties(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -186,41 +243,38 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processCalendars() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_CALENDARS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT * FROM MSP_CALENDARS WHERE PROJ_ID=?", new RowListener()
       {
-         processCalendar(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processCalendar(row);
+         }
+      }, m_projectID);
 
       updateBaseCalendarNames();
 
-      processCalendarData(m_project.getCalendars());
+      processCalendarData();
    }
 
    /**
     * Process calendar hours and exception data from the database.
+    * The data for all calendars is read using a single query.
     *
-    * @param calendars all calendars for the project
-    */
-   private void processCalendarData(List<ProjectCalendar> calendars) throws SQLException
-   {
-      for (ProjectCalendar calendar : calendars)
-      {
-         processCalendarData(calendar, getRows("SELECT * FROM MSP_CALENDAR_DATA WHERE PROJ_ID=? AND CAL_UID=?", m_projectID, calendar.getUniqueID()));
-      }
-   }
-
-   /**
-    * Process the hours and exceptions for an individual calendar.
-    *
-    * @param calendar project calendar
-    * @param calendarData hours and exception rows for this calendar
+    * @throws SQLException
     */
-   private void processCalendarData(ProjectCalendar calendar, List<ResultSetRow> calendarData)
+   private void processCalendarData() throws SQLException
    {
-      for (ResultSetRow row : calendarData)
+      processRows("SELECT CAL_UID, CD_DAY_OR_EXCEPTION, CD_WORKING, CD_FROM_DATE, CD_TO_DATE, CD_FROM_TIME1, CD_TO_TIME1, CD_FROM_TIME2, CD_TO_TIME2, CD_FROM_TIME3, CD_TO_TIME3, CD_FROM_TIME4, CD_TO_TIME4, CD_FROM_TIME5, CD_TO_TIME5 FROM MSP_CALENDAR_DATA WHERE PROJ_ID=?", new RowListener()
       {
-         processCalendarData(calendar, row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            ProjectCalendar calendar = m_project.getCalendarByUniqueID(row.getInteger("CAL_UID"));
+            if (calendar != null)
+            {
+               processCalendarData(calendar, row);
+            }
+         }
+      }, m_projectID);
    }
 
    /**
@@ -230,10 +284,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processResources() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_RESOURCES WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT * FROM MSP_RESOURCES WHERE PROJ_ID=?", new RowListener()
       {
-         processResource(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processResource(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -245,10 +302,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       if (m_hasResourceBaselines)
       {
-         for (ResultSetRow row : getRows("SELECT * FROM MSP_RESOURCE_BASELINES WHERE PROJ_ID=?", m_projectID))
+         processRows("SELECT RES_UID, RB_BASE_NUM, RB_BASE_WORK, RB_BASE_COST FROM MSP_RESOURCE_BASELINES WHERE PROJ_ID=?", new RowListener()
          {
-            processResourceBaseline(row);
-         }
+            @Override public void rowRead(Row row)
+            {
+               processResourceBaseline(row);
+            }
+         }, m_projectID);
       }
    }
 
@@ -259,10 +319,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processTasks() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_TASKS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT * FROM MSP_TASKS WHERE PROJ_ID=?", new RowListener()
       {
-         processTask(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processTask(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -274,10 +337,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       if (m_hasTaskBaselines)
       {
-         for (ResultSetRow row : getRows("SELECT * FROM MSP_TASK_BASELINES WHERE PROJ_ID=?", m_projectID))
+         processRows("SELECT TASK_UID, TB_BASE_NUM, TB_BASE_DUR, TB_BASE_DUR_FMT, TB_BASE_START, TB_BASE_FINISH, TB_BASE_WORK, TB_BASE_COST FROM MSP_TASK_BASELINES WHERE PROJ_ID=?", new RowListener()
          {
-            processTaskBaseline(row);
-         }
+            @Override public void rowRead(Row row)
+            {
+               processTaskBaseline(row);
+            }
+         }, m_projectID);
       }
    }
 
@@ -288,10 +354,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processLinks() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_LINKS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT LINK_UID, LINK_PRED_UID, LINK_SUCC_UID, LINK_TYPE, LINK_LAG, LINK_LAG_FMT FROM MSP_LINKS WHERE PROJ_ID=?", new RowListener()
       {
-         processLink(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processLink(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -301,10 +370,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processAssignments() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_ASSIGNMENTS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT * FROM MSP_ASSIGNMENTS WHERE PROJ_ID=?", new RowListener()
       {
-         processAssignment(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processAssignment(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -316,10 +388,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       if (m_hasAssignmentBaselines)
       {
-         for (ResultSetRow row : getRows("SELECT * FROM MSP_ASSIGNMENT_BASELINES WHERE PROJ_ID=?", m_projectID))
+         processRows("SELECT ASSN_UID, AB_BASE_NUM, AB_BASE_START, AB_BASE_FINISH, AB_BASE_WORK, AB_BASE_COST FROM MSP_ASSIGNMENT_BASELINES WHERE PROJ_ID=?", new RowListener()
          {
-            processAssignmentBaseline(row);
-         }
+            @Override public void rowRead(Row row)
+            {
+               processAssignmentBaseline(row);
+            }
+         }, m_projectID);
       }
    }
 
@@ -378,10 +453,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processTextFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_TEXT_FIELDS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT TEXT_FIELD_ID, TEXT_REF_UID, TEXT_VALUE FROM MSP_TEXT_FIELDS WHERE PROJ_ID=?", new RowListener()
       {
-         processTextField(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processTextField(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -391,10 +469,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processNumberFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_NUMBER_FIELDS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT NUM_FIELD_ID, NUM_REF_UID, NUM_VALUE FROM MSP_NUMBER_FIELDS WHERE PROJ_ID=?", new RowListener()
       {
-         processNumberField(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processNumberField(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -404,10 +485,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processFlagFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_FLAG_FIELDS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT FLAG_FIELD_ID, FLAG_REF_UID, FLAG_VALUE FROM MSP_FLAG_FIELDS WHERE PROJ_ID=?", new RowListener()
       {
-         processFlagField(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processFlagField(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -417,10 +501,13 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processDurationFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_DURATION_FIELDS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT DUR_FIELD_ID, DUR_REF_UID, DUR_VALUE, DUR_FMT FROM MSP_DURATION_FIELDS WHERE PROJ_ID=?", new RowListener()
       {
-         processDurationField(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processDurationField(row);
+         }
+      }, m_projectID);
    }
 
    /**
@@ -430,143 +517,120 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processDateFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_DATE_FIELDS WHERE PROJ_ID=?", m_projectID))
+      processRows("SELECT DATE_FIELD_ID, DATE_REF_UID, DATE_VALUE FROM MSP_DATE_FIELDS WHERE PROJ_ID=?", new RowListener()
       {
-         processDateField(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            processDateField(row);
+         }
+      }, m_projectID);
    }
 
    /**
-    * Process outline code fields.
+    * Process outline code fields. The outline code values for the project
+    * are read using a single query, and grouped by code.
     *
     * @throws SQLException
     */
    private void processOutlineCodeFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_CODE_FIELDS WHERE PROJ_ID=?", m_projectID))
+      final Map<Integer, List<Row>> outlineCodes = new HashMap<Integer, List<Row>>();
+      processRows("SELECT CODE_UID, OC_FIELD_ID, OC_NAME FROM MSP_OUTLINE_CODES WHERE PROJ_ID=?", new RowListener()
       {
-         processOutlineCodeFields(row);
-      }
+         @Override public void rowRead(Row row)
+         {
+            Integer outlineCodeEntityID = row.getInteger("CODE_UID");
+            List<Row> rows = outlineCodes.get(outlineCodeEntityID);
+            if (rows == null)
+            {
+               rows = new ArrayList<Row>();
+               outlineCodes.put(outlineCodeEntityID, rows);
+            }
+            rows.add(row);
+         }
+      }, m_projectID);
+
+      processRows("SELECT CODE_REF_UID, CODE_UID FROM MSP_CODE_FIELDS WHERE PROJ_ID=?", new RowListener()
+      {
+         @Override public void rowRead(Row row)
+         {
+            processOutlineCodeFields(row, outlineCodes);
+         }
+      }, m_projectID);
    }
 
    /**
     * Process a single outline code.
     *
     * @param parentRow outline code to task mapping table
-    * @throws SQLException
+    * @param outlineCodes outline code values, grouped by code
     */
-   private void processOutlineCodeFields(Row parentRow) throws SQLException
+   private void processOutlineCodeFields(Row parentRow, Map<Integer, List<Row>> outlineCodes)
    {
       Integer entityID = parentRow.getInteger("CODE_REF_UID");
-      Integer outlineCodeEntityID = parentRow.getInteger("CODE_UID");
-
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_OUTLINE_CODES WHERE CODE_UID=?", outlineCodeEntityID))
+      List<Row> rows = outlineCodes.get(parentRow.getInteger("CODE_UID"));
+      if (rows != null)
       {
-         processOutlineCodeField(entityID, row);
+         for (Row row : rows)
+         {
+            processOutlineCodeField(entityID, row);
+         }
       }
    }
 
    /**
-    * Retrieve a number of rows matching the supplied query.
+    * Execute a query and pass each row to a listener as it is read.
+    * Prepared statements are retained and reused until the connection
+    * is released.
     *
     * @param sql query statement
-    * @return result set
+    * @param listener row listener
+    * @param values bind variable values
     * @throws SQLException
     */
-   private List<ResultSetRow> getRows(String sql) throws SQLException
+   private void processRows(String sql, RowListener listener, Integer... values) throws SQLException
    {
       allocateConnection();
 
-      try
+      PreparedStatement ps = m_statements.get(sql);
+      if (ps == null)
       {
-         List<ResultSetRow> result = new LinkedList<ResultSetRow>();
-
-         m_ps = m_connection.prepareStatement(sql);
-         m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
+         ps = m_connection.prepareStatement(sql);
+         m_statements.put(sql, ps);
+      }
 
-         return (result);
+      if (m_fetchSize > 0)
+      {
+         ps.setFetchSize(m_fetchSize);
       }
 
-      finally
+      for (int index = 0; index < values.length; index++)
       {
-         releaseConnection();
+         ps.setInt(index + 1, NumberHelper.getInt(values[index]));
       }
-   }
 
-   /**
-    * Retrieve a number of rows matching the supplied query
-    * which takes a single parameter.
-    *
-    * @param sql query statement
-    * @param var bind variable value
-    * @return result set
-    * @throws SQLException
-    */
-   private List<ResultSetRow> getRows(String sql, Integer var) throws SQLException
-   {
-      allocateConnection();
+      ResultSet rs = ps.executeQuery();
 
       try
       {
-         List<ResultSetRow> result = new LinkedList<ResultSetRow>();
-
-         m_ps = m_connection.prepareStatement(sql);
-         m_ps.setInt(1, NumberHelper.getInt(var));
-         m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
+         Map<String, Integer> meta = getMetaData(rs);
+         while (rs.next())
          {
-            result.add(new ResultSetRow(m_rs, m_meta));
+            listener.rowRead(new ResultSetRow(rs, meta));
          }
-
-         return (result);
       }
 
       finally
       {
-         releaseConnection();
-      }
-   }
-
-   /**
-    * Retrieve a number of rows matching the supplied query
-    * which takes two parameters.
-    *
-    * @param sql query statement
-    * @param var1 bind variable value
-    * @param var2 bind variable value
-    * @return result set
-    * @throws SQLException
-    */
-   private List<ResultSetRow> getRows(String sql, Integer var1, Integer var2) throws SQLException
-   {
-      allocateConnection();
-
-      try
-      {
-         List<ResultSetRow> result = new LinkedList<ResultSetRow>();
-
-         m_ps = m_connection.prepareStatement(sql);
-         m_ps.setInt(1, NumberHelper.getInt(var1));
-         m_ps.setInt(2, NumberHelper.getInt(var2));
-         m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
+         try
          {
-            result.add(new ResultSetRow(m_rs, m_meta));
+            rs.close();
          }
 
-         return (result);
-      }
-
-      finally
-      {
-         releaseConnection();
+         catch (SQLException ex)
+         {
+            // silently ignore errors on close
+         }
       }
    }
 
@@ -586,16 +650,18 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    }
 
    /**
-    * Releases a database connection, and cleans up any resources
-    * associated with that connection.
+    * Closes any prepared statements, and the database connection
+    * if it was allocated by this class.
     */
    private void releaseConnection()
    {
-      if (m_rs != null)
+      closeStatements();
+
+      if (m_allocatedConnection && m_connection != null)
       {
          try
          {
-            m_rs.close();
+            m_connection.close();
          }
 
          catch (SQLException ex)
@@ -603,42 +669,62 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
             // silently ignore errors on close
          }
 
-         m_rs = null;
+         m_connection = null;
       }
+   }
 
-      if (m_ps != null)
+   /**
+    * Closes any prepared statements.
+    */
+   private void closeStatements()
+   {
+      for (PreparedStatement ps : m_statements.values())
       {
          try
          {
-            m_ps.close();
+            ps.close();
          }
 
          catch (SQLException ex)
          {
             // silently ignore errors on close
          }
-
-         m_ps = null;
       }
+      m_statements.clear();
    }
 
    /**
     * Retrieves basic meta data from the result set.
     *
+    * @param rs result set
+    * @return map of column names to types
     * @throws SQLException
     */
-   private void populateMetaData() throws SQLException
+   private Map<String, Integer> getMetaData(ResultSet rs) throws SQLException
    {
-      m_meta.clear();
+      Map<String, Integer> result = new HashMap<String, Integer>();
 
-      ResultSetMetaData meta = m_rs.getMetaData();
+      ResultSetMetaData meta = rs.getMetaData();
       int columnCount = meta.getColumnCount() + 1;
       for (int loop = 1; loop < columnCount; loop++)
       {
          String name = meta.getColumnName(loop);
          Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
+         result.put(name, type);
       }
+
+      return result;
+   }
+
+   /**
+    * Set the number of rows fetched from the database in each round trip.
+    * By default the driver's fetch size is used.
+    *
+    * @param fetchSize fetch size
+    */
+   public void setFetchSize(int fetchSize)
+   {
+      m_fetchSize = fetchSize;
    }
 
    /**
@@ -658,6 +744,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    public void setConnection(Connection connection)
    {
+      closeStatements();
       m_connection = connection;
       queryDatabaseMetaData();
    }
@@ -711,9 +798,8 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    private DataSource m_dataSource;
    private boolean m_allocatedConnection;
    private Connection m_connection;
-   private PreparedStatement m_ps;
-   private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
+   private final Map<String, PreparedStatement> m_statements = new HashMap<String, PreparedStatement>();
+   private int m_fetchSize;
    private List<ProjectListener> m_projectListeners;
    private boolean m_hasResourceBaselines;
    private boolean m_hasTaskBaselines;
@@ -78,15 +78,42 @@ public final class MPDDatabaseReader implements ProjectReader
     */
    public ProjectFile read() throws MPXJException
    {
-      MPD9DatabaseReader reader = new MPD9DatabaseReader();
+      MPD9DatabaseReader reader = createReader();
       reader.setProjectID(m_projectID);
-      reader.setPreserveNoteFormatting(m_preserveNoteFormatting);
-      reader.setDataSource(m_dataSource);
-      reader.setConnection(m_connection);
       ProjectFile project = reader.read();
       return (project);
    }
 
+   /**
+    * Read all projects from a database.
+    *
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   public List<ProjectFile> readAll() throws MPXJException
+   {
+      return createReader().readAll();
+   }
+
+   /**
+    * Create and configure a reader for the current database.
+    *
+    * @return MPD9DatabaseReader instance
+    */
+   private MPD9DatabaseReader createReader()
+   {
+      MPD9DatabaseReader reader = new MPD9DatabaseReader();
+      reader.setPreserveNoteFormatting(m_preserveNoteFormatting);
+      reader.setReadNotes(m_readNotes);
+      reader.setFetchSize(m_fetchSize);
+      reader.setDataSource(m_dataSource);
+      if (m_connection != null)
+      {
+         reader.setConnection(m_connection);
+      }
+      return reader;
+   }
+
    /**
     * Set the ID of the project to be read.
     *
@@ -109,6 +136,17 @@ public final class MPDDatabaseReader implements ProjectReader
       m_preserveNoteFormatting = preserveNoteFormatting;
    }
 
+   /**
+    * This method sets a flag to indicate whether notes are read.
+    * By default notes are read.
+    *
+    * @param readNotes boolean flag
+    */
+   public void setReadNotes(boolean readNotes)
+   {
+      m_readNotes = readNotes;
+   }
+
    /**
     * Set the data source. A DataSource or a Connection can be supplied
     * to this class to allow connection to the database.
@@ -131,6 +169,17 @@ public final class MPDDatabaseReader implements ProjectReader
       m_connection = connection;
    }
 
+   /**
+    * Set the number of rows fetched from the database in each round trip.
+    * By default the driver's fetch size is used.
+    *
+    * @param fetchSize fetch size
+    */
+   public void setFetchSize(int fetchSize)
+   {
+      m_fetchSize = fetchSize;
+   }
+
    /**
     * This is a convenience method which reads the first project
     * from the named MPD file using the JDBC-ODBC bridge driver.
@@ -197,5 +246,7 @@ public final class MPDDatabaseReader implements ProjectReader
    private DataSource m_dataSource;
    private Connection m_connection;
    private boolean m_preserveNoteFormatting;
+   private boolean m_readNotes = true;
+   private int m_fetchSize;
    private List<ProjectListener> m_projectListeners;
 }
\ No newline at end of file
@@ -72,6 +72,40 @@ class DocumentInputStreamFactory
       return stream;
    }
 
+   /**
+    * Retrieve the entire contents of a document, decrypting it if required.
+    *
+    * @param directory directory entry
+    * @param name file name
+    * @return document data
+    * @throws IOException
+    */
+   public byte[] getByteArray(DirectoryEntry directory, String name) throws IOException
+   {
+      DocumentEntry entry = (DocumentEntry) directory.getEntry(name);
+      byte[] data;
+      if (m_encrypted)
+      {
+         data = new EncryptedDocumentInputStream(entry, m_encryptionCode).getRemainingData();
+      }
+      else
+      {
+         data = new byte[entry.getSize()];
+         DocumentInputStream stream = new DocumentInputStream(entry);
+         try
+         {
+            stream.readFully(data);
+         }
+
+         finally
+         {
+            stream.close();
+         }
+      }
+
+      return data;
+   }
+
    /**
     * Retrieve the encryption code.
     *
@@ -23,18 +23,19 @@
 
 package net.sf.mpxj.mpp;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.poi.poifs.filesystem.DocumentEntry;
 import org.apache.poi.poifs.filesystem.DocumentInputStream;
 
 /**
- * This class wraps the POI {@link DocumentInputStream} class
- * to allow data to be decrypted before passing
- * it back to the caller.
+ * This class reads the whole of an "encrypted" document into memory,
+ * decrypting it in a single pass, then presents the decrypted
+ * data as an input stream. Consumers which need the whole document
+ * can retrieve the decrypted buffer directly, avoiding a further copy.
  */
-final class EncryptedDocumentInputStream extends InputStream
+final class EncryptedDocumentInputStream extends ByteArrayInputStream
 {
    /**
     * Constructor.
@@ -46,81 +47,59 @@ final class EncryptedDocumentInputStream extends InputStream
    public EncryptedDocumentInputStream(DocumentEntry entry, int mask)
       throws IOException
    {
-      m_dis = new DocumentInputStream(entry);
-      m_mask = mask;
+      super(readDocument(entry, (byte) mask));
    }
 
    /**
-    * {@inheritDoc}
-    */
-   @Override public int read() throws IOException
-   {
-      int value = m_dis.read();
-      value ^= m_mask;
-      return (value);
-   }
-
-   /**
-    * {@inheritDoc}
+    * Retrieve the data remaining in this stream, and mark it as consumed.
+    * If nothing has yet been read from the stream the underlying buffer
+    * is returned rather than a copy.
+    *
+    * @return remaining data
     */
-   @Override public int read(byte[] b, int off, int len) throws IOException
+   public synchronized byte[] getRemainingData()
    {
-      int result = m_dis.read(b, off, len);
-      for (int loop = 0; loop < len; loop++)
+      byte[] result;
+      if (pos == 0 && count == buf.length)
+      {
+         result = buf;
+      }
+      else
       {
-         b[loop + off] ^= m_mask;
+         result = new byte[count - pos];
+         System.arraycopy(buf, pos, result, 0, result.length);
       }
+      pos = count;
       return result;
    }
 
    /**
-    * {@inheritDoc}
-    */
-   @Override public int available()
-   {
-      return m_dis.available();
-   }
-
-   /**
-    * {@inheritDoc}
-    */
-   @Override public void close()
-   {
-      m_dis.close();
-   }
-
-   /**
-    * {@inheritDoc}
+    * Read the entire document and decrypt it in place.
+    *
+    * @param entry file entry
+    * @param mask the mask used to decrypt the document
+    * @return decrypted document data
+    * @throws IOException
     */
-   @Override public synchronized void mark(int readlimit)
+   private static byte[] readDocument(DocumentEntry entry, byte mask) throws IOException
    {
-      m_dis.mark(readlimit);
-   }
+      byte[] data = new byte[entry.getSize()];
+      DocumentInputStream dis = new DocumentInputStream(entry);
+      try
+      {
+         dis.readFully(data);
+      }
 
-   /**
-    * {@inheritDoc}
-    */
-   @Override public boolean markSupported()
-   {
-      return m_dis.markSupported();
-   }
+      finally
+      {
+         dis.close();
+      }
 
-   /**
-    * {@inheritDoc}
-    */
-   @Override public synchronized void reset()
-   {
-      m_dis.reset();
-   }
+      for (int index = 0; index < data.length; index++)
+      {
+         data[index] ^= mask;
+      }
 
-   /**
-    * {@inheritDoc}
-    */
-   @Override public long skip(long n) throws IOException
-   {
-      return m_dis.skip(n);
+      return data;
    }
-
-   private final DocumentInputStream m_dis;
-   private final int m_mask;
 }
@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.sf.mpxj.AccrueType;
 import net.sf.mpxj.BookingType;
@@ -50,6 +51,7 @@ import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.WorkGroup;
 import net.sf.mpxj.common.ByteArrayHelper;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.ValuePool;
 
 /**
  * This class is used to represent the mapping present in the MPP file
@@ -81,6 +83,30 @@ abstract class FieldMap
       m_debug = value;
    }
 
+   /**
+    * Restrict the fields written to containers by populateContainer.
+    * Fields not in the set are not decoded at all. Passing null
+    * (the default) populates every field present in the map.
+    *
+    * @param fields fields to populate, or null for all fields
+    */
+   public void setFieldProjection(Set<FieldType> fields)
+   {
+      m_projection = fields;
+      m_compiledItems.clear();
+   }
+
+   /**
+    * Retrieve the number of field reads which have been avoided
+    * by populateContainer as a result of the field projection.
+    *
+    * @return skipped read count
+    */
+   public long getSkippedReadCount()
+   {
+      return m_skippedReadCount;
+   }
+
    /**
     * Generic method used to create a field map from a block of data.
     *
@@ -198,6 +224,7 @@ abstract class FieldMap
 
          index += 28;
       }
+      m_compiledItems.clear();
    }
 
    /**
@@ -346,6 +373,7 @@ abstract class FieldMap
 
             index += 4;
          }
+         m_compiledItems.clear();
       }
    }
 
@@ -416,6 +444,7 @@ abstract class FieldMap
       {
          m_map.put(item.getType(), item);
       }
+      m_compiledItems.clear();
    }
 
    /**
@@ -431,16 +460,98 @@ abstract class FieldMap
    public void populateContainer(Class<? extends FieldType> type, FieldContainer container, Integer id, byte[][] fixedData, Var2Data varData)
    {
       //System.out.println(container.getClass().getSimpleName()+": " + id);
-      for (FieldItem item : m_map.values())
+      setContainerValues(type, container, readContainerValues(type, id, fixedData, varData));
+   }
+
+   /**
+    * Extract the field values for an entity from a set of raw data blocks,
+    * without writing them to a container. This method does not modify
+    * the field map once prepare has been called for the expected type,
+    * so it may be called from multiple threads.
+    *
+    * @param type expected type
+    * @param id entity ID
+    * @param fixedData fixed data block
+    * @param varData var data block
+    * @return field values
+    */
+   public Object[] readContainerValues(Class<? extends FieldType> type, Integer id, byte[][] fixedData, Var2Data varData)
+   {
+      FieldItem[] items = getCompiledItems(type).m_items;
+      Object[] values = new Object[items.length];
+      ValuePool pool = ValuePool.getCurrent();
+      for (int index = 0; index < items.length; index++)
       {
-         if (item.getType().getClass().equals(type))
+         //System.out.println(items[index].m_type);
+         values[index] = pool.internValue(items[index].read(id, fixedData, varData));
+         //System.out.println(items[index].m_type.getClass().getSimpleName() + "." + items[index].m_type +  ": " + values[index]);
+      }
+      return values;
+   }
+
+   /**
+    * Write field values extracted by readContainerValues to a container.
+    *
+    * @param type expected type
+    * @param container field container
+    * @param values field values
+    */
+   public void setContainerValues(Class<? extends FieldType> type, FieldContainer container, Object[] values)
+   {
+      CompiledItems compiled = getCompiledItems(type);
+      FieldItem[] items = compiled.m_items;
+      for (int index = 0; index < items.length; index++)
+      {
+         container.set(items[index].getType(), values[index]);
+      }
+      m_skippedReadCount += compiled.m_skippedCount;
+   }
+
+   /**
+    * Prepare the field map to read values of the expected type.
+    * This must be called before readContainerValues is called
+    * from multiple threads.
+    *
+    * @param type expected type
+    */
+   public void prepare(Class<? extends FieldType> type)
+   {
+      getCompiledItems(type);
+   }
+
+   /**
+    * Retrieve the items to be read for a given field type class,
+    * taking into account the field projection. The result is calculated
+    * once and reused until the map or the projection changes.
+    *
+    * @param type field type class
+    * @return compiled items
+    */
+   private CompiledItems getCompiledItems(Class<? extends FieldType> type)
+   {
+      CompiledItems result = m_compiledItems.get(type);
+      if (result == null)
+      {
+         ArrayList<FieldItem> items = new ArrayList<FieldItem>();
+         int skippedCount = 0;
+         for (FieldItem item : m_map.values())
          {
-            //System.out.println(item.m_type);
-            Object value = item.read(id, fixedData, varData);
-            //System.out.println(item.m_type.getClass().getSimpleName() + "." + item.m_type +  ": " + value);
-            container.set(item.getType(), value);
+            if (item.getType().getClass().equals(type))
+            {
+               if (m_projection == null || m_projection.contains(item.getType()))
+               {
+                  items.add(item);
+               }
+               else
+               {
+                  ++skippedCount;
+               }
+            }
          }
+         result = new CompiledItems(items.toArray(new FieldItem[items.size()]), skippedCount);
+         m_compiledItems.put(type, result);
       }
+      return result;
    }
 
    /**
@@ -569,6 +680,7 @@ abstract class FieldMap
    public void clear()
    {
       m_map.clear();
+      m_compiledItems.clear();
       Arrays.fill(m_maxFixedDataSize, 0);
    }
 
@@ -1295,11 +1407,36 @@ abstract class FieldMap
       private int m_metaBlock;
    }
 
+   /**
+    * The items read for one field type class, along with a count
+    * of the items excluded by the field projection.
+    */
+   private static final class CompiledItems
+   {
+      /**
+       * Constructor.
+       *
+       * @param items items to read
+       * @param skippedCount number of items excluded
+       */
+      public CompiledItems(FieldItem[] items, int skippedCount)
+      {
+         m_items = items;
+         m_skippedCount = skippedCount;
+      }
+
+      final FieldItem[] m_items;
+      final int m_skippedCount;
+   }
+
    private final ProjectProperties m_properties;
    final VarDataFieldReader m_stringVarDataReader;
    final VarDataFieldReader m_doubleVarDataReader;
    final VarDataFieldReader m_timestampVarDataReader;
    private Map<FieldType, FieldItem> m_map = new HashMap<FieldType, FieldItem>();
+   private Map<Class<? extends FieldType>, CompiledItems> m_compiledItems = new HashMap<Class<? extends FieldType>, CompiledItems>();
+   private Set<FieldType> m_projection;
+   private long m_skippedReadCount;
    private int[] m_maxFixedDataSize = new int[MAX_FIXED_DATA_BLOCKS];
    private boolean m_debug;
 
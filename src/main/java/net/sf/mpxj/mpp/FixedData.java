@@ -98,8 +98,7 @@ final class FixedData extends MPPComponent
    FixedData(FixedMeta meta, InputStream is, int maxExpectedSize, int minSize)
       throws IOException
    {
-      byte[] buffer = new byte[is.available()];
-      is.read(buffer);
+      byte[] buffer = readRemainingData(is);
 
       int itemCount = meta.getAdjustedItemCount();
       m_array = new Object[itemCount];
@@ -181,8 +180,7 @@ final class FixedData extends MPPComponent
    FixedData(FixedMeta meta, int itemSize, InputStream is)
       throws IOException
    {
-      byte[] buffer = new byte[is.available()];
-      is.read(buffer);
+      byte[] buffer = readRemainingData(is);
 
       int itemCount = meta.getAdjustedItemCount();
       m_array = new Object[itemCount];
@@ -24,6 +24,8 @@
 package net.sf.mpxj.mpp;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import net.sf.mpxj.FieldType;
@@ -47,6 +49,20 @@ public final class GroupReader14
     */
    public void process(ProjectFile file, FixedData fixedData, Var2Data varData, Map<Integer, FontBase> fontBases)
    {
+      file.getGroups().addAll(read(fixedData, varData, fontBases));
+   }
+
+   /**
+    * Read group definitions without adding them to a project.
+    *
+    * @param fixedData group fixed data
+    * @param varData group var data
+    * @param fontBases map of font bases
+    * @return group definitions
+    */
+   public List<Group> read(FixedData fixedData, Var2Data varData, Map<Integer, FontBase> fontBases)
+   {
+      List<Group> result = new ArrayList<Group>();
       int groupCount = fixedData.getItemCount();
       for (int groupLoop = 0; groupLoop < groupCount; groupLoop++)
       {
@@ -76,7 +92,7 @@ public final class GroupReader14
          boolean showSummaryTasks = (MPPUtility.getShort(groupVarData, 4) != 0);
 
          Group group = new Group(groupID, groupName, showSummaryTasks);
-         file.getGroups().add(group);
+         result.add(group);
 
          int clauseCount = MPPUtility.getShort(groupVarData, 10);
          int offset = 12;
@@ -178,6 +194,8 @@ public final class GroupReader14
 
          //System.out.println(group);
       }
+
+      return result;
    }
 
    private static final Integer GROUP_DATA = Integer.valueOf(6);
@@ -53,7 +53,6 @@ import net.sf.mpxj.TaskField;
 import net.sf.mpxj.View;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
-import net.sf.mpxj.common.RtfHelper;
 
 /**
  * This class is used to represent a Microsoft Project MPP12 file. This
@@ -938,9 +937,11 @@ final class MPP12Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createTaskFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, TaskField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
       VarMeta taskVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("VarMeta"))));
@@ -1176,9 +1177,12 @@ final class MPP12Reader implements MPPVariantReader
          notes = task.getNotes();
          if (!m_reader.getPreserveNoteFormatting())
          {
-            notes = RtfHelper.strip(notes);
+            task.setRtfNotes(notes);
+         }
+         else
+         {
+            task.setNotes(notes);
          }
-         task.setNotes(notes);
 
          //
          // Set the calendar name
@@ -1269,6 +1273,8 @@ final class MPP12Reader implements MPPVariantReader
       {
          processExternalTasks(externalTasks);
       }
+
+      m_reader.addSkippedFieldReadCount(fieldMap, enterpriseCustomFieldMap);
    }
 
    /**
@@ -1684,9 +1690,11 @@ final class MPP12Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createResourceFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, ResourceField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
       VarMeta rscVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) rscDir.getEntry("VarMeta"))));
@@ -1793,9 +1801,12 @@ final class MPP12Reader implements MPPVariantReader
          notes = resource.getNotes();
          if (m_reader.getPreserveNoteFormatting() == false)
          {
-            notes = RtfHelper.strip(notes);
+            resource.setRtfNotes(notes);
+         }
+         else
+         {
+            resource.setNotes(notes);
          }
-         resource.setNotes(notes);
 
          //
          // Configure the resource calendar
@@ -1844,6 +1855,8 @@ final class MPP12Reader implements MPPVariantReader
 
          m_eventManager.fireResourceReadEvent(resource);
       }
+
+      m_reader.addSkippedFieldReadCount(fieldMap, enterpriseCustomFieldMap);
    }
 
    /**
@@ -1855,9 +1868,11 @@ final class MPP12Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createAssignmentFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file.getProjectProperties(), m_file.getCustomFields());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, AssignmentField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
       VarMeta assnVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("VarMeta"))));
@@ -1869,6 +1884,7 @@ final class MPP12Reader implements MPPVariantReader
       FixedData assnFixedData2 = new FixedData(48, m_inputStreamFactory.getInstance(assnDir, "Fixed2Data"));
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
       factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, assnFixedMeta.getAdjustedItemCount());
+      m_reader.addSkippedFieldReadCount(fieldMap, enterpriseCustomFieldMap);
    }
 
    /**
@@ -25,7 +25,6 @@ package net.sf.mpxj.mpp;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -50,15 +49,11 @@ import net.sf.mpxj.Resource;
 import net.sf.mpxj.ResourceField;
 import net.sf.mpxj.ResourceType;
 import net.sf.mpxj.SubProject;
-import net.sf.mpxj.Table;
-import net.sf.mpxj.TableContainer;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TaskMode;
-import net.sf.mpxj.View;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
-import net.sf.mpxj.common.RtfHelper;
 
 /**
  * This class is used to represent a Microsoft Project MPP14 file. This
@@ -99,11 +94,7 @@ final class MPP14Reader implements MPPVariantReader
             if (reader.getReadPresentationData())
             {
                processViewPropertyData();
-               processTableData();
-               processViewData();
-               processFilterData();
-               processGroupData();
-               processSavedViewState();
+               m_file.setPresentationDataLoader(new PresentationDataLoader14(m_viewDir, m_inputStreamFactory, m_fontBases));
             }
          }
       }
@@ -935,6 +926,83 @@ final class MPP14Reader implements MPPVariantReader
       factory.processCalendarData(m_projectDir, m_projectProps, m_inputStreamFactory, m_resourceMap);
    }
 
+   /**
+    * If parallel decoding has been requested, decode the field values
+    * for each task row in advance. Entries in the returned array correspond
+    * to entries in the unique ID array; rows which will not produce a task
+    * are null. Returns null if rows are to be decoded as the tasks are created.
+    *
+    * @param fieldMap task field map
+    * @param enterpriseCustomFieldMap enterprise custom field map
+    * @param uniqueIdArray task unique IDs
+    * @param taskMap map of unique IDs to fixed data offsets
+    * @param taskFixedData task fixed data
+    * @param taskFixed2Data task fixed2 data
+    * @param taskVarData task var data
+    * @return decoded rows, or null
+    */
+   private Object[] decodeTaskRows(final FieldMap fieldMap, final FieldMap enterpriseCustomFieldMap, final Object[] uniqueIdArray, final Map<Integer, Integer> taskMap, final FixedData taskFixedData, final FixedData taskFixed2Data, final Var2Data taskVarData)
+   {
+      ParallelRowDecoder decoder = new ParallelRowDecoder(m_reader.getDecodeThreadCount());
+      if (!decoder.isParallel())
+      {
+         return null;
+      }
+
+      fieldMap.prepare(TaskField.class);
+      enterpriseCustomFieldMap.prepare(TaskField.class);
+
+      return decoder.decode(uniqueIdArray.length, new ParallelRowDecoder.Row()
+      {
+         @Override public Object decode(int index)
+         {
+            Integer uniqueID = (Integer) uniqueIdArray[index];
+            Integer offset = taskMap.get(uniqueID);
+            if (taskFixedData.isValidOffset(offset) == false)
+            {
+               return null;
+            }
+
+            byte[] data = taskFixedData.getByteArrayValue(offset.intValue());
+            if (data.length == NULL_TASK_BLOCK_SIZE)
+            {
+               return null;
+            }
+
+            byte[] data2 = taskFixed2Data.getByteArrayValue(offset.intValue());
+
+            return new Object[][]
+            {
+               fieldMap.readContainerValues(TaskField.class, uniqueID, new byte[][]
+               {
+                  padTaskData(fieldMap, data),
+                  data2
+               }, taskVarData),
+               enterpriseCustomFieldMap.readContainerValues(TaskField.class, uniqueID, null, taskVarData)
+            };
+         }
+      });
+   }
+
+   /**
+    * Task fixed data blocks may be shorter than the size expected by the
+    * field map. In this case extend the block so fields can be read safely.
+    *
+    * @param fieldMap task field map
+    * @param data task fixed data
+    * @return padded task fixed data
+    */
+   private static byte[] padTaskData(FieldMap fieldMap, byte[] data)
+   {
+      if (data.length < fieldMap.getMaxFixedDataSize(0))
+      {
+         byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0) + 8];
+         System.arraycopy(data, 0, newData, 0, data.length);
+         data = newData;
+      }
+      return data;
+   }
+
    /**
     * This method extracts and collates task data. The code below
     * goes through the modifier methods of the Task class in alphabetical
@@ -951,9 +1019,11 @@ final class MPP14Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createTaskFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, TaskField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
       VarMeta taskVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("VarMeta"))));
@@ -1011,6 +1081,8 @@ final class MPP14Reader implements MPPVariantReader
          metaData2BitFlags = PROJECT2010_TASK_META_DATA2_BIT_FLAGS;
       }
 
+      Object[] decodedRows = decodeTaskRows(fieldMap, enterpriseCustomFieldMap, uniqueIdArray, taskMap, taskFixedData, taskFixed2Data, taskVarData);
+
       for (int loop = 0; loop < uniqueIdArray.length; loop++)
       {
          Integer uniqueID = (Integer) uniqueIdArray[loop];
@@ -1035,12 +1107,7 @@ final class MPP14Reader implements MPPVariantReader
             continue;
          }
 
-         if (data.length < fieldMap.getMaxFixedDataSize(0))
-         {
-            byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0) + 8];
-            System.arraycopy(data, 0, newData, 0, data.length);
-            data = newData;
-         }
+         data = padTaskData(fieldMap, data);
 
          //System.out.println (ByteArrayHelper.hexdump(data, false, 16, ""));
          //System.out.println (ByteArrayHelper.hexdump(data,false));
@@ -1081,13 +1148,22 @@ final class MPP14Reader implements MPPVariantReader
 
          task.disableEvents();
 
-         fieldMap.populateContainer(TaskField.class, task, uniqueID, new byte[][]
+         if (decodedRows == null)
          {
-            data,
-            data2
-         }, taskVarData);
+            fieldMap.populateContainer(TaskField.class, task, uniqueID, new byte[][]
+            {
+               data,
+               data2
+            }, taskVarData);
 
-         enterpriseCustomFieldMap.populateContainer(TaskField.class, task, uniqueID, null, taskVarData);
+            enterpriseCustomFieldMap.populateContainer(TaskField.class, task, uniqueID, null, taskVarData);
+         }
+         else
+         {
+            Object[][] values = (Object[][]) decodedRows[loop];
+            fieldMap.setContainerValues(TaskField.class, task, values[0]);
+            enterpriseCustomFieldMap.setContainerValues(TaskField.class, task, values[1]);
+         }
 
          task.enableEvents();
 
@@ -1194,10 +1270,12 @@ final class MPP14Reader implements MPPVariantReader
          notes = task.getNotes();
          if (m_reader.getPreserveNoteFormatting() == false)
          {
-            notes = RtfHelper.strip(notes);
+            task.setRtfNotes(notes);
+         }
+         else
+         {
+            task.setNotes(notes);
          }
-
-         task.setNotes(notes);
 
          //
          // Set the calendar name
@@ -1297,6 +1375,8 @@ final class MPP14Reader implements MPPVariantReader
       {
          processExternalTasks(externalTasks);
       }
+
+      m_reader.addSkippedFieldReadCount(fieldMap, enterpriseCustomFieldMap);
    }
 
    /**
@@ -1571,6 +1651,56 @@ final class MPP14Reader implements MPPVariantReader
       factory.process(m_projectDir, m_file, m_inputStreamFactory);
    }
 
+   /**
+    * If parallel decoding has been requested, decode the field values
+    * for each resource row in advance. Entries in the returned array
+    * correspond to entries in the unique ID array. Returns null if rows
+    * are to be decoded as the resources are created.
+    *
+    * @param fieldMap resource field map
+    * @param enterpriseCustomFieldMap enterprise custom field map
+    * @param uniqueIdArray resource unique IDs
+    * @param resourceMap map of unique IDs to fixed data offsets
+    * @param rscFixedData resource fixed data
+    * @param rscFixed2Data resource fixed2 data
+    * @param rscVarData resource var data
+    * @return decoded rows, or null
+    */
+   private Object[] decodeResourceRows(final FieldMap fieldMap, final FieldMap enterpriseCustomFieldMap, final Integer[] uniqueIdArray, final Map<Integer, Integer> resourceMap, final FixedData rscFixedData, final FixedData rscFixed2Data, final Var2Data rscVarData)
+   {
+      ParallelRowDecoder decoder = new ParallelRowDecoder(m_reader.getDecodeThreadCount());
+      if (!decoder.isParallel())
+      {
+         return null;
+      }
+
+      fieldMap.prepare(ResourceField.class);
+      enterpriseCustomFieldMap.prepare(ResourceField.class);
+
+      return decoder.decode(uniqueIdArray.length, new ParallelRowDecoder.Row()
+      {
+         @Override public Object decode(int index)
+         {
+            Integer id = uniqueIdArray[index];
+            Integer offset = resourceMap.get(id);
+            if (offset == null)
+            {
+               return null;
+            }
+
+            return new Object[][]
+            {
+               fieldMap.readContainerValues(ResourceField.class, id, new byte[][]
+               {
+                  rscFixedData.getByteArrayValue(offset.intValue()),
+                  rscFixed2Data.getByteArrayValue(offset.intValue())
+               }, rscVarData),
+               enterpriseCustomFieldMap.readContainerValues(ResourceField.class, id, null, rscVarData)
+            };
+         }
+      });
+   }
+
    /**
     * This method extracts and collates resource data.
     *
@@ -1580,9 +1710,11 @@ final class MPP14Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createResourceFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, ResourceField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
       VarMeta rscVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) rscDir.getEntry("VarMeta"))));
@@ -1639,6 +1771,8 @@ final class MPP14Reader implements MPPVariantReader
          metaData2BitFlags = PROJECT2010_RESOURCE_META_DATA2_BIT_FLAGS;
       }
 
+      Object[] decodedRows = decodeResourceRows(fieldMap, enterpriseCustomFieldMap, uniqueid, resourceMap, rscFixedData, rscFixed2Data, rscVarData);
+
       for (int loop = 0; loop < uniqueid.length; loop++)
       {
          id = uniqueid[loop];
@@ -1660,13 +1794,22 @@ final class MPP14Reader implements MPPVariantReader
 
          resource.disableEvents();
 
-         fieldMap.populateContainer(ResourceField.class, resource, id, new byte[][]
+         if (decodedRows == null)
          {
-            data,
-            data2
-         }, rscVarData);
+            fieldMap.populateContainer(ResourceField.class, resource, id, new byte[][]
+            {
+               data,
+               data2
+            }, rscVarData);
 
-         enterpriseCustomFieldMap.populateContainer(ResourceField.class, resource, id, null, rscVarData);
+            enterpriseCustomFieldMap.populateContainer(ResourceField.class, resource, id, null, rscVarData);
+         }
+         else
+         {
+            Object[][] values = (Object[][]) decodedRows[loop];
+            fieldMap.setContainerValues(ResourceField.class, resource, values[0]);
+            enterpriseCustomFieldMap.setContainerValues(ResourceField.class, resource, values[1]);
+         }
 
          resource.enableEvents();
 
@@ -1694,10 +1837,12 @@ final class MPP14Reader implements MPPVariantReader
          notes = resource.getNotes();
          if (m_reader.getPreserveNoteFormatting() == false)
          {
-            notes = RtfHelper.strip(notes);
+            resource.setRtfNotes(notes);
+         }
+         else
+         {
+            resource.setNotes(notes);
          }
-
-         resource.setNotes(notes);
 
          //
          // Configure the resource calendar
@@ -1746,6 +1891,8 @@ final class MPP14Reader implements MPPVariantReader
 
          m_eventManager.fireResourceReadEvent(resource);
       }
+
+      m_reader.addSkippedFieldReadCount(fieldMap, enterpriseCustomFieldMap);
    }
 
    /**
@@ -1757,9 +1904,11 @@ final class MPP14Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createAssignmentFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap14(m_file.getProjectProperties(), m_file.getCustomFields());
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, AssignmentField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
       VarMeta assnVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("VarMeta"))));
@@ -1771,7 +1920,9 @@ final class MPP14Reader implements MPPVariantReader
       //Props props = new Props14(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("Props"))));
 
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
+      factory.setDecodeThreadCount(m_reader.getDecodeThreadCount());
       factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, assnFixedMeta.getItemCount());
+      m_reader.addSkippedFieldReadCount(fieldMap, enterpriseCustomFieldMap);
    }
 
    /**
@@ -1785,159 +1936,6 @@ final class MPP14Reader implements MPPVariantReader
       return ((type & DURATION_CONFIRMED_MASK) != 0);
    }
 
-   /**
-    * This method extracts view data from the MPP file.
-    *
-    * @throws java.io.IOException
-    */
-   private void processViewData() throws IOException
-   {
-      DirectoryEntry dir = (DirectoryEntry) m_viewDir.getEntry("CV_iew");
-      VarMeta viewVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) dir.getEntry("VarMeta"))));
-      Var2Data viewVarData = new Var2Data(viewVarMeta, new DocumentInputStream(((DocumentEntry) dir.getEntry("Var2Data"))));
-      FixedMeta fixedMeta = new FixedMeta(new DocumentInputStream(((DocumentEntry) dir.getEntry("FixedMeta"))), 10);
-      FixedData fixedData = new FixedData(138, m_inputStreamFactory.getInstance(dir, "FixedData"));
-
-      int items = fixedMeta.getAdjustedItemCount();
-      View view;
-      ViewFactory factory = new ViewFactory14();
-
-      int lastOffset = -1;
-      for (int loop = 0; loop < items; loop++)
-      {
-         byte[] fm = fixedMeta.getByteArrayValue(loop);
-         int offset = MPPUtility.getShort(fm, 4);
-         if (offset > lastOffset)
-         {
-            byte[] fd = fixedData.getByteArrayValue(fixedData.getIndexFromOffset(offset));
-            if (fd != null)
-            {
-               view = factory.createView(m_file, fm, fd, viewVarData, m_fontBases);
-               m_file.getViews().add(view);
-            }
-            lastOffset = offset;
-         }
-      }
-   }
-
-   /**
-    * This method extracts table data from the MPP file.
-    *
-    * @throws java.io.IOException
-    */
-   private void processTableData() throws IOException
-   {
-      DirectoryEntry dir = (DirectoryEntry) m_viewDir.getEntry("CTable");
-
-      VarMeta varMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) dir.getEntry("VarMeta"))));
-      Var2Data varData = new Var2Data(varMeta, new DocumentInputStream(((DocumentEntry) dir.getEntry("Var2Data"))));
-      FixedData fixedData = new FixedData(230, new DocumentInputStream(((DocumentEntry) dir.getEntry("FixedData"))));
-      //System.out.println(varMeta);
-      //System.out.println(varData);
-      //System.out.println(fixedData);
-
-      TableContainer container = m_file.getTables();
-      TableFactory14 factory = new TableFactory14(TABLE_COLUMN_DATA_STANDARD, TABLE_COLUMN_DATA_ENTERPRISE, TABLE_COLUMN_DATA_BASELINE);
-      int items = fixedData.getItemCount();
-      for (int loop = 0; loop < items; loop++)
-      {
-         byte[] data = fixedData.getByteArrayValue(loop);
-         Table table = factory.createTable(m_file, data, varMeta, varData);
-         container.add(table);
-         //System.out.println(table);
-      }
-   }
-
-   /**
-    * Read filter definitions.
-    *
-    * @throws IOException
-    */
-   private void processFilterData() throws IOException
-   {
-      DirectoryEntry dir = (DirectoryEntry) m_viewDir.getEntry("CFilter");
-
-      FixedMeta fixedMeta;
-      FixedData fixedData;
-      VarMeta varMeta;
-      Var2Data varData;
-
-      try
-      {
-         fixedMeta = new FixedMeta(new DocumentInputStream(((DocumentEntry) dir.getEntry("FixedMeta"))), 10);
-         fixedData = new FixedData(fixedMeta, m_inputStreamFactory.getInstance(dir, "FixedData"));
-         varMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) dir.getEntry("VarMeta"))));
-         varData = new Var2Data(varMeta, new DocumentInputStream(((DocumentEntry) dir.getEntry("Var2Data"))));
-      }
-
-      catch (IndexOutOfBoundsException ex)
-      {
-         // From a sample file where the stream reports an available number of bytes
-         // but attempting to read that number of bytes raises an exception.
-         return;
-      }
-
-      catch (IOException ex)
-      {
-         // I've come across an unusual sample where the VarMeta magic number is zero, which throws this exception.
-         // MS Project opens the file fine. If we get into this state, we'll just ignore the filter definitions.
-         return;
-      }
-
-      //System.out.println(fixedMeta);
-      //System.out.println(fixedData);
-      //System.out.println(varMeta);
-      //System.out.println(varData);
-
-      FilterReader reader = new FilterReader14();
-      reader.process(m_file.getProjectProperties(), m_file.getFilters(), fixedData, varData);
-   }
-
-   /**
-    * Read saved view state from an MPP file.
-    *
-    * @throws IOException
-    */
-   private void processSavedViewState() throws IOException
-   {
-      DirectoryEntry dir = (DirectoryEntry) m_viewDir.getEntry("CEdl");
-      VarMeta varMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) dir.getEntry("VarMeta"))));
-      Var2Data varData = new Var2Data(varMeta, new DocumentInputStream(((DocumentEntry) dir.getEntry("Var2Data"))));
-      //System.out.println(varMeta);
-      //System.out.println(varData);
-
-      InputStream is = new DocumentInputStream(((DocumentEntry) dir.getEntry("FixedData")));
-      byte[] fixedData = new byte[is.available()];
-      is.read(fixedData);
-      is.close();
-      //System.out.println(ByteArrayHelper.hexdump(fixedData, false, 16, ""));
-
-      ViewStateReader reader = new ViewStateReader12();
-      reader.process(m_file, varData, fixedData);
-   }
-
-   /**
-    * Read group definitions.
-    *
-    * @throws IOException
-    */
-   private void processGroupData() throws IOException
-   {
-      DirectoryEntry dir = (DirectoryEntry) m_viewDir.getEntry("CGrouping");
-      FixedMeta fixedMeta = new FixedMeta(new DocumentInputStream(((DocumentEntry) dir.getEntry("FixedMeta"))), 10);
-      FixedData fixedData = new FixedData(fixedMeta, m_inputStreamFactory.getInstance(dir, "FixedData"));
-      VarMeta varMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) dir.getEntry("VarMeta"))));
-      Var2Data varData = new Var2Data(varMeta, new DocumentInputStream(((DocumentEntry) dir.getEntry("Var2Data"))));
-
-      //System.out.println(fixedMeta);
-      //System.out.println(fixedData);
-      //System.out.println(varMeta);
-      //System.out.println(varData);
-
-      GroupReader14 reader = new GroupReader14();
-      reader.process(m_file, fixedData, varData, m_fontBases);
-   }
-
    /**
     * Read data link definitions.
     */
@@ -2147,9 +2145,6 @@ final class MPP14Reader implements MPPVariantReader
    /**
     * Resource data types.
     */
-   private static final Integer TABLE_COLUMN_DATA_STANDARD = Integer.valueOf(6);
-   private static final Integer TABLE_COLUMN_DATA_ENTERPRISE = Integer.valueOf(7);
-   private static final Integer TABLE_COLUMN_DATA_BASELINE = Integer.valueOf(8);
    private static final Integer OUTLINECODE_DATA = Integer.valueOf(22);
 
    /**
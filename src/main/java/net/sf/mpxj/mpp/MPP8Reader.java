@@ -65,7 +65,6 @@ import net.sf.mpxj.common.MPPResourceField;
 import net.sf.mpxj.common.MPPTaskField;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.Pair;
-import net.sf.mpxj.common.RtfHelper;
 
 /**
  * This class is used to represent a Microsoft Project MPP8 file. This
@@ -741,6 +740,11 @@ final class MPP8Reader implements MPPVariantReader
     */
    private void setTaskNotes(Task task, byte[] data, ExtendedData taskExtData, FixDeferFix taskVarData)
    {
+      if (!m_reader.getReadNotes())
+      {
+         return;
+      }
+
       String notes = taskExtData.getString(TASK_NOTES);
       if (notes == null && data.length == 366)
       {
@@ -764,10 +768,12 @@ final class MPP8Reader implements MPPVariantReader
       {
          if (m_reader.getPreserveNoteFormatting() == false)
          {
-            notes = RtfHelper.strip(notes);
+            task.setRtfNotes(notes);
+         }
+         else
+         {
+            task.setNotes(notes);
          }
-
-         task.setNotes(notes);
       }
    }
    
@@ -1072,15 +1078,17 @@ final class MPP8Reader implements MPPVariantReader
          //
          // Retrieve the resource notes.
          //
-         notes = rscExtData.getString(RESOURCE_NOTES);
+         notes = m_reader.getReadNotes() ? rscExtData.getString(RESOURCE_NOTES) : null;
          if (notes != null)
          {
             if (m_reader.getPreserveNoteFormatting() == false)
             {
-               notes = RtfHelper.strip(notes);
+               resource.setRtfNotes(notes);
+            }
+            else
+            {
+               resource.setNotes(notes);
             }
-
-            resource.setNotes(notes);
          }
 
          m_eventManager.fireResourceReadEvent(resource);
@@ -59,7 +59,6 @@ import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.MPPResourceField;
 import net.sf.mpxj.common.MPPTaskField;
 import net.sf.mpxj.common.NumberHelper;
-import net.sf.mpxj.common.RtfHelper;
 
 /**
  * This class is used to represent a Microsoft Project MPP9 file. This
@@ -1031,6 +1030,7 @@ final class MPP9Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap9(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createTaskFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
       VarMeta taskVarMeta = new VarMeta9(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("VarMeta"))));
@@ -1239,9 +1239,12 @@ final class MPP9Reader implements MPPVariantReader
          notes = task.getNotes();
          if (!m_reader.getPreserveNoteFormatting())
          {
-            notes = RtfHelper.strip(notes);
+            task.setRtfNotes(notes);
+         }
+         else
+         {
+            task.setNotes(notes);
          }
-         task.setNotes(notes);
 
          //
          // Set the calendar name
@@ -1324,6 +1327,8 @@ final class MPP9Reader implements MPPVariantReader
       {
          processExternalTasks(externalTasks);
       }
+
+      m_reader.addSkippedFieldReadCount(fieldMap);
    }
 
    /**
@@ -1730,6 +1735,7 @@ final class MPP9Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap9(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createResourceFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
       VarMeta rscVarMeta = new VarMeta9(new DocumentInputStream(((DocumentEntry) rscDir.getEntry("VarMeta"))));
@@ -1815,10 +1821,12 @@ final class MPP9Reader implements MPPVariantReader
          notes = resource.getNotes();
          if (m_reader.getPreserveNoteFormatting() == false)
          {
-            notes = RtfHelper.strip(notes);
+            resource.setRtfNotes(notes);
+         }
+         else
+         {
+            resource.setNotes(notes);
          }
-
-         resource.setNotes(notes);
 
          //
          // Configure the resource calendar
@@ -1860,6 +1868,8 @@ final class MPP9Reader implements MPPVariantReader
 
          m_eventManager.fireResourceReadEvent(resource);
       }
+
+      m_reader.addSkippedFieldReadCount(fieldMap);
    }
 
    /**
@@ -1871,6 +1881,7 @@ final class MPP9Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap9(m_file.getProjectProperties(), m_file.getCustomFields());
       fieldMap.createAssignmentFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
       VarMeta assnVarMeta = new VarMeta9(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("VarMeta"))));
@@ -1885,6 +1896,7 @@ final class MPP9Reader implements MPPVariantReader
 
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
       factory.process(m_file, fieldMap, null, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, null, assnFixedMeta.getAdjustedItemCount());
+      m_reader.addSkippedFieldReadCount(fieldMap);
    }
 
    /**
@@ -2026,9 +2038,7 @@ final class MPP9Reader implements MPPVariantReader
       //System.out.println(varMeta);
       //System.out.println(varData);
 
-      InputStream is = m_inputStreamFactory.getInstance(dir, "FixedData");
-      byte[] fixedData = new byte[is.available()];
-      is.read(fixedData);
+      byte[] fixedData = m_inputStreamFactory.getByteArray(dir, "FixedData");
       //System.out.println(ByteArrayHelper.hexdump(fixedData, false, 16, ""));
 
       ViewStateReader reader = new ViewStateReader9();
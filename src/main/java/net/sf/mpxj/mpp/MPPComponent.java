@@ -112,4 +112,22 @@ class MPPComponent
       }
       return (buffer);
    }
+
+   /**
+    * This method reads all of the data remaining in the input stream.
+    * Where the stream already holds its data in memory, the data is
+    * retrieved without being copied.
+    *
+    * @param is the input stream
+    * @return byte array
+    * @throws IOException on file read error or EOF
+    */
+   protected byte[] readRemainingData(InputStream is) throws IOException
+   {
+      if (is instanceof EncryptedDocumentInputStream)
+      {
+         return ((EncryptedDocumentInputStream) is).getRemainingData();
+      }
+      return readByteArray(is, is.available());
+   }
 }
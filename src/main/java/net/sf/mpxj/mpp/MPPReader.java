@@ -23,26 +23,38 @@
 
 package net.sf.mpxj.mpp;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DocumentEntry;
 import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 
+import net.sf.mpxj.AssignmentField;
 import net.sf.mpxj.DateRange;
+import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectConfig;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.ProjectProperties;
 import net.sf.mpxj.Relation;
+import net.sf.mpxj.ResourceField;
 import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.StreamHelper;
+import net.sf.mpxj.common.ValuePool;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.AbstractProjectReader;
 
@@ -88,6 +100,43 @@ public final class MPPReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(String fileName) throws MPXJException
+   {
+      return read(new File(fileName));
+   }
+
+   /**
+    * Reading from a file opens the compound document in read-only,
+    * file-backed mode. Only the parts of the file which are actually
+    * read are loaded, rather than buffering the whole document in memory
+    * as happens when reading from a stream.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(File file) throws MPXJException
+   {
+      POIFSFileSystem fs = null;
+
+      try
+      {
+         fs = new POIFSFileSystem(file, true);
+         return read(fs);
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(fs);
+      }
+   }
+
    /**
     * This method allows us to peek into the OLE compound document to extract the file format.
     * This allows the UniversalProjectReader to determine if this is an MPP file, or if
@@ -119,6 +168,8 @@ public final class MPPReader extends AbstractProjectReader
     */
    public ProjectFile read(POIFSFileSystem fs) throws MPXJException
    {
+      ValuePool previousPool = ValuePool.setCurrent(m_valuePool);
+
       try
       {
          ProjectFile projectFile = new ProjectFile();
@@ -134,6 +185,22 @@ public final class MPPReader extends AbstractProjectReader
          config.setAutoCalendarUniqueID(false);
          config.setAutoAssignmentUniqueID(false);
 
+         m_skippedFieldReadCount = 0;
+         if (m_readFields == null)
+         {
+            m_fieldProjection = m_readNotes ? null : new HashSet<FieldType>(ALL_FIELDS);
+         }
+         else
+         {
+            m_fieldProjection = new HashSet<FieldType>(m_readFields);
+            m_fieldProjection.addAll(REQUIRED_FIELDS);
+         }
+
+         if (!m_readNotes)
+         {
+            m_fieldProjection.removeAll(NOTES_FIELDS);
+         }
+
          projectFile.getEventManager().addProjectListeners(m_projectListeners);
 
          //
@@ -217,6 +284,11 @@ public final class MPPReader extends AbstractProjectReader
       {
          throw new MPXJException(MPXJException.READ_ERROR, ex);
       }
+
+      finally
+      {
+         ValuePool.setCurrent(previousPool);
+      }
    }
 
    /**
@@ -367,6 +439,134 @@ public final class MPPReader extends AbstractProjectReader
       return m_readPassword;
    }
 
+   /**
+    * Restrict the task, resource and assignment fields read from the file.
+    * Fields which are not in this set are not decoded, which saves time
+    * and memory when only a small number of fields are required.
+    * A small number of fields the reader relies on to build the structure
+    * of the project, such as unique IDs, IDs, outline levels, names,
+    * dates, calendars and notes, are always read. Passing null (the default)
+    * reads all fields.
+    *
+    * @param fields fields to read, or null to read all fields
+    */
+   public void setReadFields(Collection<? extends FieldType> fields)
+   {
+      m_readFields = fields == null ? null : Collections.unmodifiableSet(new HashSet<FieldType>(fields));
+   }
+
+   /**
+    * Retrieve the set of fields to be read, or null if all fields are read.
+    *
+    * @return set of fields
+    */
+   public Set<FieldType> getReadFields()
+   {
+      return m_readFields;
+   }
+
+   /**
+    * Determines whether task, resource and assignment notes are read.
+    * Setting this to false avoids the cost of extracting notes
+    * when they are not required. Defaults to true.
+    *
+    * @param readNotes true if notes are read
+    */
+   public void setReadNotes(boolean readNotes)
+   {
+      m_readNotes = readNotes;
+   }
+
+   /**
+    * Retrieve a flag indicating whether notes are read.
+    *
+    * @return true if notes are read
+    */
+   public boolean getReadNotes()
+   {
+      return m_readNotes;
+   }
+
+   /**
+    * Retrieve the number of individual field values which were not decoded
+    * during the most recent read as a result of the fields set by setReadFields.
+    *
+    * @return skipped field read count
+    */
+   public long getSkippedFieldReadCount()
+   {
+      return m_skippedFieldReadCount;
+   }
+
+   /**
+    * Set the number of threads used to decode task, resource and assignment
+    * rows. Rows are decoded in parallel then applied to the project in file
+    * order, so the resulting project is identical to a single threaded read.
+    * Currently only Project 2010 and later files are decoded in parallel.
+    * Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setDecodeThreadCount(int threadCount)
+   {
+      m_decodeThreadCount = threadCount;
+   }
+
+   /**
+    * Retrieve the number of threads used to decode rows.
+    *
+    * @return thread count
+    */
+   public int getDecodeThreadCount()
+   {
+      return m_decodeThreadCount;
+   }
+
+   /**
+    * Set a pool used to share a single instance between repeated
+    * date, duration, rate and string values read from the file.
+    *
+    * @param pool ValuePool instance, or null to disable pooling
+    */
+   public void setValuePool(ValuePool pool)
+   {
+      m_valuePool = pool;
+   }
+
+   /**
+    * Retrieve the pool used to share repeated values.
+    *
+    * @return ValuePool instance or null
+    */
+   public ValuePool getValuePool()
+   {
+      return m_valuePool;
+   }
+
+   /**
+    * Internal only. Retrieve the fields to be read by the field maps,
+    * or null if all fields are to be read.
+    *
+    * @return set of fields
+    */
+   Set<FieldType> getFieldProjection()
+   {
+      return m_fieldProjection;
+   }
+
+   /**
+    * Internal only. Record the number of field reads avoided by a field map.
+    *
+    * @param fieldMaps field maps used to populate entities
+    */
+   void addSkippedFieldReadCount(FieldMap... fieldMaps)
+   {
+      for (FieldMap fieldMap : fieldMaps)
+      {
+         m_skippedFieldReadCount += fieldMap.getSkippedReadCount();
+      }
+   }
+
    /**
     * Flag used to indicate whether RTF formatting in notes should
     * be preserved. The default value for this flag is false.
@@ -384,9 +584,38 @@ public final class MPPReader extends AbstractProjectReader
     */
    private boolean m_readPresentationData = true;
    private boolean m_readPropertiesOnly;
+   private boolean m_readNotes = true;
 
    private String m_readPassword;
    private List<ProjectListener> m_projectListeners;
+   private Set<FieldType> m_readFields;
+   private Set<FieldType> m_fieldProjection;
+   private long m_skippedFieldReadCount;
+   private int m_decodeThreadCount = 1;
+   private ValuePool m_valuePool;
+
+   /**
+    * Notes fields, which are not read when notes are disabled.
+    */
+   private static final Set<FieldType> NOTES_FIELDS = new HashSet<FieldType>(Arrays.<FieldType> asList(TaskField.NOTES, ResourceField.NOTES, AssignmentField.NOTES));
+
+   /**
+    * All task, resource and assignment fields, used as the projection
+    * when notes are disabled and no other projection has been set.
+    */
+   private static final Set<FieldType> ALL_FIELDS = new HashSet<FieldType>();
+   static
+   {
+      ALL_FIELDS.addAll(Arrays.asList(TaskField.values()));
+      ALL_FIELDS.addAll(Arrays.asList(ResourceField.values()));
+      ALL_FIELDS.addAll(Arrays.asList(AssignmentField.values()));
+   }
+
+   /**
+    * Fields which are always read, as the reader depends on them
+    * to build the structure of the project.
+    */
+   private static final Set<FieldType> REQUIRED_FIELDS = new HashSet<FieldType>(Arrays.<FieldType> asList(TaskField.UNIQUE_ID, TaskField.ID, TaskField.NAME, TaskField.OUTLINE_LEVEL, TaskField.PARENT_TASK_UNIQUE_ID, TaskField.SUBPROJECT_TASK_ID, TaskField.SUBPROJECT_TASKS_UNIQUEID_OFFSET, TaskField.EXTERNAL_TASK, TaskField.CALENDAR_UNIQUE_ID, TaskField.START, TaskField.FINISH, TaskField.DURATION, TaskField.LATE_START, TaskField.LATE_FINISH, TaskField.CREATED, TaskField.CONSTRAINT_TYPE, TaskField.TASK_MODE, TaskField.SCHEDULED_START, TaskField.SCHEDULED_FINISH, TaskField.SCHEDULED_DURATION, TaskField.WBS, TaskField.NOTES, TaskField.MILESTONE, TaskField.IGNORE_RESOURCE_CALENDAR, TaskField.OUTLINE_CODE1_INDEX, TaskField.OUTLINE_CODE2_INDEX, TaskField.OUTLINE_CODE3_INDEX, TaskField.OUTLINE_CODE4_INDEX, TaskField.OUTLINE_CODE5_INDEX, TaskField.OUTLINE_CODE6_INDEX, TaskField.OUTLINE_CODE7_INDEX, TaskField.OUTLINE_CODE8_INDEX, TaskField.OUTLINE_CODE9_INDEX, TaskField.OUTLINE_CODE10_INDEX, ResourceField.UNIQUE_ID, ResourceField.ID, ResourceField.NAME, ResourceField.TYPE, ResourceField.CALENDAR_UNIQUE_ID, ResourceField.STANDARD_RATE, ResourceField.OVERTIME_RATE, ResourceField.COST_PER_USE, ResourceField.NOTES, ResourceField.OUTLINE_CODE1_INDEX, ResourceField.OUTLINE_CODE2_INDEX, ResourceField.OUTLINE_CODE3_INDEX, ResourceField.OUTLINE_CODE4_INDEX, ResourceField.OUTLINE_CODE5_INDEX, ResourceField.OUTLINE_CODE6_INDEX, ResourceField.OUTLINE_CODE7_INDEX, ResourceField.OUTLINE_CODE8_INDEX, ResourceField.OUTLINE_CODE9_INDEX, ResourceField.OUTLINE_CODE10_INDEX, AssignmentField.UNIQUE_ID, AssignmentField.TASK_UNIQUE_ID, AssignmentField.RESOURCE_UNIQUE_ID, AssignmentField.START, AssignmentField.FINISH, AssignmentField.ASSIGNMENT_UNITS, AssignmentField.WORK, AssignmentField.REMAINING_WORK, AssignmentField.OVERTIME_WORK, AssignmentField.VARIABLE_RATE_UNITS, AssignmentField.CREATED, AssignmentField.NOTES));
 
    /**
     * Populate a map of file types and file processing classes.
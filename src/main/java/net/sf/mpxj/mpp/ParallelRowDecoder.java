@@ -0,0 +1,140 @@
+/*
+ * file:       ParallelRowDecoder.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.mpp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import net.sf.mpxj.common.ParallelHelper;
+import net.sf.mpxj.common.ValuePool;
+
+/**
+ * Decodes a range of rows from an MPP file block using a pool of threads.
+ * The caller supplies a Row implementation which decodes a single row
+ * into a buffer without touching the project, and receives the buffers
+ * back in file order so that entities can be created and populated
+ * sequentially.
+ */
+final class ParallelRowDecoder
+{
+   /**
+    * Implemented by the caller to decode a single row.
+    */
+   interface Row
+   {
+      /**
+       * Decode the row at the given index. Implementations must not modify
+       * shared state, as this method is called from multiple threads.
+       *
+       * @param index row index
+       * @return decoded row, or null if the row is not used
+       */
+      Object decode(int index);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param threadCount number of threads to use
+    */
+   public ParallelRowDecoder(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Returns true if the decoder will use more than one thread.
+    *
+    * @return true if rows are decoded in parallel
+    */
+   public boolean isParallel()
+   {
+      return m_threadCount > 1;
+   }
+
+   /**
+    * Decode rows 0 to rowCount - 1, returning the results in row order.
+    *
+    * @param rowCount number of rows
+    * @param row row decoder
+    * @return decoded rows
+    */
+   public Object[] decode(int rowCount, final Row row)
+   {
+      final Object[] result = new Object[rowCount];
+      if (m_threadCount < 2 || rowCount < 2)
+      {
+         for (int index = 0; index < rowCount; index++)
+         {
+            result[index] = row.decode(index);
+         }
+         return result;
+      }
+
+      //
+      // Worker threads share the value pool used by the calling thread.
+      //
+      final ValuePool pool = ValuePool.getCurrent();
+      int threadCount = Math.min(m_threadCount, rowCount);
+
+      //
+      // Use more partitions than threads so that a few expensive
+      // rows don't leave the other threads idle.
+      //
+      int partitionCount = threadCount * 4;
+      int partitionSize = (rowCount + partitionCount - 1) / partitionCount;
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(partitionCount);
+      for (int start = 0; start < rowCount; start += partitionSize)
+      {
+         final int first = start;
+         final int last = Math.min(start + partitionSize, rowCount);
+         tasks.add(new Callable<Void>()
+         {
+            @Override public Void call()
+            {
+               ValuePool previousPool = ValuePool.setCurrent(pool);
+               try
+               {
+                  for (int index = first; index < last; index++)
+                  {
+                     result[index] = row.decode(index);
+                  }
+                  return null;
+               }
+
+               finally
+               {
+                  ValuePool.setCurrent(previousPool);
+               }
+            }
+         });
+      }
+
+      ParallelHelper.invokeAll(threadCount, tasks);
+      return result;
+   }
+
+   private final int m_threadCount;
+}
@@ -0,0 +1,383 @@
+/*
+ * file:       PresentationDataLoader14.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.mpp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.poifs.filesystem.DirectoryEntry;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+
+import net.sf.mpxj.Filter;
+import net.sf.mpxj.FilterContainer;
+import net.sf.mpxj.Group;
+import net.sf.mpxj.PresentationDataLoader;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Table;
+import net.sf.mpxj.View;
+import net.sf.mpxj.ViewState;
+
+/**
+ * Populates the views, tables, filters and groups of an MPP14 file on
+ * first access. The comparatively expensive work of decoding these
+ * streams into views, tables, filters and groups is only carried out when
+ * the caller uses the corresponding container. Each container is decoded
+ * in full before anything is added to the project, so data which can't
+ * be decoded leaves the container empty.
+ *
+ * The raw content of the streams holding this data is copied when the
+ * file is read. The streams can't be read lazily: MPPReader closes a
+ * file-backed file system once the file has been read, and holding on to
+ * the entries of a file system read from a stream would keep the whole
+ * document in memory. The copy used by each container is released
+ * once that container has been loaded, so the remaining cost is the
+ * size of the CTable, CV_iew, CEdl, CFilter and CGrouping streams
+ * for the containers which have not yet been used.
+ */
+final class PresentationDataLoader14 implements PresentationDataLoader
+{
+   /**
+    * Constructor.
+    *
+    * @param viewDir view directory
+    * @param inputStreamFactory input stream factory
+    * @param fontBases font bases
+    */
+   public PresentationDataLoader14(DirectoryEntry viewDir, DocumentInputStreamFactory inputStreamFactory, Map<Integer, FontBase> fontBases) throws IOException
+   {
+      m_fontBases = fontBases;
+      m_tableData = new BlockData((DirectoryEntry) viewDir.getEntry("CTable"), false, null);
+      m_viewData = new BlockData((DirectoryEntry) viewDir.getEntry("CV_iew"), true, inputStreamFactory);
+      m_viewStateData = new BlockData((DirectoryEntry) viewDir.getEntry("CEdl"), false, null);
+      m_groupData = new BlockData((DirectoryEntry) viewDir.getEntry("CGrouping"), true, inputStreamFactory);
+
+      DirectoryEntry filterDir = (DirectoryEntry) viewDir.getEntry("CFilter");
+      try
+      {
+         m_filterData = new BlockData(filterDir, true, inputStreamFactory);
+      }
+
+      catch (IOException ex)
+      {
+         // If the filter streams can't be read we'll just ignore the filter definitions.
+         m_filterData = null;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void loadTables(ProjectFile file)
+   {
+      BlockData tableData = m_tableData;
+      m_tableData = null;
+      if (tableData == null)
+      {
+         return;
+      }
+
+      List<Table> tables = new ArrayList<Table>();
+
+      try
+      {
+         VarMeta varMeta = new VarMeta12(tableData.getVarMeta());
+         Var2Data varData = new Var2Data(varMeta, tableData.getVarData());
+         FixedData fixedData = new FixedData(230, tableData.getFixedData());
+
+         TableFactory14 factory = new TableFactory14(TABLE_COLUMN_DATA_STANDARD, TABLE_COLUMN_DATA_ENTERPRISE, TABLE_COLUMN_DATA_BASELINE);
+         int items = fixedData.getItemCount();
+         for (int loop = 0; loop < items; loop++)
+         {
+            byte[] data = fixedData.getByteArrayValue(loop);
+            tables.add(factory.createTable(file, data, varMeta, varData));
+         }
+      }
+
+      catch (IOException ex)
+      {
+         return;
+      }
+
+      file.getTables().addAll(tables);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void loadViews(ProjectFile file)
+   {
+      BlockData viewData = m_viewData;
+      BlockData viewStateData = m_viewStateData;
+      m_viewData = null;
+      m_viewStateData = null;
+      if (viewData == null || viewStateData == null)
+      {
+         return;
+      }
+
+      List<View> views = new ArrayList<View>();
+      ViewState state;
+
+      try
+      {
+         VarMeta viewVarMeta = new VarMeta12(viewData.getVarMeta());
+         Var2Data viewVarData = new Var2Data(viewVarMeta, viewData.getVarData());
+         FixedMeta fixedMeta = new FixedMeta(viewData.getFixedMeta(), 10);
+         FixedData fixedData = new FixedData(138, viewData.getFixedData());
+
+         int items = fixedMeta.getAdjustedItemCount();
+         ViewFactory factory = new ViewFactory14();
+
+         int lastOffset = -1;
+         for (int loop = 0; loop < items; loop++)
+         {
+            byte[] fm = fixedMeta.getByteArrayValue(loop);
+            int offset = MPPUtility.getShort(fm, 4);
+            if (offset > lastOffset)
+            {
+               byte[] fd = fixedData.getByteArrayValue(fixedData.getIndexFromOffset(offset));
+               if (fd != null)
+               {
+                  views.add(factory.createView(file, fm, fd, viewVarData, m_fontBases));
+               }
+               lastOffset = offset;
+            }
+         }
+
+         //
+         // Read the saved view state
+         //
+         VarMeta varMeta = new VarMeta12(viewStateData.getVarMeta());
+         Var2Data varData = new Var2Data(varMeta, viewStateData.getVarData());
+         ViewStateReader reader = new ViewStateReader12();
+         state = reader.read(file, varData, viewStateData.m_fixedData);
+      }
+
+      catch (IOException ex)
+      {
+         return;
+      }
+
+      file.getViews().addAll(views);
+      if (state != null)
+      {
+         file.getViews().setViewState(state);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void loadFilters(ProjectFile file)
+   {
+      BlockData filterData = m_filterData;
+      m_filterData = null;
+      if (filterData == null)
+      {
+         return;
+      }
+
+      final List<Filter> filters = new ArrayList<Filter>();
+      FilterContainer container = new FilterContainer()
+      {
+         @Override public void addFilter(Filter filter)
+         {
+            filters.add(filter);
+         }
+      };
+
+      FixedData fixedData;
+      Var2Data varData;
+
+      try
+      {
+         FixedMeta fixedMeta = new FixedMeta(filterData.getFixedMeta(), 10);
+         fixedData = new FixedData(fixedMeta, filterData.getFixedData());
+         VarMeta varMeta = new VarMeta12(filterData.getVarMeta());
+         varData = new Var2Data(varMeta, filterData.getVarData());
+      }
+
+      catch (IndexOutOfBoundsException ex)
+      {
+         // From a sample file where the stream reports an available number of bytes
+         // but attempting to read that number of bytes raises an exception.
+         return;
+      }
+
+      catch (IOException ex)
+      {
+         // I've come across an unusual sample where the VarMeta magic number is zero, which throws this exception.
+         // MS Project opens the file fine. If we get into this state, we'll just ignore the filter definitions.
+         return;
+      }
+
+      FilterReader reader = new FilterReader14();
+      reader.process(file.getProjectProperties(), container, fixedData, varData);
+
+      for (Filter filter : filters)
+      {
+         file.getFilters().addFilter(filter);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void loadGroups(ProjectFile file)
+   {
+      BlockData groupData = m_groupData;
+      m_groupData = null;
+      if (groupData == null)
+      {
+         return;
+      }
+
+      List<Group> groups;
+
+      try
+      {
+         FixedMeta fixedMeta = new FixedMeta(groupData.getFixedMeta(), 10);
+         FixedData fixedData = new FixedData(fixedMeta, groupData.getFixedData());
+         VarMeta varMeta = new VarMeta12(groupData.getVarMeta());
+         Var2Data varData = new Var2Data(varMeta, groupData.getVarData());
+
+         GroupReader14 reader = new GroupReader14();
+         groups = reader.read(fixedData, varData, m_fontBases);
+      }
+
+      catch (IOException ex)
+      {
+         return;
+      }
+
+      file.getGroups().addAll(groups);
+   }
+
+   /**
+    * Raw content of the streams making up one block of presentation data.
+    */
+   private static final class BlockData
+   {
+      /**
+       * Constructor. Copies the stream content from the file system.
+       *
+       * @param dir directory holding the streams
+       * @param hasFixedMeta true if the block includes a FixedMeta stream
+       * @param inputStreamFactory factory used to read an encrypted FixedData stream, or null if the stream is never encrypted
+       */
+      public BlockData(DirectoryEntry dir, boolean hasFixedMeta, DocumentInputStreamFactory inputStreamFactory) throws IOException
+      {
+         m_varMeta = readByteArray(dir, "VarMeta");
+         m_varData = readByteArray(dir, "Var2Data");
+         m_fixedMeta = hasFixedMeta ? readByteArray(dir, "FixedMeta") : null;
+         m_fixedData = inputStreamFactory == null ? readByteArray(dir, "FixedData") : inputStreamFactory.getByteArray(dir, "FixedData");
+      }
+
+      /**
+       * Retrieve a stream to read the VarMeta content.
+       *
+       * @return input stream
+       */
+      public ByteArrayInputStream getVarMeta()
+      {
+         return new ByteArrayInputStream(m_varMeta);
+      }
+
+      /**
+       * Retrieve a stream to read the Var2Data content.
+       *
+       * @return input stream
+       */
+      public ByteArrayInputStream getVarData()
+      {
+         return new ByteArrayInputStream(m_varData);
+      }
+
+      /**
+       * Retrieve a stream to read the FixedMeta content.
+       *
+       * @return input stream
+       */
+      public ByteArrayInputStream getFixedMeta()
+      {
+         return new ByteArrayInputStream(m_fixedMeta);
+      }
+
+      /**
+       * Retrieve a stream to read the FixedData content.
+       *
+       * @return input stream
+       */
+      public ByteArrayInputStream getFixedData()
+      {
+         return new ByteArrayInputStream(m_fixedData);
+      }
+
+      /**
+       * Read the entire content of a stream.
+       *
+       * @param dir parent directory
+       * @param name stream name
+       * @return stream content
+       */
+      private static byte[] readByteArray(DirectoryEntry dir, String name) throws IOException
+      {
+         DocumentEntry entry = (DocumentEntry) dir.getEntry(name);
+         byte[] data = new byte[entry.getSize()];
+         DocumentInputStream stream = new DocumentInputStream(entry);
+
+         try
+         {
+            stream.readFully(data);
+         }
+
+         finally
+         {
+            stream.close();
+         }
+
+         return data;
+      }
+
+      private final byte[] m_varMeta;
+      private final byte[] m_varData;
+      private final byte[] m_fixedMeta;
+      private final byte[] m_fixedData;
+   }
+
+   private final Map<Integer, FontBase> m_fontBases;
+   private BlockData m_tableData;
+   private BlockData m_viewData;
+   private BlockData m_viewStateData;
+   private BlockData m_filterData;
+   private BlockData m_groupData;
+
+   private static final Integer TABLE_COLUMN_DATA_STANDARD = Integer.valueOf(6);
+   private static final Integer TABLE_COLUMN_DATA_ENTERPRISE = Integer.valueOf(7);
+   private static final Integer TABLE_COLUMN_DATA_BASELINE = Integer.valueOf(8);
+}
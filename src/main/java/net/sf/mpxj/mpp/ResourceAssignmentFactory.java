@@ -40,7 +40,6 @@ import net.sf.mpxj.TimephasedWork;
 import net.sf.mpxj.WorkContour;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
 import net.sf.mpxj.common.NumberHelper;
-import net.sf.mpxj.common.RtfHelper;
 import net.sf.mpxj.common.SplitTaskFactory;
 import net.sf.mpxj.common.TimephasedCostNormaliser;
 import net.sf.mpxj.common.TimephasedWorkNormaliser;
@@ -51,6 +50,17 @@ import net.sf.mpxj.common.TimephasedWorkNormaliser;
  */
 public class ResourceAssignmentFactory
 {
+   /**
+    * Set the number of threads used to decode assignment rows.
+    * Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setDecodeThreadCount(int threadCount)
+   {
+      m_decodeThreadCount = threadCount;
+   }
+
    /**
     * Main entry point when called to process assignment data.
     *
@@ -99,7 +109,8 @@ public class ResourceAssignmentFactory
       }
 
       Set<Task> processedSplits = new HashSet<Task>();
-      
+      Object[] decodedRows = decodeRows(fieldMap, enterpriseCustomFieldMap, set, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, count);
+
       for (int loop = 0; loop < count; loop++)
       {
          byte[] meta = assnFixedMeta.getByteArrayValue(loop);
@@ -115,12 +126,7 @@ public class ResourceAssignmentFactory
             continue;
          }
 
-         if (data.length < fieldMap.getMaxFixedDataSize(0))
-         {
-            byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0)];
-            System.arraycopy(data, 0, newData, 0, data.length);
-            data = newData;
-         }
+         data = padData(fieldMap, data);
 
          int id = MPPUtility.getInt(data, fieldMap.getFixedDataOffset(AssignmentField.UNIQUE_ID));
          final Integer varDataId = Integer.valueOf(id);
@@ -139,15 +145,27 @@ public class ResourceAssignmentFactory
 
          assignment.disableEvents();
 
-         fieldMap.populateContainer(AssignmentField.class, assignment, varDataId, new byte[][]
+         if (decodedRows == null)
          {
-            data,
-            data2
-         }, assnVarData);
+            fieldMap.populateContainer(AssignmentField.class, assignment, varDataId, new byte[][]
+            {
+               data,
+               data2
+            }, assnVarData);
 
-         if (enterpriseCustomFieldMap != null)
+            if (enterpriseCustomFieldMap != null)
+            {
+               enterpriseCustomFieldMap.populateContainer(AssignmentField.class, assignment, varDataId, null, assnVarData);
+            }
+         }
+         else
          {
-            enterpriseCustomFieldMap.populateContainer(AssignmentField.class, assignment, varDataId, null, assnVarData);
+            Object[][] values = (Object[][]) decodedRows[loop];
+            fieldMap.setContainerValues(AssignmentField.class, assignment, values[0]);
+            if (enterpriseCustomFieldMap != null)
+            {
+               enterpriseCustomFieldMap.setContainerValues(AssignmentField.class, assignment, values[1]);
+            }
          }
 
          assignment.enableEvents();
@@ -178,9 +196,12 @@ public class ResourceAssignmentFactory
          String notes = assignment.getNotes();
          if (!preserveNoteFormatting)
          {
-            notes = RtfHelper.strip(notes);
+            assignment.setRtfNotes(notes);
+         }
+         else
+         {
+            assignment.setNotes(notes);
          }
-         assignment.setNotes(notes);
 
          Task task = file.getTaskByUniqueID(assignment.getTaskUniqueID());
          if (task != null)
@@ -272,6 +293,93 @@ public class ResourceAssignmentFactory
       }
    }
 
+   /**
+    * If parallel decoding has been requested, decode the field values
+    * for each assignment row in advance. Entries in the returned array
+    * correspond to rows in the fixed meta block. Returns null if rows
+    * are to be decoded as the assignments are created.
+    *
+    * @param fieldMap assignment field map
+    * @param enterpriseCustomFieldMap enterprise custom field map
+    * @param set unique IDs present in the var data
+    * @param assnVarData var data
+    * @param assnFixedMeta fixed meta
+    * @param assnFixedData fixed data
+    * @param assnFixedData2 fixed data
+    * @param count expected number of assignments
+    * @return decoded rows, or null
+    */
+   private Object[] decodeRows(final FieldMap fieldMap, final FieldMap enterpriseCustomFieldMap, final Set<Integer> set, final Var2Data assnVarData, final FixedMeta assnFixedMeta, final FixedData assnFixedData, final FixedData assnFixedData2, int count)
+   {
+      ParallelRowDecoder decoder = new ParallelRowDecoder(m_decodeThreadCount);
+      if (!decoder.isParallel())
+      {
+         return null;
+      }
+
+      fieldMap.prepare(AssignmentField.class);
+      if (enterpriseCustomFieldMap != null)
+      {
+         enterpriseCustomFieldMap.prepare(AssignmentField.class);
+      }
+
+      return decoder.decode(count, new ParallelRowDecoder.Row()
+      {
+         @Override public Object decode(int index)
+         {
+            byte[] meta = assnFixedMeta.getByteArrayValue(index);
+            if (meta == null || meta[0] != 0)
+            {
+               return null;
+            }
+
+            byte[] data = assnFixedData.getByteArrayValue(assnFixedData.getIndexFromOffset(MPPUtility.getInt(meta, 4)));
+            if (data == null)
+            {
+               return null;
+            }
+
+            data = padData(fieldMap, data);
+            Integer varDataId = Integer.valueOf(MPPUtility.getInt(data, fieldMap.getFixedDataOffset(AssignmentField.UNIQUE_ID)));
+            if (set.contains(varDataId) == false)
+            {
+               return null;
+            }
+
+            byte[] data2 = assnFixedData2 == null ? null : assnFixedData2.getByteArrayValue(index);
+
+            return new Object[][]
+            {
+               fieldMap.readContainerValues(AssignmentField.class, varDataId, new byte[][]
+               {
+                  data,
+                  data2
+               }, assnVarData),
+               enterpriseCustomFieldMap == null ? null : enterpriseCustomFieldMap.readContainerValues(AssignmentField.class, varDataId, null, assnVarData)
+            };
+         }
+      });
+   }
+
+   /**
+    * Assignment fixed data blocks may be shorter than the size expected by
+    * the field map. In this case extend the block so fields can be read safely.
+    *
+    * @param fieldMap assignment field map
+    * @param data assignment fixed data
+    * @return padded assignment fixed data
+    */
+   private static byte[] padData(FieldMap fieldMap, byte[] data)
+   {
+      if (data.length < fieldMap.getMaxFixedDataSize(0))
+      {
+         byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0)];
+         System.arraycopy(data, 0, newData, 0, data.length);
+         data = newData;
+      }
+      return data;
+   }
+
    /**
     * Extract assignment hyperlink data.
     *
@@ -368,6 +476,8 @@ public class ResourceAssignmentFactory
       }
    }
 
+   private int m_decodeThreadCount = 1;
+
    private static final Integer MPP9_CREATION_DATA = Integer.valueOf(138);
 
    private static final MppBitFlag[] ASSIGNMENT_META_DATA_BIT_FLAGS =
@@ -54,6 +54,25 @@ public abstract class ViewStateReader
     */
    public void process(ProjectFile file, Var2Data varData, byte[] fixedData) throws IOException
    {
+      ViewState state = read(file, varData, fixedData);
+      if (state != null)
+      {
+         file.getViews().setViewState(state);
+      }
+   }
+
+   /**
+    * Read the saved view state without adding it to a project.
+    *
+    * @param file project file
+    * @param varData view state var data
+    * @param fixedData view state fixed data
+    * @return view state, or null if no view state is present
+    * @throws IOException
+    */
+   public ViewState read(ProjectFile file, Var2Data varData, byte[] fixedData) throws IOException
+   {
+      ViewState result = null;
       Props props = getProps(varData);
       //System.out.println(props);
       if (props != null)
@@ -80,9 +99,10 @@ public abstract class ViewStateReader
 
          int filterID = MPPUtility.getShort(fixedData, 128);
 
-         ViewState state = new ViewState(file, viewName, uniqueIdList, filterID);
-         file.getViews().setViewState(state);
+         result = new ViewState(file, viewName, uniqueIdList, filterID);
       }
+
+      return result;
    }
 
    private static final Integer VIEW_NAME = Integer.valueOf(641728536);
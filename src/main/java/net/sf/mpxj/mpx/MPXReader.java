@@ -24,14 +24,19 @@
 package net.sf.mpxj.mpx;
 
 import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Locale;
+import java.util.Map;
 
 import net.sf.mpxj.DateRange;
 import net.sf.mpxj.Day;
@@ -62,7 +67,9 @@ import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.InputStreamTokenizer;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.ReaderTokenizer;
+import net.sf.mpxj.common.StreamHelper;
 import net.sf.mpxj.common.Tokenizer;
+import net.sf.mpxj.common.ValuePool;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.AbstractProjectReader;
 
@@ -83,6 +90,108 @@ public final class MPXReader extends AbstractProjectReader
       m_projectListeners.add(listener);
    }
 
+   /**
+    * Set a pool used to share a single instance between repeated
+    * string, date, duration and rate values read from the file.
+    *
+    * @param pool ValuePool instance, or null to disable pooling
+    */
+   public void setValuePool(ValuePool pool)
+   {
+      m_valuePool = pool;
+   }
+
+   /**
+    * Retrieve the pool used to share repeated values.
+    *
+    * @return ValuePool instance or null
+    */
+   public ValuePool getValuePool()
+   {
+      return m_valuePool;
+   }
+
+   /**
+    * Read an MPX file where the file name is supplied, handing each entity
+    * to the listener rather than returning a ProjectFile instance.
+    *
+    * @param fileName file name
+    * @param listener listener to receive each entity
+    * @throws MPXJException
+    */
+   public void stream(String fileName, ProjectListener listener) throws MPXJException
+   {
+      FileInputStream fis = null;
+
+      try
+      {
+         fis = new FileInputStream(fileName);
+         stream(fis, listener);
+         fis.close();
+         fis = null;
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(fis);
+      }
+   }
+
+   /**
+    * Read an MPX file, handing each entity to the listener as soon as it
+    * is complete. Calendars are delivered first, followed by resources,
+    * then tasks with their assignments, and finally relations. The listener
+    * should not retain references to the entities it receives.
+    * Tasks, and their assignments, are released once no
+    * further records can refer to them, so memory use is bounded by the
+    * depth of the task hierarchy rather than the size of the file. Only the
+    * task ID and unique ID of each task are retained to allow relations to
+    * be resolved at the end of the file. Relations are delivered using
+    * placeholder tasks which carry just these two attributes.
+    *
+    * <p>Calendars and resources are not released: they remain in the
+    * ProjectFile backing the reader until this method returns, as tasks and
+    * assignments read later in the file refer to them. Memory use therefore
+    * grows with the number of calendars and resources in the file.</p>
+    *
+    * <p>MSPDIReader and PrimaveraPMFileReader offer an equivalent streaming
+    * mode. The XER and SDEF readers do not: both formats complete each
+    * activity with records which follow the whole activity table, so every
+    * activity would have to be retained until the end of the file.</p>
+    *
+    * @param is input stream
+    * @param listener listener to receive each entity
+    * @throws MPXJException
+    */
+   public void stream(InputStream is, ProjectListener listener) throws MPXJException
+   {
+      m_streamListener = listener;
+      m_streamTasks = new LinkedList<Task>();
+      m_streamTaskIDs = new HashMap<Integer, Integer>();
+      m_streamTaskUniqueIDs = new HashMap<Integer, Integer>();
+
+      try
+      {
+         read(is);
+      }
+
+      finally
+      {
+         m_streamListener = null;
+         m_streamTasks = null;
+         m_streamTaskIDs = null;
+         m_streamTaskUniqueIDs = null;
+         m_pendingCalendar = null;
+         m_pendingResource = null;
+         m_pendingTask = null;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -90,6 +199,8 @@ public final class MPXReader extends AbstractProjectReader
    {
       int line = 1;
 
+      ValuePool previousPool = ValuePool.setCurrent(m_valuePool);
+
       try
       {
          //
@@ -183,6 +294,15 @@ public final class MPXReader extends AbstractProjectReader
             ++line;
          }
 
+         if (m_streamListener != null)
+         {
+            streamPendingEntities();
+            while (!m_streamTasks.isEmpty())
+            {
+               releaseTask(m_streamTasks.removeLast());
+            }
+         }
+
          processDeferredRelationships();
 
          //
@@ -207,6 +327,7 @@ public final class MPXReader extends AbstractProjectReader
 
       finally
       {
+         ValuePool.setCurrent(previousPool);
          m_projectFile = null;
          m_lastTask = null;
          m_lastResource = null;
@@ -231,6 +352,11 @@ public final class MPXReader extends AbstractProjectReader
     */
    private void parseRecord(Integer recordNumber, Record record) throws MPXJException
    {
+      if (m_streamListener != null && recordNumber.intValue() != MPXConstants.TASK_RECORD_NUMBER && !isChildRecord(recordNumber.intValue()))
+      {
+         streamPendingEntities();
+      }
+
       switch (recordNumber.intValue())
       {
          case MPXConstants.PROJECT_NAMES_RECORD_NUMBER:
@@ -266,6 +392,10 @@ public final class MPXReader extends AbstractProjectReader
          {
             m_lastBaseCalendar = m_projectFile.addCalendar();
             populateCalendar(record, m_lastBaseCalendar, true);
+            if (m_streamListener != null)
+            {
+               m_pendingCalendar = m_lastBaseCalendar;
+            }
             break;
          }
 
@@ -324,6 +454,10 @@ public final class MPXReader extends AbstractProjectReader
             m_lastResource = m_projectFile.addResource();
             populateResource(m_lastResource, record);
             m_eventManager.fireResourceReadEvent(m_lastResource);
+            if (m_streamListener != null)
+            {
+               m_pendingResource = m_lastResource;
+            }
             break;
          }
 
@@ -403,14 +537,21 @@ public final class MPXReader extends AbstractProjectReader
                m_baseOutlineLevel = outlineLevel;
             }
 
-            if (outlineLevel != m_baseOutlineLevel)
+            if (m_streamListener != null)
+            {
+               streamTask(m_lastTask, outlineLevel);
+            }
+            else
             {
-               List<Task> childTasks = m_projectFile.getChildTasks();
-               if (childTasks.isEmpty() == true)
+               if (outlineLevel != m_baseOutlineLevel)
                {
-                  throw new MPXJException(MPXJException.INVALID_OUTLINE);
+                  List<Task> childTasks = m_projectFile.getChildTasks();
+                  if (childTasks.isEmpty() == true)
+                  {
+                     throw new MPXJException(MPXJException.INVALID_OUTLINE);
+                  }
+                  childTasks.get(childTasks.size() - 1).addChildTask(m_lastTask, outlineLevel);
                }
-               childTasks.get(childTasks.size() - 1).addChildTask(m_lastTask, outlineLevel);
             }
 
             m_eventManager.fireTaskReadEvent(m_lastTask);
@@ -474,6 +615,191 @@ public final class MPXReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Determine if a record adds detail to the preceding calendar, resource
+    * or task record, rather than starting a new entity.
+    *
+    * @param recordNumber record number
+    * @return true if this is a child record
+    */
+   private boolean isChildRecord(int recordNumber)
+   {
+      boolean result;
+
+      switch (recordNumber)
+      {
+         case MPXConstants.BASE_CALENDAR_HOURS_RECORD_NUMBER:
+         case MPXConstants.BASE_CALENDAR_EXCEPTION_RECORD_NUMBER:
+         case MPXConstants.RESOURCE_NOTES_RECORD_NUMBER:
+         case MPXConstants.RESOURCE_CALENDAR_RECORD_NUMBER:
+         case MPXConstants.RESOURCE_CALENDAR_HOURS_RECORD_NUMBER:
+         case MPXConstants.RESOURCE_CALENDAR_EXCEPTION_RECORD_NUMBER:
+         case MPXConstants.TASK_NOTES_RECORD_NUMBER:
+         case MPXConstants.RECURRING_TASK_RECORD_NUMBER:
+         case MPXConstants.RESOURCE_ASSIGNMENT_RECORD_NUMBER:
+         case MPXConstants.RESOURCE_ASSIGNMENT_WORKGROUP_FIELDS_RECORD_NUMBER:
+         {
+            result = true;
+            break;
+         }
+
+         default:
+         {
+            result = false;
+            break;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Hand any calendar, resource or task which is now complete
+    * to the stream listener.
+    */
+   private void streamPendingEntities()
+   {
+      if (m_pendingCalendar != null)
+      {
+         m_streamListener.calendarRead(m_pendingCalendar);
+         m_pendingCalendar = null;
+      }
+
+      if (m_pendingResource != null)
+      {
+         m_streamListener.resourceRead(m_pendingResource);
+         m_pendingResource = null;
+      }
+
+      if (m_pendingTask != null)
+      {
+         streamPendingTask();
+      }
+   }
+
+   /**
+    * Add a task to the hierarchy when streaming. We only retain the chain
+    * of tasks from the root to the current task: once a task at the same
+    * or a shallower outline level is read, the tasks below it can no longer
+    * have further children and are released.
+    *
+    * @param task new task
+    * @param outlineLevel outline level of the new task
+    */
+   private void streamTask(Task task, int outlineLevel)
+   {
+      while (!m_streamTasks.isEmpty() && NumberHelper.getInt(m_streamTasks.getLast().getOutlineLevel()) >= outlineLevel)
+      {
+         Task previous = m_streamTasks.removeLast();
+         if (previous == m_pendingTask)
+         {
+            streamPendingTask();
+         }
+         releaseTask(previous);
+      }
+
+      if (!m_streamTasks.isEmpty())
+      {
+         m_projectFile.getChildTasks().remove(task);
+         m_streamTasks.getLast().addChildTask(task);
+      }
+      m_streamTasks.addLast(task);
+
+      //
+      // The previous task is now known to be the parent of this task,
+      // so its summary flag is correct and it can be handed over.
+      //
+      if (m_pendingTask != null)
+      {
+         streamPendingTask();
+      }
+
+      m_pendingTask = task;
+   }
+
+   /**
+    * Hand the pending task and its assignments to the stream listener.
+    * Any deferred relationships belonging to the task are updated to
+    * refer to the task's identifiers rather than the task itself.
+    */
+   private void streamPendingTask()
+   {
+      Task task = m_pendingTask;
+      m_pendingTask = null;
+
+      Integer id = task.getID();
+      Integer uniqueID = task.getUniqueID();
+      if (id != null && uniqueID != null)
+      {
+         m_streamTaskIDs.put(uniqueID, id);
+         m_streamTaskUniqueIDs.put(id, uniqueID);
+      }
+
+      //
+      // The relationships for this task are at the end of the list,
+      // possibly followed by those for the task which has just been read.
+      //
+      ListIterator<DeferredRelationship> iter = m_deferredRelationships.listIterator(m_deferredRelationships.size());
+      while (iter.hasPrevious())
+      {
+         DeferredRelationship dr = iter.previous();
+         if (dr.getTask() == task)
+         {
+            dr.setTask(null);
+            dr.setTaskID(id);
+            dr.setTaskUniqueID(uniqueID);
+         }
+         else
+         {
+            if (dr.getTask() != m_lastTask)
+            {
+               break;
+            }
+         }
+      }
+
+      m_streamListener.taskRead(task);
+      for (ResourceAssignment assignment : task.getResourceAssignments())
+      {
+         m_streamListener.assignmentRead(assignment);
+      }
+   }
+
+   /**
+    * Remove a task and its assignments from the project once it has been
+    * handed to the stream listener. Removing a child task resets the summary
+    * flag of its parent, so we preserve the original value.
+    *
+    * @param task task to release
+    */
+   private void releaseTask(Task task)
+   {
+      Task parent = task.getParentTask();
+      boolean summary = parent != null && parent.getSummary();
+      m_projectFile.removeTask(task);
+      if (parent != null)
+      {
+         parent.setSummary(summary);
+      }
+   }
+
+   /**
+    * Create a placeholder task carrying just the identifiers of a task
+    * which has already been released, used to deliver relations
+    * when streaming.
+    *
+    * @param id task ID
+    * @param uniqueID task unique ID
+    * @return placeholder task
+    */
+   private Task createPlaceholderTask(Integer id, Integer uniqueID)
+   {
+      Task task = m_projectFile.addTask();
+      task.setID(id);
+      task.setUniqueID(uniqueID);
+      return task;
+   }
+
    /**
     * Populates currency settings.
     *
@@ -908,6 +1234,10 @@ public final class MPXReader extends AbstractProjectReader
    {
       String data = dr.getData().trim();
       Task task = dr.getTask();
+      if (task == null)
+      {
+         task = createPlaceholderTask(dr.getTaskID(), dr.getTaskUniqueID());
+      }
 
       int length = data.length();
 
@@ -933,6 +1263,11 @@ public final class MPXReader extends AbstractProjectReader
             start = end + 1;
          }
       }
+
+      if (dr.getTask() == null)
+      {
+         m_projectFile.removeTask(task);
+      }
    }
 
    /**
@@ -971,13 +1306,20 @@ public final class MPXReader extends AbstractProjectReader
       // Now find the task, so we can extract the unique ID
       //
       Task targetTask;
-      if (field == TaskField.PREDECESSORS)
+      if (m_streamListener != null)
       {
-         targetTask = m_projectFile.getTaskByID(taskID);
+         targetTask = getPlaceholderTask(field, taskID);
       }
       else
       {
-         targetTask = m_projectFile.getTaskByUniqueID(taskID);
+         if (field == TaskField.PREDECESSORS)
+         {
+            targetTask = m_projectFile.getTaskByID(taskID);
+         }
+         else
+         {
+            targetTask = m_projectFile.getTaskByUniqueID(taskID);
+         }
       }
 
       //
@@ -1029,9 +1371,42 @@ public final class MPXReader extends AbstractProjectReader
       {
          Relation relation = sourceTask.addPredecessor(targetTask, type, lag);
          m_eventManager.fireRelationReadEvent(relation);
+
+         if (m_streamListener != null)
+         {
+            m_streamListener.relationRead(relation);
+            m_projectFile.removeTask(targetTask);
+         }
       }
    }
 
+   /**
+    * When streaming, create a placeholder for the target of a relation
+    * using the identifiers retained when the task was released.
+    *
+    * @param field which task field source of data
+    * @param taskID task ID or unique ID
+    * @return placeholder task, or null if the task was not found
+    */
+   private Task getPlaceholderTask(TaskField field, Integer taskID)
+   {
+      Integer id;
+      Integer uniqueID;
+
+      if (field == TaskField.PREDECESSORS)
+      {
+         id = taskID;
+         uniqueID = m_streamTaskUniqueIDs.get(taskID);
+      }
+      else
+      {
+         id = m_streamTaskIDs.get(taskID);
+         uniqueID = taskID;
+      }
+
+      return id == null || uniqueID == null ? null : createPlaceholderTask(id, uniqueID);
+   }
+
    /**
     * Populates a task instance.
     *
@@ -1610,9 +1985,53 @@ public final class MPXReader extends AbstractProjectReader
          m_data = data;
       }
 
+      /**
+       * Retrieve the parent task ID, used once the parent task
+       * has been released when streaming.
+       *
+       * @return parent task ID
+       */
+      public Integer getTaskID()
+      {
+         return m_taskID;
+      }
+
+      /**
+       * Set the parent task ID.
+       *
+       * @param taskID parent task ID
+       */
+      public void setTaskID(Integer taskID)
+      {
+         m_taskID = taskID;
+      }
+
+      /**
+       * Retrieve the parent task unique ID, used once the parent task
+       * has been released when streaming.
+       *
+       * @return parent task unique ID
+       */
+      public Integer getTaskUniqueID()
+      {
+         return m_taskUniqueID;
+      }
+
+      /**
+       * Set the parent task unique ID.
+       *
+       * @param taskUniqueID parent task unique ID
+       */
+      public void setTaskUniqueID(Integer taskUniqueID)
+      {
+         m_taskUniqueID = taskUniqueID;
+      }
+
       private Task m_task;
       private TaskField m_field;
       private String m_data;
+      private Integer m_taskID;
+      private Integer m_taskUniqueID;
    }
 
    private ProjectFile m_projectFile;
@@ -1631,6 +2050,14 @@ public final class MPXReader extends AbstractProjectReader
    private MPXJFormats m_formats;
    private List<DeferredRelationship> m_deferredRelationships;
    private List<ProjectListener> m_projectListeners;
+   private ValuePool m_valuePool;
+   private ProjectListener m_streamListener;
+   private LinkedList<Task> m_streamTasks;
+   private Map<Integer, Integer> m_streamTaskIDs;
+   private Map<Integer, Integer> m_streamTaskUniqueIDs;
+   private ProjectCalendar m_pendingCalendar;
+   private Resource m_pendingResource;
+   private Task m_pendingTask;
 
    /**
     * This member data is used to hold the outline level number of the
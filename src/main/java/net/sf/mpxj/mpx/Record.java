@@ -42,6 +42,7 @@ import net.sf.mpxj.Rate;
 import net.sf.mpxj.ScheduleFrom;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.Tokenizer;
+import net.sf.mpxj.common.ValuePool;
 
 /**
  * This class is used to represent a record in an MPX file.
@@ -143,7 +144,7 @@ final class Record
          result = null;
       }
 
-      return (result);
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -268,7 +269,7 @@ final class Record
          }
       }
 
-      return result;
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -295,7 +296,7 @@ final class Record
             result = null;
          }
 
-         return (result);
+         return ValuePool.getCurrent().intern(result);
       }
 
       catch (ParseException ex)
@@ -328,7 +329,7 @@ final class Record
             result = null;
          }
 
-         return (result);
+         return ValuePool.getCurrent().intern(result);
       }
 
       catch (ParseException ex)
@@ -403,7 +404,7 @@ final class Record
          result = null;
       }
 
-      return (result);
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -494,7 +495,7 @@ final class Record
          result = null;
       }
 
-      return (result);
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -55,6 +55,7 @@ import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.WorkContour;
 import net.sf.mpxj.WorkGroup;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.ValuePool;
 
 /**
  * This class contains methods used to perform the datatype conversions
@@ -918,7 +919,7 @@ public final class DatatypeConverter
          result = Duration.convertUnits(duration, units, defaultUnits, properties);
       }
 
-      return (result);
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -1536,7 +1537,7 @@ public final class DatatypeConverter
          result = new Rate(value, TimeUnit.HOURS);
       }
 
-      return (result);
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -1705,7 +1706,7 @@ public final class DatatypeConverter
             // Ignore parse errors
          }
       }
-      return result;
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -1742,7 +1743,7 @@ public final class DatatypeConverter
          }
       }
 
-      return result;
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -1768,7 +1769,7 @@ public final class DatatypeConverter
     */
    public static final String parseString(String value)
    {
-      return (value);
+      return ValuePool.getCurrent().intern(value);
    }
 
    /**
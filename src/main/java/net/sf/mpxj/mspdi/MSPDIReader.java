@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.JAXBContext;
@@ -91,6 +92,7 @@ import net.sf.mpxj.common.CharsetHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
 import net.sf.mpxj.common.FieldTypeHelper;
+import net.sf.mpxj.common.JaxbContextRegistry;
 import net.sf.mpxj.common.MPPAssignmentField;
 import net.sf.mpxj.common.MPPResourceField;
 import net.sf.mpxj.common.MPPTaskField;
@@ -98,6 +100,7 @@ import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.Pair;
 import net.sf.mpxj.common.SplitTaskFactory;
 import net.sf.mpxj.common.TimephasedWorkNormaliser;
+import net.sf.mpxj.common.ValuePool;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.mspdi.schema.Project;
 import net.sf.mpxj.mspdi.schema.Project.Calendars.Calendar.WorkWeeks;
@@ -163,11 +166,76 @@ public final class MSPDIReader extends AbstractProjectReader
       m_projectListeners.add(listener);
    }
 
+   /**
+    * Set a pool used to share a single instance between repeated
+    * date, duration and rate values read from the file.
+    *
+    * @param pool ValuePool instance, or null to disable pooling
+    */
+   public void setValuePool(ValuePool pool)
+   {
+      m_valuePool = pool;
+   }
+
+   /**
+    * Retrieve the pool used to share repeated values.
+    *
+    * @return ValuePool instance or null
+    */
+   public ValuePool getValuePool()
+   {
+      return m_valuePool;
+   }
+
+   /**
+    * Read an MSPDI file, handing each entity to the listener as soon as it
+    * is complete rather than returning a ProjectFile instance. Each
+    * element of the file is unmarshalled and released in turn, so the
+    * complete JAXB object tree is never held in memory. Calendars are
+    * delivered once all calendars have been read, so their base calendars
+    * are set, then tasks, resources and assignments in file order.
+    * Relations are delivered after the successor task, or at the end of the
+    * task list if the predecessor appears later in the file. The listener
+    * should not retain references to the entities it receives.
+    *
+    * <p>Calendars and resources are retained in the backing ProjectFile
+    * as tasks and assignments refer to them. A task is released once a
+    * task at the same or a shallower outline level is read, so only the
+    * chain of tasks from the root to the current task is held. For each
+    * released task the reader retains its ID, and its calendar and ignore
+    * resource calendar flag where these are set, which are used to create
+    * the placeholder task passed with relations and assignments which
+    * refer to it. Task splits calculated from timephased assignment data
+    * are set on this placeholder task. Tasks are delivered in file order;
+    * where no task has an ID, tasks are numbered in file order as they
+    * are read.</p>
+    *
+    * @param stream input stream
+    * @param listener listener to receive each entity
+    * @throws MPXJException
+    */
+   public void stream(InputStream stream, ProjectListener listener) throws MPXJException
+   {
+      m_streamListener = listener;
+
+      try
+      {
+         read(stream);
+      }
+
+      finally
+      {
+         m_streamListener = null;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
    @Override public ProjectFile read(InputStream stream) throws MPXJException
    {
+      ValuePool previousPool = ValuePool.setCurrent(m_valuePool);
+
       try
       {
          m_projectFile = new ProjectFile();
@@ -192,13 +260,10 @@ public final class MSPDIReader extends AbstractProjectReader
          SAXParser saxParser = factory.newSAXParser();
          XMLReader xmlReader = saxParser.getXMLReader();
 
-         if (CONTEXT == null)
-         {
-            throw CONTEXT_EXCEPTION;
-         }
+         JAXBContext context = JaxbContextRegistry.getContext(JaxbContextRegistry.MSPDI);
 
          DatatypeConverter.setParentFile(m_projectFile);
-         Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
+         Unmarshaller unmarshaller = context.createUnmarshaller();
 
          //
          // If we are matching the behaviour of MS project, then we need to
@@ -215,6 +280,19 @@ public final class MSPDIReader extends AbstractProjectReader
             });
          }
 
+         HashMap<BigInteger, ProjectCalendar> calendarMap = new HashMap<BigInteger, ProjectCalendar>();
+
+         //
+         // When streaming, each calendar, task, resource and assignment
+         // is read as soon as it has been unmarshalled.
+         //
+         StreamHandler streamHandler = null;
+         if (m_streamListener != null)
+         {
+            streamHandler = new StreamHandler(calendarMap);
+            unmarshaller.setListener(streamHandler);
+         }
+
          XMLFilter filter = new NamespaceFilter();
          filter.setParent(xmlReader);
          UnmarshallerHandler unmarshallerHandler = unmarshaller.getUnmarshallerHandler();
@@ -222,14 +300,19 @@ public final class MSPDIReader extends AbstractProjectReader
          filter.parse(new InputSource(new InputStreamReader(stream, getCharset())));
          Project project = (Project) unmarshallerHandler.getResult();
 
-         HashMap<BigInteger, ProjectCalendar> calendarMap = new HashMap<BigInteger, ProjectCalendar>();
-
-         readProjectProperties(project);
-         readProjectExtendedAttributes(project);
-         readCalendars(project, calendarMap);
-         readResources(project, calendarMap);
-         readTasks(project);
-         readAssignments(project);
+         if (streamHandler == null)
+         {
+            readProjectProperties(project);
+            readProjectExtendedAttributes(project);
+            readCalendars(project, calendarMap);
+            readResources(project, calendarMap);
+            readTasks(project);
+            readAssignments(project);
+         }
+         else
+         {
+            streamHandler.finish(project);
+         }
 
          //
          // Ensure that the unique ID counters are correct
@@ -270,6 +353,7 @@ public final class MSPDIReader extends AbstractProjectReader
 
       finally
       {
+         ValuePool.setCurrent(previousPool);
          m_projectFile = null;
       }
    }
@@ -394,6 +478,17 @@ public final class MSPDIReader extends AbstractProjectReader
          updateBaseCalendarNames(baseCalendars, map);
       }
 
+      readDefaultCalendar(map);
+   }
+
+   /**
+    * Set the default calendar for the project. The project properties
+    * hold the unique ID of the default calendar at this point.
+    *
+    * @param map Map of calendar UIDs to names
+    */
+   private void readDefaultCalendar(HashMap<BigInteger, ProjectCalendar> map)
+   {
       try
       {
          ProjectProperties properties = m_projectFile.getProjectProperties();
@@ -875,8 +970,9 @@ public final class MSPDIReader extends AbstractProjectReader
     *
     * @param xml Resource data
     * @param calendarMap Map of calendar UIDs to names
+    * @return Resource instance
     */
-   private void readResource(Project.Resources.Resource xml, HashMap<BigInteger, ProjectCalendar> calendarMap)
+   private Resource readResource(Project.Resources.Resource xml, HashMap<BigInteger, ProjectCalendar> calendarMap)
    {
       Resource mpx = m_projectFile.addResource();
 
@@ -967,6 +1063,8 @@ public final class MSPDIReader extends AbstractProjectReader
       readAvailabilityTable(mpx, xml.getAvailabilityPeriods());
 
       m_eventManager.fireResourceReadEvent(mpx);
+
+      return mpx;
    }
 
    /**
@@ -1506,9 +1604,11 @@ public final class MSPDIReader extends AbstractProjectReader
     *
     * @param currTask Current task object
     * @param link Predecessor data
+    * @return Relation instance, or null if the predecessor was not found
     */
-   private void readPredecessor(Task currTask, Project.Tasks.Task.PredecessorLink link)
+   private Relation readPredecessor(Task currTask, Project.Tasks.Task.PredecessorLink link)
    {
+      Relation relation = null;
       BigInteger uid = link.getPredecessorUID();
       if (uid != null)
       {
@@ -1545,10 +1645,12 @@ public final class MSPDIReader extends AbstractProjectReader
                }
             }
 
-            Relation relation = currTask.addPredecessor(prevTask, type, lagDuration);
+            relation = currTask.addPredecessor(prevTask, type, lagDuration);
             m_eventManager.fireRelationReadEvent(relation);
          }
       }
+
+      return relation;
    }
 
    /**
@@ -1837,35 +1939,349 @@ public final class MSPDIReader extends AbstractProjectReader
    }
 
    /**
-    * Cached context to minimise construction cost.
+    * Reads each calendar, task, resource and assignment as soon as it has
+    * been unmarshalled, hands it to the stream listener, then removes the
+    * JAXB object from its parent list so that it can be collected.
     */
-   private static JAXBContext CONTEXT;
+   private final class StreamHandler extends Unmarshaller.Listener
+   {
+      /**
+       * Constructor.
+       *
+       * @param calendarMap Map of calendar UIDs to names
+       */
+      public StreamHandler(HashMap<BigInteger, ProjectCalendar> calendarMap)
+      {
+         m_calendarMap = calendarMap;
+      }
 
-   /**
-    * Note any error occurring during context construction.
-    */
-   private static JAXBException CONTEXT_EXCEPTION;
+      /**
+       * The project properties and extended attribute definitions precede
+       * the calendars, tasks, resources and assignments, so they are read
+       * once the first of these sections is reached. The calendars are
+       * complete once any later section is reached.
+       *
+       * @param target object being unmarshalled
+       * @param parent parent object
+       */
+      @Override public void beforeUnmarshal(Object target, Object parent)
+      {
+         if (target instanceof Project.Calendars || target instanceof Project.Tasks || target instanceof Project.Resources || target instanceof Project.Assignments)
+         {
+            readHeader((Project) parent);
 
-   static
-   {
-      try
+            if (!(target instanceof Project.Calendars))
+            {
+               streamCalendars();
+            }
+         }
+      }
+
+      /**
+       * Read an entity once it has been unmarshalled.
+       *
+       * @param target object which has been unmarshalled
+       * @param parent parent object
+       */
+      @Override public void afterUnmarshal(Object target, Object parent)
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
+         if (target instanceof Project.Calendars.Calendar)
+         {
+            readCalendar((Project.Calendars.Calendar) target, m_calendarMap, m_baseCalendars);
+            ((Project.Calendars) parent).getCalendar().clear();
+         }
+
+         if (target instanceof Project.Calendars)
+         {
+            streamCalendars();
+         }
+
+         if (target instanceof Project.Tasks.Task)
+         {
+            streamTask((Project.Tasks.Task) target);
+            ((Project.Tasks) parent).getTask().clear();
+         }
+
+         if (target instanceof Project.Tasks)
+         {
+            finishTasks();
+         }
+
+         if (target instanceof Project.Resources.Resource)
+         {
+            m_streamListener.resourceRead(readResource((Project.Resources.Resource) target, m_calendarMap));
+            ((Project.Resources) parent).getResource().clear();
+         }
+
+         if (target instanceof Project.Assignments.Assignment)
+         {
+            streamAssignment((Project.Assignments.Assignment) target);
+            ((Project.Assignments) parent).getAssignment().clear();
+         }
+      }
+
+      /**
+       * Complete any processing not triggered by the sections present
+       * in the file.
+       *
+       * @param project Root node of the MSPDI file
+       */
+      public void finish(Project project)
+      {
+         readHeader(project);
+         streamCalendars();
+         finishTasks();
+      }
+
+      /**
+       * Read the project properties and extended attribute definitions.
+       *
+       * @param project Root node of the MSPDI file
+       */
+      private void readHeader(Project project)
+      {
+         if (!m_headerRead)
+         {
+            m_headerRead = true;
+            readProjectProperties(project);
+            readProjectExtendedAttributes(project);
+         }
+      }
+
+      /**
+       * Once all calendars have been read, set their base calendars and
+       * the project's default calendar, then hand them to the listener.
+       */
+      private void streamCalendars()
+      {
+         if (!m_calendarsRead)
+         {
+            m_calendarsRead = true;
+            updateBaseCalendarNames(m_baseCalendars, m_calendarMap);
+            m_baseCalendars.clear();
+            readDefaultCalendar(m_calendarMap);
+
+            for (ProjectCalendar calendar : m_projectFile.getCalendars())
+            {
+               m_streamListener.calendarRead(calendar);
+            }
+         }
+      }
+
+      /**
+       * Read a task, add it to the chain of tasks from the root to the
+       * current task, and hand it to the listener along with any relations
+       * to tasks which have already been read.
+       *
+       * @param xml Task data
+       */
+      private void streamTask(Project.Tasks.Task xml)
+      {
+         Task task = readTask(xml);
 
          //
-         // Construct the context
+         // Match the numbering applied by readTasks when no task has an ID.
          //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.mspdi.schema", MSPDIReader.class.getClassLoader());
+         if (task.getID() == null)
+         {
+            if (m_numberTasks)
+            {
+               task.setID(Integer.valueOf(m_taskCount));
+            }
+         }
+         else
+         {
+            m_numberTasks = false;
+         }
+         ++m_taskCount;
+
+         Integer uniqueID = task.getUniqueID();
+         if (uniqueID != null)
+         {
+            m_taskIDs.put(uniqueID, task.getID());
+            if (task.getCalendar() != null)
+            {
+               m_taskCalendars.put(uniqueID, task.getCalendar());
+            }
+
+            if (task.getIgnoreResourceCalendar())
+            {
+               m_ignoreResourceCalendar.add(uniqueID);
+            }
+         }
+
+         if (!task.getNull())
+         {
+            int level = NumberHelper.getInt(task.getOutlineLevel());
+            while (!m_tasks.isEmpty() && NumberHelper.getInt(m_tasks.getLast().getOutlineLevel()) >= level)
+            {
+               releaseTask(m_tasks.removeLast());
+            }
+
+            Task parent = m_tasks.isEmpty() ? null : m_tasks.getLast();
+            if (parent != null)
+            {
+               m_projectFile.getChildTasks().remove(task);
+               parent.addChildTask(task);
+            }
+
+            if (task.getWBS() == null)
+            {
+               task.generateWBS(parent);
+            }
+
+            m_tasks.addLast(task);
+         }
+
+         m_streamListener.taskRead(task);
+
+         for (Project.Tasks.Task.PredecessorLink link : xml.getPredecessorLink())
+         {
+            if (!streamPredecessor(task, link) && uniqueID != null)
+            {
+               m_relations.add(new Pair<Integer, Project.Tasks.Task.PredecessorLink>(uniqueID, link));
+            }
+         }
+
+         if (task.getNull())
+         {
+            m_projectFile.removeTask(task);
+         }
       }
 
-      catch (JAXBException ex)
+      /**
+       * Hand a relation to the listener. Where the predecessor has been
+       * released a placeholder task is used in its place.
+       *
+       * @param task successor task
+       * @param link predecessor data
+       * @return false if the predecessor has not yet been read
+       */
+      private boolean streamPredecessor(Task task, Project.Tasks.Task.PredecessorLink link)
+      {
+         BigInteger uid = link.getPredecessorUID();
+         if (uid != null)
+         {
+            Integer predecessorUniqueID = Integer.valueOf(uid.intValue());
+            Task placeholder = null;
+            if (m_projectFile.getTaskByUniqueID(predecessorUniqueID) == null)
+            {
+               placeholder = createPlaceholderTask(predecessorUniqueID);
+               if (placeholder == null)
+               {
+                  return false;
+               }
+            }
+
+            Relation relation = readPredecessor(task, link);
+            if (relation != null)
+            {
+               m_streamListener.relationRead(relation);
+            }
+
+            if (placeholder != null)
+            {
+               m_projectFile.removeTask(placeholder);
+            }
+         }
+
+         return true;
+      }
+
+      /**
+       * Once all tasks have been read, release the remaining tasks and
+       * hand over the relations whose predecessors appear later in the file.
+       */
+      private void finishTasks()
+      {
+         while (!m_tasks.isEmpty())
+         {
+            releaseTask(m_tasks.removeLast());
+         }
+
+         for (Pair<Integer, Project.Tasks.Task.PredecessorLink> pair : m_relations)
+         {
+            Task task = createPlaceholderTask(pair.getFirst());
+            streamPredecessor(task, pair.getSecond());
+            m_projectFile.removeTask(task);
+         }
+         m_relations.clear();
+      }
+
+      /**
+       * Read an assignment using a placeholder for its task, and hand it
+       * to the listener.
+       *
+       * @param xml Assignment data
+       */
+      private void streamAssignment(Project.Assignments.Assignment xml)
       {
-         CONTEXT_EXCEPTION = ex;
-         CONTEXT = null;
+         BigInteger taskUID = xml.getTaskUID();
+         Task task = taskUID == null ? null : createPlaceholderTask(Integer.valueOf(taskUID.intValue()));
+         if (task != null)
+         {
+            readAssignment(xml, m_splitFactory, m_normaliser);
+            for (ResourceAssignment assignment : task.getResourceAssignments())
+            {
+               m_streamListener.assignmentRead(assignment);
+            }
+            m_projectFile.removeTask(task);
+         }
       }
+
+      /**
+       * Remove a task from the project once it has been handed to the
+       * listener. Removing a child task resets the summary flag of its
+       * parent, so we preserve the original value.
+       *
+       * @param task task to release
+       */
+      private void releaseTask(Task task)
+      {
+         Task parent = task.getParentTask();
+         boolean summary = parent != null && parent.getSummary();
+         m_projectFile.removeTask(task);
+         if (parent != null)
+         {
+            parent.setSummary(summary);
+         }
+      }
+
+      /**
+       * Create a placeholder for a task which has been released, carrying
+       * the attributes retained when the task was read.
+       *
+       * @param uniqueID task unique ID
+       * @return placeholder task, or null if the task has not been read
+       */
+      private Task createPlaceholderTask(Integer uniqueID)
+      {
+         if (!m_taskIDs.containsKey(uniqueID))
+         {
+            return null;
+         }
+
+         Task task = m_projectFile.addTask();
+         task.setID(m_taskIDs.get(uniqueID));
+         task.setUniqueID(uniqueID);
+         task.setCalendar(m_taskCalendars.get(uniqueID));
+         task.setIgnoreResourceCalendar(m_ignoreResourceCalendar.contains(uniqueID));
+         return task;
+      }
+
+      private final HashMap<BigInteger, ProjectCalendar> m_calendarMap;
+      private final List<Pair<ProjectCalendar, BigInteger>> m_baseCalendars = new LinkedList<Pair<ProjectCalendar, BigInteger>>();
+      private final LinkedList<Task> m_tasks = new LinkedList<Task>();
+      private final Map<Integer, Integer> m_taskIDs = new HashMap<Integer, Integer>();
+      private final Map<Integer, ProjectCalendar> m_taskCalendars = new HashMap<Integer, ProjectCalendar>();
+      private final Set<Integer> m_ignoreResourceCalendar = new HashSet<Integer>();
+      private final List<Pair<Integer, Project.Tasks.Task.PredecessorLink>> m_relations = new LinkedList<Pair<Integer, Project.Tasks.Task.PredecessorLink>>();
+      private final SplitTaskFactory m_splitFactory = new SplitTaskFactory();
+      private final TimephasedWorkNormaliser m_normaliser = new MSPDITimephasedWorkNormaliser();
+      private boolean m_headerRead;
+      private boolean m_calendarsRead;
+      private boolean m_numberTasks = true;
+      private int m_taskCount;
    }
 
    private boolean m_compatibleInput = true;
@@ -1874,6 +2290,8 @@ public final class MSPDIReader extends AbstractProjectReader
    private ProjectFile m_projectFile;
    private EventManager m_eventManager;
    private List<ProjectListener> m_projectListeners;
+   private ValuePool m_valuePool;
+   private ProjectListener m_streamListener;
 
    private static final RecurrenceType[] RECURRENCE_TYPES =
    {
@@ -29,6 +29,8 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.UUID;
 
+import net.sf.mpxj.common.ValuePool;
+
 /**
  * This class contains methods used to perform the datatype conversions
  * required to read and write PM files.
@@ -119,7 +121,7 @@ public final class DatatypeConverter
          }
       }
 
-      return (result);
+      return ValuePool.getCurrent().intern(result);
    }
 
    /**
@@ -154,7 +156,7 @@ public final class DatatypeConverter
             // Ignore this and return null
          }
       }
-      return result;
+      return ValuePool.getCurrent().intern(result);
    }
 
    private static final ThreadLocal<DateFormat> DATE_FORMAT = new ThreadLocal<DateFormat>()
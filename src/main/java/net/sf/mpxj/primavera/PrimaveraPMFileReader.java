@@ -80,7 +80,9 @@ import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.JaxbContextRegistry;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.ValuePool;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.primavera.schema.APIBusinessObjects;
 import net.sf.mpxj.primavera.schema.ActivityCodeType;
@@ -121,11 +123,76 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       m_projectListeners.add(listener);
    }
 
+   /**
+    * Set a pool used to share a single instance between repeated
+    * date values read from the file.
+    *
+    * @param pool ValuePool instance, or null to disable pooling
+    */
+   public void setValuePool(ValuePool pool)
+   {
+      m_valuePool = pool;
+   }
+
+   /**
+    * Retrieve the pool used to share repeated values.
+    *
+    * @return ValuePool instance or null
+    */
+   public ValuePool getValuePool()
+   {
+      return m_valuePool;
+   }
+
+   /**
+    * Read a PMXML file, handing each entity to the listener as soon as it
+    * is complete rather than returning a ProjectFile instance. Each
+    * element of the file is unmarshalled and released in turn, so the
+    * complete JAXB object tree is never held in memory. Calendars are
+    * delivered once all calendars have been read, followed by resources
+    * and any calendars created for them, then the activities, assignments
+    * and relations of the first project which is not external, in file
+    * order. The WBS summary tasks are delivered last, once their dates
+    * have been rolled up from their child tasks. The listener should not
+    * retain references to the entities it receives.
+    *
+    * <p>Calendars, resources and WBS summary tasks are retained in the
+    * backing ProjectFile as other entities refer to them. Each activity is
+    * released once it has been delivered: only its unique ID is retained,
+    * which is used to create the placeholder task passed with assignments
+    * and relations which refer to it. Task IDs are not set, as they depend
+    * on the order of the complete task hierarchy, and the activity cost
+    * totals calculated from its assignments are set on the placeholder
+    * task rather than the activity. Elements which are not read by this
+    * class are still unmarshalled, and remain attached to their parent
+    * element.</p>
+    *
+    * @param stream input stream
+    * @param listener listener to receive each entity
+    * @throws MPXJException
+    */
+   public void stream(InputStream stream, ProjectListener listener) throws MPXJException
+   {
+      m_streamListener = listener;
+
+      try
+      {
+         read(stream);
+      }
+
+      finally
+      {
+         m_streamListener = null;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
    @Override public ProjectFile read(InputStream stream) throws MPXJException
    {
+      ValuePool previousPool = ValuePool.setCurrent(m_valuePool);
+
       try
       {
          m_projectFile = new ProjectFile();
@@ -155,12 +222,21 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          SAXParser saxParser = factory.newSAXParser();
          XMLReader xmlReader = saxParser.getXMLReader();
 
-         if (CONTEXT == null)
+         JAXBContext context = JaxbContextRegistry.getContext(JaxbContextRegistry.PRIMAVERA);
+
+         Unmarshaller unmarshaller = context.createUnmarshaller();
+
+         //
+         // When streaming, each calendar, resource, activity, assignment
+         // and relation is read as soon as it has been unmarshalled.
+         //
+         StreamHandler streamHandler = null;
+         if (m_streamListener != null)
          {
-            throw CONTEXT_EXCEPTION;
+            streamHandler = new StreamHandler();
+            unmarshaller.setListener(streamHandler);
          }
 
-         Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
          XMLFilter filter = new NamespaceFilter();
          filter.setParent(xmlReader);
          UnmarshallerHandler unmarshallerHandler = unmarshaller.getUnmarshallerHandler();
@@ -168,31 +244,38 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          filter.parse(new InputSource(stream));
          APIBusinessObjects apibo = (APIBusinessObjects) unmarshallerHandler.getResult();
 
-         List<ProjectType> projects = apibo.getProject();
-         ProjectType project = null;
-         for (ProjectType currentProject : projects)
+         if (streamHandler == null)
          {
-            if (!BooleanHelper.getBoolean(currentProject.isExternal()))
+            List<ProjectType> projects = apibo.getProject();
+            ProjectType project = null;
+            for (ProjectType currentProject : projects)
             {
-               project = currentProject;
-               break;
+               if (!BooleanHelper.getBoolean(currentProject.isExternal()))
+               {
+                  project = currentProject;
+                  break;
+               }
             }
-         }
 
-         if (project == null)
+            if (project == null)
+            {
+               throw new MPXJException("Unable to locate any non-external projects in a list of " + projects.size() + " projects");
+            }
+
+            processProjectUDFs(apibo);
+            processProjectProperties(apibo, project);
+            processActivityCodes(apibo, project);
+            processCalendars(apibo);
+            processResources(apibo);
+            processTasks(project);
+            processPredecessors(project);
+            processAssignments(project);
+         }
+         else
          {
-            throw new MPXJException("Unable to locate any non-external projects in a list of " + projects.size() + " projects");
+            streamHandler.finish(apibo);
          }
 
-         processProjectUDFs(apibo);
-         processProjectProperties(apibo, project);
-         processActivityCodes(apibo, project);
-         processCalendars(apibo);
-         processResources(apibo);
-         processTasks(project);
-         processPredecessors(project);
-         processAssignments(project);
-
          //
          // Ensure that the unique ID counters are correct
          //
@@ -223,6 +306,7 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
 
       finally
       {
+         ValuePool.setCurrent(previousPool);
          m_projectFile = null;
          m_clashMap.clear();
          m_activityCodeMap.clear();
@@ -429,6 +513,17 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       //
       // Second pass: create calendar hierarchy
       //
+      updateBaseCalendars(baseCalendarMap);
+   }
+
+   /**
+    * Once all calendars have been read, link derived calendars
+    * to their base calendars.
+    *
+    * @param baseCalendarMap map of calendars to base calendar unique IDs
+    */
+   private void updateBaseCalendars(Map<ProjectCalendar, Integer> baseCalendarMap)
+   {
       for (Map.Entry<ProjectCalendar, Integer> entry : baseCalendarMap.entrySet())
       {
          ProjectCalendar baseCalendar = m_projectFile.getCalendarByUniqueID(entry.getValue());
@@ -436,7 +531,7 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          {
             entry.getKey().setParent(baseCalendar);
          }
-      }      
+      }
    }
 
    /**
@@ -512,67 +607,80 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       List<ResourceType> resources = apibo.getResource();
       for (ResourceType xml : resources)
       {
-         Resource resource = m_projectFile.addResource();
-         resource.setUniqueID(xml.getObjectId());
-         resource.setName(xml.getName());
-         resource.setCode(xml.getEmployeeId());
-         resource.setEmailAddress(xml.getEmailAddress());
-         resource.setGUID(DatatypeConverter.parseUUID(xml.getGUID()));
-         resource.setNotes(xml.getResourceNotes());
-         resource.setCreationDate(xml.getCreateDate());
-         resource.setType(RESOURCE_TYPE_MAP.get(xml.getResourceType()));
-         resource.setMaxUnits(reversePercentage(xml.getMaxUnitsPerTime()));
-         resource.setParentID(xml.getParentObjectId());
-
-         Integer calendarID = xml.getCalendarObjectId();
-         if (calendarID != null)
+         processResource(xml);
+      }
+   }
+
+   /**
+    * Process an individual resource.
+    *
+    * @param xml resource data
+    * @return Resource instance
+    */
+   private Resource processResource(ResourceType xml)
+   {
+      Resource resource = m_projectFile.addResource();
+      resource.setUniqueID(xml.getObjectId());
+      resource.setName(xml.getName());
+      resource.setCode(xml.getEmployeeId());
+      resource.setEmailAddress(xml.getEmailAddress());
+      resource.setGUID(DatatypeConverter.parseUUID(xml.getGUID()));
+      resource.setNotes(xml.getResourceNotes());
+      resource.setCreationDate(xml.getCreateDate());
+      resource.setType(RESOURCE_TYPE_MAP.get(xml.getResourceType()));
+      resource.setMaxUnits(reversePercentage(xml.getMaxUnitsPerTime()));
+      resource.setParentID(xml.getParentObjectId());
+
+      Integer calendarID = xml.getCalendarObjectId();
+      if (calendarID != null)
+      {
+         ProjectCalendar calendar = m_projectFile.getCalendarByUniqueID(calendarID);
+         if (calendar != null)
          {
-            ProjectCalendar calendar = m_projectFile.getCalendarByUniqueID(calendarID);
-            if (calendar != null)
+            if (calendar.isDerived())
             {
-               if (calendar.isDerived())
+               //
+               // Primavera seems to allow a calendar to be shared between resources
+               // whereas in the MS Project model there is a one-to-one
+               // relationship. If we find a calendar is shared between resources,
+               // take a copy of it so each resource has its own copy.
+               //
+               if (calendar.getResource() == null)
                {
-                  //
-                  // Primavera seems to allow a calendar to be shared between resources
-                  // whereas in the MS Project model there is a one-to-one
-                  // relationship. If we find a calendar is shared between resources,
-                  // take a copy of it so each resource has its own copy.
-                  //
-                  if (calendar.getResource() == null)
-                  {
-                     resource.setResourceCalendar(calendar);
-                  }
-                  else
-                  {
-                     ProjectCalendar copy = m_projectFile.addCalendar();
-                     copy.copy(calendar);
-                     resource.setResourceCalendar(copy);
-                  }
+                  resource.setResourceCalendar(calendar);
                }
                else
                {
-                  //
-                  // If the resource is linked to a base calendar, derive
-                  // a default calendar from the base calendar.
-                  //
-                  ProjectCalendar resourceCalendar = m_projectFile.addCalendar();
-                  resourceCalendar.setParent(calendar);
-                  resourceCalendar.setWorkingDay(Day.MONDAY, DayType.DEFAULT);
-                  resourceCalendar.setWorkingDay(Day.TUESDAY, DayType.DEFAULT);
-                  resourceCalendar.setWorkingDay(Day.WEDNESDAY, DayType.DEFAULT);
-                  resourceCalendar.setWorkingDay(Day.THURSDAY, DayType.DEFAULT);
-                  resourceCalendar.setWorkingDay(Day.FRIDAY, DayType.DEFAULT);
-                  resourceCalendar.setWorkingDay(Day.SATURDAY, DayType.DEFAULT);
-                  resourceCalendar.setWorkingDay(Day.SUNDAY, DayType.DEFAULT);
-                  resource.setResourceCalendar(resourceCalendar);
+                  ProjectCalendar copy = m_projectFile.addCalendar();
+                  copy.copy(calendar);
+                  resource.setResourceCalendar(copy);
                }
             }
+            else
+            {
+               //
+               // If the resource is linked to a base calendar, derive
+               // a default calendar from the base calendar.
+               //
+               ProjectCalendar resourceCalendar = m_projectFile.addCalendar();
+               resourceCalendar.setParent(calendar);
+               resourceCalendar.setWorkingDay(Day.MONDAY, DayType.DEFAULT);
+               resourceCalendar.setWorkingDay(Day.TUESDAY, DayType.DEFAULT);
+               resourceCalendar.setWorkingDay(Day.WEDNESDAY, DayType.DEFAULT);
+               resourceCalendar.setWorkingDay(Day.THURSDAY, DayType.DEFAULT);
+               resourceCalendar.setWorkingDay(Day.FRIDAY, DayType.DEFAULT);
+               resourceCalendar.setWorkingDay(Day.SATURDAY, DayType.DEFAULT);
+               resourceCalendar.setWorkingDay(Day.SUNDAY, DayType.DEFAULT);
+               resource.setResourceCalendar(resourceCalendar);
+            }
          }
+      }
 
-         readUDFTypes(resource, xml.getUDF());
+      readUDFTypes(resource, xml.getUDF());
 
-         m_eventManager.fireResourceReadEvent(resource);
-      }
+      m_eventManager.fireResourceReadEvent(resource);
+
+      return resource;
    }
 
    /**
@@ -582,9 +690,31 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
     */
    private void processTasks(ProjectType project)
    {
-      List<WBSType> wbs = project.getWBS();
-      List<ActivityType> tasks = project.getActivity();
       Set<Integer> uniqueIDs = new HashSet<Integer>();
+      Set<Task> wbsTasks = processWBS(project.getWBS(), uniqueIDs);
+
+      m_clashMap.clear();
+      for (ActivityType row : project.getActivity())
+      {
+         processActivity(row, uniqueIDs);
+      }
+
+      new ActivitySorter(TaskField.TEXT1, wbsTasks).sort(m_projectFile);
+
+      updateStructure();
+      updateDates();
+   }
+
+   /**
+    * Read WBS entries, create a summary task for each entry,
+    * and build the hierarchy of summary tasks.
+    *
+    * @param wbs WBS entries
+    * @param uniqueIDs populated with the unique ID of each summary task
+    * @return summary tasks
+    */
+   private Set<Task> processWBS(List<WBSType> wbs, Set<Integer> uniqueIDs)
+   {
       Set<Task> wbsTasks = new HashSet<Task>();
 
       //
@@ -632,149 +762,153 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          }
       }
 
-      //
-      // Read Task entries and create tasks
-      //
-      int nextID = 1;
-      m_clashMap.clear();
-      for (ActivityType row : tasks)
+      return wbsTasks;
+   }
+
+   /**
+    * Process an individual activity. Where the activity's unique ID
+    * clashes with the unique ID of a WBS entry or an earlier activity,
+    * a new unique ID is allocated.
+    *
+    * @param row activity data
+    * @param uniqueIDs unique IDs already in use
+    * @return Task instance
+    */
+   private Task processActivity(ActivityType row, Set<Integer> uniqueIDs)
+   {
+      Integer uniqueID = row.getObjectId();
+      if (uniqueIDs.contains(uniqueID))
       {
-         Integer uniqueID = row.getObjectId();
-         if (uniqueIDs.contains(uniqueID))
+         int nextID = 1;
+         while (uniqueIDs.contains(Integer.valueOf(nextID)))
          {
-            while (uniqueIDs.contains(Integer.valueOf(nextID)))
-            {
-               ++nextID;
-            }
-            Integer newUniqueID = Integer.valueOf(nextID);
-            m_clashMap.put(uniqueID, newUniqueID);
-            uniqueID = newUniqueID;
+            ++nextID;
          }
-         uniqueIDs.add(uniqueID);
+         Integer newUniqueID = Integer.valueOf(nextID);
+         m_clashMap.put(uniqueID, newUniqueID);
+         uniqueID = newUniqueID;
+      }
+      uniqueIDs.add(uniqueID);
 
-         Task task;
-         Integer parentTaskID = row.getWBSObjectId();
-         Task parentTask = m_projectFile.getTaskByUniqueID(parentTaskID);
-         if (parentTask == null)
-         {
-            task = m_projectFile.addTask();
-         }
-         else
-         {
-            task = parentTask.addTask();
-         }
+      Task task;
+      Integer parentTaskID = row.getWBSObjectId();
+      Task parentTask = m_projectFile.getTaskByUniqueID(parentTaskID);
+      if (parentTask == null)
+      {
+         task = m_projectFile.addTask();
+      }
+      else
+      {
+         task = parentTask.addTask();
+      }
 
-         task.setUniqueID(uniqueID);
-         task.setGUID(DatatypeConverter.parseUUID(row.getGUID()));
-         task.setName(row.getName());
-         task.setPercentageComplete(reversePercentage(row.getPercentComplete()));
-         task.setRemainingDuration(getDuration(row.getRemainingDuration()));
-         task.setActualWork(getDuration(zeroIsNull(row.getActualDuration())));
-         task.setRemainingWork(getDuration(row.getRemainingTotalUnits()));
-         task.setBaselineDuration(getDuration(row.getPlannedDuration()));
-         task.setActualDuration(getDuration(row.getActualDuration()));
-         task.setDuration(getDuration(row.getAtCompletionDuration()));
-
-         // ActualCost and RemainingCost will be set when we resolve the resource assignments
-         task.setActualCost(NumberHelper.DOUBLE_ZERO);
-         task.setRemainingCost(NumberHelper.DOUBLE_ZERO);
-         task.setBaselineCost(NumberHelper.DOUBLE_ZERO);
-         task.setConstraintDate(row.getPrimaryConstraintDate());
-         task.setConstraintType(CONSTRAINT_TYPE_MAP.get(row.getPrimaryConstraintType()));         
-         task.setSecondaryConstraintDate(row.getSecondaryConstraintDate());
-         task.setSecondaryConstraintType(CONSTRAINT_TYPE_MAP.get(row.getSecondaryConstraintType()));
-         task.setActualStart(row.getActualStartDate());
-         task.setActualFinish(row.getActualFinishDate());
-         task.setLateStart(row.getRemainingLateStartDate());
-         task.setLateFinish(row.getRemainingLateFinishDate());
-         task.setEarlyStart(row.getRemainingEarlyStartDate());
-         task.setEarlyFinish(row.getRemainingEarlyFinishDate());
-         task.setBaselineStart(row.getPlannedStartDate());
-         task.setBaselineFinish(row.getPlannedFinishDate());
-
-         task.setPriority(PRIORITY_MAP.get(row.getLevelingPriority()));
-         task.setCreateDate(row.getCreateDate());
-         task.setText(1, row.getId());
-         task.setText(2, row.getType());
-         task.setText(3, row.getStatus());
-         task.setNumber(1, row.getPrimaryResourceObjectId());
-      
-         task.setMilestone(BooleanHelper.getBoolean(MILESTONE_MAP.get(row.getType())));
-         task.setCritical(task.getEarlyStart() != null && task.getLateStart() != null && !(task.getLateStart().compareTo(task.getEarlyStart()) > 0));
+      task.setUniqueID(uniqueID);
+      task.setGUID(DatatypeConverter.parseUUID(row.getGUID()));
+      task.setName(row.getName());
+      task.setPercentageComplete(reversePercentage(row.getPercentComplete()));
+      task.setRemainingDuration(getDuration(row.getRemainingDuration()));
+      task.setActualWork(getDuration(zeroIsNull(row.getActualDuration())));
+      task.setRemainingWork(getDuration(row.getRemainingTotalUnits()));
+      task.setBaselineDuration(getDuration(row.getPlannedDuration()));
+      task.setActualDuration(getDuration(row.getActualDuration()));
+      task.setDuration(getDuration(row.getAtCompletionDuration()));
+
+      // ActualCost and RemainingCost will be set when we resolve the resource assignments
+      task.setActualCost(NumberHelper.DOUBLE_ZERO);
+      task.setRemainingCost(NumberHelper.DOUBLE_ZERO);
+      task.setBaselineCost(NumberHelper.DOUBLE_ZERO);
+      task.setConstraintDate(row.getPrimaryConstraintDate());
+      task.setConstraintType(CONSTRAINT_TYPE_MAP.get(row.getPrimaryConstraintType()));         
+      task.setSecondaryConstraintDate(row.getSecondaryConstraintDate());
+      task.setSecondaryConstraintType(CONSTRAINT_TYPE_MAP.get(row.getSecondaryConstraintType()));
+      task.setActualStart(row.getActualStartDate());
+      task.setActualFinish(row.getActualFinishDate());
+      task.setLateStart(row.getRemainingLateStartDate());
+      task.setLateFinish(row.getRemainingLateFinishDate());
+      task.setEarlyStart(row.getRemainingEarlyStartDate());
+      task.setEarlyFinish(row.getRemainingEarlyFinishDate());
+      task.setBaselineStart(row.getPlannedStartDate());
+      task.setBaselineFinish(row.getPlannedFinishDate());
+
+      task.setPriority(PRIORITY_MAP.get(row.getLevelingPriority()));
+      task.setCreateDate(row.getCreateDate());
+      task.setText(1, row.getId());
+      task.setText(2, row.getType());
+      task.setText(3, row.getStatus());
+      task.setNumber(1, row.getPrimaryResourceObjectId());
+   
+      task.setMilestone(BooleanHelper.getBoolean(MILESTONE_MAP.get(row.getType())));
+      task.setCritical(task.getEarlyStart() != null && task.getLateStart() != null && !(task.getLateStart().compareTo(task.getEarlyStart()) > 0));
 
-         if (parentTask != null)
-         {
-            task.setWBS(parentTask.getWBS());
-         }
+      if (parentTask != null)
+      {
+         task.setWBS(parentTask.getWBS());
+      }
+
+      Integer calId = row.getCalendarObjectId();
+      ProjectCalendar cal = m_projectFile.getCalendarByUniqueID(calId);
+      task.setCalendar(cal);
 
-         Integer calId = row.getCalendarObjectId();
-         ProjectCalendar cal = m_projectFile.getCalendarByUniqueID(calId);
-         task.setCalendar(cal);
+      task.setStart(row.getStartDate());
+      task.setFinish(row.getFinishDate());
 
-         task.setStart(row.getStartDate());
-         task.setFinish(row.getFinishDate());
+      populateField(task, TaskField.START, TaskField.START, TaskField.ACTUAL_START, TaskField.BASELINE_START);
+      populateField(task, TaskField.FINISH, TaskField.FINISH, TaskField.ACTUAL_FINISH);
+      populateField(task, TaskField.WORK, TaskField.ACTUAL_WORK, TaskField.BASELINE_WORK);
 
-         populateField(task, TaskField.START, TaskField.START, TaskField.ACTUAL_START, TaskField.BASELINE_START);
-         populateField(task, TaskField.FINISH, TaskField.FINISH, TaskField.ACTUAL_FINISH);
-         populateField(task, TaskField.WORK, TaskField.ACTUAL_WORK, TaskField.BASELINE_WORK);
+      //
+      // We've tried the finish and actual finish fields... but we still have null.
+      // P6 itself doesn't export PMXML like this.
+      // The sample I have that requires this code appears to have been been generated by Synchro.
+      //
+      if (task.getFinish() == null)
+      {
+         //
+         // Find the remaining duration, set it to null if it is zero
+         //
+         Duration duration = task.getRemainingDuration();
+         if (duration != null && duration.getDuration() == 0)
+         {
+            duration = null;
+         }
 
          //
-         // We've tried the finish and actual finish fields... but we still have null.
-         // P6 itself doesn't export PMXML like this.
-         // The sample I have that requires this code appears to have been been generated by Synchro.
+         // If the task hasn't started, or we don't have a usable duration
+         // let's just use the baseline finish.
          //
-         if (task.getFinish() == null)
+         if (task.getActualStart() == null || duration == null)
+         {
+            task.setFinish(task.getBaselineFinish());
+         }
+         else
          {
             //
-            // Find the remaining duration, set it to null if it is zero
+            // The task has started, let's calculate the finish date using the remaining duration
+            // and the "restart" date, which we've put in the baseline start date.
             //
-            Duration duration = task.getRemainingDuration();
-            if (duration != null && duration.getDuration() == 0)
-            {
-               duration = null;
-            }
+            ProjectCalendar calendar = task.getEffectiveCalendar();
+            Date finish = calendar.getDate(task.getBaselineStart(), duration, false);
 
             //
-            // If the task hasn't started, or we don't have a usable duration
-            // let's just use the baseline finish.
+            // Deal with an oddity where the finish date shows up as the
+            // start of work date for the next working day. If we can identify this,
+            // wind the date back to the end of the previous working day.
             //
-            if (task.getActualStart() == null || duration == null)
+            Date nextWorkStart = calendar.getNextWorkStart(finish);
+            if (DateHelper.compare(finish, nextWorkStart) == 0)
             {
-               task.setFinish(task.getBaselineFinish());
-            }
-            else
-            {
-               //
-               // The task has started, let's calculate the finish date using the remaining duration
-               // and the "restart" date, which we've put in the baseline start date.
-               //
-               ProjectCalendar calendar = task.getEffectiveCalendar();
-               Date finish = calendar.getDate(task.getBaselineStart(), duration, false);
-
-               //
-               // Deal with an oddity where the finish date shows up as the
-               // start of work date for the next working day. If we can identify this,
-               // wind the date back to the end of the previous working day.
-               //
-               Date nextWorkStart = calendar.getNextWorkStart(finish);
-               if (DateHelper.compare(finish, nextWorkStart) == 0)
-               {
-                  finish = calendar.getPreviousWorkFinish(finish);
-               }
-               task.setFinish(finish);
+               finish = calendar.getPreviousWorkFinish(finish);
             }
+            task.setFinish(finish);
          }
-
-         readUDFTypes(task, row.getUDF());
-         readActivityCodes(task, row.getCode());
-
-         m_eventManager.fireTaskReadEvent(task);
       }
 
-      new ActivitySorter(TaskField.TEXT1, wbsTasks).sort(m_projectFile);
+      readUDFTypes(task, row.getUDF());
+      readActivityCodes(task, row.getCode());
 
-      updateStructure();
-      updateDates();
+      m_eventManager.fireTaskReadEvent(task);
+
+      return task;
    }
 
    /**
@@ -801,100 +935,83 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
    {
       if (parentTask.hasChildTasks())
       {
-         int finished = 0;
-         Date actualStartDate = parentTask.getActualStart();
-         Date actualFinishDate = parentTask.getActualFinish();
-         Date earlyStartDate = parentTask.getEarlyStart();
-         Date earlyFinishDate = parentTask.getEarlyFinish();
-         Date lateStartDate = parentTask.getLateStart();
-         Date lateFinishDate = parentTask.getLateFinish();
-         Date baselineStartDate = parentTask.getBaselineStart();
-         Date baselineFinishDate = parentTask.getBaselineFinish();
-         Date remainingEarlyStartDate = parentTask.getRemainingEarlyStart();
-         Date remainingEarlyFinishDate = parentTask.getRemainingEarlyFinish();
-
+         SummaryDates dates = new SummaryDates(parentTask);
          for (Task task : parentTask.getChildTasks())
          {
             updateDates(task);
-
-            // the child tasks can have null dates (e.g. for nested wbs elements with no task children) so we
-            // still must protect against some children having null dates
-
-            actualStartDate = DateHelper.min(actualStartDate, task.getActualStart());
-            actualFinishDate = DateHelper.max(actualFinishDate, task.getActualFinish());
-            earlyStartDate = DateHelper.min(earlyStartDate, task.getEarlyStart());
-            earlyFinishDate = DateHelper.max(earlyFinishDate, task.getEarlyFinish());
-            remainingEarlyStartDate = DateHelper.min(remainingEarlyStartDate, task.getRemainingEarlyStart());
-            remainingEarlyFinishDate = DateHelper.max(remainingEarlyFinishDate, task.getRemainingEarlyFinish());
-            lateStartDate = DateHelper.min(lateStartDate, task.getLateStart());
-            lateFinishDate = DateHelper.max(lateFinishDate, task.getLateFinish());
-            baselineStartDate = DateHelper.min(baselineStartDate, task.getBaselineStart());
-            baselineFinishDate = DateHelper.max(baselineFinishDate, task.getBaselineFinish());
-
-            if (task.getActualFinish() != null)
-            {
-               ++finished;
-            }
+            dates.add(task);
          }
+         updateDates(parentTask, dates);
+      }
+   }
 
-         parentTask.setActualStart(actualStartDate);
-         parentTask.setEarlyStart(earlyStartDate);
-         parentTask.setEarlyFinish(earlyFinishDate);
-         parentTask.setRemainingEarlyStart(remainingEarlyStartDate);
-         parentTask.setRemainingEarlyFinish(remainingEarlyFinishDate);
-         parentTask.setLateStart(lateStartDate);
-         parentTask.setLateFinish(lateFinishDate);
-         parentTask.setBaselineStart(baselineStartDate);
-         parentTask.setBaselineFinish(baselineFinishDate);
+   /**
+    * Update a summary task using the dates collected from its child tasks.
+    *
+    * @param parentTask parent task
+    * @param dates dates collected from the child tasks
+    */
+   private void updateDates(Task parentTask, SummaryDates dates)
+   {
+      parentTask.setActualStart(dates.m_actualStart);
+      parentTask.setEarlyStart(dates.m_earlyStart);
+      parentTask.setEarlyFinish(dates.m_earlyFinish);
+      parentTask.setRemainingEarlyStart(dates.m_remainingEarlyStart);
+      parentTask.setRemainingEarlyFinish(dates.m_remainingEarlyFinish);
+      parentTask.setLateStart(dates.m_lateStart);
+      parentTask.setLateFinish(dates.m_lateFinish);
+      parentTask.setBaselineStart(dates.m_baselineStart);
+      parentTask.setBaselineFinish(dates.m_baselineFinish);
 
-         //
-         // Only if all child tasks have actual finish dates do we
-         // set the actual finish date on the parent task.
-         //
-         if (finished == parentTask.getChildTasks().size())
-         {
-            parentTask.setActualFinish(actualFinishDate);
-         }
+      //
+      // Only if all child tasks have actual finish dates do we
+      // set the actual finish date on the parent task.
+      //
+      if (dates.m_finished == dates.m_count)
+      {
+         parentTask.setActualFinish(dates.m_actualFinish);
+      }
 
-         Duration baselineDuration = null;
-         if (baselineStartDate != null && baselineFinishDate != null)
-         {
-            baselineDuration = m_projectFile.getDefaultCalendar().getWork(baselineStartDate, baselineFinishDate, TimeUnit.HOURS);
-            parentTask.setBaselineDuration(baselineDuration);
-         }
+      Date baselineStartDate = dates.m_baselineStart;
+      Date baselineFinishDate = dates.m_baselineFinish;
+      Duration baselineDuration = null;
+      if (baselineStartDate != null && baselineFinishDate != null)
+      {
+         baselineDuration = m_projectFile.getDefaultCalendar().getWork(baselineStartDate, baselineFinishDate, TimeUnit.HOURS);
+         parentTask.setBaselineDuration(baselineDuration);
+      }
 
-         Duration remainingDuration = null;
-         if (parentTask.getActualFinish() == null)
+      Duration remainingDuration = null;
+      if (parentTask.getActualFinish() == null)
+      {
+         Date startDate = parentTask.getEarlyStart();
+         if (startDate == null)
          {
-            Date startDate = parentTask.getEarlyStart();
-            if (startDate == null)
-            {
-               startDate = baselineStartDate;
-            }
-
-            Date finishDate = parentTask.getEarlyFinish();
-            if (finishDate == null)
-            {
-               finishDate = baselineFinishDate;
-            }
-
-            if (startDate != null && finishDate != null)
-            {
-               remainingDuration = m_projectFile.getDefaultCalendar().getWork(startDate, finishDate, TimeUnit.HOURS);
-            }
+            startDate = baselineStartDate;
          }
-         else
+
+         Date finishDate = parentTask.getEarlyFinish();
+         if (finishDate == null)
          {
-            remainingDuration = Duration.getInstance(0, TimeUnit.HOURS);
+            finishDate = baselineFinishDate;
          }
-         parentTask.setRemainingDuration(remainingDuration);
 
-         if (baselineDuration != null && remainingDuration != null && baselineDuration.getDuration() != 0)
+         if (startDate != null && finishDate != null)
          {
-            double durationPercentComplete = ((baselineDuration.getDuration() - remainingDuration.getDuration()) / baselineDuration.getDuration()) * 100.0;
-            parentTask.setPercentageComplete(Double.valueOf(durationPercentComplete));
+            remainingDuration = m_projectFile.getDefaultCalendar().getWork(startDate, finishDate, TimeUnit.HOURS);
          }
       }
+      else
+      {
+         remainingDuration = Duration.getInstance(0, TimeUnit.HOURS);
+      }
+      parentTask.setRemainingDuration(remainingDuration);
+
+      if (baselineDuration != null && remainingDuration != null && baselineDuration.getDuration() != 0)
+      {
+         double durationPercentComplete = ((baselineDuration.getDuration() - remainingDuration.getDuration()) / baselineDuration.getDuration()) * 100.0;
+         parentTask.setPercentageComplete(Double.valueOf(durationPercentComplete));
+      }
    }
 
    /**
@@ -961,18 +1078,31 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
    {
       for (RelationshipType row : project.getRelationship())
       {
+         processPredecessor(row);
+      }
+   }
 
-         Task currentTask = m_projectFile.getTaskByUniqueID(mapTaskID(row.getSuccessorActivityObjectId()));
-         Task predecessorTask = m_projectFile.getTaskByUniqueID(mapTaskID(row.getPredecessorActivityObjectId()));
-         if (currentTask != null && predecessorTask != null)
-         {
-            RelationType type = RELATION_TYPE_MAP.get(row.getType());
-            Duration lag = getDuration(row.getLag());
-            Relation relation = currentTask.addPredecessor(predecessorTask, type, lag);
-            relation.setUniqueID(row.getObjectId());
-            m_eventManager.fireRelationReadEvent(relation);
-         }
+   /**
+    * Process an individual predecessor.
+    *
+    * @param row relationship data
+    * @return Relation instance, or null if either task was not found
+    */
+   private Relation processPredecessor(RelationshipType row)
+   {
+      Relation relation = null;
+      Task currentTask = m_projectFile.getTaskByUniqueID(mapTaskID(row.getSuccessorActivityObjectId()));
+      Task predecessorTask = m_projectFile.getTaskByUniqueID(mapTaskID(row.getPredecessorActivityObjectId()));
+      if (currentTask != null && predecessorTask != null)
+      {
+         RelationType type = RELATION_TYPE_MAP.get(row.getType());
+         Duration lag = getDuration(row.getLag());
+         relation = currentTask.addPredecessor(predecessorTask, type, lag);
+         relation.setUniqueID(row.getObjectId());
+         m_eventManager.fireRelationReadEvent(relation);
       }
+
+      return relation;
    }
 
    /**
@@ -985,39 +1115,53 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       List<ResourceAssignmentType> assignments = project.getResourceAssignment();
       for (ResourceAssignmentType row : assignments)
       {
-         Task task = m_projectFile.getTaskByUniqueID(mapTaskID(row.getActivityObjectId()));
-         Resource resource = m_projectFile.getResourceByUniqueID(row.getResourceObjectId());
-         if (task != null && resource != null)
-         {
-            ResourceAssignment assignment = task.addResourceAssignment(resource);
-
-            assignment.setUniqueID(row.getObjectId());
-            assignment.setRemainingWork(getDuration(row.getRemainingUnits()));
-            assignment.setBaselineWork(getDuration(row.getPlannedUnits()));
-            assignment.setActualWork(getDuration(row.getActualUnits()));
-            assignment.setRemainingCost(row.getRemainingCost());
-            assignment.setBaselineCost(row.getPlannedCost());
-            assignment.setActualCost(row.getActualCost());
-            assignment.setActualStart(row.getActualStartDate());
-            assignment.setActualFinish(row.getActualFinishDate());
-            assignment.setBaselineStart(row.getPlannedStartDate());
-            assignment.setBaselineFinish(row.getPlannedFinishDate());
-            assignment.setGUID(DatatypeConverter.parseUUID(row.getGUID()));
-
-            task.setActualCost(Double.valueOf(NumberHelper.getDouble(task.getActualCost()) + NumberHelper.getDouble(assignment.getActualCost())));
-            task.setRemainingCost(Double.valueOf(NumberHelper.getDouble(task.getRemainingCost()) + NumberHelper.getDouble(assignment.getRemainingCost())));
-            task.setBaselineCost(Double.valueOf(NumberHelper.getDouble(task.getBaselineCost()) + NumberHelper.getDouble(assignment.getBaselineCost())));
-
-            populateField(assignment, AssignmentField.WORK, AssignmentField.ACTUAL_WORK, AssignmentField.BASELINE_WORK);
-            populateField(assignment, AssignmentField.COST, AssignmentField.ACTUAL_COST, AssignmentField.BASELINE_COST);
-            populateField(assignment, AssignmentField.START, AssignmentField.ACTUAL_START, AssignmentField.BASELINE_START);
-            populateField(assignment, AssignmentField.FINISH, AssignmentField.ACTUAL_FINISH, AssignmentField.BASELINE_FINISH);
-
-            readUDFTypes(assignment, row.getUDF());
-
-            m_eventManager.fireAssignmentReadEvent(assignment);
-         }
+         processAssignment(row);
+      }
+   }
+
+   /**
+    * Process an individual resource assignment.
+    *
+    * @param row resource assignment data
+    * @return ResourceAssignment instance, or null if the task or resource was not found
+    */
+   private ResourceAssignment processAssignment(ResourceAssignmentType row)
+   {
+      ResourceAssignment assignment = null;
+      Task task = m_projectFile.getTaskByUniqueID(mapTaskID(row.getActivityObjectId()));
+      Resource resource = m_projectFile.getResourceByUniqueID(row.getResourceObjectId());
+      if (task != null && resource != null)
+      {
+         assignment = task.addResourceAssignment(resource);
+
+         assignment.setUniqueID(row.getObjectId());
+         assignment.setRemainingWork(getDuration(row.getRemainingUnits()));
+         assignment.setBaselineWork(getDuration(row.getPlannedUnits()));
+         assignment.setActualWork(getDuration(row.getActualUnits()));
+         assignment.setRemainingCost(row.getRemainingCost());
+         assignment.setBaselineCost(row.getPlannedCost());
+         assignment.setActualCost(row.getActualCost());
+         assignment.setActualStart(row.getActualStartDate());
+         assignment.setActualFinish(row.getActualFinishDate());
+         assignment.setBaselineStart(row.getPlannedStartDate());
+         assignment.setBaselineFinish(row.getPlannedFinishDate());
+         assignment.setGUID(DatatypeConverter.parseUUID(row.getGUID()));
+
+         task.setActualCost(Double.valueOf(NumberHelper.getDouble(task.getActualCost()) + NumberHelper.getDouble(assignment.getActualCost())));
+         task.setRemainingCost(Double.valueOf(NumberHelper.getDouble(task.getRemainingCost()) + NumberHelper.getDouble(assignment.getRemainingCost())));
+         task.setBaselineCost(Double.valueOf(NumberHelper.getDouble(task.getBaselineCost()) + NumberHelper.getDouble(assignment.getBaselineCost())));
+
+         populateField(assignment, AssignmentField.WORK, AssignmentField.ACTUAL_WORK, AssignmentField.BASELINE_WORK);
+         populateField(assignment, AssignmentField.COST, AssignmentField.ACTUAL_COST, AssignmentField.BASELINE_COST);
+         populateField(assignment, AssignmentField.START, AssignmentField.ACTUAL_START, AssignmentField.BASELINE_START);
+         populateField(assignment, AssignmentField.FINISH, AssignmentField.ACTUAL_FINISH, AssignmentField.BASELINE_FINISH);
+
+         readUDFTypes(assignment, row.getUDF());
+
+         m_eventManager.fireAssignmentReadEvent(assignment);
       }
+
+      return assignment;
    }
 
    /**
@@ -1159,56 +1303,473 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
    }
 
    /**
-    * Cached context to minimise construction cost.
+    * Deals with the case where we have had to map a task ID to a new value.
+    *
+    * @param id task ID from database
+    * @return mapped task ID
     */
-   private static JAXBContext CONTEXT;
+   private Integer mapTaskID(Integer id)
+   {
+      Integer mappedID = m_clashMap.get(id);
+      if (mappedID == null)
+      {
+         mappedID = id;
+      }
+      return (mappedID);
+   }
 
    /**
-    * Note any error occurring during context construction.
+    * Reads each calendar, resource, activity, assignment and relation as
+    * soon as it has been unmarshalled, hands it to the stream listener,
+    * then removes the JAXB object from its parent list so that it can
+    * be collected.
     */
-   private static JAXBException CONTEXT_EXCEPTION;
-
-   static
+   private final class StreamHandler extends Unmarshaller.Listener
    {
-      try
+      /**
+       * The UDF definitions precede the calendars, resources and projects.
+       * The calendars are complete once the resources or projects are
+       * reached.
+       *
+       * @param target object being unmarshalled
+       * @param parent parent object
+       */
+      @Override public void beforeUnmarshal(Object target, Object parent)
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
+         if (target instanceof CalendarType || target instanceof ResourceType || target instanceof ProjectType)
+         {
+            m_apibo = (APIBusinessObjects) parent;
+            if (!m_udfsRead)
+            {
+               m_udfsRead = true;
+               processProjectUDFs(m_apibo);
+            }
 
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.primavera.schema", PrimaveraPMFileReader.class.getClassLoader());
+            if (!(target instanceof CalendarType))
+            {
+               streamCalendars();
+            }
+         }
       }
 
-      catch (JAXBException ex)
+      /**
+       * Read an entity once it has been unmarshalled.
+       *
+       * @param target object which has been unmarshalled
+       * @param parent parent object
+       */
+      @Override public void afterUnmarshal(Object target, Object parent)
+      {
+         if (target instanceof CalendarType && parent instanceof APIBusinessObjects)
+         {
+            CalendarType row = (CalendarType) target;
+            ProjectCalendar calendar = processCalendar(row);
+            Integer baseCalendarID = row.getBaseCalendarObjectId();
+            if (baseCalendarID != null)
+            {
+               m_baseCalendarMap.put(calendar, baseCalendarID);
+            }
+            m_apibo.getCalendar().clear();
+         }
+
+         if (target instanceof ResourceType && parent instanceof APIBusinessObjects)
+         {
+            Resource resource = processResource((ResourceType) target);
+            streamNewCalendars();
+            m_streamListener.resourceRead(resource);
+            m_apibo.getResource().clear();
+         }
+
+         if (target instanceof WBSType && parent instanceof ProjectType)
+         {
+            //
+            // WBS entries are few in number and are retained until the
+            // first activity is reached, as they need to be sorted.
+            //
+            if (!isSelected((ProjectType) parent))
+            {
+               ((ProjectType) parent).getWBS().clear();
+            }
+         }
+
+         if (target instanceof ActivityType && parent instanceof ProjectType)
+         {
+            ProjectType project = (ProjectType) parent;
+            if (isSelected(project))
+            {
+               readWBS(project);
+               streamActivity((ActivityType) target);
+            }
+            project.getActivity().clear();
+         }
+
+         if (target instanceof ResourceAssignmentType && parent instanceof ProjectType)
+         {
+            ProjectType project = (ProjectType) parent;
+            if (isSelected(project))
+            {
+               readWBS(project);
+               streamAssignment((ResourceAssignmentType) target);
+            }
+            project.getResourceAssignment().clear();
+         }
+
+         if (target instanceof RelationshipType && parent instanceof ProjectType)
+         {
+            ProjectType project = (ProjectType) parent;
+            if (isSelected(project))
+            {
+               readWBS(project);
+               streamPredecessor((RelationshipType) target);
+            }
+            project.getRelationship().clear();
+         }
+
+         if (target instanceof ProjectType && isSelected((ProjectType) target))
+         {
+            readWBS((ProjectType) target);
+            streamSummaryTasks();
+         }
+      }
+
+      /**
+       * Complete any processing not triggered by the elements present
+       * in the file.
+       *
+       * @param apibo top level object
+       */
+      public void finish(APIBusinessObjects apibo) throws MPXJException
+      {
+         if (!m_udfsRead)
+         {
+            m_udfsRead = true;
+            processProjectUDFs(apibo);
+         }
+         streamCalendars();
+
+         if (m_project == null)
+         {
+            throw new MPXJException("Unable to locate any non-external projects in a list of " + apibo.getProject().size() + " projects");
+         }
+      }
+
+      /**
+       * Determine if this is the project being read. This is the first
+       * project which is not external; its properties are read when it
+       * is first encountered.
+       *
+       * @param project xml container
+       * @return true if this is the project being read
+       */
+      private boolean isSelected(ProjectType project)
+      {
+         if (m_project == null && !BooleanHelper.getBoolean(project.isExternal()))
+         {
+            m_project = project;
+            processProjectProperties(m_apibo, project);
+         }
+         return m_project == project;
+      }
+
+      /**
+       * Once all calendars have been read, create the calendar hierarchy
+       * and hand the calendars to the listener.
+       */
+      private void streamCalendars()
+      {
+         if (!m_calendarsRead)
+         {
+            m_calendarsRead = true;
+            updateBaseCalendars(m_baseCalendarMap);
+            m_baseCalendarMap.clear();
+            streamNewCalendars();
+         }
+      }
+
+      /**
+       * Hand any calendars created since the last call to the listener.
+       */
+      private void streamNewCalendars()
+      {
+         List<ProjectCalendar> calendars = m_projectFile.getCalendars();
+         while (m_calendarCount < calendars.size())
+         {
+            m_streamListener.calendarRead(calendars.get(m_calendarCount++));
+         }
+      }
+
+      /**
+       * Once the first activity is reached, read the activity codes and
+       * create the WBS summary tasks.
+       *
+       * @param project xml container
+       */
+      private void readWBS(ProjectType project)
+      {
+         if (!m_wbsRead)
+         {
+            m_wbsRead = true;
+            processActivityCodes(m_apibo, project);
+            m_clashMap.clear();
+            processWBS(project.getWBS(), m_uniqueIDs);
+            project.getWBS().clear();
+            updateOutlineLevels(m_projectFile.getChildTasks(), Integer.valueOf(1));
+         }
+      }
+
+      /**
+       * Set the outline level of the WBS summary tasks.
+       *
+       * @param tasks tasks at this level
+       * @param outlineLevel outline level
+       */
+      private void updateOutlineLevels(List<Task> tasks, Integer outlineLevel)
+      {
+         Integer childOutlineLevel = Integer.valueOf(outlineLevel.intValue() + 1);
+         for (Task task : tasks)
+         {
+            task.setOutlineLevel(outlineLevel);
+            updateOutlineLevels(task.getChildTasks(), childOutlineLevel);
+         }
+      }
+
+      /**
+       * Read an activity, hand it to the listener, and release it once
+       * its dates have been added to those of its parent.
+       *
+       * @param row activity data
+       */
+      private void streamActivity(ActivityType row)
+      {
+         Task task = processActivity(row, m_uniqueIDs);
+         Task parentTask = task.getParentTask();
+         task.setOutlineLevel(Integer.valueOf(parentTask == null ? 1 : NumberHelper.getInt(parentTask.getOutlineLevel()) + 1));
+
+         m_streamListener.taskRead(task);
+
+         if (parentTask != null)
+         {
+            SummaryDates dates = m_summaryDates.get(parentTask);
+            if (dates == null)
+            {
+               dates = new SummaryDates(parentTask);
+               m_summaryDates.put(parentTask, dates);
+            }
+            dates.add(task);
+         }
+
+         m_projectFile.removeTask(task);
+         if (parentTask != null)
+         {
+            parentTask.setSummary(true);
+         }
+      }
+
+      /**
+       * Read an assignment using a placeholder for its task, and hand it
+       * to the listener.
+       *
+       * @param row resource assignment data
+       */
+      private void streamAssignment(ResourceAssignmentType row)
       {
-         CONTEXT_EXCEPTION = ex;
-         CONTEXT = null;
+         Task placeholder = createPlaceholderTask(row.getActivityObjectId());
+         ResourceAssignment assignment = processAssignment(row);
+         if (assignment != null)
+         {
+            m_streamListener.assignmentRead(assignment);
+         }
+
+         if (placeholder != null)
+         {
+            m_projectFile.removeTask(placeholder);
+         }
       }
+
+      /**
+       * Read a relation using placeholders for its tasks, and hand it
+       * to the listener.
+       *
+       * @param row relationship data
+       */
+      private void streamPredecessor(RelationshipType row)
+      {
+         Task successor = createPlaceholderTask(row.getSuccessorActivityObjectId());
+         Task predecessor = createPlaceholderTask(row.getPredecessorActivityObjectId());
+         Relation relation = processPredecessor(row);
+         if (relation != null)
+         {
+            m_streamListener.relationRead(relation);
+         }
+
+         if (successor != null)
+         {
+            m_projectFile.removeTask(successor);
+         }
+
+         if (predecessor != null)
+         {
+            m_projectFile.removeTask(predecessor);
+         }
+      }
+
+      /**
+       * Create a placeholder for an activity which has been released,
+       * carrying just its unique ID.
+       *
+       * @param activityID activity object ID
+       * @return placeholder task, or null if not required
+       */
+      private Task createPlaceholderTask(Integer activityID)
+      {
+         Task task = null;
+         Integer uniqueID = mapTaskID(activityID);
+         if (m_uniqueIDs.contains(uniqueID) && m_projectFile.getTaskByUniqueID(uniqueID) == null)
+         {
+            task = m_projectFile.addTask();
+            task.setUniqueID(uniqueID);
+         }
+         return task;
+      }
+
+      /**
+       * Once all activities have been read, roll up the dates of the
+       * WBS summary tasks and hand them to the listener.
+       */
+      private void streamSummaryTasks()
+      {
+         for (Task task : m_projectFile.getChildTasks())
+         {
+            updateSummaryDates(task);
+         }
+
+         for (Task task : m_projectFile.getChildTasks())
+         {
+            streamSummaryTask(task);
+         }
+      }
+
+      /**
+       * Roll up the dates of a WBS summary task from the activities
+       * which have been released and its child WBS summary tasks.
+       *
+       * @param parentTask WBS summary task
+       */
+      private void updateSummaryDates(Task parentTask)
+      {
+         SummaryDates dates = m_summaryDates.get(parentTask);
+         for (Task task : parentTask.getChildTasks())
+         {
+            updateSummaryDates(task);
+            if (dates == null)
+            {
+               dates = new SummaryDates(parentTask);
+            }
+            dates.add(task);
+         }
+
+         if (dates != null)
+         {
+            updateDates(parentTask, dates);
+         }
+      }
+
+      /**
+       * Hand a WBS summary task and its child summary tasks to the listener.
+       *
+       * @param task WBS summary task
+       */
+      private void streamSummaryTask(Task task)
+      {
+         m_streamListener.taskRead(task);
+         for (Task child : task.getChildTasks())
+         {
+            streamSummaryTask(child);
+         }
+      }
+
+      private APIBusinessObjects m_apibo;
+      private ProjectType m_project;
+      private final Map<ProjectCalendar, Integer> m_baseCalendarMap = new HashMap<ProjectCalendar, Integer>();
+      private final Set<Integer> m_uniqueIDs = new HashSet<Integer>();
+      private final Map<Task, SummaryDates> m_summaryDates = new HashMap<Task, SummaryDates>();
+      private boolean m_udfsRead;
+      private boolean m_calendarsRead;
+      private boolean m_wbsRead;
+      private int m_calendarCount;
    }
 
    /**
-    * Deals with the case where we have had to map a task ID to a new value.
-    *
-    * @param id task ID from database
-    * @return mapped task ID
+    * Collects the dates of the child tasks of a WBS summary task.
     */
-   private Integer mapTaskID(Integer id)
+   private static final class SummaryDates
    {
-      Integer mappedID = m_clashMap.get(id);
-      if (mappedID == null)
+      /**
+       * Constructor.
+       *
+       * @param parentTask parent task
+       */
+      public SummaryDates(Task parentTask)
       {
-         mappedID = id;
+         m_actualStart = parentTask.getActualStart();
+         m_actualFinish = parentTask.getActualFinish();
+         m_earlyStart = parentTask.getEarlyStart();
+         m_earlyFinish = parentTask.getEarlyFinish();
+         m_lateStart = parentTask.getLateStart();
+         m_lateFinish = parentTask.getLateFinish();
+         m_baselineStart = parentTask.getBaselineStart();
+         m_baselineFinish = parentTask.getBaselineFinish();
+         m_remainingEarlyStart = parentTask.getRemainingEarlyStart();
+         m_remainingEarlyFinish = parentTask.getRemainingEarlyFinish();
       }
-      return (mappedID);
+
+      /**
+       * Add the dates from a child task.
+       *
+       * @param task child task
+       */
+      public void add(Task task)
+      {
+         // the child tasks can have null dates (e.g. for nested wbs elements with no task children) so we
+         // still must protect against some children having null dates
+
+         m_actualStart = DateHelper.min(m_actualStart, task.getActualStart());
+         m_actualFinish = DateHelper.max(m_actualFinish, task.getActualFinish());
+         m_earlyStart = DateHelper.min(m_earlyStart, task.getEarlyStart());
+         m_earlyFinish = DateHelper.max(m_earlyFinish, task.getEarlyFinish());
+         m_remainingEarlyStart = DateHelper.min(m_remainingEarlyStart, task.getRemainingEarlyStart());
+         m_remainingEarlyFinish = DateHelper.max(m_remainingEarlyFinish, task.getRemainingEarlyFinish());
+         m_lateStart = DateHelper.min(m_lateStart, task.getLateStart());
+         m_lateFinish = DateHelper.max(m_lateFinish, task.getLateFinish());
+         m_baselineStart = DateHelper.min(m_baselineStart, task.getBaselineStart());
+         m_baselineFinish = DateHelper.max(m_baselineFinish, task.getBaselineFinish());
+
+         if (task.getActualFinish() != null)
+         {
+            ++m_finished;
+         }
+         ++m_count;
+      }
+
+      Date m_actualStart;
+      Date m_actualFinish;
+      Date m_earlyStart;
+      Date m_earlyFinish;
+      Date m_lateStart;
+      Date m_lateFinish;
+      Date m_baselineStart;
+      Date m_baselineFinish;
+      Date m_remainingEarlyStart;
+      Date m_remainingEarlyFinish;
+      int m_finished;
+      int m_count;
    }
 
    private ProjectFile m_projectFile;
    private EventManager m_eventManager;
    private List<ProjectListener> m_projectListeners;
+   private ValuePool m_valuePool;
+   private ProjectListener m_streamListener;
    private Map<Integer, Integer> m_clashMap = new HashMap<Integer, Integer>();
    private Map<Integer, ActivityCodeValue> m_activityCodeMap = new HashMap<Integer, ActivityCodeValue>();
    private UserFieldCounters m_taskUdfCounters = new UserFieldCounters();
@@ -40,6 +40,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
@@ -48,9 +49,10 @@ import net.sf.mpxj.Relation;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.common.CharsetHelper;
 import net.sf.mpxj.common.MultiDateFormat;
-import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.ParallelHelper;
 import net.sf.mpxj.common.ReaderTokenizer;
 import net.sf.mpxj.common.Tokenizer;
+import net.sf.mpxj.common.ValuePool;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.AbstractProjectReader;
 
@@ -102,6 +104,51 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       m_charset = charset;
    }
 
+   /**
+    * Set a pool used to share a single instance between repeated
+    * date and string values read from the file.
+    *
+    * @param pool ValuePool instance, or null to disable pooling
+    */
+   public void setValuePool(ValuePool pool)
+   {
+      m_valuePool = pool;
+   }
+
+   /**
+    * Retrieve the pool used to share repeated values.
+    *
+    * @return ValuePool instance or null
+    */
+   public ValuePool getValuePool()
+   {
+      return m_valuePool;
+   }
+
+   /**
+    * Set the number of threads used to build projects when reading
+    * all projects from a file. Defaults to 1. Note that when more than
+    * one thread is used, project listeners may be called from
+    * several threads at once.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Retrieve the number of threads used to build projects when reading
+    * all projects from a file.
+    *
+    * @return thread count
+    */
+   public int getThreadCount()
+   {
+      return m_threadCount;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -110,6 +157,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_indexes = new HashMap<String, Map<Integer, List<Row>>>();
          m_numberFormat = new DecimalFormat();
 
          processFile(is);
@@ -121,8 +169,15 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       finally
       {
          m_tables = null;
-         m_numberFormat = null;
+         m_indexes = null;
          m_reader = null;
+         m_currentTableName = null;
+         m_currentTable = null;
+         m_currentFieldNames = null;
+         m_defaultCurrencyName = null;
+         m_currencyMap.clear();
+         m_numberFormat = null;
+         m_defaultCurrencyData = null;
       }
    }
 
@@ -142,7 +197,10 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
    /**
     * This is a convenience method which allows all projects in an
-    * XER file to be read in a single pass.
+    * XER file to be read in a single pass. The file is parsed once,
+    * and the rows for each project are located using indexes built
+    * once for the whole file. If a thread count greater than one has
+    * been set, the projects are built in parallel.
     *
     * @param is input stream
     * @param linkCrossProjectRelations add Relation links that cross ProjectFile boundaries
@@ -154,6 +212,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_indexes = new HashMap<String, Map<Integer, List<Row>>>();
          m_numberFormat = new DecimalFormat();
 
          processFile(is);
@@ -161,14 +220,25 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          List<Row> rows = getRows("project", null, null);
          List<ProjectFile> result = new ArrayList<ProjectFile>(rows.size());
          List<ExternalPredecessorRelation> externalPredecessors = new ArrayList<ExternalPredecessorRelation>();
-         for (Row row : rows)
+         if (m_threadCount < 2 || rows.size() < 2)
          {
-            setProjectID(row.getInt("proj_id"));
-            m_reader = new PrimaveraReader(m_taskUdfCounters, m_resourceUdfCounters, m_assignmentUdfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
-            ProjectFile project = readProject();
-            externalPredecessors.addAll(m_reader.getExternalPredecessors());
+            for (Row row : rows)
+            {
+               setProjectID(row.getInt("proj_id"));
+               m_reader = new PrimaveraReader(m_taskUdfCounters, m_resourceUdfCounters, m_assignmentUdfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
+               ProjectFile project = readProject();
+               externalPredecessors.addAll(m_reader.getExternalPredecessors());
 
-            result.add(project);
+               result.add(project);
+            }
+         }
+         else
+         {
+            for (PrimaveraReader reader : readProjects(rows))
+            {
+               externalPredecessors.addAll(reader.getExternalPredecessors());
+               result.add(reader.getProject());
+            }
          }
 
          if (linkCrossProjectRelations)
@@ -198,51 +268,105 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       finally
       {
          m_tables = null;
-         m_numberFormat = null;
+         m_indexes = null;
          m_reader = null;
+         m_currentTableName = null;
+         m_currentTable = null;
+         m_currentFieldNames = null;
+         m_defaultCurrencyName = null;
+         m_currencyMap.clear();
+         m_numberFormat = null;
+         m_defaultCurrencyData = null;
       }
    }
 
    /**
-    * Common project read functionality.
-    * 
-    * @return ProjectFile instance
+    * Build a project for each project row using a pool of threads.
+    * Each project is read by a separate copy of this reader which
+    * shares the parsed tables and indexes. These are fully populated
+    * before the threads start, and are not modified afterwards.
+    *
+    * @param rows project rows
+    * @return a PrimaveraReader instance for each project, in the same order as the rows
     */
-   private ProjectFile readProject()
+   private List<PrimaveraReader> readProjects(List<Row> rows)
    {
-      try
+      for (String tableName : PROJECT_TABLES)
       {
-         ProjectFile project = m_reader.getProject();
-         project.getProjectProperties().setFileApplication("Primavera");
-         project.getProjectProperties().setFileType("XER");
-         project.getEventManager().addProjectListeners(m_projectListeners);
-
-         processProjectID();
-         processProjectProperties();
-         processActivityCodes();
-         processUserDefinedFields();
-         processCalendars();
-         processResources();
-         processResourceRates();
-         processTasks();
-         processPredecessors();
-         processAssignments();
-
-         project.updateStructure();
-
-         return project;
+         getIndex(tableName, "proj_id");
       }
 
-      finally
+      List<Callable<PrimaveraReader>> tasks = new ArrayList<Callable<PrimaveraReader>>(rows.size());
+      for (Row row : rows)
       {
-         m_currentTableName = null;
-         m_currentTable = null;
-         m_currentFieldNames = null;
-         m_defaultCurrencyName = null;
-         m_currencyMap.clear();
-         m_numberFormat = null;
-         m_defaultCurrencyData = null;
+         final PrimaveraXERFileReader worker = createWorker(row.getInteger("proj_id"));
+         tasks.add(new Callable<PrimaveraReader>()
+         {
+            @Override public PrimaveraReader call()
+            {
+               worker.readProject();
+               return worker.m_reader;
+            }
+         });
       }
+
+      return ParallelHelper.invokeAll(m_threadCount, tasks);
+   }
+
+   /**
+    * Create a copy of this reader, sharing the parsed tables,
+    * ready to read a single project.
+    *
+    * @param projectID ID of the project to read
+    * @return new reader
+    */
+   private PrimaveraXERFileReader createWorker(Integer projectID)
+   {
+      PrimaveraXERFileReader worker = new PrimaveraXERFileReader();
+      worker.m_projectID = projectID;
+      worker.m_tables = m_tables;
+      worker.m_indexes = m_indexes;
+      worker.m_defaultCurrencyData = m_defaultCurrencyData;
+      worker.m_projectListeners = m_projectListeners;
+      worker.m_taskUdfCounters = new UserFieldCounters(m_taskUdfCounters);
+      worker.m_resourceUdfCounters = new UserFieldCounters(m_resourceUdfCounters);
+      worker.m_assignmentUdfCounters = new UserFieldCounters(m_assignmentUdfCounters);
+      worker.m_resourceFields = m_resourceFields;
+      worker.m_wbsFields = m_wbsFields;
+      worker.m_taskFields = m_taskFields;
+      worker.m_assignmentFields = m_assignmentFields;
+      worker.m_aliases = m_aliases;
+      worker.m_matchPrimaveraWBS = m_matchPrimaveraWBS;
+      worker.m_reader = new PrimaveraReader(worker.m_taskUdfCounters, worker.m_resourceUdfCounters, worker.m_assignmentUdfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
+      return worker;
+   }
+
+   /**
+    * Common project read functionality.
+    * 
+    * @return ProjectFile instance
+    */
+   private ProjectFile readProject()
+   {
+      ProjectFile project = m_reader.getProject();
+      project.getProjectProperties().setFileApplication("Primavera");
+      project.getProjectProperties().setFileType("XER");
+      project.getEventManager().addProjectListeners(m_projectListeners);
+
+      processProjectID();
+      processProjectProperties();
+      processActivityCodes();
+      processUserDefinedFields();
+      processCalendars();
+      processResources();
+      processResourceRates();
+      processTasks();
+      processPredecessors();
+      processAssignments();
+
+      project.updateStructure();
+
+      return project;
    }
 
    /**
@@ -254,6 +378,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    private void processFile(InputStream is) throws MPXJException
    {
       int line = 1;
+      ValuePool previousPool = ValuePool.setCurrent(m_valuePool);
 
       try
       {
@@ -300,6 +425,11 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       {
          throw new MPXJException(MPXJException.READ_ERROR + " (failed at line " + line + ")", ex);
       }
+
+      finally
+      {
+         ValuePool.setCurrent(previousPool);
+      }
    }
 
    /**
@@ -480,7 +610,8 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
     */
    private void processResourceRates()
    {
-      List<Row> rows = getRows("rsrcrate", null, null);
+      // The rows are sorted by the reader, so we pass a copy of the shared table
+      List<Row> rows = new ArrayList<Row>(getRows("rsrcrate", null, null));
       m_reader.processResourceRates(rows);
    }
 
@@ -489,7 +620,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
     */
    private void processTasks()
    {
-      List<Row> wbs = getRows("projwbs", "proj_id", m_projectID);
+      List<Row> wbs = new ArrayList<Row>(getRows("projwbs", "proj_id", m_projectID));
       List<Row> tasks = getRows("task", "proj_id", m_projectID);
       //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", m_projectID);
       //List<Row> taskmemos = getRows("taskmemo", "proj_id", m_projectID);
@@ -595,6 +726,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
             if (!m_skipTable)
             {
                Map<String, Object> map = new HashMap<String, Object>();
+               ValuePool pool = ValuePool.getCurrent();
                for (int loop = 1; loop < record.size(); loop++)
                {
                   String fieldName = m_currentFieldNames[loop];
@@ -659,7 +791,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
                      }
                   }
 
-                  map.put(fieldName, objectValue);
+                  map.put(fieldName, pool.internValue(objectValue));
                }
 
                Row currentRow = new MapRow(map);
@@ -789,7 +921,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    /**
     * Filters a list of rows from the named table. If a column name and a value
     * are supplied, then use this to filter the rows. If no column name is
-    * supplied, then return all rows.
+    * supplied, then return all rows. The returned list must not be modified.
     *
     * @param tableName table name
     * @param columnName filter column name
@@ -812,17 +944,51 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          }
          else
          {
-            result = new LinkedList<Row>();
+            result = getIndex(tableName, columnName).get(id);
+            if (result == null)
+            {
+               result = Collections.<Row> emptyList();
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve an index of the rows in the named table by the values in
+    * the named column, creating it if it does not already exist. This
+    * allows the rows for each project to be located without scanning
+    * the whole table when more than one project is read from a file.
+    *
+    * @param tableName table name
+    * @param columnName column name
+    * @return map of column values to rows
+    */
+   private Map<Integer, List<Row>> getIndex(String tableName, String columnName)
+   {
+      String key = tableName + "." + columnName;
+      Map<Integer, List<Row>> index = m_indexes.get(key);
+      if (index == null)
+      {
+         index = new HashMap<Integer, List<Row>>();
+         List<Row> table = m_tables.get(tableName);
+         if (table != null)
+         {
             for (Row row : table)
             {
-               if (NumberHelper.equals(id, row.getInteger(columnName)))
+               Integer value = row.getInteger(columnName);
+               List<Row> rows = index.get(value);
+               if (rows == null)
                {
-                  result.add(row);
+                  rows = new ArrayList<Row>();
+                  index.put(value, rows);
                }
+               rows.add(row);
             }
          }
+         m_indexes.put(key, index);
       }
-      return result;
+      return index;
    }
 
    /**
@@ -851,10 +1017,13 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
    private String m_encoding;
    private Charset m_charset;
+   private ValuePool m_valuePool;
    private PrimaveraReader m_reader;
    private Integer m_projectID;
    boolean m_skipTable;
    private Map<String, List<Row>> m_tables;
+   private Map<String, Map<Integer, List<Row>>> m_indexes;
+   private int m_threadCount = 1;
    private String m_currentTableName;
    private List<Row> m_currentTable;
    private String[] m_currentFieldNames;
@@ -1046,5 +1215,19 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       REQUIRED_TABLES.add("taskactv");
    }
 
+   /**
+    * Tables containing rows for a single project, indexed by project ID
+    * before projects are read in parallel.
+    */
+   private static final String[] PROJECT_TABLES =
+   {
+      "project",
+      "schedoptions",
+      "projwbs",
+      "task",
+      "taskpred",
+      "taskrsrc"
+   };
+
    private static final WbsRowComparatorXER WBS_ROW_COMPARATOR = new WbsRowComparatorXER();
 }
@@ -0,0 +1,862 @@
+/*
+ * file:       CachingProjectReader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       30/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.FileHelper;
+import net.sf.mpxj.common.StreamHelper;
+import net.sf.mpxj.listener.ProjectListener;
+import net.sf.mpxj.snapshot.SnapshotReader;
+import net.sf.mpxj.utility.ProjectCopyUtility;
+
+/**
+ * Caching wrapper around UniversalProjectReader. The content of each file
+ * read is hashed, and the hash is used as the key for the parsed project.
+ * When the same content is presented again the cached data is used rather
+ * than parsing the original file. Files are hashed as they are streamed,
+ * then passed directly to UniversalProjectReader on a cache miss, so
+ * readers which work with the file itself rather than a copy of its
+ * content in memory are still used.
+ *
+ * By default the cache holds the ProjectFile instances returned by
+ * UniversalProjectReader, with nothing discarded. A cache miss returns
+ * the fully parsed project, and a hit returns the same instance again.
+ * Instances are shared between callers, so they must be treated as
+ * read-only. Projects are held in an in-memory cache bounded by the number
+ * of entries, with the least recently used entries evicted first. Listeners
+ * are only notified when the file is parsed, not when a cached instance
+ * is returned.
+ *
+ * Alternatively, lossy snapshot mode can be selected by calling
+ * setLossySnapshots. In this mode a snapshot of the parsed project is
+ * cached instead, and every project returned by this reader is created
+ * from a snapshot, whether or not the file was already present in the
+ * cache. Each caller receives its own instance, so changes made to a
+ * project are never seen by later callers, but the project only contains
+ * the data preserved by SnapshotWriter: the project properties, calendars,
+ * tasks, resources, assignments, relations, custom field values and
+ * timephased data. Views, tables, filters, groups, activity codes and
+ * lookup tables are not retained. Snapshots are held in an in-memory cache
+ * bounded by size in bytes, with the least recently used entries evicted
+ * first. Optionally a directory can be supplied to provide a second tier on
+ * disk, which can be shared between reader instances and survives restarts.
+ * Disk entries are evicted oldest first when the directory exceeds its size
+ * limit. An entry on disk which can't be read is deleted, and the original
+ * file is parsed instead. The snapshot format version is included in the
+ * hash, so entries written in an older format are never read.
+ *
+ * A single instance may be shared between threads.
+ */
+public final class CachingProjectReader implements ProjectReader
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void addProjectListener(ProjectListener listener)
+   {
+      if (m_projectListeners == null)
+      {
+         m_projectListeners = new LinkedList<ProjectListener>();
+      }
+      m_projectListeners.add(listener);
+   }
+
+   /**
+    * Select lossy snapshot mode, in which each caller receives its own copy
+    * of the project created from a snapshot, and views, tables, filters,
+    * groups, activity codes and lookup tables are not retained.
+    * Defaults to false, in which case fully parsed ProjectFile instances
+    * are cached and shared between callers. Changing the mode
+    * clears the in-memory cache.
+    *
+    * @param lossySnapshots true to cache and return snapshots
+    */
+   public void setLossySnapshots(boolean lossySnapshots)
+   {
+      synchronized (m_memoryCache)
+      {
+         if (m_lossySnapshots != lossySnapshots)
+         {
+            clear();
+            m_lossySnapshots = lossySnapshots;
+         }
+      }
+   }
+
+   /**
+    * Retrieve the flag indicating if lossy snapshot mode is selected.
+    *
+    * @return true if snapshots are cached and returned
+    */
+   public boolean getLossySnapshots()
+   {
+      synchronized (m_memoryCache)
+      {
+         return m_lossySnapshots;
+      }
+   }
+
+   /**
+    * Set the maximum number of projects held in memory when lossy
+    * snapshot mode is not selected. Defaults to 16. Setting zero
+    * disables the in-memory cache.
+    *
+    * @param maximumProjectCount maximum number of projects
+    */
+   public void setMaximumProjectCount(int maximumProjectCount)
+   {
+      synchronized (m_memoryCache)
+      {
+         m_maximumProjectCount = maximumProjectCount;
+         evictProjects();
+      }
+   }
+
+   /**
+    * Retrieve the maximum number of projects held in memory when lossy
+    * snapshot mode is not selected.
+    *
+    * @return maximum number of projects
+    */
+   public int getMaximumProjectCount()
+   {
+      synchronized (m_memoryCache)
+      {
+         return m_maximumProjectCount;
+      }
+   }
+
+   /**
+    * Set the maximum number of bytes of snapshot data held in memory
+    * in lossy snapshot mode. Defaults to 64MB. Setting zero disables
+    * the in-memory cache.
+    *
+    * @param maximumMemorySize maximum size in bytes
+    */
+   public void setMaximumMemorySize(long maximumMemorySize)
+   {
+      synchronized (m_memoryCache)
+      {
+         m_maximumMemorySize = maximumMemorySize;
+         evictMemory();
+      }
+   }
+
+   /**
+    * Retrieve the maximum number of bytes of snapshot data held in memory
+    * in lossy snapshot mode.
+    *
+    * @return maximum size in bytes
+    */
+   public long getMaximumMemorySize()
+   {
+      synchronized (m_memoryCache)
+      {
+         return m_maximumMemorySize;
+      }
+   }
+
+   /**
+    * Set the directory used to hold snapshots on disk in lossy snapshot mode.
+    * Defaults to null, in which case only the in-memory cache is used.
+    *
+    * @param directory cache directory
+    */
+   public void setCacheDirectory(File directory)
+   {
+      m_cacheDirectory = directory;
+   }
+
+   /**
+    * Retrieve the directory used to hold snapshots on disk.
+    *
+    * @return cache directory
+    */
+   public File getCacheDirectory()
+   {
+      return m_cacheDirectory;
+   }
+
+   /**
+    * Set the maximum number of bytes of snapshot data held in the cache directory.
+    * Defaults to 1GB.
+    *
+    * @param maximumDiskSize maximum size in bytes
+    */
+   public void setMaximumDiskSize(long maximumDiskSize)
+   {
+      m_maximumDiskSize = maximumDiskSize;
+   }
+
+   /**
+    * Retrieve the maximum number of bytes of snapshot data held in the cache directory.
+    *
+    * @return maximum size in bytes
+    */
+   public long getMaximumDiskSize()
+   {
+      return m_maximumDiskSize;
+   }
+
+   /**
+    * Retrieve the number of reads satisfied from the in-memory cache.
+    *
+    * @return hit count
+    */
+   public long getMemoryHitCount()
+   {
+      return m_memoryHitCount.get();
+   }
+
+   /**
+    * Retrieve the number of reads satisfied from the cache directory.
+    *
+    * @return hit count
+    */
+   public long getDiskHitCount()
+   {
+      return m_diskHitCount.get();
+   }
+
+   /**
+    * Retrieve the total number of reads satisfied from the cache.
+    *
+    * @return hit count
+    */
+   public long getHitCount()
+   {
+      return m_memoryHitCount.get() + m_diskHitCount.get();
+   }
+
+   /**
+    * Retrieve the number of reads which required the file to be parsed.
+    *
+    * @return miss count
+    */
+   public long getMissCount()
+   {
+      return m_missCount.get();
+   }
+
+   /**
+    * Retrieve the number of entries evicted from the in-memory cache.
+    *
+    * @return eviction count
+    */
+   public long getEvictionCount()
+   {
+      return m_evictionCount.get();
+   }
+
+   /**
+    * Retrieve the number of bytes of snapshot data currently held in memory.
+    * This is always zero unless lossy snapshot mode is selected.
+    *
+    * @return size in bytes
+    */
+   public long getMemorySize()
+   {
+      synchronized (m_memoryCache)
+      {
+         return m_memorySize;
+      }
+   }
+
+   /**
+    * Reset the hit, miss and eviction counters.
+    */
+   public void resetStatistics()
+   {
+      m_memoryHitCount.set(0);
+      m_diskHitCount.set(0);
+      m_missCount.set(0);
+      m_evictionCount.set(0);
+   }
+
+   /**
+    * Remove all entries from the in-memory cache.
+    * The cache directory is not affected.
+    */
+   public void clear()
+   {
+      synchronized (m_memoryCache)
+      {
+         m_memoryCache.clear();
+         m_memorySize = 0;
+         m_projectCache.clear();
+      }
+   }
+
+   @Override public ProjectFile read(String fileName) throws MPXJException
+   {
+      return read(new File(fileName));
+   }
+
+   /**
+    * Directories are passed directly to UniversalProjectReader
+    * and are not cached.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(File file) throws MPXJException
+   {
+      if (file.isDirectory())
+      {
+         UniversalProjectReader reader = new UniversalProjectReader();
+         addListeners(reader);
+         return reader.read(file);
+      }
+
+      FileInputStream fis = null;
+      try
+      {
+         fis = new FileInputStream(file);
+         MessageDigest digest = createDigest();
+         DigestInputStream dis = new DigestInputStream(fis, digest);
+         byte[] buffer = new byte[BUFFER_SIZE];
+         while (dis.read(buffer) != -1)
+         {
+            // Read to the end of the file to compute the hash
+         }
+         fis.close();
+         return read(toHex(digest.digest()), file, null);
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      catch (NoSuchAlgorithmException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(fis);
+      }
+   }
+
+   /**
+    * Note that this method returns null if the file type can't be determined,
+    * and that the stream is read to the end but not closed. The content
+    * of the stream is held in memory while it is parsed, so where possible
+    * read(File) should be used instead.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(InputStream inputStream) throws MPXJException
+   {
+      try
+      {
+         MessageDigest digest = createDigest();
+         byte[] data = readFully(new DigestInputStream(inputStream, digest));
+         return read(toHex(digest.digest()), null, data);
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      catch (NoSuchAlgorithmException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+   }
+
+   /**
+    * Retrieve a project from the cache, or parse the original file
+    * if it is not present.
+    *
+    * @param key content hash
+    * @param file original file, or null if the content is supplied as a byte array
+    * @param data original file content, or null if a file is supplied
+    * @return ProjectFile instance
+    */
+   private ProjectFile read(String key, File file, byte[] data) throws MPXJException, IOException
+   {
+      if (!getLossySnapshots())
+      {
+         ProjectFile project = getProjectEntry(key);
+         if (project != null)
+         {
+            m_memoryHitCount.incrementAndGet();
+            return project;
+         }
+
+         m_missCount.incrementAndGet();
+         project = parse(file, data, true);
+         if (project != null)
+         {
+            putProjectEntry(key, project);
+         }
+         return project;
+      }
+
+      byte[] snapshot = getMemoryEntry(key);
+      if (snapshot != null)
+      {
+         m_memoryHitCount.incrementAndGet();
+         return readSnapshot(snapshot);
+      }
+
+      snapshot = getDiskEntry(key);
+      if (snapshot != null)
+      {
+         try
+         {
+            ProjectFile project = readSnapshot(snapshot);
+            m_diskHitCount.incrementAndGet();
+            putMemoryEntry(key, snapshot);
+            return project;
+         }
+
+         catch (MPXJException ex)
+         {
+            // The entry is truncated or corrupt: discard it and parse the original file
+            FileHelper.deleteQuietly(getDiskEntryFile(key));
+         }
+      }
+
+      m_missCount.incrementAndGet();
+      ProjectFile project = parse(file, data, false);
+      if (project == null)
+      {
+         return null;
+      }
+
+      snapshot = ProjectCopyUtility.toSnapshot(project);
+      putMemoryEntry(key, snapshot);
+      putDiskEntry(key, snapshot);
+      return readSnapshot(snapshot);
+   }
+
+   /**
+    * Parse the original file using UniversalProjectReader.
+    *
+    * @param file original file, or null if the content is supplied as a byte array
+    * @param data original file content, or null if a file is supplied
+    * @param notifyListeners true if listeners should be attached to the reader
+    * @return ProjectFile instance
+    */
+   private ProjectFile parse(File file, byte[] data, boolean notifyListeners) throws MPXJException
+   {
+      UniversalProjectReader reader = new UniversalProjectReader();
+      if (notifyListeners)
+      {
+         addListeners(reader);
+      }
+      return file == null ? reader.read(new ByteArrayInputStream(data)) : reader.read(file);
+   }
+
+   /**
+    * Create a new project from a snapshot. Listeners are only
+    * attached here, so they see the project which is returned
+    * to the caller.
+    *
+    * @param snapshot snapshot data
+    * @return ProjectFile instance
+    */
+   private ProjectFile readSnapshot(byte[] snapshot) throws MPXJException
+   {
+      SnapshotReader reader = new SnapshotReader();
+      addListeners(reader);
+      return reader.read(ByteBuffer.wrap(snapshot));
+   }
+
+   /**
+    * Create the digest used to hash file content.
+    *
+    * @return MessageDigest instance
+    */
+   private MessageDigest createDigest() throws NoSuchAlgorithmException
+   {
+      MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+      digest.update(getFormatVersion());
+      return digest;
+   }
+
+   /**
+    * Retrieve the snapshot format version as a byte array. This is included
+    * in the content hash, so entries written by a version of SnapshotWriter
+    * using a different format are never presented to SnapshotReader.
+    *
+    * @return format version
+    */
+   private byte[] getFormatVersion()
+   {
+      int version = SnapshotReader.getFormatVersion();
+      return new byte[]
+      {
+         (byte) (version >>> 24),
+         (byte) (version >>> 16),
+         (byte) (version >>> 8),
+         (byte) version
+      };
+   }
+
+   /**
+    * Retrieve a project from the in-memory cache.
+    *
+    * @param key content hash
+    * @return ProjectFile instance or null
+    */
+   private ProjectFile getProjectEntry(String key)
+   {
+      synchronized (m_memoryCache)
+      {
+         return m_projectCache.get(key);
+      }
+   }
+
+   /**
+    * Add a project to the in-memory cache, evicting entries if required.
+    *
+    * @param key content hash
+    * @param project ProjectFile instance
+    */
+   private void putProjectEntry(String key, ProjectFile project)
+   {
+      synchronized (m_memoryCache)
+      {
+         if (!m_lossySnapshots)
+         {
+            m_projectCache.put(key, project);
+            evictProjects();
+         }
+      }
+   }
+
+   /**
+    * Remove the least recently used projects until the in-memory
+    * cache is within its entry limit. The caller must hold
+    * the cache lock.
+    */
+   private void evictProjects()
+   {
+      Iterator<ProjectFile> iter = m_projectCache.values().iterator();
+      while (m_projectCache.size() > m_maximumProjectCount && iter.hasNext())
+      {
+         iter.next();
+         iter.remove();
+         m_evictionCount.incrementAndGet();
+      }
+   }
+
+   /**
+    * Retrieve an entry from the in-memory cache.
+    *
+    * @param key content hash
+    * @return snapshot data or null
+    */
+   private byte[] getMemoryEntry(String key)
+   {
+      synchronized (m_memoryCache)
+      {
+         return m_memoryCache.get(key);
+      }
+   }
+
+   /**
+    * Add an entry to the in-memory cache, evicting entries if required.
+    *
+    * @param key content hash
+    * @param snapshot snapshot data
+    */
+   private void putMemoryEntry(String key, byte[] snapshot)
+   {
+      synchronized (m_memoryCache)
+      {
+         if (snapshot.length > m_maximumMemorySize)
+         {
+            return;
+         }
+
+         byte[] previous = m_memoryCache.put(key, snapshot);
+         if (previous != null)
+         {
+            m_memorySize -= previous.length;
+         }
+         m_memorySize += snapshot.length;
+         evictMemory();
+      }
+   }
+
+   /**
+    * Remove the least recently used entries until the in-memory
+    * cache is within its size limit. The caller must hold
+    * the cache lock.
+    */
+   private void evictMemory()
+   {
+      Iterator<byte[]> iter = m_memoryCache.values().iterator();
+      while (m_memorySize > m_maximumMemorySize && iter.hasNext())
+      {
+         m_memorySize -= iter.next().length;
+         iter.remove();
+         m_evictionCount.incrementAndGet();
+      }
+   }
+
+   /**
+    * Retrieve an entry from the cache directory.
+    *
+    * @param key content hash
+    * @return snapshot data or null
+    */
+   private byte[] getDiskEntry(String key) throws IOException
+   {
+      if (m_cacheDirectory == null)
+      {
+         return null;
+      }
+
+      File file = getDiskEntryFile(key);
+      if (!file.isFile())
+      {
+         return null;
+      }
+
+      FileInputStream fis = null;
+      try
+      {
+         fis = new FileInputStream(file);
+         byte[] result = readFully(fis);
+         fis.close();
+         file.setLastModified(System.currentTimeMillis());
+         return result;
+      }
+
+      catch (IOException ex)
+      {
+         // The file may have been removed by another reader sharing this directory
+         return null;
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(fis);
+      }
+   }
+
+   /**
+    * Add an entry to the cache directory, evicting entries if required.
+    * The snapshot is written to a temporary file then renamed, so other
+    * readers sharing the directory never see a partially written entry.
+    *
+    * @param key content hash
+    * @param snapshot snapshot data
+    */
+   private void putDiskEntry(String key, byte[] snapshot) throws IOException
+   {
+      if (m_cacheDirectory == null || snapshot.length > m_maximumDiskSize)
+      {
+         return;
+      }
+
+      if (!m_cacheDirectory.isDirectory())
+      {
+         FileHelper.mkdirs(m_cacheDirectory);
+      }
+
+      File temp = File.createTempFile(key, TEMP_SUFFIX, m_cacheDirectory);
+      FileOutputStream fos = new FileOutputStream(temp);
+      try
+      {
+         fos.write(snapshot);
+      }
+
+      finally
+      {
+         fos.close();
+      }
+
+      if (!temp.renameTo(getDiskEntryFile(key)))
+      {
+         FileHelper.deleteQuietly(temp);
+      }
+
+      evictDisk();
+   }
+
+   /**
+    * Retrieve the file used to hold an entry in the cache directory.
+    *
+    * @param key content hash
+    * @return cache file
+    */
+   private File getDiskEntryFile(String key)
+   {
+      return new File(m_cacheDirectory, key + SNAPSHOT_SUFFIX);
+   }
+
+   /**
+    * Remove the oldest entries until the cache directory
+    * is within its size limit.
+    */
+   private void evictDisk()
+   {
+      File[] files = m_cacheDirectory.listFiles();
+      if (files == null)
+      {
+         return;
+      }
+
+      List<File> entries = new LinkedList<File>();
+      long size = 0;
+      for (File file : files)
+      {
+         if (file.getName().endsWith(SNAPSHOT_SUFFIX))
+         {
+            entries.add(file);
+            size += file.length();
+         }
+      }
+
+      if (size <= m_maximumDiskSize)
+      {
+         return;
+      }
+
+      File[] sorted = entries.toArray(new File[entries.size()]);
+      Arrays.sort(sorted, LAST_MODIFIED_COMPARATOR);
+      for (File file : sorted)
+      {
+         if (size <= m_maximumDiskSize)
+         {
+            break;
+         }
+
+         long length = file.length();
+         if (file.delete())
+         {
+            size -= length;
+         }
+      }
+   }
+
+   /**
+    * Read the remaining content of a stream into a byte array.
+    *
+    * @param stream input stream
+    * @return byte array
+    */
+   private byte[] readFully(InputStream stream) throws IOException
+   {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int bytesRead;
+      while ((bytesRead = stream.read(buffer)) != -1)
+      {
+         os.write(buffer, 0, bytesRead);
+      }
+      return os.toByteArray();
+   }
+
+   /**
+    * Convert a hash to a hex string suitable for use as a file name.
+    *
+    * @param data hash
+    * @return hex string
+    */
+   private String toHex(byte[] data)
+   {
+      StringBuilder sb = new StringBuilder(data.length * 2);
+      for (byte value : data)
+      {
+         sb.append(HEX_DIGITS[(value >> 4) & 0x0F]);
+         sb.append(HEX_DIGITS[value & 0x0F]);
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Adds any listeners attached to this reader to the reader created internally.
+    *
+    * @param reader internal project reader
+    */
+   private void addListeners(ProjectReader reader)
+   {
+      if (m_projectListeners != null)
+      {
+         for (ProjectListener listener : m_projectListeners)
+         {
+            reader.addProjectListener(listener);
+         }
+      }
+   }
+
+   private List<ProjectListener> m_projectListeners;
+   private boolean m_lossySnapshots;
+   private int m_maximumProjectCount = 16;
+   private long m_maximumMemorySize = 64L * 1024 * 1024;
+   private long m_memorySize;
+   private File m_cacheDirectory;
+   private long m_maximumDiskSize = 1024L * 1024 * 1024;
+   private final Map<String, byte[]> m_memoryCache = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+   private final Map<String, ProjectFile> m_projectCache = new LinkedHashMap<String, ProjectFile>(16, 0.75f, true);
+   private final AtomicLong m_memoryHitCount = new AtomicLong();
+   private final AtomicLong m_diskHitCount = new AtomicLong();
+   private final AtomicLong m_missCount = new AtomicLong();
+   private final AtomicLong m_evictionCount = new AtomicLong();
+
+   private static final String DIGEST_ALGORITHM = "SHA-256";
+   private static final String SNAPSHOT_SUFFIX = ".snap";
+   private static final String TEMP_SUFFIX = ".tmp";
+   private static final int BUFFER_SIZE = 8192;
+   private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+   private static final Comparator<File> LAST_MODIFIED_COMPARATOR = new Comparator<File>()
+   {
+      @Override public int compare(File o1, File o2)
+      {
+         long t1 = o1.lastModified();
+         long t2 = o2.lastModified();
+         return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+      }
+   };
+}
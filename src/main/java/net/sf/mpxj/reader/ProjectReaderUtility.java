@@ -40,6 +40,7 @@ import net.sf.mpxj.planner.PlannerReader;
 import net.sf.mpxj.primavera.PrimaveraPMFileReader;
 import net.sf.mpxj.primavera.PrimaveraXERFileReader;
 import net.sf.mpxj.projectlibre.ProjectLibreReader;
+import net.sf.mpxj.snapshot.SnapshotReader;
 
 /**
  * This class contains utility methods for working with ProjectReaders.
@@ -118,5 +119,6 @@ public final class ProjectReaderUtility
       READER_MAP.put("FTS", FastTrackReader.class);
       READER_MAP.put("POD", ProjectLibreReader.class);
       READER_MAP.put("GAN", GanttProjectReader.class);
+      READER_MAP.put("SNAP", SnapshotReader.class);
    }
 }
@@ -26,6 +26,7 @@ package net.sf.mpxj.reader;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.sql.Connection;
@@ -75,6 +76,7 @@ import net.sf.mpxj.primavera.suretrak.SureTrakDatabaseReader;
 import net.sf.mpxj.primavera.suretrak.SureTrakSTXFileReader;
 import net.sf.mpxj.projectlibre.ProjectLibreReader;
 import net.sf.mpxj.sdef.SDEFReader;
+import net.sf.mpxj.snapshot.SnapshotReader;
 import net.sf.mpxj.synchro.SynchroReader;
 import net.sf.mpxj.turboproject.TurboProjectReader;
 
@@ -135,6 +137,16 @@ public final class UniversalProjectReader implements ProjectReader
          }
          else
          {
+            if (m_skipBytes == 0 && matchesFingerprint(file, OLE_COMPOUND_DOC_FINGERPRINT))
+            {
+               return handleOleCompoundDocument(file);
+            }
+
+            if (m_skipBytes == 0 && matchesFingerprint(file, FASTTRACK_FINGERPRINT))
+            {
+               return readProjectFile(new FastTrackReader(), file);
+            }
+
             FileInputStream fis = null;
 
             try
@@ -226,6 +238,14 @@ public final class UniversalProjectReader implements ProjectReader
             return readProjectFile(new AstaFileReader(), bis);
          }
 
+         //
+         // Snapshot files start with "MPX", so this test must precede the MPX test.
+         //
+         if (matchesFingerprint(buffer, SNAPSHOT_FINGERPRINT))
+         {
+            return readProjectFile(new SnapshotReader(), bis);
+         }
+
          if (matchesFingerprint(buffer, MPX_FINGERPRINT))
          {
             return readProjectFile(new MPXReader(), bis);
@@ -394,6 +414,64 @@ public final class UniversalProjectReader implements ProjectReader
       return null;
    }
 
+   /**
+    * Determine if the start of a file matches a fingerprint. This allows
+    * us to hand a file directly to a reader which can work from a file
+    * without reading it into memory.
+    *
+    * @param file file to test
+    * @param fingerprint byte fingerprint
+    * @return true if the file matches the fingerprint
+    */
+   private boolean matchesFingerprint(File file, byte[] fingerprint) throws IOException
+   {
+      FileInputStream fis = null;
+
+      try
+      {
+         fis = new FileInputStream(file);
+         byte[] buffer = new byte[BUFFER_SIZE];
+         int bytesRead = fis.read(buffer);
+         return bytesRead == BUFFER_SIZE && matchesFingerprint(buffer, fingerprint);
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(fis);
+      }
+   }
+
+   /**
+    * We have an OLE compound document held in a file. Open the document
+    * in file-backed mode so that it is not buffered in memory
+    * while we determine if it is an MPP file.
+    *
+    * @param file OLE compound document
+    * @return ProjectFile instance
+    */
+   private ProjectFile handleOleCompoundDocument(File file) throws Exception
+   {
+      POIFSFileSystem fs = null;
+
+      try
+      {
+         fs = new POIFSFileSystem(file, true);
+         String fileFormat = MPPReader.getFileFormat(fs);
+         if (fileFormat != null && fileFormat.startsWith("MSProject"))
+         {
+            MPPReader reader = new MPPReader();
+            addListeners(reader);
+            return reader.read(fs);
+         }
+         return null;
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(fs);
+      }
+   }
+
    /**
     * We have a binary property list.
     *
@@ -1015,6 +1093,18 @@ public final class UniversalProjectReader implements ProjectReader
       (byte) 'M'
    };
 
+   private static final byte[] SNAPSHOT_FINGERPRINT =
+   {
+      (byte) 'M',
+      (byte) 'P',
+      (byte) 'X',
+      (byte) 'J',
+      (byte) 'S',
+      (byte) 'N',
+      (byte) 'A',
+      (byte) 'P'
+   };
+
    private static final byte[] UTF8_BOM_FINGERPRINT =
    {
       (byte) 0xEF,
@@ -0,0 +1,587 @@
+/*
+ * file:       MpxjConvertServer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.sample;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.JaxbContextRegistry;
+import net.sf.mpxj.common.ParallelHelper;
+import net.sf.mpxj.json.JsonWriter;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+/**
+ * Long running process which converts project files to JSON on request,
+ * avoiding the cost of starting a new JVM for each file. Requests are
+ * read either from stdin, with responses written to stdout, or from
+ * connections to a socket bound to the loopback interface. Requests are
+ * processed concurrently using a pool of worker threads.
+ *
+ * Each request is a frame made up of a 4 byte request ID, a 1 byte request
+ * type, a 4 byte payload length and the payload itself. All integers are
+ * big-endian. The request type is either 'P', where the payload is the
+ * UTF-8 encoded path of the file to convert, or 'D', where the payload
+ * is the content of the file to convert.
+ *
+ * Each response is a sequence of frames with the same layout, carrying
+ * the ID of the request. Frames of type 'J' carry the next chunk of the
+ * JSON document, a frame of type 'Z' with no payload marks the end of the
+ * document. If the conversion fails, a frame of type 'E' is sent instead
+ * of the 'Z' frame. Its payload is a UTF-8 error message prefixed with
+ * "Conversion Error: ", as written by MpxjConvert. Frames for different
+ * requests may be interleaved.
+ *
+ * A request whose payload length is larger than the configured maximum is
+ * skipped and answered with an error frame. A negative payload length
+ * means that the request frames can no longer be located in the input,
+ * so an error frame is sent and no further requests are read.
+ *
+ * Only a small number of requests are queued for the worker threads. When
+ * the queue is full the thread reading the requests converts the next
+ * file itself, so a client can't submit more requests than the server
+ * is able to hold in memory.
+ */
+public final class MpxjConvertServer
+{
+   /**
+    * Main method.
+    *
+    * @param args array of command line arguments
+    */
+   public static void main(String[] args)
+   {
+      try
+      {
+         Integer port = null;
+         int threads = Runtime.getRuntime().availableProcessors();
+         Integer maximumPayloadSize = null;
+         boolean valid = true;
+
+         for (int index = 0; index < args.length; index++)
+         {
+            if (args[index].equals("-port") && index + 1 < args.length)
+            {
+               port = Integer.valueOf(args[++index]);
+            }
+            else
+            {
+               if (args[index].equals("-threads") && index + 1 < args.length)
+               {
+                  threads = Integer.parseInt(args[++index]);
+               }
+               else
+               {
+                  if (args[index].equals("-maxsize") && index + 1 < args.length)
+                  {
+                     maximumPayloadSize = Integer.valueOf(args[++index]);
+                  }
+                  else
+                  {
+                     valid = false;
+                  }
+               }
+            }
+         }
+
+         if (!valid)
+         {
+            System.err.println("Usage: MpxjConvertServer [-port <port number>] [-threads <thread count>] [-maxsize <maximum payload bytes>]");
+            System.exit(1);
+         }
+
+         //
+         // Construct the JAXB contexts while we wait for the first request
+         //
+         Thread warmUp = new Thread("MpxjConvertServer warm up")
+         {
+            @Override public void run()
+            {
+               JaxbContextRegistry.warmUp();
+            }
+         };
+         warmUp.setDaemon(true);
+         warmUp.start();
+
+         MpxjConvertServer server = new MpxjConvertServer(threads);
+         if (maximumPayloadSize != null)
+         {
+            server.setMaximumPayloadSize(maximumPayloadSize.intValue());
+         }
+
+         try
+         {
+            if (port == null)
+            {
+               server.serve(System.in, System.out);
+            }
+            else
+            {
+               ServerSocket socket = new ServerSocket(port.intValue(), 50, InetAddress.getByName(null));
+               System.err.println("Listening on port " + socket.getLocalPort());
+               server.listen(socket);
+            }
+         }
+
+         finally
+         {
+            server.shutdown();
+         }
+
+         System.exit(0);
+      }
+
+      catch (Exception ex)
+      {
+         System.err.println();
+         System.err.print("Server Error: ");
+         ex.printStackTrace(System.err);
+         System.err.println();
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param threadCount number of worker threads used to convert files
+    */
+   public MpxjConvertServer(int threadCount)
+   {
+      threadCount = Math.max(1, threadCount);
+      m_executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(threadCount * QUEUE_SIZE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+   }
+
+   /**
+    * Set the maximum size of a request payload in bytes.
+    * Defaults to 64MB.
+    *
+    * @param maximumPayloadSize maximum payload size
+    */
+   public void setMaximumPayloadSize(int maximumPayloadSize)
+   {
+      m_maximumPayloadSize = maximumPayloadSize;
+   }
+
+   /**
+    * Retrieve the maximum size of a request payload in bytes.
+    *
+    * @return maximum payload size
+    */
+   public int getMaximumPayloadSize()
+   {
+      return m_maximumPayloadSize;
+   }
+
+   /**
+    * Accept connections from the server socket until it is closed.
+    * Each connection is handled on its own thread, and may send
+    * any number of requests.
+    *
+    * @param serverSocket server socket
+    */
+   public void listen(ServerSocket serverSocket) throws IOException
+   {
+      try
+      {
+         while (true)
+         {
+            final Socket socket = serverSocket.accept();
+            Thread thread = new Thread("MpxjConvertServer connection")
+            {
+               @Override public void run()
+               {
+                  try
+                  {
+                     serve(socket.getInputStream(), socket.getOutputStream());
+                  }
+
+                  catch (IOException ex)
+                  {
+                     // The client has disconnected
+                  }
+
+                  finally
+                  {
+                     closeQuietly(socket);
+                  }
+               }
+            };
+            thread.setDaemon(true);
+            thread.start();
+         }
+      }
+
+      catch (IOException ex)
+      {
+         if (!serverSocket.isClosed())
+         {
+            throw ex;
+         }
+      }
+   }
+
+   /**
+    * Read requests from the input stream until it is exhausted, writing
+    * the responses to the output stream. Returns once all of the
+    * requests have been answered.
+    *
+    * @param is input stream
+    * @param os output stream
+    */
+   public void serve(InputStream is, OutputStream os) throws IOException
+   {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(is));
+      final FrameWriter output = new FrameWriter(os);
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+
+      try
+      {
+         while (true)
+         {
+            final int requestID;
+            try
+            {
+               requestID = input.readInt();
+            }
+
+            catch (EOFException ex)
+            {
+               break;
+            }
+
+            final byte type = input.readByte();
+            int length = input.readInt();
+            if (length < 0)
+            {
+               writeError(output, requestID, "Invalid payload length " + length);
+               break;
+            }
+
+            if (length > m_maximumPayloadSize)
+            {
+               skipFully(input, length);
+               writeError(output, requestID, "Payload length " + length + " exceeds maximum of " + m_maximumPayloadSize);
+               continue;
+            }
+
+            final byte[] payload = new byte[length];
+            input.readFully(payload);
+
+            futures.add(m_executor.submit(new Runnable()
+            {
+               @Override public void run()
+               {
+                  convert(requestID, type, payload, output);
+               }
+            }));
+
+            removeCompleted(futures);
+         }
+      }
+
+      finally
+      {
+         ParallelHelper.getAll(futures);
+      }
+   }
+
+   /**
+    * Stop the worker threads once any outstanding requests are complete.
+    */
+   public void shutdown()
+   {
+      m_executor.shutdown();
+   }
+
+   /**
+    * Convert a single file, writing the JSON or an error message
+    * to the output.
+    *
+    * @param requestID request ID
+    * @param type request type
+    * @param payload request payload
+    * @param output output
+    */
+   void convert(int requestID, byte type, byte[] payload, FrameWriter output)
+   {
+      try
+      {
+         try
+         {
+            ProjectFile file;
+            UniversalProjectReader reader = new UniversalProjectReader();
+
+            switch (type)
+            {
+               case REQUEST_PATH:
+               {
+                  file = reader.read(new String(payload, "UTF-8"));
+                  break;
+               }
+
+               case REQUEST_DATA:
+               {
+                  file = reader.read(new ByteArrayInputStream(payload));
+                  break;
+               }
+
+               default:
+               {
+                  throw new IllegalArgumentException("Unknown request type " + type);
+               }
+            }
+
+            if (file == null)
+            {
+               throw new IllegalArgumentException("Unsupported file type");
+            }
+
+            FrameOutputStream stream = new FrameOutputStream(output, requestID);
+            new JsonWriter().write(file, stream);
+            stream.close();
+         }
+
+         catch (Throwable ex)
+         {
+            // Errors are reported too, otherwise the client would wait
+            // indefinitely for a frame which terminates this request.
+            StringWriter message = new StringWriter();
+            ex.printStackTrace(new PrintWriter(message));
+            writeError(output, requestID, message.toString());
+         }
+      }
+
+      catch (IOException ex)
+      {
+         // The client has disconnected
+      }
+   }
+
+   /**
+    * Send an error frame.
+    *
+    * @param output output
+    * @param requestID request ID
+    * @param message error message
+    */
+   private void writeError(FrameWriter output, int requestID, String message) throws IOException
+   {
+      byte[] data = ("Conversion Error: " + message).getBytes("UTF-8");
+      output.write(requestID, RESPONSE_ERROR, data, 0, data.length);
+   }
+
+   /**
+    * Discard bytes from the input.
+    *
+    * @param input input stream
+    * @param length number of bytes to discard
+    */
+   private void skipFully(DataInputStream input, int length) throws IOException
+   {
+      while (length != 0)
+      {
+         int count = input.skipBytes(length);
+         if (count == 0)
+         {
+            // Throws EOFException if the input is exhausted
+            input.readByte();
+            count = 1;
+         }
+         length -= count;
+      }
+   }
+
+   /**
+    * Close a socket, ignoring any errors.
+    *
+    * @param socket socket
+    */
+   private void closeQuietly(Socket socket)
+   {
+      try
+      {
+         socket.close();
+      }
+
+      catch (IOException ex)
+      {
+         // Ignored
+      }
+   }
+
+   /**
+    * Discard futures for requests which have completed.
+    *
+    * @param futures request futures
+    */
+   private void removeCompleted(List<Future<?>> futures)
+   {
+      Iterator<Future<?>> iter = futures.iterator();
+      while (iter.hasNext())
+      {
+         if (iter.next().isDone())
+         {
+            iter.remove();
+         }
+      }
+   }
+
+   /**
+    * Writes response frames, allowing several worker threads
+    * to share the same output stream.
+    */
+   static final class FrameWriter
+   {
+      /**
+       * Constructor.
+       *
+       * @param os output stream
+       */
+      public FrameWriter(OutputStream os)
+      {
+         m_output = new DataOutputStream(new BufferedOutputStream(os, CHUNK_SIZE + 9));
+      }
+
+      /**
+       * Write a frame.
+       *
+       * @param requestID request ID
+       * @param type frame type
+       * @param data payload buffer
+       * @param offset payload offset
+       * @param length payload length
+       */
+      public synchronized void write(int requestID, byte type, byte[] data, int offset, int length) throws IOException
+      {
+         m_output.writeInt(requestID);
+         m_output.writeByte(type);
+         m_output.writeInt(length);
+         m_output.write(data, offset, length);
+         m_output.flush();
+      }
+
+      private final DataOutputStream m_output;
+   }
+
+   /**
+    * Output stream which sends the data written to it as a sequence of
+    * JSON chunk frames, followed by an end frame when the stream is closed.
+    */
+   static final class FrameOutputStream extends OutputStream
+   {
+      /**
+       * Constructor.
+       *
+       * @param output frame writer
+       * @param requestID request ID
+       */
+      public FrameOutputStream(FrameWriter output, int requestID)
+      {
+         m_output = output;
+         m_requestID = requestID;
+      }
+
+      @Override public void write(int b) throws IOException
+      {
+         if (m_length == m_buffer.length)
+         {
+            writeChunk();
+         }
+         m_buffer[m_length++] = (byte) b;
+      }
+
+      @Override public void write(byte[] data, int offset, int length) throws IOException
+      {
+         while (length != 0)
+         {
+            if (m_length == m_buffer.length)
+            {
+               writeChunk();
+            }
+
+            int count = Math.min(length, m_buffer.length - m_length);
+            System.arraycopy(data, offset, m_buffer, m_length, count);
+            m_length += count;
+            offset += count;
+            length -= count;
+         }
+      }
+
+      @Override public void close() throws IOException
+      {
+         if (m_length != 0)
+         {
+            writeChunk();
+         }
+         m_output.write(m_requestID, RESPONSE_END, m_buffer, 0, 0);
+      }
+
+      /**
+       * Send the buffered data as a JSON chunk frame.
+       */
+      private void writeChunk() throws IOException
+      {
+         m_output.write(m_requestID, RESPONSE_JSON, m_buffer, 0, m_length);
+         m_length = 0;
+      }
+
+      private final FrameWriter m_output;
+      private final int m_requestID;
+      private final byte[] m_buffer = new byte[CHUNK_SIZE];
+      private int m_length;
+   }
+
+   private final ExecutorService m_executor;
+   private int m_maximumPayloadSize = 64 * 1024 * 1024;
+
+   public static final byte REQUEST_PATH = 'P';
+   public static final byte REQUEST_DATA = 'D';
+   public static final byte RESPONSE_JSON = 'J';
+   public static final byte RESPONSE_END = 'Z';
+   public static final byte RESPONSE_ERROR = 'E';
+
+   static final int CHUNK_SIZE = 64 * 1024;
+   private static final int QUEUE_SIZE_PER_THREAD = 2;
+}
@@ -34,13 +34,14 @@ import net.sf.mpxj.RelationType;
  */
 abstract class AbstractSDEFRecord implements SDEFRecord
 {
-   @Override public void read(String line)
+   @Override public void read(char[] buffer, int offset, int length)
    {
       int index = 0;
-      int offset = 5;
+      int end = offset + length;
+      offset += 5;
       for (SDEFField field : getFieldDefinitions())
       {
-         m_fields[index++] = field.read(line, offset);
+         m_fields[index++] = field.read(buffer, offset, end);
          offset += (field.getLength() + 1);
       }
    }
@@ -23,9 +23,6 @@
 
 package net.sf.mpxj.sdef;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import net.sf.mpxj.ConstraintType;
 
 /**
@@ -43,25 +40,23 @@ class ConstraintTypeField extends StringField
       super(name, 2);
    }
 
-   @Override public Object read(String line, int offset)
+   @Override protected Object parse(char[] buffer, int start, int end)
    {
-      Object result;
-      String value = ((String)super.read(line, offset));
-      if (value == null || value.isEmpty())
-      {
-         result = null;
-      }
-      else
+      ConstraintType result = null;
+      if (end - start == 2)
       {
-         result = TYPE_MAP.get(value);
+         if (buffer[start] == 'E' && buffer[start + 1] == 'S')
+         {
+            result = ConstraintType.START_NO_EARLIER_THAN;
+         }
+         else
+         {
+            if (buffer[start] == 'L' && buffer[start + 1] == 'F')
+            {
+               result = ConstraintType.FINISH_NO_LATER_THAN;
+            }
+         }
       }
       return result;
    }
-   
-   private static final Map<String, ConstraintType> TYPE_MAP = new HashMap<String, ConstraintType>();
-   static
-   {
-      TYPE_MAP.put("ES", ConstraintType.START_NO_EARLIER_THAN);
-      TYPE_MAP.put("LF", ConstraintType.FINISH_NO_LATER_THAN);
-   }
 }
@@ -26,6 +26,9 @@ package net.sf.mpxj.sdef;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * SDEF Date Field.
@@ -42,25 +45,73 @@ class DateField extends StringField
       super(name, 7);
    }
 
-   @Override public Object read(String line, int offset)
+   @Override protected Object parse(char[] buffer, int start, int end)
    {
-      Object result;
-      String value = ((String)super.read(line, offset));
-      if (value == null || value.isEmpty())
+      if (start == end)
       {
-         result = null;
+         return null;
+      }
+
+      if (end - start > 7)
+      {
+         return parse(new String(buffer, start, end - start));
       }
-      else
+
+      //
+      // The same dates appear many times in a file, so we cache
+      // the result of parsing each one. Dates are at most seven
+      // characters long, so where they are plain ASCII we can
+      // use the characters themselves as the key.
+      //
+      long key = 0;
+      for (int index = start; index < end; index++)
       {
-         try
+         char c = buffer[index];
+         if (c > 0xFF)
          {
-            result = DATE_FORMAT.get().parse(value);
+            return parse(new String(buffer, start, end - start));
          }
-         
-         catch (ParseException e)
+         key = (key << 8) | c;
+      }
+
+      Map<Long, Date> cache = DATE_CACHE.get();
+      Long cacheKey = Long.valueOf(key);
+      Date result = cache.get(cacheKey);
+      if (result == null)
+      {
+         result = parse(new String(buffer, start, end - start));
+         if (result == null)
          {
-            result = null;
+            return null;
          }
+
+         if (cache.size() == MAX_CACHE_SIZE)
+         {
+            cache.clear();
+         }
+         cache.put(cacheKey, result);
+      }
+
+      return new Date(result.getTime());
+   }
+
+   /**
+    * Parse a date value.
+    * 
+    * @param value date value
+    * @return Date instance or null
+    */
+   private Date parse(String value)
+   {
+      Date result;
+      try
+      {
+         result = DATE_FORMAT.get().parse(value);
+      }
+
+      catch (ParseException e)
+      {
+         result = null;
       }
       return result;
    }
@@ -71,6 +122,16 @@ class DateField extends StringField
       {
          return new SimpleDateFormat("ddMMMyy");
       }
-   };            
+   };
+
+   private static final ThreadLocal<Map<Long, Date>> DATE_CACHE = new ThreadLocal<Map<Long, Date>>()
+   {
+      @Override protected Map<Long, Date> initialValue()
+      {
+         return new HashMap<Long, Date>();
+      }
+   };
+
+   private static final int MAX_CACHE_SIZE = 4096;
 
 }
@@ -39,26 +39,114 @@ class DoubleField extends StringField
       super(name, length);
    }
 
-   @Override public Object read(String line, int offset)
+   @Override protected Object parse(char[] buffer, int start, int end)
    {
       Object result;
-      String value = ((String) super.read(line, offset));
-      if (value == null || value.isEmpty())
+      if (start == end)
       {
          result = null;
       }
       else
       {
-         try
+         result = parseSimple(buffer, start, end);
+         if (result == null)
          {
-            result = Double.valueOf(value);
+            try
+            {
+               result = Double.valueOf(new String(buffer, start, end - start));
+            }
+
+            catch (NumberFormatException ex)
+            {
+               result = null;
+            }
          }
+      }
+      return result;
+   }
+
+   /**
+    * Parse a plain decimal value, as found in SDEF cost and quantity fields,
+    * without creating an intermediate string. The value is only parsed here
+    * where the digits and the power of ten are exactly representable
+    * as doubles, so the division gives the same correctly rounded result
+    * as Double.valueOf. Null is returned for any other value.
+    *
+    * @param buffer buffer containing the field
+    * @param start start of the field value
+    * @param end end of the field value
+    * @return Double instance or null
+    */
+   private Double parseSimple(char[] buffer, int start, int end)
+   {
+      boolean negative = false;
+      if (buffer[start] == '-' || buffer[start] == '+')
+      {
+         negative = buffer[start] == '-';
+         ++start;
+      }
 
-         catch (NumberFormatException ex)
+      long mantissa = 0;
+      int digits = 0;
+      int decimalPlaces = -1;
+      for (int index = start; index < end; index++)
+      {
+         char c = buffer[index];
+         if (c >= '0' && c <= '9')
+         {
+            if (++digits > MAX_DIGITS)
+            {
+               return null;
+            }
+            mantissa = (mantissa * 10) + (c - '0');
+            if (decimalPlaces != -1)
+            {
+               ++decimalPlaces;
+            }
+         }
+         else
          {
-            result = null;
+            if (c != '.' || decimalPlaces != -1)
+            {
+               return null;
+            }
+            decimalPlaces = 0;
          }
       }
-      return result;
+
+      if (digits == 0)
+      {
+         return null;
+      }
+
+      double value = mantissa;
+      if (decimalPlaces > 0)
+      {
+         value = value / POWERS_OF_TEN[decimalPlaces];
+      }
+
+      return Double.valueOf(negative ? -value : value);
    }
+
+   private static final int MAX_DIGITS = 15;
+
+   private static final double[] POWERS_OF_TEN =
+   {
+      1e0,
+      1e1,
+      1e2,
+      1e3,
+      1e4,
+      1e5,
+      1e6,
+      1e7,
+      1e8,
+      1e9,
+      1e10,
+      1e11,
+      1e12,
+      1e13,
+      1e14,
+      1e15
+   };
 }
@@ -42,10 +42,10 @@ class DurationField extends IntegerField
       super(name, length);
    }
 
-   @Override public Object read(String line, int offset)
+   @Override protected Object parse(char[] buffer, int start, int end)
    {
       Object result;
-      Integer value = ((Integer)super.read(line, offset));
+      Integer value = ((Integer) super.parse(buffer, start, end));
       if (value == null)
       {
          result = null;
@@ -39,25 +39,48 @@ class IntegerField extends StringField
       super(name, length);
    }
 
-   @Override public Object read(String line, int offset)
+   @Override protected Object parse(char[] buffer, int start, int end)
    {
-      Object result;
-      String value = ((String) super.read(line, offset));
-      if (value == null || value.isEmpty())
+      boolean negative = false;
+      if (start < end && (buffer[start] == '-' || buffer[start] == '+'))
       {
-         result = null;
+         negative = buffer[start] == '-';
+         ++start;
       }
-      else
+
+      if (start == end)
+      {
+         return null;
+      }
+
+      long value = 0;
+      for (int index = start; index < end; index++)
       {
-         try
+         int digit = Character.digit(buffer[index], 10);
+         if (digit == -1)
          {
-            result = Integer.valueOf(value);
+            return null;
          }
-         catch (NumberFormatException ex)
+
+         value = (value * 10) + digit;
+         if (value > MAX_VALUE)
          {
-            result = null;
+            return null;
          }
       }
-      return result;
+
+      if (negative)
+      {
+         value = -value;
+      }
+
+      if (value > Integer.MAX_VALUE)
+      {
+         return null;
+      }
+
+      return Integer.valueOf((int) value);
    }
+
+   private static final long MAX_VALUE = -(long) Integer.MIN_VALUE;
 }
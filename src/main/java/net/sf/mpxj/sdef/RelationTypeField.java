@@ -22,9 +22,6 @@
  */
 package net.sf.mpxj.sdef;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import net.sf.mpxj.RelationType;
 
 /**
@@ -42,26 +39,37 @@ class RelationTypeField extends StringField
       super(name, 1);
    }
 
-   @Override public Object read(String line, int offset)
+   @Override protected Object parse(char[] buffer, int start, int end)
    {
-      Object result;
-      String value = ((String)super.read(line, offset));
-      if (value == null || value.isEmpty())
-      {
-         result = null;
-      }
-      else
+      RelationType result = null;
+      if (end - start == 1)
       {
-         result = TYPE_MAP.get(value);
+         switch (buffer[start])
+         {
+            case 'S':
+            {
+               result = RelationType.START_START;
+               break;
+            }
+
+            case 'F':
+            {
+               result = RelationType.FINISH_FINISH;
+               break;
+            }
+
+            case 'C':
+            {
+               result = RelationType.FINISH_START;
+               break;
+            }
+
+            default:
+            {
+               break;
+            }
+         }
       }
       return result;
    }
-   
-   private static final Map<String, RelationType> TYPE_MAP = new HashMap<String, RelationType>();
-   static
-   {
-      TYPE_MAP.put("S", RelationType.START_START);
-      TYPE_MAP.put("F", RelationType.FINISH_FINISH);
-      TYPE_MAP.put("C", RelationType.FINISH_START);
-   }
 }
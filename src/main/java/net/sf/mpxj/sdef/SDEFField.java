@@ -37,9 +37,10 @@ interface SDEFField
    /**
     * Read the value for this field.
     * 
-    * @param line record
-    * @param offset offset into record
+    * @param buffer buffer containing the record
+    * @param offset offset of this field in the buffer
+    * @param end offset of the end of the record in the buffer
     * @return field value
     */
-   Object read(String line, int offset);
+   Object read(char[] buffer, int offset, int end);
 }
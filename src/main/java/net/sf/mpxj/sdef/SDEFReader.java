@@ -23,19 +23,24 @@
 
 package net.sf.mpxj.sdef;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import net.sf.mpxj.CustomFieldContainer;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.ParallelHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.AbstractProjectReader;
 
@@ -82,13 +87,17 @@ public final class SDEFReader extends AbstractProjectReader
 
       context.getEventManager().addProjectListeners(m_projectListeners);
 
-      BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+      SDEFRecordReader reader = new SDEFRecordReader(new InputStreamReader(inputStream));
 
       try
       {
-         while (processLine(context, reader.readLine()))
+         if (m_threadCount < 2)
          {
-            // empty block
+            readRecords(context, reader);
+         }
+         else
+         {
+            readRecords(context, reader, m_threadCount);
          }
       }
 
@@ -101,20 +110,134 @@ public final class SDEFReader extends AbstractProjectReader
    }
 
    /**
-    * Process a single SDEF  record.
+    * Set the number of threads used to decode records. Records are
+    * decoded in batches, with each batch being processed in file order
+    * once it has been decoded. Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Read and process each record in turn.
     * 
     * @param context current context
-    * @param line current record
-    * @return false if we have reached the end of the file
+    * @param reader record reader
     */
-   private boolean processLine(Context context, String line) throws MPXJException
+   private void readRecords(Context context, SDEFRecordReader reader) throws IOException, MPXJException
    {
-      if (line == null || line.startsWith("END"))
+      while (reader.readRecord() && !isEndRecord(reader.getBuffer(), 0, reader.getLength()))
       {
-         return false;
+         readRecord(reader.getBuffer(), 0, reader.getLength()).process(context);
       }
+   }
+
+   /**
+    * Read records in batches. The records in each batch are decoded in
+    * parallel, then processed in file order, so calendars are known before
+    * the activities which use them, and activities are known before the
+    * precedence and progress records which refer to them.
+    * 
+    * @param context current context
+    * @param reader record reader
+    * @param threadCount number of threads used to decode records
+    */
+   private void readRecords(Context context, SDEFRecordReader reader, int threadCount) throws IOException, MPXJException
+   {
+      ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+      try
+      {
+         RecordBatch batch = new RecordBatch();
+         boolean endOfFile = false;
+         while (!endOfFile)
+         {
+            batch.clear();
+            while (batch.getSize() < BATCH_SIZE)
+            {
+               if (!reader.readRecord() || isEndRecord(reader.getBuffer(), 0, reader.getLength()))
+               {
+                  endOfFile = true;
+                  break;
+               }
+               batch.add(reader.getBuffer(), reader.getLength());
+            }
 
-      String recordID = line.substring(0, 4);
+            for (SDEFRecord record : readRecords(executor, threadCount, batch))
+            {
+               record.process(context);
+            }
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Decode a batch of records in parallel.
+    * 
+    * @param executor executor used to decode the records
+    * @param threadCount number of threads used to decode records
+    * @param batch batch of records
+    * @return decoded records, in file order
+    */
+   private SDEFRecord[] readRecords(ExecutorService executor, int threadCount, final RecordBatch batch) throws MPXJException
+   {
+      final SDEFRecord[] result = new SDEFRecord[batch.getSize()];
+      int chunkSize = (result.length + threadCount - 1) / threadCount;
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threadCount);
+
+      for (int chunkStart = 0; chunkStart < result.length; chunkStart += chunkSize)
+      {
+         final int from = chunkStart;
+         final int to = Math.min(chunkStart + chunkSize, result.length);
+         tasks.add(new Callable<Void>()
+         {
+            @Override public Void call() throws MPXJException
+            {
+               for (int index = from; index < to; index++)
+               {
+                  result[index] = readRecord(batch.getData(), batch.getOffset(index), batch.getLength(index));
+               }
+               return null;
+            }
+         });
+      }
+
+      ParallelHelper.invokeAll(executor, tasks, MPXJException.class);
+      return result;
+   }
+
+   /**
+    * Determine if this is the record which marks the end of the file.
+    * 
+    * @param buffer buffer containing the record
+    * @param offset offset of the record in the buffer
+    * @param length record length
+    * @return true if this is the end record
+    */
+   private boolean isEndRecord(char[] buffer, int offset, int length)
+   {
+      return length >= 3 && buffer[offset] == 'E' && buffer[offset + 1] == 'N' && buffer[offset + 2] == 'D';
+   }
+
+   /**
+    * Decode a single SDEF record.
+    * 
+    * @param buffer buffer containing the record
+    * @param offset offset of the record in the buffer
+    * @param length record length
+    * @return decoded record
+    */
+   private SDEFRecord readRecord(char[] buffer, int offset, int length) throws MPXJException
+   {
+      String recordID = new String(buffer, offset, Math.min(length, 4));
       Class<? extends SDEFRecord> klass = RECORD_MAP.get(recordID);
       if (klass == null)
       {
@@ -132,14 +255,104 @@ public final class SDEFReader extends AbstractProjectReader
          throw new MPXJException(MPXJException.READ_ERROR, e);
       }
       
-      record.read(line);
-      
-      record.process(context);
+      record.read(buffer, offset, length);
       
-      return true;
+      return record;
+   }
+
+   /**
+    * A batch of records held in a single character buffer.
+    */
+   private static final class RecordBatch
+   {
+      /**
+       * Add a record to the batch.
+       * 
+       * @param buffer buffer containing the record
+       * @param length record length
+       */
+      public void add(char[] buffer, int length)
+      {
+         if (m_size == m_offsets.length)
+         {
+            m_offsets = Arrays.copyOf(m_offsets, m_size * 2);
+            m_lengths = Arrays.copyOf(m_lengths, m_size * 2);
+         }
+
+         if (m_dataLength + length > m_data.length)
+         {
+            m_data = Arrays.copyOf(m_data, Math.max(m_data.length * 2, m_dataLength + length));
+         }
+
+         System.arraycopy(buffer, 0, m_data, m_dataLength, length);
+         m_offsets[m_size] = m_dataLength;
+         m_lengths[m_size] = length;
+         m_dataLength += length;
+         ++m_size;
+      }
+
+      /**
+       * Remove all records from the batch.
+       */
+      public void clear()
+      {
+         m_size = 0;
+         m_dataLength = 0;
+      }
+
+      /**
+       * Retrieve the number of records in the batch.
+       * 
+       * @return record count
+       */
+      public int getSize()
+      {
+         return m_size;
+      }
+
+      /**
+       * Retrieve the buffer holding the records.
+       * 
+       * @return record buffer
+       */
+      public char[] getData()
+      {
+         return m_data;
+      }
+
+      /**
+       * Retrieve the offset of a record in the buffer.
+       * 
+       * @param index record index
+       * @return record offset
+       */
+      public int getOffset(int index)
+      {
+         return m_offsets[index];
+      }
+
+      /**
+       * Retrieve the length of a record.
+       * 
+       * @param index record index
+       * @return record length
+       */
+      public int getLength(int index)
+      {
+         return m_lengths[index];
+      }
+
+      private char[] m_data = new char[BATCH_SIZE * 128];
+      private int m_dataLength;
+      private int[] m_offsets = new int[BATCH_SIZE];
+      private int[] m_lengths = new int[BATCH_SIZE];
+      private int m_size;
    }
 
    private List<ProjectListener> m_projectListeners;
+   private int m_threadCount = 1;
+
+   private static final int BATCH_SIZE = 4096;
 
    private static final Map<String, Class<? extends SDEFRecord>> RECORD_MAP = new HashMap<String, Class<? extends SDEFRecord>>();
    static
@@ -31,9 +31,11 @@ interface SDEFRecord
    /**
     * Extract fields from the record.
     * 
-    * @param line record data
+    * @param buffer buffer containing the record
+    * @param offset offset of the record in the buffer
+    * @param length record length
     */
-   void read(String line);
+   void read(char[] buffer, int offset, int length);
    
    /**
     * Process the extracted fields.
@@ -0,0 +1,145 @@
+/*
+ * file:       SDEFRecordReader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+package net.sf.mpxj.sdef;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads SDEF records one line at a time into a reusable character buffer,
+ * allowing fields to be decoded without creating a string for each line.
+ */
+class SDEFRecordReader
+{
+   /**
+    * Constructor.
+    * 
+    * @param reader source of SDEF data
+    */
+   public SDEFRecordReader(Reader reader)
+   {
+      m_reader = reader;
+   }
+
+   /**
+    * Read the next record. Records are terminated by a line feed,
+    * a carriage return, or a carriage return followed by a line feed.
+    * 
+    * @return false if the end of the data has been reached
+    */
+   public boolean readRecord() throws IOException
+   {
+      m_length = 0;
+      boolean recordRead = false;
+
+      while (true)
+      {
+         if (m_inputIndex == m_inputLength)
+         {
+            m_inputLength = m_reader.read(m_input, 0, m_input.length);
+            m_inputIndex = 0;
+            if (m_inputLength == -1)
+            {
+               m_inputLength = 0;
+               return recordRead;
+            }
+         }
+
+         if (m_skipLineFeed)
+         {
+            m_skipLineFeed = false;
+            if (m_input[m_inputIndex] == '\n')
+            {
+               ++m_inputIndex;
+               continue;
+            }
+         }
+
+         recordRead = true;
+
+         int start = m_inputIndex;
+         while (m_inputIndex < m_inputLength)
+         {
+            char c = m_input[m_inputIndex];
+            if (c == '\n' || c == '\r')
+            {
+               append(start, m_inputIndex);
+               m_skipLineFeed = c == '\r';
+               ++m_inputIndex;
+               return true;
+            }
+            ++m_inputIndex;
+         }
+
+         append(start, m_inputIndex);
+      }
+   }
+
+   /**
+    * Retrieve the buffer holding the current record. Note that the
+    * buffer is reused when the next record is read.
+    * 
+    * @return record buffer
+    */
+   public char[] getBuffer()
+   {
+      return m_record;
+   }
+
+   /**
+    * Retrieve the length of the current record.
+    * 
+    * @return record length
+    */
+   public int getLength()
+   {
+      return m_length;
+   }
+
+   /**
+    * Append characters from the input buffer to the current record.
+    * 
+    * @param start start offset in the input buffer
+    * @param end end offset in the input buffer
+    */
+   private void append(int start, int end)
+   {
+      int count = end - start;
+      if (m_length + count > m_record.length)
+      {
+         char[] record = new char[Math.max(m_record.length * 2, m_length + count)];
+         System.arraycopy(m_record, 0, record, 0, m_length);
+         m_record = record;
+      }
+      System.arraycopy(m_input, start, m_record, m_length, count);
+      m_length += count;
+   }
+
+   private final Reader m_reader;
+   private final char[] m_input = new char[8192];
+   private int m_inputIndex;
+   private int m_inputLength;
+   private boolean m_skipLineFeed;
+   private char[] m_record = new char[256];
+   private int m_length;
+}
@@ -0,0 +1,272 @@
+/*
+ * file:       SDEFRecordWriter.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+package net.sf.mpxj.sdef;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Builds SDEF records in a reusable character buffer, padding each
+ * field to its fixed width, and writes each completed record as a line.
+ */
+class SDEFRecordWriter
+{
+   /**
+    * Constructor.
+    * 
+    * @param stream output stream
+    */
+   public SDEFRecordWriter(OutputStream stream)
+   {
+      m_writer = new BufferedWriter(new OutputStreamWriter(stream));
+
+      //
+      // Take the month names from dates formatted using the USACE
+      // date format "ddMMMyy", converted to upper case.
+      //
+      SimpleDateFormat format = new SimpleDateFormat("ddMMMyy");
+      Calendar cal = Calendar.getInstance();
+      cal.clear();
+      cal.set(2000, Calendar.JANUARY, 1);
+      for (int month = 0; month < m_months.length; month++)
+      {
+         cal.set(Calendar.MONTH, month);
+         String date = format.format(cal.getTime()).toUpperCase();
+         m_months[month] = date.substring(2, date.length() - 2);
+      }
+   }
+
+   /**
+    * Append a string.
+    * 
+    * @param value string value
+    * @return this writer
+    */
+   public SDEFRecordWriter append(String value)
+   {
+      int length = value.length();
+      ensureCapacity(length);
+      value.getChars(0, length, m_buffer, m_length);
+      m_length += length;
+      return this;
+   }
+
+   /**
+    * Append a single character.
+    * 
+    * @param value character value
+    * @return this writer
+    */
+   public SDEFRecordWriter append(char value)
+   {
+      ensureCapacity(1);
+      m_buffer[m_length++] = value;
+      return this;
+   }
+
+   /**
+    * Append a string, left aligned in a field of the given width.
+    * Long values are truncated, and null values are written as blanks.
+    * 
+    * @param value string value
+    * @param width field width
+    * @return this writer
+    */
+   public SDEFRecordWriter lset(String value, int width)
+   {
+      int length = value == null ? 0 : Math.min(value.length(), width);
+      ensureCapacity(width);
+      if (length != 0)
+      {
+         value.getChars(0, length, m_buffer, m_length);
+      }
+      Arrays.fill(m_buffer, m_length + length, m_length + width, ' ');
+      m_length += width;
+      return this;
+   }
+
+   /**
+    * Append a string, right aligned in a field of the given width.
+    * Long values are truncated, and null values are written as blanks.
+    * 
+    * @param value string value
+    * @param width field width
+    * @return this writer
+    */
+   public SDEFRecordWriter rset(String value, int width)
+   {
+      int length = value == null ? 0 : Math.min(value.length(), width);
+      ensureCapacity(width);
+      Arrays.fill(m_buffer, m_length, m_length + width - length, ' ');
+      if (length != 0)
+      {
+         value.getChars(0, length, m_buffer, m_length + width - length);
+      }
+      m_length += width;
+      return this;
+   }
+
+   /**
+    * Append an integer, left aligned in a field of the given width.
+    * Long values are truncated.
+    * 
+    * @param value integer value
+    * @param width field width
+    * @return this writer
+    */
+   public SDEFRecordWriter lset(int value, int width)
+   {
+      int length = appendInteger(value, width);
+      Arrays.fill(m_buffer, m_length + length, m_length + width, ' ');
+      m_length += width;
+      return this;
+   }
+
+   /**
+    * Append an integer, right aligned in a field of the given width.
+    * Long values are truncated.
+    * 
+    * @param value integer value
+    * @param width field width
+    * @return this writer
+    */
+   public SDEFRecordWriter rset(int value, int width)
+   {
+      int length = appendInteger(value, width);
+      System.arraycopy(m_buffer, m_length, m_buffer, m_length + width - length, length);
+      Arrays.fill(m_buffer, m_length, m_length + width - length, ' ');
+      m_length += width;
+      return this;
+   }
+
+   /**
+    * Append a date in the USACE format, for example 01JAN20.
+    * 
+    * @param value date value
+    * @return this writer
+    */
+   public SDEFRecordWriter date(Date value)
+   {
+      m_calendar.setTime(value);
+      appendTwoDigits(m_calendar.get(Calendar.DAY_OF_MONTH));
+      append(m_months[m_calendar.get(Calendar.MONTH)]);
+      appendTwoDigits(m_calendar.get(Calendar.YEAR) % 100);
+      return this;
+   }
+
+   /**
+    * Write the current record as a line, and clear the buffer
+    * ready for the next record.
+    */
+   public void writeRecord() throws IOException
+   {
+      m_writer.write(m_buffer, 0, m_length);
+      m_writer.newLine();
+      m_length = 0;
+   }
+
+   /**
+    * Clear the buffer without writing the current record.
+    */
+   public void clear()
+   {
+      m_length = 0;
+   }
+
+   /**
+    * Flush any buffered output to the output stream.
+    */
+   public void flush() throws IOException
+   {
+      m_writer.flush();
+   }
+
+   /**
+    * Write the digits of an integer at the end of the buffer,
+    * without updating the buffer length.
+    * 
+    * @param value integer value
+    * @param width maximum number of characters to write
+    * @return number of characters written
+    */
+   private int appendInteger(int value, int width)
+   {
+      long absolute = Math.abs((long) value);
+      int length = value < 0 ? 2 : 1;
+      for (long remainder = absolute / 10; remainder != 0; remainder /= 10)
+      {
+         ++length;
+      }
+
+      ensureCapacity(Math.max(length, width));
+      for (int index = m_length + length - 1; index >= m_length; index--)
+      {
+         m_buffer[index] = (char) ('0' + absolute % 10);
+         absolute /= 10;
+      }
+
+      if (value < 0)
+      {
+         m_buffer[m_length] = '-';
+      }
+
+      return Math.min(length, width);
+   }
+
+   /**
+    * Append a value as two digits, with a leading zero if required.
+    * 
+    * @param value integer value in the range 0-99
+    */
+   private void appendTwoDigits(int value)
+   {
+      ensureCapacity(2);
+      m_buffer[m_length++] = (char) ('0' + value / 10);
+      m_buffer[m_length++] = (char) ('0' + value % 10);
+   }
+
+   /**
+    * Ensure the buffer can hold the given number of additional characters.
+    * 
+    * @param count number of characters
+    */
+   private void ensureCapacity(int count)
+   {
+      if (m_length + count > m_buffer.length)
+      {
+         m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_length + count));
+      }
+   }
+
+   private final BufferedWriter m_writer;
+   private final Calendar m_calendar = Calendar.getInstance();
+   private final String[] m_months = new String[12];
+   private char[] m_buffer = new char[256];
+   private int m_length;
+}
@@ -36,10 +36,7 @@ package net.sf.mpxj.sdef;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.text.DecimalFormat;
-import java.text.Format;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -64,9 +61,9 @@ public final class SDEFWriter extends AbstractProjectWriter
 {
    private ProjectFile m_projectFile; // from MPXJ library
    private EventManager m_eventManager;
-   private PrintStream m_writer; // line out to a text file
-   private StringBuilder m_buffer; // used to accumulate characters
-   private Format m_formatter = new SimpleDateFormat("ddMMMyy"); // USACE required format
+   private SDEFRecordWriter m_writer; // fixed width records out to a text file
+   private DecimalFormat m_costFormat; // USACE required currency format
+   private String m_zeroCost;
    private double m_minutesPerDay;
    private double m_minutesPerWeek; // needed to get everything into days
    private double m_daysPerMonth;
@@ -82,12 +79,14 @@ public final class SDEFWriter extends AbstractProjectWriter
       m_projectFile = projectFile;
       m_eventManager = projectFile.getEventManager();
 
-      m_writer = new PrintStream(out); // the print stream class is the easiest way to create a text file
-      m_buffer = new StringBuilder();
+      m_writer = new SDEFRecordWriter(out);
+      m_costFormat = new DecimalFormat("#0.00");
+      m_zeroCost = m_costFormat.format(0.00);
 
       try
       {
          write(); // method call a method, this is how MPXJ is structured, so I followed the lead?
+         m_writer.flush();
       }
 
       //      catch (Exception e)
@@ -100,7 +99,7 @@ public final class SDEFWriter extends AbstractProjectWriter
       { // keeps things cool after we're done
          m_writer = null;
          m_projectFile = null;
-         m_buffer = null;
+         m_costFormat = null;
       }
    }
 
@@ -120,7 +119,7 @@ public final class SDEFWriter extends AbstractProjectWriter
       writePredecessors(m_projectFile.getTasks()); // PRED
       // skipped UNIT cost record for now
       writeProgress(m_projectFile.getTasks()); // PROG
-      m_writer.println("END"); // last line, that's the end!!!
+      m_writer.append("END").writeRecord(); // last line, that's the end!!!
    }
 
    /**
@@ -130,7 +129,7 @@ public final class SDEFWriter extends AbstractProjectWriter
     */
    private void writeFileCreationRecord() throws IOException
    {
-      m_writer.println("VOLM 1"); // first line in file
+      m_writer.append("VOLM 1").writeRecord(); // first line in file
    }
 
    /**
@@ -149,18 +148,17 @@ public final class SDEFWriter extends AbstractProjectWriter
       m_minutesPerWeek = record.getMinutesPerWeek().doubleValue();
       m_daysPerMonth = record.getDaysPerMonth().doubleValue();
 
-      // reset buffer to be empty, then concatenate data as required by USACE
-      m_buffer.setLength(0);
-      m_buffer.append("PROJ ");
-      m_buffer.append(m_formatter.format(record.getStartDate()).toUpperCase() + " "); // DataDate
-      m_buffer.append(SDEFmethods.lset(record.getManager(), 4) + " "); // ProjIdent
-      m_buffer.append(SDEFmethods.lset(record.getProjectTitle(), 48) + " "); // ProjName
-      m_buffer.append(SDEFmethods.lset(record.getSubject(), 36) + " "); // ContrName
-      m_buffer.append("P "); // ArrowP
-      m_buffer.append(SDEFmethods.lset(record.getKeywords(), 7)); // ContractNum
-      m_buffer.append(m_formatter.format(record.getStartDate()).toUpperCase() + " "); // ProjStart
-      m_buffer.append(m_formatter.format(record.getFinishDate()).toUpperCase()); // ProjEnd
-      m_writer.println(m_buffer);
+      // concatenate data as required by USACE
+      m_writer.append("PROJ ");
+      m_writer.date(record.getStartDate()).append(' '); // DataDate
+      m_writer.lset(record.getManager(), 4).append(' '); // ProjIdent
+      m_writer.lset(record.getProjectTitle(), 48).append(' '); // ProjName
+      m_writer.lset(record.getSubject(), 36).append(' '); // ContrName
+      m_writer.append("P "); // ArrowP
+      m_writer.lset(record.getKeywords(), 7); // ContractNum
+      m_writer.date(record.getStartDate()).append(' '); // ProjStart
+      m_writer.date(record.getFinishDate()); // ProjEnd
+      m_writer.writeRecord();
    }
 
    /**
@@ -170,7 +168,7 @@ public final class SDEFWriter extends AbstractProjectWriter
     *
     * @param records list of ProjectCalendar instances
     */
-   private void writeCalendars(List<ProjectCalendar> records)
+   private void writeCalendars(List<ProjectCalendar> records) throws IOException
    {
 
       //
@@ -178,13 +176,12 @@ public final class SDEFWriter extends AbstractProjectWriter
       //
       for (ProjectCalendar record : records)
       {
-         m_buffer.setLength(0);
-         m_buffer.append("CLDR ");
-         m_buffer.append(SDEFmethods.lset(record.getUniqueID().toString(), 2)); // 2 character used, USACE allows 1
+         m_writer.append("CLDR ");
+         m_writer.lset(record.getUniqueID().intValue(), 2); // 2 character used, USACE allows 1
          String workDays = SDEFmethods.workDays(record); // custom line, like NYYYYYN for a week
-         m_buffer.append(SDEFmethods.lset(workDays, 8));
-         m_buffer.append(SDEFmethods.lset(record.getName(), 30));
-         m_writer.println(m_buffer);
+         m_writer.lset(workDays, 8);
+         m_writer.lset(record.getName(), 30);
+         m_writer.writeRecord();
       }
    }
 
@@ -222,19 +219,18 @@ public final class SDEFWriter extends AbstractProjectWriter
     */
    private void writeCalendarException(ProjectCalendar parentCalendar, ProjectCalendarException record) throws IOException
    {
-      m_buffer.setLength(0);
       Calendar stepDay = DateHelper.popCalendar(record.getFromDate()); // Start at From Date, then step through days...
       Calendar lastDay = DateHelper.popCalendar(record.getToDate()); // last day in this exception
 
-      m_buffer.append("HOLI ");
-      m_buffer.append(SDEFmethods.lset(parentCalendar.getUniqueID().toString(), 2));
+      m_writer.append("HOLI ");
+      m_writer.lset(parentCalendar.getUniqueID().intValue(), 2);
 
       while (stepDay.compareTo(lastDay) <= 0)
       {
-         m_buffer.append(m_formatter.format(stepDay.getTime()).toUpperCase() + " ");
+         m_writer.date(stepDay.getTime()).append(' ');
          stepDay.add(Calendar.DAY_OF_MONTH, 1);
       }
-      m_writer.println(m_buffer.toString());
+      m_writer.writeRecord();
       
       DateHelper.pushCalendar(stepDay);
       DateHelper.pushCalendar(lastDay);
@@ -248,23 +244,14 @@ public final class SDEFWriter extends AbstractProjectWriter
     */
    private void writeTask(Task record) throws IOException
    {
-      m_buffer.setLength(0);
       if (!record.getSummary())
       {
-         m_buffer.append("ACTV ");
-         m_buffer.append(SDEFmethods.rset(record.getUniqueID().toString(), 10) + " ");
-         m_buffer.append(SDEFmethods.lset(record.getName(), 30) + " ");
+         m_writer.append("ACTV ");
+         m_writer.rset(record.getUniqueID().intValue(), 10).append(' ');
+         m_writer.lset(record.getName(), 30).append(' ');
 
          // Following just makes certain we have days for duration, as per USACE spec.
-         Duration dd = record.getDuration();
-         double duration = dd.getDuration();
-         if (dd.getUnits() != TimeUnit.DAYS)
-         {
-            dd = Duration.convertUnits(duration, dd.getUnits(), TimeUnit.DAYS, m_minutesPerDay, m_minutesPerWeek, m_daysPerMonth);
-         }
-         Double days = Double.valueOf(dd.getDuration() + 0.5); // Add 0.5 so half day rounds up upon truncation
-         Integer est = Integer.valueOf(days.intValue());
-         m_buffer.append(SDEFmethods.rset(est.toString(), 3) + " "); // task duration in days required by USACE
+         m_writer.rset(getDays(record.getDuration()), 3).append(' '); // task duration in days required by USACE
 
          String conType = "ES "; // assume early start
          Date conDate = record.getEarlyStart();
@@ -274,28 +261,28 @@ public final class SDEFWriter extends AbstractProjectWriter
             conType = "LF "; // see ConstraintType enum for definitions
             conDate = record.getLateFinish();
          }
-         m_buffer.append(m_formatter.format(conDate).toUpperCase() + " "); // Constraint Date
-         m_buffer.append(conType); // Constraint Type
+         m_writer.date(conDate).append(' '); // Constraint Date
+         m_writer.append(conType); // Constraint Type
          if (record.getCalendar() == null)
          {
-            m_buffer.append("1 ");
+            m_writer.append("1 ");
          }
          else
          {
-            m_buffer.append(SDEFmethods.lset(record.getCalendar().getUniqueID().toString(), 1) + " ");
+            m_writer.lset(record.getCalendar().getUniqueID().intValue(), 1).append(' ');
          }
          // skipping hammock code in here
          // use of text fields for extra USACE data is suggested at my web site: www.geocomputer.com
          // not documented on how to do this here, so I need to comment out at present
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText1(), 3) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText2(), 4) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText3(), 4) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText4(), 6) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText5(), 6) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText6(), 2) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText7(), 1) + " ");
-         //	      m_buffer.append(SDEFmethods.Lset(record.getText8(), 30) + " ");
-         m_writer.println(m_buffer.toString());
+         //	      m_writer.lset(record.getText1(), 3).append(' ');
+         //	      m_writer.lset(record.getText2(), 4).append(' ');
+         //	      m_writer.lset(record.getText3(), 4).append(' ');
+         //	      m_writer.lset(record.getText4(), 6).append(' ');
+         //	      m_writer.lset(record.getText5(), 6).append(' ');
+         //	      m_writer.lset(record.getText6(), 2).append(' ');
+         //	      m_writer.lset(record.getText7(), 1).append(' ');
+         //	      m_writer.lset(record.getText8(), 30).append(' ');
+         m_writer.writeRecord();
          m_eventManager.fireTaskWrittenEvent(record);
       }
    }
@@ -319,7 +306,7 @@ public final class SDEFWriter extends AbstractProjectWriter
     *
     * @param tasks list of Task instances
     */
-   private void writePredecessors(List<Task> tasks)
+   private void writePredecessors(List<Task> tasks) throws IOException
    {
       for (Task task : tasks)
       {
@@ -332,39 +319,29 @@ public final class SDEFWriter extends AbstractProjectWriter
     *
     * @param record Task instance
     */
-   private void writeTaskPredecessors(Task record)
+   private void writeTaskPredecessors(Task record) throws IOException
    {
-      m_buffer.setLength(0);
       //
       // Write the task predecessor
       //
       if (!record.getSummary() && !record.getPredecessors().isEmpty())
       { // I don't use summary tasks for SDEF
-         m_buffer.append("PRED ");
+         m_writer.append("PRED ");
          List<Relation> predecessors = record.getPredecessors();
 
          for (Relation pred : predecessors)
          {
-            m_buffer.append(SDEFmethods.rset(pred.getSourceTask().getUniqueID().toString(), 10) + " ");
-            m_buffer.append(SDEFmethods.rset(pred.getTargetTask().getUniqueID().toString(), 10) + " ");
-            String type = "C"; // default finish-to-start
+            m_writer.rset(pred.getSourceTask().getUniqueID().intValue(), 10).append(' ');
+            m_writer.rset(pred.getTargetTask().getUniqueID().intValue(), 10).append(' ');
+            char type = 'C'; // default finish-to-start
             if (!pred.getType().toString().equals("FS"))
             {
-               type = pred.getType().toString().substring(0, 1);
-            }
-            m_buffer.append(type + " ");
-
-            Duration dd = pred.getLag();
-            double duration = dd.getDuration();
-            if (dd.getUnits() != TimeUnit.DAYS)
-            {
-               dd = Duration.convertUnits(duration, dd.getUnits(), TimeUnit.DAYS, m_minutesPerDay, m_minutesPerWeek, m_daysPerMonth);
+               type = pred.getType().toString().charAt(0);
             }
-            Double days = Double.valueOf(dd.getDuration() + 0.5); // Add 0.5 so half day rounds up upon truncation
-            Integer est = Integer.valueOf(days.intValue());
-            m_buffer.append(SDEFmethods.rset(est.toString(), 4) + " "); // task duration in days required by USACE
+            m_writer.append(type).append(' ');
+            m_writer.rset(getDays(pred.getLag()), 4).append(' '); // task duration in days required by USACE
          }
-         m_writer.println(m_buffer.toString());
+         m_writer.writeRecord();
       }
    }
 
@@ -377,64 +354,47 @@ public final class SDEFWriter extends AbstractProjectWriter
     *
     * @param record Task instance
     */
-   private void writePROG(Task record)
+   private void writePROG(Task record) throws IOException
    {
-      m_buffer.setLength(0);
       //
       // Write the progress record
       //
       if (!record.getSummary())
       { // I don't use summary tasks for SDEF
-         m_buffer.append("PROG ");
-         m_buffer.append(SDEFmethods.rset(record.getUniqueID().toString(), 10) + " ");
+         m_writer.append("PROG ");
+         m_writer.rset(record.getUniqueID().intValue(), 10).append(' ');
          Date temp = record.getActualStart();
          if (temp == null)
          {
-            m_buffer.append("        "); // SDEf is column sensitive, so the number of blanks here is crucial
+            m_writer.append("        "); // SDEf is column sensitive, so the number of blanks here is crucial
          }
          else
          {
-            m_buffer.append(m_formatter.format(record.getActualStart()).toUpperCase() + " "); // ACTUAL START DATE
+            m_writer.date(temp).append(' '); // ACTUAL START DATE
          }
          temp = record.getActualFinish();
          if (temp == null)
          {
-            m_buffer.append("        ");
+            m_writer.append("        ");
          }
          else
          {
-            m_buffer.append(m_formatter.format(record.getActualFinish()).toUpperCase() + " "); // ACTUAL FINISH DATE
+            m_writer.date(temp).append(' '); // ACTUAL FINISH DATE
          }
 
-         Duration dd = record.getRemainingDuration();
-         double duration = dd.getDuration();
-         if (dd.getUnits() != TimeUnit.DAYS)
-         {
-            dd = Duration.convertUnits(duration, dd.getUnits(), TimeUnit.DAYS, m_minutesPerDay, m_minutesPerWeek, m_daysPerMonth);
-         }
-         Double days = Double.valueOf(dd.getDuration() + 0.5); // Add 0.5 so half day rounds up upon truncation
-         Integer est = Integer.valueOf(days.intValue());
-         m_buffer.append(SDEFmethods.rset(est.toString(), 3) + " "); // task duration in days required by USACE
-
-         DecimalFormat twoDec = new DecimalFormat("#0.00"); // USACE required currency format
-         m_buffer.append(SDEFmethods.rset(twoDec.format(record.getCost().floatValue()), 12) + " ");
-         m_buffer.append(SDEFmethods.rset(twoDec.format(0.00), 12) + " "); // *** assume zero progress on cost
-         m_buffer.append(SDEFmethods.rset(twoDec.format(0.00), 12) + " "); // *** assume zero progress on cost
-         m_buffer.append(m_formatter.format(record.getEarlyStart()).toUpperCase() + " ");
-         m_buffer.append(m_formatter.format(record.getEarlyFinish()).toUpperCase() + " ");
-         m_buffer.append(m_formatter.format(record.getLateStart()).toUpperCase() + " ");
-         m_buffer.append(m_formatter.format(record.getLateFinish()).toUpperCase() + " ");
-
-         dd = record.getTotalSlack();
-         duration = dd.getDuration();
-         if (dd.getUnits() != TimeUnit.DAYS)
-         {
-            dd = Duration.convertUnits(duration, dd.getUnits(), TimeUnit.DAYS, m_minutesPerDay, m_minutesPerWeek, m_daysPerMonth);
-         }
-         days = Double.valueOf(dd.getDuration() + 0.5); // Add 0.5 so half day rounds up upon truncation
-         est = Integer.valueOf(days.intValue());
+         m_writer.rset(getDays(record.getRemainingDuration()), 3).append(' '); // task duration in days required by USACE
+
+         m_writer.rset(m_costFormat.format(record.getCost().floatValue()), 12).append(' ');
+         m_writer.rset(m_zeroCost, 12).append(' '); // *** assume zero progress on cost
+         m_writer.rset(m_zeroCost, 12).append(' '); // *** assume zero progress on cost
+         m_writer.date(record.getEarlyStart()).append(' ');
+         m_writer.date(record.getEarlyFinish()).append(' ');
+         m_writer.date(record.getLateStart()).append(' ');
+         m_writer.date(record.getLateFinish()).append(' ');
+
+         int days = getDays(record.getTotalSlack());
          char slack;
-         if (est.intValue() >= 0)
+         if (days >= 0)
          {
             slack = '+'; // USACE likes positive slack, so they separate the sign from the value
          }
@@ -442,10 +402,9 @@ public final class SDEFWriter extends AbstractProjectWriter
          {
             slack = '-'; // only write a negative when it's negative, i.e. can't be done in project management terms!!!
          }
-         m_buffer.append(slack + " ");
-         est = Integer.valueOf(Math.abs(days.intValue()));
-         m_buffer.append(SDEFmethods.rset(est.toString(), 4)); // task duration in days required by USACE
-         m_writer.println(m_buffer.toString());
+         m_writer.append(slack).append(' ');
+         m_writer.rset(Math.abs(days), 4); // task duration in days required by USACE
+         m_writer.writeRecord();
          m_eventManager.fireTaskWrittenEvent(record);
       }
    }
@@ -455,7 +414,7 @@ public final class SDEFWriter extends AbstractProjectWriter
     *
     * @param tasks list of Task instances
     */
-   private void writeProgress(List<Task> tasks)
+   private void writeProgress(List<Task> tasks) throws IOException
    {
       for (Task task : tasks)
       {
@@ -463,4 +422,19 @@ public final class SDEFWriter extends AbstractProjectWriter
       }
    }
 
+   /**
+    * Convert a duration to a whole number of days, as required by USACE.
+    *
+    * @param duration Duration instance
+    * @return number of days
+    */
+   private int getDays(Duration duration)
+   {
+      if (duration.getUnits() != TimeUnit.DAYS)
+      {
+         duration = Duration.convertUnits(duration.getDuration(), duration.getUnits(), TimeUnit.DAYS, m_minutesPerDay, m_minutesPerWeek, m_daysPerMonth);
+      }
+      return (int) (duration.getDuration() + 0.5); // Add 0.5 so half day rounds up upon truncation
+   }
+
 }
@@ -31,85 +31,6 @@ import net.sf.mpxj.ProjectCalendar;
  */
 class SDEFmethods
 {
-   /**
-    * Method to force an input string into a fixed width field
-    * and set it on the left with the right side filled with
-    * space ' ' characters.
-    *
-    * @param input input string
-    * @param width required width
-    * @return formatted string
-    */
-   public static String lset(String input, int width)
-   {
-      String result;
-      StringBuilder pad = new StringBuilder();
-      if (input == null)
-      {
-         for (int i = 0; i < width; i++)
-         {
-            pad.append(' '); // put blanks into buffer
-         }
-         result = pad.toString();
-      }
-      else
-      {
-         if (input.length() >= width)
-         {
-            result = input.substring(0, width); // when input is too long, truncate
-         }
-         else
-         {
-            int padLength = width - input.length(); // number of blanks to add
-            for (int i = 0; i < padLength; i++)
-            {
-               pad.append(' '); // force put blanks into buffer
-            }
-            result = input + pad; // concatenate
-         }
-      }
-      return result;
-   }
-
-   /**
-    * Another method to force an input string into a fixed width field
-    * and set it on the right with the left side filled with space ' ' characters.
-    *
-    * @param input input string
-    * @param width required width
-    * @return formatted string
-    */
-   public static String rset(String input, int width)
-   {
-      String result; // result to return
-      StringBuilder pad = new StringBuilder();
-      if (input == null)
-      {
-         for (int i = 0; i < width - 1; i++)
-         {
-            pad.append(' '); // put blanks into buffer
-         }
-         result = " " + pad; // one short to use + overload
-      }
-      else
-      {
-         if (input.length() >= width)
-         {
-            result = input.substring(0, width); // when input is too long, truncate
-         }
-         else
-         {
-            int padLength = width - input.length(); // number of blanks to add
-            for (int i = 0; i < padLength; i++)
-            {
-               pad.append(' '); // actually put blanks into buffer
-            }
-            result = pad + input; // concatenate
-         }
-      }
-      return result;
-   }
-
    /**
     * This method takes a calendar of MPXJ library type, then returns a String of the
     * general working days USACE format.  For example, the regular 5-day work week is
@@ -54,20 +54,46 @@ class StringField implements SDEFField
       return m_length;
    }
 
-   @Override public Object read(String line, int offset)
+   @Override public Object read(char[] buffer, int offset, int end)
    {
-      String result;
-      if (offset+m_length > line.length())
+      Object result;
+      if (offset + m_length > end)
       {
          result = null;
       }
       else
       {
-         result = line.substring(offset, offset + m_length).trim();
+         int start = offset;
+         end = offset + m_length;
+         while (start < end && buffer[start] <= ' ')
+         {
+            ++start;
+         }
+
+         while (end > start && buffer[end - 1] <= ' ')
+         {
+            --end;
+         }
+
+         result = parse(buffer, start, end);
       }
       return result;
    }
 
+   /**
+    * Convert the field value, with leading and trailing white space
+    * removed, into the type represented by this field.
+    * 
+    * @param buffer buffer containing the field
+    * @param start start of the field value
+    * @param end end of the field value
+    * @return field value
+    */
+   protected Object parse(char[] buffer, int start, int end)
+   {
+      return start == end ? "" : new String(buffer, start, end - start);
+   }
+
    private final String m_name;
    private final int m_length;
 }
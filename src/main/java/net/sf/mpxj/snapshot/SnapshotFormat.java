@@ -0,0 +1,99 @@
+/*
+ * file:       SnapshotFormat.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+/**
+ * Constants describing the layout of an MPXJ snapshot file.
+ *
+ * A snapshot file consists of a fixed header (magic bytes, format version
+ * and the offset of the string table), followed by the body, followed by
+ * the string table. The body contains the following sections, in order:
+ * project properties, custom field aliases, calendars, resources, tasks,
+ * relations and assignments. Each section starts with a count of the
+ * records it contains. Field values are keyed by the integer value of their
+ * FieldType and tagged with one of the value type constants below.
+ * Strings are held once in the string table and referenced by index.
+ */
+final class SnapshotFormat
+{
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private SnapshotFormat()
+   {
+      // Private constructor to prevent instantiation
+   }
+
+   public static final byte[] MAGIC =
+   {
+      (byte) 'M',
+      (byte) 'P',
+      (byte) 'X',
+      (byte) 'J',
+      (byte) 'S',
+      (byte) 'N',
+      (byte) 'A',
+      (byte) 'P'
+   };
+
+   public static final int VERSION = 1;
+
+   /**
+    * Size of the header: magic, version, string table offset.
+    */
+   public static final int HEADER_SIZE = MAGIC.length + 4 + 8;
+
+   public static final byte TYPE_STRING = 1;
+   public static final byte TYPE_INTEGER = 2;
+   public static final byte TYPE_DOUBLE = 3;
+   public static final byte TYPE_TRUE = 4;
+   public static final byte TYPE_FALSE = 5;
+   public static final byte TYPE_DATE = 6;
+   public static final byte TYPE_DURATION = 7;
+   public static final byte TYPE_UUID = 8;
+   public static final byte TYPE_ENUM = 9;
+   public static final byte TYPE_RATE = 10;
+   public static final byte TYPE_BINARY = 11;
+   public static final byte TYPE_DATE_RANGE_LIST = 12;
+   public static final byte TYPE_CALENDAR = 13;
+   public static final byte TYPE_PRIORITY = 14;
+   public static final byte TYPE_MAP = 15;
+   public static final byte TYPE_CHARACTER = 16;
+   public static final byte TYPE_LONG = 17;
+   public static final byte TYPE_SHORT = 18;
+   public static final byte TYPE_NULL = 19;
+
+   /**
+    * Timephased series identifiers. Baseline work and cost series
+    * are identified by adding the baseline index to the base value.
+    */
+   public static final int TIMEPHASED_WORK = 0;
+   public static final int TIMEPHASED_ACTUAL_WORK = 1;
+   public static final int TIMEPHASED_ACTUAL_OVERTIME_WORK = 2;
+   public static final int TIMEPHASED_BASELINE_WORK = 3;
+   public static final int TIMEPHASED_BASELINE_COST = 14;
+   public static final int BASELINE_COUNT = 11;
+
+   public static final int COST_RATE_TABLE_COUNT = 5;
+}
@@ -0,0 +1,290 @@
+/*
+ * file:       SnapshotInput.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import net.sf.mpxj.common.CharsetHelper;
+
+/**
+ * Reads primitive values from a snapshot held in a byte buffer.
+ * The buffer may be memory mapped, in which case only the parts
+ * of the file actually touched are paged in. Strings are decoded
+ * from the string table the first time they are referenced.
+ */
+final class SnapshotInput
+{
+   /**
+    * Constructor.
+    *
+    * @param buffer buffer containing the body of the snapshot
+    * @param strings string table
+    */
+   private SnapshotInput(ByteBuffer buffer, StringTable strings)
+   {
+      m_buffer = buffer;
+      m_strings = strings;
+   }
+
+   /**
+    * Create an input instance positioned at the start of the body.
+    * Returns null if the buffer does not contain a snapshot
+    * in a version we understand.
+    *
+    * @param buffer snapshot file contents
+    * @return SnapshotInput instance or null
+    */
+   public static SnapshotInput getInstance(ByteBuffer buffer)
+   {
+      if (buffer.remaining() < SnapshotFormat.HEADER_SIZE)
+      {
+         return null;
+      }
+
+      int start = buffer.position();
+      for (int index = 0; index < SnapshotFormat.MAGIC.length; index++)
+      {
+         if (buffer.get(start + index) != SnapshotFormat.MAGIC[index])
+         {
+            return null;
+         }
+      }
+
+      if (buffer.getInt(start + SnapshotFormat.MAGIC.length) != SnapshotFormat.VERSION)
+      {
+         return null;
+      }
+
+      long offset = buffer.getLong(start + SnapshotFormat.MAGIC.length + 4);
+      if (offset < SnapshotFormat.HEADER_SIZE || offset > buffer.remaining() - 4)
+      {
+         return null;
+      }
+
+      int stringTableOffset = (int) offset;
+      ByteBuffer body = buffer.duplicate();
+      body.position(start + SnapshotFormat.HEADER_SIZE);
+      body.limit(start + stringTableOffset);
+
+      ByteBuffer table = buffer.duplicate();
+      table.position(start + stringTableOffset);
+
+      return new SnapshotInput(body, new StringTable(table.slice()));
+   }
+
+   /**
+    * Create a new input instance which reads independently
+    * from the next block of bytes in this input.
+    *
+    * @param length length of the block
+    * @return new input instance
+    */
+   public SnapshotInput slice(int length)
+   {
+      if (length < 0 || length > m_buffer.remaining())
+      {
+         throw new IllegalStateException("Invalid block length " + length);
+      }
+
+      ByteBuffer buffer = m_buffer.duplicate();
+      buffer.limit(buffer.position() + length);
+      m_buffer.position(m_buffer.position() + length);
+      return new SnapshotInput(buffer, m_strings);
+   }
+
+   /**
+    * Read a single byte.
+    *
+    * @return byte value
+    */
+   public int readByte()
+   {
+      return m_buffer.get();
+   }
+
+   /**
+    * Read a boolean held as a single byte.
+    *
+    * @return boolean value
+    */
+   public boolean readBoolean()
+   {
+      return m_buffer.get() != 0;
+   }
+
+   /**
+    * Read a non-negative variable length integer.
+    *
+    * @return integer value
+    */
+   public int readCount()
+   {
+      int result = 0;
+      int shift = 0;
+      byte value;
+      do
+      {
+         value = m_buffer.get();
+         result |= (value & 0x7F) << shift;
+         shift += 7;
+      }
+      while ((value & 0x80) != 0);
+      return result;
+   }
+
+   /**
+    * Read a signed variable length integer.
+    *
+    * @return integer value
+    */
+   public int readInt()
+   {
+      int value = readCount();
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   /**
+    * Read a nullable integer.
+    *
+    * @return Integer instance or null
+    */
+   public Integer readInteger()
+   {
+      return readBoolean() ? Integer.valueOf(readInt()) : null;
+   }
+
+   /**
+    * Read a fixed length long value.
+    *
+    * @return long value
+    */
+   public long readLong()
+   {
+      return m_buffer.getLong();
+   }
+
+   /**
+    * Read a double value.
+    *
+    * @return double value
+    */
+   public double readDouble()
+   {
+      return m_buffer.getDouble();
+   }
+
+   /**
+    * Read a nullable date.
+    *
+    * @return Date instance or null
+    */
+   public Date readDate()
+   {
+      long value = m_buffer.getLong();
+      return value == SnapshotOutput.NULL_DATE ? null : new Date(value);
+   }
+
+   /**
+    * Read a reference to the string table and return the string.
+    *
+    * @return string value or null
+    */
+   public String readString()
+   {
+      int index = readCount();
+      return index == 0 ? null : m_strings.get(index - 1);
+   }
+
+   /**
+    * Read a length-prefixed byte array.
+    *
+    * @return byte array
+    */
+   public byte[] readBytes()
+   {
+      byte[] result = new byte[readCount()];
+      m_buffer.get(result);
+      return result;
+   }
+
+   /**
+    * Read a fixed length integer.
+    *
+    * @return integer value
+    */
+   public int readFixedInt()
+   {
+      return m_buffer.getInt();
+   }
+
+   /**
+    * Provides access to the string table, decoding each string
+    * the first time it is requested.
+    */
+   private static final class StringTable
+   {
+      /**
+       * Constructor.
+       *
+       * @param buffer buffer positioned at the start of the string table
+       */
+      public StringTable(ByteBuffer buffer)
+      {
+         m_buffer = buffer;
+         m_strings = new String[buffer.getInt(0)];
+         m_dataOffset = 4 + (m_strings.length * 4);
+      }
+
+      /**
+       * Retrieve a string by index.
+       *
+       * @param index string index
+       * @return string value
+       */
+      public synchronized String get(int index)
+      {
+         String result = m_strings[index];
+         if (result == null)
+         {
+            int start = index == 0 ? 0 : m_buffer.getInt(4 + ((index - 1) * 4));
+            int end = m_buffer.getInt(4 + (index * 4));
+            byte[] data = new byte[end - start];
+            ByteBuffer buffer = m_buffer.duplicate();
+            buffer.position(m_dataOffset + start);
+            buffer.get(data);
+            result = new String(data, CharsetHelper.UTF8);
+            m_strings[index] = result;
+         }
+         return result;
+      }
+
+      private final ByteBuffer m_buffer;
+      private final String[] m_strings;
+      private final int m_dataOffset;
+   }
+
+   private final ByteBuffer m_buffer;
+   private final StringTable m_strings;
+}
@@ -0,0 +1,283 @@
+/*
+ * file:       SnapshotOutput.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.common.CharsetHelper;
+
+/**
+ * Accumulates the body of a snapshot file in memory, interning strings
+ * into a string table which is written after the body.
+ */
+final class SnapshotOutput
+{
+   /**
+    * Write a single byte.
+    *
+    * @param value byte value
+    */
+   public void writeByte(int value)
+   {
+      ensureCapacity(1);
+      m_buffer[m_length++] = (byte) value;
+   }
+
+   /**
+    * Write a boolean as a single byte.
+    *
+    * @param value boolean value
+    */
+   public void writeBoolean(boolean value)
+   {
+      writeByte(value ? 1 : 0);
+   }
+
+   /**
+    * Write a non-negative integer using a variable length encoding.
+    *
+    * @param value integer value
+    */
+   public void writeCount(int value)
+   {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0)
+      {
+         m_buffer[m_length++] = (byte) ((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      m_buffer[m_length++] = (byte) value;
+   }
+
+   /**
+    * Write a signed integer using a variable length encoding.
+    *
+    * @param value integer value
+    */
+   public void writeInt(int value)
+   {
+      writeCount((value << 1) ^ (value >> 31));
+   }
+
+   /**
+    * Write a nullable integer.
+    *
+    * @param value integer value, may be null
+    */
+   public void writeInteger(Integer value)
+   {
+      if (value == null)
+      {
+         writeBoolean(false);
+      }
+      else
+      {
+         writeBoolean(true);
+         writeInt(value.intValue());
+      }
+   }
+
+   /**
+    * Write a fixed length long value.
+    *
+    * @param value long value
+    */
+   public void writeLong(long value)
+   {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8)
+      {
+         m_buffer[m_length++] = (byte) (value >>> shift);
+      }
+   }
+
+   /**
+    * Write a double value.
+    *
+    * @param value double value
+    */
+   public void writeDouble(double value)
+   {
+      writeLong(Double.doubleToLongBits(value));
+   }
+
+   /**
+    * Write a nullable date.
+    *
+    * @param value date value, may be null
+    */
+   public void writeDate(Date value)
+   {
+      writeLong(value == null ? NULL_DATE : value.getTime());
+   }
+
+   /**
+    * Write a string as a reference into the string table.
+    *
+    * @param value string value, may be null
+    */
+   public void writeString(String value)
+   {
+      if (value == null)
+      {
+         writeCount(0);
+      }
+      else
+      {
+         Integer index = m_stringMap.get(value);
+         if (index == null)
+         {
+            index = Integer.valueOf(m_strings.size() + 1);
+            m_stringMap.put(value, index);
+            m_strings.add(value);
+         }
+         writeCount(index.intValue());
+      }
+   }
+
+   /**
+    * Write a length-prefixed byte array.
+    *
+    * @param value byte array
+    */
+   public void writeBytes(byte[] value)
+   {
+      writeCount(value.length);
+      ensureCapacity(value.length);
+      System.arraycopy(value, 0, m_buffer, m_length, value.length);
+      m_length += value.length;
+   }
+
+   /**
+    * Retrieve the current length of the body.
+    *
+    * @return body length
+    */
+   public int size()
+   {
+      return m_length;
+   }
+
+   /**
+    * Reserve space for a fixed length integer which will be written
+    * once the length of the following data is known.
+    *
+    * @return position of the reserved space
+    */
+   public int reserveInt()
+   {
+      ensureCapacity(4);
+      int position = m_length;
+      m_length += 4;
+      return position;
+   }
+
+   /**
+    * Write a fixed length integer into previously reserved space.
+    *
+    * @param position position of the reserved space
+    * @param value integer value
+    */
+   public void writeIntAt(int position, int value)
+   {
+      m_buffer[position] = (byte) (value >>> 24);
+      m_buffer[position + 1] = (byte) (value >>> 16);
+      m_buffer[position + 2] = (byte) (value >>> 8);
+      m_buffer[position + 3] = (byte) value;
+   }
+
+   /**
+    * Write the complete snapshot file: header, body and string table.
+    *
+    * @param stream output stream
+    */
+   public void writeTo(OutputStream stream) throws IOException
+   {
+      //
+      // The string table is a count, followed by the end offset
+      // of each string, followed by the UTF-8 bytes of every string.
+      // This allows individual strings to be decoded on demand.
+      //
+      byte[][] data = new byte[m_strings.size()][];
+      long size = SnapshotFormat.HEADER_SIZE + m_length + 4 + (data.length * 4L);
+      for (int index = 0; index < data.length; index++)
+      {
+         data[index] = m_strings.get(index).getBytes(CharsetHelper.UTF8);
+         size += data[index].length;
+      }
+
+      if (size > Integer.MAX_VALUE)
+      {
+         throw new IOException("Snapshot size of " + size + " bytes exceeds the maximum of " + Integer.MAX_VALUE + " bytes");
+      }
+
+      DataOutputStream os = new DataOutputStream(stream);
+      os.write(SnapshotFormat.MAGIC);
+      os.writeInt(SnapshotFormat.VERSION);
+      os.writeLong(SnapshotFormat.HEADER_SIZE + m_length);
+      os.write(m_buffer, 0, m_length);
+
+      os.writeInt(data.length);
+      int offset = 0;
+      for (byte[] bytes : data)
+      {
+         offset += bytes.length;
+         os.writeInt(offset);
+      }
+
+      for (byte[] bytes : data)
+      {
+         os.write(bytes);
+      }
+      os.flush();
+   }
+
+   /**
+    * Grow the buffer if required.
+    *
+    * @param required number of bytes about to be written
+    */
+   private void ensureCapacity(int required)
+   {
+      if (m_length + required > m_buffer.length)
+      {
+         m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_length + required));
+      }
+   }
+
+   static final long NULL_DATE = Long.MIN_VALUE;
+
+   private byte[] m_buffer = new byte[64 * 1024];
+   private int m_length;
+   private final Map<String, Integer> m_stringMap = new HashMap<String, Integer>();
+   private final List<String> m_strings = new ArrayList<String>();
+}
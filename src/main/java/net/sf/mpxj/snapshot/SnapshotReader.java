@@ -0,0 +1,933 @@
+/*
+ * file:       SnapshotReader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.ChildTaskContainer;
+import net.sf.mpxj.CostRateTable;
+import net.sf.mpxj.CostRateTableEntry;
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.DayType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.EventManager;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.FieldTypeClass;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarHours;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.ProjectConfig;
+import net.sf.mpxj.ProjectField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.RecurrenceType;
+import net.sf.mpxj.RecurringData;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.listener.ProjectListener;
+import net.sf.mpxj.reader.AbstractProjectReader;
+
+/**
+ * This class reads an MPXJ snapshot written by SnapshotWriter.
+ *
+ * When reading from a file, the file is memory mapped rather than being
+ * read into the heap. Strings are decoded from the snapshot's string
+ * table only when first referenced, and timephased data other than planned
+ * work is only decoded when it is first requested. Note that this means the
+ * resulting ProjectFile may retain a reference to the mapped file.
+ *
+ * Calendars, resources, tasks, assignments and relations are created when
+ * the snapshot is read, as ProjectFile exposes them through populated
+ * containers. Snapshots are limited to 2GB, the largest buffer which
+ * can be mapped in a single operation.
+ */
+public final class SnapshotReader extends AbstractProjectReader
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void addProjectListener(ProjectListener listener)
+   {
+      if (m_projectListeners == null)
+      {
+         m_projectListeners = new LinkedList<ProjectListener>();
+      }
+      m_projectListeners.add(listener);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(String fileName) throws MPXJException
+   {
+      return read(new File(fileName));
+   }
+
+   /**
+    * Memory maps the file and reads the snapshot it contains.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(File file) throws MPXJException
+   {
+      RandomAccessFile raf = null;
+
+      try
+      {
+         raf = new RandomAccessFile(file, "r");
+         FileChannel channel = raf.getChannel();
+         if (channel.size() > MAXIMUM_SIZE)
+         {
+            throw new MPXJException("Snapshot size of " + channel.size() + " bytes exceeds the maximum of " + MAXIMUM_SIZE + " bytes");
+         }
+         ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         raf.close();
+         raf = null;
+         return read(buffer);
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      finally
+      {
+         if (raf != null)
+         {
+            try
+            {
+               raf.close();
+            }
+
+            catch (IOException ex)
+            {
+               // Ignore
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(InputStream stream) throws MPXJException
+   {
+      try
+      {
+         ByteArrayOutputStream os = new ByteArrayOutputStream();
+         byte[] buffer = new byte[64 * 1024];
+         int bytesRead;
+         while ((bytesRead = stream.read(buffer)) != -1)
+         {
+            if (os.size() > MAXIMUM_SIZE - bytesRead)
+            {
+               throw new MPXJException("Snapshot size exceeds the maximum of " + MAXIMUM_SIZE + " bytes");
+            }
+            os.write(buffer, 0, bytesRead);
+         }
+         return read(ByteBuffer.wrap(os.toByteArray()));
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+   }
+
+   /**
+    * Retrieve the version of the snapshot format understood by this reader.
+    *
+    * @return format version
+    */
+   public static int getFormatVersion()
+   {
+      return SnapshotFormat.VERSION;
+   }
+
+   /**
+    * Read a snapshot held in a buffer.
+    *
+    * @param buffer buffer containing the snapshot
+    * @return ProjectFile instance
+    */
+   public ProjectFile read(ByteBuffer buffer) throws MPXJException
+   {
+      try
+      {
+         m_input = SnapshotInput.getInstance(buffer);
+         if (m_input == null)
+         {
+            throw new MPXJException(MPXJException.INVALID_FILE);
+         }
+
+         m_projectFile = new ProjectFile();
+         m_eventManager = m_projectFile.getEventManager();
+         m_enumClasses = new HashMap<String, Class<?>>();
+
+         ProjectConfig config = m_projectFile.getProjectConfig();
+         config.setAutoTaskID(false);
+         config.setAutoTaskUniqueID(false);
+         config.setAutoResourceID(false);
+         config.setAutoResourceUniqueID(false);
+         config.setAutoOutlineLevel(false);
+         config.setAutoOutlineNumber(false);
+         config.setAutoWBS(false);
+         config.setAutoCalendarUniqueID(false);
+         config.setAutoAssignmentUniqueID(false);
+
+         m_eventManager.addProjectListeners(m_projectListeners);
+
+         readProperties();
+         readCustomFields();
+         readCalendars();
+         readResources();
+         readTasks(m_projectFile);
+         readRelations();
+         readAssignments();
+
+         config.updateUniqueCounters();
+
+         return m_projectFile;
+      }
+
+      catch (RuntimeException ex)
+      {
+         throw new MPXJException(MPXJException.INVALID_FILE, ex);
+      }
+
+      finally
+      {
+         m_input = null;
+         m_projectFile = null;
+         m_eventManager = null;
+         m_enumClasses = null;
+      }
+   }
+
+   /**
+    * Read the project properties.
+    */
+   private void readProperties()
+   {
+      //
+      // Only populated values are written, so we clear the
+      // defaults set when the project properties are created.
+      //
+      ProjectProperties properties = m_projectFile.getProjectProperties();
+      for (ProjectField field : ProjectField.values())
+      {
+         properties.set(field, null);
+      }
+
+      readFields(properties, FieldTypeClass.PROJECT);
+   }
+
+   /**
+    * Read custom field aliases.
+    */
+   private void readCustomFields()
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         FieldTypeClass typeClass = FieldTypeClass.values()[m_input.readCount()];
+         FieldType field = getFieldType(typeClass, m_input.readCount());
+         String alias = m_input.readString();
+         if (field != null)
+         {
+            m_projectFile.getCustomFields().getCustomField(field).setAlias(alias);
+         }
+      }
+   }
+
+   /**
+    * Read all calendars.
+    */
+   private void readCalendars()
+   {
+      Map<ProjectCalendar, Integer> parents = new HashMap<ProjectCalendar, Integer>();
+      List<ProjectCalendar> calendars = new ArrayList<ProjectCalendar>();
+
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         ProjectCalendar calendar = m_input.readBoolean() ? m_projectFile.addCalendar() : new ProjectCalendar(m_projectFile);
+         calendar.setUniqueID(m_input.readInteger());
+         calendar.setName(m_input.readString());
+         Integer parentID = m_input.readInteger();
+         if (parentID != null)
+         {
+            parents.put(calendar, parentID);
+         }
+
+         calendar.setMinutesPerDay(m_input.readInteger());
+         calendar.setMinutesPerWeek(m_input.readInteger());
+         calendar.setMinutesPerMonth(m_input.readInteger());
+         calendar.setMinutesPerYear(m_input.readInteger());
+
+         readWeek(calendar);
+
+         int exceptionCount = m_input.readCount();
+         for (int exceptionIndex = 0; exceptionIndex < exceptionCount; exceptionIndex++)
+         {
+            Date fromDate = m_input.readDate();
+            Date toDate = m_input.readDate();
+            ProjectCalendarException exception = calendar.addCalendarException(fromDate, toDate);
+            exception.setName(m_input.readString());
+            int rangeCount = m_input.readInt();
+            for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++)
+            {
+               exception.addRange(readDateRange());
+            }
+            exception.setRecurring(readRecurringData());
+         }
+
+         int weekCount = m_input.readCount();
+         for (int weekIndex = 0; weekIndex < weekCount; weekIndex++)
+         {
+            ProjectCalendarWeek week = calendar.addWorkWeek();
+            week.setName(m_input.readString());
+            DateRange range = readDateRange();
+            if (range.getStart() != null || range.getEnd() != null)
+            {
+               week.setDateRange(range);
+            }
+            readWeek(week);
+         }
+
+         calendars.add(calendar);
+      }
+
+      //
+      // Link derived calendars to their base calendars once all
+      // calendars have been read.
+      //
+      for (Map.Entry<ProjectCalendar, Integer> entry : parents.entrySet())
+      {
+         entry.getKey().setParent(m_projectFile.getCalendarByUniqueID(entry.getValue()));
+      }
+
+      for (ProjectCalendar calendar : calendars)
+      {
+         m_eventManager.fireCalendarReadEvent(calendar);
+      }
+   }
+
+   /**
+    * Read the day types and working hours for a week.
+    *
+    * @param week calendar or work week
+    */
+   private void readWeek(ProjectCalendarWeek week)
+   {
+      for (Day day : Day.values())
+      {
+         int type = m_input.readInt();
+         if (type != -1)
+         {
+            week.setWorkingDay(day, DayType.values()[type]);
+         }
+
+         int rangeCount = m_input.readInt();
+         if (rangeCount != -1)
+         {
+            ProjectCalendarHours hours = week.addCalendarHours(day);
+            for (int index = 0; index < rangeCount; index++)
+            {
+               hours.addRange(readDateRange());
+            }
+         }
+      }
+   }
+
+   /**
+    * Read a date range.
+    *
+    * @return DateRange instance
+    */
+   private DateRange readDateRange()
+   {
+      Date start = m_input.readDate();
+      Date end = m_input.readDate();
+      return new DateRange(start, end);
+   }
+
+   /**
+    * Read recurrence details for a calendar exception.
+    *
+    * @return RecurringData instance or null
+    */
+   private RecurringData readRecurringData()
+   {
+      RecurringData data = null;
+      if (m_input.readBoolean())
+      {
+         data = new RecurringData();
+         data.setStartDate(m_input.readDate());
+         data.setFinishDate(m_input.readDate());
+         data.setOccurrences(m_input.readInteger());
+         int type = m_input.readInt();
+         data.setRecurrenceType(type == -1 ? null : RecurrenceType.values()[type]);
+         data.setUseEndDate(m_input.readBoolean());
+         data.setWorkingDaysOnly(m_input.readBoolean());
+         data.setRelative(m_input.readBoolean());
+         data.setFrequency(m_input.readInteger());
+         data.setDayNumber(m_input.readInteger());
+         data.setMonthNumber(m_input.readInteger());
+         for (Day day : Day.values())
+         {
+            data.setWeeklyDay(day, m_input.readBoolean());
+         }
+      }
+      return data;
+   }
+
+   /**
+    * Read all resources.
+    */
+   private void readResources()
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         Resource resource = m_projectFile.addResource();
+         Integer uniqueID = m_input.readInteger();
+         Integer id = m_input.readInteger();
+
+         resource.disableEvents();
+         readFields(resource, FieldTypeClass.RESOURCE);
+         resource.enableEvents();
+         resource.setUniqueID(uniqueID);
+         resource.setID(id);
+
+         ProjectCalendar calendar = resource.getResourceCalendar();
+         if (calendar != null)
+         {
+            calendar.setResource(resource);
+         }
+
+         for (int tableIndex = 0; tableIndex < SnapshotFormat.COST_RATE_TABLE_COUNT; tableIndex++)
+         {
+            int entryCount = m_input.readInt();
+            if (entryCount != -1)
+            {
+               CostRateTable table = new CostRateTable();
+               for (int entryIndex = 0; entryIndex < entryCount; entryIndex++)
+               {
+                  Rate standardRate = readRate();
+                  TimeUnit standardRateFormat = readTimeUnit();
+                  Rate overtimeRate = readRate();
+                  TimeUnit overtimeRateFormat = readTimeUnit();
+                  Number costPerUse = readNumber();
+                  Date endDate = m_input.readDate();
+                  table.add(new CostRateTableEntry(standardRate, standardRateFormat, overtimeRate, overtimeRateFormat, costPerUse, endDate));
+               }
+               resource.setCostRateTable(tableIndex, table);
+            }
+         }
+
+         int availabilityCount = m_input.readCount();
+         for (int availabilityIndex = 0; availabilityIndex < availabilityCount; availabilityIndex++)
+         {
+            Date start = m_input.readDate();
+            Date end = m_input.readDate();
+            resource.getAvailability().add(new Availability(start, end, readNumber()));
+         }
+
+         m_eventManager.fireResourceReadEvent(resource);
+      }
+   }
+
+   /**
+    * Read a list of tasks and their child tasks.
+    *
+    * @param parent parent task or project file
+    */
+   private void readTasks(ChildTaskContainer parent)
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         Task task = parent.addTask();
+         Integer uniqueID = m_input.readInteger();
+         Integer id = m_input.readInteger();
+
+         task.disableEvents();
+         readFields(task, FieldTypeClass.TASK);
+         task.enableEvents();
+         task.setUniqueID(uniqueID);
+         task.setID(id);
+
+         m_eventManager.fireTaskReadEvent(task);
+         readTasks(task);
+      }
+   }
+
+   /**
+    * Read the relation table.
+    */
+   private void readRelations()
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         Task successor = m_projectFile.getTaskByUniqueID(m_input.readInteger());
+         Task predecessor = m_projectFile.getTaskByUniqueID(m_input.readInteger());
+         int type = m_input.readInt();
+         Duration lag = readDuration();
+         Integer uniqueID = m_input.readInteger();
+
+         if (successor != null && predecessor != null)
+         {
+            Relation relation = successor.addPredecessor(predecessor, type == -1 ? null : RelationType.values()[type], lag);
+            relation.setUniqueID(uniqueID);
+            m_eventManager.fireRelationReadEvent(relation);
+         }
+      }
+   }
+
+   /**
+    * Read the assignment table.
+    */
+   private void readAssignments()
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         Integer uniqueID = m_input.readInteger();
+         Task task = m_projectFile.getTaskByUniqueID(m_input.readInteger());
+
+         ResourceAssignment assignment = new ResourceAssignment(m_projectFile, task);
+         assignment.disableEvents();
+         readFields(assignment, FieldTypeClass.ASSIGNMENT);
+         assignment.enableEvents();
+         assignment.setUniqueID(uniqueID);
+         readTimephasedData(assignment);
+
+         if (task != null)
+         {
+            task.addResourceAssignment(assignment);
+            m_eventManager.fireAssignmentReadEvent(assignment);
+         }
+      }
+   }
+
+   /**
+    * Read the timephased data associated with an assignment.
+    * Planned work is decoded immediately, all other timephased
+    * data is decoded on demand.
+    *
+    * @param assignment resource assignment
+    */
+   private void readTimephasedData(ResourceAssignment assignment)
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         int series = m_input.readCount();
+         SnapshotInput input = m_input.slice(m_input.readFixedInt());
+
+         if (series == SnapshotFormat.TIMEPHASED_WORK)
+         {
+            int itemCount = input.readCount();
+            assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(null, null, SnapshotTimephasedWorkContainer.read(input, itemCount), false));
+            continue;
+         }
+
+         if (series == SnapshotFormat.TIMEPHASED_ACTUAL_WORK)
+         {
+            assignment.setTimephasedActualWork(new SnapshotTimephasedWorkContainer(input));
+            continue;
+         }
+
+         if (series == SnapshotFormat.TIMEPHASED_ACTUAL_OVERTIME_WORK)
+         {
+            assignment.setTimephasedActualOvertimeWork(new SnapshotTimephasedWorkContainer(input));
+            continue;
+         }
+
+         if (series < SnapshotFormat.TIMEPHASED_BASELINE_COST)
+         {
+            assignment.setTimephasedBaselineWork(series - SnapshotFormat.TIMEPHASED_BASELINE_WORK, new SnapshotTimephasedWorkContainer(input));
+         }
+         else
+         {
+            assignment.setTimephasedBaselineCost(series - SnapshotFormat.TIMEPHASED_BASELINE_COST, new SnapshotTimephasedCostContainer(input));
+         }
+      }
+   }
+
+   /**
+    * Read field values into a container.
+    *
+    * @param container field container
+    * @param typeClass type of fields held by the container
+    */
+   private void readFields(FieldContainer container, FieldTypeClass typeClass)
+   {
+      int count = m_input.readCount();
+      for (int index = 0; index < count; index++)
+      {
+         FieldType field = getFieldType(typeClass, m_input.readCount());
+         Object value = readValue();
+         if (field != null)
+         {
+            container.set(field, value);
+         }
+      }
+   }
+
+   /**
+    * Map a field type class and value to a FieldType instance.
+    *
+    * @param typeClass field type class
+    * @param value field value
+    * @return FieldType instance or null
+    */
+   private FieldType getFieldType(FieldTypeClass typeClass, int value)
+   {
+      FieldType result;
+
+      switch (typeClass)
+      {
+         case TASK:
+         {
+            result = TaskField.getInstance(value);
+            break;
+         }
+
+         case RESOURCE:
+         {
+            result = ResourceField.getInstance(value);
+            break;
+         }
+
+         case ASSIGNMENT:
+         {
+            result = AssignmentField.getInstance(value);
+            break;
+         }
+
+         case PROJECT:
+         {
+            result = ProjectField.getInstance(value);
+            break;
+         }
+
+         default:
+         {
+            result = null;
+            break;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Read a tagged value.
+    *
+    * @return value
+    */
+   private Object readValue()
+   {
+      Object result;
+      byte type = (byte) m_input.readByte();
+
+      switch (type)
+      {
+         case SnapshotFormat.TYPE_STRING:
+         {
+            result = m_input.readString();
+            break;
+         }
+
+         case SnapshotFormat.TYPE_INTEGER:
+         {
+            result = Integer.valueOf(m_input.readInt());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_LONG:
+         {
+            result = Long.valueOf(m_input.readLong());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_SHORT:
+         {
+            result = Short.valueOf((short) m_input.readInt());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DOUBLE:
+         {
+            result = Double.valueOf(m_input.readDouble());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_TRUE:
+         {
+            result = Boolean.TRUE;
+            break;
+         }
+
+         case SnapshotFormat.TYPE_FALSE:
+         {
+            result = Boolean.FALSE;
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DATE:
+         {
+            result = m_input.readDate();
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DURATION:
+         {
+            result = readDuration();
+            break;
+         }
+
+         case SnapshotFormat.TYPE_ENUM:
+         {
+            result = readEnum();
+            break;
+         }
+
+         case SnapshotFormat.TYPE_UUID:
+         {
+            long mostSignificantBits = m_input.readLong();
+            long leastSignificantBits = m_input.readLong();
+            result = new UUID(mostSignificantBits, leastSignificantBits);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_RATE:
+         {
+            result = readRate();
+            break;
+         }
+
+         case SnapshotFormat.TYPE_PRIORITY:
+         {
+            result = Priority.getInstance(m_input.readInt());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_CALENDAR:
+         {
+            result = m_projectFile.getCalendarByUniqueID(m_input.readInteger());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_CHARACTER:
+         {
+            result = Character.valueOf((char) m_input.readCount());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_BINARY:
+         {
+            result = m_input.readBytes();
+            break;
+         }
+
+         case SnapshotFormat.TYPE_MAP:
+         {
+            int count = m_input.readCount();
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            for (int index = 0; index < count; index++)
+            {
+               String key = m_input.readString();
+               map.put(key, readValue());
+            }
+            result = map;
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DATE_RANGE_LIST:
+         {
+            int count = m_input.readCount();
+            List<DateRange> list = new ArrayList<DateRange>(count);
+            for (int index = 0; index < count; index++)
+            {
+               list.add(readDateRange());
+            }
+            result = list;
+            break;
+         }
+
+         case SnapshotFormat.TYPE_NULL:
+         {
+            result = null;
+            break;
+         }
+
+         default:
+         {
+            throw new IllegalStateException("Unknown value type " + type);
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Read an enum value, represented by its class name and constant name.
+    * As the class name is read from the snapshot, only enums defined by
+    * MPXJ are resolved, and no class is initialized until it has been
+    * confirmed to be one of these enums.
+    *
+    * @return enum value, or null if the enum can't be found
+    */
+   @SuppressWarnings(
+   {
+      "unchecked",
+      "rawtypes"
+   }) private Object readEnum()
+   {
+      String className = m_input.readString();
+      String name = m_input.readString();
+
+      Class<?> enumClass = m_enumClasses.get(className);
+      if (enumClass == null)
+      {
+         if (!className.startsWith(ENUM_PACKAGE_PREFIX))
+         {
+            return null;
+         }
+
+         try
+         {
+            enumClass = Class.forName(className, false, SnapshotReader.class.getClassLoader());
+         }
+
+         catch (ClassNotFoundException ex)
+         {
+            return null;
+         }
+
+         if (!enumClass.isEnum())
+         {
+            return null;
+         }
+         m_enumClasses.put(className, enumClass);
+      }
+
+      try
+      {
+         return Enum.valueOf((Class) enumClass, name);
+      }
+
+      catch (IllegalArgumentException ex)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Read a nullable duration.
+    *
+    * @return Duration instance or null
+    */
+   private Duration readDuration()
+   {
+      TimeUnit units = readTimeUnit();
+      return units == null ? null : Duration.getInstance(m_input.readDouble(), units);
+   }
+
+   /**
+    * Read a nullable rate.
+    *
+    * @return Rate instance or null
+    */
+   private Rate readRate()
+   {
+      TimeUnit units = readTimeUnit();
+      return units == null ? null : new Rate(m_input.readDouble(), units);
+   }
+
+   /**
+    * Read a nullable time unit.
+    *
+    * @return TimeUnit instance or null
+    */
+   private TimeUnit readTimeUnit()
+   {
+      int value = m_input.readInt();
+      return value == -1 ? null : TimeUnit.values()[value];
+   }
+
+   /**
+    * Read a nullable number.
+    *
+    * @return Number instance or null
+    */
+   private Number readNumber()
+   {
+      double value = m_input.readDouble();
+      return Double.isNaN(value) ? null : Double.valueOf(value);
+   }
+
+   private SnapshotInput m_input;
+   private ProjectFile m_projectFile;
+   private EventManager m_eventManager;
+   private Map<String, Class<?>> m_enumClasses;
+   private List<ProjectListener> m_projectListeners;
+
+   private static final String ENUM_PACKAGE_PREFIX = "net.sf.mpxj.";
+   private static final long MAXIMUM_SIZE = Integer.MAX_VALUE;
+}
@@ -0,0 +1,127 @@
+/*
+ * file:       SnapshotTimephasedCostContainer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedCostContainer;
+
+/**
+ * Timephased cost read from a snapshot. The data is held in columns
+ * (start dates, finish dates, amounts and so on) and is only decoded
+ * into TimephasedCost instances when first requested.
+ */
+final class SnapshotTimephasedCostContainer implements TimephasedCostContainer
+{
+   /**
+    * Constructor.
+    *
+    * @param input input positioned at the start of the timephased data
+    */
+   public SnapshotTimephasedCostContainer(SnapshotInput input)
+   {
+      m_input = input;
+      m_count = input.readCount();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public synchronized List<TimephasedCost> getData()
+   {
+      if (m_data == null)
+      {
+         m_data = read(m_input, m_count);
+         m_input = null;
+      }
+      return m_data;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean hasData()
+   {
+      return m_count != 0;
+   }
+
+   /**
+    * Decode timephased cost from its columnar representation.
+    *
+    * @param input input positioned after the item count
+    * @param count number of items
+    * @return list of timephased cost
+    */
+   private static List<TimephasedCost> read(SnapshotInput input, int count)
+   {
+      TimephasedCost[] items = new TimephasedCost[count];
+      for (int index = 0; index < count; index++)
+      {
+         TimephasedCost item = new TimephasedCost();
+         item.setStart(input.readDate());
+         items[index] = item;
+      }
+
+      for (TimephasedCost item : items)
+      {
+         item.setFinish(input.readDate());
+      }
+
+      for (TimephasedCost item : items)
+      {
+         item.setTotalAmount(getNumber(input.readDouble()));
+      }
+
+      for (TimephasedCost item : items)
+      {
+         item.setAmountPerDay(getNumber(input.readDouble()));
+      }
+
+      LinkedList<TimephasedCost> result = new LinkedList<TimephasedCost>();
+      for (TimephasedCost item : items)
+      {
+         item.setModified(input.readBoolean());
+         result.add(item);
+      }
+
+      return result;
+   }
+
+   /**
+    * Create a Number instance from its encoded form.
+    *
+    * @param value encoded value, NaN represents null
+    * @return Number instance or null
+    */
+   private static Number getNumber(double value)
+   {
+      return Double.isNaN(value) ? null : Double.valueOf(value);
+   }
+
+   private SnapshotInput m_input;
+   private final int m_count;
+   private List<TimephasedCost> m_data;
+}
@@ -0,0 +1,143 @@
+/*
+ * file:       SnapshotTimephasedWorkContainer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkContainer;
+
+/**
+ * Timephased work read from a snapshot. The data is held in columns
+ * (start dates, finish dates, amounts and so on) and is only decoded
+ * into TimephasedWork instances when first requested.
+ */
+final class SnapshotTimephasedWorkContainer implements TimephasedWorkContainer
+{
+   /**
+    * Constructor.
+    *
+    * @param input input positioned at the start of the timephased data
+    */
+   public SnapshotTimephasedWorkContainer(SnapshotInput input)
+   {
+      m_input = input;
+      m_count = input.readCount();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public synchronized List<TimephasedWork> getData()
+   {
+      if (m_data == null)
+      {
+         m_data = read(m_input, m_count);
+         m_input = null;
+      }
+      return m_data;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean hasData()
+   {
+      return m_count != 0;
+   }
+
+   /**
+    * Decode timephased work from its columnar representation.
+    *
+    * @param input input positioned after the item count
+    * @param count number of items
+    * @return list of timephased work
+    */
+   static LinkedList<TimephasedWork> read(SnapshotInput input, int count)
+   {
+      TimephasedWork[] items = new TimephasedWork[count];
+      for (int index = 0; index < count; index++)
+      {
+         TimephasedWork item = new TimephasedWork();
+         item.setStart(input.readDate());
+         items[index] = item;
+      }
+
+      for (TimephasedWork item : items)
+      {
+         item.setFinish(input.readDate());
+      }
+
+      double[] values = new double[count];
+      for (int index = 0; index < count; index++)
+      {
+         values[index] = input.readDouble();
+      }
+
+      for (int index = 0; index < count; index++)
+      {
+         items[index].setTotalAmount(getDuration(values[index], input.readByte()));
+      }
+
+      for (int index = 0; index < count; index++)
+      {
+         values[index] = input.readDouble();
+      }
+
+      for (int index = 0; index < count; index++)
+      {
+         items[index].setAmountPerDay(getDuration(values[index], input.readByte()));
+      }
+
+      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      for (TimephasedWork item : items)
+      {
+         item.setModified(input.readBoolean());
+         result.add(item);
+      }
+
+      return result;
+   }
+
+   /**
+    * Create a Duration instance from its encoded form.
+    *
+    * @param value duration value
+    * @param units time unit ordinal, negative if the duration was null
+    * @return Duration instance or null
+    */
+   private static Duration getDuration(double value, int units)
+   {
+      return units < 0 ? null : Duration.getInstance(value, TIME_UNITS[units]);
+   }
+
+   private SnapshotInput m_input;
+   private final int m_count;
+   private List<TimephasedWork> m_data;
+
+   private static final TimeUnit[] TIME_UNITS = TimeUnit.values();
+}
@@ -0,0 +1,931 @@
+/*
+ * file:       SnapshotWriter.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.CostRateTable;
+import net.sf.mpxj.CostRateTableEntry;
+import net.sf.mpxj.CustomField;
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.DayType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.EventManager;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarHours;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.ProjectField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.RecurringData;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.writer.AbstractProjectWriter;
+
+/**
+ * This class writes the contents of a ProjectFile instance as an
+ * MPXJ snapshot: a compact binary representation which can be read
+ * back by SnapshotReader far more quickly than the original schedule
+ * could be parsed.
+ *
+ * A snapshot contains the project properties, custom field aliases,
+ * calendars, resources (including cost rate and availability tables),
+ * tasks, relations and assignments (including timephased data).
+ * Views, tables, filters, groups, activity codes and custom field lookup
+ * tables are not included.
+ */
+public final class SnapshotWriter extends AbstractProjectWriter
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void write(ProjectFile projectFile, OutputStream stream) throws IOException
+   {
+      try
+      {
+         m_projectFile = projectFile;
+         m_eventManager = projectFile.getEventManager();
+         m_output = new SnapshotOutput();
+
+         writeProperties();
+         writeCustomFields();
+         normaliseTimephasedData();
+         writeCalendars();
+         writeResources();
+         writeTasks();
+         writeRelations();
+         writeAssignments();
+
+         m_output.writeTo(stream);
+      }
+
+      finally
+      {
+         m_projectFile = null;
+         m_eventManager = null;
+         m_output = null;
+      }
+   }
+
+   /**
+    * Write the project properties.
+    */
+   private void writeProperties()
+   {
+      writeFields(m_projectFile.getProjectProperties(), ProjectField.values(), null, null);
+   }
+
+   /**
+    * Write custom field aliases.
+    */
+   private void writeCustomFields()
+   {
+      List<CustomField> fields = new ArrayList<CustomField>();
+      for (CustomField field : m_projectFile.getCustomFields())
+      {
+         if (field.getFieldType() != null && field.getAlias() != null)
+         {
+            fields.add(field);
+         }
+      }
+
+      m_output.writeCount(fields.size());
+      for (CustomField field : fields)
+      {
+         m_output.writeCount(field.getFieldType().getFieldTypeClass().ordinal());
+         m_output.writeCount(field.getFieldType().getValue());
+         m_output.writeString(field.getAlias());
+      }
+   }
+
+   /**
+    * Timephased data is normalised on first access, which can add working
+    * hours to the calendars involved. We trigger this before writing the
+    * calendars so the snapshot reflects the calendars after normalisation.
+    */
+   private void normaliseTimephasedData()
+   {
+      for (ResourceAssignment assignment : m_projectFile.getResourceAssignments())
+      {
+         if (assignment.getTask() == null)
+         {
+            continue;
+         }
+
+         assignment.getTimephasedWork();
+         assignment.getTimephasedActualWork();
+         assignment.getTimephasedActualOvertimeWork();
+         for (int index = 0; index < SnapshotFormat.BASELINE_COUNT; index++)
+         {
+            assignment.getTimephasedBaselineWork(index);
+            assignment.getTimephasedBaselineCost(index);
+         }
+      }
+   }
+
+   /**
+    * Write all calendars.
+    */
+   private void writeCalendars()
+   {
+      ProjectProperties properties = m_projectFile.getProjectProperties();
+      //
+      // Some readers attach calendars to resources without adding them
+      // to the project's calendar list, so these are written separately.
+      //
+      List<ProjectCalendar> calendars = new ArrayList<ProjectCalendar>(m_projectFile.getCalendars());
+      Set<ProjectCalendar> listedCalendars = new HashSet<ProjectCalendar>(calendars);
+      for (Resource resource : m_projectFile.getResources())
+      {
+         ProjectCalendar calendar = resource.getResourceCalendar();
+         if (calendar != null && !listedCalendars.contains(calendar))
+         {
+            calendars.add(calendar);
+         }
+      }
+
+      m_output.writeCount(calendars.size());
+      for (ProjectCalendar calendar : calendars)
+      {
+         ProjectCalendar parent = calendar.getParent();
+         m_output.writeBoolean(listedCalendars.contains(calendar));
+         m_output.writeInteger(calendar.getUniqueID());
+         m_output.writeString(calendar.getName());
+         m_output.writeInteger(parent == null ? null : parent.getUniqueID());
+
+         //
+         // Calendars inherit these values from the project properties unless
+         // they have been explicitly overridden, so we only record overrides.
+         //
+         writeOverride(calendar.getMinutesPerDay(), properties.getMinutesPerDay());
+         writeOverride(calendar.getMinutesPerWeek(), properties.getMinutesPerWeek());
+         writeOverride(calendar.getMinutesPerMonth(), properties.getMinutesPerMonth());
+         writeOverride(calendar.getMinutesPerYear(), properties.getMinutesPerYear());
+
+         writeWeek(calendar);
+
+         List<ProjectCalendarException> exceptions = calendar.getCalendarExceptions();
+         m_output.writeCount(exceptions.size());
+         for (ProjectCalendarException exception : exceptions)
+         {
+            m_output.writeDate(exception.getFromDate());
+            m_output.writeDate(exception.getToDate());
+            m_output.writeString(exception.getName());
+            writeRanges(exception.getRangeCount(), exception);
+            writeRecurringData(exception.getRecurring());
+         }
+
+         List<ProjectCalendarWeek> weeks = calendar.getWorkWeeks();
+         m_output.writeCount(weeks.size());
+         for (ProjectCalendarWeek week : weeks)
+         {
+            DateRange range = week.getDateRange();
+            m_output.writeString(week.getName());
+            m_output.writeDate(range == null ? null : range.getStart());
+            m_output.writeDate(range == null ? null : range.getEnd());
+            writeWeek(week);
+         }
+
+         m_eventManager.fireCalendarWrittenEvent(calendar);
+      }
+   }
+
+   /**
+    * Write a calendar value which is only stored if it differs from the project default.
+    *
+    * @param value calendar value
+    * @param defaultValue project default
+    */
+   private void writeOverride(int value, Number defaultValue)
+   {
+      m_output.writeInteger(value == NumberHelper.getInt(defaultValue) ? null : Integer.valueOf(value));
+   }
+
+   /**
+    * Write the day types and working hours for a week.
+    *
+    * @param week calendar or work week
+    */
+   private void writeWeek(ProjectCalendarWeek week)
+   {
+      for (Day day : Day.values())
+      {
+         DayType type = week.getWorkingDay(day);
+         m_output.writeInt(type == null ? -1 : type.ordinal());
+
+         ProjectCalendarHours hours = week.getCalendarHours(day);
+         if (hours == null)
+         {
+            m_output.writeInt(-1);
+         }
+         else
+         {
+            writeRanges(hours.getRangeCount(), hours);
+         }
+      }
+   }
+
+   /**
+    * Write a list of date ranges.
+    *
+    * @param count number of ranges
+    * @param ranges date ranges
+    */
+   private void writeRanges(int count, Iterable<DateRange> ranges)
+   {
+      m_output.writeInt(count);
+      for (DateRange range : ranges)
+      {
+         m_output.writeDate(range.getStart());
+         m_output.writeDate(range.getEnd());
+      }
+   }
+
+   /**
+    * Write recurrence details for a calendar exception.
+    *
+    * @param data recurring data, may be null
+    */
+   private void writeRecurringData(RecurringData data)
+   {
+      m_output.writeBoolean(data != null);
+      if (data != null)
+      {
+         m_output.writeDate(data.getStartDate());
+         m_output.writeDate(data.getFinishDate());
+         m_output.writeInteger(data.getOccurrences());
+         m_output.writeInt(data.getRecurrenceType() == null ? -1 : data.getRecurrenceType().ordinal());
+         m_output.writeBoolean(data.getUseEndDate());
+         m_output.writeBoolean(data.isWorkingDaysOnly());
+         m_output.writeBoolean(data.getRelative());
+         m_output.writeInteger(data.getFrequency());
+         m_output.writeInteger(data.getDayNumber());
+         m_output.writeInteger(data.getMonthNumber());
+         for (Day day : Day.values())
+         {
+            m_output.writeBoolean(data.getWeeklyDay(day));
+         }
+      }
+   }
+
+   /**
+    * Write all resources.
+    */
+   private void writeResources()
+   {
+      m_output.writeCount(m_projectFile.getResources().size());
+      for (Resource resource : m_projectFile.getResources())
+      {
+         m_output.writeInteger(resource.getUniqueID());
+         m_output.writeInteger(resource.getID());
+         writeFields(resource, ResourceField.values(), ResourceField.UNIQUE_ID, ResourceField.ID);
+
+         for (int index = 0; index < SnapshotFormat.COST_RATE_TABLE_COUNT; index++)
+         {
+            CostRateTable table = resource.getCostRateTable(index);
+            m_output.writeInt(table == null ? -1 : table.size());
+            if (table != null)
+            {
+               for (CostRateTableEntry entry : table)
+               {
+                  writeRate(entry.getStandardRate());
+                  writeTimeUnit(entry.getStandardRateFormat());
+                  writeRate(entry.getOvertimeRate());
+                  writeTimeUnit(entry.getOvertimeRateFormat());
+                  writeNumber(entry.getCostPerUse());
+                  m_output.writeDate(entry.getEndDate());
+               }
+            }
+         }
+
+         m_output.writeCount(resource.getAvailability().size());
+         for (Availability availability : resource.getAvailability())
+         {
+            m_output.writeDate(availability.getRange().getStart());
+            m_output.writeDate(availability.getRange().getEnd());
+            writeNumber(availability.getUnits());
+         }
+
+         m_eventManager.fireResourceWrittenEvent(resource);
+      }
+   }
+
+   /**
+    * Write all tasks, preserving the task hierarchy.
+    */
+   private void writeTasks()
+   {
+      writeTasks(m_projectFile.getChildTasks());
+   }
+
+   /**
+    * Write a list of tasks and their child tasks.
+    *
+    * @param tasks list of tasks
+    */
+   private void writeTasks(List<Task> tasks)
+   {
+      m_output.writeCount(tasks.size());
+      for (Task task : tasks)
+      {
+         m_output.writeInteger(task.getUniqueID());
+         m_output.writeInteger(task.getID());
+         writeFields(task, TaskField.values(), TaskField.UNIQUE_ID, TaskField.ID);
+         m_eventManager.fireTaskWrittenEvent(task);
+         writeTasks(task.getChildTasks());
+      }
+   }
+
+   /**
+    * Write the relation table.
+    */
+   private void writeRelations()
+   {
+      List<Relation> relations = new ArrayList<Relation>();
+      for (Task task : m_projectFile.getTasks())
+      {
+         List<Relation> predecessors = task.getPredecessors();
+         if (predecessors != null)
+         {
+            relations.addAll(predecessors);
+         }
+      }
+
+      m_output.writeCount(relations.size());
+      for (Relation relation : relations)
+      {
+         m_output.writeInteger(relation.getSourceTask().getUniqueID());
+         m_output.writeInteger(relation.getTargetTask().getUniqueID());
+         m_output.writeInt(relation.getType() == null ? -1 : relation.getType().ordinal());
+         writeDuration(relation.getLag());
+         m_output.writeInteger(relation.getUniqueID());
+         m_eventManager.fireRelationWrittenEvent(relation);
+      }
+   }
+
+   /**
+    * Write the assignment table.
+    */
+   private void writeAssignments()
+   {
+      List<ResourceAssignment> assignments = new ArrayList<ResourceAssignment>();
+      for (ResourceAssignment assignment : m_projectFile.getResourceAssignments())
+      {
+         if (assignment.getTask() != null)
+         {
+            assignments.add(assignment);
+         }
+      }
+
+      m_output.writeCount(assignments.size());
+      for (ResourceAssignment assignment : assignments)
+      {
+         m_output.writeInteger(assignment.getUniqueID());
+         m_output.writeInteger(assignment.getTask().getUniqueID());
+         writeFields(assignment, AssignmentField.values(), AssignmentField.UNIQUE_ID, null);
+         writeTimephasedData(assignment);
+         m_eventManager.fireAssignmentWrittenEvent(assignment);
+      }
+   }
+
+   /**
+    * Write the timephased data associated with an assignment.
+    *
+    * @param assignment resource assignment
+    */
+   private void writeTimephasedData(ResourceAssignment assignment)
+   {
+      List<Integer> work = new ArrayList<Integer>();
+      List<List<TimephasedWork>> workData = new ArrayList<List<TimephasedWork>>();
+      List<Integer> cost = new ArrayList<Integer>();
+      List<List<TimephasedCost>> costData = new ArrayList<List<TimephasedCost>>();
+
+      addWorkSeries(work, workData, SnapshotFormat.TIMEPHASED_WORK, assignment.getTimephasedWork());
+      addWorkSeries(work, workData, SnapshotFormat.TIMEPHASED_ACTUAL_WORK, assignment.getTimephasedActualWork());
+      addWorkSeries(work, workData, SnapshotFormat.TIMEPHASED_ACTUAL_OVERTIME_WORK, assignment.getTimephasedActualOvertimeWork());
+      for (int index = 0; index < SnapshotFormat.BASELINE_COUNT; index++)
+      {
+         addWorkSeries(work, workData, SnapshotFormat.TIMEPHASED_BASELINE_WORK + index, assignment.getTimephasedBaselineWork(index));
+         List<TimephasedCost> data = assignment.getTimephasedBaselineCost(index);
+         if (data != null)
+         {
+            cost.add(Integer.valueOf(SnapshotFormat.TIMEPHASED_BASELINE_COST + index));
+            costData.add(data);
+         }
+      }
+
+      m_output.writeCount(work.size() + cost.size());
+
+      for (int index = 0; index < work.size(); index++)
+      {
+         m_output.writeCount(work.get(index).intValue());
+         int position = m_output.reserveInt();
+         int start = m_output.size();
+         writeTimephasedWork(workData.get(index));
+         m_output.writeIntAt(position, m_output.size() - start);
+      }
+
+      for (int index = 0; index < cost.size(); index++)
+      {
+         m_output.writeCount(cost.get(index).intValue());
+         int position = m_output.reserveInt();
+         int start = m_output.size();
+         writeTimephasedCost(costData.get(index));
+         m_output.writeIntAt(position, m_output.size() - start);
+      }
+   }
+
+   /**
+    * Add a timephased work series to the list of series to write.
+    *
+    * @param ids series identifiers
+    * @param series series data
+    * @param id identifier of this series
+    * @param data timephased work, may be null
+    */
+   private void addWorkSeries(List<Integer> ids, List<List<TimephasedWork>> series, int id, List<TimephasedWork> data)
+   {
+      if (data != null)
+      {
+         ids.add(Integer.valueOf(id));
+         series.add(data);
+      }
+   }
+
+   /**
+    * Write timephased work as a set of columns.
+    *
+    * @param data timephased work
+    */
+   private void writeTimephasedWork(List<TimephasedWork> data)
+   {
+      m_output.writeCount(data.size());
+      for (TimephasedWork item : data)
+      {
+         m_output.writeDate(item.getStart());
+      }
+
+      for (TimephasedWork item : data)
+      {
+         m_output.writeDate(item.getFinish());
+      }
+
+      writeDurationColumn(data, true);
+      writeDurationColumn(data, false);
+
+      for (TimephasedWork item : data)
+      {
+         m_output.writeBoolean(item.getModified());
+      }
+   }
+
+   /**
+    * Write the total or per day amounts from timephased work as two
+    * columns: values then time units.
+    *
+    * @param data timephased work
+    * @param total true to write total amounts, false to write per day amounts
+    */
+   private void writeDurationColumn(List<TimephasedWork> data, boolean total)
+   {
+      for (TimephasedWork item : data)
+      {
+         Duration value = total ? item.getTotalAmount() : item.getAmountPerDay();
+         m_output.writeDouble(value == null ? 0 : value.getDuration());
+      }
+
+      for (TimephasedWork item : data)
+      {
+         Duration value = total ? item.getTotalAmount() : item.getAmountPerDay();
+         m_output.writeByte(value == null ? -1 : value.getUnits().ordinal());
+      }
+   }
+
+   /**
+    * Write timephased cost as a set of columns.
+    *
+    * @param data timephased cost
+    */
+   private void writeTimephasedCost(List<TimephasedCost> data)
+   {
+      m_output.writeCount(data.size());
+      for (TimephasedCost item : data)
+      {
+         m_output.writeDate(item.getStart());
+      }
+
+      for (TimephasedCost item : data)
+      {
+         m_output.writeDate(item.getFinish());
+      }
+
+      for (TimephasedCost item : data)
+      {
+         writeNumber(item.getTotalAmount());
+      }
+
+      for (TimephasedCost item : data)
+      {
+         writeNumber(item.getAmountPerDay());
+      }
+
+      for (TimephasedCost item : data)
+      {
+         m_output.writeBoolean(item.getModified());
+      }
+   }
+
+   /**
+    * Write the populated fields of a container. Fields holding values
+    * which are represented elsewhere in the snapshot (relations, subprojects)
+    * or values of types we don't know how to represent are ignored.
+    *
+    * @param container field container
+    * @param fields candidate fields
+    * @param uniqueID unique ID field, written separately
+    * @param id ID field, written separately
+    */
+   private void writeFields(FieldContainer container, FieldType[] fields, FieldType uniqueID, FieldType id)
+   {
+      List<FieldType> populatedFields = new ArrayList<FieldType>();
+      List<Object> values = new ArrayList<Object>();
+      List<Byte> types = new ArrayList<Byte>();
+
+      for (FieldType field : fields)
+      {
+         if (field == uniqueID || field == id || field.getDataType() == DataType.RELATION_LIST || field.getDataType() == DataType.SUBPROJECT)
+         {
+            continue;
+         }
+
+         Object value = container.getCachedValue(field);
+         byte type = getValueType(value);
+         if (type != 0)
+         {
+            populatedFields.add(field);
+            values.add(value);
+            types.add(Byte.valueOf(type));
+         }
+      }
+
+      m_output.writeCount(populatedFields.size());
+      for (int index = 0; index < populatedFields.size(); index++)
+      {
+         m_output.writeCount(populatedFields.get(index).getValue());
+         writeValue(types.get(index).byteValue(), values.get(index));
+      }
+   }
+
+   /**
+    * Determine how a value will be represented in the snapshot.
+    *
+    * @param value field value
+    * @return type tag, or zero if the value will not be written
+    */
+   private byte getValueType(Object value)
+   {
+      if (value == null)
+      {
+         return 0;
+      }
+
+      if (value instanceof Boolean)
+      {
+         return ((Boolean) value).booleanValue() ? SnapshotFormat.TYPE_TRUE : SnapshotFormat.TYPE_FALSE;
+      }
+
+      Byte type = TYPE_MAP.get(value.getClass());
+      if (type != null)
+      {
+         return type.byteValue();
+      }
+
+      if (value instanceof Enum)
+      {
+         return SnapshotFormat.TYPE_ENUM;
+      }
+
+      if (value instanceof Number)
+      {
+         return SnapshotFormat.TYPE_DOUBLE;
+      }
+
+      if (value instanceof Date)
+      {
+         return SnapshotFormat.TYPE_DATE;
+      }
+
+      if (value instanceof Map)
+      {
+         return SnapshotFormat.TYPE_MAP;
+      }
+
+      if (value instanceof List && isDateRangeList((List<?>) value))
+      {
+         return SnapshotFormat.TYPE_DATE_RANGE_LIST;
+      }
+
+      return 0;
+   }
+
+   /**
+    * Determine if a list contains only date ranges.
+    *
+    * @param list list to test
+    * @return true if the list contains only date ranges
+    */
+   private boolean isDateRangeList(List<?> list)
+   {
+      for (Object item : list)
+      {
+         if (!(item instanceof DateRange))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Write a value.
+    *
+    * @param type type tag
+    * @param value value to write
+    */
+   private void writeValue(byte type, Object value)
+   {
+      m_output.writeByte(type);
+
+      switch (type)
+      {
+         case SnapshotFormat.TYPE_STRING:
+         {
+            m_output.writeString((String) value);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_INTEGER:
+         {
+            m_output.writeInt(((Integer) value).intValue());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_LONG:
+         {
+            m_output.writeLong(((Long) value).longValue());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_SHORT:
+         {
+            m_output.writeInt(((Short) value).intValue());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DOUBLE:
+         {
+            m_output.writeDouble(((Number) value).doubleValue());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DATE:
+         {
+            m_output.writeDate((Date) value);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DURATION:
+         {
+            writeDuration((Duration) value);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_ENUM:
+         {
+            Enum<?> e = (Enum<?>) value;
+            m_output.writeString(e.getDeclaringClass().getName());
+            m_output.writeString(e.name());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_UUID:
+         {
+            UUID uuid = (UUID) value;
+            m_output.writeLong(uuid.getMostSignificantBits());
+            m_output.writeLong(uuid.getLeastSignificantBits());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_RATE:
+         {
+            writeRate((Rate) value);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_PRIORITY:
+         {
+            m_output.writeInt(((Priority) value).getValue());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_CALENDAR:
+         {
+            m_output.writeInteger(((ProjectCalendar) value).getUniqueID());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_CHARACTER:
+         {
+            m_output.writeCount(((Character) value).charValue());
+            break;
+         }
+
+         case SnapshotFormat.TYPE_BINARY:
+         {
+            m_output.writeBytes((byte[]) value);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_MAP:
+         {
+            writeMap((Map<?, ?>) value);
+            break;
+         }
+
+         case SnapshotFormat.TYPE_DATE_RANGE_LIST:
+         {
+            List<?> list = (List<?>) value;
+            m_output.writeCount(list.size());
+            for (Object item : list)
+            {
+               DateRange range = (DateRange) item;
+               m_output.writeDate(range.getStart());
+               m_output.writeDate(range.getEnd());
+            }
+            break;
+         }
+
+         default:
+         {
+            break;
+         }
+      }
+   }
+
+   /**
+    * Write a map of values. Entries with values we can't represent are ignored.
+    *
+    * @param map map to write
+    */
+   private void writeMap(Map<?, ?> map)
+   {
+      List<Map.Entry<?, ?>> entries = new ArrayList<Map.Entry<?, ?>>();
+      for (Map.Entry<?, ?> entry : map.entrySet())
+      {
+         if (entry.getKey() instanceof String && (entry.getValue() == null || getValueType(entry.getValue()) != 0))
+         {
+            entries.add(entry);
+         }
+      }
+
+      m_output.writeCount(entries.size());
+      for (Map.Entry<?, ?> entry : entries)
+      {
+         m_output.writeString((String) entry.getKey());
+         Object value = entry.getValue();
+         if (value == null)
+         {
+            m_output.writeByte(SnapshotFormat.TYPE_NULL);
+         }
+         else
+         {
+            writeValue(getValueType(value), value);
+         }
+      }
+   }
+
+   /**
+    * Write a nullable duration.
+    *
+    * @param value duration value
+    */
+   private void writeDuration(Duration value)
+   {
+      if (value == null)
+      {
+         m_output.writeInt(-1);
+      }
+      else
+      {
+         writeTimeUnit(value.getUnits());
+         m_output.writeDouble(value.getDuration());
+      }
+   }
+
+   /**
+    * Write a nullable rate.
+    *
+    * @param value rate value
+    */
+   private void writeRate(Rate value)
+   {
+      if (value == null)
+      {
+         m_output.writeInt(-1);
+      }
+      else
+      {
+         writeTimeUnit(value.getUnits());
+         m_output.writeDouble(value.getAmount());
+      }
+   }
+
+   /**
+    * Write a nullable time unit.
+    *
+    * @param value time unit
+    */
+   private void writeTimeUnit(TimeUnit value)
+   {
+      m_output.writeInt(value == null ? -1 : value.ordinal());
+   }
+
+   /**
+    * Write a nullable number as a double.
+    *
+    * @param value numeric value
+    */
+   private void writeNumber(Number value)
+   {
+      m_output.writeDouble(value == null ? Double.NaN : value.doubleValue());
+   }
+
+   private ProjectFile m_projectFile;
+   private EventManager m_eventManager;
+   private SnapshotOutput m_output;
+
+   private static final Map<Class<?>, Byte> TYPE_MAP = new HashMap<Class<?>, Byte>();
+   static
+   {
+      TYPE_MAP.put(String.class, Byte.valueOf(SnapshotFormat.TYPE_STRING));
+      TYPE_MAP.put(Integer.class, Byte.valueOf(SnapshotFormat.TYPE_INTEGER));
+      TYPE_MAP.put(Long.class, Byte.valueOf(SnapshotFormat.TYPE_LONG));
+      TYPE_MAP.put(Short.class, Byte.valueOf(SnapshotFormat.TYPE_SHORT));
+      TYPE_MAP.put(Double.class, Byte.valueOf(SnapshotFormat.TYPE_DOUBLE));
+      TYPE_MAP.put(Date.class, Byte.valueOf(SnapshotFormat.TYPE_DATE));
+      TYPE_MAP.put(Duration.class, Byte.valueOf(SnapshotFormat.TYPE_DURATION));
+      TYPE_MAP.put(UUID.class, Byte.valueOf(SnapshotFormat.TYPE_UUID));
+      TYPE_MAP.put(Rate.class, Byte.valueOf(SnapshotFormat.TYPE_RATE));
+      TYPE_MAP.put(Priority.class, Byte.valueOf(SnapshotFormat.TYPE_PRIORITY));
+      TYPE_MAP.put(ProjectCalendar.class, Byte.valueOf(SnapshotFormat.TYPE_CALENDAR));
+      TYPE_MAP.put(Character.class, Byte.valueOf(SnapshotFormat.TYPE_CHARACTER));
+      TYPE_MAP.put(byte[].class, Byte.valueOf(SnapshotFormat.TYPE_BINARY));
+   }
+}
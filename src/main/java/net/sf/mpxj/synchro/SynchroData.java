@@ -23,6 +23,7 @@
 
 package net.sf.mpxj.synchro;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -36,41 +37,45 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.DataFormatException;
-import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+import net.sf.mpxj.common.FixedLengthInputStream;
 import net.sf.mpxj.common.StreamHelper;
 
 /**
  * Reads the raw table data from an S file, ready to be processed.
- * Note that we only extract data for the tables we're going to read.
+ * Tables are decompressed as they are read from the input stream. Tables
+ * we don't need are skipped, and where a table we need appears in the file
+ * before the point at which it is read, its compressed data is retained.
  */
 class SynchroData
 {
    /**
-    * Extract raw table data from the input stream.
+    * Read the file header and table headers from the input stream.
+    * Table data is read on demand by getTableData.
     *
     * @param is input stream
     */
    public void process(InputStream is) throws Exception
    {
+      m_stream = is;
       readHeader(is);
       readVersion(is);
-      readTableData(readTableHeaders(is), is);
+      m_tables = readTableHeaders(is);
    }
-   
+
    /**
     * Return an input stream to read the data from the named table.
     *
     * @param name table name
     * @return InputStream instance
-    * @throws IOException 
+    * @throws IOException
     */
    public StreamReader getTableData(String name) throws IOException
    {
-      InputStream stream = new ByteArrayInputStream(m_tableData.get(name));
+      InputStream stream = new BufferedInputStream(new InflaterInputStream(getCompressedTableData(name)));
       if (m_majorVersion > 5)
-      {        
+      {
          byte[] header = new byte[24];
          stream.read(header);
          SynchroLogger.log("TABLE HEADER", header);
@@ -78,6 +83,48 @@ class SynchroData
       return new StreamReader(m_majorVersion, stream);
    }
 
+   /**
+    * Retrieve a stream containing the compressed data for the named table.
+    * Any tables we need which appear before the named table are
+    * read into memory, tables we don't need are skipped.
+    *
+    * @param name table name
+    * @return compressed table data
+    */
+   private InputStream getCompressedTableData(String name) throws IOException
+   {
+      byte[] data = m_tableData.remove(name);
+      if (data != null)
+      {
+         return new ByteArrayInputStream(data);
+      }
+
+      if (m_currentTable != null)
+      {
+         m_currentTable.close();
+         m_currentTable = null;
+      }
+
+      while (m_tableIndex < m_tables.size())
+      {
+         SynchroTable table = m_tables.get(m_tableIndex++);
+         if (table.getName().equals(name))
+         {
+            m_currentTable = openTable(table);
+            return m_currentTable;
+         }
+
+         if (REQUIRED_TABLES.contains(table.getName()))
+         {
+            InputStream stream = openTable(table);
+            m_tableData.put(table.getName(), readAll(stream));
+            stream.close();
+         }
+      }
+
+      throw new IOException("Table " + name + " not found");
+   }
+
    /**
     * Read the table headers. This allows us to break the file into chunks
     * representing the individual tables.
@@ -150,81 +197,54 @@ class SynchroData
    }
 
    /**
-    * Read the data for all of the tables we're interested in.
-    *
-    * @param tables list of all available tables
-    * @param is input stream
-    */
-   private void readTableData(List<SynchroTable> tables, InputStream is) throws IOException
-   {
-      for (SynchroTable table : tables)
-      {
-         if (REQUIRED_TABLES.contains(table.getName()))
-         {
-            readTable(is, table);
-         }
-      }
-   }
-
-   /**
-    * Read data for a single table and store it.
+    * Position the input stream at the start of a table's compressed data,
+    * and return a stream which is limited to that data.
     *
-    * @param is input stream
     * @param table table header
+    * @return compressed table data
     */
-   private void readTable(InputStream is, SynchroTable table) throws IOException
+   private InputStream openTable(SynchroTable table) throws IOException
    {
       int skip = table.getOffset() - m_offset;
       if (skip != 0)
       {
-         StreamHelper.skip(is, skip);
+         StreamHelper.skip(m_stream, skip);
          m_offset += skip;
       }
 
-      String tableName = DatatypeConverter.getString(is);
+      String tableName = DatatypeConverter.getString(m_stream);
       int tableNameLength = 2 + tableName.length();
       m_offset += tableNameLength;
 
-      int dataLength;
-      if (table.getLength() == -1)
-      {
-         dataLength = is.available();
-      }
-      else
+      SynchroLogger.log("READ", tableName);
+
+      // The final table extends to the end of the file
+      long dataLength = Long.MAX_VALUE;
+      if (table.getLength() != -1)
       {
          dataLength = table.getLength() - tableNameLength;
+         m_offset += dataLength;
       }
 
-      SynchroLogger.log("READ", tableName);
-
-      byte[] compressedTableData = new byte[dataLength];
-      is.read(compressedTableData);
-      m_offset += dataLength;
+      return new FixedLengthInputStream(m_stream, dataLength);
+   }
 
-      Inflater inflater = new Inflater();
-      inflater.setInput(compressedTableData);
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream(compressedTableData.length);
-      byte[] buffer = new byte[1024];
-      while (!inflater.finished())
+   /**
+    * Read the remaining content of a stream.
+    *
+    * @param is input stream
+    * @return stream content
+    */
+   private byte[] readAll(InputStream is) throws IOException
+   {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int count;
+      while ((count = is.read(buffer)) > 0)
       {
-         int count;
-
-         try
-         {
-            count = inflater.inflate(buffer);
-         }
-         catch (DataFormatException ex)
-         {
-            throw new IOException(ex);
-         }
          outputStream.write(buffer, 0, count);
       }
-      outputStream.close();
-      byte[] uncompressedTableData = outputStream.toByteArray();
-
-      SynchroLogger.log(uncompressedTableData);
-
-      m_tableData.put(table.getName(), uncompressedTableData);
+      return outputStream.toByteArray();
    }
 
    /**
@@ -258,6 +278,10 @@ class SynchroData
    
    private int m_majorVersion;
    private int m_offset;
+   private InputStream m_stream;
+   private List<SynchroTable> m_tables;
+   private int m_tableIndex;
+   private InputStream m_currentTable;
    private Map<String, byte[]> m_tableData = new HashMap<String, byte[]>();
    private static final Set<String> REQUIRED_TABLES = new HashSet<String>(Arrays.asList("Tasks", "Calendars", "Companies"));
 }
@@ -139,12 +139,13 @@ public final class SynchroReader extends AbstractProjectReader
    private void processCalendars() throws IOException
    {
       CalendarReader reader = new CalendarReader(m_data.getTableData("Calendars"));
-      reader.read();
-
-      for (MapRow row : reader.getRows())
+      reader.read(new RowListener()
       {
-         processCalendar(row);
-      }
+         @Override public void rowRead(MapRow row)
+         {
+            processCalendar(row);
+         }
+      });
 
       m_project.setDefaultCalendar(m_calendarMap.get(reader.getDefaultCalendarUUID()));
    }
@@ -224,15 +225,17 @@ public final class SynchroReader extends AbstractProjectReader
    private void processResources() throws IOException
    {
       CompanyReader reader = new CompanyReader(m_data.getTableData("Companies"));
-      reader.read();
-      for (MapRow companyRow : reader.getRows())
+      reader.read(new RowListener()
       {
-         // TODO: need to sort by type as well as by name!
-         for (MapRow resourceRow : sort(companyRow.getRows("RESOURCES"), "NAME"))
+         @Override public void rowRead(MapRow companyRow) throws IOException
          {
-            processResource(resourceRow);
+            // TODO: need to sort by type as well as by name!
+            for (MapRow resourceRow : sort(companyRow.getRows("RESOURCES"), "NAME"))
+            {
+               processResource(resourceRow);
+            }
          }
-      }
+      });
    }
 
    /**
@@ -270,11 +273,13 @@ public final class SynchroReader extends AbstractProjectReader
    private void processTasks() throws IOException
    {
       TaskReader reader = new TaskReader(m_data.getTableData("Tasks"));
-      reader.read();
-      for (MapRow row : reader.getRows())
+      reader.read(new RowListener()
       {
-         processTask(m_project, row);
-      }
+         @Override public void rowRead(MapRow row) throws IOException
+         {
+            processTask(m_project, row);
+         }
+      });
       updateDates();
    }
 
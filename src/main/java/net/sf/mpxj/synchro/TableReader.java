@@ -61,6 +61,25 @@ abstract class TableReader
     * @return reader instance
     */
    public TableReader read() throws IOException
+   {
+      return read(new RowListener()
+      {
+         @Override public void rowRead(MapRow row)
+         {
+            m_rows.add(row);
+         }
+      });
+   }
+
+   /**
+    * Read data from the table, passing each row to the listener as it is
+    * read rather than retaining it. Return a reference to the current
+    * instance to allow method chaining.
+    *
+    * @param listener row listener
+    * @return reader instance
+    */
+   public TableReader read(RowListener listener) throws IOException
    {
       int tableHeader = m_stream.readInt();
       if (tableHeader != 0x39AF547A)
@@ -90,7 +109,7 @@ abstract class TableReader
 
          SynchroLogger.log("READER", getClass(), map);
 
-         m_rows.add(new MapRow(map));
+         listener.rowRead(new MapRow(map));
       }
 
       int tableTrailer = m_stream.readInt();
@@ -0,0 +1,85 @@
+/*
+ * file:       GroupKeyComparator.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.Comparator;
+
+/**
+ * Orders group keys. Groups with no value sort before groups with
+ * a value, the order is reversed for descending groups.
+ */
+final class GroupKeyComparator implements Comparator<Object>
+{
+   /**
+    * Constructor.
+    *
+    * @param ascending true if keys are sorted in ascending order
+    */
+   public GroupKeyComparator(boolean ascending)
+   {
+      m_ascending = ascending;
+   }
+
+   @SuppressWarnings(
+   {
+      "unchecked",
+      "rawtypes"
+   }) @Override public int compare(Object o1, Object o2)
+   {
+      int result;
+      if (o1 == o2)
+      {
+         result = 0;
+      }
+      else
+      {
+         if (o1 == null)
+         {
+            result = -1;
+         }
+         else
+         {
+            if (o2 == null)
+            {
+               result = 1;
+            }
+            else
+            {
+               if (o1 instanceof Comparable && o1.getClass() == o2.getClass())
+               {
+                  result = ((Comparable) o1).compareTo(o2);
+               }
+               else
+               {
+                  result = o1.toString().compareTo(o2.toString());
+               }
+            }
+         }
+      }
+
+      return m_ascending ? result : -result;
+   }
+
+   private final boolean m_ascending;
+}
@@ -0,0 +1,312 @@
+/*
+ * file:       GroupSummary.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.GroupClause;
+import net.sf.mpxj.TimeUnit;
+
+/**
+ * Represents a single group produced by applying a group definition
+ * to a list of tasks or resources. Groups form a tree: the root
+ * represents all grouped entities, each level below the root corresponds
+ * to one clause of the group definition.
+ *
+ * @param <T> entity type
+ */
+public final class GroupSummary<T extends FieldContainer>
+{
+   /**
+    * Constructor.
+    *
+    * @param clause clause which generated this group, null for the root
+    * @param key group key, may be null
+    * @param level depth of this group in the tree, zero for the root
+    * @param summaryFields fields summed for each group
+    */
+   GroupSummary(GroupClause clause, Object key, int level, FieldType[] summaryFields)
+   {
+      m_clause = clause;
+      m_key = key;
+      m_level = level;
+      m_summaryFields = summaryFields;
+      m_sums = new double[summaryFields.length];
+   }
+
+   /**
+    * Retrieve the group clause which generated this group.
+    * This will be null for the root of the tree.
+    *
+    * @return group clause
+    */
+   public GroupClause getClause()
+   {
+      return m_clause;
+   }
+
+   /**
+    * Retrieve the key shared by all entities in this group.
+    * For interval groups this is the start of the interval.
+    * A null key represents entities with no value for the grouping field.
+    *
+    * @return group key
+    */
+   public Object getKey()
+   {
+      return m_key;
+   }
+
+   /**
+    * Retrieve the depth of this group in the tree.
+    *
+    * @return group level
+    */
+   public int getLevel()
+   {
+      return m_level;
+   }
+
+   /**
+    * Retrieve the child groups of this group, sorted in the order
+    * defined by the group clause.
+    *
+    * @return child groups
+    */
+   public List<GroupSummary<T>> getChildGroups()
+   {
+      return m_children;
+   }
+
+   /**
+    * Retrieve the entities which belong to this group. Only the groups
+    * at the lowest level of the tree hold entities, the list will be
+    * empty for all other groups.
+    *
+    * @return group members
+    */
+   public List<T> getMembers()
+   {
+      return m_members;
+   }
+
+   /**
+    * Retrieve the number of entities in this group, including those
+    * in any child groups.
+    *
+    * @return entity count
+    */
+   public int getCount()
+   {
+      return m_count;
+   }
+
+   /**
+    * Retrieve the fields summed for this group.
+    *
+    * @return summary fields
+    */
+   public FieldType[] getSummaryFields()
+   {
+      return m_summaryFields;
+   }
+
+   /**
+    * Retrieve the total for a summary field. Duration and work values
+    * are totalled in minutes.
+    *
+    * @param field summary field
+    * @return total value
+    */
+   public double getSum(FieldType field)
+   {
+      return m_sums[getFieldIndex(field)];
+   }
+
+   /**
+    * Retrieve the total for a duration or work summary field, expressed in hours.
+    *
+    * @param field summary field
+    * @return total duration
+    */
+   public Duration getDurationSum(FieldType field)
+   {
+      return Duration.getInstance(getSum(field) / 60, TimeUnit.HOURS);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String toString()
+   {
+      return "[GroupSummary level=" + m_level + " key=" + m_key + " count=" + m_count + "]";
+   }
+
+   /**
+    * Locate the child group for the supplied key, creating it if necessary.
+    *
+    * @param clause clause which generates the child group
+    * @param key group key
+    * @return child group
+    */
+   GroupSummary<T> getChild(GroupClause clause, Object key)
+   {
+      GroupSummary<T> child = m_childMap.get(key);
+      if (child == null)
+      {
+         child = new GroupSummary<T>(clause, key, m_level + 1, m_summaryFields);
+         m_childMap.put(key, child);
+         m_children.add(child);
+      }
+      return child;
+   }
+
+   /**
+    * Add an entity to this group.
+    *
+    * @param member entity
+    * @param values summary values for this entity, or null if the entity is not summed
+    */
+   void addMember(T member, double[] values)
+   {
+      m_members.add(member);
+      ++m_count;
+      if (values != null)
+      {
+         for (int index = 0; index < m_sums.length; index++)
+         {
+            m_sums[index] += values[index];
+         }
+      }
+   }
+
+   /**
+    * Merge the contents of another group tree into this one. Used to
+    * combine the results of grouping separate partitions of the entity list.
+    *
+    * @param other group to merge
+    */
+   void merge(GroupSummary<T> other)
+   {
+      m_members.addAll(other.m_members);
+      m_count += other.m_count;
+      for (int index = 0; index < m_sums.length; index++)
+      {
+         m_sums[index] += other.m_sums[index];
+      }
+
+      for (GroupSummary<T> otherChild : other.m_children)
+      {
+         getChild(otherChild.m_clause, otherChild.m_key).merge(otherChild);
+      }
+   }
+
+   /**
+    * Once all entities have been added, roll the totals up the tree
+    * and sort each level.
+    *
+    * @param comparators key comparators, one per level
+    */
+   void complete(List<GroupKeyComparator> comparators)
+   {
+      m_childMap = null;
+      if (m_children.isEmpty())
+      {
+         return;
+      }
+
+      for (GroupSummary<T> child : m_children)
+      {
+         child.complete(comparators);
+         m_count += child.m_count;
+         for (int index = 0; index < m_sums.length; index++)
+         {
+            m_sums[index] += child.m_sums[index];
+         }
+      }
+
+      Collections.sort(m_children, new ChildComparator<T>(comparators.get(m_level)));
+   }
+
+   /**
+    * Find the index of a summary field.
+    *
+    * @param field summary field
+    * @return field index
+    */
+   private int getFieldIndex(FieldType field)
+   {
+      for (int index = 0; index < m_summaryFields.length; index++)
+      {
+         if (m_summaryFields[index] == field)
+         {
+            return index;
+         }
+      }
+      throw new IllegalArgumentException("Field " + field + " is not a summary field");
+   }
+
+   /**
+    * Sorts child groups using their keys.
+    *
+    * @param <T> entity type
+    */
+   private static final class ChildComparator<T extends FieldContainer> implements Comparator<GroupSummary<T>>
+   {
+      /**
+       * Constructor.
+       *
+       * @param comparator key comparator
+       */
+      public ChildComparator(GroupKeyComparator comparator)
+      {
+         m_comparator = comparator;
+      }
+
+      @Override public int compare(GroupSummary<T> o1, GroupSummary<T> o2)
+      {
+         return m_comparator.compare(o1.m_key, o2.m_key);
+      }
+
+      private final GroupKeyComparator m_comparator;
+   }
+
+   private final GroupClause m_clause;
+   private final Object m_key;
+   private final int m_level;
+   private final FieldType[] m_summaryFields;
+   private final double[] m_sums;
+   private int m_count;
+   private final List<T> m_members = new ArrayList<T>();
+   private final List<GroupSummary<T>> m_children = new ArrayList<GroupSummary<T>>();
+   private Map<Object, GroupSummary<T>> m_childMap = new HashMap<Object, GroupSummary<T>>();
+}
@@ -0,0 +1,368 @@
+/*
+ * file:       GroupUtility.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.Group;
+import net.sf.mpxj.GroupClause;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.ParallelHelper;
+
+/**
+ * Applies a group definition read from a schedule to a list of tasks
+ * or resources, producing a tree of groups with totals for a set of
+ * summary fields. The value of each field is retrieved once per entity,
+ * and totals are accumulated as primitive values in a single pass over
+ * the entities.
+ *
+ * <p>Where a clause specifies a "group on" value other than zero,
+ * and a group interval is present, values are grouped in intervals starting
+ * from the clause's "start at" value. Numeric, currency and percentage
+ * intervals are expressed in the field's own units, duration and work intervals
+ * are expressed in the project's default duration and work units, and date
+ * intervals are expressed in days.</p>
+ *
+ * <p>Summary tasks are excluded when the group definition does not show
+ * summary tasks. Where they are shown they are counted, but their values
+ * are not added to the totals to avoid double counting.</p>
+ */
+public final class GroupUtility
+{
+   /**
+    * Constructor.
+    *
+    * @param properties project properties used to normalise durations
+    */
+   public GroupUtility(ProjectProperties properties)
+   {
+      double minutesPerDay = properties.getMinutesPerDay().doubleValue();
+      double minutesPerWeek = properties.getMinutesPerWeek().doubleValue();
+      double daysPerMonth = properties.getDaysPerMonth().doubleValue();
+
+      for (TimeUnit unit : TimeUnit.values())
+      {
+         m_minutesPerUnit[unit.ordinal()] = Duration.convertUnits(1, unit, TimeUnit.MINUTES, minutesPerDay, minutesPerWeek, daysPerMonth).getDuration();
+      }
+
+      m_durationUnits = properties.getDefaultDurationUnits();
+      m_workUnits = properties.getDefaultWorkUnits();
+   }
+
+   /**
+    * Set the fields to be totalled for each group. Numeric, currency,
+    * percentage, duration and work fields may be used.
+    *
+    * @param fields summary fields
+    */
+   public void setSummaryFields(FieldType... fields)
+   {
+      m_summaryFields = fields;
+   }
+
+   /**
+    * Retrieve the fields to be totalled for each group.
+    *
+    * @return summary fields
+    */
+   public FieldType[] getSummaryFields()
+   {
+      return m_summaryFields;
+   }
+
+   /**
+    * Set the number of threads used to group large lists of entities.
+    * The default is a single thread.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Retrieve the number of threads used to group large lists of entities.
+    *
+    * @return thread count
+    */
+   public int getThreadCount()
+   {
+      return m_threadCount;
+   }
+
+   /**
+    * Apply a group definition to a list of entities, typically
+    * the contents of a {@code TaskContainer} or a {@code ResourceContainer}.
+    *
+    * @param group group definition
+    * @param entities entities to group
+    * @return root of the group tree
+    */
+   public <T extends FieldContainer> GroupSummary<T> group(Group group, List<T> entities)
+   {
+      List<GroupClause> clauses = new ArrayList<GroupClause>(group.getGroupClauses());
+      List<GroupKeyComparator> comparators = new ArrayList<GroupKeyComparator>(clauses.size());
+      for (GroupClause clause : clauses)
+      {
+         comparators.add(new GroupKeyComparator(clause.getAscending()));
+      }
+
+      int partitionCount = Math.min(m_threadCount, entities.size() / MINIMUM_PARTITION_SIZE);
+      GroupSummary<T> root;
+      if (partitionCount > 1)
+      {
+         root = groupParallel(group, clauses, entities, partitionCount);
+      }
+      else
+      {
+         root = groupPartition(group, clauses, entities);
+      }
+
+      root.complete(comparators);
+      return root;
+   }
+
+   /**
+    * Split the entities into partitions, group each partition on
+    * a separate thread, then merge the results. Partitions are merged in order
+    * so the members of each group retain their original order.
+    *
+    * @param group group definition
+    * @param clauses group clauses
+    * @param entities entities to group
+    * @param partitionCount number of partitions
+    * @return root of the group tree
+    */
+   private <T extends FieldContainer> GroupSummary<T> groupParallel(final Group group, final List<GroupClause> clauses, List<T> entities, int partitionCount)
+   {
+      List<Callable<GroupSummary<T>>> tasks = new ArrayList<Callable<GroupSummary<T>>>(partitionCount);
+      int partitionSize = (entities.size() + partitionCount - 1) / partitionCount;
+      for (int start = 0; start < entities.size(); start += partitionSize)
+      {
+         final List<T> partition = entities.subList(start, Math.min(start + partitionSize, entities.size()));
+         tasks.add(new Callable<GroupSummary<T>>()
+         {
+            @Override public GroupSummary<T> call()
+            {
+               return groupPartition(group, clauses, partition);
+            }
+         });
+      }
+
+      GroupSummary<T> root = new GroupSummary<T>(null, null, 0, m_summaryFields);
+      for (GroupSummary<T> summary : ParallelHelper.invokeAll(partitionCount, tasks))
+      {
+         root.merge(summary);
+      }
+      return root;
+   }
+
+   /**
+    * Group a list of entities.
+    *
+    * @param group group definition
+    * @param clauses group clauses
+    * @param entities entities to group
+    * @return root of the group tree
+    */
+   private <T extends FieldContainer> GroupSummary<T> groupPartition(Group group, List<GroupClause> clauses, List<T> entities)
+   {
+      GroupSummary<T> root = new GroupSummary<T>(null, null, 0, m_summaryFields);
+      double[] values = new double[m_summaryFields.length];
+
+      for (T entity : entities)
+      {
+         boolean summed = true;
+         if (entity instanceof Task)
+         {
+            Task task = (Task) entity;
+            if (task.getNull())
+            {
+               continue;
+            }
+
+            if (task.getSummary())
+            {
+               if (!group.getShowSummaryTasks())
+               {
+                  continue;
+               }
+               summed = false;
+            }
+         }
+
+         GroupSummary<T> summary = root;
+         for (GroupClause clause : clauses)
+         {
+            summary = summary.getChild(clause, getGroupKey(clause, entity.getCurrentValue(clause.getField())));
+         }
+
+         if (summed)
+         {
+            for (int index = 0; index < values.length; index++)
+            {
+               values[index] = getSummaryValue(entity.getCurrentValue(m_summaryFields[index]));
+            }
+         }
+
+         summary.addMember(entity, summed ? values : null);
+      }
+
+      return root;
+   }
+
+   /**
+    * Convert a field value to a primitive value for summing.
+    * Durations are converted to minutes.
+    *
+    * @param value field value
+    * @return primitive value
+    */
+   private double getSummaryValue(Object value)
+   {
+      double result;
+      if (value instanceof Number)
+      {
+         result = ((Number) value).doubleValue();
+      }
+      else
+      {
+         if (value instanceof Duration)
+         {
+            Duration duration = (Duration) value;
+            result = duration.getDuration() * m_minutesPerUnit[duration.getUnits().ordinal()];
+         }
+         else
+         {
+            result = 0;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Determine the key of the group to which a value belongs.
+    *
+    * @param clause group clause
+    * @param value field value
+    * @return group key
+    */
+   private Object getGroupKey(GroupClause clause, Object value)
+   {
+      if (value == null)
+      {
+         return null;
+      }
+
+      boolean interval = clause.getGroupOn() != 0 && clause.getGroupInterval() instanceof Number;
+      Object result;
+
+      if (value instanceof Duration)
+      {
+         TimeUnit units = clause.getField().getDataType() == DataType.WORK ? m_workUnits : m_durationUnits;
+         double durationValue = getSummaryValue(value) / m_minutesPerUnit[units.ordinal()];
+         if (interval)
+         {
+            durationValue = getIntervalStart(clause, durationValue);
+         }
+         result = Duration.getInstance(durationValue, units);
+      }
+      else
+      {
+         if (interval && value instanceof Number)
+         {
+            result = Double.valueOf(getIntervalStart(clause, ((Number) value).doubleValue()));
+         }
+         else
+         {
+            if (interval && value instanceof Date)
+            {
+               result = getIntervalStart(clause, (Date) value);
+            }
+            else
+            {
+               result = value;
+            }
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Retrieve the start of the interval containing a numeric value.
+    *
+    * @param clause group clause
+    * @param value numeric value
+    * @return interval start
+    */
+   private double getIntervalStart(GroupClause clause, double value)
+   {
+      double interval = ((Number) clause.getGroupInterval()).doubleValue();
+      double startAt = clause.getStartAt() instanceof Number ? ((Number) clause.getStartAt()).doubleValue() : 0;
+      return interval > 0 ? startAt + Math.floor((value - startAt) / interval) * interval : value;
+   }
+
+   /**
+    * Retrieve the start of the interval containing a date value.
+    *
+    * @param clause group clause
+    * @param value date value
+    * @return interval start
+    */
+   private Date getIntervalStart(GroupClause clause, Date value)
+   {
+      int interval = ((Number) clause.getGroupInterval()).intValue();
+      Date startAt = DateHelper.getDayStartDate(clause.getStartAt() instanceof Date ? (Date) clause.getStartAt() : value);
+      Date day = DateHelper.getDayStartDate(value);
+
+      if (interval <= 0)
+      {
+         return day;
+      }
+
+      long days = Math.round((double) (day.getTime() - startAt.getTime()) / DateHelper.MS_PER_DAY);
+      long bucket = (long) Math.floor((double) days / interval);
+      return DateHelper.addDays(startAt, (int) (bucket * interval));
+   }
+
+   private final double[] m_minutesPerUnit = new double[TimeUnit.values().length];
+   private final TimeUnit m_durationUnits;
+   private final TimeUnit m_workUnits;
+   private FieldType[] m_summaryFields = new FieldType[0];
+   private int m_threadCount = 1;
+
+   private static final int MINIMUM_PARTITION_SIZE = 1000;
+}
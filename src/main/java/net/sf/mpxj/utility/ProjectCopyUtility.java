@@ -0,0 +1,86 @@
+/*
+ * file:       ProjectCopyUtility.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       30/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.snapshot.SnapshotReader;
+import net.sf.mpxj.snapshot.SnapshotWriter;
+
+/**
+ * Creates independent copies of ProjectFile instances. The copy is made
+ * by writing the project as an in-memory snapshot and reading it back,
+ * which is considerably cheaper than re-reading the original schedule.
+ * The content preserved by the copy is the content preserved by
+ * SnapshotWriter.
+ */
+public final class ProjectCopyUtility
+{
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private ProjectCopyUtility()
+   {
+      // Private constructor to prevent instantiation
+   }
+
+   /**
+    * Create a copy of a project.
+    *
+    * @param file project to copy
+    * @return new ProjectFile instance
+    */
+   public static ProjectFile copy(ProjectFile file) throws IOException, MPXJException
+   {
+      return fromSnapshot(toSnapshot(file));
+   }
+
+   /**
+    * Write a project as a snapshot held in a byte array.
+    *
+    * @param file project to write
+    * @return snapshot data
+    */
+   public static byte[] toSnapshot(ProjectFile file) throws IOException
+   {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      new SnapshotWriter().write(file, os);
+      return os.toByteArray();
+   }
+
+   /**
+    * Create a new project from snapshot data held in a byte array.
+    *
+    * @param data snapshot data
+    * @return new ProjectFile instance
+    */
+   public static ProjectFile fromSnapshot(byte[] data) throws MPXJException
+   {
+      return new SnapshotReader().read(ByteBuffer.wrap(data));
+   }
+}
@@ -0,0 +1,226 @@
+/*
+ * file:       ResourceLoading.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.List;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Resource;
+
+/**
+ * Loading curve for a single resource, as calculated by ResourceLoadingUtility.
+ * For each period in the timescale this class holds the work assigned to
+ * the resource and the capacity of the resource, both expressed in hours.
+ */
+public final class ResourceLoading
+{
+   /**
+    * Constructor.
+    *
+    * @param resource parent resource
+    * @param timescale timescale periods
+    * @param work work in hours per period
+    * @param capacity capacity in hours per period
+    */
+   ResourceLoading(Resource resource, List<DateRange> timescale, double[] work, double[] capacity)
+   {
+      m_resource = resource;
+      m_timescale = timescale;
+      m_work = work;
+      m_capacity = capacity;
+   }
+
+   /**
+    * Retrieve the resource.
+    *
+    * @return Resource instance
+    */
+   public Resource getResource()
+   {
+      return m_resource;
+   }
+
+   /**
+    * Retrieve the timescale periods.
+    *
+    * @return list of date ranges
+    */
+   public List<DateRange> getTimescale()
+   {
+      return m_timescale;
+   }
+
+   /**
+    * Retrieve the number of periods.
+    *
+    * @return period count
+    */
+   public int getPeriodCount()
+   {
+      return m_work.length;
+   }
+
+   /**
+    * Retrieve the work assigned to the resource in a period.
+    *
+    * @param index period index
+    * @return work in hours
+    */
+   public double getWork(int index)
+   {
+      return m_work[index];
+   }
+
+   /**
+    * Retrieve the capacity of the resource in a period, taking into
+    * account the resource calendar and the resource availability.
+    *
+    * @param index period index
+    * @return capacity in hours
+    */
+   public double getCapacity(int index)
+   {
+      return m_capacity[index];
+   }
+
+   /**
+    * Retrieve the amount by which the work assigned in a period
+    * exceeds the capacity of the resource.
+    *
+    * @param index period index
+    * @return overallocated work in hours, zero if the resource is not overallocated
+    */
+   public double getOverallocation(int index)
+   {
+      double result = m_work[index] - m_capacity[index];
+      return result > TOLERANCE ? result : 0;
+   }
+
+   /**
+    * Determine if the resource is overallocated in a period.
+    *
+    * @param index period index
+    * @return true if the resource is overallocated
+    */
+   public boolean isOverallocated(int index)
+   {
+      return m_work[index] - m_capacity[index] > TOLERANCE;
+   }
+
+   /**
+    * Determine if the resource is overallocated in any period.
+    *
+    * @return true if the resource is overallocated
+    */
+   public boolean isOverallocated()
+   {
+      for (int index = 0; index < m_work.length; index++)
+      {
+         if (isOverallocated(index))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Retrieve the indexes of the periods in which the resource is overallocated.
+    *
+    * @return array of period indexes
+    */
+   public int[] getOverallocatedPeriods()
+   {
+      int count = 0;
+      for (int index = 0; index < m_work.length; index++)
+      {
+         if (isOverallocated(index))
+         {
+            ++count;
+         }
+      }
+
+      int[] result = new int[count];
+      count = 0;
+      for (int index = 0; index < m_work.length; index++)
+      {
+         if (isOverallocated(index))
+         {
+            result[count++] = index;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the total work assigned to the resource across all periods.
+    *
+    * @return work in hours
+    */
+   public double getTotalWork()
+   {
+      double result = 0;
+      for (double value : m_work)
+      {
+         result += value;
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the work assigned in each period.
+    *
+    * @return copy of the work array
+    */
+   public double[] getWork()
+   {
+      return m_work.clone();
+   }
+
+   /**
+    * Retrieve the capacity in each period.
+    *
+    * @return copy of the capacity array
+    */
+   public double[] getCapacity()
+   {
+      return m_capacity.clone();
+   }
+
+   @Override public String toString()
+   {
+      return "[ResourceLoading resource=" + m_resource + " periods=" + m_work.length + " totalWork=" + getTotalWork() + "]";
+   }
+
+   private final Resource m_resource;
+   private final List<DateRange> m_timescale;
+   private final double[] m_work;
+   private final double[] m_capacity;
+
+   /**
+    * Work within this amount of the capacity is not treated as an overallocation,
+    * allowing for rounding when work is distributed across periods.
+    */
+   private static final double TOLERANCE = 0.0001;
+}
@@ -0,0 +1,513 @@
+/*
+ * file:       ResourceLoadingUtility.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.AvailabilityTable;
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceType;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.ParallelHelper;
+import net.sf.mpxj.mpp.TimescaleUnits;
+
+/**
+ * Calculates resource loading curves: the work assigned to each resource
+ * in each period of a timescale, alongside the capacity of the resource
+ * in that period. Capacity is derived from the resource calendar and
+ * the resource availability table, or the resource's max units where
+ * no availability table is present. Periods where the work exceeds the
+ * capacity are reported as overallocated.
+ *
+ * The timephased work for each resource is first extracted into primitive
+ * arrays sorted by start date, then swept across the timescale. The sweep
+ * does not touch the calendars or the timephased data, so it can be run
+ * in parallel across resources.
+ */
+public final class ResourceLoadingUtility
+{
+   /**
+    * Set the number of threads used to calculate loading for a collection
+    * of resources. Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Retrieve the number of threads used to calculate loading.
+    *
+    * @return thread count
+    */
+   public int getThreadCount()
+   {
+      return m_threadCount;
+   }
+
+   /**
+    * Set the day on which the week starts when creating a weekly timescale.
+    * Defaults to Calendar.MONDAY.
+    *
+    * @param weekStartDay week start day
+    */
+   public void setWeekStartDay(int weekStartDay)
+   {
+      m_weekStartDay = weekStartDay;
+   }
+
+   /**
+    * Retrieves the day on which the week starts.
+    *
+    * @return week start day
+    */
+   public int getWeekStartDay()
+   {
+      return m_weekStartDay;
+   }
+
+   /**
+    * Calculate loading for a collection of resources using a timescale
+    * created from a start date, timescale units and a number of periods.
+    *
+    * @param resources resources
+    * @param startDate timescale start date
+    * @param units timescale units
+    * @param periodCount number of periods
+    * @return loading for each work resource
+    */
+   public List<ResourceLoading> calculate(Collection<Resource> resources, Date startDate, TimescaleUnits units, int periodCount)
+   {
+      TimescaleUtility timescale = new TimescaleUtility();
+      timescale.setWeekStartDay(m_weekStartDay);
+      return calculate(resources, timescale.createTimescale(startDate, units, periodCount));
+   }
+
+   /**
+    * Calculate loading for a single resource.
+    *
+    * @param resource resource
+    * @param timescale timescale periods, in date order and not overlapping
+    * @return resource loading
+    */
+   public ResourceLoading calculate(Resource resource, List<DateRange> timescale)
+   {
+      Periods periods = new Periods(timescale);
+      Map<ProjectCalendar, long[]> ranges = new HashMap<ProjectCalendar, long[]>();
+      ResourceData data = new ResourceData(resource, periods, ranges);
+      return data.calculate(periods, WorkingTimeProfile.createProfiles(ranges));
+   }
+
+   /**
+    * Calculate loading for a collection of resources. The resources may be
+    * drawn from any number of projects. Material and cost resources
+    * are ignored.
+    *
+    * @param resources resources
+    * @param timescale timescale periods, in date order and not overlapping
+    * @return loading for each work resource, in the same order as the resources
+    */
+   public List<ResourceLoading> calculate(Collection<Resource> resources, List<DateRange> timescale)
+   {
+      final Periods periods = new Periods(timescale);
+      Map<ProjectCalendar, long[]> ranges = new HashMap<ProjectCalendar, long[]>();
+      List<ResourceData> data = new ArrayList<ResourceData>(resources.size());
+      for (Resource resource : resources)
+      {
+         ResourceType type = resource.getType();
+         if (type == null || type == ResourceType.WORK)
+         {
+            data.add(new ResourceData(resource, periods, ranges));
+         }
+      }
+      final Map<ProjectCalendar, WorkingTimeProfile> profiles = WorkingTimeProfile.createProfiles(ranges);
+
+      List<ResourceLoading> result = new ArrayList<ResourceLoading>(data.size());
+      if (m_threadCount < 2 || data.size() < 2)
+      {
+         for (ResourceData item : data)
+         {
+            result.add(item.calculate(periods, profiles));
+         }
+         return result;
+      }
+
+      int threadCount = Math.min(m_threadCount, data.size());
+      List<Callable<List<ResourceLoading>>> tasks = new ArrayList<Callable<List<ResourceLoading>>>(threadCount);
+      int partitionSize = (data.size() + threadCount - 1) / threadCount;
+      for (int start = 0; start < data.size(); start += partitionSize)
+      {
+         final List<ResourceData> partition = data.subList(start, Math.min(start + partitionSize, data.size()));
+         tasks.add(new Callable<List<ResourceLoading>>()
+         {
+            @Override public List<ResourceLoading> call()
+            {
+               List<ResourceLoading> list = new ArrayList<ResourceLoading>(partition.size());
+               for (ResourceData item : partition)
+               {
+                  list.add(item.calculate(periods, profiles));
+               }
+               return list;
+            }
+         });
+      }
+
+      for (List<ResourceLoading> list : ParallelHelper.invokeAll(threadCount, tasks))
+      {
+         result.addAll(list);
+      }
+      return result;
+   }
+
+   /**
+    * Timescale periods held as arrays of timestamps.
+    */
+   private static final class Periods
+   {
+      /**
+       * Constructor.
+       *
+       * @param timescale timescale periods
+       */
+      public Periods(List<DateRange> timescale)
+      {
+         m_timescale = timescale;
+         int count = timescale.size();
+         m_start = new long[count];
+         m_finish = new long[count];
+         for (int index = 0; index < count; index++)
+         {
+            DateRange range = timescale.get(index);
+            m_start[index] = range.getStart().getTime();
+            m_finish[index] = range.getEnd().getTime();
+         }
+      }
+
+      /**
+       * Retrieve the earliest timestamp covered by the timescale.
+       *
+       * @return timestamp
+       */
+      public long getStart()
+      {
+         return m_start.length == 0 ? 0 : m_start[0];
+      }
+
+      /**
+       * Retrieve the latest timestamp covered by the timescale.
+       *
+       * @return timestamp
+       */
+      public long getFinish()
+      {
+         return m_finish.length == 0 ? 0 : m_finish[m_finish.length - 1];
+      }
+
+      final List<DateRange> m_timescale;
+      final long[] m_start;
+      final long[] m_finish;
+   }
+
+   /**
+    * Timephased work and availability for a single resource, held in
+    * primitive arrays. Timephased work items are sorted by start date.
+    */
+   private static final class ResourceData
+   {
+      /**
+       * Constructor. Extracts the data required from the resource and
+       * notes the date ranges over which each calendar will be used.
+       *
+       * @param resource resource
+       * @param periods timescale periods
+       * @param ranges map of calendars to the range of timestamps each profile must cover
+       */
+      public ResourceData(Resource resource, Periods periods, Map<ProjectCalendar, long[]> ranges)
+      {
+         m_resource = resource;
+         ProjectProperties properties = resource.getParentFile().getProjectProperties();
+
+         List<WorkItem> items = new ArrayList<WorkItem>();
+         for (ResourceAssignment assignment : resource.getTaskAssignments())
+         {
+            ProjectCalendar calendar = assignment.getTask() == null ? resource.getResourceCalendar() : assignment.getCalendar();
+            if (calendar == null)
+            {
+               calendar = resource.getParentFile().getDefaultCalendar();
+            }
+            addItems(items, assignment.getTimephasedActualWork(), calendar, properties);
+            addItems(items, assignment.getTimephasedWork(), calendar, properties);
+         }
+         Collections.sort(items);
+
+         int count = items.size();
+         m_itemStart = new long[count];
+         m_itemFinish = new long[count];
+         m_itemHours = new double[count];
+         m_itemCalendar = new ProjectCalendar[count];
+         for (int index = 0; index < count; index++)
+         {
+            WorkItem item = items.get(index);
+            m_itemStart[index] = item.m_start;
+            m_itemFinish[index] = item.m_finish;
+            m_itemHours[index] = item.m_hours;
+            m_itemCalendar[index] = item.m_calendar;
+            if (item.m_calendar != null)
+            {
+               WorkingTimeProfile.addRange(ranges, item.m_calendar, item.m_start, item.m_finish);
+            }
+         }
+
+         m_calendar = resource.getResourceCalendar();
+         if (m_calendar == null)
+         {
+            m_calendar = resource.getParentFile().getDefaultCalendar();
+         }
+         if (m_calendar != null)
+         {
+            WorkingTimeProfile.addRange(ranges, m_calendar, periods.getStart(), periods.getFinish());
+         }
+
+         AvailabilityTable table = resource.getAvailability();
+         if (table.isEmpty())
+         {
+            Number units = resource.getMaxUnits();
+            m_availabilityStart = new long[]
+            {
+               Long.MIN_VALUE
+            };
+            m_availabilityFinish = new long[]
+            {
+               Long.MAX_VALUE
+            };
+            m_availabilityUnits = new double[]
+            {
+               units == null ? 1.0 : units.doubleValue() / 100.0
+            };
+         }
+         else
+         {
+            count = table.size();
+            m_availabilityStart = new long[count];
+            m_availabilityFinish = new long[count];
+            m_availabilityUnits = new double[count];
+            for (int index = 0; index < count; index++)
+            {
+               Availability availability = table.get(index);
+               DateRange range = availability.getRange();
+               Number units = availability.getUnits();
+               m_availabilityStart[index] = range.getStart() == null ? Long.MIN_VALUE : range.getStart().getTime();
+               m_availabilityFinish[index] = range.getEnd() == null ? Long.MAX_VALUE : range.getEnd().getTime();
+               m_availabilityUnits[index] = units == null ? 1.0 : units.doubleValue() / 100.0;
+            }
+         }
+      }
+
+      /**
+       * Sweep the timephased work across the timescale, and calculate
+       * the capacity in each period.
+       *
+       * @param periods timescale periods
+       * @param profiles map of calendars to profiles
+       * @return resource loading
+       */
+      public ResourceLoading calculate(Periods periods, Map<ProjectCalendar, WorkingTimeProfile> profiles)
+      {
+         long[] periodStart = periods.m_start;
+         long[] periodFinish = periods.m_finish;
+         int periodCount = periodStart.length;
+         double[] work = new double[periodCount];
+         double[] capacity = new double[periodCount];
+
+         //
+         // Items are sorted by start date, so the first period an item
+         // can contribute to never moves backwards.
+         //
+         int firstPeriod = 0;
+         for (int index = 0; index < m_itemStart.length; index++)
+         {
+            long start = m_itemStart[index];
+            long finish = m_itemFinish[index];
+            while (firstPeriod < periodCount && periodFinish[firstPeriod] < start)
+            {
+               ++firstPeriod;
+            }
+
+            if (firstPeriod == periodCount)
+            {
+               break;
+            }
+
+            double hours = m_itemHours[index];
+            if (finish <= start)
+            {
+               if (periodStart[firstPeriod] <= start)
+               {
+                  work[firstPeriod] += hours;
+               }
+               continue;
+            }
+
+            WorkingTimeProfile profile = profiles.get(m_itemCalendar[index]);
+            double total = getWorkingMinutes(profile, start, finish);
+            if (total <= 0)
+            {
+               profile = null;
+               total = finish - start;
+            }
+
+            for (int period = firstPeriod; period < periodCount && periodStart[period] < finish; period++)
+            {
+               long overlapStart = Math.max(start, periodStart[period]);
+               long overlapFinish = Math.min(finish, periodFinish[period]);
+               if (overlapFinish > overlapStart)
+               {
+                  double minutes = profile == null ? overlapFinish - overlapStart : profile.getWorkingMinutes(overlapStart, overlapFinish);
+                  work[period] += hours * minutes / total;
+               }
+            }
+         }
+
+         WorkingTimeProfile profile = profiles.get(m_calendar);
+         for (int period = 0; period < periodCount; period++)
+         {
+            for (int index = 0; index < m_availabilityStart.length; index++)
+            {
+               long overlapStart = Math.max(periodStart[period], m_availabilityStart[index]);
+               long overlapFinish = Math.min(periodFinish[period], m_availabilityFinish[index]);
+               if (overlapFinish > overlapStart)
+               {
+                  capacity[period] += getWorkingMinutes(profile, overlapStart, overlapFinish) * m_availabilityUnits[index] / 60.0;
+               }
+            }
+         }
+
+         return new ResourceLoading(m_resource, periods.m_timescale, work, capacity);
+      }
+
+      /**
+       * Add timephased work items to the list.
+       *
+       * @param items list of work items
+       * @param data timephased work
+       * @param calendar calendar used to distribute the work
+       * @param properties project properties
+       */
+      private void addItems(List<WorkItem> items, List<TimephasedWork> data, ProjectCalendar calendar, ProjectProperties properties)
+      {
+         if (data == null)
+         {
+            return;
+         }
+
+         for (TimephasedWork work : data)
+         {
+            Duration amount = work.getTotalAmount();
+            if (work.getStart() == null || work.getFinish() == null || amount == null || amount.getDuration() == 0)
+            {
+               continue;
+            }
+
+            double hours = amount.getUnits() == TimeUnit.HOURS ? amount.getDuration() : amount.convertUnits(TimeUnit.HOURS, properties).getDuration();
+            items.add(new WorkItem(work.getStart().getTime(), work.getFinish().getTime(), hours, calendar));
+         }
+      }
+
+      /**
+       * Retrieve the working time between two timestamps. Where no calendar
+       * is available, elapsed time is used.
+       *
+       * @param profile working time profile, may be null
+       * @param start start timestamp
+       * @param finish finish timestamp
+       * @return working time in minutes
+       */
+      private double getWorkingMinutes(WorkingTimeProfile profile, long start, long finish)
+      {
+         return profile == null ? (finish - start) / 60000.0 : profile.getWorkingMinutes(start, finish);
+      }
+
+      private final Resource m_resource;
+      private final long[] m_itemStart;
+      private final long[] m_itemFinish;
+      private final double[] m_itemHours;
+      private final ProjectCalendar[] m_itemCalendar;
+      private ProjectCalendar m_calendar;
+      private final long[] m_availabilityStart;
+      private final long[] m_availabilityFinish;
+      private final double[] m_availabilityUnits;
+   }
+
+   /**
+    * A timephased work item used while extracting data from a resource.
+    */
+   private static final class WorkItem implements Comparable<WorkItem>
+   {
+      /**
+       * Constructor.
+       *
+       * @param start start timestamp
+       * @param finish finish timestamp
+       * @param hours work in hours
+       * @param calendar calendar used to distribute the work
+       */
+      public WorkItem(long start, long finish, double hours, ProjectCalendar calendar)
+      {
+         m_start = start;
+         m_finish = finish;
+         m_hours = hours;
+         m_calendar = calendar;
+      }
+
+      @Override public int compareTo(WorkItem o)
+      {
+         return m_start < o.m_start ? -1 : (m_start == o.m_start ? 0 : 1);
+      }
+
+      final long m_start;
+      final long m_finish;
+      final double m_hours;
+      final ProjectCalendar m_calendar;
+   }
+
+   private int m_threadCount = 1;
+   private int m_weekStartDay = Calendar.MONDAY;
+}
@@ -0,0 +1,184 @@
+/*
+ * file:       TimephasedExport.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+/**
+ * Day-level timephased data for a set of resource assignments, held as
+ * columns of primitive values. Each row represents one working day of one
+ * assignment on which at least one of the values is non-zero. Rows are
+ * ordered by assignment, then by day.
+ *
+ * Days are represented as the number of days since 1970-01-01 in the
+ * default time zone, work is represented in minutes.
+ */
+public final class TimephasedExport
+{
+   /**
+    * Constructor.
+    *
+    * @param rowCount number of rows
+    * @param uniqueID assignment unique ID column
+    * @param epochDay epoch day column
+    * @param values value columns, indexed by the column constants
+    */
+   TimephasedExport(int rowCount, int[] uniqueID, int[] epochDay, double[][] values)
+   {
+      m_rowCount = rowCount;
+      m_uniqueID = uniqueID;
+      m_epochDay = epochDay;
+      m_values = values;
+   }
+
+   /**
+    * Retrieve the number of rows.
+    *
+    * @return row count
+    */
+   public int getRowCount()
+   {
+      return m_rowCount;
+   }
+
+   /**
+    * Retrieve the assignment unique ID column.
+    *
+    * @return assignment unique IDs
+    */
+   public int[] getUniqueID()
+   {
+      return m_uniqueID;
+   }
+
+   /**
+    * Retrieve the day column, expressed as days since 1970-01-01.
+    *
+    * @return epoch days
+    */
+   public int[] getEpochDay()
+   {
+      return m_epochDay;
+   }
+
+   /**
+    * Retrieve the planned work column, in minutes.
+    *
+    * @return planned work
+    */
+   public double[] getWork()
+   {
+      return m_values[WORK];
+   }
+
+   /**
+    * Retrieve the actual work column, in minutes.
+    *
+    * @return actual work
+    */
+   public double[] getActualWork()
+   {
+      return m_values[ACTUAL_WORK];
+   }
+
+   /**
+    * Retrieve the baseline work column, in minutes.
+    *
+    * @return baseline work
+    */
+   public double[] getBaselineWork()
+   {
+      return m_values[BASELINE_WORK];
+   }
+
+   /**
+    * Retrieve the planned cost column.
+    *
+    * @return planned cost
+    */
+   public double[] getCost()
+   {
+      return m_values[COST];
+   }
+
+   /**
+    * Retrieve the actual cost column.
+    *
+    * @return actual cost
+    */
+   public double[] getActualCost()
+   {
+      return m_values[ACTUAL_COST];
+   }
+
+   /**
+    * Retrieve the baseline cost column.
+    *
+    * @return baseline cost
+    */
+   public double[] getBaselineCost()
+   {
+      return m_values[BASELINE_COST];
+   }
+
+   /**
+    * Retrieve a value column by index.
+    *
+    * @param column column index
+    * @return value column
+    */
+   double[] getValues(int column)
+   {
+      return m_values[column];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String toString()
+   {
+      return "[TimephasedExport rows=" + m_rowCount + "]";
+   }
+
+   static final int WORK = 0;
+   static final int ACTUAL_WORK = 1;
+   static final int BASELINE_WORK = 2;
+   static final int COST = 3;
+   static final int ACTUAL_COST = 4;
+   static final int BASELINE_COST = 5;
+   static final int VALUE_COLUMN_COUNT = 6;
+
+   static final String[] VALUE_COLUMN_NAMES =
+   {
+      "Work",
+      "ActualWork",
+      "BaselineWork",
+      "Cost",
+      "ActualCost",
+      "BaselineCost"
+   };
+
+   private final int m_rowCount;
+   private final int[] m_uniqueID;
+   private final int[] m_epochDay;
+   private final double[][] m_values;
+}
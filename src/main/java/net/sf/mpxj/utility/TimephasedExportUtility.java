@@ -0,0 +1,786 @@
+/*
+ * file:       TimephasedExportUtility.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.ParallelHelper;
+
+/**
+ * Exports the timephased work, actual work, baseline work, cost,
+ * actual cost and baseline cost of a set of resource assignments as
+ * day-level columns of primitive values, suitable for bulk loading into
+ * analytics tools. Each timephased item contributes its amount per day to
+ * each working day it covers, which matches the daily values produced
+ * by TimephasedUtility.
+ *
+ * The timephased data for each assignment is first extracted into
+ * primitive arrays, then expanded into days. The expansion does not touch
+ * the calendars or the timephased data, so it can be run in parallel
+ * across assignments.
+ */
+public final class TimephasedExportUtility
+{
+   /**
+    * Set the number of threads used to expand the timephased data.
+    * Defaults to 1.
+    *
+    * @param threadCount thread count
+    */
+   public void setThreadCount(int threadCount)
+   {
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Retrieve the number of threads used to expand the timephased data.
+    *
+    * @return thread count
+    */
+   public int getThreadCount()
+   {
+      return m_threadCount;
+   }
+
+   /**
+    * Set the index of the baseline to export. Defaults to 0.
+    *
+    * @param baselineIndex baseline index
+    */
+   public void setBaselineIndex(int baselineIndex)
+   {
+      m_baselineIndex = baselineIndex;
+   }
+
+   /**
+    * Retrieve the index of the baseline to export.
+    *
+    * @return baseline index
+    */
+   public int getBaselineIndex()
+   {
+      return m_baselineIndex;
+   }
+
+   /**
+    * Export timephased data for every resource assignment in a project.
+    *
+    * @param file project file
+    * @return timephased data
+    */
+   public TimephasedExport export(ProjectFile file)
+   {
+      return export(file.getResourceAssignments());
+   }
+
+   /**
+    * Export timephased data for a collection of resource assignments.
+    * The assignments may be drawn from any number of projects.
+    *
+    * @param assignments resource assignments
+    * @return timephased data, with rows in the same order as the assignments
+    */
+   public TimephasedExport export(Collection<ResourceAssignment> assignments)
+   {
+      Map<ProjectCalendar, long[]> ranges = new HashMap<ProjectCalendar, long[]>();
+      final List<AssignmentData> data = new ArrayList<AssignmentData>(assignments.size());
+      for (ResourceAssignment assignment : assignments)
+      {
+         data.add(new AssignmentData(assignment, m_baselineIndex, ranges));
+      }
+
+      final Map<ProjectCalendar, WorkingTimeProfile> profiles = WorkingTimeProfile.createProfiles(ranges);
+
+      if (m_threadCount < 2 || data.size() < 2)
+      {
+         Chunk chunk = new Chunk();
+         for (AssignmentData item : data)
+         {
+            item.expand(profiles, chunk);
+         }
+         return chunk.toExport();
+      }
+
+      int threadCount = Math.min(m_threadCount, data.size());
+
+      //
+      // Use more partitions than threads so that a few long
+      // assignments don't leave the other threads idle.
+      //
+      int partitionCount = threadCount * 4;
+      int partitionSize = (data.size() + partitionCount - 1) / partitionCount;
+      List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>(partitionCount);
+      for (int start = 0; start < data.size(); start += partitionSize)
+      {
+         final List<AssignmentData> partition = data.subList(start, Math.min(start + partitionSize, data.size()));
+         tasks.add(new Callable<Chunk>()
+         {
+            @Override public Chunk call()
+            {
+               Chunk chunk = new Chunk();
+               for (AssignmentData item : partition)
+               {
+                  item.expand(profiles, chunk);
+               }
+               return chunk;
+            }
+         });
+      }
+
+      return Chunk.toExport(ParallelHelper.invokeAll(threadCount, tasks));
+   }
+
+   /**
+    * Write exported data as CSV, with a header row. The writer is not closed.
+    *
+    * @param export exported data
+    * @param writer target writer
+    */
+   public void writeCSV(TimephasedExport export, Writer writer) throws IOException
+   {
+      writer.write("UniqueID,EpochDay");
+      for (String name : TimephasedExport.VALUE_COLUMN_NAMES)
+      {
+         writer.write(',');
+         writer.write(name);
+      }
+      writer.write("\r\n");
+
+      int[] uniqueID = export.getUniqueID();
+      int[] epochDay = export.getEpochDay();
+      for (int row = 0; row < export.getRowCount(); row++)
+      {
+         writer.write(Integer.toString(uniqueID[row]));
+         writer.write(',');
+         writer.write(Integer.toString(epochDay[row]));
+         for (int column = 0; column < TimephasedExport.VALUE_COLUMN_COUNT; column++)
+         {
+            writer.write(',');
+            writer.write(formatValue(export.getValues(column)[row]));
+         }
+         writer.write("\r\n");
+      }
+      writer.flush();
+   }
+
+   /**
+    * Write exported data in a simple columnar binary format. The stream
+    * is not closed. All values are little endian, and each column is
+    * written as a single contiguous buffer, padded to a multiple of
+    * 8 bytes. This matches the layout Apache Arrow uses for
+    * fixed width columns without nulls, so loaders can wrap each
+    * column buffer directly. The layout is:
+    *
+    * <pre>
+    * 8 bytes   magic "MPXJCOL1"
+    * int32     column count
+    * int32     reserved, zero
+    * int64     row count
+    * per column:
+    *    int32  type: 1 = int32, 2 = float64
+    *    int32  name length in bytes
+    *    bytes  UTF-8 name, padded to a multiple of 8 bytes
+    * per column:
+    *    bytes  values, padded to a multiple of 8 bytes
+    * </pre>
+    *
+    * @param export exported data
+    * @param stream target output stream
+    */
+   public void writeBinary(TimephasedExport export, OutputStream stream) throws IOException
+   {
+      BinaryWriter writer = new BinaryWriter(stream);
+      int rowCount = export.getRowCount();
+      int columnCount = TimephasedExport.VALUE_COLUMN_COUNT + 2;
+
+      writer.writeBytes(BINARY_MAGIC);
+      writer.writeInt(columnCount);
+      writer.writeInt(0);
+      writer.writeLong(rowCount);
+
+      writer.writeColumnHeader(BINARY_TYPE_INT32, "UniqueID");
+      writer.writeColumnHeader(BINARY_TYPE_INT32, "EpochDay");
+      for (String name : TimephasedExport.VALUE_COLUMN_NAMES)
+      {
+         writer.writeColumnHeader(BINARY_TYPE_FLOAT64, name);
+      }
+
+      writer.writeColumn(export.getUniqueID(), rowCount);
+      writer.writeColumn(export.getEpochDay(), rowCount);
+      for (int column = 0; column < TimephasedExport.VALUE_COLUMN_COUNT; column++)
+      {
+         writer.writeColumn(export.getValues(column), rowCount);
+      }
+      writer.flush();
+   }
+
+   /**
+    * Format a value for CSV output, avoiding a trailing decimal
+    * point and exponent notation for whole numbers.
+    *
+    * @param value value to format
+    * @return formatted value
+    */
+   private String formatValue(double value)
+   {
+      long longValue = (long) value;
+      return longValue == value ? Long.toString(longValue) : Double.toString(value);
+   }
+
+   /**
+    * One timephased series for an assignment, held in primitive arrays.
+    */
+   private static final class Series
+   {
+      /**
+       * Constructor.
+       *
+       * @param column target value column
+       * @param calendar calendar used to identify working days, may be null
+       * @param count number of items
+       */
+      public Series(int column, ProjectCalendar calendar, int count)
+      {
+         m_column = column;
+         m_calendar = calendar;
+         m_start = new long[count];
+         m_finish = new long[count];
+         m_amountPerDay = new double[count];
+      }
+
+      /**
+       * Add an item to the series.
+       *
+       * @param start start timestamp
+       * @param finish finish timestamp
+       * @param amountPerDay amount per working day
+       */
+      public void add(long start, long finish, double amountPerDay)
+      {
+         m_start[m_count] = start;
+         m_finish[m_count] = finish;
+         m_amountPerDay[m_count] = amountPerDay;
+         ++m_count;
+      }
+
+      final int m_column;
+      final ProjectCalendar m_calendar;
+      final long[] m_start;
+      final long[] m_finish;
+      final double[] m_amountPerDay;
+      int m_count;
+   }
+
+   /**
+    * Timephased data for a single assignment, held in primitive arrays.
+    */
+   private static final class AssignmentData
+   {
+      /**
+       * Constructor. Extracts the timephased data from the assignment and
+       * notes the date ranges over which each calendar will be used.
+       *
+       * @param assignment resource assignment
+       * @param baselineIndex baseline index
+       * @param ranges map of calendars to the range of timestamps each profile must cover
+       */
+      public AssignmentData(ResourceAssignment assignment, int baselineIndex, Map<ProjectCalendar, long[]> ranges)
+      {
+         ProjectFile file = assignment.getParentFile();
+         ProjectProperties properties = file.getProjectProperties();
+         Resource resource = assignment.getResource();
+
+         ProjectCalendar calendar = assignment.getTask() == null ? (resource == null ? null : resource.getResourceCalendar()) : assignment.getCalendar();
+         if (calendar == null)
+         {
+            calendar = file.getDefaultCalendar();
+         }
+         ProjectCalendar baselineCalendar = file.getBaselineCalendar();
+
+         m_uniqueID = NumberHelper.getInt(assignment.getUniqueID());
+         m_series = new ArrayList<Series>(TimephasedExport.VALUE_COLUMN_COUNT);
+         addWork(TimephasedExport.WORK, calendar, assignment.getTimephasedWork(), properties, ranges);
+         addWork(TimephasedExport.ACTUAL_WORK, calendar, assignment.getTimephasedActualWork(), properties, ranges);
+         addWork(TimephasedExport.BASELINE_WORK, baselineCalendar, assignment.getTimephasedBaselineWork(baselineIndex), properties, ranges);
+         addCost(TimephasedExport.COST, calendar, assignment.getTimephasedCost(), ranges);
+         addCost(TimephasedExport.ACTUAL_COST, calendar, assignment.getTimephasedActualCost(), ranges);
+         addCost(TimephasedExport.BASELINE_COST, baselineCalendar, assignment.getTimephasedBaselineCost(baselineIndex), ranges);
+      }
+
+      /**
+       * Expand this assignment's timephased data into days, and add the
+       * days with non-zero values to the chunk.
+       *
+       * @param profiles map of calendars to working day profiles
+       * @param chunk target chunk
+       */
+      public void expand(Map<ProjectCalendar, WorkingTimeProfile> profiles, Chunk chunk)
+      {
+         //
+         // Determine the range of days covered by this assignment
+         //
+         int firstDay = Integer.MAX_VALUE;
+         int lastDay = Integer.MIN_VALUE;
+         for (Series series : m_series)
+         {
+            WorkingTimeProfile profile = profiles.get(series.m_calendar);
+            for (int index = 0; index < series.m_count; index++)
+            {
+               firstDay = Math.min(firstDay, profile.getEpochDay(series.m_start[index]));
+               lastDay = Math.max(lastDay, profile.getEpochDay(series.m_finish[index]));
+            }
+         }
+
+         if (firstDay > lastDay)
+         {
+            return;
+         }
+
+         //
+         // Accumulate each item's amount per day into the working days
+         // it covers. As in TimephasedUtility, days are counted forward
+         // from the item start while they start before the item finish.
+         //
+         double[][] values = new double[TimephasedExport.VALUE_COLUMN_COUNT][lastDay - firstDay + 1];
+         for (Series series : m_series)
+         {
+            WorkingTimeProfile profile = profiles.get(series.m_calendar);
+            long[] dayStart = profile.m_dayStart;
+            boolean[] working = profile.m_working;
+            double[] target = values[series.m_column];
+            int offset = profile.m_firstEpochDay - firstDay;
+
+            for (int index = 0; index < series.m_count; index++)
+            {
+               long start = series.m_start[index];
+               long finish = series.m_finish[index];
+               double amountPerDay = series.m_amountPerDay[index];
+               int day = profile.getDayIndex(start);
+               long timeOfDay = start - dayStart[day];
+
+               while (day < working.length && dayStart[day] + timeOfDay < finish)
+               {
+                  if (working[day])
+                  {
+                     target[day + offset] += amountPerDay;
+                  }
+                  ++day;
+               }
+            }
+         }
+
+         for (int day = 0; day < values[0].length; day++)
+         {
+            for (int column = 0; column < TimephasedExport.VALUE_COLUMN_COUNT; column++)
+            {
+               if (values[column][day] != 0)
+               {
+                  chunk.add(m_uniqueID, firstDay + day, values, day);
+                  break;
+               }
+            }
+         }
+      }
+
+      /**
+       * Add a timephased work series.
+       *
+       * @param column target value column
+       * @param calendar calendar used to identify working days
+       * @param data timephased work
+       * @param properties project properties
+       * @param ranges map of calendars to the range of timestamps each profile must cover
+       */
+      private void addWork(int column, ProjectCalendar calendar, List<TimephasedWork> data, ProjectProperties properties, Map<ProjectCalendar, long[]> ranges)
+      {
+         if (data == null || data.isEmpty())
+         {
+            return;
+         }
+
+         Series series = new Series(column, calendar, data.size());
+         for (TimephasedWork work : data)
+         {
+            Duration amount = work.getAmountPerDay();
+            if (work.getStart() == null || work.getFinish() == null || amount == null || amount.getDuration() == 0)
+            {
+               continue;
+            }
+
+            double minutes = amount.getUnits() == TimeUnit.MINUTES ? amount.getDuration() : amount.convertUnits(TimeUnit.MINUTES, properties).getDuration();
+            addItem(series, work.getStart().getTime(), work.getFinish().getTime(), minutes, ranges);
+         }
+         addSeries(series);
+      }
+
+      /**
+       * Add a timephased cost series.
+       *
+       * @param column target value column
+       * @param calendar calendar used to identify working days
+       * @param data timephased cost
+       * @param ranges map of calendars to the range of timestamps each profile must cover
+       */
+      private void addCost(int column, ProjectCalendar calendar, List<TimephasedCost> data, Map<ProjectCalendar, long[]> ranges)
+      {
+         if (data == null || data.isEmpty())
+         {
+            return;
+         }
+
+         Series series = new Series(column, calendar, data.size());
+         for (TimephasedCost cost : data)
+         {
+            Number amount = cost.getAmountPerDay();
+            if (cost.getStart() == null || cost.getFinish() == null || amount == null || amount.doubleValue() == 0)
+            {
+               continue;
+            }
+
+            addItem(series, cost.getStart().getTime(), cost.getFinish().getTime(), amount.doubleValue(), ranges);
+         }
+         addSeries(series);
+      }
+
+      /**
+       * Add a series to this assignment. A series with no items is
+       * ignored, as no profile is created for its calendar.
+       *
+       * @param series series to add
+       */
+      private void addSeries(Series series)
+      {
+         if (series.m_count != 0)
+         {
+            m_series.add(series);
+         }
+      }
+
+      /**
+       * Add an item to a series, ignoring items which do not cover any time.
+       *
+       * @param series target series
+       * @param start start timestamp
+       * @param finish finish timestamp
+       * @param amountPerDay amount per working day
+       * @param ranges map of calendars to the range of timestamps each profile must cover
+       */
+      private void addItem(Series series, long start, long finish, double amountPerDay, Map<ProjectCalendar, long[]> ranges)
+      {
+         if (finish > start)
+         {
+            series.add(start, finish, amountPerDay);
+            WorkingTimeProfile.addRange(ranges, series.m_calendar, start, finish);
+         }
+      }
+
+      private final int m_uniqueID;
+      private final List<Series> m_series;
+   }
+
+   /**
+    * Growable columns used to collect the rows produced by a
+    * single thread.
+    */
+   private static final class Chunk
+   {
+      /**
+       * Add a row.
+       *
+       * @param uniqueID assignment unique ID
+       * @param epochDay epoch day
+       * @param values value columns
+       * @param index index of the row's values in the value columns
+       */
+      public void add(int uniqueID, int epochDay, double[][] values, int index)
+      {
+         if (m_count == m_uniqueID.length)
+         {
+            int capacity = m_count * 2;
+            m_uniqueID = Arrays.copyOf(m_uniqueID, capacity);
+            m_epochDay = Arrays.copyOf(m_epochDay, capacity);
+            for (int column = 0; column < TimephasedExport.VALUE_COLUMN_COUNT; column++)
+            {
+               m_values[column] = Arrays.copyOf(m_values[column], capacity);
+            }
+         }
+
+         m_uniqueID[m_count] = uniqueID;
+         m_epochDay[m_count] = epochDay;
+         for (int column = 0; column < TimephasedExport.VALUE_COLUMN_COUNT; column++)
+         {
+            m_values[column][m_count] = values[column][index];
+         }
+         ++m_count;
+      }
+
+      /**
+       * Create an export from this chunk.
+       *
+       * @return exported data
+       */
+      public TimephasedExport toExport()
+      {
+         return toExport(Arrays.asList(this));
+      }
+
+      /**
+       * Create an export by concatenating a list of chunks.
+       *
+       * @param chunks chunks
+       * @return exported data
+       */
+      public static TimephasedExport toExport(List<Chunk> chunks)
+      {
+         int rowCount = 0;
+         for (Chunk chunk : chunks)
+         {
+            rowCount += chunk.m_count;
+         }
+
+         int[] uniqueID = new int[rowCount];
+         int[] epochDay = new int[rowCount];
+         double[][] values = new double[TimephasedExport.VALUE_COLUMN_COUNT][rowCount];
+         int offset = 0;
+         for (Chunk chunk : chunks)
+         {
+            System.arraycopy(chunk.m_uniqueID, 0, uniqueID, offset, chunk.m_count);
+            System.arraycopy(chunk.m_epochDay, 0, epochDay, offset, chunk.m_count);
+            for (int column = 0; column < TimephasedExport.VALUE_COLUMN_COUNT; column++)
+            {
+               System.arraycopy(chunk.m_values[column], 0, values[column], offset, chunk.m_count);
+            }
+            offset += chunk.m_count;
+         }
+
+         return new TimephasedExport(rowCount, uniqueID, epochDay, values);
+      }
+
+      private int m_count;
+      private int[] m_uniqueID = new int[INITIAL_CAPACITY];
+      private int[] m_epochDay = new int[INITIAL_CAPACITY];
+      private final double[][] m_values = new double[TimephasedExport.VALUE_COLUMN_COUNT][INITIAL_CAPACITY];
+
+      private static final int INITIAL_CAPACITY = 1024;
+   }
+
+   /**
+    * Writes little endian values to an output stream via a buffer.
+    */
+   private static final class BinaryWriter
+   {
+      /**
+       * Constructor.
+       *
+       * @param stream target output stream
+       */
+      public BinaryWriter(OutputStream stream)
+      {
+         m_stream = stream;
+      }
+
+      /**
+       * Write an int value.
+       *
+       * @param value value
+       */
+      public void writeInt(int value) throws IOException
+      {
+         ensureSpace(4);
+         m_buffer.putInt(value);
+         m_position += 4;
+      }
+
+      /**
+       * Write a long value.
+       *
+       * @param value value
+       */
+      public void writeLong(long value) throws IOException
+      {
+         ensureSpace(8);
+         m_buffer.putLong(value);
+         m_position += 8;
+      }
+
+      /**
+       * Write a double value.
+       *
+       * @param value value
+       */
+      public void writeDouble(double value) throws IOException
+      {
+         ensureSpace(8);
+         m_buffer.putDouble(value);
+         m_position += 8;
+      }
+
+      /**
+       * Write an array of bytes.
+       *
+       * @param data bytes to write
+       */
+      public void writeBytes(byte[] data) throws IOException
+      {
+         drain();
+         m_stream.write(data);
+         m_position += data.length;
+      }
+
+      /**
+       * Write a column description.
+       *
+       * @param type column type
+       * @param name column name
+       */
+      public void writeColumnHeader(int type, String name) throws IOException
+      {
+         byte[] bytes = name.getBytes("UTF-8");
+         writeInt(type);
+         writeInt(bytes.length);
+         writeBytes(bytes);
+         pad();
+      }
+
+      /**
+       * Write an int column.
+       *
+       * @param values column values
+       * @param count number of values
+       */
+      public void writeColumn(int[] values, int count) throws IOException
+      {
+         for (int index = 0; index < count; index++)
+         {
+            writeInt(values[index]);
+         }
+         pad();
+      }
+
+      /**
+       * Write a double column.
+       *
+       * @param values column values
+       * @param count number of values
+       */
+      public void writeColumn(double[] values, int count) throws IOException
+      {
+         for (int index = 0; index < count; index++)
+         {
+            writeDouble(values[index]);
+         }
+         pad();
+      }
+
+      /**
+       * Write any buffered data to the stream, and flush the stream.
+       */
+      public void flush() throws IOException
+      {
+         drain();
+         m_stream.flush();
+      }
+
+      /**
+       * Pad the output to a multiple of 8 bytes.
+       */
+      private void pad() throws IOException
+      {
+         while (m_position % 8 != 0)
+         {
+            ensureSpace(1);
+            m_buffer.put((byte) 0);
+            ++m_position;
+         }
+      }
+
+      /**
+       * Ensure that the buffer has space for the requested number of bytes.
+       *
+       * @param size number of bytes
+       */
+      private void ensureSpace(int size) throws IOException
+      {
+         if (m_buffer.remaining() < size)
+         {
+            drain();
+         }
+      }
+
+      /**
+       * Write the contents of the buffer to the stream.
+       */
+      private void drain() throws IOException
+      {
+         if (m_buffer.position() != 0)
+         {
+            m_stream.write(m_buffer.array(), 0, m_buffer.position());
+            m_buffer.clear();
+         }
+      }
+
+      private final OutputStream m_stream;
+      private final ByteBuffer m_buffer = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+      private long m_position;
+   }
+
+   private int m_threadCount = 1;
+   private int m_baselineIndex;
+
+   private static final byte[] BINARY_MAGIC =
+   {
+      'M',
+      'P',
+      'X',
+      'J',
+      'C',
+      'O',
+      'L',
+      '1'
+   };
+
+   private static final int BINARY_TYPE_INT32 = 1;
+   private static final int BINARY_TYPE_FLOAT64 = 2;
+}
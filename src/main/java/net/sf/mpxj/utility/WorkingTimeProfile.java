@@ -0,0 +1,302 @@
+/*
+ * file:       WorkingTimeProfile.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarDateRanges;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.common.DateHelper;
+
+/**
+ * The working time defined by a calendar over a range of days, captured
+ * as the start timestamp of each day, a flag indicating if each day is
+ * a working day, a cumulative count of working minutes at the start of
+ * each day, and the working intervals within each day as minute offsets.
+ *
+ * The calendar and timephased data structures are not thread safe, so
+ * utilities in this package which work in parallel first note the range
+ * of dates over which each calendar is used, then create one profile per
+ * calendar on a single thread. Once created, profiles are immutable and
+ * may be shared between threads.
+ */
+final class WorkingTimeProfile
+{
+   /**
+    * Constructor.
+    *
+    * @param calendar calendar, if null every day is a working day with no working intervals
+    * @param start start timestamp
+    * @param finish finish timestamp
+    */
+   public WorkingTimeProfile(ProjectCalendar calendar, long start, long finish)
+   {
+      Calendar cal = DateHelper.popCalendar(start);
+      cal.set(Calendar.HOUR_OF_DAY, 0);
+      cal.set(Calendar.MINUTE, 0);
+      cal.set(Calendar.SECOND, 0);
+      cal.set(Calendar.MILLISECOND, 0);
+
+      long localTime = cal.getTimeInMillis() + cal.get(Calendar.ZONE_OFFSET) + cal.get(Calendar.DST_OFFSET);
+      long epochDay = localTime / DateHelper.MS_PER_DAY;
+      if (localTime % DateHelper.MS_PER_DAY < 0)
+      {
+         --epochDay;
+      }
+
+      int dayCount = (int) ((finish - cal.getTimeInMillis()) / DateHelper.MS_PER_DAY) + 2;
+      long[] dayStart = new long[dayCount + 1];
+      boolean[] working = new boolean[dayCount];
+      double[] cumulativeMinutes = new double[dayCount + 1];
+      int[] intervalIndex = new int[dayCount + 1];
+      int[] intervalStart = new int[dayCount * 2];
+      int[] intervalFinish = new int[dayCount * 2];
+      int intervalCount = 0;
+
+      Calendar timeCal = Calendar.getInstance();
+      for (int day = 0; day < dayCount; day++)
+      {
+         dayStart[day] = cal.getTimeInMillis();
+         intervalIndex[day] = intervalCount;
+         cumulativeMinutes[day + 1] = cumulativeMinutes[day];
+         working[day] = calendar == null || calendar.isWorkingDate(cal.getTime());
+
+         ProjectCalendarDateRanges ranges = calendar == null ? null : getRanges(calendar, cal);
+         if (ranges != null)
+         {
+            for (DateRange range : ranges)
+            {
+               if (range.getStart() == null || range.getEnd() == null)
+               {
+                  continue;
+               }
+
+               int rangeStart = getMinuteOfDay(timeCal, range.getStart());
+               int rangeFinish = getMinuteOfDay(timeCal, range.getEnd());
+               if (rangeFinish <= rangeStart)
+               {
+                  rangeFinish += 24 * 60;
+               }
+
+               if (intervalCount == intervalStart.length)
+               {
+                  intervalStart = Arrays.copyOf(intervalStart, intervalCount * 2);
+                  intervalFinish = Arrays.copyOf(intervalFinish, intervalCount * 2);
+               }
+
+               intervalStart[intervalCount] = rangeStart;
+               intervalFinish[intervalCount] = rangeFinish;
+               ++intervalCount;
+               cumulativeMinutes[day + 1] += rangeFinish - rangeStart;
+            }
+         }
+
+         cal.add(Calendar.DAY_OF_YEAR, 1);
+      }
+      dayStart[dayCount] = cal.getTimeInMillis();
+      intervalIndex[dayCount] = intervalCount;
+      DateHelper.pushCalendar(cal);
+
+      m_firstEpochDay = (int) epochDay;
+      m_dayStart = dayStart;
+      m_working = working;
+      m_cumulativeMinutes = cumulativeMinutes;
+      m_intervalIndex = intervalIndex;
+      m_intervalStart = intervalStart;
+      m_intervalFinish = intervalFinish;
+   }
+
+   /**
+    * Note that a calendar will be used between two timestamps.
+    *
+    * @param ranges map of calendars to the range of timestamps each profile must cover
+    * @param calendar calendar, may be null
+    * @param start start timestamp
+    * @param finish finish timestamp
+    */
+   public static void addRange(Map<ProjectCalendar, long[]> ranges, ProjectCalendar calendar, long start, long finish)
+   {
+      long[] range = ranges.get(calendar);
+      if (range == null)
+      {
+         ranges.put(calendar, new long[]
+         {
+            start,
+            finish
+         });
+      }
+      else
+      {
+         range[0] = Math.min(range[0], start);
+         range[1] = Math.max(range[1], finish);
+      }
+   }
+
+   /**
+    * Create a profile for each calendar.
+    *
+    * @param ranges map of calendars to the range of timestamps each profile must cover
+    * @return map of calendars to profiles
+    */
+   public static Map<ProjectCalendar, WorkingTimeProfile> createProfiles(Map<ProjectCalendar, long[]> ranges)
+   {
+      Map<ProjectCalendar, WorkingTimeProfile> profiles = new HashMap<ProjectCalendar, WorkingTimeProfile>();
+      for (Map.Entry<ProjectCalendar, long[]> entry : ranges.entrySet())
+      {
+         long[] range = entry.getValue();
+         profiles.put(entry.getKey(), new WorkingTimeProfile(entry.getKey(), range[0], range[1]));
+      }
+      return profiles;
+   }
+
+   /**
+    * Retrieve the index of the day containing a timestamp.
+    *
+    * @param timestamp timestamp
+    * @return day index
+    */
+   public int getDayIndex(long timestamp)
+   {
+      int index = Arrays.binarySearch(m_dayStart, 0, m_working.length, timestamp);
+      if (index < 0)
+      {
+         index = -index - 2;
+      }
+      return Math.max(index, 0);
+   }
+
+   /**
+    * Retrieve the epoch day of the day containing a timestamp.
+    *
+    * @param timestamp timestamp
+    * @return epoch day
+    */
+   public int getEpochDay(long timestamp)
+   {
+      return m_firstEpochDay + getDayIndex(timestamp);
+   }
+
+   /**
+    * Retrieve the working time between two timestamps.
+    *
+    * @param start start timestamp
+    * @param finish finish timestamp
+    * @return working time in minutes
+    */
+   public double getWorkingMinutes(long start, long finish)
+   {
+      return getCumulativeMinutes(finish) - getCumulativeMinutes(start);
+   }
+
+   /**
+    * Retrieve the working time between the start of the profile
+    * and the supplied timestamp.
+    *
+    * @param timestamp timestamp
+    * @return working time in minutes
+    */
+   private double getCumulativeMinutes(long timestamp)
+   {
+      int dayCount = m_dayStart.length - 1;
+      if (timestamp <= m_dayStart[0])
+      {
+         return 0;
+      }
+
+      if (timestamp >= m_dayStart[dayCount])
+      {
+         return m_cumulativeMinutes[dayCount];
+      }
+
+      int day = Arrays.binarySearch(m_dayStart, timestamp);
+      if (day < 0)
+      {
+         day = -day - 2;
+      }
+
+      double minute = (timestamp - m_dayStart[day]) / 60000.0;
+      double result = m_cumulativeMinutes[day];
+      for (int index = m_intervalIndex[day]; index < m_intervalIndex[day + 1]; index++)
+      {
+         if (minute > m_intervalStart[index])
+         {
+            result += Math.min(minute, m_intervalFinish[index]) - m_intervalStart[index];
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the working hours for a day, following the same rules
+    * as the calendar itself: exceptions first, then work weeks,
+    * then the calendar's own hours.
+    *
+    * @param calendar calendar
+    * @param cal Calendar instance set to the target day
+    * @return working hours for the day
+    */
+   private static ProjectCalendarDateRanges getRanges(ProjectCalendar calendar, Calendar cal)
+   {
+      Date date = cal.getTime();
+      ProjectCalendarDateRanges ranges = calendar.getException(date);
+      if (ranges == null)
+      {
+         ProjectCalendarWeek week = calendar.getWorkWeek(date);
+         if (week == null)
+         {
+            week = calendar;
+         }
+         ranges = week.getHours(Day.getInstance(cal.get(Calendar.DAY_OF_WEEK)));
+      }
+      return ranges;
+   }
+
+   /**
+    * Convert a time to minutes after midnight.
+    *
+    * @param cal Calendar instance used for the conversion
+    * @param time time
+    * @return minutes after midnight
+    */
+   private static int getMinuteOfDay(Calendar cal, Date time)
+   {
+      cal.setTime(time);
+      return cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE);
+   }
+
+   final int m_firstEpochDay;
+   final long[] m_dayStart;
+   final boolean[] m_working;
+   private final double[] m_cumulativeMinutes;
+   private final int[] m_intervalIndex;
+   private final int[] m_intervalStart;
+   private final int[] m_intervalFinish;
+}
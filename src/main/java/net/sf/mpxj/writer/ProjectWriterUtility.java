@@ -33,6 +33,7 @@ import net.sf.mpxj.mspdi.MSPDIWriter;
 import net.sf.mpxj.planner.PlannerWriter;
 import net.sf.mpxj.primavera.PrimaveraPMFileWriter;
 import net.sf.mpxj.sdef.SDEFWriter;
+import net.sf.mpxj.snapshot.SnapshotWriter;
 
 /**
  * This class contains utility methods for working with ProjectWriters.
@@ -95,5 +96,6 @@ public final class ProjectWriterUtility
       WRITER_MAP.put("PLANNER", PlannerWriter.class);
       WRITER_MAP.put("JSON", JsonWriter.class);
       WRITER_MAP.put("SDEF", SDEFWriter.class);
+      WRITER_MAP.put("SNAP", SnapshotWriter.class);
    }
 }
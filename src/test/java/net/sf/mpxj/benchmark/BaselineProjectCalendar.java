@@ -0,0 +1,792 @@
+/*
+ * file:       BaselineProjectCalendar.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarDateRanges;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.NumberHelper;
+
+/**
+ * The getWork, getDate and getStartDate implementations from ProjectCalendar
+ * as they were before the epoch minute methods were added. These work
+ * with Date and Calendar instances throughout, and cache work calculations
+ * in a weak map keyed on DateRange instances. They are retained here so
+ * that ProjectCalendarBenchmark can measure the original code path
+ * alongside the current one. Only the parts of the original implementation
+ * exercised by the benchmark are included: getWork only reports minutes,
+ * and getDate does not support returning the next work start.
+ */
+final class BaselineProjectCalendar
+{
+   /**
+    * Constructor.
+    *
+    * @param calendar calendar providing working hours and exceptions
+    */
+   public BaselineProjectCalendar(ProjectCalendar calendar)
+   {
+      m_calendar = calendar;
+   }
+
+   /**
+    * Given a start date and a duration, this method calculates the
+    * end date.
+    *
+    * @param startDate start date
+    * @param duration duration
+    * @return end date
+    */
+   public Date getDate(Date startDate, Duration duration)
+   {
+      ProjectProperties properties = m_calendar.getParentFile().getProjectProperties();
+      double remainingMinutes = NumberHelper.round(duration.convertUnits(TimeUnit.MINUTES, properties).getDuration(), 2);
+
+      //
+      // Can we skip come computation by working forward from the
+      // last call to this method?
+      //
+      Date getDateLastStartDate = m_getDateLastStartDate;
+      double getDateLastRemainingMinutes = m_getDateLastRemainingMinutes;
+
+      m_getDateLastStartDate = startDate;
+      m_getDateLastRemainingMinutes = remainingMinutes;
+
+      if (m_getDateLastResult != null && DateHelper.compare(startDate, getDateLastStartDate) == 0 && remainingMinutes >= getDateLastRemainingMinutes)
+      {
+         startDate = m_getDateLastResult;
+         remainingMinutes = remainingMinutes - getDateLastRemainingMinutes;
+      }
+
+      Calendar cal = Calendar.getInstance();
+      cal.setTime(startDate);
+      Calendar endCal = Calendar.getInstance();
+
+      while (remainingMinutes > 0)
+      {
+         //
+         // Get the current date and time and determine how many
+         // working hours remain
+         //
+         Date currentDate = cal.getTime();
+         endCal.setTime(currentDate);
+         endCal.add(Calendar.DAY_OF_YEAR, 1);
+         Date currentDateEnd = DateHelper.getDayStartDate(endCal.getTime());
+         double currentDateWorkingMinutes = getWork(currentDate, currentDateEnd).getDuration();
+
+         //
+         // We have more than enough hours left
+         //
+         if (remainingMinutes > currentDateWorkingMinutes)
+         {
+            //
+            // Deduct this day's hours from our total
+            //
+            remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
+
+            //
+            // Move the calendar forward to the next working day
+            //
+            Day day;
+            int nonWorkingDayCount = 0;
+            do
+            {
+               cal.add(Calendar.DAY_OF_YEAR, 1);
+               day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+               ++nonWorkingDayCount;
+               if (nonWorkingDayCount > MAX_NONWORKING_DAYS)
+               {
+                  cal.setTime(startDate);
+                  cal.add(Calendar.DAY_OF_YEAR, 1);
+                  remainingMinutes = 0;
+                  break;
+               }
+            }
+            while (!isWorkingDate(cal.getTime(), day));
+
+            //
+            // Retrieve the start time for this day
+            //
+            Date startTime = m_calendar.getStartTime(cal.getTime());
+            DateHelper.setTime(cal, startTime);
+         }
+         else
+         {
+            //
+            // We have less hours to allocate than there are working hours
+            // in this day. We need to calculate the time of day at which
+            // our work ends.
+            //
+            ProjectCalendarDateRanges ranges = getRanges(cal.getTime(), cal, null);
+
+            //
+            // Now we have the range of working hours for this day,
+            // step through it to work out the end point
+            //
+            Date endTime = null;
+            Date currentDateStartTime = DateHelper.getCanonicalTime(currentDate);
+            boolean firstRange = true;
+            for (DateRange range : ranges)
+            {
+               //
+               // Skip this range if its end is before our start time
+               //
+               Date rangeStart = range.getStart();
+               Date rangeEnd = range.getEnd();
+
+               if (rangeStart == null || rangeEnd == null)
+               {
+                  continue;
+               }
+
+               Date canonicalRangeEnd = DateHelper.getCanonicalTime(rangeEnd);
+               Date canonicalRangeStart = DateHelper.getCanonicalTime(rangeStart);
+
+               Date rangeStartDay = DateHelper.getDayStartDate(rangeStart);
+               Date rangeEndDay = DateHelper.getDayStartDate(rangeEnd);
+
+               if (rangeStartDay.getTime() != rangeEndDay.getTime())
+               {
+                  canonicalRangeEnd = DateHelper.addDays(canonicalRangeEnd, 1);
+               }
+
+               if (firstRange && canonicalRangeEnd.getTime() < currentDateStartTime.getTime())
+               {
+                  continue;
+               }
+
+               //
+               // Move the start of the range if our current start is
+               // past the range start
+               //
+               if (firstRange && canonicalRangeStart.getTime() < currentDateStartTime.getTime())
+               {
+                  canonicalRangeStart = currentDateStartTime;
+               }
+               firstRange = false;
+
+               double rangeMinutes;
+
+               rangeMinutes = canonicalRangeEnd.getTime() - canonicalRangeStart.getTime();
+               rangeMinutes /= (1000 * 60);
+
+               if (remainingMinutes > rangeMinutes)
+               {
+                  remainingMinutes = NumberHelper.round(remainingMinutes - rangeMinutes, 2);
+               }
+               else
+               {
+                  if (Duration.durationValueEquals(remainingMinutes, rangeMinutes))
+                  {
+                     endTime = canonicalRangeEnd;
+                     if (rangeStartDay.getTime() != rangeEndDay.getTime())
+                     {
+                        // The range ends the next day, so let's adjust our date accordingly.
+                        cal.add(Calendar.DAY_OF_YEAR, 1);
+                     }
+                  }
+                  else
+                  {
+                     endTime = new Date((long) (canonicalRangeStart.getTime() + (remainingMinutes * (60 * 1000))));
+                  }
+                  remainingMinutes = 0;
+                  break;
+               }
+            }
+
+            DateHelper.setTime(cal, endTime);
+         }
+      }
+
+      m_getDateLastResult = cal.getTime();
+
+      return cal.getTime();
+   }
+
+   /**
+    * Given a finish date and a duration, this method calculates backwards to the
+    * start date.
+    *
+    * @param finishDate finish date
+    * @param duration duration
+    * @return start date
+    */
+   public Date getStartDate(Date finishDate, Duration duration)
+   {
+      ProjectProperties properties = m_calendar.getParentFile().getProjectProperties();
+      double remainingMinutes = NumberHelper.round(duration.convertUnits(TimeUnit.MINUTES, properties).getDuration(), 2);
+      Calendar cal = Calendar.getInstance();
+      cal.setTime(finishDate);
+      Calendar startCal = Calendar.getInstance();
+
+      while (remainingMinutes > 0)
+      {
+         //
+         // Get the current date and time and determine how many
+         // working hours remain
+         //
+         Date currentDate = cal.getTime();
+         startCal.setTime(currentDate);
+         startCal.add(Calendar.DAY_OF_YEAR, -1);
+         Date currentDateEnd = DateHelper.getDayEndDate(startCal.getTime());
+         double currentDateWorkingMinutes = getWork(currentDateEnd, currentDate).getDuration();
+
+         //
+         // We have more than enough hours left
+         //
+         if (remainingMinutes > currentDateWorkingMinutes)
+         {
+            //
+            // Deduct this day's hours from our total
+            //
+            remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
+
+            //
+            // Move the calendar backward to the previous working day
+            //
+            int count = 0;
+            Day day;
+            do
+            {
+               if (count > 7)
+               {
+                  break; // Protect against a calendar with all days non-working
+               }
+               count++;
+               cal.add(Calendar.DAY_OF_YEAR, -1);
+               day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+            }
+            while (!isWorkingDate(cal.getTime(), day));
+
+            if (count > 7)
+            {
+               // We have a calendar with no working days.
+               return null;
+            }
+
+            //
+            // Retrieve the finish time for this day
+            //
+            Date finishTime = m_calendar.getFinishTime(cal.getTime());
+            DateHelper.setTime(cal, finishTime);
+         }
+         else
+         {
+            //
+            // We have less hours to allocate than there are working hours
+            // in this day. We need to calculate the time of day at which
+            // our work starts.
+            //
+            ProjectCalendarDateRanges ranges = getRanges(cal.getTime(), cal, null);
+
+            //
+            // Now we have the range of working hours for this day,
+            // step through it to work out the start point
+            //
+            Date startTime = null;
+            Date currentDateFinishTime = DateHelper.getCanonicalTime(currentDate);
+            boolean firstRange = true;
+            // Traverse from end to start
+            for (int i = ranges.getRangeCount() - 1; i >= 0; i--)
+            {
+               DateRange range = ranges.getRange(i);
+               //
+               // Skip this range if its start is after our end time
+               //
+               Date rangeStart = range.getStart();
+               Date rangeEnd = range.getEnd();
+
+               if (rangeStart == null || rangeEnd == null)
+               {
+                  continue;
+               }
+
+               Date canonicalRangeEnd = DateHelper.getCanonicalTime(rangeEnd);
+               Date canonicalRangeStart = DateHelper.getCanonicalTime(rangeStart);
+
+               Date rangeStartDay = DateHelper.getDayStartDate(rangeStart);
+               Date rangeEndDay = DateHelper.getDayStartDate(rangeEnd);
+
+               if (rangeStartDay.getTime() != rangeEndDay.getTime())
+               {
+                  canonicalRangeEnd = DateHelper.addDays(canonicalRangeEnd, 1);
+               }
+
+               if (firstRange && canonicalRangeStart.getTime() > currentDateFinishTime.getTime())
+               {
+                  continue;
+               }
+
+               //
+               // Move the end of the range if our current end is
+               // before the range end
+               //
+               if (firstRange && canonicalRangeEnd.getTime() > currentDateFinishTime.getTime())
+               {
+                  canonicalRangeEnd = currentDateFinishTime;
+               }
+               firstRange = false;
+
+               double rangeMinutes;
+
+               rangeMinutes = canonicalRangeEnd.getTime() - canonicalRangeStart.getTime();
+               rangeMinutes /= (1000 * 60);
+
+               if (remainingMinutes > rangeMinutes)
+               {
+                  remainingMinutes = NumberHelper.round(remainingMinutes - rangeMinutes, 2);
+               }
+               else
+               {
+                  if (Duration.durationValueEquals(remainingMinutes, rangeMinutes))
+                  {
+                     startTime = canonicalRangeStart;
+                  }
+                  else
+                  {
+                     startTime = new Date((long) (canonicalRangeEnd.getTime() - (remainingMinutes * (60 * 1000))));
+                  }
+                  remainingMinutes = 0;
+                  break;
+               }
+            }
+
+            DateHelper.setTime(cal, startTime);
+         }
+      }
+
+      return cal.getTime();
+   }
+
+   /**
+    * This method retrieves a Duration instance representing the amount of
+    * work between two dates, in minutes.
+    *
+    * @param startDate start date
+    * @param endDate end date
+    * @return amount of work
+    */
+   public Duration getWork(Date startDate, Date endDate)
+   {
+      DateRange range = new DateRange(startDate, endDate);
+      Long cachedResult = m_workingDateCache.get(range);
+      long totalTime = 0;
+
+      if (cachedResult == null)
+      {
+         //
+         // We want the start date to be the earliest date, and the end date
+         // to be the latest date. Set a flag here to indicate if we have swapped
+         // the order of the supplied date.
+         //
+         boolean invert = false;
+         if (startDate.getTime() > endDate.getTime())
+         {
+            invert = true;
+            Date temp = startDate;
+            startDate = endDate;
+            endDate = temp;
+         }
+
+         Date canonicalStartDate = DateHelper.getDayStartDate(startDate);
+         Date canonicalEndDate = DateHelper.getDayStartDate(endDate);
+
+         if (canonicalStartDate.getTime() == canonicalEndDate.getTime())
+         {
+            ProjectCalendarDateRanges ranges = getRanges(startDate, null, null);
+            if (ranges.getRangeCount() != 0)
+            {
+               totalTime = getTotalTime(ranges, startDate, endDate);
+            }
+         }
+         else
+         {
+            //
+            // Find the first working day in the range
+            //
+            Date currentDate = startDate;
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(startDate);
+            Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+            while (isWorkingDate(currentDate, day) == false && currentDate.getTime() < canonicalEndDate.getTime())
+            {
+               cal.add(Calendar.DAY_OF_YEAR, 1);
+               currentDate = cal.getTime();
+               day = day.getNextDay();
+            }
+
+            if (currentDate.getTime() < canonicalEndDate.getTime())
+            {
+               //
+               // Calculate the amount of working time for this day
+               //
+               totalTime += getTotalTime(getRanges(currentDate, null, day), currentDate, true);
+
+               //
+               // Process each working day until we reach the last day
+               //
+               while (true)
+               {
+                  cal.add(Calendar.DAY_OF_YEAR, 1);
+                  currentDate = cal.getTime();
+                  day = day.getNextDay();
+
+                  //
+                  // We have reached the last day
+                  //
+                  if (currentDate.getTime() >= canonicalEndDate.getTime())
+                  {
+                     break;
+                  }
+
+                  //
+                  // Skip this day if it has no working time
+                  //
+                  ProjectCalendarDateRanges ranges = getRanges(currentDate, null, day);
+                  if (ranges.getRangeCount() == 0)
+                  {
+                     continue;
+                  }
+
+                  //
+                  // Add the working time for the whole day
+                  //
+                  totalTime += getTotalTime(ranges);
+               }
+            }
+
+            //
+            // We are now at the last day
+            //
+            ProjectCalendarDateRanges ranges = getRanges(endDate, null, day);
+            if (ranges.getRangeCount() != 0)
+            {
+               totalTime += getTotalTime(ranges, DateHelper.getDayStartDate(endDate), endDate);
+            }
+         }
+
+         if (invert)
+         {
+            totalTime = -totalTime;
+         }
+
+         m_workingDateCache.put(range, Long.valueOf(totalTime));
+      }
+      else
+      {
+         totalTime = cachedResult.longValue();
+      }
+
+      return Duration.getInstance(totalTime / (double) (60 * 1000), TimeUnit.MINUTES);
+   }
+
+   /**
+    * Determine if a given date is a working day.
+    *
+    * @param date Date to be tested
+    * @param day Day of the week for the date under test
+    * @return boolean flag
+    */
+   private boolean isWorkingDate(Date date, Day day)
+   {
+      ProjectCalendarDateRanges ranges = getRanges(date, null, day);
+      return ranges.getRangeCount() != 0;
+   }
+
+   /**
+    * Retrieves the amount of time represented by a calendar exception
+    * before or after an intersection point.
+    *
+    * @param exception calendar exception
+    * @param date intersection time
+    * @param after true to report time after intersection, false to report time before
+    * @return length of time in milliseconds
+    */
+   private long getTotalTime(ProjectCalendarDateRanges exception, Date date, boolean after)
+   {
+      long currentTime = DateHelper.getCanonicalTime(date).getTime();
+      long total = 0;
+      for (DateRange range : exception)
+      {
+         total += getTime(range.getStart(), range.getEnd(), currentTime, after);
+      }
+      return (total);
+   }
+
+   /**
+    * Retrieves the amount of working time represented by
+    * a calendar exception.
+    *
+    * @param exception calendar exception
+    * @return length of time in milliseconds
+    */
+   private long getTotalTime(ProjectCalendarDateRanges exception)
+   {
+      long total = 0;
+      for (DateRange range : exception)
+      {
+         total += getTime(range.getStart(), range.getEnd());
+      }
+      return (total);
+   }
+
+   /**
+    * This method calculates the total amount of working time in a single
+    * day, which intersects with the supplied time range.
+    *
+    * @param hours collection of working hours in a day
+    * @param startDate time range start
+    * @param endDate time range end
+    * @return length of time in milliseconds
+    */
+   private long getTotalTime(ProjectCalendarDateRanges hours, Date startDate, Date endDate)
+   {
+      long total = 0;
+      if (startDate.getTime() != endDate.getTime())
+      {
+         Date start = DateHelper.getCanonicalTime(startDate);
+         Date end = DateHelper.getCanonicalTime(endDate);
+
+         for (DateRange range : hours)
+         {
+            Date rangeStart = range.getStart();
+            Date rangeEnd = range.getEnd();
+            if (rangeStart != null && rangeEnd != null)
+            {
+               Date canoncialRangeStart = DateHelper.getCanonicalTime(rangeStart);
+               Date canonicalRangeEnd = DateHelper.getCanonicalTime(rangeEnd);
+
+               Date startDay = DateHelper.getDayStartDate(rangeStart);
+               Date finishDay = DateHelper.getDayStartDate(rangeEnd);
+
+               //
+               // Handle the case where the end of the range is at midnight -
+               // this will show up as the start and end days not matching
+               //
+               if (startDay.getTime() != finishDay.getTime())
+               {
+                  canonicalRangeEnd = DateHelper.addDays(canonicalRangeEnd, 1);
+               }
+
+               if (canoncialRangeStart.getTime() == canonicalRangeEnd.getTime() && rangeEnd.getTime() > rangeStart.getTime())
+               {
+                  total += (24 * 60 * 60 * 1000);
+               }
+               else
+               {
+                  total += getTime(start, end, canoncialRangeStart, canonicalRangeEnd);
+               }
+            }
+         }
+      }
+
+      return (total);
+   }
+
+   /**
+    * Calculates how much of a time range is before or after a
+    * target intersection point.
+    *
+    * @param start time range start
+    * @param end time range end
+    * @param target target intersection point
+    * @param after true if time after target required, false for time before
+    * @return length of time in milliseconds
+    */
+   private long getTime(Date start, Date end, long target, boolean after)
+   {
+      long total = 0;
+      if (start != null && end != null)
+      {
+         Date startTime = DateHelper.getCanonicalTime(start);
+         Date endTime = DateHelper.getCanonicalTime(end);
+
+         Date startDay = DateHelper.getDayStartDate(start);
+         Date finishDay = DateHelper.getDayStartDate(end);
+
+         //
+         // Handle the case where the end of the range is at midnight -
+         // this will show up as the start and end days not matching
+         //
+         if (startDay.getTime() != finishDay.getTime())
+         {
+            endTime = DateHelper.addDays(endTime, 1);
+         }
+
+         int diff = DateHelper.compare(startTime, endTime, target);
+         if (diff == 0)
+         {
+            if (after == true)
+            {
+               total = (endTime.getTime() - target);
+            }
+            else
+            {
+               total = (target - startTime.getTime());
+            }
+         }
+         else
+         {
+            if ((after == true && diff < 0) || (after == false && diff > 0))
+            {
+               total = (endTime.getTime() - startTime.getTime());
+            }
+         }
+      }
+      return (total);
+   }
+
+   /**
+    * Retrieves the amount of time between two date time values. Note that
+    * these values are converted into canonical values to remove the
+    * date component.
+    *
+    * @param start start time
+    * @param end end time
+    * @return length of time
+    */
+   private long getTime(Date start, Date end)
+   {
+      long total = 0;
+      if (start != null && end != null)
+      {
+         Date startTime = DateHelper.getCanonicalTime(start);
+         Date endTime = DateHelper.getCanonicalTime(end);
+
+         Date startDay = DateHelper.getDayStartDate(start);
+         Date finishDay = DateHelper.getDayStartDate(end);
+
+         //
+         // Handle the case where the end of the range is at midnight -
+         // this will show up as the start and end days not matching
+         //
+         if (startDay.getTime() != finishDay.getTime())
+         {
+            endTime = DateHelper.addDays(endTime, 1);
+         }
+
+         total = (endTime.getTime() - startTime.getTime());
+      }
+      return (total);
+   }
+
+   /**
+    * This method returns the length of overlapping time between two time
+    * ranges.
+    *
+    * @param start1 start of first range
+    * @param end1 end of first range
+    * @param start2 start start of second range
+    * @param end2 end of second range
+    * @return overlapping time in milliseconds
+    */
+   private long getTime(Date start1, Date end1, Date start2, Date end2)
+   {
+      long total = 0;
+
+      if (start1 != null && end1 != null && start2 != null && end2 != null)
+      {
+         long start;
+         long end;
+
+         if (start1.getTime() < start2.getTime())
+         {
+            start = start2.getTime();
+         }
+         else
+         {
+            start = start1.getTime();
+         }
+
+         if (end1.getTime() < end2.getTime())
+         {
+            end = end1.getTime();
+         }
+         else
+         {
+            end = end2.getTime();
+         }
+
+         if (start < end)
+         {
+            total = end - start;
+         }
+      }
+
+      return (total);
+   }
+
+   /**
+    * Retrieves the working hours on the given date.
+    *
+    * @param date required date
+    * @param cal optional calendar instance
+    * @param day optional day instance
+    * @return working hours
+    */
+   private ProjectCalendarDateRanges getRanges(Date date, Calendar cal, Day day)
+   {
+      ProjectCalendarDateRanges ranges = m_calendar.getException(date);
+      if (ranges == null)
+      {
+         ProjectCalendarWeek week = m_calendar.getWorkWeek(date);
+         if (week == null)
+         {
+            week = m_calendar;
+         }
+
+         if (day == null)
+         {
+            if (cal == null)
+            {
+               cal = Calendar.getInstance();
+               cal.setTime(date);
+            }
+            day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+         }
+
+         ranges = week.getHours(day);
+      }
+      return ranges;
+   }
+
+   private final ProjectCalendar m_calendar;
+   private final Map<DateRange, Long> m_workingDateCache = new WeakHashMap<DateRange, Long>();
+   private Date m_getDateLastStartDate;
+   private double m_getDateLastRemainingMinutes;
+   private Date m_getDateLastResult;
+
+   private static final int MAX_NONWORKING_DAYS = 1000;
+}
@@ -0,0 +1,77 @@
+/*
+ * file:       MppObfuscatedReadBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.mpp.MPPReader;
+
+/**
+ * Measures reading MPP files whose streams are obfuscated because the
+ * file is password protected. Run with the GC profiler to see the
+ * allocation per read, for example:
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; org.openjdk.jmh.Main MppObfuscatedReadBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MppObfuscatedReadBenchmark
+{
+   /**
+    * Read a file protected by a read password.
+    *
+    * @return project
+    */
+   @Benchmark public ProjectFile readPasswordProtected() throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      reader.setReadPassword("password");
+      return reader.read("junit/data/password-protected-mpp9.mpp");
+   }
+
+   /**
+    * Read a file protected by a write password only.
+    *
+    * @return project
+    */
+   @Benchmark public ProjectFile readWritePasswordProtected() throws Exception
+   {
+      return new MPPReader().read("junit/data/legacy/writepassword9.mpp");
+   }
+}
@@ -0,0 +1,180 @@
+/*
+ * file:       MpxjConvertServerBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.sample.MpxjConvert;
+import net.sf.mpxj.sample.MpxjConvertServer;
+
+/**
+ * Compares converting a file to JSON by launching MpxjConvert in a new
+ * JVM, as the Ruby gem does, with sending the same request to a running
+ * MpxjConvertServer. The file converted can be set using the
+ * mpxj.benchmark.file system property, for example:
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; org.openjdk.jmh.Main MpxjConvertServerBenchmark -jvmArgs -Dmpxj.benchmark.file=plan.mpp
+ * </pre>
+ *
+ * Run with -t to measure the throughput of concurrent requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MpxjConvertServerBenchmark
+{
+   /**
+    * Start the server and create the output file used by the
+    * per-process conversion.
+    */
+   @Setup public void setup() throws IOException
+   {
+      m_fileName = new File(System.getProperty("mpxj.benchmark.file", "junit/data/legacy/sample.mpx")).getCanonicalPath();
+      m_outputFile = File.createTempFile("benchmark", ".json");
+
+      m_server = new MpxjConvertServer(Runtime.getRuntime().availableProcessors());
+      m_serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+      Thread thread = new Thread()
+      {
+         @Override public void run()
+         {
+            try
+            {
+               m_server.listen(m_serverSocket);
+            }
+
+            catch (IOException ex)
+            {
+               throw new RuntimeException(ex);
+            }
+         }
+      };
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   /**
+    * Stop the server and remove the output file.
+    */
+   @TearDown public void tearDown() throws IOException
+   {
+      m_serverSocket.close();
+      m_server.shutdown();
+      m_outputFile.delete();
+   }
+
+   /**
+    * Convert the file by launching a new JVM.
+    *
+    * @return process exit code
+    */
+   @Benchmark public int perProcess() throws Exception
+   {
+      String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+      ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), MpxjConvert.class.getName(), m_fileName, m_outputFile.getPath());
+      builder.redirectErrorStream(true);
+      Process process = builder.start();
+      BufferedInputStream output = new BufferedInputStream(process.getInputStream());
+      while (output.read() != -1)
+      {
+         // Discard progress messages
+      }
+      return process.waitFor();
+   }
+
+   /**
+    * Convert the file by sending a request to the server.
+    *
+    * @return length of the JSON document
+    */
+   @Benchmark public int server() throws Exception
+   {
+      Socket socket = new Socket(m_serverSocket.getInetAddress(), m_serverSocket.getLocalPort());
+      try
+      {
+         byte[] path = m_fileName.getBytes("UTF-8");
+         DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+         output.writeInt(1);
+         output.writeByte(MpxjConvertServer.REQUEST_PATH);
+         output.writeInt(path.length);
+         output.write(path);
+         output.flush();
+
+         DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+         int length = 0;
+         while (true)
+         {
+            input.readInt();
+            byte type = input.readByte();
+            byte[] data = new byte[input.readInt()];
+            input.readFully(data);
+            length += data.length;
+
+            if (type == MpxjConvertServer.RESPONSE_END)
+            {
+               break;
+            }
+
+            if (type == MpxjConvertServer.RESPONSE_ERROR)
+            {
+               throw new IOException(new String(data, "UTF-8"));
+            }
+         }
+         return length;
+      }
+
+      finally
+      {
+         socket.close();
+      }
+   }
+
+   private String m_fileName;
+   private File m_outputFile;
+   private MpxjConvertServer m_server;
+   private ServerSocket m_serverSocket;
+}
@@ -0,0 +1,228 @@
+/*
+ * file:       ProjectCalendarBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.TimeUnit;
+
+/**
+ * Compares the Date based ProjectCalendar methods with their equivalents
+ * which work with minutes since the epoch, and with the original Date and
+ * Calendar based implementation retained in BaselineProjectCalendar.
+ * Run with the GC profiler to see the allocation per call, for example:
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; org.openjdk.jmh.Main ProjectCalendarBenchmark -prof gc
+ * </pre>
+ *
+ * The gc.alloc.rate.norm figure reports the number of bytes allocated
+ * per call. The methods working with minutes since the epoch should
+ * report close to zero, and the Date based wrappers only the Date and
+ * Duration instances they return. Note that the samples repeat, so
+ * getWorkBaseline is mostly served from the weak map cache in the
+ * original implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectCalendarBenchmark
+{
+   /**
+    * Create a calendar with a calendar exception, and a set of
+    * start and end times spread over several weeks.
+    */
+   @Setup public void setup()
+   {
+      ProjectFile file = new ProjectFile();
+      m_calendar = file.addDefaultBaseCalendar();
+
+      Calendar cal = Calendar.getInstance();
+      cal.clear();
+      cal.set(2019, Calendar.OCTOBER, 16, 0, 0, 0);
+      Date exceptionStart = cal.getTime();
+      cal.set(2019, Calendar.OCTOBER, 16, 10, 0, 0);
+      Date rangeStart = cal.getTime();
+      cal.set(2019, Calendar.OCTOBER, 16, 12, 30, 0);
+      Date rangeEnd = cal.getTime();
+      cal.set(2019, Calendar.OCTOBER, 16, 23, 59, 0);
+      Date exceptionEnd = cal.getTime();
+      ProjectCalendarException exception = m_calendar.addCalendarException(exceptionStart, exceptionEnd);
+      exception.addRange(new DateRange(rangeStart, rangeEnd));
+
+      cal.set(2019, Calendar.OCTOBER, 1, 8, 0, 0);
+      long startMinute = cal.getTimeInMillis() / 60000;
+      for (int index = 0; index < SAMPLES; index++)
+      {
+         m_startMinutes[index] = startMinute + index * 97;
+         m_endMinutes[index] = m_startMinutes[index] + 5 * 24 * 60 + index * 13;
+         m_startDates[index] = new Date(m_startMinutes[index] * 60000);
+         m_endDates[index] = new Date(m_endMinutes[index] * 60000);
+         m_durations[index] = Duration.getInstance(480 + index * 7, TimeUnit.MINUTES);
+      }
+
+      m_baseline = new BaselineProjectCalendar(m_calendar);
+   }
+
+   /**
+    * Working time between two dates, using the original implementation.
+    *
+    * @return working time
+    */
+   @Benchmark public Duration getWorkBaseline()
+   {
+      int index = next();
+      return m_baseline.getWork(m_startDates[index], m_endDates[index]);
+   }
+
+   /**
+    * Working time between two dates, using Date instances.
+    *
+    * @return working time
+    */
+   @Benchmark public Duration getWorkDate()
+   {
+      int index = next();
+      return m_calendar.getWork(m_startDates[index], m_endDates[index], TimeUnit.MINUTES);
+   }
+
+   /**
+    * Working time between two dates, using minutes since the epoch.
+    *
+    * @return working time
+    */
+   @Benchmark public long getWorkMinutes()
+   {
+      int index = next();
+      return m_calendar.getWork(m_startMinutes[index], m_endMinutes[index]);
+   }
+
+   /**
+    * Finish date calculation, using the original implementation.
+    *
+    * @return finish date
+    */
+   @Benchmark public Date getDateBaseline()
+   {
+      int index = next();
+      return m_baseline.getDate(m_startDates[index], m_durations[index]);
+   }
+
+   /**
+    * Finish date calculation, using Date instances.
+    *
+    * @return finish date
+    */
+   @Benchmark public Date getDateDate()
+   {
+      int index = next();
+      return m_calendar.getDate(m_startDates[index], m_durations[index], false);
+   }
+
+   /**
+    * Finish date calculation, using minutes since the epoch.
+    *
+    * @return finish date
+    */
+   @Benchmark public long getDateMinutes()
+   {
+      int index = next();
+      return m_calendar.getDate(m_startMinutes[index], 480 + index * 7, false);
+   }
+
+   /**
+    * Start date calculation, using the original implementation.
+    *
+    * @return start date
+    */
+   @Benchmark public Date getStartDateBaseline()
+   {
+      int index = next();
+      return m_baseline.getStartDate(m_endDates[index], m_durations[index]);
+   }
+
+   /**
+    * Start date calculation, using Date instances.
+    *
+    * @return start date
+    */
+   @Benchmark public Date getStartDateDate()
+   {
+      int index = next();
+      return m_calendar.getStartDate(m_endDates[index], m_durations[index]);
+   }
+
+   /**
+    * Start date calculation, using minutes since the epoch.
+    *
+    * @return start date
+    */
+   @Benchmark public long getStartDateMinutes()
+   {
+      int index = next();
+      return m_calendar.getStartDate(m_endMinutes[index], 480 + index * 7);
+   }
+
+   /**
+    * Select the next sample.
+    *
+    * @return sample index
+    */
+   private int next()
+   {
+      m_index = (m_index + 1) % SAMPLES;
+      return m_index;
+   }
+
+   private static final int SAMPLES = 256;
+
+   private ProjectCalendar m_calendar;
+   private BaselineProjectCalendar m_baseline;
+   private final long[] m_startMinutes = new long[SAMPLES];
+   private final long[] m_endMinutes = new long[SAMPLES];
+   private final Date[] m_startDates = new Date[SAMPLES];
+   private final Date[] m_endDates = new Date[SAMPLES];
+   private final Duration[] m_durations = new Duration[SAMPLES];
+   private int m_index;
+}
@@ -0,0 +1,147 @@
+/*
+ * file:       XmlStartupBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import javax.xml.bind.Unmarshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.JaxbContextRegistry;
+import net.sf.mpxj.mspdi.MSPDIReader;
+import net.sf.mpxj.planner.PlannerReader;
+import net.sf.mpxj.primavera.PrimaveraPMFileReader;
+
+/**
+ * Measures the latency of the first read of each XML format in a new JVM,
+ * which is dominated by the construction of the JAXB context. Each fork
+ * performs a single read. There are no sample ConceptDraw, GanttDesigner,
+ * GanttProject or Phoenix files in the test data, so for these formats
+ * we measure the construction of the context and an unmarshaller. Setting the mpxj.benchmark.warmup system
+ * property calls JaxbContextRegistry.warmUp before the read, showing the
+ * latency remaining once the contexts have been constructed ahead of time:
+ *
+ * <pre>
+ * java -cp &lt;test classpath&gt; org.openjdk.jmh.Main XmlStartupBenchmark
+ * java -cp &lt;test classpath&gt; org.openjdk.jmh.Main XmlStartupBenchmark -jvmArgs -Dmpxj.benchmark.warmup=true
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class XmlStartupBenchmark
+{
+   /**
+    * Optionally construct the contexts before the read.
+    */
+   @Setup public void setup()
+   {
+      if (Boolean.getBoolean("mpxj.benchmark.warmup"))
+      {
+         JaxbContextRegistry.warmUp();
+      }
+   }
+
+   /**
+    * First read of an MSPDI file.
+    *
+    * @return project
+    */
+   @Benchmark public ProjectFile readMspdi() throws Exception
+   {
+      return new MSPDIReader().read("junit/data/generated/assignment-text/assignment-text-project2016-mspdi.xml");
+   }
+
+   /**
+    * First read of a PMXML file.
+    *
+    * @return project
+    */
+   @Benchmark public ProjectFile readPmxml() throws Exception
+   {
+      return new PrimaveraPMFileReader().read("junit/data/generated/task-percentcomplete/percent-complete-8.4.pmxml");
+   }
+
+   /**
+    * First use of the ConceptDraw context.
+    *
+    * @return unmarshaller
+    */
+   @Benchmark public Unmarshaller createConceptDrawUnmarshaller() throws Exception
+   {
+      return JaxbContextRegistry.getContext(JaxbContextRegistry.CONCEPTDRAW).createUnmarshaller();
+   }
+
+   /**
+    * First use of the GanttDesigner context.
+    *
+    * @return unmarshaller
+    */
+   @Benchmark public Unmarshaller createGanttDesignerUnmarshaller() throws Exception
+   {
+      return JaxbContextRegistry.getContext(JaxbContextRegistry.GANTTDESIGNER).createUnmarshaller();
+   }
+
+   /**
+    * First use of the GanttProject context.
+    *
+    * @return unmarshaller
+    */
+   @Benchmark public Unmarshaller createGanttProjectUnmarshaller() throws Exception
+   {
+      return JaxbContextRegistry.getContext(JaxbContextRegistry.GANTTPROJECT).createUnmarshaller();
+   }
+
+   /**
+    * First use of the Phoenix context.
+    *
+    * @return unmarshaller
+    */
+   @Benchmark public Unmarshaller createPhoenixUnmarshaller() throws Exception
+   {
+      return JaxbContextRegistry.getContext(JaxbContextRegistry.PHOENIX).createUnmarshaller();
+   }
+
+   /**
+    * First read of a Planner file.
+    *
+    * @return project
+    */
+   @Benchmark public ProjectFile readPlanner() throws Exception
+   {
+      return new PlannerReader().read("junit/data/planner-sample.planner");
+   }
+}
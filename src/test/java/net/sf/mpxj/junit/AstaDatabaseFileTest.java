@@ -0,0 +1,269 @@
+/*
+ * file:       AstaDatabaseFileTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation; either version 2.1 of the License, or (at
+ * your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Day;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.asta.AstaDatabaseFileReader;
+import net.sf.mpxj.common.FileHelper;
+
+/**
+ * Tests to exercise reading Asta SQLite databases.
+ */
+public class AstaDatabaseFileTest
+{
+   /**
+    * Read a database containing two projects. Only the rows
+    * belonging to the first project should be read.
+    */
+   @Test public void testRead() throws Exception
+   {
+      File file = createDatabase();
+
+      try
+      {
+         for (int threadCount = 1; threadCount <= 4; threadCount *= 4)
+         {
+            AstaDatabaseFileReader reader = new AstaDatabaseFileReader();
+            reader.setThreadCount(threadCount);
+            testProject(reader.read(file));
+         }
+      }
+
+      finally
+      {
+         FileHelper.deleteQuietly(file);
+      }
+   }
+
+   /**
+    * Validate the project read from the database.
+    *
+    * @param project project to validate
+    */
+   private void testProject(ProjectFile project)
+   {
+      SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+      ProjectProperties props = project.getProjectProperties();
+      assertEquals("Project One", props.getName());
+      assertEquals("Author", props.getAuthor());
+      assertEquals(Duration.getInstance(80, TimeUnit.HOURS), props.getDuration());
+      assertEquals("2019-01-07 08:00", df.format(props.getStartDate()));
+      assertEquals("2019-01-18 17:00", df.format(props.getFinishDate()));
+
+      ProjectCalendar calendar = project.getDefaultCalendar();
+      assertEquals(Integer.valueOf(1), calendar.getUniqueID());
+      assertEquals("Standard", calendar.getName());
+      assertTrue(calendar.isWorkingDay(Day.MONDAY));
+      assertTrue(calendar.isWorkingDay(Day.FRIDAY));
+      assertFalse(calendar.isWorkingDay(Day.SATURDAY));
+      assertFalse(calendar.isWorkingDay(Day.SUNDAY));
+      assertEquals(2, calendar.getHours(Day.MONDAY).getRangeCount());
+      assertNull(project.getCalendarByName("Other"));
+
+      assertEquals(2, project.getResources().size());
+      Resource resource = project.getResourceByUniqueID(Integer.valueOf(1));
+      assertEquals("Resource One", resource.getName());
+      assertEquals("RO", resource.getInitials());
+      assertEquals("one@example.com", resource.getEmailAddress());
+      assertEquals(ResourceType.WORK, resource.getType());
+      assertEquals(50.0, resource.getMaxUnits().doubleValue(), 0.0);
+      assertSame(calendar, resource.getResourceCalendar().getParent());
+
+      Resource material = project.getResourceByUniqueID(Integer.valueOf(2));
+      assertEquals(ResourceType.MATERIAL, material.getType());
+      assertEquals("t", material.getMaterialLabel());
+
+      //
+      // Bar One contains Sub Bar and two tasks, Bar Two contains a single
+      // milestone so is replaced by it, Displaced Items is ignored.
+      //
+      assertEquals(7, project.getTasks().size());
+      List<Task> topLevel = project.getChildTasks();
+      assertEquals(2, topLevel.size());
+
+      Task barOne = topLevel.get(0);
+      assertEquals("Bar One", barOne.getName());
+      assertEquals(Integer.valueOf(1), barOne.getUniqueID());
+      assertEquals(3, barOne.getChildTasks().size());
+
+      Task subBar = barOne.getChildTasks().get(0);
+      assertEquals("Sub Bar", subBar.getName());
+      assertEquals(2, subBar.getChildTasks().size());
+      assertEquals("Task Three", subBar.getChildTasks().get(0).getName());
+      assertEquals("Task Four", subBar.getChildTasks().get(1).getName());
+
+      Task task1 = project.getTaskByUniqueID(Integer.valueOf(100));
+      assertEquals("Task One", task1.getName());
+      assertSame(barOne, task1.getParentTask());
+      assertEquals(Duration.getInstance(16, TimeUnit.HOURS), task1.getDuration());
+      assertEquals("2019-01-07 08:00", df.format(task1.getStart()));
+      assertEquals("2019-01-08 17:00", df.format(task1.getFinish()));
+      assertEquals("T1", task1.getText(1));
+      assertNull(task1.getCalendar());
+
+      Task milestone = topLevel.get(1);
+      assertEquals(Integer.valueOf(102), milestone.getUniqueID());
+      assertEquals("Bar Two", milestone.getName());
+      assertTrue(milestone.getMilestone());
+      assertEquals(100.0, milestone.getPercentageComplete().doubleValue(), 0.0);
+
+      assertNull(project.getTaskByUniqueID(Integer.valueOf(105)));
+      assertNull(project.getTaskByUniqueID(Integer.valueOf(106)));
+
+      Task task2 = project.getTaskByUniqueID(Integer.valueOf(101));
+      List<Relation> predecessors = task2.getPredecessors();
+      assertEquals(1, predecessors.size());
+      assertSame(task1, predecessors.get(0).getTargetTask());
+      assertEquals(RelationType.FINISH_START, predecessors.get(0).getType());
+      assertEquals(Duration.getInstance(8, TimeUnit.HOURS), predecessors.get(0).getLag());
+
+      // The completed section of Task Three is mapped back to the task
+      predecessors = project.getTaskByUniqueID(Integer.valueOf(104)).getPredecessors();
+      assertEquals(1, predecessors.size());
+      assertEquals(Integer.valueOf(103), predecessors.get(0).getTargetTask().getUniqueID());
+      assertEquals(RelationType.START_START, predecessors.get(0).getType());
+
+      List<ResourceAssignment> assignments = task1.getResourceAssignments();
+      assertEquals(1, assignments.size());
+      ResourceAssignment assignment = assignments.get(0);
+      assertSame(resource, assignment.getResource());
+      assertEquals(Integer.valueOf(300), assignment.getUniqueID());
+      assertEquals(100.0, assignment.getUnits().doubleValue(), 0.0);
+      assertEquals(Duration.getInstance(16, TimeUnit.HOURS), assignment.getWork());
+      assertEquals(Duration.getInstance(4, TimeUnit.HOURS), assignment.getActualWork());
+      assertEquals(Duration.getInstance(12, TimeUnit.HOURS), assignment.getRemainingWork());
+      assertTrue(project.getTaskByUniqueID(Integer.valueOf(103)).getResourceAssignments().isEmpty());
+   }
+
+   /**
+    * Create a temporary database containing two projects.
+    *
+    * @return database file
+    */
+   private File createDatabase() throws Exception
+   {
+      File file = File.createTempFile("junit", ".sqlite");
+      Connection connection = org.sqlite.JDBC.createConnection("jdbc:sqlite:" + file.getAbsolutePath(), new Properties());
+
+      try
+      {
+         Statement statement = connection.createStatement();
+         execute(statement, "create table project_summary (projid integer, duration varchar, project_start datetime, project_end datetime, short_name varchar, project_by varchar, last_edited_date datetime)", "insert into project_summary values (0, '1,0,80', '2019-01-07 08:00:00', '2019-01-18 17:00:00', 'Project One', 'Author', '2019-01-04 12:00:00')", "insert into project_summary values (1, '1,0,40', '2019-02-04 08:00:00', '2019-02-08 17:00:00', 'Project Two', 'Author', null)");
+
+         //
+         // Sunday and Saturday are a single non-working shift,
+         // Monday to Friday have two working shifts each.
+         //
+         StringBuilder shifts = new StringBuilder("1,0,0,12,2,0,0");
+         for (int day = 0; day < 5; day++)
+         {
+            shifts.append(",1,80000,120000,1,130000,170000");
+         }
+         shifts.append(",2,0,0");
+
+         execute(statement, "create table exceptionn (id integer, name varchar, unique_bit_field integer)", "insert into exceptionn values (1, 'Working', 8)", "insert into exceptionn values (2, 'Non Working', 4)");
+         execute(statement, "create table work_pattern (id integer, name varchar, shifts varchar)", "insert into work_pattern values (1, 'Standard', '" + shifts + "')");
+         execute(statement, "create table calendar (id integer, projid integer, name varchar, dominant_work_pattern integer, work_patterns varchar, exceptions varchar)", "insert into calendar values (1, 0, 'Standard', 1, '', '')", "insert into calendar values (2, 1, 'Other', 1, '', '')");
+
+         execute(statement, "create table permanent_resource (id integer, projid integer, name varchar, calendar integer, email_address varchar, availability double, created_as_folder boolean)", "insert into permanent_resource values (1, 0, 'Resource One', 1, 'one@example.com', 0.5, 0)", "insert into permanent_resource values (3, 1, 'Resource Two', 2, null, 1.0, 0)");
+         execute(statement, "create table consumable_resource (id integer, projid integer, name varchar, calendar integer, cost_per_usedefaultsamount double, availability double, available_from datetime, available_to datetime, created_as_folder boolean, measurement varchar)", "insert into consumable_resource values (2, 0, 'Material', 1, 10.0, 1.0, null, null, 0, 't')");
+
+         execute(statement, "create table bar (id integer, projid integer, name varchar, bar_start datetime, bar_finish datetime, expanded_task integer, natural_order integer)", "insert into bar values (1, 0, 'Bar One', '2019-01-07 08:00:00', '2019-01-11 17:00:00', null, 1)", "insert into bar values (2, 0, 'Bar Two', '2019-01-18 17:00:00', '2019-01-18 17:00:00', null, 2)", "insert into bar values (3, 0, 'Sub Bar', '2019-01-09 08:00:00', '2019-01-11 17:00:00', 50, 1)", "insert into bar values (4, 0, 'Displaced Items', null, null, null, 3)", "insert into bar values (5, 1, 'Other Bar', '2019-02-04 08:00:00', '2019-02-08 17:00:00', null, 1)");
+         execute(statement, "create table expanded_task (id integer, projid integer, bar integer, constraint_flag integer)", "insert into expanded_task values (50, 0, 1, 0)");
+
+         execute(statement, "create table task (id integer, projid integer, bar integer, natural_order integer, name varchar, calendar integer, given_duration varchar, actual_duration varchar, overall_percent_complete double, linkable_start datetime, linkable_finish datetime, notes varchar, wbs varchar, constraint_flag integer, placement integer, resume datetime, early_start_date datetime, late_start_date datetime, early_end_date_rs datetime, late_end_date_rs datetime, start_constraint_date datetime, end_constraint_date datetime, unique_task_id varchar)");
+         execute(statement, task(100, 0, 1, 1, "Task One", "2019-01-07", "2019-01-08"), task(101, 0, 1, 2, "Task Two", "2019-01-09", "2019-01-10"), task(103, 0, 3, 1, "Task Three", "2019-01-09", "2019-01-10"), task(104, 0, 3, 2, "Task Four", "2019-01-10", "2019-01-11"), task(105, 0, 4, 1, "Displaced", "2019-01-07", "2019-01-08"), task(106, 1, 5, 1, "Other Task", "2019-02-04", "2019-02-05"));
+         execute(statement, "create table milestone (id integer, projid integer, bar integer, natural_order integer, name varchar, calendar integer, wbs varchar, constraint_flag integer, given_date_time datetime, completed boolean, early_start_date datetime, late_start_date datetime, unique_task_id varchar)", "insert into milestone values (102, 0, 2, 1, null, 1, null, 0, '2019-01-18 17:00:00', 1, null, null, 'M1')");
+
+         execute(statement, "create table link (id integer, projid integer, start_lag_time varchar, end_lag_time varchar, link_kind integer, start_task integer, end_task integer)", "insert into link values (1, 0, '1,0,8', '1,0,0', 0, 100, 101)", "insert into link values (2, 0, '1,0,0', '1,0,0', 1, 200, 104)", "insert into link values (3, 1, '1,0,0', '1,0,0', 0, 100, 106)");
+         execute(statement, "create table task_completed_section (id integer, projid integer, task integer)", "insert into task_completed_section values (200, 0, 103)");
+
+         execute(statement, "create table perm_resource_skill (id integer, projid integer, player integer)", "insert into perm_resource_skill values (400, 0, 1)", "insert into perm_resource_skill values (401, 1, 3)");
+         execute(statement, "create table permanent_schedul_allocation (id integer, projid integer, allocated_to integer, allocation_of integer, percent_complete double, effort double, linkable_start datetime, linkable_finish datetime, given_allocation double, delay varchar)", "insert into permanent_schedul_allocation values (300, 0, 100, 400, 0.25, 57600, '2019-01-07 08:00:00', '2019-01-08 17:00:00', 1.0, '1,0,0')", "insert into permanent_schedul_allocation values (301, 1, 103, 401, 0, 57600, '2019-02-04 08:00:00', '2019-02-05 17:00:00', 1.0, '1,0,0')");
+
+         statement.close();
+      }
+
+      finally
+      {
+         connection.close();
+      }
+
+      return file;
+   }
+
+   /**
+    * Generate the SQL to insert a task.
+    *
+    * @param id task ID
+    * @param projectID project ID
+    * @param barID parent bar ID
+    * @param order order within the parent bar
+    * @param name task name
+    * @param start start date
+    * @param finish finish date
+    * @return SQL statement
+    */
+   private String task(int id, int projectID, int barID, int order, String name, String start, String finish)
+   {
+      return "insert into task (id, projid, bar, natural_order, name, calendar, given_duration, actual_duration, overall_percent_complete, linkable_start, linkable_finish, constraint_flag, placement, unique_task_id) values (" + id + ", " + projectID + ", " + barID + ", " + order + ", '" + name + "', 1, '1,0,16', '1,0,0', 0, '" + start + " 08:00:00', '" + finish + " 17:00:00', 0, 0, 'T" + (id - 99) + "')";
+   }
+
+   /**
+    * Execute a sequence of SQL statements.
+    *
+    * @param statement statement used to execute the SQL
+    * @param sql SQL statements
+    */
+   private void execute(Statement statement, String... sql) throws Exception
+   {
+      for (String item : sql)
+      {
+         statement.execute(item);
+      }
+   }
+}
@@ -0,0 +1,139 @@
+/*
+ * file:       AstaTextFileTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.text.SimpleDateFormat;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.asta.AstaFileReader;
+
+/**
+ * Tests to exercise reading Asta text (PP) files.
+ */
+public class AstaTextFileTest
+{
+   /**
+    * Read project properties and resources from a PP file,
+    * including quoted strings and unused tables.
+    */
+   @Test public void testRead() throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      sb.append("\u0000\u000013004 Asta Powerproject\n");
+
+      String[] summary = new String[62];
+      summary[3] = "80.5";
+      summary[4] = "2458850 28800";
+      summary[5] = "2458860 61200";
+      summary[27] = "<\"My \"\"Project\"\", One\">";
+      summary[36] = "<\"Author\">";
+      appendRow(sb, "#1.1.2", summary, "\n");
+
+      appendRow(sb, "#20.1.999", new String[]
+      {
+         null,
+         "1",
+         "<\"Unknown\">"
+      }, "\n");
+
+      String[] resource = new String[40];
+      resource[1] = "<\"a@example.com\">";
+      resource[26] = "1";
+      resource[29] = "<\"Resource, One\">";
+      resource[36] = "1";
+      appendRow(sb, "#10.1.62", resource, "\r\n");
+
+      // Rows from tables which are not used are not decoded
+      appendRow(sb, "#21.1.190", new String[]
+      {
+         null,
+         "x",
+         "1"
+      }, "\n");
+
+      resource = new String[40];
+      resource[26] = "0.5";
+      resource[29] = "<\"Second\">";
+      resource[36] = "0";
+      appendRow(sb, "#11.2.62", resource, "");
+
+      ProjectFile file = new AstaFileReader().read(new ByteArrayInputStream(sb.toString().getBytes("UTF-8")));
+
+      ProjectProperties props = file.getProjectProperties();
+      assertEquals("My \"Project\", One", props.getName());
+      assertEquals("Author", props.getAuthor());
+      assertEquals(80.5, props.getDuration().getDuration(), 0.0);
+
+      SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+      assertEquals("2020-01-01", df.format(props.getStartDate()));
+      assertEquals("2020-01-11", df.format(props.getFinishDate()));
+
+      assertEquals(2, file.getResources().size());
+      Resource resource1 = file.getResourceByUniqueID(Integer.valueOf(10));
+      assertEquals("Resource, One", resource1.getName());
+      assertEquals("a@example.com", resource1.getEmailAddress());
+      assertEquals(100.0, resource1.getMaxUnits().doubleValue(), 0.0);
+      assertTrue(resource1.getGeneric());
+
+      Resource resource2 = file.getResourceByUniqueID(Integer.valueOf(11));
+      assertEquals("Second", resource2.getName());
+      assertEquals("", resource2.getEmailAddress());
+      assertEquals(50.0, resource2.getMaxUnits().doubleValue(), 0.0);
+      assertFalse(resource2.getGeneric());
+   }
+
+   /**
+    * Append a row to the file. The first value is represented by the header.
+    *
+    * @param sb file content
+    * @param header row header
+    * @param values column values
+    * @param lineEnd line terminator
+    */
+   private void appendRow(StringBuilder sb, String header, String[] values, String lineEnd)
+   {
+      sb.append(header);
+      sb.append(':');
+      for (int index = 1; index < values.length; index++)
+      {
+         if (index > 1)
+         {
+            sb.append(',');
+         }
+
+         if (values[index] != null)
+         {
+            sb.append(values[index]);
+         }
+      }
+      sb.append(lineEnd);
+   }
+}
@@ -0,0 +1,394 @@
+/*
+ * file:       CachingProjectReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       30/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.common.FileHelper;
+import net.sf.mpxj.diff.ProjectChange;
+import net.sf.mpxj.diff.ProjectDiff;
+import net.sf.mpxj.listener.DefaultProjectListener;
+import net.sf.mpxj.reader.CachingProjectReader;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.utility.ProjectCopyUtility;
+
+/**
+ * Tests to exercise the caching project reader.
+ */
+public class CachingProjectReaderTest
+{
+   /**
+    * Ensure that by default the fully parsed project is returned
+    * and cached, and that repeated reads return the same instance.
+    */
+   @Test public void testFullFidelity() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("mpp14task.mpp"));
+      ProjectFile expected = new UniversalProjectReader().read(file);
+      final List<Task> tasks = new ArrayList<Task>();
+
+      CachingProjectReader reader = new CachingProjectReader();
+      assertFalse(reader.getLossySnapshots());
+      reader.addProjectListener(new DefaultProjectListener()
+      {
+         @Override public void taskRead(Task task)
+         {
+            tasks.add(task);
+         }
+      });
+
+      ProjectFile first = reader.read(file);
+      assertEquals(1, reader.getMissCount());
+      assertEquals(first.getTasks(), tasks);
+      assertEquals(0, reader.getMemorySize());
+      assertNoChanges(expected, first);
+      assertFalse(expected.getViews().isEmpty());
+      assertEquals(expected.getViews().size(), first.getViews().size());
+      assertEquals(expected.getTables().size(), first.getTables().size());
+
+      ProjectFile second = reader.read(file);
+      assertSame(first, second);
+      assertEquals(1, reader.getMemoryHitCount());
+
+      FileInputStream is = new FileInputStream(file);
+      try
+      {
+         assertSame(first, reader.read(is));
+      }
+
+      finally
+      {
+         is.close();
+      }
+      assertEquals(2, reader.getHitCount());
+
+      reader.setMaximumProjectCount(1);
+      assertNotSame(first, reader.read(MpxjTestData.filePath("mpxrecurring.mpx")));
+      assertEquals(2, reader.getMissCount());
+      assertEquals(1, reader.getEvictionCount());
+
+      reader.read(file);
+      assertEquals(3, reader.getMissCount());
+
+      reader.setLossySnapshots(true);
+      assertNotSame(first, reader.read(file));
+      assertEquals(4, reader.getMissCount());
+   }
+
+   /**
+    * Ensure that in lossy snapshot mode repeated reads are served from
+    * memory and that each caller receives an independent copy.
+    */
+   @Test public void testMemoryCache() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("mpxrecurring.mpx"));
+      ProjectFile expected = new UniversalProjectReader().read(file);
+
+      CachingProjectReader reader = new CachingProjectReader();
+      reader.setLossySnapshots(true);
+      ProjectFile first = reader.read(file);
+      assertEquals(0, reader.getHitCount());
+      assertEquals(1, reader.getMissCount());
+      assertTrue(reader.getMemorySize() > 0);
+      assertNoChanges(expected, first);
+
+      Task task = first.getTasks().get(1);
+      String name = task.getName();
+      task.setName("Modified");
+
+      ProjectFile second = reader.read(file);
+      assertNotSame(first, second);
+      assertEquals(1, reader.getMemoryHitCount());
+      assertEquals(1, reader.getMissCount());
+      assertEquals(name, second.getTasks().get(1).getName());
+      assertNoChanges(expected, second);
+
+      FileInputStream is = new FileInputStream(file);
+      try
+      {
+         reader.read(is);
+      }
+
+      finally
+      {
+         is.close();
+      }
+      assertEquals(2, reader.getHitCount());
+
+      reader.resetStatistics();
+      assertEquals(0, reader.getHitCount());
+      assertEquals(0, reader.getMissCount());
+   }
+
+   /**
+    * Ensure that the least recently used entries are evicted from memory.
+    */
+   @Test public void testEviction() throws Exception
+   {
+      File file1 = new File(MpxjTestData.filePath("mpxrecurring.mpx"));
+      File file2 = createVariant(file1);
+
+      try
+      {
+         CachingProjectReader reader = new CachingProjectReader();
+         reader.setLossySnapshots(true);
+         reader.read(file1);
+         long size = reader.getMemorySize();
+         reader.setMaximumMemorySize(size);
+
+         reader.read(file2);
+         assertEquals(2, reader.getMissCount());
+         assertTrue(reader.getEvictionCount() > 0);
+         assertTrue(reader.getMemorySize() <= size);
+
+         reader.read(file1);
+         assertEquals(3, reader.getMissCount());
+
+         reader.setMaximumMemorySize(0);
+         assertEquals(0, reader.getMemorySize());
+         reader.read(file1);
+         assertEquals(4, reader.getMissCount());
+         assertEquals(0, reader.getHitCount());
+      }
+
+      finally
+      {
+         FileHelper.deleteQuietly(file2);
+      }
+   }
+
+   /**
+    * Ensure that a cache directory can be shared between reader instances.
+    */
+   @Test public void testDiskCache() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("mpxrecurring.mpx"));
+      ProjectFile expected = new UniversalProjectReader().read(file);
+
+      File directory = FileHelper.createTempDir();
+
+      try
+      {
+         CachingProjectReader reader1 = new CachingProjectReader();
+         reader1.setLossySnapshots(true);
+         reader1.setCacheDirectory(directory);
+         reader1.read(file);
+         assertEquals(1, reader1.getMissCount());
+         assertEquals(1, directory.listFiles().length);
+
+         CachingProjectReader reader2 = new CachingProjectReader();
+         reader2.setLossySnapshots(true);
+         reader2.setCacheDirectory(directory);
+         ProjectFile project = reader2.read(file);
+         assertEquals(0, reader2.getMissCount());
+         assertEquals(1, reader2.getDiskHitCount());
+         assertNoChanges(expected, project);
+
+         reader2.read(file);
+         assertEquals(1, reader2.getMemoryHitCount());
+
+         CachingProjectReader reader3 = new CachingProjectReader();
+         reader3.setLossySnapshots(true);
+         reader3.setCacheDirectory(directory);
+         reader3.setMaximumDiskSize(0);
+         File variant = createVariant(file);
+         try
+         {
+            reader3.read(variant);
+         }
+
+         finally
+         {
+            FileHelper.deleteQuietly(variant);
+         }
+         assertEquals(1, directory.listFiles().length);
+      }
+
+      finally
+      {
+         File[] files = directory.listFiles();
+         if (files != null)
+         {
+            for (File child : files)
+            {
+               FileHelper.deleteQuietly(child);
+            }
+         }
+         FileHelper.deleteQuietly(directory);
+      }
+   }
+
+   /**
+    * Ensure that a corrupt entry in the cache directory is discarded
+    * and the original file parsed instead.
+    */
+   @Test public void testCorruptDiskEntry() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("mpxrecurring.mpx"));
+      ProjectFile expected = new UniversalProjectReader().read(file);
+
+      File directory = FileHelper.createTempDir();
+
+      try
+      {
+         CachingProjectReader reader1 = new CachingProjectReader();
+         reader1.setLossySnapshots(true);
+         reader1.setCacheDirectory(directory);
+         reader1.read(file);
+         File entry = directory.listFiles()[0];
+         long length = entry.length();
+
+         FileOutputStream os = new FileOutputStream(entry);
+         os.write(new byte[64]);
+         os.close();
+
+         CachingProjectReader reader2 = new CachingProjectReader();
+         reader2.setLossySnapshots(true);
+         reader2.setCacheDirectory(directory);
+         ProjectFile project = reader2.read(file);
+         assertEquals(1, reader2.getMissCount());
+         assertEquals(0, reader2.getDiskHitCount());
+         assertNoChanges(expected, project);
+         assertEquals(length, entry.length());
+
+         CachingProjectReader reader3 = new CachingProjectReader();
+         reader3.setLossySnapshots(true);
+         reader3.setCacheDirectory(directory);
+         reader3.read(file);
+         assertEquals(1, reader3.getDiskHitCount());
+      }
+
+      finally
+      {
+         File[] files = directory.listFiles();
+         if (files != null)
+         {
+            for (File child : files)
+            {
+               FileHelper.deleteQuietly(child);
+            }
+         }
+         FileHelper.deleteQuietly(directory);
+      }
+   }
+
+   /**
+    * Ensure that in lossy snapshot mode the same data is returned whether
+    * or not the file is already present in the cache, and that listeners see the
+    * project which is returned to the caller.
+    */
+   @Test public void testConsistentResults() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("mpxrecurring.mpx"));
+      final List<Task> tasks = new ArrayList<Task>();
+
+      CachingProjectReader reader = new CachingProjectReader();
+      reader.setLossySnapshots(true);
+      reader.addProjectListener(new DefaultProjectListener()
+      {
+         @Override public void taskRead(Task task)
+         {
+            tasks.add(task);
+         }
+      });
+
+      ProjectFile miss = reader.read(file);
+      assertEquals(1, reader.getMissCount());
+      assertEquals(miss.getTasks(), tasks);
+
+      tasks.clear();
+      ProjectFile hit = reader.read(file);
+      assertEquals(1, reader.getHitCount());
+      assertEquals(hit.getTasks(), tasks);
+
+      assertNoChanges(miss, hit);
+      assertEquals(miss.getViews().size(), hit.getViews().size());
+      assertEquals(miss.getTables().size(), hit.getTables().size());
+   }
+
+   /**
+    * Ensure that a copied project is identical to the original.
+    */
+   @Test public void testCopy() throws Exception
+   {
+      ProjectFile expected = new UniversalProjectReader().read(MpxjTestData.filePath("mpxrecurring.mpx"));
+      ProjectFile copy = ProjectCopyUtility.copy(expected);
+      assertNotSame(expected, copy);
+      assertNoChanges(expected, copy);
+   }
+
+   /**
+    * Create a copy of a file with an additional trailing line break,
+    * giving the same schedule but a different content hash.
+    *
+    * @param file file to copy
+    * @return new temporary file
+    */
+   private File createVariant(File file) throws Exception
+   {
+      File result = File.createTempFile("junit", ".mpx");
+      FileInputStream is = new FileInputStream(file);
+      FileOutputStream os = new FileOutputStream(result);
+      try
+      {
+         byte[] buffer = new byte[8192];
+         int bytesRead;
+         while ((bytesRead = is.read(buffer)) != -1)
+         {
+            os.write(buffer, 0, bytesRead);
+         }
+         os.write('\r');
+         os.write('\n');
+      }
+
+      finally
+      {
+         is.close();
+         os.close();
+      }
+      return result;
+   }
+
+   /**
+    * Ensure that two projects contain the same data.
+    *
+    * @param expected expected project
+    * @param actual actual project
+    */
+   private void assertNoChanges(ProjectFile expected, ProjectFile actual)
+   {
+      List<ProjectChange> changes = new ProjectDiff().compare(expected, actual);
+      assertTrue(changes.toString(), changes.isEmpty());
+   }
+}
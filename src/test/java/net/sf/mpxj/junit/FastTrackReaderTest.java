@@ -0,0 +1,115 @@
+/*
+ * file:       FastTrackReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.fasttrack.FastTrackReader;
+
+/**
+ * Tests to exercise reading FastTrack files.
+ */
+public class FastTrackReaderTest
+{
+   /**
+    * Reading a memory mapped file and reading from a stream
+    * produce the same result.
+    */
+   @Test public void testFileAndStream() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("generated/resource-misc/resource-misc-fasttrack10.fts"));
+      ProjectFile expected = new FastTrackReader().read(file);
+
+      ProjectFile actual;
+      InputStream is = new FileInputStream(file);
+      try
+      {
+         actual = new FastTrackReader().read(is);
+      }
+
+      finally
+      {
+         is.close();
+      }
+
+      assertProjectsEqual(expected, actual);
+   }
+
+   /**
+    * Decoding columns in parallel produces the same result
+    * as decoding them serially.
+    */
+   @Test public void testParallel() throws Exception
+   {
+      File file = new File(MpxjTestData.filePath("generated/resource-misc/resource-misc-fasttrack10.fts"));
+      ProjectFile expected = new FastTrackReader().read(file);
+
+      FastTrackReader reader = new FastTrackReader();
+      reader.setThreadCount(4);
+      ProjectFile actual = reader.read(file);
+
+      assertProjectsEqual(expected, actual);
+   }
+
+   /**
+    * Compare the resources and tasks from two projects.
+    *
+    * @param expected expected project
+    * @param actual actual project
+    */
+   private void assertProjectsEqual(ProjectFile expected, ProjectFile actual)
+   {
+      assertFalse(expected.getResources().isEmpty());
+      assertEquals(expected.getResources().size(), actual.getResources().size());
+      for (int index = 0; index < expected.getResources().size(); index++)
+      {
+         Resource expectedResource = expected.getResources().get(index);
+         Resource actualResource = actual.getResources().get(index);
+         assertEquals(expectedResource.getUniqueID(), actualResource.getUniqueID());
+         assertEquals(expectedResource.getName(), actualResource.getName());
+      }
+
+      assertEquals(expected.getTasks().size(), actual.getTasks().size());
+      for (int index = 0; index < expected.getTasks().size(); index++)
+      {
+         Task expectedTask = expected.getTasks().get(index);
+         Task actualTask = actual.getTasks().get(index);
+         assertEquals(expectedTask.getUniqueID(), actualTask.getUniqueID());
+         assertEquals(expectedTask.getName(), actualTask.getName());
+         assertEquals(expectedTask.getDuration(), actualTask.getDuration());
+         assertEquals(expectedTask.getStart(), actualTask.getStart());
+         assertEquals(expectedTask.getFinish(), actualTask.getFinish());
+         assertEquals(expectedTask.getPercentageComplete(), actualTask.getPercentageComplete());
+      }
+   }
+}
@@ -0,0 +1,190 @@
+/*
+ * file:       GroupUtilityTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.Group;
+import net.sf.mpxj.GroupClause;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.utility.GroupSummary;
+import net.sf.mpxj.utility.GroupUtility;
+
+/**
+ * Test to exercise GroupUtility functionality.
+ */
+public class GroupUtilityTest
+{
+   /**
+    * Test grouping by a single text field with totals.
+    */
+   @Test public void testSingleClause() throws Exception
+   {
+      ProjectFile file = createProject(30);
+      Group group = createGroup(false);
+      group.addGroupClause(createClause(TaskField.TEXT1, true));
+
+      GroupUtility utility = new GroupUtility(file.getProjectProperties());
+      utility.setSummaryFields(TaskField.COST, TaskField.DURATION);
+      GroupSummary<Task> root = utility.group(group, file.getTasks());
+
+      // The summary task is excluded
+      assertEquals(30, root.getCount());
+      assertEquals(3, root.getChildGroups().size());
+      assertEquals(435.0, root.getSum(TaskField.COST), 0.001);
+
+      GroupSummary<Task> first = root.getChildGroups().get(0);
+      assertEquals("A", first.getKey());
+      assertEquals(10, first.getCount());
+      assertEquals(10, first.getMembers().size());
+      assertEquals(135.0, first.getSum(TaskField.COST), 0.001);
+      assertEquals(Duration.getInstance(10 * 8, TimeUnit.HOURS), first.getDurationSum(TaskField.DURATION));
+
+      assertEquals("B", root.getChildGroups().get(1).getKey());
+      assertEquals("C", root.getChildGroups().get(2).getKey());
+   }
+
+   /**
+    * Test grouping by two clauses, the second in descending order
+    * with an interval.
+    */
+   @Test public void testIntervalClause() throws Exception
+   {
+      ProjectFile file = createProject(30);
+      Group group = createGroup(true);
+      group.addGroupClause(createClause(TaskField.TEXT1, false));
+      GroupClause clause = createClause(TaskField.COST, false);
+      clause.setGroupOn(1);
+      clause.setStartAt(Double.valueOf(0));
+      clause.setGroupInterval(Double.valueOf(10));
+      group.addGroupClause(clause);
+
+      GroupUtility utility = new GroupUtility(file.getProjectProperties());
+      utility.setSummaryFields(TaskField.COST);
+      GroupSummary<Task> root = utility.group(group, file.getTasks());
+
+      // The summary task is included but not totalled
+      assertEquals(31, root.getCount());
+      assertEquals(435.0, root.getSum(TaskField.COST), 0.001);
+
+      List<GroupSummary<Task>> textGroups = root.getChildGroups();
+      assertEquals(4, textGroups.size());
+      assertEquals("C", textGroups.get(0).getKey());
+      assertNull(textGroups.get(3).getKey());
+
+      List<GroupSummary<Task>> costGroups = textGroups.get(0).getChildGroups();
+      assertEquals(Double.valueOf(20), costGroups.get(0).getKey());
+      assertEquals(Double.valueOf(10), costGroups.get(1).getKey());
+      assertEquals(Double.valueOf(0), costGroups.get(2).getKey());
+      assertEquals(2, costGroups.get(0).getLevel());
+   }
+
+   /**
+    * Ensure that partitioning the entities across threads gives the same result.
+    */
+   @Test public void testParallel() throws Exception
+   {
+      ProjectFile file = createProject(10000);
+      Group group = createGroup(false);
+      group.addGroupClause(createClause(TaskField.TEXT1, true));
+
+      GroupUtility utility = new GroupUtility(file.getProjectProperties());
+      utility.setSummaryFields(TaskField.COST);
+      GroupSummary<Task> serial = utility.group(group, file.getTasks());
+
+      utility.setThreadCount(4);
+      GroupSummary<Task> parallel = utility.group(group, file.getTasks());
+
+      assertEquals(serial.getCount(), parallel.getCount());
+      assertEquals(serial.getSum(TaskField.COST), parallel.getSum(TaskField.COST), 0.001);
+      for (int index = 0; index < serial.getChildGroups().size(); index++)
+      {
+         GroupSummary<Task> serialGroup = serial.getChildGroups().get(index);
+         GroupSummary<Task> parallelGroup = parallel.getChildGroups().get(index);
+         assertEquals(serialGroup.getKey(), parallelGroup.getKey());
+         assertEquals(serialGroup.getMembers(), parallelGroup.getMembers());
+         assertEquals(serialGroup.getSum(TaskField.COST), parallelGroup.getSum(TaskField.COST), 0.001);
+      }
+   }
+
+   /**
+    * Create a project containing a summary task and a number of child tasks.
+    *
+    * @param count number of child tasks
+    * @return project file
+    */
+   private ProjectFile createProject(int count)
+   {
+      ProjectFile file = new ProjectFile();
+      Task summary = file.addTask();
+      summary.setName("Summary");
+      summary.setCost(Integer.valueOf(1000));
+
+      for (int index = 0; index < count; index++)
+      {
+         Task task = summary.addTask();
+         task.setName("Task " + index);
+         task.setText(1, String.valueOf((char) ('A' + (index % 3))));
+         task.setCost(Integer.valueOf(index % 30));
+         task.setDuration(Duration.getInstance(1, TimeUnit.DAYS));
+      }
+      summary.setSummary(true);
+
+      return file;
+   }
+
+   /**
+    * Create a group definition.
+    *
+    * @param showSummaryTasks true if summary tasks are included
+    * @return group definition
+    */
+   private Group createGroup(boolean showSummaryTasks)
+   {
+      return new Group(Integer.valueOf(1), "Test", showSummaryTasks);
+   }
+
+   /**
+    * Create a group clause.
+    *
+    * @param field grouping field
+    * @param ascending true if sorted in ascending order
+    * @return group clause
+    */
+   private GroupClause createClause(TaskField field, boolean ascending)
+   {
+      GroupClause clause = new GroupClause();
+      clause.setField(field);
+      clause.setAscending(ascending);
+      return clause;
+   }
+}
@@ -0,0 +1,73 @@
+/*
+ * file:       JaxbContextRegistryTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.junit.Test;
+
+import net.sf.mpxj.common.JaxbContextRegistry;
+
+/**
+ * Tests to exercise the JAXB context registry.
+ */
+public class JaxbContextRegistryTest
+{
+   /**
+    * Each context is constructed once and shared.
+    */
+   @Test public void testGetContext() throws Exception
+   {
+      JaxbContextRegistry.warmUp(JaxbContextRegistry.PLANNER, JaxbContextRegistry.MSPDI);
+      JAXBContext context = JaxbContextRegistry.getContext(JaxbContextRegistry.PLANNER);
+      assertNotNull(context);
+      assertSame(context, JaxbContextRegistry.getContext(JaxbContextRegistry.PLANNER));
+      assertNotSame(context, JaxbContextRegistry.getContext(JaxbContextRegistry.MSPDI));
+   }
+
+   /**
+    * An error constructing a context is reported each time it is requested.
+    */
+   @Test public void testInvalidContext() throws Exception
+   {
+      JaxbContextRegistry.warmUp("net.sf.mpxj.missing");
+
+      for (int attempt = 0; attempt < 2; attempt++)
+      {
+         try
+         {
+            JaxbContextRegistry.getContext("net.sf.mpxj.missing");
+            fail("Expected exception");
+         }
+
+         catch (JAXBException ex)
+         {
+            // Expected
+         }
+      }
+   }
+}
@@ -0,0 +1,216 @@
+/*
+ * file:       MerlinReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation; either version 2.1 of the License, or (at
+ * your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Day;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.FileHelper;
+import net.sf.mpxj.merlin.MerlinReader;
+
+/**
+ * Tests to exercise reading Merlin SQLite databases.
+ */
+public class MerlinReaderTest
+{
+   /**
+    * Read a database containing two projects. Only the activities
+    * belonging to the first project should be read, including child
+    * activities which have no ZPROJECT value.
+    */
+   @Test public void testRead() throws Exception
+   {
+      File file = createDatabase();
+
+      try
+      {
+         for (int threadCount = 1; threadCount <= 4; threadCount *= 4)
+         {
+            MerlinReader reader = new MerlinReader();
+            reader.setThreadCount(threadCount);
+            testProject(reader.read(file));
+         }
+      }
+
+      finally
+      {
+         FileHelper.deleteQuietly(file);
+      }
+   }
+
+   /**
+    * Validate the project read from the database.
+    *
+    * @param project project to validate
+    */
+   private void testProject(ProjectFile project)
+   {
+      assertEquals("Project One", project.getProjectProperties().getName());
+      assertEquals(UUID_1.toString(), project.getProjectProperties().getUniqueID());
+
+      ProjectCalendar calendar = project.getCalendarByUniqueID(Integer.valueOf(1));
+      assertEquals("Resource One", calendar.getName());
+      assertTrue(calendar.isWorkingDay(Day.MONDAY));
+      assertFalse(calendar.isWorkingDay(Day.SUNDAY));
+      assertEquals(1, calendar.getCalendarExceptions().size());
+      assertNull(project.getCalendarByUniqueID(Integer.valueOf(2)));
+
+      assertEquals(2, project.getResources().size());
+      Resource resource = project.getResourceByUniqueID(Integer.valueOf(1));
+      assertEquals("Resource One", resource.getName());
+      assertEquals("one@example.com", resource.getEmailAddress());
+      assertEquals(ResourceType.WORK, resource.getType());
+      assertEquals(50.0, resource.getMaxUnits().doubleValue(), 0.0);
+      assertSame(calendar, resource.getResourceCalendar());
+      assertEquals(ResourceType.MATERIAL, project.getResourceByUniqueID(Integer.valueOf(2)).getType());
+
+      assertEquals(4, project.getTasks().size());
+      List<Task> topLevel = project.getChildTasks();
+      assertEquals(1, topLevel.size());
+
+      Task summary = topLevel.get(0);
+      assertEquals("Summary", summary.getName());
+      assertEquals(2, summary.getChildTasks().size());
+      assertEquals("Task A", summary.getChildTasks().get(0).getName());
+      assertEquals("Task B", summary.getChildTasks().get(1).getName());
+
+      Task taskA = project.getTaskByUniqueID(Integer.valueOf(2));
+      assertEquals(Duration.getInstance(5, TimeUnit.DAYS), taskA.getDuration());
+      assertEquals(UUID_2, taskA.getGUID());
+
+      Task taskB = project.getTaskByUniqueID(Integer.valueOf(3));
+      assertEquals(1, taskB.getChildTasks().size());
+      assertEquals("Task C", taskB.getChildTasks().get(0).getName());
+      assertTrue(project.getTaskByUniqueID(Integer.valueOf(4)).getMilestone());
+
+      assertNull(project.getTaskByUniqueID(Integer.valueOf(10)));
+      assertNull(project.getTaskByUniqueID(Integer.valueOf(11)));
+
+      List<ResourceAssignment> assignments = taskA.getResourceAssignments();
+      assertEquals(1, assignments.size());
+      assertSame(resource, assignments.get(0).getResource());
+      assertEquals(100.0, assignments.get(0).getUnits().doubleValue(), 0.0);
+      assertEquals(Duration.getInstance(40, TimeUnit.HOURS), assignments.get(0).getWork());
+
+      List<Relation> predecessors = taskB.getPredecessors();
+      assertEquals(1, predecessors.size());
+      assertSame(taskA, predecessors.get(0).getTargetTask());
+      assertEquals(RelationType.START_START, predecessors.get(0).getType());
+      assertEquals(Duration.getInstance(2, TimeUnit.HOURS), predecessors.get(0).getLag());
+   }
+
+   /**
+    * Create a temporary database containing two projects.
+    *
+    * @return database file
+    */
+   private File createDatabase() throws Exception
+   {
+      File file = File.createTempFile("junit", ".sqlite");
+      Connection connection = org.sqlite.JDBC.createConnection("jdbc:sqlite:" + file.getAbsolutePath(), new Properties());
+
+      try
+      {
+         Statement statement = connection.createStatement();
+         execute(statement, "create table z_primarykey (z_ent integer, z_name varchar)", "insert into z_primarykey values (1, 'Activity')", "insert into z_primarykey values (2, 'Assignment')", "insert into z_primarykey values (3, 'CalendarWeekDayRule')", "insert into z_primarykey values (4, 'CalendarExceptionRule')");
+
+         execute(statement, "create table zproject (z_pk integer, ztitle varchar, zuniqueid varchar, zfirstdayofweek integer, zschedulingdirection integer, zhoursperday integer, zhoursperweek integer, zdayspermonth integer, zgivenstatusdate integer, zcurrencysymbol varchar)", "insert into zproject values (1, 'Project One', 'AAAAAAAAAAAAAAAAAAAAAQ', 1, 1, 8, 40, 20, null, '$')", "insert into zproject values (2, 'Project Two', 'AAAAAAAAAAAAAAAAAAAAAg', 1, 1, 8, 40, 20, null, '$')");
+
+         execute(statement, "create table zcalendar (z_pk integer, zproject integer, ztitle varchar)", "insert into zcalendar values (1, 1, 'Calendar One')", "insert into zcalendar values (2, 2, 'Calendar Two')");
+
+         execute(statement, "create table zcalendarrule (z_pk integer, z_ent integer, zcalendar1 integer, zcalendar integer, zweekday integer, zstartday integer, zendday integer, ztimeintervals varchar)", "insert into zcalendarrule values (1, 3, 1, null, 0, null, null, null)", "insert into zcalendarrule values (2, 3, 1, null, 1, null, null, '<array><dayTimeInterval startTime=\"08:00:00\" endTime=\"12:00:00\"/><dayTimeInterval startTime=\"13:00:00\" endTime=\"17:00:00\"/></array>')", "insert into zcalendarrule values (3, 4, null, 1, null, 5839, 5839, null)", "insert into zcalendarrule values (4, 4, null, 2, null, 5840, 5840, null)");
+
+         execute(statement, "create table zresource (z_pk integer, zproject integer, zorderinproject integer, zemail varchar, zinitials varchar, ztitle_ varchar, zuniqueid varchar, ztype integer, zmaterialunit varchar, zavailableunits_ double, zresourcecalendar integer)", "insert into zresource values (1, 1, 1, 'one@example.com', 'R1', 'Resource One', 'AAAAAAAAAAAAAAAAAAAAAw', 0, null, 0.5, 1)", "insert into zresource values (2, 1, 2, null, 'M', 'Material', 'AAAAAAAAAAAAAAAAAAAABA', 1, 't', null, null)", "insert into zresource values (3, 2, 1, null, 'R2', 'Resource Two', 'AAAAAAAAAAAAAAAAAAAABQ', 0, null, 1.0, 2)");
+
+         execute(statement, "create table zscheduleitem (z_pk integer, z_ent integer, zproject integer, zparentactivity_ integer, zorderinparentactivity integer, ztitle varchar, zuniqueid varchar, zobjectdescription varchar, zpriority integer, zismilestone integer, zgivencalendar integer, zgivenduration_ varchar, zgivenwork_ varchar, zgivenworkovertime_ varchar, zgivenactualwork_ varchar, zgivenactualworkovertime_ varchar, zgivenremainingwork_ varchar, zgivenactualstartdate_ integer, zgivenactualenddate_ integer, zlevelingdelay_ varchar, zgivenstartdatemin_ integer, zgivenstartdatemax_ integer, zgivenenddatemin_ integer, zgivenenddatemax_ integer, zactivity_ integer, zresource integer, zorderinactivity integer, zresourceunits_ double)");
+         // Child activities are written without a ZPROJECT value
+         execute(statement, activity(1, 1, "null", 1, "Summary", "AAAAAAAAAAAAAAAAAAAAAQ", 0), activity(2, "null", "1", 1, "Task A", "AAAAAAAAAAAAAAAAAAAAAg", 0), activity(3, "null", "1", 2, "Task B", "AAAAAAAAAAAAAAAAAAAAAw", 0), activity(4, "null", "3", 1, "Task C", "AAAAAAAAAAAAAAAAAAAABA", 1), activity(10, 2, "null", 1, "Other Summary", "AAAAAAAAAAAAAAAAAAAABQ", 0), activity(11, "null", "10", 1, "Other Task", "AAAAAAAAAAAAAAAAAAAABg", 0));
+         execute(statement, "insert into zscheduleitem (z_pk, z_ent, zproject, zuniqueid, zgivenwork_, zactivity_, zresource, zorderinactivity, zresourceunits_) values (20, 2, 1, 'AAAAAAAAAAAAAAAAAAAABw', '40h', 2, 1, 1, 1.0)", "insert into zscheduleitem (z_pk, z_ent, zproject, zuniqueid, zgivenwork_, zactivity_, zresource, zorderinactivity, zresourceunits_) values (21, 2, 2, 'AAAAAAAAAAAAAAAAAAAACA', '40h', 11, 3, 1, 1.0)");
+
+         execute(statement, "create table zdependency (z_pk integer, zproject integer, znextactivity_ integer, zpreviousactivity_ integer, zlag_ varchar, ztype integer)", "insert into zdependency values (1, 1, 3, 2, '2h', 1)", "insert into zdependency values (2, 2, 11, 10, '0d', 0)");
+
+         statement.close();
+      }
+
+      finally
+      {
+         connection.close();
+      }
+
+      return file;
+   }
+
+   /**
+    * Generate the SQL to insert an activity.
+    *
+    * @param id activity ID
+    * @param projectID project ID, or null
+    * @param parentID parent activity ID, or null
+    * @param order order within the parent activity
+    * @param name activity name
+    * @param uniqueID activity unique ID
+    * @param milestone 1 if this is a milestone
+    * @return SQL statement
+    */
+   private String activity(int id, Object projectID, String parentID, int order, String name, String uniqueID, int milestone)
+   {
+      return "insert into zscheduleitem (z_pk, z_ent, zproject, zparentactivity_, zorderinparentactivity, ztitle, zuniqueid, zpriority, zismilestone, zgivenduration_) values (" + id + ", 1, " + projectID + ", " + parentID + ", " + order + ", '" + name + "', '" + uniqueID + "', 500, " + milestone + ", '" + (milestone == 1 ? "0d" : "5d") + "')";
+   }
+
+   /**
+    * Execute a sequence of SQL statements.
+    *
+    * @param statement statement used to execute the SQL
+    * @param sql SQL statements
+    */
+   private void execute(Statement statement, String... sql) throws Exception
+   {
+      for (String item : sql)
+      {
+         statement.execute(item);
+      }
+   }
+
+   private static final UUID UUID_1 = new UUID(0, 1);
+   private static final UUID UUID_2 = new UUID(0, 2);
+}
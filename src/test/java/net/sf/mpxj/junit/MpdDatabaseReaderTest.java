@@ -0,0 +1,561 @@
+/*
+ * file:       MpdDatabaseReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Day;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarHours;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.MPPTaskField;
+import net.sf.mpxj.mpd.MPD9DatabaseReader;
+
+/**
+ * Tests to exercise reading MPD data from a database connection,
+ * using an in-memory database supplied through JDBC proxies.
+ */
+public class MpdDatabaseReaderTest
+{
+   /**
+    * Ensure that listing projects releases the connection
+    * allocated from the data source.
+    */
+   @Test public void testListProjects() throws Exception
+   {
+      final FakeDatabase database = createDatabase();
+      DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]
+      {
+         DataSource.class
+      }, new InvocationHandler()
+      {
+         @Override public Object invoke(Object proxy, Method method, Object[] args)
+         {
+            return method.getName().equals("getConnection") ? database.getConnection() : null;
+         }
+      });
+
+      MPD9DatabaseReader reader = new MPD9DatabaseReader();
+      reader.setDataSource(dataSource);
+      Map<Integer, String> projects = reader.listProjects();
+
+      assertEquals(2, projects.size());
+      assertEquals("Project 1", projects.get(Integer.valueOf(1)));
+      assertEquals("Project 2", projects.get(Integer.valueOf(2)));
+      assertEquals(1, database.m_preparedCount);
+      assertEquals(0, database.m_openStatementCount);
+      assertTrue(database.m_connectionClosed);
+   }
+
+   /**
+    * Read all projects, ensuring that statements are reused and closed,
+    * and that calendar data and outline codes read using a single query
+    * are assigned to the correct calendars and tasks.
+    */
+   @Test public void testReadAll() throws Exception
+   {
+      FakeDatabase database = createDatabase();
+      MPD9DatabaseReader reader = new MPD9DatabaseReader();
+      reader.setConnection(database.getConnection());
+      reader.setFetchSize(100);
+      List<ProjectFile> projects = reader.readAll();
+
+      assertEquals(2, projects.size());
+      assertEquals("Project 1", projects.get(0).getProjectProperties().getName());
+      assertEquals("Project 2", projects.get(1).getProjectProperties().getName());
+
+      // Each statement is prepared once and reused for both projects
+      assertEquals(database.m_statements.size(), database.m_preparedCount);
+      assertTrue(database.m_executedCount > database.m_preparedCount);
+      assertEquals(database.m_executedCount, database.m_fetchSizeCount);
+      assertEquals(0, database.m_openStatementCount);
+      assertFalse(database.m_connectionClosed);
+
+      ProjectFile project = projects.get(0);
+      ProjectCalendar standard = project.getCalendarByUniqueID(Integer.valueOf(1));
+      assertEquals("Standard", standard.getName());
+      assertTrue(standard.isWorkingDay(Day.MONDAY));
+      assertFalse(standard.isWorkingDay(Day.SUNDAY));
+      ProjectCalendarHours hours = standard.getCalendarHours(Day.MONDAY);
+      assertEquals(2, hours.getRangeCount());
+      assertEquals(1, standard.getCalendarExceptions().size());
+      ProjectCalendarException exception = standard.getCalendarExceptions().get(0);
+      assertEquals(date(2019, Calendar.DECEMBER, 25, 0), exception.getFromDate());
+      assertFalse(exception.getWorking());
+
+      ProjectCalendar night = project.getCalendarByUniqueID(Integer.valueOf(2));
+      assertEquals("Night", night.getName());
+      assertEquals(1, night.getCalendarHours(Day.MONDAY).getRangeCount());
+      assertTrue(night.getCalendarExceptions().isEmpty());
+
+      assertEquals("A.1", project.getTaskByUniqueID(Integer.valueOf(1)).getOutlineCode(1));
+      assertEquals("B", project.getTaskByUniqueID(Integer.valueOf(2)).getOutlineCode(1));
+      assertNull(project.getTaskByUniqueID(Integer.valueOf(3)).getOutlineCode(1));
+
+      project = projects.get(1);
+      ProjectCalendar other = project.getCalendarByUniqueID(Integer.valueOf(1));
+      assertEquals("Other", other.getName());
+      assertFalse(other.isWorkingDay(Day.MONDAY));
+      assertNull(project.getCalendarByUniqueID(Integer.valueOf(2)));
+      assertEquals("C", project.getTaskByUniqueID(Integer.valueOf(1)).getOutlineCode(1));
+   }
+
+   /**
+    * Create the sample database.
+    *
+    * @return database
+    */
+   private FakeDatabase createDatabase()
+   {
+      FakeDatabase database = new FakeDatabase();
+      database.add("MSP_PROJECTS", "PROJ_ID", Integer.valueOf(1), "PROJ_NAME", "Project 1");
+      database.add("MSP_PROJECTS", "PROJ_ID", Integer.valueOf(2), "PROJ_NAME", "Project 2");
+
+      database.add("MSP_CALENDARS", "PROJ_ID", Integer.valueOf(1), "CAL_UID", Integer.valueOf(1), "CAL_IS_BASE_CAL", Boolean.TRUE, "CAL_NAME", "Standard");
+      database.add("MSP_CALENDARS", "PROJ_ID", Integer.valueOf(1), "CAL_UID", Integer.valueOf(2), "CAL_IS_BASE_CAL", Boolean.TRUE, "CAL_NAME", "Night");
+      database.add("MSP_CALENDARS", "PROJ_ID", Integer.valueOf(2), "CAL_UID", Integer.valueOf(1), "CAL_IS_BASE_CAL", Boolean.TRUE, "CAL_NAME", "Other");
+
+      // Rows for different calendars are interleaved
+      addCalendarData(database, 1, 1, 1, false, null, null);
+      addCalendarData(database, 1, 2, 2, true, date(1970, Calendar.JANUARY, 1, 20), date(1970, Calendar.JANUARY, 1, 23));
+      addCalendarData(database, 1, 1, 2, true, date(1970, Calendar.JANUARY, 1, 8), date(1970, Calendar.JANUARY, 1, 12));
+      addCalendarData(database, 1, 1, 0, false, date(2019, Calendar.DECEMBER, 25, 0), date(2019, Calendar.DECEMBER, 25, 0));
+      addCalendarData(database, 1, 99, 2, true, date(1970, Calendar.JANUARY, 1, 8), date(1970, Calendar.JANUARY, 1, 12));
+      addCalendarData(database, 2, 1, 2, false, null, null);
+
+      // The second range for Monday in the standard calendar
+      database.m_tables.get("MSP_CALENDAR_DATA").get(2).put("CD_FROM_TIME2", timestamp(date(1970, Calendar.JANUARY, 1, 13)));
+      database.m_tables.get("MSP_CALENDAR_DATA").get(2).put("CD_TO_TIME2", timestamp(date(1970, Calendar.JANUARY, 1, 17)));
+
+      for (int uniqueID = 1; uniqueID <= 3; uniqueID++)
+      {
+         database.add("MSP_TASKS", "PROJ_ID", Integer.valueOf(1), "TASK_UID", Integer.valueOf(uniqueID), "TASK_ID", Integer.valueOf(uniqueID), "TASK_NAME", "Task " + uniqueID);
+      }
+      database.add("MSP_TASKS", "PROJ_ID", Integer.valueOf(2), "TASK_UID", Integer.valueOf(1), "TASK_ID", Integer.valueOf(1), "TASK_NAME", "Task 1");
+
+      Integer fieldID = Integer.valueOf(MPPTaskField.TASK_FIELD_BASE | MPPTaskField.getID(TaskField.OUTLINE_CODE1));
+      database.add("MSP_OUTLINE_CODES", "PROJ_ID", Integer.valueOf(1), "CODE_UID", Integer.valueOf(10), "OC_FIELD_ID", fieldID, "OC_NAME", "A.1");
+      database.add("MSP_OUTLINE_CODES", "PROJ_ID", Integer.valueOf(1), "CODE_UID", Integer.valueOf(11), "OC_FIELD_ID", fieldID, "OC_NAME", "B");
+      database.add("MSP_OUTLINE_CODES", "PROJ_ID", Integer.valueOf(2), "CODE_UID", Integer.valueOf(10), "OC_FIELD_ID", fieldID, "OC_NAME", "C");
+      database.add("MSP_CODE_FIELDS", "PROJ_ID", Integer.valueOf(1), "CODE_REF_UID", Integer.valueOf(2), "CODE_UID", Integer.valueOf(11));
+      database.add("MSP_CODE_FIELDS", "PROJ_ID", Integer.valueOf(1), "CODE_REF_UID", Integer.valueOf(1), "CODE_UID", Integer.valueOf(10));
+      database.add("MSP_CODE_FIELDS", "PROJ_ID", Integer.valueOf(2), "CODE_REF_UID", Integer.valueOf(1), "CODE_UID", Integer.valueOf(10));
+
+      return database;
+   }
+
+   /**
+    * Add a calendar data row.
+    *
+    * @param database database
+    * @param projectID project ID
+    * @param calendarID calendar unique ID
+    * @param day day index, or zero for an exception
+    * @param working true if this is a working day
+    * @param from start date or time
+    * @param to end date or time
+    */
+   private void addCalendarData(FakeDatabase database, int projectID, int calendarID, int day, boolean working, Date from, Date to)
+   {
+      String fromColumn = day == 0 ? "CD_FROM_DATE" : "CD_FROM_TIME1";
+      String toColumn = day == 0 ? "CD_TO_DATE" : "CD_TO_TIME1";
+      database.add("MSP_CALENDAR_DATA", "PROJ_ID", Integer.valueOf(projectID), "CAL_UID", Integer.valueOf(calendarID), "CD_DAY_OR_EXCEPTION", Integer.valueOf(day), "CD_WORKING", Integer.valueOf(working ? 1 : 0), fromColumn, timestamp(from), toColumn, timestamp(to));
+   }
+
+   /**
+    * Create a date.
+    *
+    * @param year year
+    * @param month month
+    * @param day day of month
+    * @param hour hour of day
+    * @return date
+    */
+   private Date date(int year, int month, int day, int hour)
+   {
+      Calendar calendar = Calendar.getInstance();
+      calendar.clear();
+      calendar.set(year, month, day, hour, 0, 0);
+      return calendar.getTime();
+   }
+
+   /**
+    * Convert a date to a timestamp.
+    *
+    * @param date date
+    * @return timestamp
+    */
+   private Timestamp timestamp(Date date)
+   {
+      return date == null ? null : new Timestamp(date.getTime());
+   }
+
+   /**
+    * In-memory tables exposed through JDBC proxies. Queries are answered
+    * with all of the columns of the table named in the FROM clause,
+    * filtered by PROJ_ID where the query has a PROJ_ID bind variable.
+    */
+   private static final class FakeDatabase
+   {
+      /**
+       * Add a row to a table.
+       *
+       * @param table table name
+       * @param values column names and values
+       */
+      public void add(String table, Object... values)
+      {
+         List<Map<String, Object>> rows = m_tables.get(table);
+         if (rows == null)
+         {
+            rows = new ArrayList<Map<String, Object>>();
+            m_tables.put(table, rows);
+         }
+
+         Map<String, Object> row = new LinkedHashMap<String, Object>();
+         for (int index = 0; index < values.length; index += 2)
+         {
+            row.put((String) values[index], values[index + 1]);
+         }
+         rows.add(row);
+      }
+
+      /**
+       * Retrieve a connection to this database.
+       *
+       * @return connection
+       */
+      public Connection getConnection()
+      {
+         return (Connection) proxy(Connection.class, new InvocationHandler()
+         {
+            @Override public Object invoke(Object proxy, Method method, Object[] args)
+            {
+               String name = method.getName();
+               if (name.equals("prepareStatement"))
+               {
+                  ++m_preparedCount;
+                  ++m_openStatementCount;
+                  m_statements.add((String) args[0]);
+                  return createStatement((String) args[0]);
+               }
+
+               if (name.equals("getMetaData"))
+               {
+                  return proxy(DatabaseMetaData.class, new InvocationHandler()
+                  {
+                     @Override public Object invoke(Object proxy, Method method, Object[] args)
+                     {
+                        return method.getName().equals("getTables") ? createResultSet(null, new ArrayList<Map<String, Object>>()) : null;
+                     }
+                  });
+               }
+
+               if (name.equals("close"))
+               {
+                  m_connectionClosed = true;
+               }
+               return null;
+            }
+         });
+      }
+
+      /**
+       * Create a prepared statement.
+       *
+       * @param sql query statement
+       * @return prepared statement
+       */
+      Object createStatement(final String sql)
+      {
+         final Map<Integer, Integer> parameters = new HashMap<Integer, Integer>();
+         return proxy(PreparedStatement.class, new InvocationHandler()
+         {
+            @Override public Object invoke(Object proxy, Method method, Object[] args)
+            {
+               String name = method.getName();
+               if (name.equals("setInt"))
+               {
+                  parameters.put((Integer) args[0], (Integer) args[1]);
+               }
+
+               if (name.equals("setFetchSize"))
+               {
+                  ++m_fetchSizeCount;
+               }
+
+               if (name.equals("close"))
+               {
+                  --m_openStatementCount;
+               }
+
+               if (name.equals("executeQuery"))
+               {
+                  ++m_executedCount;
+                  Matcher matcher = TABLE_NAME.matcher(sql);
+                  String table = matcher.find() ? matcher.group(1) : null;
+                  return createResultSet(table, select(table, sql, parameters.get(Integer.valueOf(1))));
+               }
+               return null;
+            }
+         });
+      }
+
+      /**
+       * Select the rows for a query.
+       *
+       * @param table table name
+       * @param sql query statement
+       * @param projectID project ID bind variable
+       * @return rows
+       */
+      List<Map<String, Object>> select(String table, String sql, Integer projectID)
+      {
+         List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+         if (m_tables.containsKey(table))
+         {
+            boolean filter = sql.contains("PROJ_ID=?");
+            for (Map<String, Object> row : m_tables.get(table))
+            {
+               if (!filter || row.get("PROJ_ID").equals(projectID))
+               {
+                  result.add(row);
+               }
+            }
+         }
+         return result;
+      }
+
+      /**
+       * Create a result set. Columns in the table schema which have
+       * no value in any of the rows are returned as nulls.
+       *
+       * @param table table name
+       * @param rows rows
+       * @return result set
+       */
+      Object createResultSet(String table, final List<Map<String, Object>> rows)
+      {
+         final Map<String, Integer> columns = new LinkedHashMap<String, Integer>();
+         String schema = SCHEMA.get(table);
+         if (schema != null)
+         {
+            for (String column : schema.split(" "))
+            {
+               columns.put(column, Integer.valueOf(Types.VARCHAR));
+            }
+         }
+
+         for (Map<String, Object> row : rows)
+         {
+            for (Map.Entry<String, Object> entry : row.entrySet())
+            {
+               if (entry.getValue() != null)
+               {
+                  columns.put(entry.getKey(), Integer.valueOf(getType(entry.getValue())));
+               }
+            }
+         }
+         final List<String> names = new ArrayList<String>(columns.keySet());
+
+         return proxy(ResultSet.class, new InvocationHandler()
+         {
+            @Override public Object invoke(Object proxy, Method method, Object[] args)
+            {
+               String name = method.getName();
+               if (name.equals("next"))
+               {
+                  return Boolean.valueOf(++m_index < rows.size());
+               }
+
+               if (name.equals("getMetaData"))
+               {
+                  return proxy(ResultSetMetaData.class, new InvocationHandler()
+                  {
+                     @Override public Object invoke(Object proxy, Method method, Object[] args)
+                     {
+                        String name = method.getName();
+                        if (name.equals("getColumnCount"))
+                        {
+                           return Integer.valueOf(names.size());
+                        }
+
+                        if (name.equals("getColumnName"))
+                        {
+                           return names.get(((Integer) args[0]).intValue() - 1);
+                        }
+
+                        if (name.equals("getColumnType"))
+                        {
+                           return columns.get(names.get(((Integer) args[0]).intValue() - 1));
+                        }
+                        return null;
+                     }
+                  });
+               }
+
+               if (name.equals("wasNull"))
+               {
+                  return Boolean.valueOf(m_lastValue == null);
+               }
+
+               if (name.startsWith("get") && args != null && args[0] instanceof String)
+               {
+                  m_lastValue = rows.get(m_index).get(args[0]);
+                  if (name.equals("getInt"))
+                  {
+                     return Integer.valueOf(m_lastValue == null ? 0 : ((Integer) m_lastValue).intValue());
+                  }
+
+                  if (name.equals("getBoolean"))
+                  {
+                     return Boolean.valueOf(m_lastValue != null && ((Boolean) m_lastValue).booleanValue());
+                  }
+                  return m_lastValue;
+               }
+               return null;
+            }
+
+            private int m_index = -1;
+            private Object m_lastValue;
+         });
+      }
+
+      /**
+       * Determine the SQL type of a value.
+       *
+       * @param value value
+       * @return SQL type
+       */
+      private int getType(Object value)
+      {
+         if (value instanceof Integer)
+         {
+            return Types.INTEGER;
+         }
+
+         if (value instanceof Boolean)
+         {
+            return Types.BIT;
+         }
+
+         if (value instanceof Date)
+         {
+            return Types.TIMESTAMP;
+         }
+         return Types.VARCHAR;
+      }
+
+      /**
+       * Create a proxy implementing a JDBC interface.
+       *
+       * @param type interface
+       * @param handler invocation handler
+       * @return proxy
+       */
+      Object proxy(Class<?> type, InvocationHandler handler)
+      {
+         return Proxy.newProxyInstance(MpdDatabaseReaderTest.class.getClassLoader(), new Class<?>[]
+         {
+            type
+         }, handler);
+      }
+
+      final Map<String, List<Map<String, Object>>> m_tables = new HashMap<String, List<Map<String, Object>>>();
+      final Set<String> m_statements = new HashSet<String>();
+      int m_preparedCount;
+      int m_openStatementCount;
+      int m_executedCount;
+      int m_fetchSizeCount;
+      boolean m_connectionClosed;
+
+      private static final Pattern TABLE_NAME = Pattern.compile("FROM (\\w+)");
+   }
+
+   /**
+    * Columns read from each table, other than those supplied
+    * in the sample rows.
+    */
+   private static final Map<String, String> SCHEMA = new HashMap<String, String>();
+   static
+   {
+      SCHEMA.put("MSP_PROJECTS", "PROJ_ACTUALS_SYNCH PROJ_ADMINPROJECT PROJ_CREATION_DATE PROJ_CREATION_DATE_EX PROJ_EXT_EDITED_FLAG " +
+         "PROJ_ID PROJ_INFO_CAL_NAME PROJ_INFO_CURRENT_DATE PROJ_INFO_FINISH_DATE PROJ_INFO_SCHED_FROM " +
+         "PROJ_INFO_START_DATE PROJ_INFO_STATUS_DATE PROJ_LAST_SAVED PROJ_NAME PROJ_OPT_CRITICAL_SLACK_LIMIT " +
+         "PROJ_OPT_CURRENCY_DIGITS PROJ_OPT_CURRENCY_POSITION PROJ_OPT_CURRENCY_SYMBOL " +
+         "PROJ_OPT_DAYS_PER_MONTH PROJ_OPT_DEF_FINISH_TIME PROJ_OPT_DEF_FIX_COST_ACCRUAL " +
+         "PROJ_OPT_DEF_OVT_RATE PROJ_OPT_DEF_START_TIME PROJ_OPT_DEF_STD_RATE PROJ_OPT_DEF_TASK_TYPE " +
+         "PROJ_OPT_DUR_ENTRY_FMT PROJ_OPT_FY_START_MONTH PROJ_OPT_FY_USE_START_YR PROJ_OPT_HONOR_CONSTRAINTS " +
+         "PROJ_OPT_MINUTES_PER_DAY PROJ_OPT_MINUTES_PER_WEEK PROJ_OPT_MULT_CRITICAL_PATHS " +
+         "PROJ_OPT_NEW_ARE_EFFORT_DRIVEN PROJ_OPT_NEW_TASK_EST PROJ_OPT_SPLIT_IN_PROGRESS " +
+         "PROJ_OPT_SPREAD_ACT_COSTS PROJ_OPT_SPREAD_PCT_COMP PROJ_OPT_TASK_UPDATES_RES " +
+         "PROJ_OPT_WEEK_START_DAY PROJ_OPT_WORK_ENTRY_FMT PROJ_PROP_AUTHOR PROJ_PROP_CATEGORY " +
+         "PROJ_PROP_COMPANY PROJ_PROP_KEYWORDS PROJ_PROP_MANAGER PROJ_PROP_SUBJECT PROJ_PROP_TITLE");
+      SCHEMA.put("MSP_TASKS", "TASK_ACT_COST TASK_ACT_DUR TASK_ACT_FINISH TASK_ACT_OVT_COST TASK_ACT_OVT_WORK TASK_ACT_START " +
+         "TASK_ACT_WORK TASK_ACWP TASK_BAR_IS_HIDDEN TASK_BASE_COST TASK_BASE_DUR TASK_BASE_FINISH " +
+         "TASK_BASE_START TASK_BASE_WORK TASK_BCWP TASK_BCWS TASK_CAL_UID TASK_CONSTRAINT_DATE " +
+         "TASK_CONSTRAINT_TYPE TASK_COST TASK_CREATION_DATE TASK_DEADLINE TASK_DUR TASK_DUR_FMT " +
+         "TASK_DUR_IS_EST TASK_DUR_VAR TASK_EARLY_FINISH TASK_EARLY_START TASK_FINISH_DATE TASK_FINISH_VAR " +
+         "TASK_FIXED_COST TASK_FIXED_COST_ACCRUAL TASK_FREE_SLACK TASK_HAS_LINKED_FIELDS TASK_ID " +
+         "TASK_IGNORES_RES_CAL TASK_IS_COLLAPSED TASK_IS_CRITICAL TASK_IS_EFFORT_DRIVEN TASK_IS_EXTERNAL " +
+         "TASK_IS_MARKED TASK_IS_MILESTONE TASK_IS_OVERALLOCATED TASK_IS_RECURRING TASK_IS_ROLLED_UP " +
+         "TASK_IS_SUMMARY TASK_LATE_FINISH TASK_LATE_START TASK_LEVELING_ADJUSTS_ASSN TASK_LEVELING_CAN_SPLIT " +
+         "TASK_LEVELING_DELAY TASK_LEVELING_DELAY_FMT TASK_NAME TASK_NUM_OBJECTS TASK_OUTLINE_LEVEL " +
+         "TASK_OUTLINE_NUM TASK_OVT_COST TASK_PCT_COMP TASK_PCT_WORK_COMP TASK_PRELEVELED_FINISH " +
+         "TASK_PRELEVELED_START TASK_PRIORITY TASK_REG_WORK TASK_REM_COST TASK_REM_DUR TASK_REM_OVT_COST " +
+         "TASK_REM_OVT_WORK TASK_REM_WORK TASK_RESUME_DATE TASK_RTF_NOTES TASK_START_DATE TASK_START_VAR " +
+         "TASK_STOP_DATE TASK_TOTAL_SLACK TASK_TYPE TASK_UID TASK_WBS TASK_WORK");
+      SCHEMA.put("MSP_CALENDARS", "CAL_BASE_UID CAL_IS_BASE_CAL CAL_NAME CAL_UID RES_UID");
+      SCHEMA.put("MSP_CALENDAR_DATA", "CD_DAY_OR_EXCEPTION CD_FROM_DATE CD_FROM_TIME1 CD_FROM_TIME2 CD_FROM_TIME3 CD_FROM_TIME4 " +
+         "CD_FROM_TIME5 CD_TO_DATE CD_TO_TIME1 CD_TO_TIME2 CD_TO_TIME3 CD_TO_TIME4 CD_TO_TIME5 CD_WORKING");
+   }
+}
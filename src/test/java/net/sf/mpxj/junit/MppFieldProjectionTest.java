@@ -0,0 +1,133 @@
+/*
+ * file:       MppFieldProjectionTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.mpp.MPPReader;
+
+/**
+ * Tests to ensure that restricting the fields read from an MPP file
+ * gives the same values for the requested fields, and omits the rest.
+ */
+public class MppFieldProjectionTest
+{
+   /**
+    * Test an MPP9 file.
+    */
+   @Test public void testMpp9() throws Exception
+   {
+      testFieldProjection("mpp9assignmentfields.mpp");
+   }
+
+   /**
+    * Test an MPP12 file.
+    */
+   @Test public void testMpp12() throws Exception
+   {
+      testFieldProjection("mpp12assignmentfields.mpp");
+   }
+
+   /**
+    * Test an MPP14 file.
+    */
+   @Test public void testMpp14() throws Exception
+   {
+      testFieldProjection("mpp14assignmentfields.mpp");
+   }
+
+   /**
+    * Read a file with and without a field projection and compare the results.
+    *
+    * @param fileName file name
+    */
+   private void testFieldProjection(String fileName) throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      ProjectFile expected = reader.read(MpxjTestData.filePath(fileName));
+      assertEquals(0, reader.getSkippedFieldReadCount());
+
+      reader.setReadFields(FIELDS);
+      ProjectFile actual = reader.read(MpxjTestData.filePath(fileName));
+      assertTrue(reader.getSkippedFieldReadCount() > 0);
+
+      List<Task> expectedTasks = expected.getTasks();
+      List<Task> actualTasks = actual.getTasks();
+      assertEquals(expectedTasks.size(), actualTasks.size());
+      for (int index = 0; index < expectedTasks.size(); index++)
+      {
+         Task expectedTask = expectedTasks.get(index);
+         Task actualTask = actualTasks.get(index);
+         assertEquals(expectedTask.getUniqueID(), actualTask.getUniqueID());
+         assertEquals(expectedTask.getOutlineNumber(), actualTask.getOutlineNumber());
+         assertEquals(expectedTask.getCost(), actualTask.getCost());
+         assertEquals(expectedTask.getPercentageComplete(), actualTask.getPercentageComplete());
+         assertNull(actualTask.getCachedValue(TaskField.BCWS));
+         assertNull(actualTask.getCachedValue(TaskField.FIXED_COST));
+      }
+
+      List<Resource> expectedResources = expected.getResources();
+      List<Resource> actualResources = actual.getResources();
+      assertEquals(expectedResources.size(), actualResources.size());
+      for (int index = 0; index < expectedResources.size(); index++)
+      {
+         Resource expectedResource = expectedResources.get(index);
+         Resource actualResource = actualResources.get(index);
+         assertEquals(expectedResource.getUniqueID(), actualResource.getUniqueID());
+         assertEquals(expectedResource.getInitials(), actualResource.getInitials());
+         assertNull(actualResource.getCachedValue(ResourceField.WORK));
+      }
+
+      List<ResourceAssignment> expectedAssignments = expected.getResourceAssignments();
+      List<ResourceAssignment> actualAssignments = actual.getResourceAssignments();
+      assertEquals(expectedAssignments.size(), actualAssignments.size());
+      for (int index = 0; index < expectedAssignments.size(); index++)
+      {
+         ResourceAssignment expectedAssignment = expectedAssignments.get(index);
+         ResourceAssignment actualAssignment = actualAssignments.get(index);
+         assertEquals(expectedAssignment.getUniqueID(), actualAssignment.getUniqueID());
+         assertEquals(expectedAssignment.getCost(), actualAssignment.getCost());
+         assertNull(actualAssignment.getCachedValue(AssignmentField.BCWS));
+      }
+
+      reader.setReadFields(null);
+      reader.read(MpxjTestData.filePath(fileName));
+      assertEquals(0, reader.getSkippedFieldReadCount());
+   }
+
+   private static final List<FieldType> FIELDS = Arrays.<FieldType> asList(TaskField.COST, TaskField.PERCENT_COMPLETE, ResourceField.INITIALS, AssignmentField.COST);
+}
@@ -0,0 +1,101 @@
+/*
+ * file:       MppFileReadTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.diff.ProjectChange;
+import net.sf.mpxj.diff.ProjectDiff;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+/**
+ * Tests to ensure that reading an MPP file directly from a file gives
+ * the same results as reading it from a stream.
+ */
+public class MppFileReadTest
+{
+   /**
+    * Test an MPP9 file.
+    */
+   @Test public void testMpp9() throws Exception
+   {
+      testFileRead("mpp9embedded.mpp");
+   }
+
+   /**
+    * Test an MPP12 file.
+    */
+   @Test public void testMpp12() throws Exception
+   {
+      testFileRead("mpp12embedded.mpp");
+   }
+
+   /**
+    * Test an MPP14 file.
+    */
+   @Test public void testMpp14() throws Exception
+   {
+      testFileRead("mpp14embedded.mpp");
+   }
+
+   /**
+    * Read a file from a stream, via MPPReader.read(File), and via
+    * UniversalProjectReader.read(File) and compare the results.
+    *
+    * @param fileName file name
+    */
+   private void testFileRead(String fileName) throws Exception
+   {
+      File file = new File(MpxjTestData.filePath(fileName));
+      ProjectFile expected;
+      InputStream is = new FileInputStream(file);
+      try
+      {
+         expected = new MPPReader().read(is);
+      }
+
+      finally
+      {
+         is.close();
+      }
+
+      ProjectFile actual = new MPPReader().read(file);
+      List<ProjectChange> changes = new ProjectDiff().compare(expected, actual);
+      assertTrue(changes.toString(), changes.isEmpty());
+
+      actual = new UniversalProjectReader().read(file);
+      assertNotNull(actual);
+      changes = new ProjectDiff().compare(expected, actual);
+      assertTrue(changes.toString(), changes.isEmpty());
+   }
+}
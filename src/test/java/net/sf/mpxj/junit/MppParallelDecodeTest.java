@@ -0,0 +1,93 @@
+/*
+ * file:       MppParallelDecodeTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.diff.ProjectChange;
+import net.sf.mpxj.diff.ProjectDiff;
+import net.sf.mpxj.mpp.MPPReader;
+
+/**
+ * Tests to ensure that decoding MPP rows in parallel produces
+ * the same project as decoding them sequentially.
+ */
+public class MppParallelDecodeTest
+{
+   /**
+    * Test a file with tasks and assignments.
+    */
+   @Test public void testAssignments() throws Exception
+   {
+      testParallelDecode("mpp14assignmentfields.mpp");
+   }
+
+   /**
+    * Test a file with enterprise custom fields.
+    */
+   @Test public void testEnterprise() throws Exception
+   {
+      testParallelDecode("mpp14enterprise.mpp");
+   }
+
+   /**
+    * Test a file with null tasks.
+    */
+   @Test public void testNullTasks() throws Exception
+   {
+      testParallelDecode("mpp14nulltasks.mpp");
+   }
+
+   /**
+    * Read a file sequentially and in parallel and compare the results.
+    *
+    * @param fileName file name
+    */
+   private void testParallelDecode(String fileName) throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      ProjectFile expected = reader.read(MpxjTestData.filePath(fileName));
+
+      reader.setDecodeThreadCount(4);
+      ProjectFile actual = reader.read(MpxjTestData.filePath(fileName));
+
+      List<Task> expectedTasks = expected.getTasks();
+      List<Task> actualTasks = actual.getTasks();
+      assertEquals(expectedTasks.size(), actualTasks.size());
+      for (int index = 0; index < expectedTasks.size(); index++)
+      {
+         assertEquals(expectedTasks.get(index).getID(), actualTasks.get(index).getID());
+         assertEquals(expectedTasks.get(index).getOutlineNumber(), actualTasks.get(index).getOutlineNumber());
+      }
+
+      List<ProjectChange> changes = new ProjectDiff().compare(expected, actual);
+      assertTrue(changes.toString(), changes.isEmpty());
+   }
+}
@@ -0,0 +1,290 @@
+/*
+ * file:       MpxjConvertServerTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.sf.mpxj.json.JsonWriter;
+import net.sf.mpxj.mpx.MPXReader;
+import net.sf.mpxj.sample.MpxjConvertServer;
+
+/**
+ * Tests to exercise the conversion server.
+ */
+public class MpxjConvertServerTest
+{
+   /**
+    * Convert files supplied by path and by content, and report errors,
+    * in a single session.
+    */
+   @Test public void testServe() throws Exception
+   {
+      String fileName = MpxjTestData.filePath("legacy/sample.mpx");
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      new JsonWriter().write(new MPXReader().read(fileName), expected);
+
+      ByteArrayOutputStream requests = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(requests);
+      writeRequest(output, 1, MpxjConvertServer.REQUEST_PATH, fileName.getBytes("UTF-8"));
+      writeRequest(output, 2, MpxjConvertServer.REQUEST_DATA, readFile(fileName));
+      writeRequest(output, 3, MpxjConvertServer.REQUEST_DATA, "not a schedule".getBytes("UTF-8"));
+      writeRequest(output, 4, MpxjConvertServer.REQUEST_PATH, fileName.getBytes("UTF-8"));
+
+      ByteArrayOutputStream responses = new ByteArrayOutputStream();
+      MpxjConvertServer server = new MpxjConvertServer(2);
+      try
+      {
+         server.serve(new ByteArrayInputStream(requests.toByteArray()), responses);
+      }
+
+      finally
+      {
+         server.shutdown();
+      }
+
+      Map<Integer, ByteArrayOutputStream> json = new HashMap<Integer, ByteArrayOutputStream>();
+      Map<Integer, String> errors = new HashMap<Integer, String>();
+      int completed = readResponses(responses.toByteArray(), json, errors);
+
+      assertEquals(3, completed);
+      assertEquals(1, errors.size());
+      assertTrue(errors.get(Integer.valueOf(3)).startsWith("Conversion Error: "));
+      assertTrue(errors.get(Integer.valueOf(3)).contains("Unsupported file type"));
+
+      String expectedJson = expected.toString("UTF-8");
+      assertEquals(expectedJson, json.get(Integer.valueOf(1)).toString("UTF-8"));
+      assertEquals(expectedJson, json.get(Integer.valueOf(2)).toString("UTF-8"));
+      assertEquals(expectedJson, json.get(Integer.valueOf(4)).toString("UTF-8"));
+   }
+
+   /**
+    * Ensure that requests with an invalid payload length are rejected
+    * without stopping the server.
+    */
+   @Test public void testInvalidLength() throws Exception
+   {
+      String fileName = MpxjTestData.filePath("legacy/sample.mpx");
+      byte[] path = fileName.getBytes("UTF-8");
+
+      ByteArrayOutputStream requests = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(requests);
+      writeRequest(output, 1, MpxjConvertServer.REQUEST_DATA, readFile(fileName));
+      writeRequest(output, 2, MpxjConvertServer.REQUEST_PATH, path);
+      output.writeInt(3);
+      output.writeByte(MpxjConvertServer.REQUEST_DATA);
+      output.writeInt(-1);
+      writeRequest(output, 4, MpxjConvertServer.REQUEST_PATH, path);
+
+      ByteArrayOutputStream responses = new ByteArrayOutputStream();
+      MpxjConvertServer server = new MpxjConvertServer(1);
+      server.setMaximumPayloadSize(path.length);
+      try
+      {
+         server.serve(new ByteArrayInputStream(requests.toByteArray()), responses);
+      }
+
+      finally
+      {
+         server.shutdown();
+      }
+
+      Map<Integer, ByteArrayOutputStream> json = new HashMap<Integer, ByteArrayOutputStream>();
+      Map<Integer, String> errors = new HashMap<Integer, String>();
+      int completed = readResponses(responses.toByteArray(), json, errors);
+
+      // The oversized request is skipped, and the following request is converted
+      assertTrue(errors.get(Integer.valueOf(1)).startsWith("Conversion Error: Payload length"));
+      assertEquals(1, completed);
+      assertTrue(json.containsKey(Integer.valueOf(2)));
+
+      // No further requests are read once a negative length is seen
+      assertTrue(errors.get(Integer.valueOf(3)).startsWith("Conversion Error: Invalid payload length"));
+      assertEquals(2, errors.size());
+      assertEquals(1, json.size());
+   }
+
+   /**
+    * Ensure that an Error raised during a conversion is reported
+    * to the client as an error frame.
+    */
+   @Test public void testConversionError() throws Exception
+   {
+      String fileName = MpxjTestData.filePath("legacy/sample.mpx");
+
+      ByteArrayOutputStream requests = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(requests);
+      writeRequest(output, 1, MpxjConvertServer.REQUEST_PATH, fileName.getBytes("UTF-8"));
+
+      // The first write fails with an Error, later writes succeed
+      final ByteArrayOutputStream responses = new ByteArrayOutputStream();
+      OutputStream os = new FilterOutputStream(responses)
+      {
+         @Override public void write(byte[] b, int off, int len) throws IOException
+         {
+            if (!m_failed)
+            {
+               m_failed = true;
+               throw new AssertionError("Write failed");
+            }
+            responses.write(b, off, len);
+         }
+
+         private boolean m_failed;
+      };
+
+      MpxjConvertServer server = new MpxjConvertServer(1);
+      try
+      {
+         server.serve(new ByteArrayInputStream(requests.toByteArray()), os);
+      }
+
+      finally
+      {
+         server.shutdown();
+      }
+
+      Map<Integer, ByteArrayOutputStream> json = new HashMap<Integer, ByteArrayOutputStream>();
+      Map<Integer, String> errors = new HashMap<Integer, String>();
+      int completed = readResponses(responses.toByteArray(), json, errors);
+
+      assertEquals(0, completed);
+      assertTrue(errors.get(Integer.valueOf(1)).startsWith("Conversion Error: java.lang.AssertionError: Write failed"));
+   }
+
+   /**
+    * Read response frames, collecting the JSON and error
+    * messages for each request.
+    *
+    * @param data response data
+    * @param json JSON documents by request ID
+    * @param errors error messages by request ID
+    * @return number of completed JSON documents
+    */
+   private int readResponses(byte[] data, Map<Integer, ByteArrayOutputStream> json, Map<Integer, String> errors) throws Exception
+   {
+      int completed = 0;
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+      while (true)
+      {
+         Integer requestID;
+         try
+         {
+            requestID = Integer.valueOf(input.readInt());
+         }
+
+         catch (EOFException ex)
+         {
+            break;
+         }
+
+         byte type = input.readByte();
+         byte[] payload = new byte[input.readInt()];
+         input.readFully(payload);
+
+         switch (type)
+         {
+            case MpxjConvertServer.RESPONSE_JSON:
+            {
+               if (!json.containsKey(requestID))
+               {
+                  json.put(requestID, new ByteArrayOutputStream());
+               }
+               json.get(requestID).write(payload);
+               break;
+            }
+
+            case MpxjConvertServer.RESPONSE_END:
+            {
+               ++completed;
+               break;
+            }
+
+            case MpxjConvertServer.RESPONSE_ERROR:
+            {
+               errors.put(requestID, new String(payload, "UTF-8"));
+               break;
+            }
+
+            default:
+            {
+               fail("Unexpected frame type " + type);
+            }
+         }
+      }
+      return completed;
+   }
+
+   /**
+    * Write a request frame.
+    *
+    * @param output output stream
+    * @param requestID request ID
+    * @param type request type
+    * @param payload request payload
+    */
+   private void writeRequest(DataOutputStream output, int requestID, byte type, byte[] payload) throws Exception
+   {
+      output.writeInt(requestID);
+      output.writeByte(type);
+      output.writeInt(payload.length);
+      output.write(payload);
+   }
+
+   /**
+    * Read the content of a file.
+    *
+    * @param fileName file name
+    * @return file content
+    */
+   private byte[] readFile(String fileName) throws Exception
+   {
+      byte[] data = new byte[(int) new File(fileName).length()];
+      DataInputStream input = new DataInputStream(new FileInputStream(fileName));
+      try
+      {
+         input.readFully(data);
+      }
+
+      finally
+      {
+         input.close();
+      }
+      return data;
+   }
+}
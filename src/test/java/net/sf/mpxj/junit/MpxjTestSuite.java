@@ -35,6 +35,7 @@ import net.sf.mpxj.junit.calendar.InvalidCalendarTest;
 import net.sf.mpxj.junit.calendar.RecurringExceptionsTest;
 import net.sf.mpxj.junit.legacy.BasicTest;
 import net.sf.mpxj.junit.primavera.PrimaveraDatabaseReaderTest;
+import net.sf.mpxj.junit.primavera.PrimaveraXERFileReaderTest;
 import net.sf.mpxj.junit.project.DataLinksTest;
 import net.sf.mpxj.junit.project.DefaultDurationFormatTest;
 import net.sf.mpxj.junit.project.ProjectPropertiesOnlyTest;
@@ -148,7 +149,32 @@ import net.sf.mpxj.junit.task.TaskTextValuesTest;
    RecurringDataTest.class,
    DataLinksTest.class,
    LocaleDataTest.class,
-   CustomerDataTest.class
+   CustomerDataTest.class,
+   GroupUtilityTest.class,
+   ProjectDiffTest.class,
+   SnapshotTest.class,
+   CachingProjectReaderTest.class,
+   ResourceLoadingTest.class,
+   MppFieldProjectionTest.class,
+   MppParallelDecodeTest.class,
+   MppFileReadTest.class,
+   ValuePoolTest.class,
+   RtfNotesTest.class,
+   PresentationDataLoaderTest.class,
+   TimephasedExportTest.class,
+   PrimaveraXERFileReaderTest.class,
+   ProjectStreamTest.class,
+   MpxjConvertServerTest.class,
+   JaxbContextRegistryTest.class,
+   AstaTextFileTest.class,
+   SynchroReaderTest.class,
+   FastTrackReaderTest.class,
+   SDEFReaderTest.class,
+   SqliteTableLoaderTest.class,
+   MerlinReaderTest.class,
+   AstaDatabaseFileTest.class,
+   ParallelHelperTest.class,
+   MpdDatabaseReaderTest.class
 }) public class MpxjTestSuite
 {
    // No class body required
@@ -0,0 +1,161 @@
+/*
+ * file:       ParallelHelperTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation; either version 2.1 of the License, or (at
+ * your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import net.sf.mpxj.common.ParallelHelper;
+
+/**
+ * Tests to exercise the ParallelHelper class.
+ */
+public class ParallelHelperTest
+{
+   /**
+    * Ensure that results are returned in task order.
+    */
+   @Test public void testOrder()
+   {
+      List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+      for (int index = 0; index < 100; index++)
+      {
+         tasks.add(createTask(Integer.valueOf(index), null));
+      }
+
+      List<Integer> result = ParallelHelper.invokeAll(4, tasks);
+      assertEquals(100, result.size());
+      for (int index = 0; index < 100; index++)
+      {
+         assertEquals(index, result.get(index).intValue());
+      }
+
+      assertTrue(ParallelHelper.invokeAll(4, new ArrayList<Callable<Integer>>()).isEmpty());
+   }
+
+   /**
+    * Ensure that exceptions raised by a task are reported unchanged
+    * where possible.
+    */
+   @Test public void testExceptions()
+   {
+      SQLException sqlException = new SQLException("SQL");
+      try
+      {
+         ParallelHelper.invokeAll(2, createTasks(sqlException), SQLException.class);
+         fail("Expected SQLException");
+      }
+
+      catch (SQLException ex)
+      {
+         assertSame(sqlException, ex);
+      }
+
+      IllegalStateException runtimeException = new IllegalStateException("Runtime");
+      try
+      {
+         ParallelHelper.invokeAll(2, createTasks(runtimeException));
+         fail("Expected IllegalStateException");
+      }
+
+      catch (IllegalStateException ex)
+      {
+         assertSame(runtimeException, ex);
+      }
+
+      AssertionError error = new AssertionError("Error");
+      try
+      {
+         ParallelHelper.invokeAll(2, createTasks(error));
+         fail("Expected AssertionError");
+      }
+
+      catch (AssertionError ex)
+      {
+         assertSame(error, ex);
+      }
+
+      IOException ioException = new IOException("IO");
+      try
+      {
+         ParallelHelper.invokeAll(2, createTasks(ioException));
+         fail("Expected RuntimeException");
+      }
+
+      catch (RuntimeException ex)
+      {
+         assertSame(ioException, ex.getCause());
+      }
+   }
+
+   /**
+    * Create a list of tasks, the second of which fails.
+    *
+    * @param failure exception or error raised by the second task
+    * @return list of tasks
+    */
+   private List<Callable<Integer>> createTasks(Throwable failure)
+   {
+      List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+      tasks.add(createTask(Integer.valueOf(0), null));
+      tasks.add(createTask(Integer.valueOf(1), failure));
+      tasks.add(createTask(Integer.valueOf(2), null));
+      return tasks;
+   }
+
+   /**
+    * Create a task which returns a value or raises an exception.
+    *
+    * @param value value to return
+    * @param failure exception or error to raise, or null
+    * @return new task
+    */
+   private Callable<Integer> createTask(final Integer value, final Throwable failure)
+   {
+      return new Callable<Integer>()
+      {
+         @Override public Integer call() throws Exception
+         {
+            if (failure instanceof Exception)
+            {
+               throw (Exception) failure;
+            }
+
+            if (failure instanceof Error)
+            {
+               throw (Error) failure;
+            }
+
+            return value;
+         }
+      };
+   }
+}
@@ -0,0 +1,200 @@
+/*
+ * file:       PresentationDataLoaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import net.sf.mpxj.PresentationDataLoader;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.FileHelper;
+import net.sf.mpxj.common.StreamHelper;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests to ensure that presentation data is loaded on demand.
+ */
+public class PresentationDataLoaderTest
+{
+   /**
+    * Ensure that each container is populated once, on first access.
+    *
+    * @throws Exception
+    */
+   @Test public void testLazyLoading() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      CountingLoader loader = new CountingLoader();
+      file.setPresentationDataLoader(loader);
+      assertEquals("", loader.m_calls.toString());
+
+      file.getFilters();
+      file.getFilters();
+      assertEquals("F", loader.m_calls.toString());
+
+      // Loading views accesses the tables
+      file.getViews();
+      assertEquals("FVT", loader.m_calls.toString());
+
+      file.getTables();
+      file.getGroups();
+      file.getGroups();
+      file.getViews();
+      assertEquals("FVTG", loader.m_calls.toString());
+   }
+
+   /**
+    * Ensure that presentation data read lazily from an MPP file matches
+    * the data in the file.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp14() throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp14viewstate.mpp"));
+      assertFalse(file.getTables().isEmpty());
+      assertFalse(file.getViews().isEmpty());
+      assertNotNull(file.getViews().getViewState());
+      assertEquals("Gantt Chart", file.getViews().getViewState().getViewName());
+      assertFalse(file.getFilters().getTaskFilters().isEmpty());
+   }
+
+   /**
+    * Ensure that presentation data is available once the file system
+    * opened by the UniversalProjectReader has been closed.
+    *
+    * @throws Exception
+    */
+   @Test public void testUniversalProjectReaderFile() throws Exception
+   {
+      ProjectFile file = new UniversalProjectReader().read(new File(MpxjTestData.filePath("mpp14viewstate.mpp")));
+      assertFalse(file.getViews().isEmpty());
+      assertFalse(file.getTables().isEmpty());
+      assertEquals("Gantt Chart", file.getViews().getViewState().getViewName());
+   }
+
+   /**
+    * Ensure that presentation data is not read from the original file
+    * once the project has been read, as the file may have been removed.
+    *
+    * @throws Exception
+    */
+   @Test public void testSourceFileRemoved() throws Exception
+   {
+      File copy = File.createTempFile("junit", ".mpp");
+
+      try
+      {
+         copyFile(new File(MpxjTestData.filePath("mpp14viewstate.mpp")), copy);
+         ProjectFile file = new MPPReader().read(copy);
+         FileHelper.delete(copy);
+
+         assertFalse(file.getTables().isEmpty());
+         assertFalse(file.getViews().isEmpty());
+         assertFalse(file.getFilters().getTaskFilters().isEmpty());
+      }
+
+      finally
+      {
+         FileHelper.deleteQuietly(copy);
+      }
+   }
+
+   /**
+    * Copy a file.
+    *
+    * @param source source file
+    * @param target target file
+    */
+   private void copyFile(File source, File target) throws IOException
+   {
+      FileInputStream is = new FileInputStream(source);
+      FileOutputStream os = new FileOutputStream(target);
+
+      try
+      {
+         byte[] buffer = new byte[8192];
+         int length;
+         while ((length = is.read(buffer)) != -1)
+         {
+            os.write(buffer, 0, length);
+         }
+      }
+
+      finally
+      {
+         StreamHelper.closeQuietly(is);
+         StreamHelper.closeQuietly(os);
+      }
+   }
+
+   /**
+    * Loader which records the order in which containers are populated.
+    */
+   private static final class CountingLoader implements PresentationDataLoader
+   {
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void loadTables(ProjectFile file)
+      {
+         m_calls.append('T');
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void loadViews(ProjectFile file)
+      {
+         m_calls.append('V');
+         file.getTables();
+         file.getViews();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void loadFilters(ProjectFile file)
+      {
+         m_calls.append('F');
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void loadGroups(ProjectFile file)
+      {
+         m_calls.append('G');
+      }
+
+      final StringBuilder m_calls = new StringBuilder();
+   }
+}
@@ -28,14 +28,18 @@ import static org.junit.Assert.*;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.TimeZone;
 
 import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarHours;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.mpp.MPPReader;
 
 import org.junit.Test;
@@ -710,4 +714,285 @@ public class ProjectCalendarTest
       //
       assertNull(cal.getStartTime(df.parse("11/10/2003 00:00")));
    }
+
+   /**
+    * Ensure that an end date falling part way through a working range
+    * is truncated rather than rounded.
+    *
+    * @throws Exception
+    */
+   @Test public void testFractionalMinutes() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar cal = file.addDefaultBaseCalendar();
+      ProjectCalendarHours hours = cal.addCalendarHours(Day.MONDAY);
+      hours.addRange(new DateRange(DateHelper.getTime(0, 0), DateHelper.getTime(8, 0)));
+
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+      Date startDate = df.parse("27/10/2003 00:00:00");
+
+      // 2.05 * 60000 is 122999.99999999999 as a double
+      assertEquals("27/10/2003 00:02:02", df.format(cal.getDate(startDate, Duration.getInstance(2.05, TimeUnit.MINUTES), false)));
+   }
+
+   /**
+    * Ensure that the methods working with minutes since the epoch
+    * give the expected results, including across daylight saving
+    * transitions and in time zones with half hour offsets. The expected
+    * values were captured from the Date based implementation.
+    *
+    * @throws Throwable
+    */
+   @Test public void testPrimitiveMethods() throws Throwable
+   {
+      testPrimitiveMethods("Europe/London", LONDON);
+      testPrimitiveMethods("America/St_Johns", ST_JOHNS);
+      testPrimitiveMethods("Asia/Kolkata", KOLKATA);
+      testPrimitiveMethods("Australia/Adelaide", ADELAIDE);
+   }
+
+   /**
+    * Run the primitive method tests with the supplied default time zone.
+    * The tests run on a new thread to ensure that none of the calendar
+    * instances cached by the current thread, which are bound to the
+    * original default time zone, are used.
+    *
+    * @param zone time zone ID
+    * @param expected expected values
+    * @throws Throwable
+    */
+   private void testPrimitiveMethods(String zone, final String[] expected) throws Throwable
+   {
+      TimeZone defaultZone = TimeZone.getDefault();
+      try
+      {
+         TimeZone.setDefault(TimeZone.getTimeZone(zone));
+         final Throwable[] error = new Throwable[1];
+         Thread thread = new Thread()
+         {
+            @Override public void run()
+            {
+               try
+               {
+                  testPrimitiveMethods(expected);
+               }
+
+               catch (Throwable ex)
+               {
+                  error[0] = ex;
+               }
+            }
+         };
+         thread.start();
+         thread.join();
+
+         if (error[0] != null)
+         {
+            throw error[0];
+         }
+      }
+
+      finally
+      {
+         TimeZone.setDefault(defaultZone);
+      }
+   }
+
+   /**
+    * Test the primitive methods against the expected values. Each row
+    * contains the start date, an offset in minutes, the work between the
+    * start date and the start date plus the offset, the finish date for
+    * the offset as a duration, the same finish date moved to the next work
+    * start, and the start date calculated back from the start date plus
+    * the offset.
+    *
+    * @param expected expected values
+    * @throws Exception
+    */
+   private void testPrimitiveMethods(String[] expected) throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar cal = file.addDefaultBaseCalendar();
+      for (Day day : new Day[]
+      {
+         Day.MONDAY,
+         Day.TUESDAY,
+         Day.WEDNESDAY,
+         Day.THURSDAY,
+         Day.FRIDAY
+      })
+      {
+         //
+         // The default working hours are created in the time zone which
+         // was current when they were first used, so create equivalent
+         // hours in the time zone under test.
+         //
+         ProjectCalendarHours hours = cal.addCalendarHours(day);
+         hours.addRange(new DateRange(DateHelper.getTime(8, 0), DateHelper.getTime(12, 0)));
+         hours.addRange(new DateRange(DateHelper.getTime(13, 0), DateHelper.getTime(17, 0)));
+      }
+
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectCalendarException exception = cal.addCalendarException(df.parse("28/10/2003 00:00"), df.parse("28/10/2003 23:59"));
+      exception.addRange(new DateRange(df.parse("28/10/2003 10:00"), df.parse("28/10/2003 12:30")));
+
+      for (String row : expected)
+      {
+         String[] values = row.split("\\|");
+         long startMinute = getMinute(df, values[0]);
+         long offset = Long.parseLong(values[1]);
+         long endMinute = startMinute + offset;
+
+         assertEquals(row, Long.parseLong(values[2]), cal.getWork(startMinute, endMinute));
+         assertEquals(row, getMinute(df, values[3]), cal.getDate(startMinute, offset, false));
+         assertEquals(row, getMinute(df, values[4]), cal.getDate(startMinute, offset, true));
+         assertEquals(row, getMinute(df, values[5]), cal.getStartDate(endMinute, offset));
+      }
+
+      assertEquals(0, cal.getWork(getMinute(df, "25/10/2003 00:00")));
+      assertEquals(0, cal.getWork(getMinute(df, "26/10/2003 00:00")));
+      assertEquals(480, cal.getWork(getMinute(df, "27/10/2003 00:00")));
+      assertEquals(150, cal.getWork(getMinute(df, "28/10/2003 00:00")));
+   }
+
+   /**
+    * Convert a formatted date to minutes since the epoch.
+    *
+    * @param df date format
+    * @param date formatted date
+    * @return minutes since the epoch
+    * @throws Exception
+    */
+   private long getMinute(DateFormat df, String date) throws Exception
+   {
+      return df.parse(date).getTime() / 60000;
+   }
+
+   /**
+    * Expected values for Europe/London (DST ends 26/10/2003).
+    */
+   private static final String[] LONDON =
+   {
+         "24/10/2003 08:00|30|30|24/10/2003 08:30|24/10/2003 08:30|24/10/2003 08:00",
+         "24/10/2003 08:00|480|420|24/10/2003 17:00|27/10/2003 08:00|23/10/2003 16:00",
+         "24/10/2003 08:00|1500|480|29/10/2003 15:30|29/10/2003 15:30|21/10/2003 16:00",
+         "24/10/2003 08:00|2880|480|03/11/2003 14:30|03/11/2003 14:30|17/10/2003 08:00",
+         "24/10/2003 08:00|4000|480|06/11/2003 08:10|06/11/2003 08:10|14/10/2003 14:20",
+         "24/10/2003 16:30|30|30|24/10/2003 17:00|27/10/2003 08:00|24/10/2003 16:30",
+         "24/10/2003 16:30|480|30|27/10/2003 16:30|27/10/2003 16:30|24/10/2003 08:00",
+         "24/10/2003 16:30|1500|30|30/10/2003 15:00|30/10/2003 15:00|21/10/2003 16:00",
+         "24/10/2003 16:30|2880|30|04/11/2003 14:00|04/11/2003 14:00|17/10/2003 08:00",
+         "24/10/2003 16:30|4000|160|06/11/2003 16:40|06/11/2003 16:40|14/10/2003 16:30",
+         "25/10/2003 12:00|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "25/10/2003 12:00|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "25/10/2003 12:00|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "25/10/2003 12:00|2880|180|04/11/2003 14:30|04/11/2003 14:30|17/10/2003 11:00",
+         "25/10/2003 12:00|4000|240|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 14:20",
+         "26/10/2003 01:30|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "26/10/2003 01:30|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "26/10/2003 01:30|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "26/10/2003 01:30|2880|480|04/11/2003 14:30|04/11/2003 14:30|20/10/2003 08:00",
+         "26/10/2003 01:30|4000|630|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 16:50",
+         "27/10/2003 09:15|30|30|27/10/2003 09:45|27/10/2003 09:45|27/10/2003 09:15",
+         "27/10/2003 09:15|480|405|28/10/2003 11:15|28/10/2003 11:15|27/10/2003 08:00",
+         "27/10/2003 09:15|1500|420|30/10/2003 16:45|30/10/2003 16:45|22/10/2003 16:15",
+         "27/10/2003 09:15|2880|630|04/11/2003 15:45|04/11/2003 15:45|20/10/2003 11:45",
+         "27/10/2003 09:15|4000|1035|07/11/2003 09:25|07/11/2003 09:25|16/10/2003 16:50"
+   };
+
+   /**
+    * Expected values for America/St_Johns (half hour offset, DST ends 26/10/2003).
+    */
+   private static final String[] ST_JOHNS =
+   {
+         "24/10/2003 08:00|30|30|24/10/2003 08:30|24/10/2003 08:30|24/10/2003 08:00",
+         "24/10/2003 08:00|480|420|24/10/2003 17:00|27/10/2003 08:00|23/10/2003 16:00",
+         "24/10/2003 08:00|1500|480|29/10/2003 15:30|29/10/2003 15:30|21/10/2003 16:00",
+         "24/10/2003 08:00|2880|480|03/11/2003 14:30|03/11/2003 14:30|17/10/2003 08:00",
+         "24/10/2003 08:00|4000|480|06/11/2003 08:10|06/11/2003 08:10|14/10/2003 14:20",
+         "24/10/2003 16:30|30|30|24/10/2003 17:00|27/10/2003 08:00|24/10/2003 16:30",
+         "24/10/2003 16:30|480|30|27/10/2003 16:30|27/10/2003 16:30|24/10/2003 08:00",
+         "24/10/2003 16:30|1500|30|30/10/2003 15:00|30/10/2003 15:00|21/10/2003 16:00",
+         "24/10/2003 16:30|2880|30|04/11/2003 14:00|04/11/2003 14:00|17/10/2003 08:00",
+         "24/10/2003 16:30|4000|160|06/11/2003 16:40|06/11/2003 16:40|14/10/2003 16:30",
+         "25/10/2003 12:00|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "25/10/2003 12:00|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "25/10/2003 12:00|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "25/10/2003 12:00|2880|180|04/11/2003 14:30|04/11/2003 14:30|17/10/2003 11:00",
+         "25/10/2003 12:00|4000|240|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 14:20",
+         "26/10/2003 01:30|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "26/10/2003 01:30|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "26/10/2003 01:30|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "26/10/2003 01:30|2880|480|04/11/2003 14:30|04/11/2003 14:30|20/10/2003 08:00",
+         "26/10/2003 01:30|4000|630|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 16:50",
+         "27/10/2003 09:15|30|30|27/10/2003 09:45|27/10/2003 09:45|27/10/2003 09:15",
+         "27/10/2003 09:15|480|405|28/10/2003 11:15|28/10/2003 11:15|27/10/2003 08:00",
+         "27/10/2003 09:15|1500|420|30/10/2003 16:45|30/10/2003 16:45|22/10/2003 16:15",
+         "27/10/2003 09:15|2880|630|04/11/2003 15:45|04/11/2003 15:45|20/10/2003 11:45",
+         "27/10/2003 09:15|4000|1035|07/11/2003 09:25|07/11/2003 09:25|16/10/2003 16:50"
+   };
+
+   /**
+    * Expected values for Asia/Kolkata (half hour offset, no DST).
+    */
+   private static final String[] KOLKATA =
+   {
+         "24/10/2003 08:00|30|30|24/10/2003 08:30|24/10/2003 08:30|24/10/2003 08:00",
+         "24/10/2003 08:00|480|420|24/10/2003 17:00|27/10/2003 08:00|23/10/2003 16:00",
+         "24/10/2003 08:00|1500|480|29/10/2003 15:30|29/10/2003 15:30|21/10/2003 16:00",
+         "24/10/2003 08:00|2880|480|03/11/2003 14:30|03/11/2003 14:30|17/10/2003 08:00",
+         "24/10/2003 08:00|4000|480|06/11/2003 08:10|06/11/2003 08:10|14/10/2003 14:20",
+         "24/10/2003 16:30|30|30|24/10/2003 17:00|27/10/2003 08:00|24/10/2003 16:30",
+         "24/10/2003 16:30|480|30|27/10/2003 16:30|27/10/2003 16:30|24/10/2003 08:00",
+         "24/10/2003 16:30|1500|30|30/10/2003 15:00|30/10/2003 15:00|21/10/2003 16:00",
+         "24/10/2003 16:30|2880|30|04/11/2003 14:00|04/11/2003 14:00|17/10/2003 08:00",
+         "24/10/2003 16:30|4000|220|06/11/2003 16:40|06/11/2003 16:40|15/10/2003 08:30",
+         "25/10/2003 12:00|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "25/10/2003 12:00|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "25/10/2003 12:00|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "25/10/2003 12:00|2880|240|04/11/2003 14:30|04/11/2003 14:30|17/10/2003 13:00",
+         "25/10/2003 12:00|4000|240|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 14:20",
+         "26/10/2003 01:30|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "26/10/2003 01:30|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "26/10/2003 01:30|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "26/10/2003 01:30|2880|480|04/11/2003 14:30|04/11/2003 14:30|20/10/2003 08:00",
+         "26/10/2003 01:30|4000|630|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 16:50",
+         "27/10/2003 09:15|30|30|27/10/2003 09:45|27/10/2003 09:45|27/10/2003 09:15",
+         "27/10/2003 09:15|480|405|28/10/2003 11:15|28/10/2003 11:15|27/10/2003 08:00",
+         "27/10/2003 09:15|1500|420|30/10/2003 16:45|30/10/2003 16:45|22/10/2003 16:15",
+         "27/10/2003 09:15|2880|630|04/11/2003 15:45|04/11/2003 15:45|20/10/2003 11:45",
+         "27/10/2003 09:15|4000|1035|07/11/2003 09:25|07/11/2003 09:25|16/10/2003 16:50"
+   };
+
+   /**
+    * Expected values for Australia/Adelaide (half hour offset, DST starts 26/10/2003).
+    */
+   private static final String[] ADELAIDE =
+   {
+         "24/10/2003 08:00|30|30|24/10/2003 08:30|24/10/2003 08:30|24/10/2003 08:00",
+         "24/10/2003 08:00|480|420|24/10/2003 17:00|27/10/2003 08:00|23/10/2003 16:00",
+         "24/10/2003 08:00|1500|480|29/10/2003 15:30|29/10/2003 15:30|21/10/2003 16:00",
+         "24/10/2003 08:00|2880|480|03/11/2003 14:30|03/11/2003 14:30|17/10/2003 08:00",
+         "24/10/2003 08:00|4000|480|06/11/2003 08:10|06/11/2003 08:10|14/10/2003 14:20",
+         "24/10/2003 16:30|30|30|24/10/2003 17:00|27/10/2003 08:00|24/10/2003 16:30",
+         "24/10/2003 16:30|480|30|27/10/2003 16:30|27/10/2003 16:30|24/10/2003 08:00",
+         "24/10/2003 16:30|1500|30|30/10/2003 15:00|30/10/2003 15:00|21/10/2003 16:00",
+         "24/10/2003 16:30|2880|30|04/11/2003 14:00|04/11/2003 14:00|17/10/2003 08:00",
+         "24/10/2003 16:30|4000|270|06/11/2003 16:40|06/11/2003 16:40|15/10/2003 09:20",
+         "25/10/2003 12:00|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "25/10/2003 12:00|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "25/10/2003 12:00|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "25/10/2003 12:00|2880|240|04/11/2003 14:30|04/11/2003 14:30|17/10/2003 13:00",
+         "25/10/2003 12:00|4000|240|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 14:20",
+         "26/10/2003 01:30|30|0|27/10/2003 08:30|27/10/2003 08:30|24/10/2003 16:30",
+         "26/10/2003 01:30|480|0|27/10/2003 17:00|28/10/2003 10:00|24/10/2003 08:00",
+         "26/10/2003 01:30|1500|0|30/10/2003 15:30|30/10/2003 15:30|21/10/2003 16:00",
+         "26/10/2003 01:30|2880|480|04/11/2003 14:30|04/11/2003 14:30|20/10/2003 08:00",
+         "26/10/2003 01:30|4000|630|07/11/2003 08:10|07/11/2003 08:10|15/10/2003 16:50",
+         "27/10/2003 09:15|30|30|27/10/2003 09:45|27/10/2003 09:45|27/10/2003 09:15",
+         "27/10/2003 09:15|480|405|28/10/2003 11:15|28/10/2003 11:15|27/10/2003 08:00",
+         "27/10/2003 09:15|1500|420|30/10/2003 16:45|30/10/2003 16:45|22/10/2003 16:15",
+         "27/10/2003 09:15|2880|630|04/11/2003 15:45|04/11/2003 15:45|20/10/2003 11:45",
+         "27/10/2003 09:15|4000|1035|07/11/2003 09:25|07/11/2003 09:25|16/10/2003 16:50"
+   };
 }
@@ -0,0 +1,278 @@
+/*
+ * file:       ProjectDiffTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       21/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.diff.ChangeType;
+import net.sf.mpxj.diff.EntityType;
+import net.sf.mpxj.diff.ProjectChange;
+import net.sf.mpxj.diff.ProjectDiff;
+
+/**
+ * Test to exercise ProjectDiff functionality.
+ */
+public class ProjectDiffTest
+{
+   /**
+    * Ensure that identical schedules produce no changes.
+    */
+   @Test public void testUnchanged() throws Exception
+   {
+      ProjectDiff diff = new ProjectDiff();
+      assertTrue(diff.compare(createProject(), createProject()).isEmpty());
+   }
+
+   /**
+    * Test detection of added, removed and modified entities.
+    */
+   @Test public void testChanges() throws Exception
+   {
+      ProjectFile oldFile = createProject();
+      ProjectFile newFile = createProject();
+
+      newFile.getTaskByUniqueID(Integer.valueOf(2)).setName("Renamed");
+      newFile.removeTask(newFile.getTaskByUniqueID(Integer.valueOf(3)));
+      newFile.addTask().setName("New Task");
+      newFile.getCalendarByUniqueID(Integer.valueOf(1)).setName("New Calendar Name");
+      Task task5 = newFile.getTaskByUniqueID(Integer.valueOf(5));
+      task5.removePredecessor(newFile.getTaskByUniqueID(Integer.valueOf(4)), RelationType.FINISH_START, null);
+      task5.addPredecessor(newFile.getTaskByUniqueID(Integer.valueOf(4)), RelationType.START_START, Duration.getInstance(1, TimeUnit.DAYS));
+
+      ProjectDiff diff = new ProjectDiff();
+      diff.setThreadCount(2);
+      List<ProjectChange> changes = diff.compare(oldFile, newFile);
+
+      assertChange(changes.get(0), EntityType.CALENDAR, ChangeType.MODIFIED, Integer.valueOf(1), "Name");
+      assertEquals("New Calendar Name", changes.get(0).getNewValue());
+
+      assertChange(changes.get(1), EntityType.TASK, ChangeType.MODIFIED, Integer.valueOf(2), "NAME");
+      assertEquals(TaskField.NAME, changes.get(1).getField());
+      assertEquals("Task 2", changes.get(1).getOldValue());
+      assertEquals("Renamed", changes.get(1).getNewValue());
+
+      int index = 2;
+      while (changes.get(index).getEntityType() == EntityType.TASK && changes.get(index).getChangeType() == ChangeType.MODIFIED)
+      {
+         // Removing task 3 renumbers the IDs of the following tasks
+         assertEquals(TaskField.ID, changes.get(index).getField());
+         ++index;
+      }
+
+      assertChange(changes.get(index++), EntityType.TASK, ChangeType.ADDED, Integer.valueOf(7), null);
+      assertChange(changes.get(index++), EntityType.TASK, ChangeType.REMOVED, Integer.valueOf(3), null);
+      assertChange(changes.get(index++), EntityType.RELATION, ChangeType.MODIFIED, null, "Type");
+      assertChange(changes.get(index++), EntityType.RELATION, ChangeType.MODIFIED, null, "Lag");
+      assertChange(changes.get(index++), EntityType.RELATION, ChangeType.REMOVED, null, null);
+      assertChange(changes.get(index++), EntityType.ASSIGNMENT, ChangeType.REMOVED, Integer.valueOf(1), null);
+      assertEquals(index, changes.size());
+   }
+
+   /**
+    * Test matching entities by GUID.
+    */
+   @Test public void testMatchByGUID() throws Exception
+   {
+      ProjectFile oldFile = createProject();
+      ProjectFile newFile = createProject();
+
+      UUID guid = UUID.randomUUID();
+      oldFile.getResourceByUniqueID(Integer.valueOf(1)).setGUID(guid);
+      Resource resource = newFile.getResourceByUniqueID(Integer.valueOf(1));
+      resource.setGUID(guid);
+      resource.setUniqueID(Integer.valueOf(10));
+
+      ProjectDiff diff = new ProjectDiff();
+      diff.setMatchByGUID(true);
+      List<ProjectChange> changes = diff.compare(oldFile, newFile);
+      assertEquals(2, changes.size());
+      assertChange(changes.get(0), EntityType.RESOURCE, ChangeType.MODIFIED, guid, "UNIQUE_ID");
+
+      // The assignment refers to the resource by its unique ID
+      assertChange(changes.get(1), EntityType.ASSIGNMENT, ChangeType.MODIFIED, Integer.valueOf(1), "RESOURCE_UNIQUE_ID");
+
+      diff.setMatchByGUID(false);
+      changes = diff.compare(oldFile, newFile);
+      assertChange(changes.get(0), EntityType.RESOURCE, ChangeType.ADDED, Integer.valueOf(10), null);
+      assertChange(changes.get(1), EntityType.RESOURCE, ChangeType.REMOVED, Integer.valueOf(1), null);
+   }
+
+   /**
+    * Ensure that a change to a list value is detected when the
+    * number of items in the list is unchanged.
+    */
+   @Test public void testListValues() throws Exception
+   {
+      ProjectFile oldFile = createProject();
+      ProjectFile newFile = createProject();
+
+      oldFile.getTaskByUniqueID(Integer.valueOf(4)).setSplits(createSplits(0));
+      newFile.getTaskByUniqueID(Integer.valueOf(4)).setSplits(createSplits(0));
+
+      ProjectDiff diff = new ProjectDiff();
+      assertTrue(diff.compare(oldFile, newFile).isEmpty());
+
+      newFile.getTaskByUniqueID(Integer.valueOf(4)).setSplits(createSplits(1));
+      List<ProjectChange> changes = diff.compare(oldFile, newFile);
+      assertEquals(1, changes.size());
+      assertChange(changes.get(0), EntityType.TASK, ChangeType.MODIFIED, Integer.valueOf(4), "SPLITS");
+      assertEquals(TaskField.SPLITS, changes.get(0).getField());
+   }
+
+   /**
+    * Ensure that priorities are compared by value rather than by instance.
+    */
+   @Test public void testPriorityValues() throws Exception
+   {
+      ProjectFile oldFile = createProject();
+      ProjectFile newFile = createProject();
+
+      oldFile.getTaskByUniqueID(Integer.valueOf(2)).setPriority(Priority.getInstance(0));
+      newFile.getTaskByUniqueID(Integer.valueOf(2)).setPriority(Priority.getInstance(0));
+
+      ProjectDiff diff = new ProjectDiff();
+      assertTrue(diff.compare(oldFile, newFile).isEmpty());
+
+      newFile.getTaskByUniqueID(Integer.valueOf(2)).setPriority(Priority.getInstance(1));
+      List<ProjectChange> changes = diff.compare(oldFile, newFile);
+      assertEquals(1, changes.size());
+      assertChange(changes.get(0), EntityType.TASK, ChangeType.MODIFIED, Integer.valueOf(2), "PRIORITY");
+   }
+
+   /**
+    * Test comparison of multiple relations between the same pair of tasks.
+    */
+   @Test public void testDuplicateRelations() throws Exception
+   {
+      ProjectFile oldFile = createProject();
+      ProjectFile newFile = createProject();
+
+      Task oldTask = oldFile.getTaskByUniqueID(Integer.valueOf(3));
+      oldTask.addPredecessor(oldFile.getTaskByUniqueID(Integer.valueOf(2)), RelationType.START_START, null);
+      Task newTask = newFile.getTaskByUniqueID(Integer.valueOf(3));
+      newTask.addPredecessor(newFile.getTaskByUniqueID(Integer.valueOf(2)), RelationType.START_START, null);
+
+      ProjectDiff diff = new ProjectDiff();
+      assertTrue(diff.compare(oldFile, newFile).isEmpty());
+
+      newTask.removePredecessor(newFile.getTaskByUniqueID(Integer.valueOf(2)), RelationType.FINISH_START, null);
+      List<ProjectChange> changes = diff.compare(oldFile, newFile);
+      assertEquals(1, changes.size());
+      assertChange(changes.get(0), EntityType.RELATION, ChangeType.REMOVED, null, null);
+      assertEquals(RelationType.FINISH_START, ((Relation) changes.get(0).getOldEntity()).getType());
+
+      newTask.addPredecessor(newFile.getTaskByUniqueID(Integer.valueOf(2)), RelationType.FINISH_FINISH, null);
+      changes = diff.compare(oldFile, newFile);
+      assertEquals(1, changes.size());
+      assertChange(changes.get(0), EntityType.RELATION, ChangeType.MODIFIED, null, "Type");
+      assertEquals(RelationType.FINISH_START, changes.get(0).getOldValue());
+      assertEquals(RelationType.FINISH_FINISH, changes.get(0).getNewValue());
+   }
+
+   /**
+    * Validate a change.
+    *
+    * @param change change to test
+    * @param entityType expected entity type
+    * @param changeType expected change type
+    * @param key expected key, null if not tested
+    * @param attribute expected attribute name
+    */
+   private void assertChange(ProjectChange change, EntityType entityType, ChangeType changeType, Object key, String attribute)
+   {
+      assertEquals(entityType, change.getEntityType());
+      assertEquals(changeType, change.getChangeType());
+      if (key != null)
+      {
+         assertEquals(key, change.getKey());
+      }
+      assertEquals(attribute, change.getAttribute());
+   }
+
+   /**
+    * Create a sample schedule.
+    *
+    * @return project file
+    */
+   private ProjectFile createProject()
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      calendar.setUniqueID(Integer.valueOf(1));
+
+      Resource resource = file.addResource();
+      resource.setName("Resource 1");
+
+      Task previous = null;
+      for (int index = 1; index <= 6; index++)
+      {
+         Task task = file.addTask();
+         task.setName("Task " + index);
+         task.setDuration(Duration.getInstance(index, TimeUnit.DAYS));
+         if (previous != null)
+         {
+            task.addPredecessor(previous, RelationType.FINISH_START, null);
+         }
+         previous = task;
+      }
+
+      file.getTaskByUniqueID(Integer.valueOf(3)).addResourceAssignment(resource);
+
+      return file;
+   }
+
+   /**
+    * Create a list of split date ranges.
+    *
+    * @param offset offset in hours applied to the final split
+    * @return list of date ranges
+    */
+   private List<DateRange> createSplits(int offset)
+   {
+      long hour = 60L * 60L * 1000L;
+      long start = 1572508800000L;
+      List<DateRange> result = new ArrayList<DateRange>();
+      result.add(new DateRange(new Date(start), new Date(start + 8 * hour)));
+      result.add(new DateRange(new Date(start + 24 * hour), new Date(start + (32 + offset) * hour)));
+      return result;
+   }
+}
@@ -0,0 +1,316 @@
+/*
+ * file:       ProjectStreamTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.common.StreamHelper;
+import net.sf.mpxj.listener.DefaultProjectListener;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.mpx.MPXReader;
+import net.sf.mpxj.mspdi.MSPDIReader;
+import net.sf.mpxj.primavera.PrimaveraPMFileReader;
+import net.sf.mpxj.primavera.PrimaveraPMFileWriter;
+import net.sf.mpxj.reader.ProjectReader;
+
+/**
+ * Tests to exercise streaming MPX, MSPDI and PMXML files.
+ */
+public class ProjectStreamTest
+{
+   /**
+    * Streaming an MPX file delivers the same entities as reading it.
+    */
+   @Test public void testMpxStream() throws Exception
+   {
+      testStream(new MPXReader(), MpxjTestData.filePath("legacy/sample.mpx"), true, 4);
+      testStream(new MPXReader(), MpxjTestData.filePath("generated/task-links/task-links-project98.mpx"), true, 4);
+      testStream(new MPXReader(), MpxjTestData.filePath("mpxrecurring.mpx"), true, 4);
+   }
+
+   /**
+    * Streaming an MSPDI file delivers the same entities as reading it.
+    */
+   @Test public void testMspdiStream() throws Exception
+   {
+      testStream(new MSPDIReader(), MpxjTestData.filePath("legacy/sample1.xml"), true, 4);
+      testStream(new MSPDIReader(), MpxjTestData.filePath("mspdirelations.xml"), true, 4);
+      testStream(new MSPDIReader(), MpxjTestData.filePath("mspditimephased.xml"), true, 4);
+      testStream(new MSPDIReader(), MpxjTestData.filePath("mspdinulltasks.xml"), true, 4);
+   }
+
+   /**
+    * Streaming a PMXML file delivers the same entities as reading it.
+    * Activities are delivered before the WBS entries which contain them,
+    * so entities are compared regardless of order.
+    */
+   @Test public void testPrimaveraStream() throws Exception
+   {
+      testStream(new PrimaveraPMFileReader(), MpxjTestData.filePath("generated/task-percentcomplete/percent-complete-8.4.pmxml"), false, 2);
+
+      //
+      // Write a PMXML file with WBS entries, assignments and relations
+      //
+      ProjectFile project = new MPPReader().read(MpxjTestData.filePath("mpp14baseline.mpp"));
+      File file = File.createTempFile("junit", ".pmxml");
+      try
+      {
+         new PrimaveraPMFileWriter().write(project, file.getCanonicalPath());
+         testStream(new PrimaveraPMFileReader(), file.getCanonicalPath(), false, 7);
+      }
+
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   /**
+    * Compare the entities delivered by streaming a file with
+    * the contents of the file when read normally.
+    *
+    * @param reader reader
+    * @param fileName file name
+    * @param ordered true if entities are delivered in the same order as they are read
+    * @param maxRetainedTasks maximum number of tasks held by the reader at any time
+    */
+   private void testStream(ProjectReader reader, String fileName, boolean ordered, int maxRetainedTasks) throws Exception
+   {
+      ProjectFile file = reader.read(fileName);
+
+      List<String> expectedCalendars = new ArrayList<String>();
+      for (ProjectCalendar calendar : file.getCalendars())
+      {
+         expectedCalendars.add(describe(calendar));
+      }
+
+      List<String> expectedResources = new ArrayList<String>();
+      for (Resource resource : file.getResources())
+      {
+         expectedResources.add(describe(resource));
+      }
+
+      List<String> expectedTasks = new ArrayList<String>();
+      List<String> expectedRelations = new ArrayList<String>();
+      for (Task task : file.getTasks())
+      {
+         expectedTasks.add(describe(task, ordered));
+         for (Relation relation : task.getPredecessors())
+         {
+            expectedRelations.add(describe(relation));
+         }
+      }
+
+      List<String> expectedAssignments = new ArrayList<String>();
+      for (ResourceAssignment assignment : file.getResourceAssignments())
+      {
+         expectedAssignments.add(describe(assignment));
+      }
+
+      StreamListener listener = new StreamListener(ordered);
+      stream(reader, fileName, listener);
+
+      //
+      // Forward references mean relations may be delivered after
+      // all of the tasks have been read
+      //
+      Collections.sort(expectedRelations);
+      Collections.sort(listener.m_relations);
+      if (!ordered)
+      {
+         Collections.sort(expectedTasks);
+         Collections.sort(listener.m_tasks);
+         Collections.sort(expectedAssignments);
+         Collections.sort(listener.m_assignments);
+      }
+
+      assertFalse(expectedTasks.isEmpty());
+      assertEquals(expectedCalendars, listener.m_calendars);
+      assertEquals(expectedResources, listener.m_resources);
+      assertEquals(expectedTasks, listener.m_tasks);
+      assertEquals(expectedAssignments, listener.m_assignments);
+      assertEquals(expectedRelations, listener.m_relations);
+      assertTrue(listener.m_maxRetainedTasks <= maxRetainedTasks);
+   }
+
+   /**
+    * Stream a file using the supplied reader.
+    *
+    * @param reader reader
+    * @param fileName file name
+    * @param listener listener to receive each entity
+    */
+   private void stream(ProjectReader reader, String fileName, StreamListener listener) throws Exception
+   {
+      if (reader instanceof MPXReader)
+      {
+         ((MPXReader) reader).stream(fileName, listener);
+      }
+      else
+      {
+         InputStream is = new FileInputStream(fileName);
+         try
+         {
+            if (reader instanceof MSPDIReader)
+            {
+               ((MSPDIReader) reader).stream(is, listener);
+            }
+            else
+            {
+               ((PrimaveraPMFileReader) reader).stream(is, listener);
+            }
+         }
+
+         finally
+         {
+            StreamHelper.closeQuietly(is);
+         }
+      }
+   }
+
+   /**
+    * Describe a calendar.
+    *
+    * @param calendar calendar
+    * @return description
+    */
+   private String describe(ProjectCalendar calendar)
+   {
+      ProjectCalendar parent = calendar.getParent();
+      return calendar.getUniqueID() + " " + calendar.getName() + " " + (parent == null ? null : parent.getUniqueID());
+   }
+
+   /**
+    * Describe a resource.
+    *
+    * @param resource resource
+    * @return description
+    */
+   private String describe(Resource resource)
+   {
+      ProjectCalendar calendar = resource.getResourceCalendar();
+      return resource.getUniqueID() + " " + resource.getName() + " " + (calendar == null ? null : calendar.getUniqueID());
+   }
+
+   /**
+    * Describe a task. Task IDs are only assigned when tasks
+    * are delivered in order.
+    *
+    * @param task task
+    * @param ordered true if the task ID is included
+    * @return description
+    */
+   private String describe(Task task, boolean ordered)
+   {
+      Task parent = task.getParentTask();
+      return task.getUniqueID() + " " + (ordered ? task.getID() : null) + " " + task.getName() + " " + task.getSummary() + " " + (parent == null ? null : parent.getUniqueID()) + " " + task.getOutlineLevel() + " " + task.getWBS() + " " + task.getStart() + " " + task.getFinish() + " " + task.getActualFinish() + " " + task.getNotes();
+   }
+
+   /**
+    * Describe an assignment.
+    *
+    * @param assignment assignment
+    * @return description
+    */
+   private String describe(ResourceAssignment assignment)
+   {
+      return assignment.getTask().getUniqueID() + " " + assignment.getResourceUniqueID() + " " + assignment.getWork() + " " + assignment.getStart() + " " + assignment.getTimephasedWork();
+   }
+
+   /**
+    * Describe a relation.
+    *
+    * @param relation relation
+    * @return description
+    */
+   private String describe(Relation relation)
+   {
+      return relation.getSourceTask().getUniqueID() + " " + relation.getTargetTask().getUniqueID() + " " + relation.getType() + " " + relation.getLag();
+   }
+
+   /**
+    * Listener which records a description of each entity.
+    */
+   private class StreamListener extends DefaultProjectListener
+   {
+      /**
+       * Constructor.
+       *
+       * @param ordered true if entities are delivered in order
+       */
+      public StreamListener(boolean ordered)
+      {
+         m_ordered = ordered;
+      }
+
+      @Override public void calendarRead(ProjectCalendar calendar)
+      {
+         m_calendars.add(describe(calendar));
+      }
+
+      @Override public void resourceRead(Resource resource)
+      {
+         m_resources.add(describe(resource));
+      }
+
+      @Override public void taskRead(Task task)
+      {
+         m_tasks.add(describe(task, m_ordered));
+         m_maxRetainedTasks = Math.max(m_maxRetainedTasks, task.getParentFile().getTasks().size());
+      }
+
+      @Override public void assignmentRead(ResourceAssignment assignment)
+      {
+         m_assignments.add(describe(assignment));
+      }
+
+      @Override public void relationRead(Relation relation)
+      {
+         m_relations.add(describe(relation));
+      }
+
+      private final boolean m_ordered;
+      List<String> m_calendars = new ArrayList<String>();
+      List<String> m_resources = new ArrayList<String>();
+      List<String> m_tasks = new ArrayList<String>();
+      List<String> m_assignments = new ArrayList<String>();
+      List<String> m_relations = new ArrayList<String>();
+      int m_maxRetainedTasks;
+   }
+}
@@ -0,0 +1,242 @@
+/*
+ * file:       ResourceLoadingTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.mpp.TimescaleUnits;
+import net.sf.mpxj.utility.ResourceLoading;
+import net.sf.mpxj.utility.ResourceLoadingUtility;
+import net.sf.mpxj.utility.TimescaleUtility;
+
+/**
+ * Tests to exercise resource loading calculations.
+ */
+public class ResourceLoadingTest
+{
+   /**
+    * Two overlapping assignments overallocate a resource on each working day.
+    */
+   @Test public void testOverallocation() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      Resource resource = addResource(file, calendar);
+      addAssignment(file, resource, "2020-01-06 08:00", "2020-01-10 17:00", 40);
+      addAssignment(file, resource, "2020-01-06 08:00", "2020-01-10 17:00", 40);
+
+      ResourceLoadingUtility utility = new ResourceLoadingUtility();
+      List<ResourceLoading> list = utility.calculate(file.getResources(), parse("2020-01-06 00:00"), TimescaleUnits.DAYS, 7);
+      assertEquals(1, list.size());
+
+      ResourceLoading loading = list.get(0);
+      assertSame(resource, loading.getResource());
+      assertEquals(7, loading.getPeriodCount());
+      assertArrayEquals(new double[]
+      {
+         16,
+         16,
+         16,
+         16,
+         16,
+         0,
+         0
+      }, loading.getWork(), 0.0001);
+      assertArrayEquals(new double[]
+      {
+         8,
+         8,
+         8,
+         8,
+         8,
+         0,
+         0
+      }, loading.getCapacity(), 0.0001);
+      assertTrue(loading.isOverallocated());
+      assertArrayEquals(new int[]
+      {
+         0,
+         1,
+         2,
+         3,
+         4
+      }, loading.getOverallocatedPeriods());
+      assertEquals(8, loading.getOverallocation(0), 0.0001);
+      assertEquals(0, loading.getOverallocation(5), 0.0001);
+
+      loading = utility.calculate(file.getResources(), parse("2020-01-06 00:00"), TimescaleUnits.WEEKS, 1).get(0);
+      assertEquals(80, loading.getWork(0), 0.0001);
+      assertEquals(40, loading.getCapacity(0), 0.0001);
+   }
+
+   /**
+    * Work spanning part of a day is split according to the calendar.
+    */
+   @Test public void testPartialDays() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      Resource resource = addResource(file, calendar);
+      addAssignment(file, resource, "2020-01-06 13:00", "2020-01-07 12:00", 6);
+
+      ResourceLoading loading = new ResourceLoadingUtility().calculate(resource, new TimescaleUtility().createTimescale(parse("2020-01-06 00:00"), TimescaleUnits.DAYS, 3));
+      assertEquals(3, loading.getWork(0), 0.0001);
+      assertEquals(3, loading.getWork(1), 0.0001);
+      assertEquals(0, loading.getWork(2), 0.0001);
+      assertFalse(loading.isOverallocated());
+      assertEquals(6, loading.getTotalWork(), 0.0001);
+   }
+
+   /**
+    * Capacity follows the resource availability table.
+    */
+   @Test public void testAvailability() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      Resource resource = addResource(file, calendar);
+      resource.getAvailability().add(new Availability(parse("2020-01-06 00:00"), parse("2020-01-07 23:59"), Double.valueOf(50)));
+      resource.getAvailability().add(new Availability(parse("2020-01-08 00:00"), parse("2020-01-31 23:59"), Double.valueOf(100)));
+      addAssignment(file, resource, "2020-01-06 08:00", "2020-01-08 17:00", 18);
+
+      ResourceLoading loading = new ResourceLoadingUtility().calculate(file.getResources(), parse("2020-01-06 00:00"), TimescaleUnits.DAYS, 3).get(0);
+      assertEquals(4, loading.getCapacity(0), 0.0001);
+      assertEquals(4, loading.getCapacity(1), 0.0001);
+      assertEquals(8, loading.getCapacity(2), 0.0001);
+      assertArrayEquals(new int[]
+      {
+         0,
+         1
+      }, loading.getOverallocatedPeriods());
+      assertFalse(loading.isOverallocated(2));
+   }
+
+   /**
+    * Parallel calculation gives the same results as sequential calculation,
+    * and material resources are ignored.
+    */
+   @Test public void testParallel() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      for (int index = 0; index < 20; index++)
+      {
+         Resource resource = addResource(file, calendar);
+         for (int count = 0; count <= index % 3; count++)
+         {
+            addAssignment(file, resource, "2020-01-06 08:00", "2020-01-17 17:00", 40 + index);
+         }
+      }
+      Resource material = file.addResource();
+      material.setType(ResourceType.MATERIAL);
+
+      ResourceLoadingUtility utility = new ResourceLoadingUtility();
+      List<ResourceLoading> sequential = utility.calculate(file.getResources(), parse("2020-01-06 00:00"), TimescaleUnits.DAYS, 14);
+      utility.setThreadCount(4);
+      List<ResourceLoading> parallel = utility.calculate(file.getResources(), parse("2020-01-06 00:00"), TimescaleUnits.DAYS, 14);
+
+      assertEquals(20, sequential.size());
+      assertEquals(20, parallel.size());
+      for (int index = 0; index < sequential.size(); index++)
+      {
+         ResourceLoading expected = sequential.get(index);
+         ResourceLoading actual = parallel.get(index);
+         assertSame(expected.getResource(), actual.getResource());
+         assertTrue(Arrays.equals(expected.getWork(), actual.getWork()));
+         assertTrue(Arrays.equals(expected.getCapacity(), actual.getCapacity()));
+         assertEquals((index % 3 + 1) * (40 + index), actual.getTotalWork(), 0.0001);
+      }
+   }
+
+   /**
+    * Add a work resource using the supplied calendar.
+    *
+    * @param file parent file
+    * @param calendar resource calendar
+    * @return new resource
+    */
+   private Resource addResource(ProjectFile file, ProjectCalendar calendar)
+   {
+      Resource resource = file.addResource();
+      resource.setType(ResourceType.WORK);
+      resource.setMaxUnits(Double.valueOf(100));
+      resource.setResourceCalendar(calendar);
+      return resource;
+   }
+
+   /**
+    * Add a task and an assignment represented by a single block of timephased work.
+    *
+    * @param file parent file
+    * @param resource resource
+    * @param start start date
+    * @param finish finish date
+    * @param hours total work in hours
+    */
+   private void addAssignment(ProjectFile file, Resource resource, String start, String finish, double hours) throws Exception
+   {
+      Task task = file.addTask();
+      ResourceAssignment assignment = task.addResourceAssignment(resource);
+      TimephasedWork item = new TimephasedWork();
+      item.setStart(parse(start));
+      item.setFinish(parse(finish));
+      item.setTotalAmount(Duration.getInstance(hours, TimeUnit.HOURS));
+      item.setAmountPerDay(Duration.getInstance(8, TimeUnit.HOURS));
+      List<TimephasedWork> work = new ArrayList<TimephasedWork>();
+      work.add(item);
+      assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(resource.getResourceCalendar(), null, work, false));
+   }
+
+   /**
+    * Parse a date.
+    *
+    * @param value date string
+    * @return Date instance
+    */
+   private Date parse(String value) throws Exception
+   {
+      DateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+      return format.parse(value);
+   }
+}
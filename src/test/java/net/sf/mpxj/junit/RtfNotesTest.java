@@ -0,0 +1,146 @@
+/*
+ * file:       RtfNotesTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.RtfHelper;
+import net.sf.mpxj.mpp.MPPReader;
+
+/**
+ * Tests to exercise notes supplied in RTF format.
+ */
+public class RtfNotesTest
+{
+   /**
+    * Ensure that RTF notes are converted when they are retrieved.
+    */
+   @Test public void testRtfNotes()
+   {
+      ProjectFile file = new ProjectFile();
+      String expected = RtfHelper.strip(RTF_NOTES);
+
+      Task task = file.addTask();
+      task.setRtfNotes(RTF_NOTES);
+      assertEquals(expected, task.getCachedValue(TaskField.NOTES));
+      assertEquals(expected, task.getNotes());
+
+      task.setRtfNotes(RTF_NOTES);
+      task.setNotes("Plain");
+      assertEquals("Plain", task.getNotes());
+
+      Resource resource = file.addResource();
+      resource.setRtfNotes(RTF_NOTES);
+      assertEquals(expected, resource.getNotes());
+
+      ResourceAssignment assignment = task.addResourceAssignment(resource);
+      assignment.setRtfNotes(RTF_NOTES);
+      assertEquals(expected, assignment.getNotes());
+   }
+
+   /**
+    * Ensure that concurrent readers all see the converted notes.
+    */
+   @Test public void testConcurrentRead() throws Exception
+   {
+      final String expected = RtfHelper.strip(RTF_NOTES);
+      ProjectFile file = new ProjectFile();
+      final List<Task> tasks = new ArrayList<Task>();
+      for (int index = 0; index < 1000; index++)
+      {
+         Task task = file.addTask();
+         task.setRtfNotes(RTF_NOTES);
+         tasks.add(task);
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+         for (int index = 0; index < 4; index++)
+         {
+            futures.add(executor.submit(new Callable<Boolean>()
+            {
+               @Override public Boolean call()
+               {
+                  boolean result = true;
+                  for (Task task : tasks)
+                  {
+                     result &= expected.equals(task.getNotes());
+                  }
+                  return Boolean.valueOf(result);
+               }
+            }));
+         }
+
+         for (Future<Boolean> future : futures)
+         {
+            assertTrue(future.get().booleanValue());
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Ensure that notes can be omitted when reading an MPP file.
+    */
+   @Test public void testReadNotes() throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      ProjectFile file = reader.read(MpxjTestData.filePath("mpp14task.mpp"));
+      boolean notesFound = false;
+      for (Task task : file.getTasks())
+      {
+         notesFound |= task.getNotes().length() != 0;
+      }
+      assertTrue(notesFound);
+
+      reader.setReadNotes(false);
+      file = reader.read(MpxjTestData.filePath("mpp14task.mpp"));
+      for (Task task : file.getTasks())
+      {
+         assertEquals("", task.getNotes());
+      }
+   }
+
+   private static final String RTF_NOTES = "{\\rtf1\\ansi\\ansicpg1252\\deff0{\\fonttbl{\\f0\\fnil\\fcharset0 Arial;}}\\viewkind4\\uc1\\pard\\f0\\fs20 Notes text\\par}";
+}
@@ -0,0 +1,239 @@
+/*
+ * file:       SDEFReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.text.SimpleDateFormat;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.sdef.SDEFReader;
+
+/**
+ * Tests to exercise reading SDEF files.
+ */
+public class SDEFReaderTest
+{
+   /**
+    * Fixed width fields are decoded correctly.
+    */
+   @Test public void testFields() throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      appendHeader(sb);
+      sb.append(record("ACTV", ACTV_WIDTHS, "A1", "First activity", "10", "06JAN20", "ES", "1", "", "3")).append("\r\n");
+      sb.append(record("ACTV", ACTV_WIDTHS, "A2", "Second activity", "5", "", "LF", "1", "", "")).append("\r\n");
+      sb.append(record("PRED", PRED_WIDTHS, "A2", "A1", "S", "-2")).append("\r\n");
+      sb.append(record("PROG", PROG_WIDTHS, "A1", "06JAN20", "", "4", "1234.56", "100.25", "0.00", "06JAN20", "17JAN20", "08JAN20", "21JAN20", "-", "3")).append("\r\n");
+      sb.append("END\r\n");
+
+      ProjectFile project = new SDEFReader().read(new ByteArrayInputStream(sb.toString().getBytes("US-ASCII")));
+      SimpleDateFormat df = new SimpleDateFormat("ddMMMyy");
+
+      Task task1 = project.getTaskByID(Integer.valueOf(1));
+      assertEquals("A1", task1.getText(1));
+      assertEquals("First activity", task1.getName());
+      assertEquals(Duration.getInstance(10, TimeUnit.DAYS), task1.getDuration());
+      assertEquals(df.parse("06JAN20"), task1.getConstraintDate());
+      assertEquals(ConstraintType.START_NO_EARLIER_THAN, task1.getConstraintType());
+      assertEquals(Integer.valueOf(3), task1.getNumber(1));
+      assertEquals(Double.valueOf(1234.56), task1.getCost());
+      assertEquals(df.parse("06JAN20"), task1.getActualStart());
+      assertNull(task1.getActualFinish());
+      assertEquals(Duration.getInstance(-3, TimeUnit.DAYS), task1.getTotalSlack());
+      assertNotNull(task1.getCalendar());
+
+      Task task2 = project.getTaskByID(Integer.valueOf(2));
+      assertNull(task2.getConstraintDate());
+      assertEquals(ConstraintType.FINISH_NO_LATER_THAN, task2.getConstraintType());
+      assertNull(task2.getNumber(1));
+      assertEquals(1, task2.getPredecessors().size());
+      Relation relation = task2.getPredecessors().get(0);
+      assertEquals(task1, relation.getTargetTask());
+      assertEquals(RelationType.START_START, relation.getType());
+      assertEquals(Duration.getInstance(-2, TimeUnit.DAYS), relation.getLag());
+   }
+
+   /**
+    * Decoding records in parallel produces the same result
+    * as decoding them serially.
+    */
+   @Test public void testParallel() throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      appendHeader(sb);
+      int count = 5000;
+      for (int index = 0; index < count; index++)
+      {
+         sb.append(record("ACTV", ACTV_WIDTHS, "A" + index, "Activity " + index, Integer.toString(index % 20), String.format("%02dFEB20", Integer.valueOf(1 + index % 28)), "ES", "1", "", "2")).append('\n');
+      }
+
+      for (int index = 1; index < count; index++)
+      {
+         sb.append(record("PRED", PRED_WIDTHS, "A" + index, "A" + (index - 1), "C", Integer.toString(index % 3))).append('\n');
+      }
+
+      for (int index = 0; index < count; index++)
+      {
+         sb.append(record("PROG", PROG_WIDTHS, "A" + index, "", "", Integer.toString(index % 20), (index * 3) + ".25", "0.00", "0.00", "03FEB20", "07FEB20", "10FEB20", "14FEB20", "+", Integer.toString(index % 5))).append('\n');
+      }
+      sb.append("END\n");
+
+      byte[] data = sb.toString().getBytes("US-ASCII");
+      ProjectFile expected = new SDEFReader().read(new ByteArrayInputStream(data));
+      SDEFReader reader = new SDEFReader();
+      reader.setThreadCount(4);
+      ProjectFile actual = reader.read(new ByteArrayInputStream(data));
+
+      assertEquals(count, expected.getTasks().size());
+      assertEquals(expected.getTasks().size(), actual.getTasks().size());
+      for (int index = 0; index < expected.getTasks().size(); index++)
+      {
+         Task expectedTask = expected.getTasks().get(index);
+         Task actualTask = actual.getTasks().get(index);
+         assertEquals(expectedTask.getUniqueID(), actualTask.getUniqueID());
+         assertEquals(expectedTask.getName(), actualTask.getName());
+         assertEquals(expectedTask.getDuration(), actualTask.getDuration());
+         assertEquals(expectedTask.getConstraintDate(), actualTask.getConstraintDate());
+         assertEquals(expectedTask.getCost(), actualTask.getCost());
+         assertEquals(expectedTask.getTotalSlack(), actualTask.getTotalSlack());
+         assertEquals(expectedTask.getPredecessors().size(), actualTask.getPredecessors().size());
+      }
+   }
+
+   /**
+    * Append the volume, project and calendar records.
+    *
+    * @param sb buffer
+    */
+   private void appendHeader(StringBuilder sb)
+   {
+      sb.append("VOLM 1").append("\r\n");
+      sb.append(record("PROJ", PROJ_WIDTHS, "06JAN20", "PROJ", "Test Project", "Contractor", "P", "C1", "06JAN20", "28FEB20")).append("\r\n");
+      sb.append(record("CLDR", CLDR_WIDTHS, "1", "NYYYYYN", "Standard")).append("\r\n");
+      sb.append(record("HOLI", HOLI_WIDTHS, "1", "20JAN20", "17FEB20")).append("\r\n");
+   }
+
+   /**
+    * Create a fixed width record.
+    *
+    * @param recordID record type
+    * @param widths field widths
+    * @param values field values
+    * @return record
+    */
+   private String record(String recordID, int[] widths, String... values)
+   {
+      StringBuilder sb = new StringBuilder(recordID);
+      for (int index = 0; index < widths.length; index++)
+      {
+         String value = index < values.length ? values[index] : "";
+         sb.append(' ').append(value);
+         for (int pad = value.length(); pad < widths[index]; pad++)
+         {
+            sb.append(' ');
+         }
+      }
+      return sb.toString();
+   }
+
+   private static final int[] PROJ_WIDTHS =
+   {
+      7,
+      4,
+      48,
+      36,
+      1,
+      6,
+      7,
+      7
+   };
+
+   private static final int[] CLDR_WIDTHS =
+   {
+      1,
+      7,
+      30
+   };
+
+   private static final int[] HOLI_WIDTHS =
+   {
+      1,
+      7,
+      7
+   };
+
+   private static final int[] ACTV_WIDTHS =
+   {
+      10,
+      30,
+      3,
+      7,
+      2,
+      1,
+      1,
+      3,
+      4,
+      4,
+      6,
+      6,
+      2,
+      1,
+      10
+   };
+
+   private static final int[] PRED_WIDTHS =
+   {
+      10,
+      10,
+      1,
+      4
+   };
+
+   private static final int[] PROG_WIDTHS =
+   {
+      10,
+      7,
+      7,
+      3,
+      12,
+      12,
+      12,
+      7,
+      7,
+      7,
+      7,
+      1,
+      3
+   };
+}
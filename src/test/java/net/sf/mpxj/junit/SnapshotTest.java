@@ -0,0 +1,550 @@
+/*
+ * file:       SnapshotTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       28/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.CostRateTable;
+import net.sf.mpxj.CostRateTableEntry;
+import net.sf.mpxj.CurrencySymbolPosition;
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.DayType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.RecurrenceType;
+import net.sf.mpxj.RecurringData;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.DefaultTimephasedCostContainer;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.diff.ProjectChange;
+import net.sf.mpxj.diff.ProjectDiff;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.snapshot.SnapshotReader;
+import net.sf.mpxj.snapshot.SnapshotWriter;
+
+/**
+ * Tests to ensure that a schedule written as a snapshot and read back
+ * is identical to the original.
+ */
+public class SnapshotTest
+{
+   /**
+    * Round trip MPP files via a snapshot.
+    */
+   @Test public void testMpp() throws Exception
+   {
+      testFiles(MpxjTestData.listFiles("", "mpp14"));
+   }
+
+   /**
+    * Round trip MSPDI files via a snapshot.
+    */
+   @Test public void testMspdi() throws Exception
+   {
+      testFiles(MpxjTestData.listFiles("", "mspdi"));
+   }
+
+   /**
+    * Round trip MPX files via a snapshot.
+    */
+   @Test public void testMpx() throws Exception
+   {
+      testFiles(MpxjTestData.listFiles("", "mpxrecurring"));
+   }
+
+   /**
+    * Round trip Planner files via a snapshot.
+    */
+   @Test public void testPlanner() throws Exception
+   {
+      testFiles(MpxjTestData.listFiles("", "planner-"));
+   }
+
+   /**
+    * Round trip a schedule containing data which is not easily found
+    * in the sample files: recurring exceptions, work weeks, cost rate
+    * tables, availability and timephased data.
+    */
+   @Test public void testGeneratedProject() throws Exception
+   {
+      ProjectFile file = createProject();
+      File snapshot = writeSnapshot(file);
+
+      try
+      {
+         ProjectFile result = new SnapshotReader().read(snapshot);
+         assertEquivalent(file, result);
+
+         ProjectCalendar calendar = result.getCalendarByUniqueID(Integer.valueOf(2));
+         assertEquals(Integer.valueOf(1), calendar.getParent().getUniqueID());
+         assertEquals(Integer.valueOf(420), Integer.valueOf(calendar.getMinutesPerDay()));
+
+         ProjectCalendarException exception = calendar.getCalendarExceptions().get(0);
+         assertEquals("Recurring", exception.getName());
+         assertEquals(RecurrenceType.WEEKLY, exception.getRecurring().getRecurrenceType());
+         assertTrue(exception.getRecurring().getWeeklyDay(Day.FRIDAY));
+         assertEquals(1, calendar.getWorkWeeks().size());
+
+         Resource resource = result.getResourceByUniqueID(Integer.valueOf(1));
+         assertSame(calendar, resource.getResourceCalendar());
+         assertSame(resource, calendar.getResource());
+         assertEquals(2, resource.getCostRateTable(0).size());
+         assertEquals(new Rate(50, TimeUnit.HOURS), resource.getCostRateTable(0).get(1).getStandardRate());
+         assertEquals(1, resource.getAvailability().size());
+
+         Task task = result.getTaskByUniqueID(Integer.valueOf(3));
+         assertEquals(Integer.valueOf(1), task.getParentTask().getUniqueID());
+         assertEquals(1, task.getPredecessors().size());
+         assertEquals(RelationType.START_START, task.getPredecessors().get(0).getType());
+         assertEquals(2, task.getSplits().size());
+      }
+
+      finally
+      {
+         snapshot.delete();
+      }
+   }
+
+   /**
+    * Ensure that snapshots are recognised by the universal reader and can be
+    * read from a stream as well as a file.
+    */
+   @Test public void testUniversalReader() throws Exception
+   {
+      ProjectFile file = createProject();
+      File snapshot = writeSnapshot(file);
+
+      try
+      {
+         assertEquivalent(file, new UniversalProjectReader().read(snapshot));
+      }
+
+      finally
+      {
+         snapshot.delete();
+      }
+
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      new SnapshotWriter().write(file, os);
+      assertEquivalent(file, new SnapshotReader().read(new ByteArrayInputStream(os.toByteArray())));
+   }
+
+   /**
+    * Ensure that a string table offset beyond the end of the
+    * snapshot is rejected rather than being truncated.
+    */
+   @Test public void testInvalidOffset() throws Exception
+   {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      new SnapshotWriter().write(new ProjectFile(), os);
+      byte[] data = os.toByteArray();
+
+      // The offset is the big-endian long following the magic and version
+      long offset = 0x100000000L + data.length;
+      for (int index = 0; index < 8; index++)
+      {
+         data[12 + index] = (byte) (offset >>> (56 - (index * 8)));
+      }
+
+      try
+      {
+         new SnapshotReader().read(new ByteArrayInputStream(data));
+         fail("Expected MPXJException");
+      }
+
+      catch (MPXJException ex)
+      {
+         assertEquals(MPXJException.INVALID_FILE, ex.getMessage());
+      }
+   }
+
+   /**
+    * Ensure that an enum class name read from a snapshot can't be used
+    * to load and initialize an arbitrary class.
+    */
+   @Test public void testEnumClassName() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      file.getProjectProperties().setSymbolPosition(CurrencySymbolPosition.AFTER);
+
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      new SnapshotWriter().write(file, os);
+      byte[] data = os.toByteArray();
+
+      // Both names have the same length, so the string table remains valid
+      byte[] enumName = CurrencySymbolPosition.class.getName().getBytes("UTF-8");
+      byte[] probeName = "net.sf.mpxj.junit.SnapshotTest$Tag".getBytes("UTF-8");
+      assertEquals(enumName.length, probeName.length);
+      int index = indexOf(data, enumName);
+      assertTrue(index != -1);
+      System.arraycopy(probeName, 0, data, index, probeName.length);
+
+      ProjectFile result = new SnapshotReader().read(new ByteArrayInputStream(data));
+      assertNull(result.getProjectProperties().getSymbolPosition());
+      assertFalse(TAG_INITIALIZED);
+   }
+
+   /**
+    * Round trip each file in a list.
+    *
+    * @param files files to test
+    */
+   private void testFiles(File[] files) throws Exception
+   {
+      for (File file : files)
+      {
+         ProjectFile project = new UniversalProjectReader().read(file);
+         assertNotNull(file.getName(), project);
+
+         File snapshot = writeSnapshot(project);
+         try
+         {
+            assertEquivalent(project, new SnapshotReader().read(snapshot));
+         }
+
+         finally
+         {
+            snapshot.delete();
+         }
+      }
+   }
+
+   /**
+    * Find the first occurrence of a byte sequence.
+    *
+    * @param data data to search
+    * @param value byte sequence to find
+    * @return index of the byte sequence, or -1 if not found
+    */
+   private int indexOf(byte[] data, byte[] value)
+   {
+      for (int index = 0; index <= data.length - value.length; index++)
+      {
+         int offset = 0;
+         while (offset < value.length && data[index + offset] == value[offset])
+         {
+            ++offset;
+         }
+
+         if (offset == value.length)
+         {
+            return index;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Write a project to a temporary snapshot file.
+    *
+    * @param file project to write
+    * @return snapshot file
+    */
+   private File writeSnapshot(ProjectFile file) throws Exception
+   {
+      File snapshot = File.createTempFile("junit", ".snap");
+      new SnapshotWriter().write(file, snapshot);
+      return snapshot;
+   }
+
+   /**
+    * Ensure that two schedules are equivalent.
+    *
+    * @param expected original schedule
+    * @param actual schedule read from a snapshot
+    */
+   private void assertEquivalent(ProjectFile expected, ProjectFile actual)
+   {
+      String name = expected.getProjectProperties().getProjectFilePath();
+
+      for (ProjectField field : ProjectField.values())
+      {
+         assertValueEquals(name + " " + field, expected.getProjectProperties().getCachedValue(field), actual.getProjectProperties().getCachedValue(field));
+      }
+
+      List<ProjectChange> changes = new ProjectDiff().compare(expected, actual);
+      assertTrue(name + " " + changes, changes.isEmpty());
+
+      assertEquals(name, expected.getChildTasks().size(), actual.getChildTasks().size());
+
+      for (Resource resource : expected.getResources())
+      {
+         Resource actualResource = actual.getResourceByUniqueID(resource.getUniqueID());
+         for (int index = 0; index < 5; index++)
+         {
+            assertCostRateTableEquals(name, resource.getCostRateTable(index), actualResource.getCostRateTable(index));
+         }
+
+         assertEquals(name, resource.getAvailability().size(), actualResource.getAvailability().size());
+         for (int index = 0; index < resource.getAvailability().size(); index++)
+         {
+            Availability expectedAvailability = resource.getAvailability().get(index);
+            Availability actualAvailability = actualResource.getAvailability().get(index);
+            assertEquals(name, expectedAvailability.getRange(), actualAvailability.getRange());
+            assertValueEquals(name, expectedAvailability.getUnits(), actualAvailability.getUnits());
+         }
+      }
+
+      List<ResourceAssignment> expectedAssignments = expected.getResourceAssignments();
+      List<ResourceAssignment> actualAssignments = new ArrayList<ResourceAssignment>(actual.getResourceAssignments());
+      for (ResourceAssignment assignment : expectedAssignments)
+      {
+         if (assignment.getTask() == null)
+         {
+            continue;
+         }
+
+         ResourceAssignment actualAssignment = actualAssignments.remove(0);
+         assertEquals(name, assignment.getTimephasedWork(), actualAssignment.getTimephasedWork());
+         assertEquals(name, assignment.getTimephasedActualWork(), actualAssignment.getTimephasedActualWork());
+         assertEquals(name, assignment.getTimephasedActualOvertimeWork(), actualAssignment.getTimephasedActualOvertimeWork());
+         for (int index = 0; index < 11; index++)
+         {
+            assertEquals(name, assignment.getTimephasedBaselineWork(index), actualAssignment.getTimephasedBaselineWork(index));
+            assertCostEquals(name, assignment.getTimephasedBaselineCost(index), actualAssignment.getTimephasedBaselineCost(index));
+         }
+      }
+   }
+
+   /**
+    * Compare two values, allowing for numeric values changing type.
+    *
+    * @param message failure message
+    * @param expected expected value
+    * @param actual actual value
+    */
+   private void assertValueEquals(String message, Object expected, Object actual)
+   {
+      if (expected instanceof Number && actual instanceof Number)
+      {
+         assertEquals(message, ((Number) expected).doubleValue(), ((Number) actual).doubleValue(), 0);
+      }
+      else
+      {
+         if (expected instanceof byte[])
+         {
+            assertArrayEquals(message, (byte[]) expected, (byte[]) actual);
+         }
+         else
+         {
+            if (expected instanceof Map && actual instanceof Map)
+            {
+               Map<?, ?> expectedMap = (Map<?, ?>) expected;
+               Map<?, ?> actualMap = (Map<?, ?>) actual;
+               assertEquals(message, expectedMap.keySet(), actualMap.keySet());
+               for (Map.Entry<?, ?> entry : expectedMap.entrySet())
+               {
+                  assertValueEquals(message + " " + entry.getKey(), entry.getValue(), actualMap.get(entry.getKey()));
+               }
+            }
+            else
+            {
+               assertEquals(message, expected, actual);
+            }
+         }
+      }
+   }
+
+   /**
+    * Compare cost rate tables.
+    *
+    * @param message failure message
+    * @param expected expected table
+    * @param actual actual table
+    */
+   private void assertCostRateTableEquals(String message, CostRateTable expected, CostRateTable actual)
+   {
+      if (expected == null)
+      {
+         assertNull(message, actual);
+      }
+      else
+      {
+         assertEquals(message, expected.size(), actual.size());
+         for (int index = 0; index < expected.size(); index++)
+         {
+            CostRateTableEntry expectedEntry = expected.get(index);
+            CostRateTableEntry actualEntry = actual.get(index);
+            assertEquals(message, expectedEntry.getStandardRate(), actualEntry.getStandardRate());
+            assertEquals(message, expectedEntry.getStandardRateFormat(), actualEntry.getStandardRateFormat());
+            assertEquals(message, expectedEntry.getOvertimeRate(), actualEntry.getOvertimeRate());
+            assertEquals(message, expectedEntry.getOvertimeRateFormat(), actualEntry.getOvertimeRateFormat());
+            assertValueEquals(message, expectedEntry.getCostPerUse(), actualEntry.getCostPerUse());
+            assertEquals(message, expectedEntry.getEndDate(), actualEntry.getEndDate());
+         }
+      }
+   }
+
+   /**
+    * Compare timephased cost data.
+    *
+    * @param message failure message
+    * @param expected expected values
+    * @param actual actual values
+    */
+   private void assertCostEquals(String message, List<TimephasedCost> expected, List<TimephasedCost> actual)
+   {
+      if (expected == null)
+      {
+         assertNull(message, actual);
+      }
+      else
+      {
+         assertEquals(message, expected.size(), actual.size());
+         for (int index = 0; index < expected.size(); index++)
+         {
+            TimephasedCost expectedItem = expected.get(index);
+            TimephasedCost actualItem = actual.get(index);
+            assertEquals(message, expectedItem.getStart(), actualItem.getStart());
+            assertEquals(message, expectedItem.getFinish(), actualItem.getFinish());
+            assertValueEquals(message, expectedItem.getTotalAmount(), actualItem.getTotalAmount());
+            assertValueEquals(message, expectedItem.getAmountPerDay(), actualItem.getAmountPerDay());
+         }
+      }
+   }
+
+   /**
+    * Create a schedule to round trip.
+    *
+    * @return ProjectFile instance
+    */
+   private ProjectFile createProject()
+   {
+      ProjectFile file = new ProjectFile();
+      file.getProjectProperties().setName("Snapshot Test");
+      file.getProjectProperties().setProjectFilePath("generated");
+
+      ProjectCalendar standard = file.addDefaultBaseCalendar();
+      ProjectCalendar derived = file.addDefaultDerivedCalendar();
+      derived.setParent(standard);
+      derived.setName("Derived");
+      derived.setMinutesPerDay(Integer.valueOf(420));
+      derived.setWorkingDay(Day.SATURDAY, DayType.WORKING);
+      derived.addCalendarHours(Day.SATURDAY).addRange(new DateRange(DateHelper.getTime(9, 0), DateHelper.getTime(12, 0)));
+
+      Date start = DateHelper.getDayStartDate(new Date(1572220800000L));
+      Date finish = DateHelper.getDayEndDate(new Date(1572220800000L + (6 * 24 * 60 * 60 * 1000L)));
+      ProjectCalendarException exception = derived.addCalendarException(start, finish);
+      exception.setName("Recurring");
+      RecurringData recurring = new RecurringData();
+      recurring.setRecurrenceType(RecurrenceType.WEEKLY);
+      recurring.setStartDate(start);
+      recurring.setFinishDate(finish);
+      recurring.setWeeklyDay(Day.FRIDAY, true);
+      recurring.setFrequency(Integer.valueOf(1));
+      exception.setRecurring(recurring);
+
+      derived.addWorkWeek().setDateRange(new DateRange(start, finish));
+
+      Resource resource = file.addResource();
+      resource.setUniqueID(Integer.valueOf(1));
+      resource.setID(Integer.valueOf(1));
+      resource.setName("Resource 1");
+      resource.setResourceCalendar(derived);
+      CostRateTable table = new CostRateTable();
+      table.add(new CostRateTableEntry(new Rate(40, TimeUnit.HOURS), TimeUnit.HOURS, new Rate(60, TimeUnit.HOURS), TimeUnit.HOURS, Integer.valueOf(0), start));
+      table.add(new CostRateTableEntry(new Rate(50, TimeUnit.HOURS), TimeUnit.HOURS, new Rate(75, TimeUnit.HOURS), TimeUnit.HOURS, Integer.valueOf(10), DateHelper.LAST_DATE));
+      resource.setCostRateTable(0, table);
+      resource.getAvailability().add(new Availability(start, finish, Double.valueOf(50)));
+
+      Task summary = file.addTask();
+      summary.setName("Summary");
+      Task task1 = summary.addTask();
+      task1.setName("Task 1");
+      task1.setDuration(Duration.getInstance(5, TimeUnit.DAYS));
+      task1.setStart(start);
+      Task task2 = summary.addTask();
+      task2.setName("Task 2");
+      task2.set(TaskField.CALENDAR, derived);
+      task2.addPredecessor(task1, RelationType.START_START, Duration.getInstance(1, TimeUnit.DAYS));
+      List<DateRange> splits = new ArrayList<DateRange>();
+      splits.add(new DateRange(start, start));
+      splits.add(new DateRange(finish, finish));
+      task2.setSplits(splits);
+
+      ResourceAssignment assignment = task1.addResourceAssignment(resource);
+      List<TimephasedWork> work = new ArrayList<TimephasedWork>();
+      List<TimephasedCost> cost = new ArrayList<TimephasedCost>();
+      for (int index = 0; index < 3; index++)
+      {
+         TimephasedWork item = new TimephasedWork();
+         item.setStart(DateHelper.addDays(start, index));
+         item.setFinish(DateHelper.addDays(start, index + 1));
+         item.setTotalAmount(Duration.getInstance(8, TimeUnit.HOURS));
+         item.setAmountPerDay(Duration.getInstance(8, TimeUnit.HOURS));
+         work.add(item);
+
+         TimephasedCost costItem = new TimephasedCost();
+         costItem.setStart(item.getStart());
+         costItem.setFinish(item.getFinish());
+         costItem.setTotalAmount(Double.valueOf(320));
+         costItem.setAmountPerDay(Double.valueOf(320));
+         cost.add(costItem);
+      }
+      assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(derived, null, work, false));
+      assignment.setTimephasedActualWork(new DefaultTimephasedWorkContainer(derived, null, work.subList(0, 1), false));
+      assignment.setTimephasedBaselineWork(2, new DefaultTimephasedWorkContainer(derived, null, work, false));
+      assignment.setTimephasedBaselineCost(2, new DefaultTimephasedCostContainer(derived, null, cost, false));
+
+      return file;
+   }
+
+   /**
+    * Class which records when it has been initialized.
+    */
+   static class Tag
+   {
+      static
+      {
+         TAG_INITIALIZED = true;
+      }
+   }
+
+   static boolean TAG_INITIALIZED;
+}
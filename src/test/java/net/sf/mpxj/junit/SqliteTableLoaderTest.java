@@ -0,0 +1,154 @@
+/*
+ * file:       SqliteTableLoaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import net.sf.mpxj.common.FileHelper;
+import net.sf.mpxj.common.SqliteTableLoader;
+
+/**
+ * Tests to exercise the SQLite table loader.
+ */
+public class SqliteTableLoaderTest
+{
+   /**
+    * Ensure that queries executed using several connections produce
+    * the same results as queries executed using a single connection.
+    */
+   @Test public void testSerialAndParallel() throws Exception
+   {
+      File file = createDatabase();
+
+      try
+      {
+         SqliteTableLoader<String> serial = createLoader(file, 1);
+         SqliteTableLoader<String> parallel = createLoader(file, 4);
+
+         try
+         {
+            Map<String, List<String>> expected = serial.load();
+            Map<String, List<String>> actual = parallel.load();
+
+            assertEquals(QUERY_COUNT, expected.size());
+            assertEquals(ROW_COUNT, expected.get("all").size());
+            assertEquals(expected, actual);
+
+            // The queue is emptied by each load
+            assertTrue(serial.load().isEmpty());
+            assertTrue(parallel.load().isEmpty());
+         }
+
+         finally
+         {
+            serial.close();
+            parallel.close();
+         }
+      }
+
+      finally
+      {
+         FileHelper.deleteQuietly(file);
+      }
+   }
+
+   /**
+    * Create a loader with a set of queued queries.
+    *
+    * @param file database file
+    * @param threadCount number of threads
+    * @return loader
+    */
+   private SqliteTableLoader<String> createLoader(File file, int threadCount)
+   {
+      SqliteTableLoader<String> loader = new SqliteTableLoader<String>(file, new Properties(), new SqliteTableLoader.RowFactory<String>()
+      {
+         @Override public String createRow(ResultSet rs, Map<String, Integer> meta) throws SQLException
+         {
+            return rs.getInt("ID") + "/" + rs.getInt("PARENT") + "/" + rs.getString("NAME");
+         }
+      });
+      loader.setThreadCount(threadCount);
+
+      loader.addQuery("all", "select id, parent, name from item order by id");
+      for (int parent = 0; parent < QUERY_COUNT - 1; parent++)
+      {
+         loader.addQuery("parent" + parent, "select id, parent, name from item where parent=? order by name", Integer.valueOf(parent));
+      }
+
+      return loader;
+   }
+
+   /**
+    * Create a temporary database containing a single table.
+    *
+    * @return database file
+    */
+   private File createDatabase() throws Exception
+   {
+      File file = File.createTempFile("junit", ".sqlite");
+      Connection connection = org.sqlite.JDBC.createConnection("jdbc:sqlite:" + file.getAbsolutePath(), new Properties());
+
+      try
+      {
+         Statement statement = connection.createStatement();
+         statement.execute("create table item (id integer primary key, parent integer, name text)");
+         statement.close();
+
+         connection.setAutoCommit(false);
+         PreparedStatement ps = connection.prepareStatement("insert into item (id, parent, name) values (?, ?, ?)");
+         for (int id = 0; id < ROW_COUNT; id++)
+         {
+            ps.setInt(1, id);
+            ps.setInt(2, id % (QUERY_COUNT - 1));
+            ps.setString(3, "Item " + (ROW_COUNT - id));
+            ps.executeUpdate();
+         }
+         ps.close();
+         connection.commit();
+      }
+
+      finally
+      {
+         connection.close();
+      }
+
+      return file;
+   }
+
+   private static final int ROW_COUNT = 1000;
+   private static final int QUERY_COUNT = 10;
+}
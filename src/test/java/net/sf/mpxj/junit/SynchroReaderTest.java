@@ -0,0 +1,197 @@
+/*
+ * file:       SynchroReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.synchro.SynchroReader;
+
+/**
+ * Tests to exercise reading Synchro SP files.
+ */
+public class SynchroReaderTest
+{
+   /**
+    * Tables are read in the order required by the reader, regardless of
+    * their order in the file, and tables which are not used are skipped
+    * without being decompressed.
+    */
+   @Test public void testTableOrder() throws Exception
+   {
+      byte[] uuid = new byte[16];
+      uuid[0] = 1;
+
+      ByteArrayOutputStream calendars = new ByteArrayOutputStream();
+      writeInt(calendars, TABLE_HEADER);
+      writeInt(calendars, 1);
+      writeInt(calendars, 0x7FEC261D);
+      calendars.write(new byte[16]);
+      calendars.write(uuid);
+      writeString(calendars, "Standard");
+      writeEmptyTable(calendars);
+      calendars.write(new byte[4]);
+      calendars.write(new byte[7 * 16]);
+      calendars.write(new byte[4]);
+      writeEmptyTable(calendars);
+      writeEmptyTable(calendars);
+      calendars.write(new byte[8]);
+      writeInt(calendars, TABLE_TRAILER);
+      calendars.write(uuid);
+
+      ByteArrayOutputStream emptyTable = new ByteArrayOutputStream();
+      writeEmptyTable(emptyTable);
+
+      String[] names =
+      {
+         "Tasks",
+         "Unused",
+         "Calendars",
+         "Companies"
+      };
+
+      byte[][] data =
+      {
+         compress(emptyTable.toByteArray()),
+         new byte[]
+         {
+            1,
+            2,
+            3,
+            4
+         },
+         compress(calendars.toByteArray()),
+         compress(emptyTable.toByteArray())
+      };
+
+      ProjectFile project = new SynchroReader().read(new ByteArrayInputStream(createFile(names, data)));
+      assertEquals(0, project.getTasks().size());
+      assertEquals(0, project.getResources().size());
+
+      ProjectCalendar calendar = project.getCalendarByName("Standard");
+      assertNotNull(calendar);
+      assertSame(calendar, project.getDefaultCalendar());
+   }
+
+   /**
+    * Create an SP file from a set of tables.
+    *
+    * @param names table names
+    * @param data compressed table data
+    * @return file data
+    */
+   private byte[] createFile(String[] names, byte[][] data) throws Exception
+   {
+      ByteArrayOutputStream tables = new ByteArrayOutputStream();
+      ByteArrayOutputStream headers = new ByteArrayOutputStream();
+      int offset = 20 + 5 + (names.length + 1) * 48;
+
+      for (int index = 0; index < names.length; index++)
+      {
+         byte[] header = new byte[48];
+         System.arraycopy(names[index].getBytes("US-ASCII"), 0, header, 0, names[index].length());
+         header[40] = (byte) offset;
+         header[41] = (byte) (offset >> 8);
+         headers.write(header);
+
+         int start = tables.size();
+         writeString(tables, names[index]);
+         tables.write(data[index]);
+         offset += tables.size() - start;
+      }
+      headers.write(new byte[48]);
+
+      ByteArrayOutputStream file = new ByteArrayOutputStream();
+      file.write(new byte[20]);
+      writeString(file, "5.0");
+      headers.writeTo(file);
+      tables.writeTo(file);
+      return file.toByteArray();
+   }
+
+   /**
+    * Write a table containing no rows.
+    *
+    * @param stream output stream
+    */
+   private void writeEmptyTable(ByteArrayOutputStream stream)
+   {
+      writeInt(stream, TABLE_HEADER);
+      writeInt(stream, 0);
+      writeInt(stream, TABLE_TRAILER);
+   }
+
+   /**
+    * Write a string in Synchro format.
+    *
+    * @param stream output stream
+    * @param value string value
+    */
+   private void writeString(ByteArrayOutputStream stream, String value) throws Exception
+   {
+      byte[] bytes = value.getBytes("UTF-8");
+      stream.write(1);
+      stream.write(bytes.length);
+      stream.write(bytes);
+   }
+
+   /**
+    * Write a little endian int.
+    *
+    * @param stream output stream
+    * @param value int value
+    */
+   private void writeInt(ByteArrayOutputStream stream, int value)
+   {
+      for (int shift = 0; shift < 32; shift += 8)
+      {
+         stream.write(value >> shift);
+      }
+   }
+
+   /**
+    * Compress table data.
+    *
+    * @param data table data
+    * @return compressed data
+    */
+   private byte[] compress(byte[] data) throws Exception
+   {
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      DeflaterOutputStream stream = new DeflaterOutputStream(result);
+      stream.write(data);
+      stream.close();
+      return result.toByteArray();
+   }
+
+   private static final int TABLE_HEADER = 0x39AF547A;
+   private static final int TABLE_TRAILER = 0x6F99E416;
+}
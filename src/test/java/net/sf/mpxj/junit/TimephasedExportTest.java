@@ -0,0 +1,262 @@
+/*
+ * file:       TimephasedExportTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.DefaultTimephasedCostContainer;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.utility.TimephasedExport;
+import net.sf.mpxj.utility.TimephasedExportUtility;
+
+/**
+ * Tests to exercise the columnar timephased data export.
+ */
+public class TimephasedExportTest
+{
+   /**
+    * Work and cost are split into working days, skipping the weekend.
+    */
+   @Test public void testExport() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      Resource resource = addResource(file, calendar);
+      ResourceAssignment assignment = addAssignment(file, resource, "2020-01-10 08:00", "2020-01-14 17:00");
+
+      TimephasedCost baseline = new TimephasedCost();
+      baseline.setStart(parse("2020-01-13 08:00"));
+      baseline.setFinish(parse("2020-01-13 17:00"));
+      baseline.setAmountPerDay(Double.valueOf(50));
+      baseline.setTotalAmount(Double.valueOf(50));
+      List<TimephasedCost> baselineCost = new ArrayList<TimephasedCost>();
+      baselineCost.add(baseline);
+      assignment.setTimephasedBaselineCost(0, new DefaultTimephasedCostContainer(calendar, null, baselineCost, false));
+
+      TimephasedExport export = new TimephasedExportUtility().export(file);
+      assertEquals(3, export.getRowCount());
+
+      int uniqueID = assignment.getUniqueID().intValue();
+      assertArrayEquals(new int[]
+      {
+         uniqueID,
+         uniqueID,
+         uniqueID
+      }, export.getUniqueID());
+
+      // 2020-01-10, 2020-01-13 and 2020-01-14
+      assertArrayEquals(new int[]
+      {
+         18271,
+         18274,
+         18275
+      }, export.getEpochDay());
+
+      for (int row = 0; row < 3; row++)
+      {
+         assertEquals(480.0, export.getWork()[row], 0.0);
+         assertEquals(80.0, export.getCost()[row], 0.001);
+         assertEquals(0.0, export.getActualWork()[row], 0.0);
+         assertEquals(row == 1 ? 50.0 : 0.0, export.getBaselineCost()[row], 0.0);
+      }
+   }
+
+   /**
+    * A series whose items are all ignored does not prevent the
+    * other series from being exported, even where it uses a
+    * different calendar.
+    */
+   @Test public void testEmptySeries() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      file.addDefaultBaseCalendar();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      calendar.setName("Resource");
+      Resource resource = addResource(file, calendar);
+      ResourceAssignment assignment = addAssignment(file, resource, "2020-01-10 08:00", "2020-01-10 17:00");
+      assertNotSame(file.getBaselineCalendar(), assignment.getCalendar());
+
+      TimephasedCost baseline = new TimephasedCost();
+      baseline.setStart(parse("2020-01-10 08:00"));
+      baseline.setFinish(parse("2020-01-10 17:00"));
+      baseline.setAmountPerDay(Double.valueOf(0));
+      baseline.setTotalAmount(Double.valueOf(0));
+      List<TimephasedCost> baselineCost = new ArrayList<TimephasedCost>();
+      baselineCost.add(baseline);
+      assignment.setTimephasedBaselineCost(0, new DefaultTimephasedCostContainer(calendar, null, baselineCost, false));
+
+      TimephasedExport export = new TimephasedExportUtility().export(file);
+      assertEquals(1, export.getRowCount());
+      assertEquals(480.0, export.getWork()[0], 0.0);
+      assertEquals(0.0, export.getBaselineCost()[0], 0.0);
+   }
+
+   /**
+    * Exporting in parallel produces the same rows in the same order.
+    */
+   @Test public void testParallel() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      for (int index = 0; index < 50; index++)
+      {
+         Resource resource = addResource(file, calendar);
+         addAssignment(file, resource, "2020-01-06 08:00", "2020-02-" + (10 + index % 10) + " 17:00");
+      }
+
+      TimephasedExportUtility utility = new TimephasedExportUtility();
+      TimephasedExport serial = utility.export(file);
+      utility.setThreadCount(4);
+      TimephasedExport parallel = utility.export(file);
+
+      assertTrue(serial.getRowCount() > 1000);
+      assertEquals(serial.getRowCount(), parallel.getRowCount());
+      assertArrayEquals(serial.getUniqueID(), parallel.getUniqueID());
+      assertArrayEquals(serial.getEpochDay(), parallel.getEpochDay());
+      assertArrayEquals(serial.getWork(), parallel.getWork(), 0.0);
+      assertArrayEquals(serial.getCost(), parallel.getCost(), 0.0);
+   }
+
+   /**
+    * Exported data can be written as CSV and in the binary columnar format.
+    */
+   @Test public void testWriters() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      Resource resource = addResource(file, calendar);
+      ResourceAssignment assignment = addAssignment(file, resource, "2020-01-10 08:00", "2020-01-10 17:00");
+
+      TimephasedExportUtility utility = new TimephasedExportUtility();
+      TimephasedExport export = utility.export(file);
+
+      StringWriter writer = new StringWriter();
+      utility.writeCSV(export, writer);
+      String[] lines = writer.toString().split("\r\n");
+      assertEquals(2, lines.length);
+      assertEquals("UniqueID,EpochDay,Work,ActualWork,BaselineWork,Cost,ActualCost,BaselineCost", lines[0]);
+      assertEquals(assignment.getUniqueID() + ",18271,480,0,0,80,0,0", lines[1]);
+
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      utility.writeBinary(export, stream);
+      ByteBuffer buffer = ByteBuffer.wrap(stream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+      assertEquals("MPXJCOL1", new String(stream.toByteArray(), 0, 8, "US-ASCII"));
+      buffer.position(8);
+      assertEquals(8, buffer.getInt());
+      assertEquals(0, buffer.getInt());
+      assertEquals(1, buffer.getLong());
+
+      int[] types = new int[8];
+      for (int column = 0; column < 8; column++)
+      {
+         types[column] = buffer.getInt();
+         int length = buffer.getInt();
+         buffer.position(buffer.position() + (length + 7) / 8 * 8);
+      }
+      assertEquals(1, types[0]);
+      assertEquals(2, types[2]);
+
+      assertEquals(assignment.getUniqueID().intValue(), buffer.getInt());
+      buffer.getInt();
+      assertEquals(18271, buffer.getInt());
+      buffer.getInt();
+      assertEquals(480.0, buffer.getDouble(), 0.0);
+      assertEquals(5 * 8, buffer.remaining());
+   }
+
+   /**
+    * Add a work resource using the supplied calendar.
+    *
+    * @param file parent file
+    * @param calendar resource calendar
+    * @return new resource
+    */
+   private Resource addResource(ProjectFile file, ProjectCalendar calendar)
+   {
+      Resource resource = file.addResource();
+      resource.setType(ResourceType.WORK);
+      resource.setResourceCalendar(calendar);
+      resource.setStandardRate(new Rate(10, TimeUnit.HOURS));
+      return resource;
+   }
+
+   /**
+    * Add a task and an assignment with 8 hours of work per day.
+    *
+    * @param file parent file
+    * @param resource resource
+    * @param start start date
+    * @param finish finish date
+    * @return new assignment
+    */
+   private ResourceAssignment addAssignment(ProjectFile file, Resource resource, String start, String finish) throws Exception
+   {
+      Task task = file.addTask();
+      ResourceAssignment assignment = task.addResourceAssignment(resource);
+      TimephasedWork item = new TimephasedWork();
+      item.setStart(parse(start));
+      item.setFinish(parse(finish));
+      item.setTotalAmount(Duration.getInstance(8, TimeUnit.HOURS));
+      item.setAmountPerDay(Duration.getInstance(8, TimeUnit.HOURS));
+      List<TimephasedWork> work = new ArrayList<TimephasedWork>();
+      work.add(item);
+      assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(resource.getResourceCalendar(), null, work, false));
+      return assignment;
+   }
+
+   /**
+    * Parse a date.
+    *
+    * @param value date string
+    * @return Date instance
+    */
+   private Date parse(String value) throws Exception
+   {
+      DateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+      return format.parse(value);
+   }
+}
@@ -0,0 +1,135 @@
+/*
+ * file:       ValuePoolTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.ValuePool;
+import net.sf.mpxj.diff.ProjectChange;
+import net.sf.mpxj.diff.ProjectDiff;
+import net.sf.mpxj.mpx.MPXReader;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+
+/**
+ * Tests to exercise value pooling.
+ */
+public class ValuePoolTest
+{
+   /**
+    * Test the basic pool operations.
+    */
+   @Test public void testPool()
+   {
+      ValuePool pool = new ValuePool();
+
+      Date date1 = new Date(1000000);
+      Date date2 = new Date(1000000);
+      assertSame(date1, pool.intern(date1));
+      assertSame(date1, pool.intern(date2));
+      assertNotSame(date1, pool.intern(new Date(2000000)));
+
+      Duration duration1 = pool.intern(Duration.getInstance(8, TimeUnit.HOURS));
+      assertSame(duration1, pool.intern(Duration.getInstance(8, TimeUnit.HOURS)));
+      assertNotSame(duration1, pool.intern(Duration.getInstance(8, TimeUnit.DAYS)));
+      assertNotSame(duration1, pool.intern(Duration.getInstance(8.000001, TimeUnit.HOURS)));
+
+      Rate rate1 = pool.intern(new Rate(10, TimeUnit.HOURS));
+      assertSame(rate1, pool.internValue(new Rate(10, TimeUnit.HOURS)));
+
+      String text = pool.intern(new String("text"));
+      assertSame(text, pool.intern(new String("text")));
+
+      Integer value = Integer.valueOf(1000);
+      assertSame(value, pool.internValue(value));
+      assertNull(pool.intern((String) null));
+
+      assertEquals(11, pool.getRequestCount());
+      assertEquals(7, pool.getDistinctCount());
+      assertEquals(4.0 / 11.0, pool.getDedupRatio(), 0.0001);
+
+      pool.clear();
+      assertEquals(0, pool.getRequestCount());
+      assertEquals(0, pool.getDistinctCount());
+   }
+
+   /**
+    * Test reading an MPX file with a pool.
+    */
+   @Test public void testMpx() throws Exception
+   {
+      String fileName = MpxjTestData.filePath("generated/task-durations/task-durations-project98.mpx");
+      MPXReader reader = new MPXReader();
+      ProjectFile expected = reader.read(fileName);
+
+      ValuePool pool = new ValuePool();
+      reader.setValuePool(pool);
+      ProjectFile actual = reader.read(fileName);
+      validate(pool, expected, actual);
+   }
+
+   /**
+    * Test reading an XER file with a pool.
+    */
+   @Test public void testXer() throws Exception
+   {
+      String fileName = MpxjTestData.filePath("generated/task-percentcomplete/percent-complete-8.4.xer");
+      PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
+      ProjectFile expected = reader.read(fileName);
+
+      ValuePool pool = new ValuePool();
+      reader.setValuePool(pool);
+      ProjectFile actual = reader.read(fileName);
+      validate(pool, expected, actual);
+   }
+
+   /**
+    * Ensure that the project read using a pool matches the project read
+    * without a pool, and that the pool has deduplicated some values.
+    *
+    * @param pool value pool
+    * @param expected project read without a pool
+    * @param actual project read with a pool
+    */
+   private void validate(ValuePool pool, ProjectFile expected, ProjectFile actual)
+   {
+      List<ProjectChange> changes = new ProjectDiff().compare(expected, actual);
+      assertTrue(changes.toString(), changes.isEmpty());
+      assertTrue(pool.getRequestCount() > 0);
+      assertTrue(pool.getDedupRatio() > 0);
+
+      // The pool is only active for the duration of the read
+      String text = new String("text");
+      assertSame(text, ValuePool.getCurrent().intern(text));
+      assertNotSame(text, ValuePool.getCurrent().intern(new String("text")));
+   }
+}
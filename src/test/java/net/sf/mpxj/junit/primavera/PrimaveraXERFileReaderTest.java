@@ -0,0 +1,158 @@
+/*
+ * file:       PrimaveraXERFileReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2019
+ * date:       31/10/2019
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.primavera;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.common.CharsetHelper;
+import net.sf.mpxj.junit.MpxjTestData;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+
+/**
+ * Tests for PrimaveraXERFileReader functionality.
+ */
+public class PrimaveraXERFileReaderTest
+{
+   /**
+    * Ensure that reading all projects in parallel produces the same
+    * result as reading them sequentially.
+    */
+   @Test public void testReadAllParallel() throws Exception
+   {
+      byte[] data = createMultiProjectFile(MpxjTestData.filePath("generated/task-percentcomplete/percent-complete-8.4.xer"), 10);
+
+      PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
+      List<ProjectFile> expected = reader.readAll(new ByteArrayInputStream(data));
+      assertEquals(10, expected.size());
+
+      reader.setThreadCount(4);
+      List<ProjectFile> actual = reader.readAll(new ByteArrayInputStream(data));
+      assertEquals(expected.size(), actual.size());
+
+      for (int index = 0; index < expected.size(); index++)
+      {
+         ProjectFile expectedProject = expected.get(index);
+         ProjectFile actualProject = actual.get(index);
+         assertEquals(expectedProject.getProjectProperties().getUniqueID(), actualProject.getProjectProperties().getUniqueID());
+         assertEquals(expectedProject.getTasks().size(), actualProject.getTasks().size());
+         assertTrue(expectedProject.getTasks().size() > 1);
+
+         for (int taskIndex = 0; taskIndex < expectedProject.getTasks().size(); taskIndex++)
+         {
+            Task expectedTask = expectedProject.getTasks().get(taskIndex);
+            Task actualTask = actualProject.getTasks().get(taskIndex);
+            assertEquals(expectedTask.getUniqueID(), actualTask.getUniqueID());
+            assertEquals(expectedTask.getName(), actualTask.getName());
+            assertEquals(expectedTask.getStart(), actualTask.getStart());
+            assertEquals(expectedTask.getPercentageComplete(), actualTask.getPercentageComplete());
+         }
+      }
+
+      //
+      // Each project holds only its own tasks
+      //
+      Set<Integer> uniqueIDs = new HashSet<Integer>();
+      for (ProjectFile project : actual)
+      {
+         for (Task task : project.getTasks())
+         {
+            assertTrue(uniqueIDs.add(task.getUniqueID()));
+         }
+      }
+   }
+
+   /**
+    * Create an XER file containing several copies of the projects in an
+    * existing file. Each copy has its project, WBS and task IDs offset.
+    *
+    * @param fileName source XER file
+    * @param copies number of copies
+    * @return XER file data
+    */
+   private byte[] createMultiProjectFile(String fileName, int copies) throws Exception
+   {
+      Set<String> idColumns = new HashSet<String>(Arrays.asList("proj_id", "wbs_id", "parent_wbs_id", "task_id"));
+      StringBuilder sb = new StringBuilder();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), CharsetHelper.CP1252));
+      try
+      {
+         String[] fields = null;
+         boolean copyRows = false;
+         String line;
+         while ((line = reader.readLine()) != null)
+         {
+            String[] values = line.split("\t", -1);
+            if (values[0].equals("%T"))
+            {
+               copyRows = values[1].equals("PROJECT") || values[1].equals("PROJWBS") || values[1].equals("TASK");
+            }
+
+            if (values[0].equals("%F"))
+            {
+               fields = values;
+            }
+
+            if (!values[0].equals("%R") || !copyRows)
+            {
+               sb.append(line).append("\r\n");
+               continue;
+            }
+
+            for (int copy = 0; copy < copies; copy++)
+            {
+               for (int index = 0; index < values.length; index++)
+               {
+                  String value = values[index];
+                  if (copy != 0 && index < fields.length && idColumns.contains(fields[index]) && value.length() != 0)
+                  {
+                     value = Integer.toString(Integer.parseInt(value) + copy * 100000);
+                  }
+                  sb.append(index == 0 ? "" : "\t").append(value);
+               }
+               sb.append("\r\n");
+            }
+         }
+      }
+
+      finally
+      {
+         reader.close();
+      }
+
+      return sb.toString().getBytes(CharsetHelper.CP1252);
+   }
+}